@@ -7,6 +7,7 @@ import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 
 import static java.util.Objects.requireNonNull;
 
@@ -24,6 +25,11 @@ public final class EnqueueParams<PayloadT> {
     private Duration executionDelay = Duration.ZERO;
     @Nonnull
     private final Map<String, String> extData = new LinkedHashMap<>();
+    @Nullable
+    private String deduplicationKey;
+    @Nullable
+    private String coalescingKey;
+    private int priority;
 
     /**
      * Create new task parameters with payload
@@ -96,6 +102,54 @@ public final class EnqueueParams<PayloadT> {
         return this;
     }
 
+    /**
+     * Add a deduplication key for the task.
+     * <p>
+     * A task with the deduplication key will not be inserted into the queue
+     * when there is already a task with the same key in the queue.
+     * Requires deduplication key field in the queue table schema backed by a unique index.
+     *
+     * @param deduplicationKey Deduplication key of the task, {@code null} to disable deduplication.
+     * @return A reference to the same object with deduplication key set.
+     */
+    @Nonnull
+    public EnqueueParams<PayloadT> withDeduplicationKey(@Nullable String deduplicationKey) {
+        this.deduplicationKey = deduplicationKey;
+        return this;
+    }
+
+    /**
+     * Add a coalescing key for the task.
+     * <p>
+     * When the queue already has a task with the same key, which was not picked for processing yet,
+     * the existing task is updated with the payload, the execution delay and the additional data of this task
+     * instead of inserting a new one. Use it for tasks where only the latest enqueued version matters.
+     * Requires coalescing key field in the queue table schema.
+     *
+     * @param coalescingKey Coalescing key of the task, {@code null} to disable coalescing.
+     * @return A reference to the same object with coalescing key set.
+     */
+    @Nonnull
+    public EnqueueParams<PayloadT> withCoalescingKey(@Nullable String coalescingKey) {
+        this.coalescingKey = coalescingKey;
+        return this;
+    }
+
+    /**
+     * Set priority of the task.
+     * <p>
+     * Tasks with higher priority are picked more often when priority weights are configured
+     * for the queue. Requires priority field in the queue table schema.
+     *
+     * @param priority Priority of the task, {@code 0} if not set.
+     * @return A reference to the same object with priority set.
+     */
+    @Nonnull
+    public EnqueueParams<PayloadT> withPriority(int priority) {
+        this.priority = priority;
+        return this;
+    }
+
     /**
      * Get task payload
      *
@@ -128,6 +182,35 @@ public final class EnqueueParams<PayloadT> {
         return Collections.unmodifiableMap(extData);
     }
 
+    /**
+     * Get the deduplication key of the task.
+     *
+     * @return Deduplication key or empty object if the task should not be deduplicated.
+     */
+    @Nonnull
+    public Optional<String> getDeduplicationKey() {
+        return Optional.ofNullable(deduplicationKey);
+    }
+
+    /**
+     * Get the coalescing key of the task.
+     *
+     * @return Coalescing key or empty object if the task should not be coalesced.
+     */
+    @Nonnull
+    public Optional<String> getCoalescingKey() {
+        return Optional.ofNullable(coalescingKey);
+    }
+
+    /**
+     * Get priority of the task.
+     *
+     * @return Priority of the task.
+     */
+    public int getPriority() {
+        return priority;
+    }
+
     @Override
     public boolean equals(Object obj) {
         if (this == obj) {
@@ -137,20 +220,26 @@ public final class EnqueueParams<PayloadT> {
             return false;
         }
         EnqueueParams<?> that = (EnqueueParams<?>) obj;
-        return Objects.equals(payload, that.payload) &&
+        return priority == that.priority &&
+                Objects.equals(payload, that.payload) &&
                 Objects.equals(executionDelay, that.executionDelay) &&
-                Objects.equals(extData, that.extData);
+                Objects.equals(extData, that.extData) &&
+                Objects.equals(deduplicationKey, that.deduplicationKey) &&
+                Objects.equals(coalescingKey, that.coalescingKey);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(payload, executionDelay, extData);
+        return Objects.hash(payload, executionDelay, extData, deduplicationKey, coalescingKey, priority);
     }
 
     @Override
     public String toString() {
         return '{' +
                 "executionDelay=" + executionDelay +
+                (deduplicationKey != null ? ",deduplicationKey=" + deduplicationKey : "") +
+                (coalescingKey != null ? ",coalescingKey=" + coalescingKey : "") +
+                (priority != 0 ? ",priority=" + priority : "") +
                 (payload != null ? ",payload=" + payload : "") +
                 '}';
     }
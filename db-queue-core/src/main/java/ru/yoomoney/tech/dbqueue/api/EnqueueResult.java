@@ -16,6 +16,8 @@ public class EnqueueResult {
     private final QueueShardId shardId;
     @Nonnull
     private final Long enqueueId;
+    @Nonnull
+    private final EnqueueStatus status;
 
     /**
      * Constructor
@@ -24,8 +26,20 @@ public class EnqueueResult {
      * @param enqueueId sequence id
      */
     public EnqueueResult(@Nonnull QueueShardId shardId, @Nonnull Long enqueueId) {
+        this(shardId, enqueueId, EnqueueStatus.CREATED);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param shardId   shard id
+     * @param enqueueId sequence id
+     * @param status    enqueue status
+     */
+    public EnqueueResult(@Nonnull QueueShardId shardId, @Nonnull Long enqueueId, @Nonnull EnqueueStatus status) {
         this.shardId = Objects.requireNonNull(shardId);
         this.enqueueId = Objects.requireNonNull(enqueueId);
+        this.status = Objects.requireNonNull(status);
     }
 
     /**
@@ -48,11 +62,23 @@ public class EnqueueResult {
         return enqueueId;
     }
 
+    /**
+     * Status of the enqueue operation:
+     * whether a new task was added or an existing task was found by the deduplication key
+     *
+     * @return enqueue status
+     */
+    @Nonnull
+    public EnqueueStatus getStatus() {
+        return status;
+    }
+
     @Override
     public String toString() {
         return "EnqueueResult{" +
                 "shardId=" + shardId +
                 ", enqueueId=" + enqueueId +
+                ", status=" + status +
                 '}';
     }
 
@@ -65,12 +91,12 @@ public class EnqueueResult {
             return false;
         }
         EnqueueResult that = (EnqueueResult) obj;
-        return shardId.equals(that.shardId) && enqueueId.equals(that.enqueueId);
+        return shardId.equals(that.shardId) && enqueueId.equals(that.enqueueId) && status == that.status;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(shardId, enqueueId);
+        return Objects.hash(shardId, enqueueId, status);
     }
 
     /**
@@ -89,6 +115,7 @@ public class EnqueueResult {
 
         private QueueShardId shardId;
         private Long enqueueId;
+        private EnqueueStatus status = EnqueueStatus.CREATED;
 
         private Builder() {
         }
@@ -115,8 +142,19 @@ public class EnqueueResult {
             return this;
         }
 
+        /**
+         * Set status of the enqueue operation
+         *
+         * @param status enqueue status
+         * @return Builder
+         */
+        public Builder withStatus(@Nonnull EnqueueStatus status) {
+            this.status = Objects.requireNonNull(status, "status must not be null");
+            return this;
+        }
+
         public EnqueueResult build() {
-            return new EnqueueResult(shardId, enqueueId);
+            return new EnqueueResult(shardId, enqueueId, status);
         }
     }
 }
@@ -0,0 +1,26 @@
+package ru.yoomoney.tech.dbqueue.api;
+
+/**
+ * Status of the task enqueue operation.
+ *
+ * @author Oleg Kandaurov
+ * @since 19.10.2026
+ */
+public enum EnqueueStatus {
+    /**
+     * A new task was inserted into the queue.
+     */
+    CREATED,
+    /**
+     * A task with the same deduplication key already exists in the queue,
+     * a new task was not inserted.
+     * {@link EnqueueResult#getEnqueueId()} refers to the existing task.
+     */
+    DUPLICATE,
+    /**
+     * A pending task with the same coalescing key was updated in place,
+     * a new task was not inserted.
+     * {@link EnqueueResult#getEnqueueId()} refers to the updated task.
+     */
+    COALESCED
+}
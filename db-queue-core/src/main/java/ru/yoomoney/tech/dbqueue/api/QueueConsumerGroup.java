@@ -0,0 +1,125 @@
+package ru.yoomoney.tech.dbqueue.api;
+
+import ru.yoomoney.tech.dbqueue.api.impl.NoopPayloadTransformer;
+import ru.yoomoney.tech.dbqueue.settings.QueueConfig;
+import ru.yoomoney.tech.dbqueue.settings.QueueId;
+
+import javax.annotation.Nonnull;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Group of queues, which share the same table and are served by the same set of threads.
+ * <p>
+ * Tasks of all queues in the group are picked with a single query
+ * and each picked task is dispatched to the consumer of its queue.
+ * It allows to serve dozens of low-traffic queues with a handful of threads,
+ * instead of running a separate thread pool and a separate empty poll per queue.
+ * <p>
+ * The group is registered in {@link ru.yoomoney.tech.dbqueue.config.QueueService} as an ordinary queue
+ * and it is identified by the queue identifier of the group configuration.
+ * Group configuration defines the table, the thread count and the poll and failure settings.
+ * Consumers of the group keep their own reenqueue settings, payload transformers and executors.
+ * Consumers of the group must not be registered separately.
+ *
+ * @author Oleg Kandaurov
+ * @since 19.10.2026
+ */
+public final class QueueConsumerGroup implements QueueConsumer<String> {
+
+    @Nonnull
+    private final QueueConfig queueConfig;
+    @Nonnull
+    private final Map<QueueId, QueueConsumer<?>> consumers;
+
+    /**
+     * Constructor
+     *
+     * @param queueConfig group configuration
+     * @param consumers   consumers of the queues in the group
+     */
+    public QueueConsumerGroup(@Nonnull QueueConfig queueConfig,
+                              @Nonnull Collection<? extends QueueConsumer<?>> consumers) {
+        this.queueConfig = Objects.requireNonNull(queueConfig, "queueConfig");
+        Objects.requireNonNull(consumers, "consumers");
+        if (consumers.isEmpty()) {
+            throw new IllegalArgumentException("consumer group must contain at least one consumer");
+        }
+        Map<QueueId, QueueConsumer<?>> consumersByQueue = new LinkedHashMap<>();
+        String tableName = queueConfig.getLocation().getTableName();
+        for (QueueConsumer<?> consumer : consumers) {
+            QueueId queueId = consumer.getQueueConfig().getLocation().getQueueId();
+            if (!tableName.equals(consumer.getQueueConfig().getLocation().getTableName())) {
+                throw new IllegalArgumentException("queues of consumer group must share the same table: " +
+                        "queueId=" + queueId + ", tableName=" + consumer.getQueueConfig().getLocation().getTableName() +
+                        ", groupTableName=" + tableName);
+            }
+            if (consumersByQueue.put(queueId, consumer) != null) {
+                throw new IllegalArgumentException("duplicate queue in consumer group: queueId=" + queueId);
+            }
+        }
+        if (consumersByQueue.containsKey(queueConfig.getLocation().getQueueId())) {
+            throw new IllegalArgumentException("consumer group must have its own identifier: " +
+                    "queueId=" + queueConfig.getLocation().getQueueId());
+        }
+        this.consumers = Collections.unmodifiableMap(consumersByQueue);
+    }
+
+    /**
+     * Get consumers of the group.
+     *
+     * @return consumers by queue identifiers
+     */
+    @Nonnull
+    public Map<QueueId, QueueConsumer<?>> getConsumers() {
+        return consumers;
+    }
+
+    /**
+     * Get consumer of the given queue.
+     *
+     * @param queueId queue identifier
+     * @return consumer of the queue or empty if the queue does not belong to the group
+     */
+    @Nonnull
+    public Optional<QueueConsumer<?>> getConsumer(@Nonnull QueueId queueId) {
+        return Optional.ofNullable(consumers.get(Objects.requireNonNull(queueId, "queueId")));
+    }
+
+    /**
+     * Tasks of the group are executed by consumers of their queues.
+     *
+     * @param task A typed task for processing
+     * @return never returns
+     * @throws UnsupportedOperationException always
+     */
+    @Nonnull
+    @Override
+    public TaskExecutionResult execute(@Nonnull Task<String> task) {
+        throw new UnsupportedOperationException("tasks of consumer group are executed by consumers of their queues");
+    }
+
+    @Nonnull
+    @Override
+    public QueueConfig getQueueConfig() {
+        return queueConfig;
+    }
+
+    @Nonnull
+    @Override
+    public TaskPayloadTransformer<String> getPayloadTransformer() {
+        return NoopPayloadTransformer.getInstance();
+    }
+
+    @Override
+    public String toString() {
+        return '{' +
+                "queueConfig=" + queueConfig +
+                ", queues=" + consumers.keySet() +
+                '}';
+    }
+}
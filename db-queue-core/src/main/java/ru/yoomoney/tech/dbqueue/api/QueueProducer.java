@@ -1,6 +1,8 @@
 package ru.yoomoney.tech.dbqueue.api;
 
 import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Task producer for the queue, which adds a new task into the queue.
@@ -19,6 +21,21 @@ public interface QueueProducer<PayloadT> {
      */
     EnqueueResult enqueue(@Nonnull EnqueueParams<PayloadT> enqueueParams);
 
+    /**
+     * Add new tasks into the queue
+     * <p>
+     * Default implementation adds tasks one by one.
+     *
+     * @param enqueueParams Parameters with typed payload to enqueue the tasks
+     * @return Enqueue results in the order of given parameters
+     */
+    @Nonnull
+    default List<EnqueueResult> enqueueBatch(@Nonnull List<EnqueueParams<PayloadT>> enqueueParams) {
+        List<EnqueueResult> results = new ArrayList<>(enqueueParams.size());
+        enqueueParams.forEach(params -> results.add(enqueue(params)));
+        return results;
+    }
+
     /**
      * Get task payload transformer, which transform the task's payload into the {@linkplain String}
      *
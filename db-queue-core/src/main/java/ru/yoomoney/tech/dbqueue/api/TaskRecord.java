@@ -1,11 +1,14 @@
 package ru.yoomoney.tech.dbqueue.api;
 
+import ru.yoomoney.tech.dbqueue.settings.QueueId;
+
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.time.ZonedDateTime;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 
 /**
  * Raw database record with task parameters and payload
@@ -26,6 +29,9 @@ public final class TaskRecord {
     private final ZonedDateTime nextProcessAt;
     @Nonnull
     private final Map<String, String> extData;
+    private final int priority;
+    @Nullable
+    private final QueueId queueId;
 
     /**
      * Constructor for raw database record with task parameters and payload.
@@ -38,6 +44,8 @@ public final class TaskRecord {
      * @param createdAt              Date and time when the task was added into the queue.
      * @param nextProcessAt          Date and time of the next task execution.
      * @param extData                Map of external user-defined parameters, key is the column name in the tasks table.
+     * @param priority               Priority of the task.
+     * @param queueId                Identifier of the queue the task belongs to.
      */
     private TaskRecord(long id,
                        @Nullable String payload,
@@ -46,7 +54,9 @@ public final class TaskRecord {
                        long totalAttemptsCount,
                        @Nonnull ZonedDateTime createdAt,
                        @Nonnull ZonedDateTime nextProcessAt,
-                       @Nonnull Map<String, String> extData) {
+                       @Nonnull Map<String, String> extData,
+                       int priority,
+                       @Nullable QueueId queueId) {
         this.id = id;
         this.payload = payload;
         this.attemptsCount = attemptsCount;
@@ -55,6 +65,8 @@ public final class TaskRecord {
         this.createdAt = Objects.requireNonNull(createdAt);
         this.nextProcessAt = Objects.requireNonNull(nextProcessAt);
         this.extData = Objects.requireNonNull(extData);
+        this.priority = priority;
+        this.queueId = queueId;
     }
 
     /**
@@ -137,6 +149,27 @@ public final class TaskRecord {
         return extData;
     }
 
+    /**
+     * Get priority of the task.
+     *
+     * @return task priority, {@code 0} when priorities are not used.
+     */
+    public int getPriority() {
+        return priority;
+    }
+
+    /**
+     * Get identifier of the queue the task belongs to.
+     * <p>
+     * Filled when the task is picked by a consumer group, which serves several queues in the same table.
+     *
+     * @return queue identifier
+     */
+    @Nonnull
+    public Optional<QueueId> getQueueId() {
+        return Optional.ofNullable(queueId);
+    }
+
     @Override
     public boolean equals(Object obj) {
         if (this == obj) {
@@ -150,16 +183,18 @@ public final class TaskRecord {
                 attemptsCount == that.attemptsCount &&
                 reenqueueAttemptsCount == that.reenqueueAttemptsCount &&
                 totalAttemptsCount == that.totalAttemptsCount &&
+                priority == that.priority &&
                 Objects.equals(payload, that.payload) &&
                 Objects.equals(createdAt, that.createdAt) &&
                 Objects.equals(nextProcessAt, that.nextProcessAt) &&
-                Objects.equals(extData, that.extData);
+                Objects.equals(extData, that.extData) &&
+                Objects.equals(queueId, that.queueId);
     }
 
     @Override
     public int hashCode() {
         return Objects.hash(id, payload, attemptsCount, reenqueueAttemptsCount, totalAttemptsCount,
-                createdAt, nextProcessAt, extData);
+                createdAt, nextProcessAt, extData, priority, queueId);
     }
 
     @Override
@@ -171,6 +206,8 @@ public final class TaskRecord {
                 ", totalAttemptsCount=" + totalAttemptsCount +
                 ", createdAt=" + createdAt +
                 ", nextProcessAt=" + nextProcessAt +
+                (priority != 0 ? ", priority=" + priority : "") +
+                (queueId != null ? ", queueId=" + queueId : "") +
                 '}';
     }
 
@@ -194,6 +231,9 @@ public final class TaskRecord {
         private ZonedDateTime nextProcessAt = ZonedDateTime.now();
         @Nonnull
         private Map<String, String> extData = new LinkedHashMap<>();
+        private int priority;
+        @Nullable
+        private QueueId queueId;
 
         private Builder() {
         }
@@ -238,9 +278,19 @@ public final class TaskRecord {
             return this;
         }
 
+        public Builder withPriority(int priority) {
+            this.priority = priority;
+            return this;
+        }
+
+        public Builder withQueueId(@Nullable QueueId queueId) {
+            this.queueId = queueId;
+            return this;
+        }
+
         public TaskRecord build() {
             return new TaskRecord(id, payload, attemptsCount, reenqueueAttemptsCount,
-                    totalAttemptsCount, createdAt, nextProcessAt, extData);
+                    totalAttemptsCount, createdAt, nextProcessAt, extData, priority, queueId);
         }
     }
 }
@@ -0,0 +1,143 @@
+package ru.yoomoney.tech.dbqueue.api.impl;
+
+import ru.yoomoney.tech.dbqueue.api.EnqueueParams;
+import ru.yoomoney.tech.dbqueue.api.QueueShardRouter;
+import ru.yoomoney.tech.dbqueue.config.DatabaseAccessLayer;
+import ru.yoomoney.tech.dbqueue.config.QueueShard;
+import ru.yoomoney.tech.dbqueue.config.QueueShardId;
+
+import javax.annotation.Nonnull;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Shard router, which distributes tasks between shards by consistent hashing of a routing key.
+ * <p>
+ * Every shard is placed on a hash ring as a number of virtual nodes proportional to its weight.
+ * A task goes to the shard of the first virtual node following the hash of its routing key,
+ * so tasks with the same key always go to the same shard, adding a shard moves only
+ * a proportional part of the keys to it, and a shard with less weight gets less keys.
+ * <p>
+ * Hash of the key does not depend on JVM, so all nodes with the same shards route a key identically.
+ *
+ * @param <PayloadT>             The type of the payload in the task
+ * @param <DatabaseAccessLayerT> The type of the database access layer
+ * @author Oleg Kandaurov
+ * @since 19.10.2026
+ */
+public class ConsistentHashQueueShardRouter<PayloadT, DatabaseAccessLayerT extends DatabaseAccessLayer>
+        implements QueueShardRouter<PayloadT, DatabaseAccessLayerT> {
+
+    /**
+     * Default number of virtual nodes of a shard per unit of weight
+     */
+    public static final int DEFAULT_VIRTUAL_NODES = 128;
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    @Nonnull
+    private final Function<EnqueueParams<PayloadT>, String> keyExtractor;
+    @Nonnull
+    private final NavigableMap<Long, QueueShard<DatabaseAccessLayerT>> ring = new TreeMap<>();
+
+    /**
+     * Constructor of the router with equal weights of the shards
+     *
+     * @param queueShards  shards to route tasks to
+     * @param keyExtractor extractor of the routing key from the task parameters
+     */
+    public ConsistentHashQueueShardRouter(@Nonnull List<QueueShard<DatabaseAccessLayerT>> queueShards,
+                                          @Nonnull Function<EnqueueParams<PayloadT>, String> keyExtractor) {
+        this(toEqualWeights(queueShards), keyExtractor, DEFAULT_VIRTUAL_NODES);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param shardWeights          shards to route tasks to with their positive weights
+     * @param keyExtractor          extractor of the routing key from the task parameters
+     * @param virtualNodesPerWeight number of virtual nodes of a shard per unit of weight
+     */
+    public ConsistentHashQueueShardRouter(@Nonnull Map<QueueShard<DatabaseAccessLayerT>, Integer> shardWeights,
+                                          @Nonnull Function<EnqueueParams<PayloadT>, String> keyExtractor,
+                                          int virtualNodesPerWeight) {
+        requireNonNull(shardWeights, "shardWeights must not be null");
+        this.keyExtractor = requireNonNull(keyExtractor, "keyExtractor must not be null");
+        if (shardWeights.isEmpty()) {
+            throw new IllegalArgumentException("shardWeights must not be empty");
+        }
+        if (virtualNodesPerWeight <= 0) {
+            throw new IllegalArgumentException("virtualNodesPerWeight must be positive");
+        }
+        Set<QueueShardId> shardIds = new HashSet<>();
+        shardWeights.forEach((queueShard, weight) -> {
+            if (!shardIds.add(queueShard.getShardId())) {
+                throw new IllegalArgumentException("duplicate shard: shardId=" + queueShard.getShardId());
+            }
+            if (weight == null || weight <= 0) {
+                throw new IllegalArgumentException("weight must be positive: shardId=" + queueShard.getShardId());
+            }
+            for (int i = 0; i < weight * virtualNodesPerWeight; i++) {
+                ring.putIfAbsent(hash(queueShard.getShardId().asString() + '#' + i), queueShard);
+            }
+        });
+    }
+
+    /**
+     * Create extractor of the routing key from the external user parameter of the task.
+     *
+     * @param columnName name of the user-defined column in tasks table
+     * @param <PayloadT> The type of the payload in the task
+     * @return extractor of the routing key
+     */
+    @Nonnull
+    public static <PayloadT> Function<EnqueueParams<PayloadT>, String> byExtData(@Nonnull String columnName) {
+        requireNonNull(columnName, "columnName must not be null");
+        return enqueueParams -> enqueueParams.getExtData().get(columnName);
+    }
+
+    @Override
+    public QueueShard<DatabaseAccessLayerT> resolveShard(EnqueueParams<PayloadT> enqueueParams) {
+        String key = keyExtractor.apply(enqueueParams);
+        if (key == null) {
+            throw new IllegalArgumentException("routing key must not be null");
+        }
+        Map.Entry<Long, QueueShard<DatabaseAccessLayerT>> entry = ring.ceilingEntry(hash(key));
+        return entry != null ? entry.getValue() : ring.firstEntry().getValue();
+    }
+
+    private static <DatabaseAccessLayerT extends DatabaseAccessLayer> Map<QueueShard<DatabaseAccessLayerT>, Integer>
+    toEqualWeights(@Nonnull List<QueueShard<DatabaseAccessLayerT>> queueShards) {
+        requireNonNull(queueShards, "queueShards must not be null");
+        Map<QueueShard<DatabaseAccessLayerT>, Integer> shardWeights = new LinkedHashMap<>();
+        queueShards.forEach(queueShard -> shardWeights.put(queueShard, 1));
+        return shardWeights;
+    }
+
+    /**
+     * 64-bit FNV-1a hash with MurmurHash3 finalizer to spread close keys over the ring
+     */
+    static long hash(@Nonnull String key) {
+        long hash = FNV_OFFSET_BASIS;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= FNV_PRIME;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,165 @@
+package ru.yoomoney.tech.dbqueue.api.impl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ru.yoomoney.tech.dbqueue.api.EnqueueParams;
+import ru.yoomoney.tech.dbqueue.api.QueueShardRouter;
+import ru.yoomoney.tech.dbqueue.config.DatabaseAccessLayer;
+import ru.yoomoney.tech.dbqueue.config.QueueShard;
+import ru.yoomoney.tech.dbqueue.config.ShardHealth;
+import ru.yoomoney.tech.dbqueue.settings.QueueLocation;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Shard router, which sends a task to the shard with the least number of tasks in the queue.
+ * <p>
+ * Number of tasks on every shard is counted by {@link ru.yoomoney.tech.dbqueue.dao.QueueDao#countTasks}
+ * once per refresh interval in a background thread, which is started by {@link #start()}.
+ * {@link #resolveShard(EnqueueParams)} only reads the cached numbers and never queries the database.
+ * Tasks routed since the last count are added to the cached number,
+ * so the tasks are spread over the shards between the counts and before the first count.
+ * A shard, which failed to count its tasks, gets no tasks until the next successful count.
+ * A shard with unavailable {@link QueueShard#getHealth()} is not counted and gets no tasks,
+ * while other shards are available.
+ * <p>
+ * Tasks of the same key may go to different shards, use {@link ConsistentHashQueueShardRouter}
+ * when the tasks of a key must be processed on the same shard.
+ *
+ * @param <PayloadT>             The type of the payload in the task
+ * @param <DatabaseAccessLayerT> The type of the database access layer
+ * @author Oleg Kandaurov
+ * @since 19.10.2026
+ */
+@ThreadSafe
+public class LeastBacklogQueueShardRouter<PayloadT, DatabaseAccessLayerT extends DatabaseAccessLayer>
+        implements QueueShardRouter<PayloadT, DatabaseAccessLayerT> {
+
+    private static final Logger log = LoggerFactory.getLogger(LeastBacklogQueueShardRouter.class);
+
+    @Nonnull
+    private final QueueLocation location;
+    @Nonnull
+    private final Duration refreshInterval;
+    @Nonnull
+    private final List<ShardBacklog<DatabaseAccessLayerT>> backlogs = new ArrayList<>();
+    @Nullable
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * Constructor
+     *
+     * @param queueShards     shards to route tasks to
+     * @param location        location of the queue
+     * @param refreshInterval interval between counts of the tasks on the shards
+     */
+    public LeastBacklogQueueShardRouter(@Nonnull List<QueueShard<DatabaseAccessLayerT>> queueShards,
+                                        @Nonnull QueueLocation location,
+                                        @Nonnull Duration refreshInterval) {
+        requireNonNull(queueShards, "queueShards must not be null");
+        this.location = requireNonNull(location, "location must not be null");
+        this.refreshInterval = requireNonNull(refreshInterval, "refreshInterval must not be null");
+        if (queueShards.isEmpty()) {
+            throw new IllegalArgumentException("queueShards must not be empty");
+        }
+        if (refreshInterval.isNegative() || refreshInterval.isZero()) {
+            throw new IllegalArgumentException("refreshInterval must be positive");
+        }
+        queueShards.forEach(queueShard -> backlogs.add(new ShardBacklog<>(queueShard)));
+    }
+
+    /**
+     * Start periodic counting of the tasks on the shards, the first count is made at once.
+     */
+    public synchronized void start() {
+        if (scheduler != null) {
+            log.info("router is already started: location={}", location);
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "queue-backlog-router");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::refresh, 0L, refreshInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stop periodic counting of the tasks on the shards.
+     */
+    public synchronized void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    @Override
+    public QueueShard<DatabaseAccessLayerT> resolveShard(EnqueueParams<PayloadT> enqueueParams) {
+        ShardBacklog<DatabaseAccessLayerT> least = null;
+        for (ShardBacklog<DatabaseAccessLayerT> backlog : backlogs) {
+            if (isAvailable(backlog) && (least == null || backlog.getEstimate() < least.getEstimate())) {
+                least = backlog;
+            }
+        }
+        if (least == null) {
+            least = backlogs.get(0);
+        }
+        least.routedTasks.incrementAndGet();
+        return least.queueShard;
+    }
+
+    private static boolean isAvailable(@Nonnull ShardBacklog<?> backlog) {
+        return backlog.queueShard.getHealth().map(ShardHealth::isAvailable).orElse(true);
+    }
+
+    /**
+     * Count the tasks on the available shards.
+     */
+    void refresh() {
+        backlogs.stream().filter(LeastBacklogQueueShardRouter::isAvailable).forEach(this::refresh);
+    }
+
+    private void refresh(@Nonnull ShardBacklog<DatabaseAccessLayerT> backlog) {
+        long countedTasks;
+        try {
+            countedTasks = backlog.queueShard.getDatabaseAccessLayer().getQueueDao().countTasks(location);
+        } catch (RuntimeException exc) {
+            log.warn("cannot count tasks: shardId={}, location={}", backlog.queueShard.getShardId(), location, exc);
+            countedTasks = Long.MAX_VALUE;
+        }
+        backlog.routedTasks.set(0L);
+        backlog.countedTasks = countedTasks;
+    }
+
+    /**
+     * Cached number of tasks of the queue on a shard
+     */
+    private static class ShardBacklog<DatabaseAccessLayerT extends DatabaseAccessLayer> {
+        @Nonnull
+        private final QueueShard<DatabaseAccessLayerT> queueShard;
+        @Nonnull
+        private final AtomicLong routedTasks = new AtomicLong();
+        private volatile long countedTasks;
+
+        private ShardBacklog(@Nonnull QueueShard<DatabaseAccessLayerT> queueShard) {
+            this.queueShard = requireNonNull(queueShard, "queueShard must not be null");
+        }
+
+        private long getEstimate() {
+            long tasks = countedTasks;
+            return tasks == Long.MAX_VALUE ? Long.MAX_VALUE : tasks + routedTasks.get();
+        }
+    }
+}
@@ -10,8 +10,10 @@ import ru.yoomoney.tech.dbqueue.settings.QueueId;
 
 import javax.annotation.Nonnull;
 import java.time.Clock;
+import java.util.List;
 import java.util.Objects;
 import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
 
 /**
  * Wrapper for queue producer with logging and monitoring support
@@ -89,6 +91,19 @@ public class MonitoringQueueProducer<PayloadT> implements QueueProducer<PayloadT
         return enqueueResult;
     }
 
+    @Nonnull
+    @Override
+    public List<EnqueueResult> enqueueBatch(@Nonnull List<EnqueueParams<PayloadT>> enqueueParams) {
+        log.info("enqueuing tasks: queue={}, count={}", queueId, enqueueParams.size());
+        long startTime = clock.millis();
+        List<EnqueueResult> enqueueResults = queueProducer.enqueueBatch(enqueueParams);
+        log.info("tasks enqueued: ids={}", enqueueResults.stream()
+                .map(EnqueueResult::getEnqueueId).collect(Collectors.toList()));
+        long elapsedTime = clock.millis() - startTime;
+        enqueueResults.forEach(enqueueResult -> monitoringCallback.accept(enqueueResult, elapsedTime));
+        return enqueueResults;
+    }
+
     @Nonnull
     @Override
     public TaskPayloadTransformer<PayloadT> getPayloadTransformer() {
@@ -6,11 +6,27 @@ import ru.yoomoney.tech.dbqueue.api.QueueProducer;
 import ru.yoomoney.tech.dbqueue.api.QueueShardRouter;
 import ru.yoomoney.tech.dbqueue.api.TaskPayloadTransformer;
 import ru.yoomoney.tech.dbqueue.config.DatabaseAccessLayer;
+import ru.yoomoney.tech.dbqueue.config.QueueControl;
 import ru.yoomoney.tech.dbqueue.config.QueueShard;
+import ru.yoomoney.tech.dbqueue.config.QueueShardId;
+import ru.yoomoney.tech.dbqueue.config.ShardHealth;
+import ru.yoomoney.tech.dbqueue.dao.EnqueueOutcome;
+import ru.yoomoney.tech.dbqueue.dao.QueueDao;
 import ru.yoomoney.tech.dbqueue.settings.QueueConfig;
+import ru.yoomoney.tech.dbqueue.settings.QueueLocation;
 
 import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 /**
  * Wrapper for queue producer wrapper with sharding support.
@@ -48,18 +64,132 @@ public class ShardingQueueProducer<PayloadTaskT, DatabaseAccessLayerT extends Da
     @Override
     public EnqueueResult enqueue(@Nonnull EnqueueParams<PayloadTaskT> enqueueParams) {
         QueueShard<DatabaseAccessLayerT> queueShard = queueShardRouter.resolveShard(enqueueParams);
-        EnqueueParams<String> rawEnqueueParams = new EnqueueParams<String>()
-                .withPayload(payloadTransformer.fromObject(enqueueParams.getPayload()))
-                .withExecutionDelay(enqueueParams.getExecutionDelay())
-                .withExtData(enqueueParams.getExtData());
-        Long enqueueId = queueShard.getDatabaseAccessLayer().transact(() ->
-                queueShard.getDatabaseAccessLayer().getQueueDao().enqueue(queueConfig.getLocation(), rawEnqueueParams));
+        EnqueueParams<String> rawEnqueueParams = toRawEnqueueParams(enqueueParams);
+        QueueDao queueDao = queueShard.getDatabaseAccessLayer().getQueueDao();
+        EnqueueOutcome outcome = callShard(queueShard, () -> queueShard.getDatabaseAccessLayer()
+                .transact(() -> enqueue(queueDao, rawEnqueueParams)));
         return EnqueueResult.builder()
                 .withShardId(queueShard.getShardId())
-                .withEnqueueId(enqueueId)
+                .withEnqueueId(outcome.getTaskId())
+                .withStatus(outcome.getStatus())
                 .build();
     }
 
+    /**
+     * Add new tasks into the queue.
+     * <p>
+     * Tasks are grouped by shards, each group is added in a single transaction.
+     * Tasks without deduplication and coalescing keys are inserted through
+     * {@link QueueDao#enqueueBatch(QueueLocation, List)}.
+     *
+     * @param enqueueParams Parameters with typed payload to enqueue the tasks
+     * @return Enqueue results in the order of given parameters
+     */
+    @Nonnull
+    @Override
+    public List<EnqueueResult> enqueueBatch(@Nonnull List<EnqueueParams<PayloadTaskT>> enqueueParams) {
+        Objects.requireNonNull(enqueueParams);
+        Map<QueueShardId, QueueShard<DatabaseAccessLayerT>> shards = new LinkedHashMap<>();
+        Map<QueueShardId, List<Integer>> shardIndexes = new HashMap<>();
+        List<EnqueueParams<String>> rawEnqueueParams = new ArrayList<>(enqueueParams.size());
+        for (int i = 0; i < enqueueParams.size(); i++) {
+            QueueShard<DatabaseAccessLayerT> queueShard = queueShardRouter.resolveShard(enqueueParams.get(i));
+            rawEnqueueParams.add(toRawEnqueueParams(enqueueParams.get(i)));
+            shards.putIfAbsent(queueShard.getShardId(), queueShard);
+            shardIndexes.computeIfAbsent(queueShard.getShardId(), ignored -> new ArrayList<>()).add(i);
+        }
+        EnqueueResult[] results = new EnqueueResult[enqueueParams.size()];
+        shards.forEach((shardId, queueShard) -> {
+            List<Integer> indexes = shardIndexes.get(shardId);
+            List<EnqueueParams<String>> shardEnqueueParams = indexes.stream()
+                    .map(rawEnqueueParams::get)
+                    .collect(Collectors.toList());
+            List<EnqueueOutcome> outcomes = callShard(queueShard, () -> queueShard.getDatabaseAccessLayer()
+                    .transact(() -> enqueueBatch(queueShard.getDatabaseAccessLayer().getQueueDao(),
+                            shardEnqueueParams)));
+            for (int i = 0; i < indexes.size(); i++) {
+                results[indexes.get(i)] = EnqueueResult.builder()
+                        .withShardId(shardId)
+                        .withEnqueueId(outcomes.get(i).getTaskId())
+                        .withStatus(outcomes.get(i).getStatus())
+                        .build();
+            }
+        });
+        return Arrays.asList(results);
+    }
+
+    private EnqueueParams<String> toRawEnqueueParams(@Nonnull EnqueueParams<PayloadTaskT> enqueueParams) {
+        EnqueueParams<String> rawEnqueueParams = new EnqueueParams<String>()
+                .withPayload(payloadTransformer.fromObject(enqueueParams.getPayload()))
+                .withExecutionDelay(enqueueParams.getExecutionDelay())
+                .withExtData(enqueueParams.getExtData())
+                .withDeduplicationKey(enqueueParams.getDeduplicationKey().orElse(null))
+                .withCoalescingKey(enqueueParams.getCoalescingKey().orElse(null))
+                .withPriority(enqueueParams.getPriority());
+        if (rawEnqueueParams.getDeduplicationKey().isPresent() && rawEnqueueParams.getCoalescingKey().isPresent()) {
+            throw new IllegalArgumentException("deduplication key and coalescing key cannot be used together: " +
+                    "location=" + queueConfig.getLocation());
+        }
+        return rawEnqueueParams;
+    }
+
+    private <T> T callShard(@Nonnull QueueShard<DatabaseAccessLayerT> queueShard, @Nonnull Supplier<T> call) {
+        QueueControl.State queueState = queueShard.getControl()
+                .map(control -> control.getState(queueConfig.getLocation().getQueueId()))
+                .orElse(QueueControl.State.ACTIVE);
+        if (queueState == QueueControl.State.DRAINING) {
+            throw new IllegalStateException("queue is draining: shardId=" + queueShard.getShardId() +
+                    ", location=" + queueConfig.getLocation());
+        }
+        ShardHealth shardHealth = queueShard.getHealth().orElse(null);
+        if (shardHealth != null && !shardHealth.acquire().isZero()) {
+            throw new IllegalStateException("shard is unavailable: shardId=" + queueShard.getShardId() +
+                    ", location=" + queueConfig.getLocation());
+        }
+        long startTime = System.currentTimeMillis();
+        T result;
+        try {
+            result = call.get();
+        } catch (RuntimeException exc) {
+            if (shardHealth != null) {
+                shardHealth.recordFailure();
+            }
+            throw exc;
+        }
+        if (shardHealth != null) {
+            shardHealth.recordSuccess(System.currentTimeMillis() - startTime);
+        }
+        return result;
+    }
+
+    private List<EnqueueOutcome> enqueueBatch(@Nonnull QueueDao queueDao,
+                                              @Nonnull List<EnqueueParams<String>> rawEnqueueParams) {
+        List<EnqueueParams<String>> plainEnqueueParams = rawEnqueueParams.stream()
+                .filter(params -> !isKeyed(params))
+                .collect(Collectors.toList());
+        Iterator<Long> plainTaskIds = plainEnqueueParams.isEmpty() ? Collections.emptyIterator() :
+                queueDao.enqueueBatch(queueConfig.getLocation(), plainEnqueueParams).iterator();
+        List<EnqueueOutcome> outcomes = new ArrayList<>(rawEnqueueParams.size());
+        for (EnqueueParams<String> params : rawEnqueueParams) {
+            outcomes.add(isKeyed(params) ? enqueue(queueDao, params) : EnqueueOutcome.created(plainTaskIds.next()));
+        }
+        return outcomes;
+    }
+
+    private static boolean isKeyed(@Nonnull EnqueueParams<String> rawEnqueueParams) {
+        return rawEnqueueParams.getDeduplicationKey().isPresent() || rawEnqueueParams.getCoalescingKey().isPresent();
+    }
+
+    private EnqueueOutcome enqueue(@Nonnull QueueDao queueDao, @Nonnull EnqueueParams<String> rawEnqueueParams) {
+        if (rawEnqueueParams.getDeduplicationKey().isPresent()) {
+            return queueDao.enqueueIfAbsent(queueConfig.getLocation(), rawEnqueueParams);
+        }
+        if (rawEnqueueParams.getCoalescingKey().isPresent()) {
+            return queueDao.enqueueOrCoalesce(queueConfig.getLocation(), rawEnqueueParams);
+        }
+        return EnqueueOutcome.created(queueDao.enqueue(queueConfig.getLocation(), rawEnqueueParams));
+    }
+
     @Nonnull
     @Override
     public TaskPayloadTransformer<PayloadTaskT> getPayloadTransformer() {
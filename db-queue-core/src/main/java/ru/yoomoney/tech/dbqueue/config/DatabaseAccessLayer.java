@@ -1,11 +1,16 @@
 package ru.yoomoney.tech.dbqueue.config;
 
+import ru.yoomoney.tech.dbqueue.dao.QueueControlDao;
 import ru.yoomoney.tech.dbqueue.dao.QueueDao;
 import ru.yoomoney.tech.dbqueue.dao.QueuePickTaskDao;
+import ru.yoomoney.tech.dbqueue.dao.QueueRateLimitDao;
+import ru.yoomoney.tech.dbqueue.dao.QueueSettingsDao;
 import ru.yoomoney.tech.dbqueue.settings.FailureSettings;
+import ru.yoomoney.tech.dbqueue.settings.QueueId;
 import ru.yoomoney.tech.dbqueue.settings.QueueLocation;
 
 import javax.annotation.Nonnull;
+import java.util.Collection;
 import java.util.function.Supplier;
 
 /**
@@ -35,6 +40,53 @@ public interface DatabaseAccessLayer {
     QueuePickTaskDao createQueuePickTaskDao(@Nonnull QueueLocation queueLocation,
                                             @Nonnull FailureSettings failureSettings);
 
+    /**
+     * Create an instance of database-specific DAO, which picks tasks of several queues in the same table.
+     * <p>
+     * Picked tasks have {@link ru.yoomoney.tech.dbqueue.api.TaskRecord#getQueueId()} filled.
+     *
+     * @param groupLocation   location of the queue group, defines the table of the queues
+     * @param queueIds        identifiers of the queues in the group
+     * @param failureSettings settings for handling failures
+     * @return database-specific DAO instance.
+     */
+    @Nonnull
+    default QueuePickTaskDao createQueueGroupPickTaskDao(@Nonnull QueueLocation groupLocation,
+                                                         @Nonnull Collection<QueueId> queueIds,
+                                                         @Nonnull FailureSettings failureSettings) {
+        throw new UnsupportedOperationException("queue groups are not supported by " + getClass().getName());
+    }
+
+    /**
+     * Get an instance of DAO, which shares rate limits of queues between nodes.
+     *
+     * @return DAO instance.
+     */
+    @Nonnull
+    default QueueRateLimitDao getQueueRateLimitDao() {
+        throw new UnsupportedOperationException("shared rate limits are not supported by " + getClass().getName());
+    }
+
+    /**
+     * Get an instance of DAO, which reads queue settings shared between nodes.
+     *
+     * @return DAO instance.
+     */
+    @Nonnull
+    default QueueSettingsDao getQueueSettingsDao() {
+        throw new UnsupportedOperationException("settings table is not supported by " + getClass().getName());
+    }
+
+    /**
+     * Get an instance of DAO, which reads states of queues shared between nodes.
+     *
+     * @return DAO instance.
+     */
+    @Nonnull
+    default QueueControlDao getQueueControlDao() {
+        throw new UnsupportedOperationException("queue control table is not supported by " + getClass().getName());
+    }
+
     /**
      * Perform an operation in transaction
      *
@@ -51,6 +103,20 @@ public interface DatabaseAccessLayer {
      */
     void transact(@Nonnull Runnable runnable);
 
+    /**
+     * Perform a pick of a task in transaction.
+     * <p>
+     * Implementations may run the pick on a connection dedicated to the calling poller thread.
+     * If a transaction is already active, the pick must join it.
+     *
+     * @param <ResultT> result type
+     * @param supplier  pick operation
+     * @return result of operation
+     */
+    default <ResultT> ResultT transactPick(@Nonnull Supplier<ResultT> supplier) {
+        return transact(supplier);
+    }
+
     /**
      * Get database type for that database.
      *
@@ -25,9 +25,25 @@ public enum DatabaseDialect {
      * {@link QueueLocation.Builder#withIdSequence(String)}
      */
     ORACLE_11G,
+    /**
+     * Oracle 12c and higher
+     * <p>
+     * Tasks are picked and enqueued in a single round trip.
+     * The id field should be an identity column,
+     * otherwise you must specify sequence name in {@link QueueLocation.Builder#withIdSequence(String)}
+     */
+    ORACLE_12C,
 
     /**
      * H2 in-memory database
      */
-    H2
+    H2,
+
+    /**
+     * MySQL (version equals or higher than 8.0.1) and MariaDB (version equals or higher than 10.6)
+     * <p>
+     * These databases don't have sequences, so the id field must be {@code AUTO_INCREMENT}
+     * and {@link QueueLocation.Builder#withIdSequence(String)} is not supported.
+     */
+    MYSQL
 }
@@ -0,0 +1,82 @@
+package ru.yoomoney.tech.dbqueue.config;
+
+import ru.yoomoney.tech.dbqueue.api.TaskExecutionResult;
+import ru.yoomoney.tech.dbqueue.api.TaskRecord;
+import ru.yoomoney.tech.dbqueue.settings.QueueLocation;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Task listener, which counts picked tasks by their priority and delegates events to the given listener.
+ *
+ * @author Oleg Kandaurov
+ * @since 19.10.2026
+ */
+class PickCountingTaskLifecycleListener implements TaskLifecycleListener {
+
+    @Nonnull
+    private final TaskLifecycleListener delegate;
+    @Nonnull
+    private final Map<Integer, LongAdder> pickCounts = new ConcurrentHashMap<>();
+
+    PickCountingTaskLifecycleListener(@Nonnull TaskLifecycleListener delegate) {
+        this.delegate = requireNonNull(delegate, "delegate");
+    }
+
+    /**
+     * Get count of picked tasks by task priority.
+     *
+     * @return Map where key is the task priority and value is a count of picked tasks.
+     */
+    @Nonnull
+    Map<Integer, Long> getPickCountsByPriority() {
+        Map<Integer, Long> result = new TreeMap<>();
+        pickCounts.forEach((priority, count) -> result.put(priority, count.sum()));
+        return result;
+    }
+
+    @Override
+    public void picked(@Nonnull QueueShardId shardId, @Nonnull QueueLocation location,
+                       @Nonnull TaskRecord taskRecord, long pickTaskTime) {
+        pickCounts.computeIfAbsent(taskRecord.getPriority(), priority -> new LongAdder()).increment();
+        delegate.picked(shardId, location, taskRecord, pickTaskTime);
+    }
+
+    @Override
+    public void started(@Nonnull QueueShardId shardId, @Nonnull QueueLocation location,
+                        @Nonnull TaskRecord taskRecord) {
+        delegate.started(shardId, location, taskRecord);
+    }
+
+    @Override
+    public void executed(@Nonnull QueueShardId shardId, @Nonnull QueueLocation location,
+                         @Nonnull TaskRecord taskRecord, @Nonnull TaskExecutionResult executionResult,
+                         long processTaskTime) {
+        delegate.executed(shardId, location, taskRecord, executionResult, processTaskTime);
+    }
+
+    @Override
+    public void finished(@Nonnull QueueShardId shardId, @Nonnull QueueLocation location,
+                         @Nonnull TaskRecord taskRecord) {
+        delegate.finished(shardId, location, taskRecord);
+    }
+
+    @Override
+    public void crashed(@Nonnull QueueShardId shardId, @Nonnull QueueLocation location,
+                        @Nonnull TaskRecord taskRecord, @Nullable Exception exc) {
+        delegate.crashed(shardId, location, taskRecord, exc);
+    }
+
+    @Override
+    public void released(@Nonnull QueueShardId shardId, @Nonnull QueueLocation location,
+                         @Nonnull TaskRecord taskRecord) {
+        delegate.released(shardId, location, taskRecord);
+    }
+}
@@ -0,0 +1,168 @@
+package ru.yoomoney.tech.dbqueue.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ru.yoomoney.tech.dbqueue.internal.processing.MillisTimeProvider;
+import ru.yoomoney.tech.dbqueue.settings.QueueId;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Cluster-wide control of queues on a database shard.
+ * <p>
+ * States of queues are stored in a table of the shard, see {@link ru.yoomoney.tech.dbqueue.dao.QueueControlDao},
+ * so a queue can be paused on all nodes at once.
+ * States of all queues are read by a single query in {@link #refresh()} at most once per refresh interval,
+ * {@link #getState(QueueId)} returns the cached states and never queries the database,
+ * so producers can check the state inside a business transaction without joining it.
+ * {@link QueueService} refreshes the states from its {@code queue-control} thread.
+ * A node without running {@link QueueService} must call {@link #refresh()} periodically on its own.
+ * When the table cannot be read, the previously read states are kept.
+ * A queue without a row in the table is {@link State#ACTIVE}.
+ *
+ * @author Oleg Kandaurov
+ * @since 19.10.2026
+ */
+@ThreadSafe
+public class QueueControl {
+
+    private static final Logger log = LoggerFactory.getLogger(QueueControl.class);
+
+    /**
+     * State of a queue
+     */
+    public enum State {
+        /**
+         * Queue is processed as usual
+         */
+        ACTIVE,
+        /**
+         * Tasks are not picked, see {@link QueueService#pause(QueueId)}
+         */
+        PAUSED,
+        /**
+         * Tasks are picked by a single thread of the queue on every node and shard
+         */
+        THROTTLED,
+        /**
+         * Tasks are processed, but producers reject new tasks, so the queue drains to empty
+         */
+        DRAINING
+    }
+
+    @Nonnull
+    private final DatabaseAccessLayer databaseAccessLayer;
+    @Nonnull
+    private final String tableName;
+    @Nonnull
+    private final Duration refreshInterval;
+    @Nonnull
+    private final MillisTimeProvider millisTimeProvider;
+
+    @Nonnull
+    private volatile Map<QueueId, State> states = Collections.emptyMap();
+    private long refreshedAt;
+    private boolean refreshed;
+
+    /**
+     * Constructor
+     *
+     * @param databaseAccessLayer database access layer of the shard
+     * @param tableName           name of the table with states of queues
+     * @param refreshInterval     duration of caching the states
+     */
+    public QueueControl(@Nonnull DatabaseAccessLayer databaseAccessLayer,
+                        @Nonnull String tableName,
+                        @Nonnull Duration refreshInterval) {
+        this(databaseAccessLayer, tableName, refreshInterval, new MillisTimeProvider.SystemMillisTimeProvider());
+    }
+
+    QueueControl(@Nonnull DatabaseAccessLayer databaseAccessLayer,
+                 @Nonnull String tableName,
+                 @Nonnull Duration refreshInterval,
+                 @Nonnull MillisTimeProvider millisTimeProvider) {
+        this.databaseAccessLayer = requireNonNull(databaseAccessLayer, "databaseAccessLayer");
+        this.tableName = requireNonNull(tableName, "tableName");
+        this.refreshInterval = requireNonNull(refreshInterval, "refreshInterval");
+        this.millisTimeProvider = requireNonNull(millisTimeProvider, "millisTimeProvider");
+        if (refreshInterval.isNegative() || refreshInterval.isZero()) {
+            throw new IllegalArgumentException("refreshInterval must be positive");
+        }
+    }
+
+    /**
+     * Get duration of caching the states.
+     *
+     * @return refresh interval
+     */
+    @Nonnull
+    public Duration getRefreshInterval() {
+        return refreshInterval;
+    }
+
+    /**
+     * Get state of the queue from the states read by the last {@link #refresh()}.
+     * The database is not queried, so the method can be called inside a transaction.
+     *
+     * @param queueId queue identifier
+     * @return state of the queue, {@link State#ACTIVE} before the states have been read
+     */
+    @Nonnull
+    public State getState(@Nonnull QueueId queueId) {
+        requireNonNull(queueId, "queueId");
+        return states.getOrDefault(queueId, State.ACTIVE);
+    }
+
+    /**
+     * Read states of the queues from the table, when the refresh interval has passed since the previous read.
+     * <p>
+     * The method must be called from a background thread outside of any transaction,
+     * since a failed read in a transaction would mark the transaction as rollback-only.
+     */
+    public synchronized void refresh() {
+        long now = millisTimeProvider.getMillis();
+        if (refreshed && now - refreshedAt < refreshInterval.toMillis()) {
+            return;
+        }
+        refreshed = true;
+        refreshedAt = now;
+        Map<String, String> rawStates;
+        try {
+            rawStates = databaseAccessLayer.transact(() ->
+                    databaseAccessLayer.getQueueControlDao().loadQueueStates(tableName));
+        } catch (RuntimeException exc) {
+            log.warn("cannot read queue states, previous states are kept: table={}", tableName, exc);
+            return;
+        }
+        Map<QueueId, State> newStates = new HashMap<>();
+        rawStates.forEach((queueName, stateName) -> {
+            try {
+                newStates.put(new QueueId(queueName.trim()),
+                        State.valueOf(stateName.trim().toUpperCase(Locale.ROOT)));
+            } catch (RuntimeException exc) {
+                log.warn("unknown queue state, row is ignored: table={}, queueId={}, state={}",
+                        tableName, queueName, stateName);
+            }
+        });
+        if (!newStates.equals(states)) {
+            log.info("queue states changed: table={}, oldStates={}, newStates={}", tableName, states, newStates);
+        }
+        states = newStates;
+    }
+
+    @Override
+    public String toString() {
+        return "QueueControl{" +
+                "tableName=" + tableName +
+                ", refreshInterval=" + refreshInterval +
+                '}';
+    }
+}
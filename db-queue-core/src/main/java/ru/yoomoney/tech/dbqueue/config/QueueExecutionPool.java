@@ -3,17 +3,24 @@ package ru.yoomoney.tech.dbqueue.config;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import ru.yoomoney.tech.dbqueue.api.QueueConsumer;
+import ru.yoomoney.tech.dbqueue.config.impl.NoopTaskLifecycleListener;
 import ru.yoomoney.tech.dbqueue.internal.processing.MillisTimeProvider;
 import ru.yoomoney.tech.dbqueue.internal.processing.QueueLoop;
+import ru.yoomoney.tech.dbqueue.internal.processing.QueueRateLimiter;
 import ru.yoomoney.tech.dbqueue.internal.processing.QueueTaskPoller;
 import ru.yoomoney.tech.dbqueue.internal.runner.QueueRunner;
+import ru.yoomoney.tech.dbqueue.settings.ProcessingSettings;
 import ru.yoomoney.tech.dbqueue.settings.QueueConfigsReader;
 import ru.yoomoney.tech.dbqueue.settings.QueueId;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
@@ -25,13 +32,22 @@ import static java.util.Objects.requireNonNull;
 
 /**
  * Task execution pool: manages start, pause and shutdown of task executors on the assigned shard.
+ * <p>
+ * The pool is thread safe: its threads are changed not only by {@link QueueService},
+ * but also by {@link ThreadCountAutoscaler} through the settings and by {@link QueueControl}.
  *
  * @author Oleg Kandaurov
  * @since 14.07.2017
  */
+@ThreadSafe
 class QueueExecutionPool {
     private static final Logger log = LoggerFactory.getLogger(QueueExecutionPool.class);
 
+    /**
+     * Time to wait for the interrupted threads, before the tasks claimed by them are released
+     */
+    static final Duration INTERRUPTED_THREADS_TIMEOUT = Duration.ofSeconds(5L);
+
     @Nonnull
     private final QueueConsumer<?> queueConsumer;
     @Nonnull
@@ -45,17 +61,45 @@ class QueueExecutionPool {
     @Nonnull
     private final Supplier<QueueLoop> queueLoopFactory;
     @Nonnull
+    private final PickCountingTaskLifecycleListener pickCountingListener;
+    @Nonnull
     private final List<QueueWorker> queueWorkers = new ArrayList<>();
 
+    @Nonnull
+    private QueueControl.State controlState = QueueControl.State.ACTIVE;
     private boolean started;
+    private boolean paused;
 
     QueueExecutionPool(@Nonnull QueueConsumer<?> queueConsumer,
                        @Nonnull QueueShard<?> queueShard,
                        @Nonnull TaskLifecycleListener taskLifecycleListener,
                        @Nonnull ThreadLifecycleListener threadLifecycleListener) {
+        this(queueConsumer, queueShard, taskLifecycleListener, threadLifecycleListener, null, null);
+    }
+
+    QueueExecutionPool(@Nonnull QueueConsumer<?> queueConsumer,
+                       @Nonnull QueueShard<?> queueShard,
+                       @Nonnull TaskLifecycleListener taskLifecycleListener,
+                       @Nonnull ThreadLifecycleListener threadLifecycleListener,
+                       @Nullable SharedWorkerPool sharedWorkerPool,
+                       @Nullable SharedWorkerPool threadBudget) {
+        this(queueConsumer, queueShard, new PickCountingTaskLifecycleListener(taskLifecycleListener),
+                threadLifecycleListener, sharedWorkerPool, threadBudget);
+    }
+
+    private QueueExecutionPool(@Nonnull QueueConsumer<?> queueConsumer,
+                               @Nonnull QueueShard<?> queueShard,
+                               @Nonnull PickCountingTaskLifecycleListener pickCountingListener,
+                               @Nonnull ThreadLifecycleListener threadLifecycleListener,
+                               @Nullable SharedWorkerPool sharedWorkerPool,
+                               @Nullable SharedWorkerPool threadBudget) {
         this(queueConsumer, queueShard,
                 new QueueTaskPoller(threadLifecycleListener,
-                        new MillisTimeProvider.SystemMillisTimeProvider()),
+                        new MillisTimeProvider.SystemMillisTimeProvider(),
+                        new QueueRateLimiter(queueShard, queueConsumer.getQueueConfig().getLocation(),
+                                queueConsumer.getQueueConfig().getSettings().getProcessingSettings(),
+                                new MillisTimeProvider.SystemMillisTimeProvider()),
+                        queueShard.getHealth().orElse(null)),
                 new ThreadPoolExecutor(
                         queueConsumer.getQueueConfig().getSettings().getProcessingSettings().getThreadCount(),
                         Integer.MAX_VALUE,
@@ -63,8 +107,9 @@ class QueueExecutionPool {
                         new LinkedBlockingQueue<>(),
                         new QueueThreadFactory(
                                 queueConsumer.getQueueConfig().getLocation(), queueShard.getShardId())),
-                QueueRunner.Factory.create(queueConsumer, queueShard, taskLifecycleListener),
-                QueueLoop.WakeupQueueLoop::new);
+                createQueueRunner(queueConsumer, queueShard, pickCountingListener, sharedWorkerPool, threadBudget),
+                QueueLoop.WakeupQueueLoop::new,
+                pickCountingListener);
     }
 
     QueueExecutionPool(@Nonnull QueueConsumer<?> queueConsumer,
@@ -73,16 +118,45 @@ class QueueExecutionPool {
                        @Nonnull ExecutorService executor,
                        @Nonnull QueueRunner queueRunner,
                        @Nonnull Supplier<QueueLoop> queueLoopFactory) {
+        this(queueConsumer, queueShard, queueTaskPoller, executor, queueRunner, queueLoopFactory,
+                new PickCountingTaskLifecycleListener(NoopTaskLifecycleListener.getInstance()));
+    }
+
+    private QueueExecutionPool(@Nonnull QueueConsumer<?> queueConsumer,
+                               @Nonnull QueueShard<?> queueShard,
+                               @Nonnull QueueTaskPoller queueTaskPoller,
+                               @Nonnull ExecutorService executor,
+                               @Nonnull QueueRunner queueRunner,
+                               @Nonnull Supplier<QueueLoop> queueLoopFactory,
+                               @Nonnull PickCountingTaskLifecycleListener pickCountingListener) {
         this.queueConsumer = requireNonNull(queueConsumer);
         this.queueShard = requireNonNull(queueShard);
         this.queueTaskPoller = requireNonNull(queueTaskPoller);
         this.executor = requireNonNull(executor);
         this.queueRunner = requireNonNull(queueRunner);
         this.queueLoopFactory = requireNonNull(queueLoopFactory);
+        this.pickCountingListener = requireNonNull(pickCountingListener);
         queueConsumer.getQueueConfig().getSettings().getProcessingSettings().registerObserver(
                 (oldValue, newValue) -> resizePool(newValue.getThreadCount()));
     }
 
+    private static QueueRunner createQueueRunner(@Nonnull QueueConsumer<?> queueConsumer,
+                                                 @Nonnull QueueShard<?> queueShard,
+                                                 @Nonnull TaskLifecycleListener taskLifecycleListener,
+                                                 @Nullable SharedWorkerPool sharedWorkerPool,
+                                                 @Nullable SharedWorkerPool threadBudget) {
+        ProcessingSettings processingSettings = queueConsumer.getQueueConfig().getSettings().getProcessingSettings();
+        QueueRunner queueRunner = QueueRunner.Factory.create(queueConsumer, queueShard, taskLifecycleListener);
+        if (sharedWorkerPool != null) {
+            queueRunner = sharedWorkerPool.wrap(sharedWorkerPool.register(processingSettings), queueRunner);
+        }
+        if (threadBudget != null) {
+            // a thread waits for the budget of the queue before it takes a slot of the node-wide pool
+            queueRunner = threadBudget.wrap(threadBudget.register(processingSettings), queueRunner);
+        }
+        return queueRunner;
+    }
+
     private QueueId getQueueId() {
         return queueConsumer.getQueueConfig().getLocation().getQueueId();
     }
@@ -100,12 +174,22 @@ class QueueExecutionPool {
      * Start task processing in the queue
      */
     void start() {
+        start(Collections.emptyList());
+    }
+
+    /**
+     * Start task processing in the queue, delaying the first pick of the threads
+     *
+     * @param threadStartDelays delays of the first pick by thread index, threads without a delay start immediately
+     */
+    synchronized void start(@Nonnull List<Duration> threadStartDelays) {
+        requireNonNull(threadStartDelays, "threadStartDelays");
         if (!started && !isShutdown()) {
             int threadCount = queueConsumer.getQueueConfig().getSettings().getProcessingSettings().getThreadCount();
             log.info("starting queue: queueId={}, shardId={}, threadCount={}", getQueueId(), queueShard.getShardId(),
                     threadCount);
             for (int i = 0; i < threadCount; i++) {
-                startThread(true);
+                startThread(isWorkerActive(i), i < threadStartDelays.size() ? threadStartDelays.get(i) : Duration.ZERO);
             }
             setupExecutor(threadCount);
             started = true;
@@ -119,9 +203,9 @@ class QueueExecutionPool {
      *
      * @param newThreadCount thread count for execution pool.
      */
-    void resizePool(int newThreadCount) {
+    synchronized void resizePool(int newThreadCount) {
         int oldThreadCount = queueWorkers.size();
-        if (newThreadCount == oldThreadCount) {
+        if (newThreadCount == oldThreadCount || (newThreadCount > oldThreadCount && isShutdown())) {
             return;
         }
         log.info("resizing queue execution pool: queueId={}, shardId={}, oldThreadCount={}, " +
@@ -130,7 +214,7 @@ class QueueExecutionPool {
                 queueShard.getShardId(), oldThreadCount, newThreadCount);
         if (newThreadCount > oldThreadCount) {
             for (int i = oldThreadCount; i < newThreadCount; i++) {
-                startThread(!isPaused());
+                startThread(started && isWorkerActive(i), Duration.ZERO);
             }
         } else {
             for (int i = oldThreadCount; i > newThreadCount; i--) {
@@ -149,10 +233,14 @@ class QueueExecutionPool {
         }
     }
 
-    private void startThread(boolean startProcessing) {
+    private void startThread(boolean startProcessing, @Nonnull Duration startDelay) {
         QueueLoop queueLoop = queueLoopFactory.get();
-        Future<?> future = executor.submit(() -> queueTaskPoller.start(queueLoop, queueShard.getShardId(),
-                queueConsumer, queueRunner));
+        Future<?> future = executor.submit(() -> {
+            if (!startDelay.isZero()) {
+                queueLoop.doWait(startDelay, QueueLoop.WaitInterrupt.DENY);
+            }
+            queueTaskPoller.start(queueLoop, queueShard.getShardId(), queueConsumer, queueRunner);
+        });
         if (startProcessing) {
             queueLoop.unpause();
         }
@@ -166,35 +254,142 @@ class QueueExecutionPool {
     }
 
     /**
-     * Stop tasks processing, semantic is the same as for {@link ExecutorService#shutdownNow()}
+     * Stop tasks processing, semantic is the same as for {@link ExecutorService#shutdownNow()}.
+     * Picked tasks, which processing has not started, are returned to the queue.
+     */
+    synchronized void shutdown() {
+        if (shutdownNow()) {
+            releaseClaimedTasks();
+        }
+    }
+
+    /**
+     * Stop tasks processing without returning picked tasks to the queue,
+     * so several pools can be stopped at once before their tasks are returned
+     * with {@link QueueExecutionPool#releaseClaimedTasks()}.
+     *
+     * @return true, if the pool was running and has been stopped
      */
-    void shutdown() {
+    synchronized boolean shutdownNow() {
         if (started && !isShutdown()) {
             log.info("shutting down queue: queueId={}, shardId={}", getQueueId(), queueShard.getShardId());
             resizePool(0);
             executor.shutdownNow();
             started = false;
+            return true;
+        }
+        log.info("execution pool is already stopped or underlying executor is closed");
+        return false;
+    }
+
+    /**
+     * Stop picking tasks and let the threads finish their current tasks.
+     * Semantic is the same as for {@link ExecutorService#shutdown()}.
+     * <p>
+     * To complete the drain, await termination of the pool and call {@link QueueExecutionPool#finishDrain()}.
+     */
+    synchronized void drain() {
+        if (started && !isShutdown()) {
+            log.info("draining queue: queueId={}, shardId={}", getQueueId(), queueShard.getShardId());
+            queueWorkers.forEach(queueWorker -> queueWorker.getLoop().stop());
+            // threads waiting for a slot of the shared pool see the stop and don't pick tasks
+            queueRunner.wakeupWaiters();
+            executor.shutdown();
         } else {
             log.info("execution pool is already stopped or underlying executor is closed");
         }
     }
 
+    /**
+     * Complete the drain started with {@link QueueExecutionPool#drain()}:
+     * interrupt the threads, which have not finished their tasks,
+     * and return picked tasks, which processing has not started, to the queue.
+     */
+    synchronized void finishDrain() {
+        if (!isTerminated()) {
+            log.warn("queue is not drained in time, interrupting threads: queueId={}, shardId={}",
+                    getQueueId(), queueShard.getShardId());
+            executor.shutdownNow();
+            // an interrupted thread can still complete its task, so its result is written before the release
+            if (!awaitTermination(INTERRUPTED_THREADS_TIMEOUT)) {
+                log.warn("queue threads are not terminated after interruption: queueId={}, shardId={}",
+                        getQueueId(), queueShard.getShardId());
+            }
+        }
+        releaseClaimedTasks();
+        queueWorkers.clear();
+        started = false;
+    }
+
+    /**
+     * Return picked tasks, which processing has not started, to the queue.
+     */
+    synchronized void releaseClaimedTasks() {
+        try {
+            queueRunner.releaseClaimedTasks();
+        } catch (RuntimeException exc) {
+            log.warn("cannot release claimed tasks, they will be picked when their lease expires: " +
+                    "queueId={}, shardId={}", getQueueId(), queueShard.getShardId(), exc);
+        }
+    }
+
     /**
      * Pause task processing.
      * To start the processing again, use {@link QueueExecutionPool#unpause()} method
      */
-    void pause() {
+    synchronized void pause() {
         log.info("pausing queue: queueId={}, shardId={}", getQueueId(), queueShard.getShardId());
-        queueWorkers.forEach(queueWorker -> queueWorker.getLoop().pause());
+        paused = true;
+        applyWorkerStates();
     }
 
     /**
      * Continue task processing.
-     * To pause processing, use {@link QueueExecutionPool#pause()} method
+     * To pause processing, use {@link QueueExecutionPool#pause()} method.
+     * Processing stays paused or throttled, while the queue is paused or throttled by {@link QueueControl}.
      */
-    void unpause() {
+    synchronized void unpause() {
         log.info("unpausing queue: queueId={}, shardId={}", getQueueId(), queueShard.getShardId());
-        queueWorkers.forEach(queueWorker -> queueWorker.getLoop().unpause());
+        paused = false;
+        applyWorkerStates();
+    }
+
+    /**
+     * Apply cluster-wide state of the queue from {@link QueueShard#getControl()}, if the shard has the control.
+     */
+    synchronized void applyQueueControl() {
+        if (!started || isShutdown()) {
+            return;
+        }
+        QueueControl.State newState = queueShard.getControl()
+                .map(control -> control.getState(getQueueId()))
+                .orElse(QueueControl.State.ACTIVE);
+        if (newState == controlState) {
+            return;
+        }
+        log.info("applying queue control: queueId={}, shardId={}, oldState={}, newState={}",
+                getQueueId(), queueShard.getShardId(), controlState, newState);
+        controlState = newState;
+        applyWorkerStates();
+    }
+
+    private void applyWorkerStates() {
+        for (int i = 0; i < queueWorkers.size(); i++) {
+            QueueLoop queueLoop = queueWorkers.get(i).getLoop();
+            if (isWorkerActive(i)) {
+                queueLoop.unpause();
+            } else {
+                queueLoop.pause();
+            }
+        }
+        queueRunner.wakeupWaiters();
+    }
+
+    private boolean isWorkerActive(int workerIndex) {
+        if (paused || controlState == QueueControl.State.PAUSED) {
+            return false;
+        }
+        return controlState != QueueControl.State.THROTTLED || workerIndex == 0;
     }
 
     /**
@@ -202,7 +397,7 @@ class QueueExecutionPool {
      *
      * @return true if the tasks processing was paused.
      */
-    boolean isPaused() {
+    synchronized boolean isPaused() {
         return queueWorkers.stream().allMatch(queueWorker -> queueWorker.getLoop().isPaused());
     }
 
@@ -238,7 +433,7 @@ class QueueExecutionPool {
         log.info("awaiting queue termination: queueId={}, shardId={}, timeout={}",
                 getQueueId(), queueShard.getShardId(), timeout);
         try {
-            return executor.awaitTermination(timeout.getSeconds(), TimeUnit.SECONDS);
+            return executor.awaitTermination(timeout.toMillis(), TimeUnit.MILLISECONDS);
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
             return false;
@@ -249,10 +444,20 @@ class QueueExecutionPool {
      * Force continue task processing if processing was paused
      * with {@link QueueConfigsReader#SETTING_NO_TASK_TIMEOUT} event.
      */
-    void wakeup() {
+    synchronized void wakeup() {
         queueWorkers.forEach(queueWorker -> queueWorker.getLoop().doContinue());
     }
 
+    /**
+     * Get count of tasks picked by the execution pool, grouped by task priority.
+     *
+     * @return Map where key is the task priority and value is a count of picked tasks.
+     */
+    @Nonnull
+    Map<Integer, Long> getPickCountsByPriority() {
+        return pickCountingListener.getPickCountsByPriority();
+    }
+
     private static class QueueWorker {
         @Nonnull
         private final Future<?> future;
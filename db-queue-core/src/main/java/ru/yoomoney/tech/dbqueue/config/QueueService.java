@@ -3,8 +3,6 @@ package ru.yoomoney.tech.dbqueue.config;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import ru.yoomoney.tech.dbqueue.api.QueueConsumer;
-import ru.yoomoney.tech.dbqueue.internal.processing.MillisTimeProvider;
-import ru.yoomoney.tech.dbqueue.internal.processing.TimeLimiter;
 import ru.yoomoney.tech.dbqueue.settings.FailureSettings;
 import ru.yoomoney.tech.dbqueue.settings.PollSettings;
 import ru.yoomoney.tech.dbqueue.settings.ProcessingSettings;
@@ -15,22 +13,38 @@ import ru.yoomoney.tech.dbqueue.settings.QueueSettings;
 import ru.yoomoney.tech.dbqueue.settings.ReenqueueSettings;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import javax.annotation.concurrent.ThreadSafe;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 import java.util.function.BiFunction;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import static java.util.Objects.requireNonNull;
 
 /**
  * A service for managing start, pause and shutdown of task processors.
+ * <p>
+ * When shards have {@link QueueShard#getControl()}, cluster-wide states of the queues
+ * are applied to the task processors of the shards by a background thread.
  *
  * @author Oleg Kandaurov
  * @since 14.07.2017
@@ -47,13 +61,29 @@ public class QueueService {
     private final List<QueueShard<?>> queueShards;
     @Nonnull
     private final BiFunction<QueueShard<?>, QueueConsumer<?>, QueueExecutionPool> queueExecutionPoolFactory;
+    @Nullable
+    private ScheduledExecutorService queueControlExecutor;
 
     public QueueService(@Nonnull List<QueueShard<?>> queueShards,
                         @Nonnull ThreadLifecycleListener threadLifecycleListener,
                         @Nonnull TaskLifecycleListener taskLifecycleListener) {
-        this(queueShards,
-                (shard, consumer) -> new QueueExecutionPool(consumer, shard,
-                        taskLifecycleListener, threadLifecycleListener));
+        this(queueShards, createQueueExecutionPoolFactory(threadLifecycleListener, taskLifecycleListener, null));
+    }
+
+    /**
+     * Constructor of the service, which serves all the queues with a node-wide pool of worker slots.
+     *
+     * @param queueShards             shards of the queues
+     * @param threadLifecycleListener listener of the task processing threads
+     * @param taskLifecycleListener   listener of the task processing
+     * @param sharedWorkerPool        pool of worker slots shared by the queues
+     */
+    public QueueService(@Nonnull List<QueueShard<?>> queueShards,
+                        @Nonnull ThreadLifecycleListener threadLifecycleListener,
+                        @Nonnull TaskLifecycleListener taskLifecycleListener,
+                        @Nonnull SharedWorkerPool sharedWorkerPool) {
+        this(queueShards, createQueueExecutionPoolFactory(threadLifecycleListener, taskLifecycleListener,
+                requireNonNull(sharedWorkerPool, "sharedWorkerPool")));
     }
 
     QueueService(@Nonnull List<QueueShard<?>> queueShards,
@@ -63,6 +93,32 @@ public class QueueService {
         this.queueExecutionPoolFactory = requireNonNull(queueExecutionPoolFactory, "queueExecutionPoolFactory");
     }
 
+    private static BiFunction<QueueShard<?>, QueueConsumer<?>, QueueExecutionPool> createQueueExecutionPoolFactory(
+            @Nonnull ThreadLifecycleListener threadLifecycleListener,
+            @Nonnull TaskLifecycleListener taskLifecycleListener,
+            @Nullable SharedWorkerPool sharedWorkerPool) {
+        Map<QueueId, SharedWorkerPool> threadBudgets = new ConcurrentHashMap<>();
+        return (shard, consumer) -> {
+            ProcessingSettings processingSettings = consumer.getQueueConfig().getSettings().getProcessingSettings();
+            SharedWorkerPool threadBudget = processingSettings.isCrossShardThreads() ?
+                    threadBudgets.computeIfAbsent(consumer.getQueueConfig().getLocation().getQueueId(),
+                            queueId -> createThreadBudget(processingSettings)) : null;
+            return new QueueExecutionPool(consumer, shard, taskLifecycleListener, threadLifecycleListener,
+                    sharedWorkerPool, threadBudget);
+        };
+    }
+
+    /**
+     * Create a pool of slots, which limits the number of threads of the queue on all shards
+     * by {@link ProcessingSettings#getThreadCount()}.
+     */
+    private static SharedWorkerPool createThreadBudget(@Nonnull ProcessingSettings processingSettings) {
+        SharedWorkerPool threadBudget = new SharedWorkerPool(Math.max(1, processingSettings.getThreadCount()));
+        processingSettings.registerObserver(
+                (oldValue, newValue) -> threadBudget.resize(Math.max(1, newValue.getThreadCount())));
+        return threadBudget;
+    }
+
     private Map<QueueShardId, QueueExecutionPool> getQueuePools(@Nonnull QueueId queueId,
                                                                 @Nonnull String method) {
         requireNonNull(queueId, "queueId");
@@ -100,7 +156,8 @@ public class QueueService {
      * Update queue configurations.
      * Applies update to these type of settings:
      * <p>
-     * {@link ProcessingSettings} - supports update only for {@link ProcessingSettings#getThreadCount()} setting
+     * {@link ProcessingSettings} - supports update only for {@link ProcessingSettings#getThreadCount()},
+     * {@link ProcessingSettings#getSchedulingWeight()} and {@link ProcessingSettings#getMinThreadCount()} settings
      * <p>
      * {@link PollSettings}, {@link FailureSettings}, {@link ReenqueueSettings} - supports update of all settings
      *
@@ -148,6 +205,57 @@ public class QueueService {
         registeredQueues.keySet().forEach(this::start);
     }
 
+    /**
+     * Start tasks processing in all queues registered in the service, spreading the first picks over the warm-up.
+     * <p>
+     * The warm-up is divided into equal slots, one slot per processing thread of all queues and shards.
+     * Every thread gets a random slot and makes its first pick at a random moment of the slot,
+     * so the database gets a steady ramp of pick queries after a deploy instead of a burst.
+     *
+     * @param warmUpDuration duration, over which the processing threads start.
+     */
+    public synchronized void start(@Nonnull Duration warmUpDuration) {
+        requireNonNull(warmUpDuration, "warmUpDuration");
+        if (warmUpDuration.isNegative()) {
+            throw new IllegalArgumentException("warmUpDuration must not be negative: " + warmUpDuration);
+        }
+        if (warmUpDuration.isZero()) {
+            start();
+            return;
+        }
+        int threadCount = registeredQueues.entrySet().stream()
+                .mapToInt(queue -> queue.getValue().size() * registeredConsumer.get(queue.getKey())
+                        .getQueueConfig().getSettings().getProcessingSettings().getThreadCount())
+                .sum();
+        log.info("starting all queues: warmUpDuration={}, threadCount={}", warmUpDuration, threadCount);
+        List<Duration> startDelays = createStartDelays(warmUpDuration, threadCount);
+        Iterator<Duration> startDelaysIterator = startDelays.iterator();
+        registeredQueues.forEach((queueId, queuePools) -> {
+            int queueThreadCount = registeredConsumer.get(queueId)
+                    .getQueueConfig().getSettings().getProcessingSettings().getThreadCount();
+            queuePools.values().forEach(queueExecutionPool -> {
+                List<Duration> poolStartDelays = new ArrayList<>(queueThreadCount);
+                for (int i = 0; i < queueThreadCount && startDelaysIterator.hasNext(); i++) {
+                    poolStartDelays.add(startDelaysIterator.next());
+                }
+                queueExecutionPool.start(poolStartDelays);
+            });
+        });
+        startQueueControl();
+    }
+
+    @Nonnull
+    private static List<Duration> createStartDelays(@Nonnull Duration warmUpDuration, int threadCount) {
+        List<Duration> startDelays = new ArrayList<>(threadCount);
+        long slotNanos = warmUpDuration.toNanos() / Math.max(1, threadCount);
+        for (int slot = 0; slot < threadCount; slot++) {
+            long jitterNanos = slotNanos > 0L ? ThreadLocalRandom.current().nextLong(slotNanos) : 0L;
+            startDelays.add(Duration.ofNanos(slot * slotNanos + jitterNanos));
+        }
+        Collections.shuffle(startDelays);
+        return startDelays;
+    }
+
     /**
      * Start tasks processing in one given queue.
      *
@@ -157,6 +265,46 @@ public class QueueService {
         requireNonNull(queueId, "queueId");
         log.info("starting queue: queueId={}", queueId);
         getQueuePools(queueId, "start").values().forEach(QueueExecutionPool::start);
+        startQueueControl();
+    }
+
+    private void startQueueControl() {
+        if (queueControlExecutor != null) {
+            return;
+        }
+        queueShards.stream()
+                .map(QueueShard::getControl)
+                .filter(Optional::isPresent)
+                .map(control -> control.get().getRefreshInterval())
+                .min(Comparator.naturalOrder())
+                .ifPresent(refreshInterval -> {
+                    log.info("starting queue control: refreshInterval={}", refreshInterval);
+                    queueControlExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                        Thread thread = new Thread(runnable, "queue-control");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                    queueControlExecutor.scheduleWithFixedDelay(this::applyQueueControl, 0L,
+                            refreshInterval.toMillis(), TimeUnit.MILLISECONDS);
+                });
+    }
+
+    /**
+     * Apply cluster-wide states of the queues to the task processors, see {@link QueueShard#getControl()}
+     */
+    synchronized void applyQueueControl() {
+        try {
+            queueShards.stream()
+                    .map(QueueShard::getControl)
+                    .filter(Optional::isPresent)
+                    .map(Optional::get)
+                    .distinct()
+                    .forEach(QueueControl::refresh);
+            registeredQueues.values().forEach(queuePools ->
+                    queuePools.values().forEach(QueueExecutionPool::applyQueueControl));
+        } catch (RuntimeException exc) {
+            log.warn("cannot apply queue control", exc);
+        }
     }
 
     /**
@@ -165,7 +313,38 @@ public class QueueService {
      */
     public synchronized void shutdown() {
         log.info("shutting down all queues");
-        registeredQueues.keySet().forEach(this::shutdown);
+        stopQueueControl();
+        shutdown(getAllQueuePools());
+    }
+
+    /**
+     * Gracefully stop tasks processing in all queues registered in the service.
+     * <p>
+     * Queues stop picking tasks at once, while the tasks in processing are completed
+     * and their results are written to the database within the given timeout.
+     * Threads, which have not finished in time, are interrupted as in {@link QueueService#shutdown()}.
+     * Then picked tasks, which processing has not started, are returned to the queue
+     * with the next processing time set to now, so other nodes pick them right away
+     * instead of waiting for the retry interval.
+     *
+     * @param timeout Wait timeout for the tasks in processing.
+     * @return List of queues, which have not finished the tasks in processing within the timeout.
+     */
+    public synchronized List<QueueId> drain(@Nonnull Duration timeout) {
+        requireNonNull(timeout, "timeout");
+        log.info("draining all queues: timeout={}", timeout);
+        stopQueueControl();
+        registeredQueues.values().forEach(queuePools -> queuePools.values().forEach(QueueExecutionPool::drain));
+        List<QueueId> notDrainedQueues = awaitTermination(timeout);
+        runConcurrently(getAllQueuePools(), QueueExecutionPool::finishDrain);
+        return notDrainedQueues;
+    }
+
+    private void stopQueueControl() {
+        if (queueControlExecutor != null) {
+            queueControlExecutor.shutdownNow();
+            queueControlExecutor = null;
+        }
     }
 
     /**
@@ -177,7 +356,69 @@ public class QueueService {
     public synchronized void shutdown(@Nonnull QueueId queueId) {
         requireNonNull(queueId, "queueId");
         log.info("shutting down queue: queueId={}", queueId);
-        getQueuePools(queueId, "shutdown").values().forEach(QueueExecutionPool::shutdown);
+        shutdown(getQueuePools(queueId, "shutdown").values());
+    }
+
+    /**
+     * Stop all the given pools at once and only then return their picked tasks to the queue concurrently,
+     * so slow release of the tasks of one pool doesn't delay stopping of the others.
+     */
+    private static void shutdown(@Nonnull Collection<QueueExecutionPool> queuePools) {
+        List<QueueExecutionPool> stoppedPools = queuePools.stream()
+                .filter(QueueExecutionPool::shutdownNow)
+                .collect(Collectors.toList());
+        runConcurrently(stoppedPools, QueueExecutionPool::releaseClaimedTasks);
+    }
+
+    @Nonnull
+    private List<QueueExecutionPool> getAllQueuePools() {
+        return registeredQueues.values().stream()
+                .flatMap(queuePools -> queuePools.values().stream())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Apply the action to every pool in a separate thread and wait for all the actions to complete.
+     * <p>
+     * The first failure of the actions is thrown after all the actions have completed.
+     */
+    private static void runConcurrently(@Nonnull Collection<QueueExecutionPool> queuePools,
+                                        @Nonnull Consumer<QueueExecutionPool> action) {
+        if (queuePools.size() <= 1) {
+            queuePools.forEach(action);
+            return;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(queuePools.size(), runnable -> {
+            Thread thread = new Thread(runnable, "queue-shutdown");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<?>> futures = queuePools.stream()
+                    .map(queuePool -> executor.submit(() -> action.accept(queuePool)))
+                    .collect(Collectors.toList());
+            RuntimeException failure = null;
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException exc) {
+                    RuntimeException cause = exc.getCause() instanceof RuntimeException ?
+                            (RuntimeException) exc.getCause() : new IllegalStateException(exc.getCause());
+                    if (failure == null) {
+                        failure = cause;
+                    } else {
+                        failure.addSuppressed(cause);
+                    }
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        } catch (InterruptedException exc) {
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdownNow();
+        }
     }
 
     /**
@@ -228,8 +469,9 @@ public class QueueService {
     }
 
     /**
-     * Pause task processing in specified queue.
+     * Pause task processing in specified queue on this node.
      * To start the processing again, use {{@link QueueService#unpause(QueueId)} method.
+     * To pause the queue on all nodes, use {@link QueueControl}.
      *
      * @param queueId Queue identifier.
      */
@@ -251,6 +493,7 @@ public class QueueService {
     /**
      * Continue task processing in specified queue.
      * To pause processing, use {{@link QueueService#pause(QueueId)} method.
+     * Processing stays paused or throttled, while the queue is paused or throttled by {@link QueueControl}.
      *
      * @param queueId Queue identifier.
      */
@@ -293,6 +536,8 @@ public class QueueService {
     /**
      * Wait for tasks (and threads) termination in all queues within given timeout.
      * Semantic is the same as for {@link ExecutorService#awaitTermination(long, TimeUnit)}.
+     * <p>
+     * The queues are awaited concurrently, so the wait takes no longer than the termination of the slowest queue.
      *
      * @param timeout Wait timeout.
      * @return List of queues, which didn't stop their work (didn't terminate).
@@ -300,9 +545,7 @@ public class QueueService {
     public synchronized List<QueueId> awaitTermination(@Nonnull Duration timeout) {
         requireNonNull(timeout, "timeout");
         log.info("awaiting all queues termination: timeout={}", timeout);
-        TimeLimiter timeLimiter = new TimeLimiter(new MillisTimeProvider.SystemMillisTimeProvider(), timeout);
-        registeredQueues.keySet().forEach(queueId ->
-                timeLimiter.execute(remainingTimeout -> awaitTermination(queueId, remainingTimeout)));
+        runConcurrently(getAllQueuePools(), queueExecutionPool -> queueExecutionPool.awaitTermination(timeout));
         return registeredQueues.keySet().stream().filter(queueId -> !isTerminated(queueId)).collect(Collectors.toList());
     }
 
@@ -318,15 +561,32 @@ public class QueueService {
         requireNonNull(queueId, "queueId");
         requireNonNull(timeout, "timeout");
         log.info("awaiting queue termination: queueId={}, timeout={}", queueId, timeout);
-        TimeLimiter timeLimiter = new TimeLimiter(new MillisTimeProvider.SystemMillisTimeProvider(), timeout);
-        getQueuePools(queueId, "awaitTermination").values()
-                .forEach(queueExecutionPool -> timeLimiter.execute(queueExecutionPool::awaitTermination));
+        runConcurrently(getQueuePools(queueId, "awaitTermination").values(),
+                queueExecutionPool -> queueExecutionPool.awaitTermination(timeout));
         return getQueuePools(queueId, "awaitTermination").values().stream()
                 .filter(queueExecutionPool -> !queueExecutionPool.isTerminated())
                 .map(QueueExecutionPool::getQueueShardId)
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Get count of picked tasks in specified queue, grouped by shard and task priority.
+     * <p>
+     * Counters are accumulated since the queue registration and might be used
+     * to check the share of each priority lane, configured with {@link QueueConfigsReader#SETTING_PRIORITY_WEIGHTS}.
+     *
+     * @param queueId Queue identifier.
+     * @return Map where key is the shard identifier and value is a map of picked task counts by task priority.
+     */
+    public synchronized Map<QueueShardId, Map<Integer, Long>> getPickCountsByPriority(@Nonnull QueueId queueId) {
+        requireNonNull(queueId, "queueId");
+        Map<QueueShardId, Map<Integer, Long>> result = new LinkedHashMap<>();
+        getQueuePools(queueId, "getPickCountsByPriority")
+                .forEach((shardId, queueExecutionPool) ->
+                        result.put(shardId, queueExecutionPool.getPickCountsByPriority()));
+        return result;
+    }
+
     /**
      * Force continue task processing in specified queue by given shard identifier.
      * <p>
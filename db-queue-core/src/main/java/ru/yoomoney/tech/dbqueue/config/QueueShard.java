@@ -1,6 +1,8 @@
 package ru.yoomoney.tech.dbqueue.config;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Optional;
 
 import static java.util.Objects.requireNonNull;
 
@@ -17,6 +19,10 @@ public class QueueShard<DatabaseAccessLayerT extends DatabaseAccessLayer> {
     private final QueueShardId shardId;
     @Nonnull
     private final DatabaseAccessLayerT databaseAccessLayer;
+    @Nullable
+    private final ShardHealth health;
+    @Nullable
+    private final QueueControl control;
 
     /**
      * Constructor
@@ -26,8 +32,39 @@ public class QueueShard<DatabaseAccessLayerT extends DatabaseAccessLayer> {
      */
     public QueueShard(@Nonnull QueueShardId shardId,
                       @Nonnull DatabaseAccessLayerT databaseAccessLayer) {
+        this(shardId, databaseAccessLayer, null);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param shardId             Shard identifier.
+     * @param databaseAccessLayer database access layer.
+     * @param health              health of the shard, which is reported by producers and pollers of the shard.
+     */
+    public QueueShard(@Nonnull QueueShardId shardId,
+                      @Nonnull DatabaseAccessLayerT databaseAccessLayer,
+                      @Nullable ShardHealth health) {
+        this(shardId, databaseAccessLayer, health, null);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param shardId             Shard identifier.
+     * @param databaseAccessLayer database access layer.
+     * @param health              health of the shard, which is reported by producers and pollers of the shard.
+     * @param control             cluster-wide control of the queues, which is consulted by producers and pollers
+     *                            of the shard.
+     */
+    public QueueShard(@Nonnull QueueShardId shardId,
+                      @Nonnull DatabaseAccessLayerT databaseAccessLayer,
+                      @Nullable ShardHealth health,
+                      @Nullable QueueControl control) {
         this.shardId = requireNonNull(shardId);
         this.databaseAccessLayer = requireNonNull(databaseAccessLayer);
+        this.health = health;
+        this.control = control;
     }
 
     /**
@@ -49,4 +86,24 @@ public class QueueShard<DatabaseAccessLayerT extends DatabaseAccessLayer> {
     public DatabaseAccessLayerT getDatabaseAccessLayer() {
         return databaseAccessLayer;
     }
+
+    /**
+     * Get health of the shard.
+     *
+     * @return health of the shard or empty, when the health is not tracked.
+     */
+    @Nonnull
+    public Optional<ShardHealth> getHealth() {
+        return Optional.ofNullable(health);
+    }
+
+    /**
+     * Get cluster-wide control of the queues on the shard.
+     *
+     * @return control of the queues or empty, when the queues are controlled only locally.
+     */
+    @Nonnull
+    public Optional<QueueControl> getControl() {
+        return Optional.ofNullable(control);
+    }
 }
@@ -3,8 +3,10 @@ package ru.yoomoney.tech.dbqueue.config;
 import ru.yoomoney.tech.dbqueue.api.TaskRecord;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
@@ -41,6 +43,14 @@ public class QueueTableSchema {
     private final String nextProcessAtField;
     @Nonnull
     private final List<String> extFields;
+    @Nullable
+    private final String deduplicationKeyField;
+    @Nullable
+    private final String coalescingKeyField;
+    @Nullable
+    private final String priorityField;
+    @Nullable
+    private final String concurrencyKeyField;
 
     private QueueTableSchema(@Nonnull String idField,
                              @Nonnull String queueNameField,
@@ -50,7 +60,11 @@ public class QueueTableSchema {
                              @Nonnull String totalAttemptField,
                              @Nonnull String createdAtField,
                              @Nonnull String nextProcessAtField,
-                             @Nonnull List<String> extFields) {
+                             @Nonnull List<String> extFields,
+                             @Nullable String deduplicationKeyField,
+                             @Nullable String coalescingKeyField,
+                             @Nullable String priorityField,
+                             @Nullable String concurrencyKeyField) {
         this.idField = removeSpecialChars(requireNonNull(idField));
         this.queueNameField = removeSpecialChars(requireNonNull(queueNameField));
         this.payloadField = removeSpecialChars(requireNonNull(payloadField));
@@ -61,6 +75,14 @@ public class QueueTableSchema {
         this.nextProcessAtField = removeSpecialChars(requireNonNull(nextProcessAtField));
         this.extFields = requireNonNull(extFields).stream().map(QueueTableSchema::removeSpecialChars)
                 .collect(Collectors.toList());
+        this.deduplicationKeyField = deduplicationKeyField == null ? null : removeSpecialChars(deduplicationKeyField);
+        this.coalescingKeyField = coalescingKeyField == null ? null : removeSpecialChars(coalescingKeyField);
+        this.priorityField = priorityField == null ? null : removeSpecialChars(priorityField);
+        this.concurrencyKeyField = concurrencyKeyField == null ? null : removeSpecialChars(concurrencyKeyField);
+        if (this.concurrencyKeyField != null && !this.extFields.contains(this.concurrencyKeyField)) {
+            throw new IllegalArgumentException("concurrency key field must be one of ext fields: " +
+                    "concurrencyKeyField=" + this.concurrencyKeyField + ", extFields=" + this.extFields);
+        }
     }
 
     /**
@@ -169,6 +191,59 @@ public class QueueTableSchema {
         return extFields;
     }
 
+    /**
+     * Field with a column name for the task deduplication key ({@code TEXT} type).
+     * Column maps onto {@link ru.yoomoney.tech.dbqueue.api.EnqueueParams#getDeduplicationKey()}.
+     * <p>
+     * The column must be covered by a unique index on queue name and deduplication key columns.
+     *
+     * @return Column name or empty object if deduplication is not supported by the table.
+     */
+    @Nonnull
+    public Optional<String> getDeduplicationKeyField() {
+        return Optional.ofNullable(deduplicationKeyField);
+    }
+
+    /**
+     * Field with a column name for the task coalescing key ({@code TEXT} type).
+     * Column maps onto {@link ru.yoomoney.tech.dbqueue.api.EnqueueParams#getCoalescingKey()}.
+     * <p>
+     * The column should be covered by an index on queue name and coalescing key columns.
+     *
+     * @return Column name or empty object if coalescing is not supported by the table.
+     */
+    @Nonnull
+    public Optional<String> getCoalescingKeyField() {
+        return Optional.ofNullable(coalescingKeyField);
+    }
+
+    /**
+     * Field with a column name for the task priority ({@code INTEGER} type).
+     * Column maps onto {@link TaskRecord#getPriority()}.
+     * <p>
+     * The column should be covered by an index on queue name, priority and next processing time columns.
+     *
+     * @return Column name or empty object if priorities are not supported by the table.
+     */
+    @Nonnull
+    public Optional<String> getPriorityField() {
+        return Optional.ofNullable(priorityField);
+    }
+
+    /**
+     * Field with a column name for the task concurrency key.
+     * The column must be one of {@link #getExtFields()}, for example a merchant identifier.
+     * <p>
+     * Tasks with the same key are limited by {@link ru.yoomoney.tech.dbqueue.settings.PollSettings#getKeyConcurrencyLimit()}.
+     * The column should be covered by an index on queue name and concurrency key columns.
+     *
+     * @return Column name or empty object if concurrency limits are not supported by the table.
+     */
+    @Nonnull
+    public Optional<String> getConcurrencyKeyField() {
+        return Optional.ofNullable(concurrencyKeyField);
+    }
+
     public static Builder builder() {
         return new Builder();
     }
@@ -186,6 +261,10 @@ public class QueueTableSchema {
         private String createdAtField = "created_at";
         private String nextProcessAtField = "next_process_at";
         private List<String> extFields = new ArrayList<>();
+        private String deduplicationKeyField;
+        private String coalescingKeyField;
+        private String priorityField;
+        private String concurrencyKeyField;
 
         private Builder() {
         }
@@ -235,9 +314,30 @@ public class QueueTableSchema {
             return this;
         }
 
+        public Builder withDeduplicationKeyField(String deduplicationKeyField) {
+            this.deduplicationKeyField = deduplicationKeyField;
+            return this;
+        }
+
+        public Builder withCoalescingKeyField(String coalescingKeyField) {
+            this.coalescingKeyField = coalescingKeyField;
+            return this;
+        }
+
+        public Builder withPriorityField(String priorityField) {
+            this.priorityField = priorityField;
+            return this;
+        }
+
+        public Builder withConcurrencyKeyField(String concurrencyKeyField) {
+            this.concurrencyKeyField = concurrencyKeyField;
+            return this;
+        }
+
         public QueueTableSchema build() {
             return new QueueTableSchema(idField, queueNameField, payloadField, attemptField, reenqueueAttemptField,
-                    totalAttemptField, createdAtField, nextProcessAtField, extFields);
+                    totalAttemptField, createdAtField, nextProcessAtField, extFields, deduplicationKeyField,
+                    coalescingKeyField, priorityField, concurrencyKeyField);
         }
     }
 }
@@ -0,0 +1,202 @@
+package ru.yoomoney.tech.dbqueue.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ru.yoomoney.tech.dbqueue.internal.processing.MillisTimeProvider;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+import java.time.Duration;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Health of a database shard with circuit breaker semantics.
+ * <p>
+ * Producers and pollers of the shard report their database calls to the health.
+ * A failed call or a call slower than the slow call threshold is considered a failure.
+ * After the given number of consecutive failures the circuit opens:
+ * producers fail fast instead of waiting for the shard and pollers of all queues on the shard
+ * wait until the open duration passes instead of probing the shard on every thread.
+ * Then the circuit becomes half-open and lets a single call through:
+ * its success closes the circuit, its failure opens the circuit again.
+ *
+ * @author Oleg Kandaurov
+ * @since 19.10.2026
+ */
+@ThreadSafe
+public class ShardHealth {
+
+    private static final Logger log = LoggerFactory.getLogger(ShardHealth.class);
+
+    /**
+     * State of the circuit
+     */
+    public enum State {
+        /**
+         * Shard is healthy, all calls are allowed
+         */
+        CLOSED,
+        /**
+         * Shard is unhealthy, calls are not allowed until the open duration passes
+         */
+        OPEN,
+        /**
+         * Open duration passed, a single probe call is allowed
+         */
+        HALF_OPEN
+    }
+
+    private final int failureThreshold;
+    @Nonnull
+    private final Duration slowCallThreshold;
+    @Nonnull
+    private final Duration openDuration;
+    @Nonnull
+    private final MillisTimeProvider millisTimeProvider;
+
+    @Nonnull
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean probeInFlight;
+
+    /**
+     * Constructor
+     *
+     * @param failureThreshold  number of consecutive failures, which opens the circuit
+     * @param slowCallThreshold duration of a call, starting from which the call is considered a failure
+     * @param openDuration      duration of the open state before a probe call is allowed
+     */
+    public ShardHealth(int failureThreshold,
+                       @Nonnull Duration slowCallThreshold,
+                       @Nonnull Duration openDuration) {
+        this(failureThreshold, slowCallThreshold, openDuration, new MillisTimeProvider.SystemMillisTimeProvider());
+    }
+
+    ShardHealth(int failureThreshold,
+                @Nonnull Duration slowCallThreshold,
+                @Nonnull Duration openDuration,
+                @Nonnull MillisTimeProvider millisTimeProvider) {
+        this.slowCallThreshold = requireNonNull(slowCallThreshold, "slowCallThreshold");
+        this.openDuration = requireNonNull(openDuration, "openDuration");
+        this.millisTimeProvider = requireNonNull(millisTimeProvider, "millisTimeProvider");
+        if (failureThreshold <= 0) {
+            throw new IllegalArgumentException("failureThreshold must be positive");
+        }
+        if (slowCallThreshold.isNegative() || slowCallThreshold.isZero()) {
+            throw new IllegalArgumentException("slowCallThreshold must be positive");
+        }
+        if (openDuration.isNegative() || openDuration.isZero()) {
+            throw new IllegalArgumentException("openDuration must be positive");
+        }
+        this.failureThreshold = failureThreshold;
+    }
+
+    /**
+     * Get state of the circuit.
+     *
+     * @return state of the circuit
+     */
+    @Nonnull
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * Check whether a call to the shard would be allowed, without taking the probe call in half-open state.
+     *
+     * @return true, if the call is allowed
+     */
+    public synchronized boolean isAvailable() {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                return millisTimeProvider.getMillis() - openedAt >= openDuration.toMillis();
+            case HALF_OPEN:
+                return !probeInFlight;
+            default:
+                throw new IllegalStateException("unknown state: " + state);
+        }
+    }
+
+    /**
+     * Get permission to call the shard.
+     * <p>
+     * Every permitted call must be reported by {@link #recordSuccess(long)} or {@link #recordFailure()}
+     * or given up by {@link #releaseProbe()}.
+     *
+     * @return {@link Duration#ZERO}, if the call is allowed,
+     * otherwise the duration after which the call should be retried
+     */
+    @Nonnull
+    public synchronized Duration acquire() {
+        if (state == State.CLOSED) {
+            return Duration.ZERO;
+        }
+        long remaining = openedAt + openDuration.toMillis() - millisTimeProvider.getMillis();
+        if (state == State.OPEN && remaining <= 0) {
+            changeState(State.HALF_OPEN);
+        }
+        if (state == State.HALF_OPEN && !probeInFlight) {
+            probeInFlight = true;
+            return Duration.ZERO;
+        }
+        return remaining > 0 ? Duration.ofMillis(remaining) : openDuration;
+    }
+
+    /**
+     * Give up the probe call permitted in half-open state, when the permitted call was not reported.
+     * The next call to {@link #acquire()} permits a new probe.
+     */
+    public synchronized void releaseProbe() {
+        if (state == State.HALF_OPEN) {
+            probeInFlight = false;
+        }
+    }
+
+    /**
+     * Report a successful call to the shard.
+     *
+     * @param latencyMillis duration of the call in millis
+     */
+    public synchronized void recordSuccess(long latencyMillis) {
+        if (latencyMillis >= slowCallThreshold.toMillis()) {
+            recordFailure();
+            return;
+        }
+        consecutiveFailures = 0;
+        if (state == State.HALF_OPEN) {
+            probeInFlight = false;
+            changeState(State.CLOSED);
+        }
+    }
+
+    /**
+     * Report a failed call to the shard.
+     */
+    public synchronized void recordFailure() {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || (state == State.CLOSED && consecutiveFailures >= failureThreshold)) {
+            probeInFlight = false;
+            openedAt = millisTimeProvider.getMillis();
+            changeState(State.OPEN);
+        }
+    }
+
+    private void changeState(@Nonnull State newState) {
+        log.info("shard health changed: oldState={}, newState={}, consecutiveFailures={}",
+                state, newState, consecutiveFailures);
+        state = newState;
+    }
+
+    @Override
+    public String toString() {
+        return "ShardHealth{" +
+                "failureThreshold=" + failureThreshold +
+                ", slowCallThreshold=" + slowCallThreshold +
+                ", openDuration=" + openDuration +
+                '}';
+    }
+}
@@ -0,0 +1,364 @@
+package ru.yoomoney.tech.dbqueue.config;
+
+import ru.yoomoney.tech.dbqueue.api.QueueConsumer;
+import ru.yoomoney.tech.dbqueue.internal.processing.QueueProcessingStatus;
+import ru.yoomoney.tech.dbqueue.internal.runner.QueueRunner;
+import ru.yoomoney.tech.dbqueue.settings.ProcessingSettings;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Node-wide pool of worker slots shared by all queues of {@link QueueService}.
+ * <p>
+ * Every poll of a queue occupies a slot of the pool, so the pool limits the number of queues
+ * which concurrently pick and process tasks. Threads of the queue wait for a slot without holding it,
+ * so idle queues do not hold capacity and spare slots flow to the queues with backlog.
+ * <p>
+ * Free slots are allocated by weighted fair queuing:
+ * <ul>
+ * <li>a queue gets slots in proportion to {@link ProcessingSettings#getSchedulingWeight()}
+ * multiplied by the recent share of polls which picked a task,</li>
+ * <li>a queue below {@link ProcessingSettings#getMinThreadCount()} gets a free slot ahead of the other queues,</li>
+ * <li>a queue never occupies more than {@link ProcessingSettings#getThreadCount()} slots.</li>
+ * </ul>
+ *
+ * @author Oleg Kandaurov
+ * @since 19.10.2026
+ */
+@ThreadSafe
+public class SharedWorkerPool {
+
+    /**
+     * Smoothing factor of the pick success rate
+     */
+    private static final double SUCCESS_RATE_ALPHA = 0.2;
+    /**
+     * Minimal pick success rate, so the idle queue still gets slots to find new tasks
+     */
+    private static final double MIN_SUCCESS_RATE = 0.1;
+
+    private int slotCount;
+    @Nonnull
+    private final List<QueueShare> shares = new ArrayList<>();
+
+    private int busySlots;
+    private double virtualClock;
+
+    /**
+     * Constructor
+     *
+     * @param slotCount number of queues, which concurrently pick and process tasks
+     */
+    public SharedWorkerPool(int slotCount) {
+        if (slotCount <= 0) {
+            throw new IllegalArgumentException("slotCount must be positive");
+        }
+        this.slotCount = slotCount;
+    }
+
+    /**
+     * Get number of slots in the pool.
+     *
+     * @return number of slots
+     */
+    public synchronized int getSlotCount() {
+        return slotCount;
+    }
+
+    /**
+     * Change number of slots in the pool.
+     * Occupied slots above the new number are released by the queues as usual.
+     *
+     * @param slotCount number of queues, which concurrently pick and process tasks
+     */
+    synchronized void resize(int slotCount) {
+        if (slotCount <= 0) {
+            throw new IllegalArgumentException("slotCount must be positive");
+        }
+        this.slotCount = slotCount;
+        notifyAll();
+    }
+
+    /**
+     * Get number of slots occupied by the queues.
+     *
+     * @return number of occupied slots
+     */
+    public synchronized int getBusySlotCount() {
+        return busySlots;
+    }
+
+    /**
+     * Register a queue in the pool.
+     *
+     * @param processingSettings processing settings of the queue
+     * @return share of the queue in the pool
+     */
+    @Nonnull
+    synchronized QueueShare register(@Nonnull ProcessingSettings processingSettings) {
+        QueueShare share = new QueueShare(requireNonNull(processingSettings, "processingSettings"));
+        share.virtualTime = virtualClock;
+        shares.add(share);
+        return share;
+    }
+
+    /**
+     * Wrap queue runner, so every run of the queue occupies a slot of the pool.
+     *
+     * @param share       share of the queue in the pool
+     * @param queueRunner queue runner
+     * @return queue runner working in the pool
+     */
+    @Nonnull
+    QueueRunner wrap(@Nonnull QueueShare share, @Nonnull QueueRunner queueRunner) {
+        requireNonNull(share, "share");
+        requireNonNull(queueRunner, "queueRunner");
+        return new SharedQueueRunner(share, queueRunner);
+    }
+
+    /**
+     * Wait for a free slot and occupy it.
+     *
+     * @param share share of the queue in the pool
+     * @throws InterruptedException when the thread is interrupted while waiting
+     */
+    synchronized void acquire(@Nonnull QueueShare share) throws InterruptedException {
+        acquire(share, () -> true);
+    }
+
+    /**
+     * Wait for a free slot and occupy it, while the queue thread may pick tasks.
+     * <p>
+     * The condition is checked on every wakeup, see {@link #wakeup()}.
+     *
+     * @param share        share of the queue in the pool
+     * @param runCondition condition, that the queue thread may pick tasks
+     * @return true if the slot is occupied, false if the condition failed while waiting
+     * @throws InterruptedException when the thread is interrupted while waiting
+     */
+    synchronized boolean acquire(@Nonnull QueueShare share,
+                                 @Nonnull BooleanSupplier runCondition) throws InterruptedException {
+        boolean selected = false;
+        share.waiting++;
+        try {
+            while (busySlots >= slotCount || selectNext(waitingShares()) != share) {
+                if (!runCondition.getAsBoolean()) {
+                    return false;
+                }
+                wait();
+            }
+            if (!runCondition.getAsBoolean()) {
+                return false;
+            }
+            selected = true;
+        } finally {
+            share.waiting--;
+            if (!selected) {
+                // the leaving queue could be selected for a free slot, so other queues select again
+                notifyAll();
+            }
+        }
+        grant(share);
+        if (busySlots < slotCount) {
+            notifyAll();
+        }
+        return true;
+    }
+
+    /**
+     * Wake up the threads waiting for a slot, so they check their conditions again.
+     */
+    synchronized void wakeup() {
+        notifyAll();
+    }
+
+    /**
+     * Release an occupied slot.
+     *
+     * @param share     share of the queue in the pool
+     * @param processed whether the queue picked a task while occupying the slot
+     */
+    synchronized void release(@Nonnull QueueShare share, boolean processed) {
+        busySlots--;
+        share.running--;
+        share.successRate = Math.max(MIN_SUCCESS_RATE,
+                share.successRate + SUCCESS_RATE_ALPHA * ((processed ? 1.0 : 0.0) - share.successRate));
+        notifyAll();
+    }
+
+    /**
+     * Check whether any queue waits for a slot.
+     *
+     * @return true if a queue waits for a slot
+     */
+    synchronized boolean hasWaitingShares() {
+        return shares.stream().anyMatch(share -> share.waiting > 0);
+    }
+
+    /**
+     * Select the queue, which gets the next free slot.
+     *
+     * @param candidates queues waiting for a slot
+     * @return selected queue or null when there are no candidates
+     */
+    @Nullable
+    synchronized QueueShare selectNext(@Nonnull Collection<QueueShare> candidates) {
+        QueueShare next = null;
+        for (QueueShare candidate : candidates) {
+            if (candidate.running >= candidate.processingSettings.getThreadCount()) {
+                continue;
+            }
+            if (next == null || isAhead(candidate, next)) {
+                next = candidate;
+            }
+        }
+        return next;
+    }
+
+    /**
+     * Occupy a slot by the queue and advance its virtual time.
+     *
+     * @param share share of the queue in the pool
+     */
+    synchronized void grant(@Nonnull QueueShare share) {
+        busySlots++;
+        share.running++;
+        double startTime = Math.max(share.virtualTime, virtualClock);
+        virtualClock = startTime;
+        share.virtualTime = startTime +
+                1.0 / (share.processingSettings.getSchedulingWeight() * share.successRate);
+    }
+
+    private boolean isAhead(QueueShare candidate, QueueShare current) {
+        boolean candidateGuaranteed = candidate.running < candidate.processingSettings.getMinThreadCount();
+        boolean currentGuaranteed = current.running < current.processingSettings.getMinThreadCount();
+        if (candidateGuaranteed != currentGuaranteed) {
+            return candidateGuaranteed;
+        }
+        return Math.max(candidate.virtualTime, virtualClock) < Math.max(current.virtualTime, virtualClock);
+    }
+
+    private List<QueueShare> waitingShares() {
+        return shares.stream().filter(share -> share.waiting > 0).collect(Collectors.toList());
+    }
+
+    @Override
+    public String toString() {
+        return "SharedWorkerPool{" +
+                "slotCount=" + slotCount +
+                '}';
+    }
+
+    /**
+     * Share of a queue on a shard in the pool
+     */
+    static class QueueShare {
+        @Nonnull
+        private final ProcessingSettings processingSettings;
+        private int waiting;
+        private int running;
+        private double virtualTime;
+        private double successRate = 1.0;
+
+        private QueueShare(@Nonnull ProcessingSettings processingSettings) {
+            this.processingSettings = processingSettings;
+        }
+
+        /**
+         * Get number of slots occupied by the queue.
+         *
+         * @return number of occupied slots
+         */
+        int getRunning() {
+            return running;
+        }
+
+        /**
+         * Get recent share of polls which picked a task.
+         *
+         * @return pick success rate
+         */
+        double getSuccessRate() {
+            return successRate;
+        }
+    }
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private class SharedQueueRunner implements QueueRunner {
+        @Nonnull
+        private final QueueShare share;
+        @Nonnull
+        private final QueueRunner queueRunner;
+
+        private SharedQueueRunner(@Nonnull QueueShare share, @Nonnull QueueRunner queueRunner) {
+            this.share = share;
+            this.queueRunner = queueRunner;
+        }
+
+        @Nonnull
+        @Override
+        public QueueProcessingStatus runQueue(@Nonnull QueueConsumer queueConsumer) {
+            return runInSlot(() -> true, () -> queueRunner.runQueue(queueConsumer));
+        }
+
+        @Nonnull
+        @Override
+        public QueueProcessingStatus runQueue(@Nonnull QueueConsumer queueConsumer,
+                                              @Nonnull BooleanSupplier pickNextCondition) {
+            return runQueue(queueConsumer, () -> true, pickNextCondition);
+        }
+
+        @Nonnull
+        @Override
+        public QueueProcessingStatus runQueue(@Nonnull QueueConsumer queueConsumer,
+                                              @Nonnull BooleanSupplier runCondition,
+                                              @Nonnull BooleanSupplier pickNextCondition) {
+            // the next task is processed in the occupied slot, so the slot is given up when other queues wait
+            return runInSlot(runCondition, () -> queueRunner.runQueue(queueConsumer, runCondition,
+                    () -> !hasWaitingShares() && pickNextCondition.getAsBoolean()));
+        }
+
+        @Override
+        public void wakeupWaiters() {
+            wakeup();
+            queueRunner.wakeupWaiters();
+        }
+
+        @Nonnull
+        private QueueProcessingStatus runInSlot(@Nonnull BooleanSupplier runCondition,
+                                                @Nonnull Supplier<QueueProcessingStatus> run) {
+            try {
+                // a thread stopped while waiting doesn't pick a task in the slot it gets
+                if (!acquire(share, runCondition)) {
+                    return QueueProcessingStatus.SKIPPED;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return QueueProcessingStatus.SKIPPED;
+            }
+            boolean processed = false;
+            try {
+                QueueProcessingStatus status = run.get();
+                processed = status == QueueProcessingStatus.PROCESSED;
+                return status;
+            } finally {
+                release(share, processed);
+            }
+        }
+
+        @Override
+        public void releaseClaimedTasks() {
+            queueRunner.releaseClaimedTasks();
+        }
+    }
+}
@@ -89,4 +89,19 @@ public interface TaskLifecycleListener {
     void crashed(@Nonnull QueueShardId shardId, @Nonnull QueueLocation location, @Nonnull TaskRecord taskRecord,
                  @Nullable Exception exc);
 
+    /**
+     * Event of returning a picked task to the queue without processing.
+     * <p>
+     * Triggered instead of the processing events, when a task was picked, but the queue was drained
+     * before the processing had started, see {@link QueueService#drain(java.time.Duration)}.
+     * The task is available for picking on any node right away.
+     *
+     * @param shardId    Shard identifier, which processes the queue.
+     * @param location   Queue location.
+     * @param taskRecord Raw task data.
+     */
+    default void released(@Nonnull QueueShardId shardId, @Nonnull QueueLocation location,
+                          @Nonnull TaskRecord taskRecord) {
+    }
+
 }
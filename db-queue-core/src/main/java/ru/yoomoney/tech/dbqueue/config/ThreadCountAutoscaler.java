@@ -0,0 +1,284 @@
+package ru.yoomoney.tech.dbqueue.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ru.yoomoney.tech.dbqueue.internal.processing.MillisTimeProvider;
+import ru.yoomoney.tech.dbqueue.settings.ProcessingSettings;
+import ru.yoomoney.tech.dbqueue.settings.QueueConfig;
+import ru.yoomoney.tech.dbqueue.settings.QueueId;
+import ru.yoomoney.tech.dbqueue.settings.QueueLocation;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Autoscaler of {@link ProcessingSettings#getThreadCount()} driven by the load of the queue.
+ * <p>
+ * The autoscaler listens to {@link ThreadLifecycleListener#executed} events of the queues
+ * and periodically evaluates two ratios for every queue:
+ * <ul>
+ * <li>busy ratio - share of time the threads of the queue spent on picking and processing tasks,</li>
+ * <li>empty pick rate - share of polls, which found no task.</li>
+ * </ul>
+ * A queue with a high busy ratio and almost no empty picks has a backlog, so its thread count grows.
+ * A queue with a low busy ratio or many empty picks is idle, so its thread count shrinks by one thread.
+ * Thresholds for growth and shrinkage are apart from each other and the thread count of a queue
+ * is not changed again until the cooldown passes, so the pool does not flap under a steady load.
+ * <p>
+ * Only queues with {@link ProcessingSettings#getMaxThreadCount()} are scaled.
+ * The thread count stays between {@link ProcessingSettings#getMinThreadCount()} (at least one thread)
+ * and {@link ProcessingSettings#getMaxThreadCount()}.
+ * Queues with zero thread count are considered disabled and are not scaled.
+ * New thread count is applied through {@link ProcessingSettings#setValue}, so the execution pools
+ * of all shards are resized as they are on a configuration reload.
+ * The scaled value is not an override: a configuration reload, e.g. by
+ * {@link ru.yoomoney.tech.dbqueue.settings.QueueConfigsReloader} or from the settings table,
+ * sets the configured thread count again and the autoscaler continues from it after the cooldown.
+ * <p>
+ * The autoscaler must be passed to {@link QueueService} as a thread listener,
+ * e.g. through {@link ru.yoomoney.tech.dbqueue.config.impl.CompositeThreadLifecycleListener}.
+ *
+ * @author Oleg Kandaurov
+ * @since 19.10.2026
+ */
+@ThreadSafe
+public class ThreadCountAutoscaler implements ThreadLifecycleListener {
+
+    private static final Logger log = LoggerFactory.getLogger(ThreadCountAutoscaler.class);
+
+    /**
+     * Busy ratio, starting from which the queue is considered saturated
+     */
+    static final double SCALE_UP_BUSY_RATIO = 0.75;
+    /**
+     * Empty pick rate, below which the saturated queue is considered to have a backlog
+     */
+    static final double SCALE_UP_EMPTY_PICK_RATE = 0.1;
+    /**
+     * Busy ratio, below which the queue is considered idle
+     */
+    static final double SCALE_DOWN_BUSY_RATIO = 0.25;
+    /**
+     * Empty pick rate, starting from which the queue is considered idle
+     */
+    static final double SCALE_DOWN_EMPTY_PICK_RATE = 0.5;
+
+    @Nonnull
+    private final Duration evaluationInterval;
+    @Nonnull
+    private final Duration cooldown;
+    @Nonnull
+    private final MillisTimeProvider millisTimeProvider;
+    @Nonnull
+    private final Map<QueueId, QueueLoad> queues = new ConcurrentHashMap<>();
+    @Nullable
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * Constructor
+     *
+     * @param evaluationInterval interval between evaluations of the load
+     * @param cooldown           minimal interval between changes of thread count of a queue
+     */
+    public ThreadCountAutoscaler(@Nonnull Duration evaluationInterval, @Nonnull Duration cooldown) {
+        this(evaluationInterval, cooldown, new MillisTimeProvider.SystemMillisTimeProvider());
+    }
+
+    ThreadCountAutoscaler(@Nonnull Duration evaluationInterval,
+                          @Nonnull Duration cooldown,
+                          @Nonnull MillisTimeProvider millisTimeProvider) {
+        this.evaluationInterval = requireNonNull(evaluationInterval, "evaluationInterval");
+        this.cooldown = requireNonNull(cooldown, "cooldown");
+        this.millisTimeProvider = requireNonNull(millisTimeProvider, "millisTimeProvider");
+        if (evaluationInterval.isNegative() || evaluationInterval.isZero()) {
+            throw new IllegalArgumentException("evaluationInterval must be positive");
+        }
+        if (cooldown.isNegative()) {
+            throw new IllegalArgumentException("cooldown must not be negative");
+        }
+    }
+
+    /**
+     * Register a queue in the autoscaler.
+     *
+     * @param queueConfig configuration of the queue
+     */
+    public void register(@Nonnull QueueConfig queueConfig) {
+        requireNonNull(queueConfig, "queueConfig");
+        QueueId queueId = queueConfig.getLocation().getQueueId();
+        if (queues.putIfAbsent(queueId, new QueueLoad(queueConfig.getSettings().getProcessingSettings(),
+                millisTimeProvider.getMillis())) != null) {
+            throw new IllegalArgumentException("queue is already registered: queueId=" + queueId);
+        }
+    }
+
+    /**
+     * Start periodic evaluation of the load.
+     */
+    public synchronized void start() {
+        if (scheduler != null) {
+            log.info("autoscaler is already started");
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "queue-autoscaler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::evaluateSafely, evaluationInterval.toMillis(),
+                evaluationInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stop periodic evaluation of the load.
+     */
+    public synchronized void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    private void evaluateSafely() {
+        try {
+            evaluate();
+        } catch (RuntimeException exc) {
+            log.warn("failed to evaluate load of queues", exc);
+        }
+    }
+
+    /**
+     * Evaluate the load collected since the previous evaluation and change thread counts of the queues.
+     */
+    void evaluate() {
+        long now = millisTimeProvider.getMillis();
+        queues.forEach((queueId, queueLoad) -> evaluate(queueId, queueLoad, now));
+    }
+
+    private void evaluate(@Nonnull QueueId queueId, @Nonnull QueueLoad queueLoad, long now) {
+        LoadWindow window = queueLoad.drain(now);
+        ProcessingSettings processingSettings = queueLoad.processingSettings;
+        int threadCount = processingSettings.getThreadCount();
+        Integer maxThreadCount = processingSettings.getMaxThreadCount().orElse(null);
+        if (maxThreadCount == null || threadCount == 0 || window.executions == 0 || window.duration <= 0) {
+            return;
+        }
+        if (now - queueLoad.lastChangeTime < cooldown.toMillis()) {
+            return;
+        }
+        double busyRatio = (double) window.busyTime / (window.duration * threadCount * window.shardCount);
+        double emptyPickRate = (double) window.emptyPicks / window.executions;
+        int minThreadCount = Math.max(1, processingSettings.getMinThreadCount());
+        int newThreadCount = threadCount;
+        if (busyRatio >= SCALE_UP_BUSY_RATIO && emptyPickRate <= SCALE_UP_EMPTY_PICK_RATE) {
+            newThreadCount = Math.min(maxThreadCount, threadCount + Math.max(1, threadCount / 2));
+        } else if (busyRatio <= SCALE_DOWN_BUSY_RATIO || emptyPickRate >= SCALE_DOWN_EMPTY_PICK_RATE) {
+            newThreadCount = Math.max(minThreadCount, threadCount - 1);
+        }
+        if (newThreadCount == threadCount) {
+            return;
+        }
+        log.info("scaling queue: queueId={}, oldThreadCount={}, newThreadCount={}, busyRatio={}, emptyPickRate={}",
+                queueId, threadCount, newThreadCount, busyRatio, emptyPickRate);
+        processingSettings.setValue(processingSettings.toBuilder().withThreadCount(newThreadCount).build());
+        queueLoad.lastChangeTime = now;
+    }
+
+    @Override
+    public void started(@Nonnull QueueShardId shardId, @Nonnull QueueLocation location) {
+    }
+
+    @Override
+    public void executed(QueueShardId shardId, QueueLocation location, boolean taskProcessed, long threadBusyTime) {
+        QueueLoad queueLoad = queues.get(location.getQueueId());
+        if (queueLoad != null) {
+            queueLoad.record(shardId, taskProcessed, threadBusyTime);
+        }
+    }
+
+    @Override
+    public void finished(@Nonnull QueueShardId shardId, @Nonnull QueueLocation location) {
+    }
+
+    @Override
+    public void crashed(@Nonnull QueueShardId shardId, @Nonnull QueueLocation location, @Nullable Throwable exc) {
+    }
+
+    @Override
+    public String toString() {
+        return "ThreadCountAutoscaler{" +
+                "evaluationInterval=" + evaluationInterval +
+                ", cooldown=" + cooldown +
+                '}';
+    }
+
+    /**
+     * Load of a queue collected since the previous evaluation
+     */
+    private static class QueueLoad {
+        @Nonnull
+        private final ProcessingSettings processingSettings;
+        private final Set<QueueShardId> shards = new HashSet<>();
+        private long windowStart;
+        private long busyTime;
+        private long executions;
+        private long emptyPicks;
+        private long lastChangeTime = Long.MIN_VALUE / 2;
+
+        private QueueLoad(@Nonnull ProcessingSettings processingSettings, long windowStart) {
+            this.processingSettings = Objects.requireNonNull(processingSettings);
+            this.windowStart = windowStart;
+        }
+
+        private synchronized void record(QueueShardId shardId, boolean taskProcessed, long threadBusyTime) {
+            shards.add(shardId);
+            busyTime += threadBusyTime;
+            executions++;
+            if (!taskProcessed) {
+                emptyPicks++;
+            }
+        }
+
+        private synchronized LoadWindow drain(long now) {
+            LoadWindow window = new LoadWindow(now - windowStart, Math.max(1, shards.size()),
+                    busyTime, executions, emptyPicks);
+            windowStart = now;
+            shards.clear();
+            busyTime = 0;
+            executions = 0;
+            emptyPicks = 0;
+            return window;
+        }
+    }
+
+    /**
+     * Snapshot of the load of a queue
+     */
+    private static class LoadWindow {
+        private final long duration;
+        private final int shardCount;
+        private final long busyTime;
+        private final long executions;
+        private final long emptyPicks;
+
+        private LoadWindow(long duration, int shardCount, long busyTime, long executions, long emptyPicks) {
+            this.duration = duration;
+            this.shardCount = shardCount;
+            this.busyTime = busyTime;
+            this.executions = executions;
+            this.emptyPicks = emptyPicks;
+        }
+    }
+}
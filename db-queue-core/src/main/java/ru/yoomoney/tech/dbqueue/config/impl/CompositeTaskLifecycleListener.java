@@ -72,4 +72,10 @@ public class CompositeTaskLifecycleListener implements TaskLifecycleListener {
         reverseListeners.forEach(l -> l.crashed(shardId, location, taskRecord, exc));
     }
 
+    @Override
+    public void released(@Nonnull QueueShardId shardId, @Nonnull QueueLocation location,
+                         @Nonnull TaskRecord taskRecord) {
+        reverseListeners.forEach(l -> l.released(shardId, location, taskRecord));
+    }
+
 }
@@ -88,4 +88,10 @@ public class LoggingTaskLifecycleListener implements TaskLifecycleListener {
         log.error("error while processing task: task={}", taskRecord, exc);
     }
 
+    @Override
+    public void released(@Nonnull QueueShardId shardId, @Nonnull QueueLocation location,
+                         @Nonnull TaskRecord taskRecord) {
+        log.info("task released: id={}, attempt={}", taskRecord.getId(), taskRecord.getAttemptsCount());
+    }
+
 }
@@ -0,0 +1,103 @@
+package ru.yoomoney.tech.dbqueue.dao;
+
+import ru.yoomoney.tech.dbqueue.api.EnqueueStatus;
+
+import javax.annotation.Nonnull;
+import java.util.Objects;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Outcome of the task insertion into the queue table.
+ *
+ * @author Oleg Kandaurov
+ * @since 19.10.2026
+ */
+public final class EnqueueOutcome {
+
+    private final long taskId;
+    @Nonnull
+    private final EnqueueStatus status;
+
+    private EnqueueOutcome(long taskId, @Nonnull EnqueueStatus status) {
+        this.taskId = taskId;
+        this.status = requireNonNull(status, "status");
+    }
+
+    /**
+     * Outcome when a new task was inserted
+     *
+     * @param taskId identifier of the inserted task
+     * @return enqueue outcome
+     */
+    @Nonnull
+    public static EnqueueOutcome created(long taskId) {
+        return new EnqueueOutcome(taskId, EnqueueStatus.CREATED);
+    }
+
+    /**
+     * Outcome when a task with the same deduplication key already exists
+     *
+     * @param taskId identifier of the existing task
+     * @return enqueue outcome
+     */
+    @Nonnull
+    public static EnqueueOutcome duplicate(long taskId) {
+        return new EnqueueOutcome(taskId, EnqueueStatus.DUPLICATE);
+    }
+
+    /**
+     * Outcome when a pending task with the same coalescing key was updated
+     *
+     * @param taskId identifier of the updated task
+     * @return enqueue outcome
+     */
+    @Nonnull
+    public static EnqueueOutcome coalesced(long taskId) {
+        return new EnqueueOutcome(taskId, EnqueueStatus.COALESCED);
+    }
+
+    /**
+     * Identifier (sequence id) of the inserted or existing task
+     *
+     * @return task id
+     */
+    public long getTaskId() {
+        return taskId;
+    }
+
+    /**
+     * Status of the enqueue operation
+     *
+     * @return enqueue status
+     */
+    @Nonnull
+    public EnqueueStatus getStatus() {
+        return status;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        EnqueueOutcome that = (EnqueueOutcome) obj;
+        return taskId == that.taskId && status == that.status;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(taskId, status);
+    }
+
+    @Override
+    public String toString() {
+        return "EnqueueOutcome{" +
+                "taskId=" + taskId +
+                ", status=" + status +
+                '}';
+    }
+}
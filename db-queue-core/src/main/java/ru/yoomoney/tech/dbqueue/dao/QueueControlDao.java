@@ -0,0 +1,26 @@
+package ru.yoomoney.tech.dbqueue.dao;
+
+import javax.annotation.Nonnull;
+import java.util.Map;
+
+/**
+ * Database access object to read states of queues shared between nodes.
+ * <p>
+ * States are stored in a table with the following columns:
+ * queue_name - identifier of a queue (primary key),
+ * state - name of a {@link ru.yoomoney.tech.dbqueue.config.QueueControl.State}.
+ *
+ * @author Oleg Kandaurov
+ * @since 19.10.2026
+ */
+public interface QueueControlDao {
+
+    /**
+     * Load states of all queues in the table.
+     *
+     * @param tableName name of the table with states of queues
+     * @return names of the states by queue identifiers
+     */
+    @Nonnull
+    Map<String, String> loadQueueStates(@Nonnull String tableName);
+}
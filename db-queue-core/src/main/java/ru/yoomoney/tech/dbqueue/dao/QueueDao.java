@@ -5,6 +5,9 @@ import ru.yoomoney.tech.dbqueue.settings.QueueLocation;
 
 import javax.annotation.Nonnull;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 
 /**
  * Database access object to manage tasks in the queue.
@@ -22,6 +25,64 @@ public interface QueueDao {
      */
     long enqueue(@Nonnull QueueLocation location, @Nonnull EnqueueParams<String> enqueueParams);
 
+    /**
+     * Add new tasks in the queue for processing.
+     * <p>
+     * Deduplication and coalescing keys are stored as is and are not checked,
+     * as in {@link #enqueue(QueueLocation, EnqueueParams)}.
+     * Default implementation adds tasks one by one,
+     * implementations may insert the whole batch in fewer round trips.
+     *
+     * @param location      Queue location.
+     * @param enqueueParams Parameters of the tasks.
+     * @return Identifiers of new inserted tasks in the order of given parameters.
+     */
+    @Nonnull
+    default List<Long> enqueueBatch(@Nonnull QueueLocation location,
+                                    @Nonnull List<EnqueueParams<String>> enqueueParams) {
+        List<Long> taskIds = new ArrayList<>(enqueueParams.size());
+        enqueueParams.forEach(params -> taskIds.add(enqueue(location, params)));
+        return taskIds;
+    }
+
+    /**
+     * Add a new task in the queue for processing unless a task with the same deduplication key
+     * ({@link EnqueueParams#getDeduplicationKey()}) already exists in the queue.
+     * <p>
+     * Requires {@link ru.yoomoney.tech.dbqueue.config.QueueTableSchema#getDeduplicationKeyField()}
+     * to be configured.
+     *
+     * @param location      Queue location.
+     * @param enqueueParams Parameters of the task with a deduplication key.
+     * @return Identifier of the inserted task or of the existing task with the same deduplication key.
+     */
+    @Nonnull
+    default EnqueueOutcome enqueueIfAbsent(@Nonnull QueueLocation location,
+                                           @Nonnull EnqueueParams<String> enqueueParams) {
+        throw new UnsupportedOperationException("deduplication is not supported by " + getClass().getName());
+    }
+
+    /**
+     * Update a pending task with the same coalescing key ({@link EnqueueParams#getCoalescingKey()})
+     * or add a new task in the queue when there is no such task.
+     * <p>
+     * Only tasks, which were not picked for processing since the last enqueue, are updated.
+     * Tasks locked by a concurrent pick are skipped.
+     * Payload, next processing time and additional data of the pending task are replaced.
+     * <p>
+     * Requires {@link ru.yoomoney.tech.dbqueue.config.QueueTableSchema#getCoalescingKeyField()}
+     * to be configured.
+     *
+     * @param location      Queue location.
+     * @param enqueueParams Parameters of the task with a coalescing key.
+     * @return Identifier of the inserted task or of the updated pending task.
+     */
+    @Nonnull
+    default EnqueueOutcome enqueueOrCoalesce(@Nonnull QueueLocation location,
+                                             @Nonnull EnqueueParams<String> enqueueParams) {
+        throw new UnsupportedOperationException("coalescing is not supported by " + getClass().getName());
+    }
+
     /**
      * Remove (delete) task from the queue.
      *
@@ -41,4 +102,46 @@ public interface QueueDao {
      */
     boolean reenqueue(@Nonnull QueueLocation location, long taskId, @Nonnull Duration executionDelay);
 
+    /**
+     * Extend leases of picked tasks: set their next processing time to current date and time plus lease duration.
+     * <p>
+     * Unlike {@link #reenqueue(QueueLocation, long, Duration)}, attempt counters of the tasks are kept.
+     *
+     * @param location      Queue location.
+     * @param taskIds       Identifiers (sequence ids) of the tasks.
+     * @param leaseDuration Lease duration.
+     * @return Number of tasks found.
+     * @see ru.yoomoney.tech.dbqueue.settings.FailureSettings#getLeaseDuration()
+     */
+    default int extendLeases(@Nonnull QueueLocation location, @Nonnull Collection<Long> taskIds,
+                             @Nonnull Duration leaseDuration) {
+        throw new UnsupportedOperationException("leases are not supported by " + getClass().getName());
+    }
+
+    /**
+     * Return picked tasks, which were not processed, to the queue:
+     * set their next processing time to current date and time, so the tasks are picked again right away.
+     * <p>
+     * Attempt counters of the tasks are kept.
+     *
+     * @param location Queue location.
+     * @param taskIds  Identifiers (sequence ids) of the tasks.
+     * @return Number of tasks found.
+     */
+    default int releaseTasks(@Nonnull QueueLocation location, @Nonnull Collection<Long> taskIds) {
+        return extendLeases(location, taskIds, Duration.ZERO);
+    }
+
+    /**
+     * Count tasks in the queue, including delayed tasks and tasks in processing.
+     * <p>
+     * Query scans the index on the queue name, so it should not be called on every enqueue.
+     *
+     * @param location Queue location.
+     * @return Number of tasks in the queue.
+     */
+    default long countTasks(@Nonnull QueueLocation location) {
+        throw new UnsupportedOperationException("counting tasks is not supported by " + getClass().getName());
+    }
+
 }
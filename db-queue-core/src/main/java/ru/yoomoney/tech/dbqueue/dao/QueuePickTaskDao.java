@@ -2,7 +2,9 @@ package ru.yoomoney.tech.dbqueue.dao;
 
 import ru.yoomoney.tech.dbqueue.api.TaskRecord;
 
+import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.time.Duration;
 
 /**
  * Database access object to pick up tasks in the queue.
@@ -20,4 +22,104 @@ public interface QueuePickTaskDao {
     @Nullable
     TaskRecord pickTask();
 
+    /**
+     * Pick task with the given priority from a queue
+     * <p>
+     * Requires {@link ru.yoomoney.tech.dbqueue.config.QueueTableSchema#getPriorityField()} to be configured.
+     *
+     * @param priority priority of the task
+     * @return task data or null if not found
+     */
+    @Nullable
+    default TaskRecord pickTaskByPriority(int priority) {
+        throw new UnsupportedOperationException("priorities are not supported by " + getClass().getName());
+    }
+
+    /**
+     * Pick task from a queue, skipping tasks with a saturated concurrency key
+     * <p>
+     * Requires {@link ru.yoomoney.tech.dbqueue.config.QueueTableSchema#getConcurrencyKeyField()} to be configured.
+     * A key is saturated when the given number of tasks with the key were picked
+     * and their next processing time has not come yet. With linear backoff only tasks postponed
+     * at most by the retry interval are counted, so failed tasks postponed further do not saturate the key.
+     *
+     * @param priority            priority of the task or null to pick a task of any priority
+     * @param keyConcurrencyLimit maximum number of concurrently processed tasks with the same key
+     * @return task data or null if not found
+     */
+    @Nullable
+    default TaskRecord pickTaskWithKeyLimit(@Nullable Integer priority, int keyConcurrencyLimit) {
+        throw new UnsupportedOperationException("concurrency keys are not supported by " + getClass().getName());
+    }
+
+    /**
+     * Pick the oldest task of a concurrency key from a queue
+     * <p>
+     * Requires {@link ru.yoomoney.tech.dbqueue.config.QueueTableSchema#getConcurrencyKeyField()} to be configured.
+     * A task is skipped while an older task with the same key exists in the queue,
+     * so tasks with the same key are processed one at a time in order of their identifiers.
+     *
+     * @param priority priority of the task or null to pick a task of any priority
+     * @return task data or null if not found
+     */
+    @Nullable
+    default TaskRecord pickTaskInKeyOrder(@Nullable Integer priority) {
+        throw new UnsupportedOperationException("concurrency keys are not supported by " + getClass().getName());
+    }
+
+    /**
+     * Pick task from a queue and delete it
+     * <p>
+     * Used in {@link ru.yoomoney.tech.dbqueue.settings.ProcessingMode#AT_MOST_ONCE}.
+     * The returned task has the attempt counters of the pick, but is not in the queue anymore.
+     * Implementations should delete the task in the same statement, which picks it, when the database allows.
+     *
+     * @return task data or null if not found
+     */
+    @Nullable
+    default TaskRecord pickAndDeleteTask() {
+        throw new UnsupportedOperationException("at-most-once processing is not supported by " +
+                getClass().getName());
+    }
+
+    /**
+     * Whether the DAO completes a processed task and picks the next one in a single statement,
+     * see {@link #deleteAndPickTask(long)} and {@link #reenqueueAndPickTask(long, Duration)}
+     *
+     * @return true if completion and pick are fused
+     */
+    default boolean isCompleteAndPickSupported() {
+        return false;
+    }
+
+    /**
+     * Delete a processed task and pick the next task from a queue in the same statement
+     * <p>
+     * Deletion is the same as {@link QueueDao#deleteTask(ru.yoomoney.tech.dbqueue.settings.QueueLocation, long)},
+     * the pick is the same as {@link #pickTask()}. The deleted task is never picked.
+     *
+     * @param taskId identifier of the processed task
+     * @return data of the next task or null if not found
+     */
+    @Nullable
+    default TaskRecord deleteAndPickTask(long taskId) {
+        throw new UnsupportedOperationException("complete and pick is not supported by " + getClass().getName());
+    }
+
+    /**
+     * Postpone a processed task and pick the next task from a queue in the same statement
+     * <p>
+     * Postponing is the same as
+     * {@link QueueDao#reenqueue(ru.yoomoney.tech.dbqueue.settings.QueueLocation, long, Duration)},
+     * the pick is the same as {@link #pickTask()}. The postponed task is never picked.
+     *
+     * @param taskId         identifier of the processed task
+     * @param executionDelay execution delay of the processed task
+     * @return data of the next task or null if not found
+     */
+    @Nullable
+    default TaskRecord reenqueueAndPickTask(long taskId, @Nonnull Duration executionDelay) {
+        throw new UnsupportedOperationException("complete and pick is not supported by " + getClass().getName());
+    }
+
 }
@@ -0,0 +1,48 @@
+package ru.yoomoney.tech.dbqueue.dao;
+
+import ru.yoomoney.tech.dbqueue.settings.QueueId;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Database access object to share a rate limit of a queue between nodes.
+ * <p>
+ * The limit is a token bucket stored in a table with the following columns:
+ * queue_name - queue identifier (primary key), tokens - available permits,
+ * refilled_at - time of the last refill in milliseconds since epoch.
+ *
+ * @author Oleg Kandaurov
+ * @since 19.10.2026
+ */
+public interface QueueRateLimitDao {
+
+    /**
+     * Get the number of permits available in the bucket of the queue without changing the bucket.
+     *
+     * @param tableName        name of the table with buckets
+     * @param queueId          queue identifier
+     * @param permitsPerSecond refill rate of the bucket, it is also the capacity of the bucket
+     * @param nowMillis        current time in milliseconds since epoch
+     * @return available permits, the capacity if the bucket doesn't exist yet, negative when the bucket is overdrawn
+     */
+    double getAvailablePermits(@Nonnull String tableName,
+                               @Nonnull QueueId queueId,
+                               double permitsPerSecond,
+                               long nowMillis);
+
+    /**
+     * Refill the bucket of the queue and take a permit from it.
+     * <p>
+     * The permit is taken even if the bucket is empty, so the bucket is overdrawn
+     * when several nodes take permits at once and the next permits are available later.
+     *
+     * @param tableName        name of the table with buckets
+     * @param queueId          queue identifier
+     * @param permitsPerSecond refill rate of the bucket, it is also the capacity of the bucket
+     * @param nowMillis        current time in milliseconds since epoch
+     */
+    void takePermit(@Nonnull String tableName,
+                    @Nonnull QueueId queueId,
+                    double permitsPerSecond,
+                    long nowMillis);
+}
@@ -0,0 +1,35 @@
+package ru.yoomoney.tech.dbqueue.dao;
+
+import javax.annotation.Nonnull;
+import java.util.Map;
+
+/**
+ * Database access object to read queue settings shared between nodes.
+ * <p>
+ * Settings are stored in a table with the following columns:
+ * setting_name - full name of a setting in the format of {@link ru.yoomoney.tech.dbqueue.settings.QueueConfigsReader}
+ * (primary key), setting_value - value of the setting, version - number, which must be increased
+ * on every change of the row.
+ *
+ * @author Oleg Kandaurov
+ * @since 19.10.2026
+ */
+public interface QueueSettingsDao {
+
+    /**
+     * Get version of the settings, which is the maximum version of the rows.
+     *
+     * @param tableName name of the table with settings
+     * @return version of the settings or 0 if the table is empty
+     */
+    long getSettingsVersion(@Nonnull String tableName);
+
+    /**
+     * Load all settings.
+     *
+     * @param tableName name of the table with settings
+     * @return values of the settings by their names
+     */
+    @Nonnull
+    Map<String, String> loadSettings(@Nonnull String tableName);
+}
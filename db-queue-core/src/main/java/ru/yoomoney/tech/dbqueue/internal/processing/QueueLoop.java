@@ -54,6 +54,20 @@ public interface QueueLoop {
      */
     void unpause();
 
+    /**
+     * Завершить исполнение кода после текущей итерации.
+     * <p>
+     * Текущая итерация не прерывается, ожидание и пауза завершаются сразу.
+     */
+    void stop();
+
+    /**
+     * Получить признак, что исполнение кода завершается после вызова {@link #stop()}
+     *
+     * @return true, если исполнение завершается
+     */
+    boolean isStopped();
+
     /**
      * Cтратегия выполнения задачи в потоке
      */
@@ -64,16 +78,20 @@ public interface QueueLoop {
         private final Object monitor = new Object();
         private volatile boolean isWakedUp = false;
         private volatile boolean isPaused = true;
+        private volatile boolean isStopped = false;
 
         @Override
         public void doRun(Runnable runnable) {
-            while (!Thread.currentThread().isInterrupted()) {
+            while (!Thread.currentThread().isInterrupted() && !isStopped) {
                 try {
                     synchronized (monitor) {
-                        while (isPaused) {
+                        while (isPaused && !isStopped) {
                             monitor.wait();
                         }
                     }
+                    if (isStopped) {
+                        return;
+                    }
                     runnable.run();
                 } catch (InterruptedException ignored) {
                     log.info("sleep interrupted: threadName={}", Thread.currentThread().getName());
@@ -96,7 +114,7 @@ public interface QueueLoop {
                 synchronized (monitor) {
                     long plannedWakeupTime = System.currentTimeMillis() + timeout.toMillis();
                     long timeToSleep = plannedWakeupTime - System.currentTimeMillis();
-                    while (timeToSleep > 1L) {
+                    while (timeToSleep > 1L && !isStopped) {
                         if (!isWakedUp) {
                             monitor.wait(timeToSleep);
                         }
@@ -133,6 +151,19 @@ public interface QueueLoop {
                 monitor.notifyAll();
             }
         }
+
+        @Override
+        public void stop() {
+            synchronized (monitor) {
+                isStopped = true;
+                monitor.notifyAll();
+            }
+        }
+
+        @Override
+        public boolean isStopped() {
+            return isStopped;
+        }
     }
 
     /**
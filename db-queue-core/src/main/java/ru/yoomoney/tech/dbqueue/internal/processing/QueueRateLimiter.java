@@ -0,0 +1,155 @@
+package ru.yoomoney.tech.dbqueue.internal.processing;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ru.yoomoney.tech.dbqueue.config.QueueShard;
+import ru.yoomoney.tech.dbqueue.settings.ProcessingSettings;
+import ru.yoomoney.tech.dbqueue.settings.QueueLocation;
+
+import javax.annotation.Nonnull;
+import java.time.Duration;
+import java.util.Optional;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Ограничитель частоты выборки задач очереди на шарде.
+ * <p>
+ * Ограничение задается настройкой {@link ProcessingSettings#getRateLimit()} и применяется
+ * алгоритмом token bucket с емкостью, равной числу разрешений в секунду.
+ * Разрешение расходуется только на выбранные задачи.
+ * Если задана таблица {@link ProcessingSettings#getRateLimitTable()}, то bucket хранится в таблице
+ * и ограничение разделяется между всеми узлами, иначе bucket хранится в памяти узла.
+ * Перед выборкой bucket таблицы только читается, а разрешение списывается после выборки задачи,
+ * поэтому опросы пустой очереди не пишут в таблицу. Одновременные выборки нескольких узлов
+ * могут превысить ограничение, тогда bucket уходит в минус и следующие разрешения выдаются позже.
+ * Настройки читаются при каждом запросе разрешения, поэтому изменение ограничения применяется сразу.
+ *
+ * @author Oleg Kandaurov
+ * @since 19.10.2026
+ */
+public class QueueRateLimiter implements RateLimiter {
+    private static final Logger log = LoggerFactory.getLogger(QueueRateLimiter.class);
+
+    /**
+     * Промежуток, через который следует повторить попытку при ошибке обращения к таблице ограничений
+     */
+    static final Duration SHARED_LIMIT_FAILURE_TIMEOUT = Duration.ofSeconds(1L);
+
+    @Nonnull
+    private final QueueShard<?> queueShard;
+    @Nonnull
+    private final QueueLocation location;
+    @Nonnull
+    private final ProcessingSettings processingSettings;
+    @Nonnull
+    private final MillisTimeProvider millisTimeProvider;
+
+    private boolean initialized;
+    private double tokens;
+    private long refilledAt;
+
+    /**
+     * Конструктор
+     *
+     * @param queueShard         шард, на котором обрабатывается очередь
+     * @param location           местоположение очереди
+     * @param processingSettings настройки обработки очереди
+     * @param millisTimeProvider поставщик текущего времени
+     */
+    public QueueRateLimiter(@Nonnull QueueShard<?> queueShard,
+                            @Nonnull QueueLocation location,
+                            @Nonnull ProcessingSettings processingSettings,
+                            @Nonnull MillisTimeProvider millisTimeProvider) {
+        this.queueShard = requireNonNull(queueShard, "queueShard");
+        this.location = requireNonNull(location, "location");
+        this.processingSettings = requireNonNull(processingSettings, "processingSettings");
+        this.millisTimeProvider = requireNonNull(millisTimeProvider, "millisTimeProvider");
+    }
+
+    @Nonnull
+    @Override
+    public Duration acquire() {
+        Optional<Double> rateLimit = processingSettings.getRateLimit();
+        if (!rateLimit.isPresent()) {
+            return Duration.ZERO;
+        }
+        Optional<String> rateLimitTable = processingSettings.getRateLimitTable();
+        if (rateLimitTable.isPresent()) {
+            return acquireShared(rateLimitTable.get(), rateLimit.get());
+        }
+        return acquireLocal(rateLimit.get());
+    }
+
+    @Override
+    public void complete(boolean taskPicked) {
+        Optional<Double> rateLimit = processingSettings.getRateLimit();
+        if (!rateLimit.isPresent()) {
+            return;
+        }
+        Optional<String> rateLimitTable = processingSettings.getRateLimitTable();
+        if (rateLimitTable.isPresent()) {
+            if (taskPicked) {
+                takeSharedPermit(rateLimitTable.get(), rateLimit.get());
+            }
+            return;
+        }
+        if (!taskPicked) {
+            returnLocalPermit(rateLimit.get());
+        }
+    }
+
+    @Override
+    public boolean isLimited() {
+        return processingSettings.getRateLimit().isPresent();
+    }
+
+    private synchronized Duration acquireLocal(double permitsPerSecond) {
+        long now = millisTimeProvider.getMillis();
+        double capacity = Math.max(1.0, permitsPerSecond);
+        if (!initialized) {
+            tokens = capacity;
+            refilledAt = now;
+            initialized = true;
+        }
+        if (now > refilledAt) {
+            tokens += (now - refilledAt) * permitsPerSecond / 1000.0;
+            refilledAt = now;
+        }
+        tokens = Math.min(capacity, tokens);
+        if (tokens >= 1.0) {
+            tokens -= 1.0;
+            return Duration.ZERO;
+        }
+        return Duration.ofMillis((long) Math.ceil((1.0 - tokens) * 1000.0 / permitsPerSecond));
+    }
+
+    private synchronized void returnLocalPermit(double permitsPerSecond) {
+        tokens = Math.min(Math.max(1.0, permitsPerSecond), tokens + 1.0);
+    }
+
+    private Duration acquireShared(String tableName, double permitsPerSecond) {
+        try {
+            double permits = queueShard.getDatabaseAccessLayer().getQueueRateLimitDao().getAvailablePermits(
+                    tableName, location.getQueueId(), permitsPerSecond, millisTimeProvider.getMillis());
+            if (permits >= 1.0) {
+                return Duration.ZERO;
+            }
+            return Duration.ofMillis((long) Math.ceil((1.0 - permits) * 1000.0 / permitsPerSecond));
+        } catch (RuntimeException e) {
+            log.warn("cannot acquire shared rate limit: queueId={}, shardId={}, tableName={}",
+                    location.getQueueId(), queueShard.getShardId(), tableName, e);
+            return SHARED_LIMIT_FAILURE_TIMEOUT;
+        }
+    }
+
+    private void takeSharedPermit(String tableName, double permitsPerSecond) {
+        try {
+            queueShard.getDatabaseAccessLayer().getQueueRateLimitDao().takePermit(
+                    tableName, location.getQueueId(), permitsPerSecond, millisTimeProvider.getMillis());
+        } catch (RuntimeException e) {
+            log.warn("cannot take shared rate limit permit: queueId={}, shardId={}, tableName={}",
+                    location.getQueueId(), queueShard.getShardId(), tableName, e);
+        }
+    }
+}
@@ -2,11 +2,14 @@ package ru.yoomoney.tech.dbqueue.internal.processing;
 
 import ru.yoomoney.tech.dbqueue.api.QueueConsumer;
 import ru.yoomoney.tech.dbqueue.config.QueueShardId;
+import ru.yoomoney.tech.dbqueue.config.ShardHealth;
 import ru.yoomoney.tech.dbqueue.config.ThreadLifecycleListener;
 import ru.yoomoney.tech.dbqueue.internal.runner.QueueRunner;
 import ru.yoomoney.tech.dbqueue.settings.PollSettings;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.time.Duration;
 
 import static java.util.Objects.requireNonNull;
 
@@ -23,6 +26,10 @@ public class QueueTaskPoller {
     private final ThreadLifecycleListener threadLifecycleListener;
     @Nonnull
     private final MillisTimeProvider millisTimeProvider;
+    @Nonnull
+    private final RateLimiter rateLimiter;
+    @Nullable
+    private final ShardHealth shardHealth;
 
     /**
      * Конструктор
@@ -32,8 +39,38 @@ public class QueueTaskPoller {
      */
     public QueueTaskPoller(@Nonnull ThreadLifecycleListener threadLifecycleListener,
                            @Nonnull MillisTimeProvider millisTimeProvider) {
+        this(threadLifecycleListener, millisTimeProvider, RateLimiter.UNLIMITED);
+    }
+
+    /**
+     * Конструктор
+     *
+     * @param threadLifecycleListener слушатель событий исполнения очереди
+     * @param millisTimeProvider      поставщик текущего времени
+     * @param rateLimiter             ограничитель частоты выборки задач
+     */
+    public QueueTaskPoller(@Nonnull ThreadLifecycleListener threadLifecycleListener,
+                           @Nonnull MillisTimeProvider millisTimeProvider,
+                           @Nonnull RateLimiter rateLimiter) {
+        this(threadLifecycleListener, millisTimeProvider, rateLimiter, null);
+    }
+
+    /**
+     * Конструктор
+     *
+     * @param threadLifecycleListener слушатель событий исполнения очереди
+     * @param millisTimeProvider      поставщик текущего времени
+     * @param rateLimiter             ограничитель частоты выборки задач
+     * @param shardHealth             состояние здоровья шарда, если оно отслеживается
+     */
+    public QueueTaskPoller(@Nonnull ThreadLifecycleListener threadLifecycleListener,
+                           @Nonnull MillisTimeProvider millisTimeProvider,
+                           @Nonnull RateLimiter rateLimiter,
+                           @Nullable ShardHealth shardHealth) {
         this.threadLifecycleListener = requireNonNull(threadLifecycleListener);
         this.millisTimeProvider = requireNonNull(millisTimeProvider);
+        this.rateLimiter = requireNonNull(rateLimiter);
+        this.shardHealth = shardHealth;
     }
 
     /**
@@ -54,13 +91,33 @@ public class QueueTaskPoller {
         requireNonNull(queueLoop);
         queueLoop.doRun(() -> {
             PollSettings pollSettings = queueConsumer.getQueueConfig().getSettings().getPollSettings();
+            Duration rateLimitTimeout = rateLimiter.acquire();
+            if (!rateLimitTimeout.isZero()) {
+                queueLoop.doWait(rateLimitTimeout, QueueLoop.WaitInterrupt.DENY);
+                return;
+            }
+            Duration shardTimeout = shardHealth != null ? shardHealth.acquire() : Duration.ZERO;
+            if (!shardTimeout.isZero()) {
+                queueLoop.doWait(shardTimeout, QueueLoop.WaitInterrupt.DENY);
+                return;
+            }
+            boolean rateLimitCompleted = false;
             try {
                 long startTime = millisTimeProvider.getMillis();
                 threadLifecycleListener.started(shardId, queueConsumer.getQueueConfig().getLocation());
-                QueueProcessingStatus queueProcessingStatus = queueRunner.runQueue(queueConsumer);
+                QueueProcessingStatus queueProcessingStatus = queueRunner.runQueue(queueConsumer,
+                        () -> !queueLoop.isStopped() && !queueLoop.isPaused(),
+                        () -> canProcessNextTask(queueLoop, queueConsumer));
+                rateLimitCompleted = true;
+                rateLimiter.complete(queueProcessingStatus != QueueProcessingStatus.SKIPPED);
+                long busyTime = millisTimeProvider.getMillis() - startTime;
+                if (shardHealth != null) {
+                    // длительность выборки сообщает выборщик задач, а время исполнителя включает
+                    // ожидание слота общего пула и обработку задачи, поэтому здесь освобождается только пробный вызов
+                    shardHealth.releaseProbe();
+                }
                 threadLifecycleListener.executed(shardId, queueConsumer.getQueueConfig().getLocation(),
-                        queueProcessingStatus != QueueProcessingStatus.SKIPPED,
-                        millisTimeProvider.getMillis() - startTime);
+                        queueProcessingStatus != QueueProcessingStatus.SKIPPED, busyTime);
 
                 switch (queueProcessingStatus) {
                     case SKIPPED:
@@ -75,6 +132,13 @@ public class QueueTaskPoller {
                         throw new IllegalStateException("unknown task loop result" + queueProcessingStatus);
                 }
             } catch (Throwable e) {
+                if (!rateLimitCompleted) {
+                    // задача могла быть выбрана до ошибки, поэтому разрешение расходуется
+                    rateLimiter.complete(true);
+                }
+                if (shardHealth != null) {
+                    shardHealth.recordFailure();
+                }
                 threadLifecycleListener.crashed(shardId, queueConsumer.getQueueConfig().getLocation(), e);
                 queueLoop.doWait(pollSettings.getFatalCrashTimeout(),
                         QueueLoop.WaitInterrupt.DENY);
@@ -84,4 +148,18 @@ public class QueueTaskPoller {
         });
     }
 
+    /**
+     * Проверить, что следующую задачу можно обработать сразу после текущей.
+     * <p>
+     * Задача, выбранная вместе с завершением текущей, не должна ожидать паузы между задачами,
+     * ограничения частоты или восстановления шарда, иначе ее выборка истечет до начала обработки.
+     * Остановленный поток не выбирает задачи, которые он не обработает.
+     */
+    private boolean canProcessNextTask(@Nonnull QueueLoop queueLoop, @Nonnull QueueConsumer queueConsumer) {
+        return !Thread.currentThread().isInterrupted() && !queueLoop.isPaused() && !queueLoop.isStopped() &&
+                queueConsumer.getQueueConfig().getSettings().getPollSettings().getBetweenTaskTimeout().isZero() &&
+                !rateLimiter.isLimited() &&
+                (shardHealth == null || shardHealth.getState() == ShardHealth.State.CLOSED);
+    }
+
 }
@@ -0,0 +1,50 @@
+package ru.yoomoney.tech.dbqueue.internal.processing;
+
+import javax.annotation.Nonnull;
+import java.time.Duration;
+
+/**
+ * Ограничитель частоты выборки задач очереди.
+ *
+ * @author Oleg Kandaurov
+ * @since 19.10.2026
+ */
+@FunctionalInterface
+public interface RateLimiter {
+
+    /**
+     * Ограничитель, который не ограничивает выборку задач
+     */
+    RateLimiter UNLIMITED = () -> Duration.ZERO;
+
+    /**
+     * Получить разрешение на выборку задачи.
+     * <p>
+     * После выборки, для которой получено разрешение, нужно вызвать {@link #complete(boolean)}.
+     *
+     * @return {@link Duration#ZERO}, если разрешение получено,
+     * иначе промежуток, через который следует повторить попытку
+     */
+    @Nonnull
+    Duration acquire();
+
+    /**
+     * Завершить выборку, для которой было получено разрешение.
+     * <p>
+     * Разрешение расходуется, только если задача выбрана,
+     * поэтому опросы пустой очереди не уменьшают допустимую частоту обработки.
+     *
+     * @param taskPicked true, если задача выбрана или результат выборки неизвестен
+     */
+    default void complete(boolean taskPicked) {
+    }
+
+    /**
+     * Получить признак, что выборка задач сейчас ограничена.
+     *
+     * @return true, если выборка ограничена
+     */
+    default boolean isLimited() {
+        return false;
+    }
+}
@@ -0,0 +1,267 @@
+package ru.yoomoney.tech.dbqueue.internal.processing;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ru.yoomoney.tech.dbqueue.api.TaskExecutionResult;
+import ru.yoomoney.tech.dbqueue.api.TaskRecord;
+import ru.yoomoney.tech.dbqueue.config.QueueShard;
+import ru.yoomoney.tech.dbqueue.config.QueueShardId;
+import ru.yoomoney.tech.dbqueue.config.TaskLifecycleListener;
+import ru.yoomoney.tech.dbqueue.settings.FailRetryType;
+import ru.yoomoney.tech.dbqueue.settings.FailureSettings;
+import ru.yoomoney.tech.dbqueue.settings.QueueLocation;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Хранитель аренды выбранных задач, см. {@link FailureSettings#getLeaseDuration()}.
+ * <p>
+ * Задача выбирается из очереди на время аренды. Пока задача обрабатывается,
+ * фоновый поток продлевает аренду всех задач очереди одним запросом.
+ * Если обработка задачи завершилась ошибкой, задача откладывается на интервал повтора из {@link FailureSettings}.
+ * Задачи упавшего приложения выбираются повторно по истечении аренды.
+ * <p>
+ * Выборка задач и продление аренды должны выполняться в разных транзакциях,
+ * поэтому аренда не используется в режиме {@link ru.yoomoney.tech.dbqueue.settings.ProcessingMode#WRAP_IN_TRANSACTION}.
+ *
+ * @author Oleg Kandaurov
+ * @since 19.10.2026
+ */
+public class TaskLeaseKeeper implements TaskLifecycleListener {
+
+    private static final Logger log = LoggerFactory.getLogger(TaskLeaseKeeper.class);
+
+    /**
+     * Максимальное количество задач в одном запросе продления аренды
+     */
+    private static final int MAX_BATCH_SIZE = 1000;
+    /**
+     * Максимальная степень в геометрической прогрессии интервала повтора
+     */
+    private static final int MAX_BACKOFF_EXPONENT = 30;
+
+    private static final ScheduledExecutorService HEARTBEAT_EXECUTOR =
+            Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "queue-lease-heartbeat");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    @Nonnull
+    private final QueueShard<?> queueShard;
+    @Nonnull
+    private final QueueLocation queueLocation;
+    @Nonnull
+    private final FailureSettings failureSettings;
+    @Nonnull
+    private final FailureSettings pickFailureSettings;
+    @Nonnull
+    private final TaskLifecycleListener delegate;
+    @Nonnull
+    private final ScheduledExecutorService heartbeatExecutor;
+    @Nonnull
+    private final Map<Long, TaskRecord> leasedTasks = new ConcurrentHashMap<>();
+    @Nullable
+    private ScheduledFuture<?> heartbeat;
+
+    /**
+     * Конструктор
+     *
+     * @param queueShard      шард, на котором обрабатываются задачи
+     * @param queueLocation   местоположение очереди
+     * @param failureSettings настройки обработки ошибок очереди
+     * @param delegate        слушатель, которому передаются события обработки задач
+     */
+    public TaskLeaseKeeper(@Nonnull QueueShard<?> queueShard,
+                           @Nonnull QueueLocation queueLocation,
+                           @Nonnull FailureSettings failureSettings,
+                           @Nonnull TaskLifecycleListener delegate) {
+        this(queueShard, queueLocation, failureSettings, delegate, HEARTBEAT_EXECUTOR);
+    }
+
+    TaskLeaseKeeper(@Nonnull QueueShard<?> queueShard,
+                    @Nonnull QueueLocation queueLocation,
+                    @Nonnull FailureSettings failureSettings,
+                    @Nonnull TaskLifecycleListener delegate,
+                    @Nonnull ScheduledExecutorService heartbeatExecutor) {
+        this.queueShard = requireNonNull(queueShard);
+        this.queueLocation = requireNonNull(queueLocation);
+        this.failureSettings = requireNonNull(failureSettings);
+        this.delegate = requireNonNull(delegate);
+        this.heartbeatExecutor = requireNonNull(heartbeatExecutor);
+        this.pickFailureSettings = createPickFailureSettings(failureSettings);
+        failureSettings.registerObserver((oldValue, newValue) ->
+                pickFailureSettings.setValue(createPickFailureSettings(newValue)));
+    }
+
+    /**
+     * Получить настройки обработки ошибок для выборки задач.
+     * <p>
+     * Если аренда задана, выбранная задача откладывается на время аренды.
+     *
+     * @return настройки, с которыми нужно создать {@link ru.yoomoney.tech.dbqueue.dao.QueuePickTaskDao}
+     */
+    @Nonnull
+    public FailureSettings getPickFailureSettings() {
+        return pickFailureSettings;
+    }
+
+    @Override
+    public void picked(@Nonnull QueueShardId shardId, @Nonnull QueueLocation location,
+                       @Nonnull TaskRecord taskRecord, long pickTaskTime) {
+        Optional<Duration> leaseDuration = failureSettings.getLeaseDuration();
+        if (leaseDuration.isPresent()) {
+            leasedTasks.put(taskRecord.getId(), taskRecord);
+            scheduleHeartbeat(leaseDuration.get());
+        }
+        delegate.picked(shardId, location, taskRecord, pickTaskTime);
+    }
+
+    @Override
+    public void started(@Nonnull QueueShardId shardId, @Nonnull QueueLocation location,
+                        @Nonnull TaskRecord taskRecord) {
+        delegate.started(shardId, location, taskRecord);
+    }
+
+    @Override
+    public void executed(@Nonnull QueueShardId shardId, @Nonnull QueueLocation location,
+                         @Nonnull TaskRecord taskRecord, @Nonnull TaskExecutionResult executionResult,
+                         long processTaskTime) {
+        if (executionResult.getActionType() != TaskExecutionResult.Type.FAIL) {
+            // результат записывается после события, продление аренды не должно его перезаписать
+            releaseLease(taskRecord);
+        }
+        delegate.executed(shardId, location, taskRecord, executionResult, processTaskTime);
+    }
+
+    @Override
+    public void finished(@Nonnull QueueShardId shardId, @Nonnull QueueLocation location,
+                         @Nonnull TaskRecord taskRecord) {
+        if (releaseLease(taskRecord)) {
+            delayFailedTask(taskRecord);
+        }
+        delegate.finished(shardId, location, taskRecord);
+    }
+
+    @Override
+    public void crashed(@Nonnull QueueShardId shardId, @Nonnull QueueLocation location,
+                        @Nonnull TaskRecord taskRecord, @Nullable Exception exc) {
+        delegate.crashed(shardId, location, taskRecord, exc);
+    }
+
+    @Override
+    public void released(@Nonnull QueueShardId shardId, @Nonnull QueueLocation location,
+                         @Nonnull TaskRecord taskRecord) {
+        releaseLease(taskRecord);
+        delegate.released(shardId, location, taskRecord);
+    }
+
+    /**
+     * Продлить аренду всех обрабатываемых задач
+     */
+    synchronized void extendLeases() {
+        Optional<Duration> leaseDuration = failureSettings.getLeaseDuration();
+        if (leasedTasks.isEmpty() || !leaseDuration.isPresent()) {
+            cancelHeartbeat();
+            return;
+        }
+        List<Long> taskIds = new ArrayList<>(leasedTasks.keySet());
+        try {
+            for (int from = 0; from < taskIds.size(); from += MAX_BATCH_SIZE) {
+                List<Long> batch = taskIds.subList(from, Math.min(from + MAX_BATCH_SIZE, taskIds.size()));
+                queueShard.getDatabaseAccessLayer().transact(() -> queueShard.getDatabaseAccessLayer().getQueueDao()
+                        .extendLeases(queueLocation, batch, leaseDuration.get()));
+            }
+        } catch (RuntimeException exc) {
+            log.warn("cannot extend leases: location={}, shardId={}, taskCount={}",
+                    queueLocation, queueShard.getShardId(), taskIds.size(), exc);
+        }
+    }
+
+    /**
+     * Получить количество задач, аренда которых продлевается
+     *
+     * @return количество задач
+     */
+    int getLeasedTaskCount() {
+        return leasedTasks.size();
+    }
+
+    private synchronized boolean releaseLease(@Nonnull TaskRecord taskRecord) {
+        return leasedTasks.remove(taskRecord.getId()) != null;
+    }
+
+    private synchronized void scheduleHeartbeat(@Nonnull Duration leaseDuration) {
+        if (heartbeat != null) {
+            return;
+        }
+        long period = Math.max(1L, leaseDuration.toMillis() / 3);
+        heartbeat = heartbeatExecutor.scheduleWithFixedDelay(this::extendLeases, period, period,
+                TimeUnit.MILLISECONDS);
+    }
+
+    private void cancelHeartbeat() {
+        if (heartbeat != null) {
+            heartbeat.cancel(false);
+            heartbeat = null;
+        }
+    }
+
+    private void delayFailedTask(@Nonnull TaskRecord taskRecord) {
+        Duration retryDelay = calculateRetryDelay(taskRecord);
+        try {
+            queueShard.getDatabaseAccessLayer().transact(() -> queueShard.getDatabaseAccessLayer().getQueueDao()
+                    .extendLeases(queueLocation, Collections.singletonList(taskRecord.getId()), retryDelay));
+        } catch (RuntimeException exc) {
+            log.warn("cannot delay failed task, it will be retried when lease expires: location={}, taskId={}",
+                    queueLocation, taskRecord.getId(), exc);
+        }
+    }
+
+    /**
+     * Вычислить интервал повтора задачи так же, как его вычисляет выборка задачи без аренды
+     */
+    @Nonnull
+    private Duration calculateRetryDelay(@Nonnull TaskRecord taskRecord) {
+        Duration retryInterval = failureSettings.getRetryInterval();
+        long previousAttempts = Math.max(0L, taskRecord.getAttemptsCount() - 1);
+        FailRetryType retryType = failureSettings.getRetryType();
+        switch (retryType) {
+            case GEOMETRIC_BACKOFF:
+                return retryInterval.multipliedBy(1L << Math.min(previousAttempts, MAX_BACKOFF_EXPONENT));
+            case ARITHMETIC_BACKOFF:
+                return retryInterval.multipliedBy(1L + previousAttempts * 2);
+            case LINEAR_BACKOFF:
+                return retryInterval;
+            default:
+                throw new IllegalStateException("unknown retry type: " + retryType);
+        }
+    }
+
+    @Nonnull
+    private static FailureSettings createPickFailureSettings(@Nonnull FailureSettings failureSettings) {
+        return failureSettings.getLeaseDuration()
+                .map(leaseDuration -> FailureSettings.builder()
+                        .withRetryType(FailRetryType.LINEAR_BACKOFF)
+                        .withRetryInterval(leaseDuration)
+                        .build())
+                .orElseGet(() -> FailureSettings.builder()
+                        .withRetryType(failureSettings.getRetryType())
+                        .withRetryInterval(failureSettings.getRetryInterval())
+                        .build());
+    }
+}
@@ -4,10 +4,20 @@ import ru.yoomoney.tech.dbqueue.api.TaskRecord;
 import ru.yoomoney.tech.dbqueue.config.QueueShard;
 import ru.yoomoney.tech.dbqueue.config.TaskLifecycleListener;
 import ru.yoomoney.tech.dbqueue.dao.QueuePickTaskDao;
+import ru.yoomoney.tech.dbqueue.settings.PollSettings;
 import ru.yoomoney.tech.dbqueue.settings.QueueLocation;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 import static java.util.Objects.requireNonNull;
 
@@ -28,9 +38,33 @@ public class TaskPicker {
     private final TaskLifecycleListener taskLifecycleListener;
     @Nonnull
     private final MillisTimeProvider millisTimeProvider;
+    @Nonnull
+    private final PollSettings pollSettings;
+    @Nonnull
+    private final Supplier<Random> randomSupplier;
 
     private final QueuePickTaskDao pickTaskDao;
+    private final boolean deleteOnPick;
 
+    /**
+     * Constructor
+     *
+     * @param queueShard            shard to bound task picker to
+     * @param queueLocation         queue location
+     * @param taskLifecycleListener task listener
+     * @param millisTimeProvider    current time provider
+     * @param pickTaskDao           dao for picking up tasks
+     * @param pollSettings          poll settings
+     */
+    public TaskPicker(@Nonnull QueueShard<?> queueShard,
+                      @Nonnull QueueLocation queueLocation,
+                      @Nonnull TaskLifecycleListener taskLifecycleListener,
+                      @Nonnull MillisTimeProvider millisTimeProvider,
+                      @Nonnull QueuePickTaskDao pickTaskDao,
+                      @Nonnull PollSettings pollSettings) {
+        this(queueShard, queueLocation, taskLifecycleListener, millisTimeProvider, pickTaskDao, pollSettings,
+                false);
+    }
 
     /**
      * Constructor
@@ -40,35 +74,188 @@ public class TaskPicker {
      * @param taskLifecycleListener task listener
      * @param millisTimeProvider    current time provider
      * @param pickTaskDao           dao for picking up tasks
+     * @param pollSettings          poll settings
+     * @param deleteOnPick          delete tasks by the pick, see {@link QueuePickTaskDao#pickAndDeleteTask()}
      */
     public TaskPicker(@Nonnull QueueShard<?> queueShard,
                       @Nonnull QueueLocation queueLocation,
                       @Nonnull TaskLifecycleListener taskLifecycleListener,
                       @Nonnull MillisTimeProvider millisTimeProvider,
-                      @Nonnull QueuePickTaskDao pickTaskDao) {
+                      @Nonnull QueuePickTaskDao pickTaskDao,
+                      @Nonnull PollSettings pollSettings,
+                      boolean deleteOnPick) {
+        this(queueShard, queueLocation, taskLifecycleListener, millisTimeProvider, pickTaskDao, pollSettings,
+                ThreadLocalRandom::current, deleteOnPick);
+    }
+
+    TaskPicker(@Nonnull QueueShard<?> queueShard,
+               @Nonnull QueueLocation queueLocation,
+               @Nonnull TaskLifecycleListener taskLifecycleListener,
+               @Nonnull MillisTimeProvider millisTimeProvider,
+               @Nonnull QueuePickTaskDao pickTaskDao,
+               @Nonnull PollSettings pollSettings,
+               @Nonnull Supplier<Random> randomSupplier) {
+        this(queueShard, queueLocation, taskLifecycleListener, millisTimeProvider, pickTaskDao, pollSettings,
+                randomSupplier, false);
+    }
+
+    private TaskPicker(@Nonnull QueueShard<?> queueShard,
+                       @Nonnull QueueLocation queueLocation,
+                       @Nonnull TaskLifecycleListener taskLifecycleListener,
+                       @Nonnull MillisTimeProvider millisTimeProvider,
+                       @Nonnull QueuePickTaskDao pickTaskDao,
+                       @Nonnull PollSettings pollSettings,
+                       @Nonnull Supplier<Random> randomSupplier,
+                       boolean deleteOnPick) {
         this.queueShard = requireNonNull(queueShard);
         this.queueLocation = requireNonNull(queueLocation);
         this.taskLifecycleListener = requireNonNull(taskLifecycleListener);
         this.millisTimeProvider = requireNonNull(millisTimeProvider);
         this.pickTaskDao = requireNonNull(pickTaskDao);
+        this.pollSettings = requireNonNull(pollSettings);
+        this.randomSupplier = requireNonNull(randomSupplier);
+        this.deleteOnPick = deleteOnPick;
     }
 
     /**
      * Выбрать задачу из очереди
+     * <p>
+     * В режиме удаления при выборке приоритеты и ключи конкурентности не учитываются.
      *
      * @return задача или null если отсутствует
      */
     @Nullable
     public TaskRecord pickTask() {
+        Map<Integer, Integer> priorityWeights = pollSettings.getPriorityWeights();
+        return deleteOnPick ? pickTask(pickTaskDao::pickAndDeleteTask) :
+                priorityWeights.isEmpty() ? pickTask(() -> pickTaskFromLane(null)) :
+                        pickTask(() -> pickTaskFromPriorityLanes(priorityWeights));
+    }
+
+    /**
+     * Проверить, можно ли завершить обработанную задачу и выбрать следующую одним запросом
+     * <p>
+     * Совмещенная выборка не учитывает приоритеты и ключи конкурентности,
+     * поэтому используется, только когда они не заданы в настройках опроса.
+     *
+     * @return true, если завершение задачи и выборка следующей выполняются одним запросом
+     */
+    public boolean isCompleteAndPickSupported() {
+        return !deleteOnPick && pollSettings.getPriorityWeights().isEmpty() && !pollSettings.isOrderedByKey() &&
+                !pollSettings.getKeyConcurrencyLimit().isPresent() && pickTaskDao.isCompleteAndPickSupported();
+    }
+
+    /**
+     * Удалить обработанную задачу и выбрать следующую задачу из очереди
+     *
+     * @param taskRecord обработанная задача
+     * @return следующая задача или null если отсутствует
+     */
+    @Nullable
+    public TaskRecord deleteAndPickTask(@Nonnull TaskRecord taskRecord) {
+        requireNonNull(taskRecord);
+        return pickTask(() -> pickTaskDao.deleteAndPickTask(taskRecord.getId()));
+    }
+
+    /**
+     * Отложить обработанную задачу и выбрать следующую задачу из очереди
+     *
+     * @param taskRecord     обработанная задача
+     * @param executionDelay задержка повторной обработки задачи
+     * @return следующая задача или null если отсутствует
+     */
+    @Nullable
+    public TaskRecord reenqueueAndPickTask(@Nonnull TaskRecord taskRecord, @Nonnull Duration executionDelay) {
+        requireNonNull(taskRecord);
+        requireNonNull(executionDelay);
+        return pickTask(() -> pickTaskDao.reenqueueAndPickTask(taskRecord.getId(), executionDelay));
+    }
+
+    /**
+     * Вернуть в очередь выбранные задачи, обработка которых не начиналась
+     * <p>
+     * Задачи становятся доступны для выборки сразу, счетчики попыток сохраняются.
+     *
+     * @param taskRecords выбранные задачи
+     */
+    public void releaseTasks(@Nonnull List<TaskRecord> taskRecords) {
+        requireNonNull(taskRecords);
+        if (taskRecords.isEmpty()) {
+            return;
+        }
+        List<Long> taskIds = taskRecords.stream().map(TaskRecord::getId).collect(Collectors.toList());
+        queueShard.getDatabaseAccessLayer().transact(() -> queueShard.getDatabaseAccessLayer().getQueueDao()
+                .releaseTasks(queueLocation, taskIds));
+        taskRecords.forEach(taskRecord ->
+                taskLifecycleListener.released(queueShard.getShardId(), queueLocation, taskRecord));
+    }
+
+    @Nullable
+    private TaskRecord pickTask(@Nonnull Supplier<TaskRecord> pickOperation) {
         long startPickTaskTime = millisTimeProvider.getMillis();
-        TaskRecord taskRecord = queueShard.getDatabaseAccessLayer().transact(pickTaskDao::pickTask);
+        TaskRecord taskRecord = queueShard.getDatabaseAccessLayer().transactPick(pickOperation);
+        long pickTaskTime = millisTimeProvider.getMillis() - startPickTaskTime;
+        // медленной считается только выборка, а не ожидание слота или обработка задачи,
+        // ошибку выборки сообщает цикл обработки очереди
+        queueShard.getHealth().ifPresent(shardHealth -> shardHealth.recordSuccess(pickTaskTime));
         if (taskRecord == null) {
             return null;
         }
-        taskLifecycleListener.picked(queueShard.getShardId(), queueLocation, taskRecord,
-                millisTimeProvider.getMillis() - startPickTaskTime);
+        taskLifecycleListener.picked(queueShard.getShardId(), queueLocation, taskRecord, pickTaskTime);
         return taskRecord;
     }
 
+    /**
+     * Выбрать задачу из дорожек приоритетов.
+     * <p>
+     * Опрашивается только дорожка, выбранная пропорционально весу.
+     * Если она пуста, задача выбирается одним запросом без учета приоритета,
+     * поэтому пустой опрос стоит не больше двух запросов при любом числе дорожек,
+     * а задачи с приоритетами, отсутствующими в весах, тоже обрабатываются.
+     *
+     * @param priorityWeights веса приоритетов
+     * @return задача или null если отсутствует
+     */
+    @Nullable
+    private TaskRecord pickTaskFromPriorityLanes(@Nonnull Map<Integer, Integer> priorityWeights) {
+        TaskRecord taskRecord = pickTaskFromLane(choosePriority(priorityWeights));
+        if (taskRecord != null) {
+            return taskRecord;
+        }
+        return pickTaskFromLane(null);
+    }
+
+    @Nullable
+    private TaskRecord pickTaskFromLane(@Nullable Integer priority) {
+        if (pollSettings.isOrderedByKey()) {
+            return pickTaskDao.pickTaskInKeyOrder(priority);
+        }
+        Integer keyConcurrencyLimit = pollSettings.getKeyConcurrencyLimit().orElse(null);
+        if (keyConcurrencyLimit != null) {
+            return pickTaskDao.pickTaskWithKeyLimit(priority, keyConcurrencyLimit);
+        }
+        return priority == null ? pickTaskDao.pickTask() : pickTaskDao.pickTaskByPriority(priority);
+    }
+
+    /**
+     * Выбрать приоритет для опроса случайно пропорционально его весу.
+     *
+     * @param priorityWeights веса приоритетов
+     * @return выбранный приоритет
+     */
+    private int choosePriority(@Nonnull Map<Integer, Integer> priorityWeights) {
+        List<Integer> priorities = new ArrayList<>(priorityWeights.keySet());
+        priorities.sort(Comparator.reverseOrder());
+        int totalWeight = priorityWeights.values().stream().mapToInt(Integer::intValue).sum();
+        int point = randomSupplier.get().nextInt(totalWeight);
+        for (Integer priority : priorities) {
+            point -= priorityWeights.get(priority);
+            if (point < 0) {
+                return priority;
+            }
+        }
+        return priorities.get(priorities.size() - 1);
+    }
+
 
 }
@@ -8,6 +8,8 @@ import ru.yoomoney.tech.dbqueue.config.QueueShard;
 import ru.yoomoney.tech.dbqueue.config.TaskLifecycleListener;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.function.BooleanSupplier;
 
 import static java.util.Objects.requireNonNull;
 
@@ -56,6 +58,38 @@ public class TaskProcessor {
     public void processTask(@Nonnull QueueConsumer queueConsumer, @Nonnull TaskRecord taskRecord) {
         requireNonNull(queueConsumer);
         requireNonNull(taskRecord);
+        processTask(queueConsumer, taskRecord, null, () -> false);
+    }
+
+    /**
+     * Передать выбранную задачу в клиентский код на выполнение,
+     * обработать результат и выбрать следующую задачу тем же запросом,
+     * см. {@link TaskResultHandler#handleResultAndPickTask(TaskRecord, TaskExecutionResult, TaskPicker)}
+     * <p>
+     * Условие выборки проверяется после выполнения задачи,
+     * если оно не выполняется, результат обрабатывается без выборки следующей задачи.
+     *
+     * @param queueConsumer     очередь
+     * @param taskRecord        запись на обработку
+     * @param taskPicker        выборщик следующей задачи
+     * @param pickNextCondition условие, что следующую задачу можно выбрать
+     * @return следующая задача или null, если она не выбрана
+     */
+    @Nullable
+    public TaskRecord processTaskAndPickNext(@Nonnull QueueConsumer queueConsumer,
+                                             @Nonnull TaskRecord taskRecord,
+                                             @Nonnull TaskPicker taskPicker,
+                                             @Nonnull BooleanSupplier pickNextCondition) {
+        requireNonNull(queueConsumer);
+        requireNonNull(taskRecord);
+        requireNonNull(taskPicker);
+        requireNonNull(pickNextCondition);
+        return processTask(queueConsumer, taskRecord, taskPicker, pickNextCondition);
+    }
+
+    @Nullable
+    private TaskRecord processTask(@Nonnull QueueConsumer queueConsumer, @Nonnull TaskRecord taskRecord,
+                                   @Nullable TaskPicker nextTaskPicker, @Nonnull BooleanSupplier pickNextCondition) {
         try {
             taskLifecycleListener.started(queueShard.getShardId(), queueConsumer.getQueueConfig().getLocation(),
                     taskRecord);
@@ -73,10 +107,15 @@ public class TaskProcessor {
             taskLifecycleListener.executed(queueShard.getShardId(), queueConsumer.getQueueConfig().getLocation(),
                     taskRecord,
                     executionResult, millisTimeProvider.getMillis() - processTaskStarted);
-            taskResultHandler.handleResult(taskRecord, executionResult);
+            if (nextTaskPicker == null || !pickNextCondition.getAsBoolean()) {
+                taskResultHandler.handleResult(taskRecord, executionResult);
+                return null;
+            }
+            return taskResultHandler.handleResultAndPickTask(taskRecord, executionResult, nextTaskPicker);
         } catch (Exception exc) {
             taskLifecycleListener.crashed(queueShard.getShardId(), queueConsumer.getQueueConfig().getLocation(),
                     taskRecord, exc);
+            return null;
         } finally {
             taskLifecycleListener.finished(queueShard.getShardId(), queueConsumer.getQueueConfig().getLocation(),
                     taskRecord);
@@ -7,6 +7,8 @@ import ru.yoomoney.tech.dbqueue.settings.QueueLocation;
 import ru.yoomoney.tech.dbqueue.settings.ReenqueueSettings;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.time.Duration;
 
 import static java.util.Objects.requireNonNull;
 
@@ -24,6 +26,7 @@ public class TaskResultHandler {
     private final QueueShard<?> queueShard;
     @Nonnull
     private ReenqueueRetryStrategy reenqueueRetryStrategy;
+    private final boolean deletedOnPick;
 
     /**
      * Конструктор
@@ -35,6 +38,22 @@ public class TaskResultHandler {
     public TaskResultHandler(@Nonnull QueueLocation location,
                              @Nonnull QueueShard<?> queueShard,
                              @Nonnull ReenqueueSettings reenqueueSettings) {
+        this(location, queueShard, reenqueueSettings, false);
+    }
+
+    /**
+     * Конструктор
+     *
+     * @param location          местоположение очереди
+     * @param queueShard        шард на котором происходит обработка задачи
+     * @param reenqueueSettings настройки переоткладывания задач
+     * @param deletedOnPick     задачи удаляются при выборке, результат обработки не записывается в базу
+     */
+    public TaskResultHandler(@Nonnull QueueLocation location,
+                             @Nonnull QueueShard<?> queueShard,
+                             @Nonnull ReenqueueSettings reenqueueSettings,
+                             boolean deletedOnPick) {
+        this.deletedOnPick = deletedOnPick;
         this.location = requireNonNull(location);
         this.queueShard = requireNonNull(queueShard);
         this.reenqueueRetryStrategy = ReenqueueRetryStrategy.Factory.create(reenqueueSettings);
@@ -51,6 +70,9 @@ public class TaskResultHandler {
     public void handleResult(@Nonnull TaskRecord taskRecord, @Nonnull TaskExecutionResult executionResult) {
         requireNonNull(taskRecord);
         requireNonNull(executionResult);
+        if (deletedOnPick) {
+            return;
+        }
 
         switch (executionResult.getActionType()) {
             case FINISH:
@@ -60,9 +82,7 @@ public class TaskResultHandler {
 
             case REENQUEUE:
                 queueShard.getDatabaseAccessLayer().transact(() -> queueShard.getDatabaseAccessLayer().getQueueDao()
-                        .reenqueue(location, taskRecord.getId(),
-                                executionResult.getExecutionDelay().orElseGet(
-                                        () -> reenqueueRetryStrategy.calculateDelay(taskRecord))));
+                        .reenqueue(location, taskRecord.getId(), getExecutionDelay(taskRecord, executionResult)));
                 return;
             case FAIL:
                 return;
@@ -71,4 +91,46 @@ public class TaskResultHandler {
                 throw new IllegalStateException("unknown action type: " + executionResult.getActionType());
         }
     }
+
+    /**
+     * Обработать результат выполнения задачи и выбрать следующую задачу тем же запросом
+     * <p>
+     * Если выборщик не поддерживает совмещенную выборку, результат обрабатывается отдельно,
+     * а следующая задача не выбирается. После ошибки обработки следующая задача также не выбирается.
+     *
+     * @param taskRecord      обработанная задача
+     * @param executionResult результат обработки
+     * @param taskPicker      выборщик следующей задачи
+     * @return следующая задача или null, если она не выбрана
+     */
+    @Nullable
+    public TaskRecord handleResultAndPickTask(@Nonnull TaskRecord taskRecord,
+                                              @Nonnull TaskExecutionResult executionResult,
+                                              @Nonnull TaskPicker taskPicker) {
+        requireNonNull(taskRecord);
+        requireNonNull(executionResult);
+        requireNonNull(taskPicker);
+        if (deletedOnPick || !taskPicker.isCompleteAndPickSupported()) {
+            handleResult(taskRecord, executionResult);
+            return null;
+        }
+
+        switch (executionResult.getActionType()) {
+            case FINISH:
+                return taskPicker.deleteAndPickTask(taskRecord);
+            case REENQUEUE:
+                return taskPicker.reenqueueAndPickTask(taskRecord, getExecutionDelay(taskRecord, executionResult));
+            case FAIL:
+                return null;
+
+            default:
+                throw new IllegalStateException("unknown action type: " + executionResult.getActionType());
+        }
+    }
+
+    @Nonnull
+    private Duration getExecutionDelay(@Nonnull TaskRecord taskRecord,
+                                       @Nonnull TaskExecutionResult executionResult) {
+        return executionResult.getExecutionDelay().orElseGet(() -> reenqueueRetryStrategy.calculateDelay(taskRecord));
+    }
 }
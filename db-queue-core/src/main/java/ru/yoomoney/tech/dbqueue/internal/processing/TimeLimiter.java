@@ -14,13 +14,16 @@ import java.util.function.Consumer;
 public class TimeLimiter {
     @Nonnull
     private final MillisTimeProvider millisTimeProvider;
+    @Nonnull
+    private final Duration timeout;
     private Duration remainingTimeout;
     private Duration elapsedTime = Duration.ZERO;
 
     public TimeLimiter(@Nonnull MillisTimeProvider millisTimeProvider,
                        @Nonnull Duration timeout) {
         this.millisTimeProvider = Objects.requireNonNull(millisTimeProvider);
-        this.remainingTimeout = Objects.requireNonNull(timeout);
+        this.timeout = Objects.requireNonNull(timeout);
+        this.remainingTimeout = timeout;
     }
 
     /**
@@ -37,10 +40,10 @@ public class TimeLimiter {
         long startTime = millisTimeProvider.getMillis();
         consumer.accept(remainingTimeout);
         elapsedTime = elapsedTime.plus(Duration.ofMillis(millisTimeProvider.getMillis() - startTime));
-        if (remainingTimeout.compareTo(elapsedTime) <= 0) {
+        if (timeout.compareTo(elapsedTime) <= 0) {
             remainingTimeout = Duration.ZERO;
         } else {
-            remainingTimeout = remainingTimeout.minus(elapsedTime);
+            remainingTimeout = timeout.minus(elapsedTime);
         }
     }
 }
@@ -1,21 +1,28 @@
 package ru.yoomoney.tech.dbqueue.internal.runner;
 
 import ru.yoomoney.tech.dbqueue.api.QueueConsumer;
+import ru.yoomoney.tech.dbqueue.api.QueueConsumerGroup;
 import ru.yoomoney.tech.dbqueue.config.QueueShard;
 import ru.yoomoney.tech.dbqueue.config.TaskLifecycleListener;
 import ru.yoomoney.tech.dbqueue.dao.QueuePickTaskDao;
 import ru.yoomoney.tech.dbqueue.internal.processing.MillisTimeProvider;
 import ru.yoomoney.tech.dbqueue.internal.processing.QueueProcessingStatus;
+import ru.yoomoney.tech.dbqueue.internal.processing.TaskLeaseKeeper;
 import ru.yoomoney.tech.dbqueue.internal.processing.TaskPicker;
 import ru.yoomoney.tech.dbqueue.internal.processing.TaskProcessor;
 import ru.yoomoney.tech.dbqueue.internal.processing.TaskResultHandler;
+import ru.yoomoney.tech.dbqueue.settings.FailureSettings;
 import ru.yoomoney.tech.dbqueue.settings.ProcessingMode;
+import ru.yoomoney.tech.dbqueue.settings.QueueId;
 import ru.yoomoney.tech.dbqueue.settings.QueueLocation;
 import ru.yoomoney.tech.dbqueue.settings.QueueSettings;
 
 import javax.annotation.Nonnull;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.Executor;
+import java.util.function.BooleanSupplier;
 
 import static java.util.Objects.requireNonNull;
 
@@ -38,6 +45,57 @@ public interface QueueRunner {
     @Nonnull
     QueueProcessingStatus runQueue(@Nonnull QueueConsumer queueConsumer);
 
+    /**
+     * Единократно обработать заданную очередь, обрабатывая в том же вызове задачи,
+     * выбранные при завершении предыдущей задачи
+     * <p>
+     * Следующая задача выбирается при завершении предыдущей, только если выполняется условие,
+     * поэтому выбранная задача не ожидает паузы, ограничения частоты или остановки потока.
+     * Исполнители без совмещенной выборки игнорируют условие.
+     *
+     * @param queueConsumer     очередь для обработки
+     * @param pickNextCondition условие, что следующую задачу можно обработать сразу
+     * @return тип результата выполнения задачи
+     */
+    @Nonnull
+    default QueueProcessingStatus runQueue(@Nonnull QueueConsumer queueConsumer,
+                                           @Nonnull BooleanSupplier pickNextCondition) {
+        return runQueue(queueConsumer);
+    }
+
+    /**
+     * Единократно обработать заданную очередь, если поток не остановлен к началу обработки
+     * <p>
+     * Исполнитель, который ожидает свободный слот перед обработкой, проверяет условие
+     * во время ожидания и после него, поэтому остановленный или приостановленный поток не выбирает задачи.
+     *
+     * @param queueConsumer     очередь для обработки
+     * @param runCondition      условие, что поток может выбирать задачи
+     * @param pickNextCondition условие, что следующую задачу можно обработать сразу
+     * @return тип результата выполнения задачи
+     */
+    @Nonnull
+    default QueueProcessingStatus runQueue(@Nonnull QueueConsumer queueConsumer,
+                                           @Nonnull BooleanSupplier runCondition,
+                                           @Nonnull BooleanSupplier pickNextCondition) {
+        return runCondition.getAsBoolean() ? runQueue(queueConsumer, pickNextCondition) :
+                QueueProcessingStatus.SKIPPED;
+    }
+
+    /**
+     * Разбудить потоки, ожидающие свободный слот, чтобы они проверили условие обработки
+     */
+    default void wakeupWaiters() {
+    }
+
+    /**
+     * Вернуть в очередь задачи, которые выбраны исполнителем, но обработка которых не начиналась
+     * <p>
+     * Вызывается после остановки потоков очереди.
+     */
+    default void releaseClaimedTasks() {
+    }
+
     /**
      * Фабрика исполнителей задач в очереди
      */
@@ -62,26 +120,43 @@ public interface QueueRunner {
             requireNonNull(queueShard);
             requireNonNull(taskLifecycleListener);
 
+            if (queueConsumer instanceof QueueConsumerGroup) {
+                return createGroupRunner((QueueConsumerGroup) queueConsumer, queueShard, taskLifecycleListener);
+            }
+
             QueueSettings queueSettings = queueConsumer.getQueueConfig().getSettings();
             QueueLocation queueLocation = queueConsumer.getQueueConfig().getLocation();
 
+            ProcessingMode processingMode = queueSettings.getProcessingSettings().getProcessingMode();
+            boolean deleteOnPick = processingMode == ProcessingMode.AT_MOST_ONCE;
+
+            TaskLifecycleListener listener = taskLifecycleListener;
+            FailureSettings pickFailureSettings = queueSettings.getFailureSettings();
+            if (isLeaseSupported(processingMode)) {
+                TaskLeaseKeeper leaseKeeper = new TaskLeaseKeeper(queueShard, queueLocation,
+                        queueSettings.getFailureSettings(), taskLifecycleListener);
+                listener = leaseKeeper;
+                pickFailureSettings = leaseKeeper.getPickFailureSettings();
+            }
+
             QueuePickTaskDao queuePickTaskDao = queueShard.getDatabaseAccessLayer().createQueuePickTaskDao(
                     queueLocation,
-                    queueSettings.getFailureSettings());
+                    pickFailureSettings);
 
-            TaskPicker taskPicker = new TaskPicker(queueShard, queueLocation, taskLifecycleListener,
-                    new MillisTimeProvider.SystemMillisTimeProvider(), queuePickTaskDao);
+            TaskPicker taskPicker = new TaskPicker(queueShard, queueLocation, listener,
+                    new MillisTimeProvider.SystemMillisTimeProvider(), queuePickTaskDao,
+                    queueSettings.getPollSettings(), deleteOnPick);
 
             TaskResultHandler taskResultHandler = new TaskResultHandler(
                     queueLocation,
-                    queueShard, queueSettings.getReenqueueSettings());
+                    queueShard, queueSettings.getReenqueueSettings(), deleteOnPick);
 
-            TaskProcessor taskProcessor = new TaskProcessor(queueShard, taskLifecycleListener,
+            TaskProcessor taskProcessor = new TaskProcessor(queueShard, listener,
                     new MillisTimeProvider.SystemMillisTimeProvider(), taskResultHandler);
 
-            ProcessingMode processingMode = queueSettings.getProcessingSettings().getProcessingMode();
             switch (processingMode) {
                 case SEPARATE_TRANSACTIONS:
+                case AT_MOST_ONCE:
                     return new QueueRunnerInSeparateTransactions(taskPicker, taskProcessor);
                 case WRAP_IN_TRANSACTION:
                     return new QueueRunnerInTransaction(taskPicker, taskProcessor, queueShard);
@@ -95,5 +170,80 @@ public interface QueueRunner {
             }
         }
 
+        /**
+         * Создать исполнителя задач группы очередей
+         *
+         * @param consumerGroup         группа очередей
+         * @param queueShard            шард, на котором будет запущена группа
+         * @param taskLifecycleListener слушатель процесса обработки задач
+         * @return инстанс исполнителя задач
+         */
+        private static QueueRunner createGroupRunner(@Nonnull QueueConsumerGroup consumerGroup,
+                                                     @Nonnull QueueShard<?> queueShard,
+                                                     @Nonnull TaskLifecycleListener taskLifecycleListener) {
+            QueueSettings groupSettings = consumerGroup.getQueueConfig().getSettings();
+            QueueLocation groupLocation = consumerGroup.getQueueConfig().getLocation();
+
+            ProcessingMode processingMode = groupSettings.getProcessingSettings().getProcessingMode();
+            boolean deleteOnPick = processingMode == ProcessingMode.AT_MOST_ONCE;
+
+            TaskLifecycleListener listener = taskLifecycleListener;
+            FailureSettings pickFailureSettings = groupSettings.getFailureSettings();
+            if (isLeaseSupported(processingMode)) {
+                TaskLeaseKeeper leaseKeeper = new TaskLeaseKeeper(queueShard, groupLocation,
+                        groupSettings.getFailureSettings(), taskLifecycleListener);
+                listener = leaseKeeper;
+                pickFailureSettings = leaseKeeper.getPickFailureSettings();
+            }
+
+            QueuePickTaskDao queuePickTaskDao = queueShard.getDatabaseAccessLayer().createQueueGroupPickTaskDao(
+                    groupLocation,
+                    consumerGroup.getConsumers().keySet(),
+                    pickFailureSettings);
+
+            TaskPicker taskPicker = new TaskPicker(queueShard, groupLocation, listener,
+                    new MillisTimeProvider.SystemMillisTimeProvider(), queuePickTaskDao,
+                    groupSettings.getPollSettings(), deleteOnPick);
+
+            TaskLifecycleListener processingListener = listener;
+            Map<QueueId, QueueRunnerInGroup.Member> members = new LinkedHashMap<>();
+            consumerGroup.getConsumers().forEach((queueId, consumer) -> {
+                TaskResultHandler taskResultHandler = new TaskResultHandler(
+                        consumer.getQueueConfig().getLocation(),
+                        queueShard, consumer.getQueueConfig().getSettings().getReenqueueSettings(), deleteOnPick);
+                TaskProcessor taskProcessor = new TaskProcessor(queueShard, processingListener,
+                        new MillisTimeProvider.SystemMillisTimeProvider(), taskResultHandler);
+                Executor executor = processingMode == ProcessingMode.USE_EXTERNAL_EXECUTOR ?
+                        consumer.getExecutor().orElseThrow(() -> new IllegalArgumentException("Executor is empty. " +
+                                "You must provide QueueConsumer#getExecutor in ProcessingMode#USE_EXTERNAL_EXECUTOR: " +
+                                "queueId=" + queueId)) :
+                        Runnable::run;
+                members.put(queueId, new QueueRunnerInGroup.Member(consumer, taskProcessor, executor));
+            });
+
+            QueueRunner groupRunner = new QueueRunnerInGroup(taskPicker, members);
+            switch (processingMode) {
+                case SEPARATE_TRANSACTIONS:
+                case USE_EXTERNAL_EXECUTOR:
+                case AT_MOST_ONCE:
+                    return groupRunner;
+                case WRAP_IN_TRANSACTION:
+                    return queueConsumer -> requireNonNull(queueShard.getDatabaseAccessLayer()
+                            .transact(() -> groupRunner.runQueue(queueConsumer)));
+                default:
+                    throw new IllegalStateException("unknown processing mode: " + processingMode);
+            }
+        }
+
+        /**
+         * Аренда выбранных задач продлевается отдельными транзакциями,
+         * поэтому не поддерживается, когда выборка и обработка задачи выполняются в одной транзакции,
+         * а при удалении задачи на выборке не нужна.
+         */
+        private static boolean isLeaseSupported(@Nonnull ProcessingMode processingMode) {
+            return processingMode == ProcessingMode.SEPARATE_TRANSACTIONS ||
+                    processingMode == ProcessingMode.USE_EXTERNAL_EXECUTOR;
+        }
+
     }
 }
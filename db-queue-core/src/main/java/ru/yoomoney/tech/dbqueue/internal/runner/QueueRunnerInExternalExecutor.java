@@ -1,17 +1,27 @@
 package ru.yoomoney.tech.dbqueue.internal.runner;
 
 import ru.yoomoney.tech.dbqueue.api.QueueConsumer;
+import ru.yoomoney.tech.dbqueue.api.TaskRecord;
 import ru.yoomoney.tech.dbqueue.internal.processing.QueueProcessingStatus;
 import ru.yoomoney.tech.dbqueue.internal.processing.TaskPicker;
 import ru.yoomoney.tech.dbqueue.internal.processing.TaskProcessor;
 import ru.yoomoney.tech.dbqueue.settings.ProcessingMode;
 
 import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
 
+import static java.util.Objects.requireNonNull;
+
 /**
  * Исполнитель задач очереди в режиме
  * {@link ProcessingMode#USE_EXTERNAL_EXECUTOR}
+ * <p>
+ * Задачи, переданные во внешний исполнитель, но обработка которых не начиналась,
+ * возвращаются в очередь при остановке, см. {@link #releaseClaimedTasks()}.
  *
  * @author Oleg Kandaurov
  * @since 16.07.2017
@@ -19,7 +29,16 @@ import java.util.concurrent.Executor;
 @SuppressWarnings({"rawtypes", "unchecked"})
 class QueueRunnerInExternalExecutor implements QueueRunner {
 
-    private final BaseQueueRunner baseQueueRunner;
+    @Nonnull
+    private final TaskPicker taskPicker;
+    @Nonnull
+    private final TaskProcessor taskProcessor;
+    @Nonnull
+    private final Executor externalExecutor;
+    /**
+     * Задачи, ожидающие обработки во внешнем исполнителе, по идентификаторам
+     */
+    private final Map<Long, TaskRecord> pendingTasks = new ConcurrentHashMap<>();
 
     /**
      * Конструктор
@@ -31,13 +50,43 @@ class QueueRunnerInExternalExecutor implements QueueRunner {
     QueueRunnerInExternalExecutor(@Nonnull TaskPicker taskPicker,
                                   @Nonnull TaskProcessor taskProcessor,
                                   @Nonnull Executor externalExecutor) {
-        baseQueueRunner = new BaseQueueRunner(taskPicker, taskProcessor, externalExecutor);
+        this.taskPicker = requireNonNull(taskPicker);
+        this.taskProcessor = requireNonNull(taskProcessor);
+        this.externalExecutor = requireNonNull(externalExecutor);
     }
 
     @Override
     @Nonnull
     public QueueProcessingStatus runQueue(@Nonnull QueueConsumer queueConsumer) {
-        return baseQueueRunner.runQueue(queueConsumer);
+        TaskRecord taskRecord = taskPicker.pickTask();
+        if (taskRecord == null) {
+            return QueueProcessingStatus.SKIPPED;
+        }
+        pendingTasks.put(taskRecord.getId(), taskRecord);
+        try {
+            externalExecutor.execute(() -> {
+                // задачу забирает тот, кто удалил ее первым: исполнитель для обработки или остановка для возврата
+                if (pendingTasks.remove(taskRecord.getId()) != null) {
+                    taskProcessor.processTask(queueConsumer, taskRecord);
+                }
+            });
+        } catch (RuntimeException exc) {
+            pendingTasks.remove(taskRecord.getId());
+            throw exc;
+        }
+        return QueueProcessingStatus.PROCESSED;
+    }
+
+    @Override
+    public void releaseClaimedTasks() {
+        List<TaskRecord> releasedTasks = new ArrayList<>();
+        pendingTasks.keySet().forEach(taskId -> {
+            TaskRecord taskRecord = pendingTasks.remove(taskId);
+            if (taskRecord != null) {
+                releasedTasks.add(taskRecord);
+            }
+        });
+        taskPicker.releaseTasks(releasedTasks);
     }
 
 }
@@ -0,0 +1,88 @@
+package ru.yoomoney.tech.dbqueue.internal.runner;
+
+import ru.yoomoney.tech.dbqueue.api.QueueConsumer;
+import ru.yoomoney.tech.dbqueue.api.TaskRecord;
+import ru.yoomoney.tech.dbqueue.internal.processing.QueueProcessingStatus;
+import ru.yoomoney.tech.dbqueue.internal.processing.TaskPicker;
+import ru.yoomoney.tech.dbqueue.internal.processing.TaskProcessor;
+import ru.yoomoney.tech.dbqueue.settings.QueueId;
+
+import javax.annotation.Nonnull;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Исполнитель задач группы очередей, расположенных в одной таблице.
+ * <p>
+ * Выбирает задачу любой очереди группы и передает ее на выполнение обработчику очереди задачи.
+ *
+ * @author Oleg Kandaurov
+ * @since 19.10.2026
+ */
+@SuppressWarnings("rawtypes")
+class QueueRunnerInGroup implements QueueRunner {
+
+    @Nonnull
+    private final TaskPicker taskPicker;
+    @Nonnull
+    private final Map<QueueId, Member> members;
+
+    /**
+     * Конструктор
+     *
+     * @param taskPicker выборщик задачи группы
+     * @param members    участники группы по идентификаторам очередей
+     */
+    QueueRunnerInGroup(@Nonnull TaskPicker taskPicker,
+                       @Nonnull Map<QueueId, Member> members) {
+        this.taskPicker = requireNonNull(taskPicker);
+        this.members = requireNonNull(members);
+    }
+
+    @Override
+    @Nonnull
+    public QueueProcessingStatus runQueue(@Nonnull QueueConsumer queueConsumer) {
+        TaskRecord taskRecord = taskPicker.pickTask();
+        if (taskRecord == null) {
+            return QueueProcessingStatus.SKIPPED;
+        }
+        QueueId queueId = taskRecord.getQueueId().orElseThrow(() -> new IllegalStateException(
+                "queue of the picked task is unknown: taskId=" + taskRecord.getId()));
+        Member member = members.get(queueId);
+        if (member == null) {
+            throw new IllegalStateException("picked task does not belong to the group: " +
+                    "taskId=" + taskRecord.getId() + ", queueId=" + queueId);
+        }
+        member.executor.execute(() -> member.taskProcessor.processTask(member.queueConsumer, taskRecord));
+        return QueueProcessingStatus.PROCESSED;
+    }
+
+    /**
+     * Участник группы очередей
+     */
+    static class Member {
+        @Nonnull
+        private final QueueConsumer<?> queueConsumer;
+        @Nonnull
+        private final TaskProcessor taskProcessor;
+        @Nonnull
+        private final Executor executor;
+
+        /**
+         * Конструктор
+         *
+         * @param queueConsumer обработчик очереди
+         * @param taskProcessor обработчик задачи очереди
+         * @param executor      исполнитель задачи
+         */
+        Member(@Nonnull QueueConsumer<?> queueConsumer,
+               @Nonnull TaskProcessor taskProcessor,
+               @Nonnull Executor executor) {
+            this.queueConsumer = requireNonNull(queueConsumer);
+            this.taskProcessor = requireNonNull(taskProcessor);
+            this.executor = requireNonNull(executor);
+        }
+    }
+}
@@ -1,16 +1,25 @@
 package ru.yoomoney.tech.dbqueue.internal.runner;
 
 import ru.yoomoney.tech.dbqueue.api.QueueConsumer;
+import ru.yoomoney.tech.dbqueue.api.TaskRecord;
 import ru.yoomoney.tech.dbqueue.internal.processing.QueueProcessingStatus;
 import ru.yoomoney.tech.dbqueue.internal.processing.TaskPicker;
 import ru.yoomoney.tech.dbqueue.internal.processing.TaskProcessor;
 import ru.yoomoney.tech.dbqueue.settings.ProcessingMode;
 
 import javax.annotation.Nonnull;
+import java.util.function.BooleanSupplier;
+
+import static java.util.Objects.requireNonNull;
 
 /**
  * Исполнитель задач очереди в режиме
  * {@link ProcessingMode#SEPARATE_TRANSACTIONS}
+ * <p>
+ * Если выборщик поддерживает совмещенную выборку, результат обработки задачи записывается
+ * тем же запросом, которым выбирается следующая задача, см. {@link TaskPicker#isCompleteAndPickSupported()}.
+ * Выбранная так задача обрабатывается сразу в том же запуске исполнителя,
+ * поэтому выбранные задачи не удерживаются между запусками.
  *
  * @author Oleg Kandaurov
  * @since 16.07.2017
@@ -18,7 +27,10 @@ import javax.annotation.Nonnull;
 @SuppressWarnings({"rawtypes", "unchecked"})
 class QueueRunnerInSeparateTransactions implements QueueRunner {
 
-    private final BaseQueueRunner baseQueueRunner;
+    @Nonnull
+    private final TaskPicker taskPicker;
+    @Nonnull
+    private final TaskProcessor taskProcessor;
 
     /**
      * Конструктор
@@ -28,13 +40,30 @@ class QueueRunnerInSeparateTransactions implements QueueRunner {
      */
     QueueRunnerInSeparateTransactions(@Nonnull TaskPicker taskPicker,
                                       @Nonnull TaskProcessor taskProcessor) {
-        baseQueueRunner = new BaseQueueRunner(taskPicker, taskProcessor, Runnable::run);
+        this.taskPicker = requireNonNull(taskPicker);
+        this.taskProcessor = requireNonNull(taskProcessor);
     }
 
     @Override
     @Nonnull
     public QueueProcessingStatus runQueue(@Nonnull QueueConsumer queueConsumer) {
-        return baseQueueRunner.runQueue(queueConsumer);
+        return runQueue(queueConsumer, () -> false);
+    }
+
+    @Override
+    @Nonnull
+    public QueueProcessingStatus runQueue(@Nonnull QueueConsumer queueConsumer,
+                                          @Nonnull BooleanSupplier pickNextCondition) {
+        requireNonNull(pickNextCondition);
+        TaskRecord taskRecord = taskPicker.pickTask();
+        if (taskRecord == null) {
+            return QueueProcessingStatus.SKIPPED;
+        }
+        while (taskRecord != null) {
+            taskRecord = taskProcessor.processTaskAndPickNext(queueConsumer, taskRecord, taskPicker,
+                    pickNextCondition);
+        }
+        return QueueProcessingStatus.PROCESSED;
     }
 
 }
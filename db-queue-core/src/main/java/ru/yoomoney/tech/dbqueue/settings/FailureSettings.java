@@ -1,8 +1,10 @@
 package ru.yoomoney.tech.dbqueue.settings;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.time.Duration;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.StringJoiner;
 import java.util.function.BiFunction;
 
@@ -19,11 +21,18 @@ public class FailureSettings extends DynamicSetting<FailureSettings> {
     private FailRetryType retryType;
     @Nonnull
     private Duration retryInterval;
+    @Nullable
+    private Duration leaseDuration;
 
     private FailureSettings(@Nonnull FailRetryType retryType,
-                            @Nonnull Duration retryInterval) {
+                            @Nonnull Duration retryInterval,
+                            @Nullable Duration leaseDuration) {
         this.retryType = requireNonNull(retryType, "retryType must not be null");
         this.retryInterval = requireNonNull(retryInterval, "retryInterval must not be null");
+        if (leaseDuration != null && leaseDuration.getSeconds() < 1L) {
+            throw new IllegalArgumentException("leaseDuration must be at least one second");
+        }
+        this.leaseDuration = leaseDuration;
     }
 
     /**
@@ -47,6 +56,21 @@ public class FailureSettings extends DynamicSetting<FailureSettings> {
         return retryInterval;
     }
 
+    /**
+     * Get lease duration of a picked task.
+     * <p>
+     * When the lease is set, a picked task is hidden from other consumers for the lease duration only,
+     * and the lease is extended while the task is processed.
+     * Task of a crashed consumer is processed again when its lease expires.
+     * Retry interval is applied when the processing of a task fails.
+     *
+     * @return Lease duration or empty when a picked task is hidden for the retry interval.
+     */
+    @Nonnull
+    public Optional<Duration> getLeaseDuration() {
+        return Optional.ofNullable(leaseDuration);
+    }
+
     /**
      * Create a new builder for failure settings.
      *
@@ -65,12 +89,13 @@ public class FailureSettings extends DynamicSetting<FailureSettings> {
             return false;
         }
         FailureSettings that = (FailureSettings) obj;
-        return retryType == that.retryType && retryInterval.equals(that.retryInterval);
+        return retryType == that.retryType && retryInterval.equals(that.retryInterval) &&
+                Objects.equals(leaseDuration, that.leaseDuration);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(retryType, retryInterval);
+        return Objects.hash(retryType, retryInterval, leaseDuration);
     }
 
     @Override
@@ -78,6 +103,7 @@ public class FailureSettings extends DynamicSetting<FailureSettings> {
         return "{" +
                 "retryType=" + retryType +
                 ", retryInterval=" + retryInterval +
+                (leaseDuration != null ? ", leaseDuration=" + leaseDuration : "") +
                 '}';
     }
 
@@ -100,6 +126,10 @@ public class FailureSettings extends DynamicSetting<FailureSettings> {
                 diff.add("retryInterval=" +
                         newVal.retryInterval + '<' + oldVal.retryInterval);
             }
+            if (!Objects.equals(oldVal.leaseDuration, newVal.leaseDuration)) {
+                diff.add("leaseDuration=" +
+                        newVal.leaseDuration + '<' + oldVal.leaseDuration);
+            }
             return diff.toString();
         };
     }
@@ -114,6 +144,7 @@ public class FailureSettings extends DynamicSetting<FailureSettings> {
     protected void copyFields(@Nonnull FailureSettings newValue) {
         this.retryType = newValue.retryType;
         this.retryInterval = newValue.retryInterval;
+        this.leaseDuration = newValue.leaseDuration;
     }
 
     /**
@@ -122,6 +153,7 @@ public class FailureSettings extends DynamicSetting<FailureSettings> {
     public static class Builder {
         private FailRetryType retryType;
         private Duration retryInterval;
+        private Duration leaseDuration;
 
         /**
          * Set task execution retry strategy in case of failure.
@@ -145,13 +177,24 @@ public class FailureSettings extends DynamicSetting<FailureSettings> {
             return this;
         }
 
+        /**
+         * Set lease duration of a picked task.
+         *
+         * @param leaseDuration Lease duration or null to hide a picked task for the retry interval.
+         * @return Reference to the same builder.
+         */
+        public Builder withLeaseDuration(@Nullable Duration leaseDuration) {
+            this.leaseDuration = leaseDuration;
+            return this;
+        }
+
         /**
          * Create new failure settings object.
          *
          * @return A new failure settings object.
          */
         public FailureSettings build() {
-            return new FailureSettings(retryType, retryInterval);
+            return new FailureSettings(retryType, retryInterval, leaseDuration);
         }
     }
 }
@@ -8,6 +8,7 @@ import java.util.Objects;
 import java.util.Optional;
 import java.util.function.Supplier;
 
+import static ru.yoomoney.tech.dbqueue.settings.QueueConfigsReader.SETTING_LEASE_DURATION;
 import static ru.yoomoney.tech.dbqueue.settings.QueueConfigsReader.SETTING_RETRY_INTERVAL;
 import static ru.yoomoney.tech.dbqueue.settings.QueueConfigsReader.SETTING_RETRY_TYPE;
 import static ru.yoomoney.tech.dbqueue.settings.QueueConfigsReader.VALUE_TASK_RETRY_TYPE_ARITHMETIC;
@@ -66,6 +67,9 @@ class FailureSettingsParser {
                 case SETTING_RETRY_INTERVAL:
                     failureSettings.withRetryInterval(Duration.parse(value));
                     return;
+                case SETTING_LEASE_DURATION:
+                    failureSettings.withLeaseDuration(Duration.parse(value));
+                    return;
                 default:
                     return;
 
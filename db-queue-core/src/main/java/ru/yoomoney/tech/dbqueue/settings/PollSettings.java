@@ -1,8 +1,13 @@
 package ru.yoomoney.tech.dbqueue.settings;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.StringJoiner;
 import java.util.function.BiFunction;
 
@@ -21,13 +26,34 @@ public class PollSettings extends DynamicSetting<PollSettings> {
     private Duration noTaskTimeout;
     @Nonnull
     private Duration fatalCrashTimeout;
+    @Nonnull
+    private Map<Integer, Integer> priorityWeights;
+    @Nullable
+    private Integer keyConcurrencyLimit;
+    private boolean orderedByKey;
 
     private PollSettings(@Nonnull Duration betweenTaskTimeout,
                          @Nonnull Duration noTaskTimeout,
-                         @Nonnull Duration fatalCrashTimeout) {
+                         @Nonnull Duration fatalCrashTimeout,
+                         @Nonnull Map<Integer, Integer> priorityWeights,
+                         @Nullable Integer keyConcurrencyLimit,
+                         boolean orderedByKey) {
         this.betweenTaskTimeout = requireNonNull(betweenTaskTimeout, "betweenTaskTimeout must not be null");
         this.noTaskTimeout = requireNonNull(noTaskTimeout, "noTaskTimeout must not be null");
         this.fatalCrashTimeout = requireNonNull(fatalCrashTimeout, "fatalCrashTimeout must not be null");
+        this.priorityWeights = Collections.unmodifiableMap(new LinkedHashMap<>(
+                requireNonNull(priorityWeights, "priorityWeights must not be null")));
+        if (this.priorityWeights.values().stream().anyMatch(weight -> weight == null || weight <= 0)) {
+            throw new IllegalArgumentException("priority weights must be positive: priorityWeights=" + priorityWeights);
+        }
+        if (keyConcurrencyLimit != null && keyConcurrencyLimit <= 0) {
+            throw new IllegalArgumentException("keyConcurrencyLimit must be positive");
+        }
+        if (keyConcurrencyLimit != null && orderedByKey) {
+            throw new IllegalArgumentException("keyConcurrencyLimit and orderedByKey are mutually exclusive");
+        }
+        this.keyConcurrencyLimit = keyConcurrencyLimit;
+        this.orderedByKey = orderedByKey;
     }
 
     /**
@@ -60,6 +86,54 @@ public class PollSettings extends DynamicSetting<PollSettings> {
         return fatalCrashTimeout;
     }
 
+    /**
+     * Get weights of task priorities.
+     * <p>
+     * Each configured priority is a separate lane, which is probed by its own pick query.
+     * On every poll a lane is chosen randomly in proportion to its weight and only the chosen lane is probed.
+     * Thus tasks with low priority are not starved by tasks with high priority.
+     * When the chosen lane is empty, a task is picked regardless of priority by a single query,
+     * so a poll costs at most two queries, and tasks with priorities, which are not configured, are picked too.
+     * Priorities are ignored and tasks are picked in order of next processing time, when weights are empty.
+     *
+     * @return Map where key is the task priority and value is a weight of the priority.
+     */
+    @Nonnull
+    public Map<Integer, Integer> getPriorityWeights() {
+        return priorityWeights;
+    }
+
+    /**
+     * Get maximum number of tasks with the same concurrency key, which are processed concurrently.
+     * <p>
+     * The key is stored in {@link ru.yoomoney.tech.dbqueue.config.QueueTableSchema#getConcurrencyKeyField()}.
+     * A task is in flight when it was picked and its next processing time has not come yet.
+     * With {@link FailureSettings#getLeaseDuration()} only leased tasks are in flight,
+     * failed tasks waiting for a longer retry backoff do not hold the key.
+     * The pick query skips tasks of saturated keys, so other keys are not blocked by them.
+     * Tasks without a key are not limited.
+     *
+     * @return Limit of concurrent tasks per key or empty object if tasks are not limited.
+     */
+    @Nonnull
+    public Optional<Integer> getKeyConcurrencyLimit() {
+        return Optional.ofNullable(keyConcurrencyLimit);
+    }
+
+    /**
+     * Whether tasks with the same concurrency key are processed one at a time in order of enqueue.
+     * <p>
+     * The key is stored in {@link ru.yoomoney.tech.dbqueue.config.QueueTableSchema#getConcurrencyKeyField()}.
+     * Only the oldest task of a key can be picked, other tasks of the key wait until it is finished.
+     * Tasks of different keys are processed concurrently, so throughput scales with the number of distinct keys.
+     * Tasks without a key are not ordered.
+     *
+     * @return true if tasks are ordered within a key.
+     */
+    public boolean isOrderedByKey() {
+        return orderedByKey;
+    }
+
     /**
      * Create a new builder for poll settings.
      *
@@ -79,12 +153,14 @@ public class PollSettings extends DynamicSetting<PollSettings> {
         }
         PollSettings that = (PollSettings) obj;
         return betweenTaskTimeout.equals(that.betweenTaskTimeout) && noTaskTimeout.equals(that.noTaskTimeout)
-                && fatalCrashTimeout.equals(that.fatalCrashTimeout);
+                && fatalCrashTimeout.equals(that.fatalCrashTimeout) && priorityWeights.equals(that.priorityWeights)
+                && Objects.equals(keyConcurrencyLimit, that.keyConcurrencyLimit) && orderedByKey == that.orderedByKey;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(betweenTaskTimeout, noTaskTimeout, fatalCrashTimeout);
+        return Objects.hash(betweenTaskTimeout, noTaskTimeout, fatalCrashTimeout, priorityWeights,
+                keyConcurrencyLimit, orderedByKey);
     }
 
     @Override
@@ -93,6 +169,9 @@ public class PollSettings extends DynamicSetting<PollSettings> {
                 "betweenTaskTimeout=" + betweenTaskTimeout +
                 ", noTaskTimeout=" + noTaskTimeout +
                 ", fatalCrashTimeout=" + fatalCrashTimeout +
+                (priorityWeights.isEmpty() ? "" : ", priorityWeights=" + priorityWeights) +
+                (keyConcurrencyLimit == null ? "" : ", keyConcurrencyLimit=" + keyConcurrencyLimit) +
+                (orderedByKey ? ", orderedByKey=true" : "") +
                 '}';
     }
 
@@ -119,6 +198,18 @@ public class PollSettings extends DynamicSetting<PollSettings> {
                 diff.add("fatalCrashTimeout=" +
                         newVal.fatalCrashTimeout + '<' + oldVal.fatalCrashTimeout);
             }
+            if (!Objects.equals(oldVal.priorityWeights, newVal.priorityWeights)) {
+                diff.add("priorityWeights=" +
+                        newVal.priorityWeights + '<' + oldVal.priorityWeights);
+            }
+            if (!Objects.equals(oldVal.keyConcurrencyLimit, newVal.keyConcurrencyLimit)) {
+                diff.add("keyConcurrencyLimit=" +
+                        newVal.keyConcurrencyLimit + '<' + oldVal.keyConcurrencyLimit);
+            }
+            if (oldVal.orderedByKey != newVal.orderedByKey) {
+                diff.add("orderedByKey=" +
+                        newVal.orderedByKey + '<' + oldVal.orderedByKey);
+            }
             return diff.toString();
         };
     }
@@ -134,6 +225,9 @@ public class PollSettings extends DynamicSetting<PollSettings> {
         this.betweenTaskTimeout = newValue.betweenTaskTimeout;
         this.noTaskTimeout = newValue.noTaskTimeout;
         this.fatalCrashTimeout = newValue.fatalCrashTimeout;
+        this.priorityWeights = newValue.priorityWeights;
+        this.keyConcurrencyLimit = newValue.keyConcurrencyLimit;
+        this.orderedByKey = newValue.orderedByKey;
     }
 
     /**
@@ -144,6 +238,9 @@ public class PollSettings extends DynamicSetting<PollSettings> {
         private Duration betweenTaskTimeout;
         private Duration noTaskTimeout;
         private Duration fatalCrashTimeout;
+        private Map<Integer, Integer> priorityWeights = new LinkedHashMap<>();
+        private Integer keyConcurrencyLimit;
+        private boolean orderedByKey;
 
         private Builder() {
         }
@@ -183,13 +280,47 @@ public class PollSettings extends DynamicSetting<PollSettings> {
             return this;
         }
 
+        /**
+         * Set weights of task priorities.
+         *
+         * @param priorityWeights Map where key is the task priority and value is a weight of the priority.
+         * @return Reference to the same builder.
+         */
+        public Builder withPriorityWeights(@Nonnull Map<Integer, Integer> priorityWeights) {
+            this.priorityWeights = priorityWeights;
+            return this;
+        }
+
+        /**
+         * Set maximum number of tasks with the same concurrency key, which are processed concurrently.
+         *
+         * @param keyConcurrencyLimit Limit of concurrent tasks per key.
+         * @return Reference to the same builder.
+         */
+        public Builder withKeyConcurrencyLimit(@Nullable Integer keyConcurrencyLimit) {
+            this.keyConcurrencyLimit = keyConcurrencyLimit;
+            return this;
+        }
+
+        /**
+         * Set whether tasks with the same concurrency key are processed one at a time in order of enqueue.
+         *
+         * @param orderedByKey true if tasks are ordered within a key.
+         * @return Reference to the same builder.
+         */
+        public Builder withOrderedByKey(boolean orderedByKey) {
+            this.orderedByKey = orderedByKey;
+            return this;
+        }
+
         /**
          * Create new poll settings object.
          *
          * @return A new poll settings object.
          */
         public PollSettings build() {
-            return new PollSettings(betweenTaskTimeout, noTaskTimeout, fatalCrashTimeout);
+            return new PollSettings(betweenTaskTimeout, noTaskTimeout, fatalCrashTimeout, priorityWeights,
+                    keyConcurrencyLimit, orderedByKey);
         }
     }
 }
@@ -2,6 +2,7 @@ package ru.yoomoney.tech.dbqueue.settings;
 
 import javax.annotation.Nonnull;
 import java.time.Duration;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -10,7 +11,10 @@ import java.util.function.Supplier;
 
 import static ru.yoomoney.tech.dbqueue.settings.QueueConfigsReader.SETTING_BETWEEN_TASK_TIMEOUT;
 import static ru.yoomoney.tech.dbqueue.settings.QueueConfigsReader.SETTING_FATAL_CRASH_TIMEOUT;
+import static ru.yoomoney.tech.dbqueue.settings.QueueConfigsReader.SETTING_KEY_CONCURRENCY_LIMIT;
 import static ru.yoomoney.tech.dbqueue.settings.QueueConfigsReader.SETTING_NO_TASK_TIMEOUT;
+import static ru.yoomoney.tech.dbqueue.settings.QueueConfigsReader.SETTING_ORDERED_BY_KEY;
+import static ru.yoomoney.tech.dbqueue.settings.QueueConfigsReader.SETTING_PRIORITY_WEIGHTS;
 
 /**
  * Parser for {@link PollSettings}
@@ -66,6 +70,15 @@ class PollSettingsParser {
                 case SETTING_FATAL_CRASH_TIMEOUT:
                     pollSettings.withFatalCrashTimeout(Duration.parse(value));
                     return;
+                case SETTING_PRIORITY_WEIGHTS:
+                    pollSettings.withPriorityWeights(parsePriorityWeights(value));
+                    return;
+                case SETTING_KEY_CONCURRENCY_LIMIT:
+                    pollSettings.withKeyConcurrencyLimit(Integer.valueOf(value));
+                    return;
+                case SETTING_ORDERED_BY_KEY:
+                    pollSettings.withOrderedByKey(parseBoolean(value));
+                    return;
                 default:
                     return;
 
@@ -76,4 +89,27 @@ class PollSettingsParser {
         }
     }
 
+    private static boolean parseBoolean(String value) {
+        if ("true".equals(value)) {
+            return true;
+        }
+        if ("false".equals(value)) {
+            return false;
+        }
+        throw new IllegalArgumentException("value must be 'true' or 'false'");
+    }
+
+    private static Map<Integer, Integer> parsePriorityWeights(String value) {
+        Map<Integer, Integer> priorityWeights = new LinkedHashMap<>();
+        for (String lane : value.split(",")) {
+            String[] priorityAndWeight = lane.split(":");
+            if (priorityAndWeight.length != 2) {
+                throw new IllegalArgumentException("priority weight must be in format 'priority:weight'");
+            }
+            priorityWeights.put(Integer.valueOf(priorityAndWeight[0].trim()),
+                    Integer.valueOf(priorityAndWeight[1].trim()));
+        }
+        return priorityWeights;
+    }
+
 }
@@ -50,5 +50,17 @@ public enum ProcessingMode {
      * with increasing the number of queue processing threads,
      * although this also will lead to the increasing database idle polls.
      */
-    USE_EXTERNAL_EXECUTOR
+    USE_EXTERNAL_EXECUTOR,
+
+    /**
+     * Task will be processed at most once.
+     * Task is deleted from the queue by the same statement which picks it.
+     * <p>
+     * Should be used for tasks, which may be lost, e.g. cache invalidation or notifications.
+     * Processing takes a single database call per task, because nothing is written after the processing.
+     * Result of the processing is ignored: a task is neither retried nor reenqueued,
+     * and a task is lost when the processing fails or the application stops.
+     * Priorities and concurrency keys are not taken into account in that mode.
+     */
+    AT_MOST_ONCE
 }
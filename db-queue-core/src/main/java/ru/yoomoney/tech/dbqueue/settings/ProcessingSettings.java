@@ -1,7 +1,9 @@
 package ru.yoomoney.tech.dbqueue.settings;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.StringJoiner;
 import java.util.function.BiFunction;
 
@@ -16,14 +18,52 @@ public class ProcessingSettings extends DynamicSetting<ProcessingSettings> {
     private Integer threadCount;
     @Nonnull
     private ProcessingMode processingMode;
+    @Nonnull
+    private Integer schedulingWeight;
+    @Nonnull
+    private Integer minThreadCount;
+    @Nullable
+    private Integer maxThreadCount;
+    @Nullable
+    private Double rateLimit;
+    @Nullable
+    private String rateLimitTable;
+    private boolean crossShardThreads;
 
     private ProcessingSettings(@Nonnull Integer threadCount,
-                               @Nonnull ProcessingMode processingMode) {
+                               @Nonnull ProcessingMode processingMode,
+                               @Nonnull Integer schedulingWeight,
+                               @Nonnull Integer minThreadCount,
+                               @Nullable Integer maxThreadCount,
+                               @Nullable Double rateLimit,
+                               @Nullable String rateLimitTable,
+                               boolean crossShardThreads) {
         this.threadCount = Objects.requireNonNull(threadCount, "threadCount must not be null");
         this.processingMode = Objects.requireNonNull(processingMode, "processingMode must not be null");
+        this.schedulingWeight = Objects.requireNonNull(schedulingWeight, "schedulingWeight must not be null");
+        this.minThreadCount = Objects.requireNonNull(minThreadCount, "minThreadCount must not be null");
         if (threadCount < 0) {
             throw new IllegalArgumentException("threadCount must not be negative");
         }
+        if (schedulingWeight <= 0) {
+            throw new IllegalArgumentException("schedulingWeight must be positive");
+        }
+        if (minThreadCount < 0 || minThreadCount > threadCount) {
+            throw new IllegalArgumentException("minThreadCount must be between 0 and threadCount");
+        }
+        if (maxThreadCount != null && maxThreadCount < threadCount) {
+            throw new IllegalArgumentException("maxThreadCount must not be less than threadCount");
+        }
+        if (rateLimit != null && !(rateLimit > 0)) {
+            throw new IllegalArgumentException("rateLimit must be positive");
+        }
+        if (rateLimitTable != null && rateLimit == null) {
+            throw new IllegalArgumentException("rateLimitTable requires rateLimit to be set");
+        }
+        this.maxThreadCount = maxThreadCount;
+        this.rateLimit = rateLimit;
+        this.rateLimitTable = rateLimitTable;
+        this.crossShardThreads = crossShardThreads;
     }
 
     /**
@@ -46,6 +86,84 @@ public class ProcessingSettings extends DynamicSetting<ProcessingSettings> {
         return processingMode;
     }
 
+    /**
+     * Get weight of the queue in a shared worker pool.
+     * <p>
+     * Queues with backlog get free slots of the pool in proportion to their weights.
+     * The setting is used only when the queue is served by
+     * {@link ru.yoomoney.tech.dbqueue.config.SharedWorkerPool}.
+     *
+     * @return Weight of the queue, 1 by default.
+     */
+    @Nonnull
+    public Integer getSchedulingWeight() {
+        return schedulingWeight;
+    }
+
+    /**
+     * Get number of slots of a shared worker pool, which the queue gets ahead of the other queues.
+     * Maximum number of slots used by the queue is limited by {@link #getThreadCount()}.
+     * The setting is used when the queue is served by
+     * {@link ru.yoomoney.tech.dbqueue.config.SharedWorkerPool}.
+     * It is also the lower bound of {@link ru.yoomoney.tech.dbqueue.config.ThreadCountAutoscaler}.
+     *
+     * @return Minimal number of slots, 0 by default.
+     */
+    @Nonnull
+    public Integer getMinThreadCount() {
+        return minThreadCount;
+    }
+
+    /**
+     * Get upper bound of the number of threads, which {@link ru.yoomoney.tech.dbqueue.config.ThreadCountAutoscaler}
+     * may set for the queue.
+     *
+     * @return Maximal number of threads or empty if the queue is not autoscaled.
+     */
+    @Nonnull
+    public Optional<Integer> getMaxThreadCount() {
+        return Optional.ofNullable(maxThreadCount);
+    }
+
+    /**
+     * Get maximum number of task picks per second.
+     * <p>
+     * The limit is checked before picking a task, so a task is never picked just to wait for a permit.
+     * The limit is applied on every node separately,
+     * unless the limit is shared through {@link #getRateLimitTable()}.
+     *
+     * @return Number of task picks per second or empty if picks are not limited.
+     */
+    @Nonnull
+    public Optional<Double> getRateLimit() {
+        return Optional.ofNullable(rateLimit);
+    }
+
+    /**
+     * Get name of the table, which shares {@link #getRateLimit()} between all nodes processing the queue.
+     * Each shard has its own table and its own limit.
+     *
+     * @return Table name or empty if the rate limit is applied on every node separately.
+     */
+    @Nonnull
+    public Optional<String> getRateLimitTable() {
+        return Optional.ofNullable(rateLimitTable);
+    }
+
+    /**
+     * Check whether the queue has a single thread budget for all shards.
+     * <p>
+     * When enabled, at most {@link #getThreadCount()} threads of the queue pick and process tasks
+     * at the same time on all shards of the node. Free threads are given to the shards in proportion
+     * to the recent share of polls which picked a task, so the threads follow the backlog between shards.
+     * The setting is applied on the queue registration.
+     *
+     * @return true, if the thread budget is shared by the shards, false by default.
+     */
+    public boolean isCrossShardThreads() {
+        return crossShardThreads;
+    }
+
     /**
      * Create a new builder for processing settings.
      *
@@ -55,6 +173,23 @@ public class ProcessingSettings extends DynamicSetting<ProcessingSettings> {
         return new Builder();
     }
 
+    /**
+     * Create a new builder initialized with values of these settings.
+     *
+     * @return A new builder for processing settings.
+     */
+    public Builder toBuilder() {
+        return new Builder()
+                .withThreadCount(threadCount)
+                .withProcessingMode(processingMode)
+                .withSchedulingWeight(schedulingWeight)
+                .withMinThreadCount(minThreadCount)
+                .withMaxThreadCount(maxThreadCount)
+                .withRateLimit(rateLimit)
+                .withRateLimitTable(rateLimitTable)
+                .withCrossShardThreads(crossShardThreads);
+    }
+
     @Nonnull
     @Override
     protected String getName() {
@@ -74,6 +209,30 @@ public class ProcessingSettings extends DynamicSetting<ProcessingSettings> {
                 diff.add("processingMode=" +
                         newVal.processingMode + '<' + oldVal.processingMode);
             }
+            if (!Objects.equals(oldVal.schedulingWeight, newVal.schedulingWeight)) {
+                diff.add("schedulingWeight=" +
+                        newVal.schedulingWeight + '<' + oldVal.schedulingWeight);
+            }
+            if (!Objects.equals(oldVal.minThreadCount, newVal.minThreadCount)) {
+                diff.add("minThreadCount=" +
+                        newVal.minThreadCount + '<' + oldVal.minThreadCount);
+            }
+            if (!Objects.equals(oldVal.maxThreadCount, newVal.maxThreadCount)) {
+                diff.add("maxThreadCount=" +
+                        newVal.maxThreadCount + '<' + oldVal.maxThreadCount);
+            }
+            if (!Objects.equals(oldVal.rateLimit, newVal.rateLimit)) {
+                diff.add("rateLimit=" +
+                        newVal.rateLimit + '<' + oldVal.rateLimit);
+            }
+            if (!Objects.equals(oldVal.rateLimitTable, newVal.rateLimitTable)) {
+                diff.add("rateLimitTable=" +
+                        newVal.rateLimitTable + '<' + oldVal.rateLimitTable);
+            }
+            if (oldVal.crossShardThreads != newVal.crossShardThreads) {
+                diff.add("crossShardThreads=" +
+                        newVal.crossShardThreads + '<' + oldVal.crossShardThreads);
+            }
             return diff.toString();
         };
     }
@@ -88,6 +247,12 @@ public class ProcessingSettings extends DynamicSetting<ProcessingSettings> {
     protected void copyFields(@Nonnull ProcessingSettings newValue) {
         this.threadCount = newValue.threadCount;
         this.processingMode = newValue.processingMode;
+        this.schedulingWeight = newValue.schedulingWeight;
+        this.minThreadCount = newValue.minThreadCount;
+        this.maxThreadCount = newValue.maxThreadCount;
+        this.rateLimit = newValue.rateLimit;
+        this.rateLimitTable = newValue.rateLimitTable;
+        this.crossShardThreads = newValue.crossShardThreads;
     }
 
     @Override
@@ -99,12 +264,17 @@ public class ProcessingSettings extends DynamicSetting<ProcessingSettings> {
             return false;
         }
         ProcessingSettings that = (ProcessingSettings) obj;
-        return threadCount.equals(that.threadCount) && processingMode == that.processingMode;
+        return threadCount.equals(that.threadCount) && processingMode == that.processingMode &&
+                schedulingWeight.equals(that.schedulingWeight) && minThreadCount.equals(that.minThreadCount) &&
+                Objects.equals(maxThreadCount, that.maxThreadCount) &&
+                Objects.equals(rateLimit, that.rateLimit) && Objects.equals(rateLimitTable, that.rateLimitTable) &&
+                crossShardThreads == that.crossShardThreads;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(threadCount, processingMode);
+        return Objects.hash(threadCount, processingMode, schedulingWeight, minThreadCount, maxThreadCount,
+                rateLimit, rateLimitTable, crossShardThreads);
     }
 
     @Override
@@ -112,6 +282,12 @@ public class ProcessingSettings extends DynamicSetting<ProcessingSettings> {
         return "{" +
                 "threadCount=" + threadCount +
                 ", processingMode=" + processingMode +
+                ", schedulingWeight=" + schedulingWeight +
+                ", minThreadCount=" + minThreadCount +
+                (maxThreadCount != null ? ", maxThreadCount=" + maxThreadCount : "") +
+                (rateLimit != null ? ", rateLimit=" + rateLimit : "") +
+                (rateLimitTable != null ? ", rateLimitTable=" + rateLimitTable : "") +
+                (crossShardThreads ? ", crossShardThreads=true" : "") +
                 '}';
     }
 
@@ -121,6 +297,15 @@ public class ProcessingSettings extends DynamicSetting<ProcessingSettings> {
     public static class Builder {
         private Integer threadCount;
         private ProcessingMode processingMode;
+        private Integer schedulingWeight = 1;
+        private Integer minThreadCount = 0;
+        @Nullable
+        private Integer maxThreadCount;
+        @Nullable
+        private Double rateLimit;
+        @Nullable
+        private String rateLimitTable;
+        private boolean crossShardThreads;
 
         private Builder() {
         }
@@ -147,8 +332,75 @@ public class ProcessingSettings extends DynamicSetting<ProcessingSettings> {
             return this;
         }
 
+        /**
+         * Set weight of the queue in a shared worker pool.
+         *
+         * @param schedulingWeight Weight of the queue.
+         * @return Reference to the same builder.
+         */
+        public Builder withSchedulingWeight(@Nonnull Integer schedulingWeight) {
+            this.schedulingWeight = schedulingWeight;
+            return this;
+        }
+
+        /**
+         * Set number of slots of a shared worker pool, which the queue gets ahead of the other queues.
+         *
+         * @param minThreadCount Minimal number of slots.
+         * @return Reference to the same builder.
+         */
+        public Builder withMinThreadCount(@Nonnull Integer minThreadCount) {
+            this.minThreadCount = minThreadCount;
+            return this;
+        }
+
+        /**
+         * Set upper bound of the number of threads, which the autoscaler may set for the queue.
+         *
+         * @param maxThreadCount Maximal number of threads.
+         * @return Reference to the same builder.
+         */
+        public Builder withMaxThreadCount(@Nullable Integer maxThreadCount) {
+            this.maxThreadCount = maxThreadCount;
+            return this;
+        }
+
+        /**
+         * Set maximum number of task picks per second.
+         *
+         * @param rateLimit Number of task picks per second.
+         * @return Reference to the same builder.
+         */
+        public Builder withRateLimit(@Nullable Double rateLimit) {
+            this.rateLimit = rateLimit;
+            return this;
+        }
+
+        /**
+         * Set name of the table, which shares the rate limit between all nodes processing the queue.
+         *
+         * @param rateLimitTable Table name.
+         * @return Reference to the same builder.
+         */
+        public Builder withRateLimitTable(@Nullable String rateLimitTable) {
+            this.rateLimitTable = rateLimitTable;
+            return this;
+        }
+
+        /**
+         * Set whether the queue has a single thread budget for all shards.
+         *
+         * @param crossShardThreads Whether the thread budget is shared by the shards.
+         * @return Reference to the same builder.
+         */
+        public Builder withCrossShardThreads(boolean crossShardThreads) {
+            this.crossShardThreads = crossShardThreads;
+            return this;
+        }
+
         public ProcessingSettings build() {
-            return new ProcessingSettings(threadCount, processingMode);
+            return new ProcessingSettings(threadCount, processingMode, schedulingWeight, minThreadCount,
+                    maxThreadCount, rateLimit, rateLimitTable, crossShardThreads);
         }
     }
 }
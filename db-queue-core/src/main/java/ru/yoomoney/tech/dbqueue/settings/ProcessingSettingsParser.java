@@ -7,8 +7,15 @@ import java.util.Objects;
 import java.util.Optional;
 import java.util.function.Supplier;
 
+import static ru.yoomoney.tech.dbqueue.settings.QueueConfigsReader.SETTING_CROSS_SHARD_THREADS;
+import static ru.yoomoney.tech.dbqueue.settings.QueueConfigsReader.SETTING_MAX_THREAD_COUNT;
+import static ru.yoomoney.tech.dbqueue.settings.QueueConfigsReader.SETTING_MIN_THREAD_COUNT;
 import static ru.yoomoney.tech.dbqueue.settings.QueueConfigsReader.SETTING_PROCESSING_MODE;
+import static ru.yoomoney.tech.dbqueue.settings.QueueConfigsReader.SETTING_RATE_LIMIT;
+import static ru.yoomoney.tech.dbqueue.settings.QueueConfigsReader.SETTING_RATE_LIMIT_TABLE;
+import static ru.yoomoney.tech.dbqueue.settings.QueueConfigsReader.SETTING_SCHEDULING_WEIGHT;
 import static ru.yoomoney.tech.dbqueue.settings.QueueConfigsReader.SETTING_THREAD_COUNT;
+import static ru.yoomoney.tech.dbqueue.settings.QueueConfigsReader.VALUE_PROCESSING_MODE_AT_MOST_ONCE;
 import static ru.yoomoney.tech.dbqueue.settings.QueueConfigsReader.VALUE_PROCESSING_MODE_SEPARATE_TRANSACTIONS;
 import static ru.yoomoney.tech.dbqueue.settings.QueueConfigsReader.VALUE_PROCESSING_MODE_USE_EXTERNAL_EXECUTOR;
 import static ru.yoomoney.tech.dbqueue.settings.QueueConfigsReader.VALUE_PROCESSING_MODE_WRAP_IN_TRANSACTION;
@@ -65,6 +72,24 @@ public class ProcessingSettingsParser {
                 case SETTING_PROCESSING_MODE:
                     processingSettings.withProcessingMode(parseProcessingMode(value));
                     return;
+                case SETTING_SCHEDULING_WEIGHT:
+                    processingSettings.withSchedulingWeight(Integer.valueOf(value));
+                    return;
+                case SETTING_MIN_THREAD_COUNT:
+                    processingSettings.withMinThreadCount(Integer.valueOf(value));
+                    return;
+                case SETTING_MAX_THREAD_COUNT:
+                    processingSettings.withMaxThreadCount(Integer.valueOf(value));
+                    return;
+                case SETTING_RATE_LIMIT:
+                    processingSettings.withRateLimit(Double.valueOf(value));
+                    return;
+                case SETTING_RATE_LIMIT_TABLE:
+                    processingSettings.withRateLimitTable(value);
+                    return;
+                case SETTING_CROSS_SHARD_THREADS:
+                    processingSettings.withCrossShardThreads(parseBoolean(value));
+                    return;
                 default:
             }
         } catch (RuntimeException exc) {
@@ -73,6 +98,16 @@ public class ProcessingSettingsParser {
         }
     }
 
+    private static boolean parseBoolean(String value) {
+        if ("true".equals(value)) {
+            return true;
+        }
+        if ("false".equals(value)) {
+            return false;
+        }
+        throw new IllegalArgumentException("value must be 'true' or 'false'");
+    }
+
     private static ProcessingMode parseProcessingMode(String name) {
         switch (name) {
             case VALUE_PROCESSING_MODE_SEPARATE_TRANSACTIONS:
@@ -81,6 +116,8 @@ public class ProcessingSettingsParser {
                 return ProcessingMode.WRAP_IN_TRANSACTION;
             case VALUE_PROCESSING_MODE_USE_EXTERNAL_EXECUTOR:
                 return ProcessingMode.USE_EXTERNAL_EXECUTOR;
+            case VALUE_PROCESSING_MODE_AT_MOST_ONCE:
+                return ProcessingMode.AT_MOST_ONCE;
             default:
                 throw new IllegalArgumentException(String.format("unknown processing mode: name=%s", name));
         }
@@ -13,6 +13,7 @@ import java.nio.file.Path;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -50,9 +51,36 @@ import java.util.stream.Collectors;
  * # see {@link QueueConfigsReader#SETTING_FATAL_CRASH_TIMEOUT}
  * queue-prefix.testQueue.fatal-crash-timeout=PT5S
  *
+ * # see {@link QueueConfigsReader#SETTING_PRIORITY_WEIGHTS}
+ * queue-prefix.testQueue.priority-weights=10:8,0:1
+ *
+ * # see {@link QueueConfigsReader#SETTING_KEY_CONCURRENCY_LIMIT}
+ * queue-prefix.testQueue.key-concurrency-limit=2
+ *
+ * # see {@link QueueConfigsReader#SETTING_ORDERED_BY_KEY}
+ * queue-prefix.testQueue.ordered-by-key=true
+ *
  * # see {@link QueueConfigsReader#SETTING_THREAD_COUNT}
  * queue-prefix.testQueue.thread-count=3
  *
+ * # see {@link QueueConfigsReader#SETTING_SCHEDULING_WEIGHT}
+ * queue-prefix.testQueue.scheduling-weight=2
+ *
+ * # see {@link QueueConfigsReader#SETTING_MIN_THREAD_COUNT}
+ * queue-prefix.testQueue.min-thread-count=1
+ *
+ * # see {@link QueueConfigsReader#SETTING_MAX_THREAD_COUNT}
+ * queue-prefix.testQueue.max-thread-count=10
+ *
+ * # see {@link QueueConfigsReader#SETTING_RATE_LIMIT}
+ * queue-prefix.testQueue.rate-limit=50
+ *
+ * # see {@link QueueConfigsReader#SETTING_RATE_LIMIT_TABLE}
+ * queue-prefix.testQueue.rate-limit-table=queue_rate_limits
+ *
+ * # see {@link QueueConfigsReader#SETTING_CROSS_SHARD_THREADS}
+ * queue-prefix.testQueue.cross-shard-threads=true
+ *
  * # see {@link QueueConfigsReader#SETTING_RETRY_TYPE}
  * # values are:
  * # {@link QueueConfigsReader#VALUE_TASK_RETRY_TYPE_ARITHMETIC}
@@ -63,6 +91,9 @@ import java.util.stream.Collectors;
  * # see {@link QueueConfigsReader#SETTING_RETRY_INTERVAL}
  * queue-prefix.testQueue.retry-interval=PT30S
  *
+ * # see {@link QueueConfigsReader#SETTING_LEASE_DURATION}
+ * queue-prefix.testQueue.lease-duration=PT10S
+ *
  * # see {@link QueueConfigsReader#SETTING_REENQUEUE_RETRY_TYPE}
  * # values are:
  * # {@link QueueConfigsReader#VALUE_REENQUEUE_RETRY_TYPE_MANUAL}
@@ -99,6 +130,7 @@ import java.util.stream.Collectors;
  * # {@link QueueConfigsReader#VALUE_PROCESSING_MODE_SEPARATE_TRANSACTIONS}
  * # {@link QueueConfigsReader#VALUE_PROCESSING_MODE_USE_EXTERNAL_EXECUTOR}
  * # {@link QueueConfigsReader#VALUE_PROCESSING_MODE_WRAP_IN_TRANSACTION}
+ * # {@link QueueConfigsReader#VALUE_PROCESSING_MODE_AT_MOST_ONCE}
  * queue-prefix.testQueue.processing-mode=use-external-executor
  *
  * # see {@link QueueConfigsReader#SETTING_ADDITIONAL}
@@ -168,6 +200,10 @@ public class QueueConfigsReader {
      * Representation of {@link ProcessingMode#SEPARATE_TRANSACTIONS}
      */
     public static final String VALUE_PROCESSING_MODE_SEPARATE_TRANSACTIONS = "separate-transactions";
+    /**
+     * Representation of {@link ProcessingMode#AT_MOST_ONCE}
+     */
+    public static final String VALUE_PROCESSING_MODE_AT_MOST_ONCE = "at-most-once";
     /**
      * Representation of {@link ProcessingSettings#getProcessingMode()}
      */
@@ -180,6 +216,10 @@ public class QueueConfigsReader {
      * Representation of {@link FailureSettings#getRetryInterval()}
      */
     public static final String SETTING_RETRY_INTERVAL = "retry-interval";
+    /**
+     * Representation of {@link FailureSettings#getLeaseDuration()}
+     */
+    public static final String SETTING_LEASE_DURATION = "lease-duration";
     /**
      * Representation of {@link ReenqueueSettings#getRetryType()}
      */
@@ -208,6 +248,30 @@ public class QueueConfigsReader {
      * Representation of {@link ProcessingSettings#getThreadCount()}
      */
     public static final String SETTING_THREAD_COUNT = "thread-count";
+    /**
+     * Representation of {@link ProcessingSettings#getSchedulingWeight()}
+     */
+    public static final String SETTING_SCHEDULING_WEIGHT = "scheduling-weight";
+    /**
+     * Representation of {@link ProcessingSettings#getMinThreadCount()}
+     */
+    public static final String SETTING_MIN_THREAD_COUNT = "min-thread-count";
+    /**
+     * Representation of {@link ProcessingSettings#getMaxThreadCount()}
+     */
+    public static final String SETTING_MAX_THREAD_COUNT = "max-thread-count";
+    /**
+     * Representation of {@link ProcessingSettings#getRateLimit()}
+     */
+    public static final String SETTING_RATE_LIMIT = "rate-limit";
+    /**
+     * Representation of {@link ProcessingSettings#getRateLimitTable()}
+     */
+    public static final String SETTING_RATE_LIMIT_TABLE = "rate-limit-table";
+    /**
+     * Representation of {@link ProcessingSettings#isCrossShardThreads()}
+     */
+    public static final String SETTING_CROSS_SHARD_THREADS = "cross-shard-threads";
     /**
      * Representation of {@link PollSettings#getFatalCrashTimeout()}
      */
@@ -220,6 +284,19 @@ public class QueueConfigsReader {
      * Representation of {@link PollSettings#getNoTaskTimeout()}
      */
     public static final String SETTING_NO_TASK_TIMEOUT = "no-task-timeout";
+    /**
+     * Representation of {@link PollSettings#getPriorityWeights()}
+     * Comma-separated list of 'priority:weight' pairs.
+     */
+    public static final String SETTING_PRIORITY_WEIGHTS = "priority-weights";
+    /**
+     * Representation of {@link PollSettings#getKeyConcurrencyLimit()}
+     */
+    public static final String SETTING_KEY_CONCURRENCY_LIMIT = "key-concurrency-limit";
+    /**
+     * Representation of {@link PollSettings#isOrderedByKey()}
+     */
+    public static final String SETTING_ORDERED_BY_KEY = "ordered-by-key";
     /**
      * Representation of {@link QueueLocation#getTableName()}
      */
@@ -240,7 +317,11 @@ public class QueueConfigsReader {
             SETTING_NO_TASK_TIMEOUT, SETTING_ID_SEQUENCE, SETTING_FATAL_CRASH_TIMEOUT,
             SETTING_REENQUEUE_RETRY_DELAY, SETTING_REENQUEUE_RETRY_PLAN, SETTING_REENQUEUE_RETRY_INITIAL_DELAY,
             SETTING_REENQUEUE_RETRY_RATIO, SETTING_REENQUEUE_RETRY_TYPE, SETTING_REENQUEUE_RETRY_STEP,
-            SETTING_RETRY_TYPE, SETTING_RETRY_INTERVAL, SETTING_THREAD_COUNT, SETTING_THREAD_COUNT));
+            SETTING_RETRY_TYPE, SETTING_RETRY_INTERVAL, SETTING_LEASE_DURATION, SETTING_THREAD_COUNT, SETTING_THREAD_COUNT,
+            SETTING_PRIORITY_WEIGHTS, SETTING_SCHEDULING_WEIGHT, SETTING_MIN_THREAD_COUNT,
+            SETTING_MAX_THREAD_COUNT,
+            SETTING_RATE_LIMIT, SETTING_RATE_LIMIT_TABLE, SETTING_KEY_CONCURRENCY_LIMIT,
+            SETTING_ORDERED_BY_KEY, SETTING_CROSS_SHARD_THREADS));
 
     @Nonnull
     private final List<Path> configPaths;
@@ -314,7 +395,23 @@ public class QueueConfigsReader {
      */
     @Nonnull
     public List<QueueConfig> parse() {
+        return parse(Collections.emptyMap());
+    }
+
+    /**
+     * Try to parse queues configurations, overriding settings of the files with the given ones.
+     * <p>
+     * The given settings have the same format as settings in the files, settings with other prefixes
+     * and settings with empty values are ignored.
+     *
+     * @param overrideSettings settings, which override settings of the files, e.g. settings from a database table
+     * @return parsed queue configurations
+     */
+    @Nonnull
+    public List<QueueConfig> parse(@Nonnull Map<String, String> overrideSettings) {
+        Objects.requireNonNull(overrideSettings);
         log.info("loading queue configuration: paths={}", configPaths);
+        errorMessages.clear();
         Path configPath = configPaths.get(0);
         Map<String, String> rawSettings = readRawSettings(configPath);
         if (configPaths.size() > 1) {
@@ -322,6 +419,7 @@ public class QueueConfigsReader {
             overrideConfigPaths.stream().filter(Objects::nonNull).forEach(path ->
                     overrideExistingSettings(rawSettings, readRawSettings(path)));
         }
+        overrideExistingSettings(rawSettings, cleanupProperties(overrideSettings));
 
         Map<String, Map<String, String>> queues = splitRawSettingsByQueueId(rawSettings);
 
@@ -3,17 +3,34 @@ package ru.yoomoney.tech.dbqueue.settings;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import ru.yoomoney.tech.dbqueue.config.QueueService;
+import ru.yoomoney.tech.dbqueue.config.QueueShard;
+import ru.yoomoney.tech.dbqueue.config.QueueShardId;
+import ru.yoomoney.tech.dbqueue.dao.QueueSettingsDao;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 /**
  * Dynamic reload of queue configuration.
  * <p>
  * Reloads queue configuration if source files has been changed.
+ * <p>
+ * Settings can also be stored in a table on every shard, see {@link QueueSettingsDao}.
+ * Settings of the table override settings of the files, settings of the later shards override the earlier ones.
+ * The table is polled with a cheap query of the maximum version of its rows,
+ * the settings are loaded only when the version of a shard has changed.
+ * A setting is removed by setting an empty value with a new version, deleted rows are noticed on the next change.
  *
  * @author Oleg Kandaurov
  * @since 12.10.2021
@@ -28,6 +45,16 @@ public class QueueConfigsReloader {
     private final QueueService queueService;
     @Nonnull
     private final List<FileWatcher> fileWatchers;
+    @Nonnull
+    private final List<QueueShard<?>> settingsShards;
+    @Nullable
+    private final String settingsTableName;
+    @Nullable
+    private final Duration settingsPollInterval;
+    @Nonnull
+    private Map<QueueShardId, Long> settingsVersions = Collections.emptyMap();
+    @Nullable
+    private ScheduledExecutorService settingsPoller;
 
     /**
      * Constructor
@@ -39,14 +66,51 @@ public class QueueConfigsReloader {
                                 @Nonnull QueueService queueService) {
         this.queueConfigsReader = Objects.requireNonNull(queueConfigsReader, "queueConfigsReader");
         this.queueService = Objects.requireNonNull(queueService, "queueService");
-        this.fileWatchers = queueConfigsReader.getConfigPaths().stream()
+        this.settingsShards = Collections.emptyList();
+        this.settingsTableName = null;
+        this.settingsPollInterval = null;
+        this.fileWatchers = createFileWatchers();
+    }
+
+    /**
+     * Constructor of reloader, which also polls the settings table on the given shards
+     *
+     * @param queueConfigsReader   queue configuration parser
+     * @param queueService         queue service
+     * @param settingsShards       shards with the settings table
+     * @param settingsTableName    name of the settings table
+     * @param settingsPollInterval interval between checks of the settings version
+     */
+    public QueueConfigsReloader(@Nonnull QueueConfigsReader queueConfigsReader,
+                                @Nonnull QueueService queueService,
+                                @Nonnull List<QueueShard<?>> settingsShards,
+                                @Nonnull String settingsTableName,
+                                @Nonnull Duration settingsPollInterval) {
+        this.queueConfigsReader = Objects.requireNonNull(queueConfigsReader, "queueConfigsReader");
+        this.queueService = Objects.requireNonNull(queueService, "queueService");
+        this.settingsShards = new ArrayList<>(Objects.requireNonNull(settingsShards, "settingsShards"));
+        this.settingsTableName = Objects.requireNonNull(settingsTableName, "settingsTableName");
+        this.settingsPollInterval = Objects.requireNonNull(settingsPollInterval, "settingsPollInterval");
+        if (settingsShards.isEmpty()) {
+            throw new IllegalArgumentException("settings shards must not be empty");
+        }
+        if (settingsPollInterval.isZero() || settingsPollInterval.isNegative()) {
+            throw new IllegalArgumentException("settingsPollInterval must be positive: " + settingsPollInterval);
+        }
+        this.fileWatchers = createFileWatchers();
+    }
+
+    @Nonnull
+    private List<FileWatcher> createFileWatchers() {
+        return queueConfigsReader.getConfigPaths().stream()
                 .map(path -> new FileWatcher(path, this::reload))
                 .collect(Collectors.toList());
     }
 
     private synchronized void reload() {
         try {
-            List<QueueConfig> queueConfigs = queueConfigsReader.parse();
+            List<QueueConfig> queueConfigs = settingsTableName == null ? queueConfigsReader.parse() :
+                    queueConfigsReader.parse(loadTableSettings());
             Map<QueueId, String> diff = queueService.updateQueueConfigs(queueConfigs);
             log.info("queue configuration updated: diff={}", diff);
         } catch (RuntimeException exc) {
@@ -54,11 +118,53 @@ public class QueueConfigsReloader {
         }
     }
 
+    /**
+     * Check versions of the settings table and reload queue configuration when they have changed
+     */
+    synchronized void pollSettingsTable() {
+        try {
+            Map<QueueShardId, Long> versions = new LinkedHashMap<>();
+            settingsShards.forEach(shard -> versions.put(shard.getShardId(),
+                    shard.getDatabaseAccessLayer().transact(() -> getSettingsDao(shard)
+                            .getSettingsVersion(Objects.requireNonNull(settingsTableName)))));
+            if (versions.equals(settingsVersions)) {
+                return;
+            }
+            log.info("queue settings table changed: table={}, versions={}", settingsTableName, versions);
+            settingsVersions = versions;
+            reload();
+        } catch (RuntimeException exc) {
+            log.warn("cannot check version of queue settings table: table={}", settingsTableName, exc);
+        }
+    }
+
+    @Nonnull
+    private Map<String, String> loadTableSettings() {
+        Map<String, String> settings = new LinkedHashMap<>();
+        settingsShards.forEach(shard -> settings.putAll(shard.getDatabaseAccessLayer().transact(() ->
+                getSettingsDao(shard).loadSettings(Objects.requireNonNull(settingsTableName)))));
+        return settings;
+    }
+
+    @Nonnull
+    private static QueueSettingsDao getSettingsDao(@Nonnull QueueShard<?> shard) {
+        return shard.getDatabaseAccessLayer().getQueueSettingsDao();
+    }
+
     /**
      * Starts automatic reload of queue configuration
      */
     public synchronized void start() {
         fileWatchers.forEach(FileWatcher::startWatch);
+        if (settingsPollInterval != null && settingsPoller == null) {
+            settingsPoller = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "queue-settings-poller");
+                thread.setDaemon(true);
+                return thread;
+            });
+            settingsPoller.scheduleWithFixedDelay(this::pollSettingsTable, 0L,
+                    settingsPollInterval.toMillis(), TimeUnit.MILLISECONDS);
+        }
     }
 
     /**
@@ -66,5 +172,9 @@ public class QueueConfigsReloader {
      */
     public synchronized void stop() {
         fileWatchers.forEach(FileWatcher::stopWatch);
+        if (settingsPoller != null) {
+            settingsPoller.shutdownNow();
+            settingsPoller = null;
+        }
     }
 }
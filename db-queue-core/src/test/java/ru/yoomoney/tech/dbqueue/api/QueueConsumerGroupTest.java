@@ -0,0 +1,68 @@
+package ru.yoomoney.tech.dbqueue.api;
+
+import org.junit.Test;
+import ru.yoomoney.tech.dbqueue.settings.QueueConfig;
+import ru.yoomoney.tech.dbqueue.settings.QueueId;
+import ru.yoomoney.tech.dbqueue.settings.QueueLocation;
+import ru.yoomoney.tech.dbqueue.stub.NoopQueueConsumer;
+import ru.yoomoney.tech.dbqueue.stub.TestFixtures;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Optional;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author Oleg Kandaurov
+ * @since 19.10.2026
+ */
+public class QueueConsumerGroupTest {
+
+    @Test
+    public void should_index_consumers_by_queue() {
+        NoopQueueConsumer first = new NoopQueueConsumer(createConfig("queue_test", "first_queue"));
+        NoopQueueConsumer second = new NoopQueueConsumer(createConfig("queue_test", "second_queue"));
+
+        QueueConsumerGroup group = new QueueConsumerGroup(createConfig("queue_test", "group_queue"),
+                Arrays.asList(first, second));
+
+        assertThat(new ArrayList<>(group.getConsumers().keySet()),
+                equalTo(Arrays.asList(new QueueId("first_queue"), new QueueId("second_queue"))));
+        assertThat(group.getConsumer(new QueueId("second_queue")), equalTo(Optional.of(second)));
+        assertThat(group.getConsumer(new QueueId("unknown_queue")), equalTo(Optional.empty()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void should_not_create_empty_group() {
+        new QueueConsumerGroup(createConfig("queue_test", "group_queue"), Collections.emptyList());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void should_not_create_group_of_different_tables() {
+        new QueueConsumerGroup(createConfig("queue_test", "group_queue"), Arrays.asList(
+                new NoopQueueConsumer(createConfig("queue_test", "first_queue")),
+                new NoopQueueConsumer(createConfig("other_table", "second_queue"))));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void should_not_create_group_with_duplicate_queues() {
+        new QueueConsumerGroup(createConfig("queue_test", "group_queue"), Arrays.asList(
+                new NoopQueueConsumer(createConfig("queue_test", "first_queue")),
+                new NoopQueueConsumer(createConfig("queue_test", "first_queue"))));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void should_not_create_group_sharing_queue_with_consumer() {
+        new QueueConsumerGroup(createConfig("queue_test", "first_queue"), Collections.singletonList(
+                new NoopQueueConsumer(createConfig("queue_test", "first_queue"))));
+    }
+
+    private static QueueConfig createConfig(String tableName, String queueId) {
+        return new QueueConfig(QueueLocation.builder().withTableName(tableName)
+                .withQueueId(new QueueId(queueId)).build(),
+                TestFixtures.createQueueSettings().build());
+    }
+}
@@ -0,0 +1,124 @@
+package ru.yoomoney.tech.dbqueue.api.impl;
+
+import org.junit.Test;
+import ru.yoomoney.tech.dbqueue.api.EnqueueParams;
+import ru.yoomoney.tech.dbqueue.config.QueueShard;
+import ru.yoomoney.tech.dbqueue.config.QueueShardId;
+import ru.yoomoney.tech.dbqueue.stub.StubDatabaseAccessLayer;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class ConsistentHashQueueShardRouterTest {
+
+    private static final int KEY_COUNT = 10000;
+
+    private final QueueShard<StubDatabaseAccessLayer> first = createShard("first");
+    private final QueueShard<StubDatabaseAccessLayer> second = createShard("second");
+    private final QueueShard<StubDatabaseAccessLayer> third = createShard("third");
+    private final QueueShard<StubDatabaseAccessLayer> fourth = createShard("fourth");
+
+    @Test
+    public void should_route_same_key_to_same_shard() {
+        ConsistentHashQueueShardRouter<String, StubDatabaseAccessLayer> router =
+                new ConsistentHashQueueShardRouter<>(Arrays.asList(first, second, third), EnqueueParams::getPayload);
+        ConsistentHashQueueShardRouter<String, StubDatabaseAccessLayer> otherRouter =
+                new ConsistentHashQueueShardRouter<>(Arrays.asList(third, first, second), EnqueueParams::getPayload);
+
+        for (int i = 0; i < 100; i++) {
+            QueueShard<StubDatabaseAccessLayer> shard = router.resolveShard(EnqueueParams.create("key" + i));
+            assertThat(router.resolveShard(EnqueueParams.create("key" + i)), equalTo(shard));
+            assertThat(otherRouter.resolveShard(EnqueueParams.create("key" + i)), equalTo(shard));
+        }
+    }
+
+    @Test
+    public void should_distribute_keys_evenly() {
+        ConsistentHashQueueShardRouter<String, StubDatabaseAccessLayer> router =
+                new ConsistentHashQueueShardRouter<>(Arrays.asList(first, second, third), EnqueueParams::getPayload);
+
+        Map<QueueShard<StubDatabaseAccessLayer>, Integer> counts = countKeys(router);
+
+        for (QueueShard<StubDatabaseAccessLayer> shard : Arrays.asList(first, second, third)) {
+            assertTrue("shard=" + shard.getShardId() + ", counts=" + counts,
+                    Math.abs(counts.get(shard) - KEY_COUNT / 3) < KEY_COUNT / 3 * 0.2);
+        }
+    }
+
+    @Test
+    public void should_move_only_keys_of_new_shard() {
+        ConsistentHashQueueShardRouter<String, StubDatabaseAccessLayer> router =
+                new ConsistentHashQueueShardRouter<>(Arrays.asList(first, second, third), EnqueueParams::getPayload);
+        ConsistentHashQueueShardRouter<String, StubDatabaseAccessLayer> extendedRouter =
+                new ConsistentHashQueueShardRouter<>(Arrays.asList(first, second, third, fourth),
+                        EnqueueParams::getPayload);
+
+        int movedKeys = 0;
+        for (int i = 0; i < KEY_COUNT; i++) {
+            EnqueueParams<String> enqueueParams = EnqueueParams.create("key" + i);
+            QueueShard<StubDatabaseAccessLayer> shard = extendedRouter.resolveShard(enqueueParams);
+            if (shard != router.resolveShard(enqueueParams)) {
+                assertThat(shard, equalTo(fourth));
+                movedKeys++;
+            }
+        }
+        assertTrue("movedKeys=" + movedKeys, movedKeys < KEY_COUNT * 0.3);
+    }
+
+    @Test
+    public void should_distribute_keys_by_weight() {
+        Map<QueueShard<StubDatabaseAccessLayer>, Integer> weights = new LinkedHashMap<>();
+        weights.put(first, 3);
+        weights.put(second, 1);
+        ConsistentHashQueueShardRouter<String, StubDatabaseAccessLayer> router =
+                new ConsistentHashQueueShardRouter<>(weights, EnqueueParams::getPayload,
+                        ConsistentHashQueueShardRouter.DEFAULT_VIRTUAL_NODES);
+
+        Map<QueueShard<StubDatabaseAccessLayer>, Integer> counts = countKeys(router);
+
+        assertTrue("counts=" + counts, Math.abs(counts.get(first) - KEY_COUNT * 0.75) < KEY_COUNT * 0.1);
+    }
+
+    @Test
+    public void should_route_by_ext_data() {
+        ConsistentHashQueueShardRouter<String, StubDatabaseAccessLayer> router =
+                new ConsistentHashQueueShardRouter<>(Arrays.asList(first, second, third),
+                        ConsistentHashQueueShardRouter.byExtData("merchant_id"));
+
+        QueueShard<StubDatabaseAccessLayer> shard = router.resolveShard(
+                EnqueueParams.create("1").withExtData("merchant_id", "42"));
+        assertThat(router.resolveShard(EnqueueParams.create("2").withExtData("merchant_id", "42")), equalTo(shard));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void should_not_route_without_key() {
+        new ConsistentHashQueueShardRouter<String, StubDatabaseAccessLayer>(Arrays.asList(first, second),
+                ConsistentHashQueueShardRouter.byExtData("merchant_id"))
+                .resolveShard(EnqueueParams.create("1"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void should_not_accept_duplicate_shards() {
+        new ConsistentHashQueueShardRouter<String, StubDatabaseAccessLayer>(
+                Arrays.asList(first, createShard("first")), EnqueueParams::getPayload);
+    }
+
+    private static Map<QueueShard<StubDatabaseAccessLayer>, Integer> countKeys(
+            ConsistentHashQueueShardRouter<String, StubDatabaseAccessLayer> router) {
+        Map<QueueShard<StubDatabaseAccessLayer>, Integer> counts = new HashMap<>();
+        for (int i = 0; i < KEY_COUNT; i++) {
+            counts.merge(router.resolveShard(EnqueueParams.create("key" + i)), 1, Integer::sum);
+        }
+        return counts;
+    }
+
+    private static QueueShard<StubDatabaseAccessLayer> createShard(String shardId) {
+        return new QueueShard<>(new QueueShardId(shardId), new StubDatabaseAccessLayer());
+    }
+}
@@ -0,0 +1,120 @@
+package ru.yoomoney.tech.dbqueue.api.impl;
+
+import org.junit.Test;
+import ru.yoomoney.tech.dbqueue.api.EnqueueParams;
+import ru.yoomoney.tech.dbqueue.config.QueueShard;
+import ru.yoomoney.tech.dbqueue.config.QueueShardId;
+import ru.yoomoney.tech.dbqueue.config.ShardHealth;
+import ru.yoomoney.tech.dbqueue.dao.QueueDao;
+import ru.yoomoney.tech.dbqueue.settings.QueueId;
+import ru.yoomoney.tech.dbqueue.settings.QueueLocation;
+import ru.yoomoney.tech.dbqueue.stub.StubDatabaseAccessLayer;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+public class LeastBacklogQueueShardRouterTest {
+
+    private static final QueueLocation LOCATION = QueueLocation.builder()
+            .withTableName("testTable").withQueueId(new QueueId("testQueue")).build();
+
+    private final QueueDao firstDao = mock(QueueDao.class);
+    private final QueueDao secondDao = mock(QueueDao.class);
+    private final QueueShard<StubDatabaseAccessLayer> first = new QueueShard<>(new QueueShardId("first"),
+            new StubDatabaseAccessLayer(firstDao));
+    private final QueueShard<StubDatabaseAccessLayer> second = new QueueShard<>(new QueueShardId("second"),
+            new StubDatabaseAccessLayer(secondDao));
+
+    @Test
+    public void should_route_to_shard_with_least_backlog() {
+        when(firstDao.countTasks(LOCATION)).thenReturn(3L);
+        when(secondDao.countTasks(LOCATION)).thenReturn(1L);
+        LeastBacklogQueueShardRouter<String, StubDatabaseAccessLayer> router =
+                new LeastBacklogQueueShardRouter<>(Arrays.asList(first, second), LOCATION, Duration.ofHours(1));
+        router.refresh();
+
+        assertThat(router.resolveShard(EnqueueParams.create("1")), equalTo(second));
+        assertThat(router.resolveShard(EnqueueParams.create("2")), equalTo(second));
+        assertThat(router.resolveShard(EnqueueParams.create("3")), equalTo(first));
+        assertThat(router.resolveShard(EnqueueParams.create("4")), equalTo(second));
+
+        verify(firstDao, times(1)).countTasks(LOCATION);
+        verify(secondDao, times(1)).countTasks(LOCATION);
+    }
+
+    @Test
+    public void should_refresh_backlog_after_interval() {
+        when(firstDao.countTasks(LOCATION)).thenReturn(3L, 0L);
+        when(secondDao.countTasks(LOCATION)).thenReturn(1L, 5L);
+        LeastBacklogQueueShardRouter<String, StubDatabaseAccessLayer> router =
+                new LeastBacklogQueueShardRouter<>(Arrays.asList(first, second), LOCATION, Duration.ofHours(1));
+
+        router.refresh();
+        assertThat(router.resolveShard(EnqueueParams.create("1")), equalTo(second));
+        router.refresh();
+        assertThat(router.resolveShard(EnqueueParams.create("2")), equalTo(first));
+    }
+
+    @Test
+    public void should_not_count_tasks_on_resolve() {
+        LeastBacklogQueueShardRouter<String, StubDatabaseAccessLayer> router =
+                new LeastBacklogQueueShardRouter<>(Arrays.asList(first, second), LOCATION, Duration.ofHours(1));
+
+        assertThat(router.resolveShard(EnqueueParams.create("1")), equalTo(first));
+        assertThat(router.resolveShard(EnqueueParams.create("2")), equalTo(second));
+
+        verifyNoInteractions(firstDao, secondDao);
+    }
+
+    @Test
+    public void should_count_tasks_in_background_when_started() {
+        when(firstDao.countTasks(LOCATION)).thenReturn(3L);
+        when(secondDao.countTasks(LOCATION)).thenReturn(1L);
+        LeastBacklogQueueShardRouter<String, StubDatabaseAccessLayer> router =
+                new LeastBacklogQueueShardRouter<>(Arrays.asList(first, second), LOCATION, Duration.ofHours(1));
+
+        router.start();
+        try {
+            verify(firstDao, timeout(5000L)).countTasks(LOCATION);
+            verify(secondDao, timeout(5000L)).countTasks(LOCATION);
+        } finally {
+            router.shutdown();
+        }
+    }
+
+    @Test
+    public void should_skip_shard_which_failed_to_count_tasks() {
+        when(firstDao.countTasks(LOCATION)).thenThrow(new IllegalStateException("unavailable"));
+        when(secondDao.countTasks(LOCATION)).thenReturn(100L);
+        LeastBacklogQueueShardRouter<String, StubDatabaseAccessLayer> router =
+                new LeastBacklogQueueShardRouter<>(Arrays.asList(first, second), LOCATION, Duration.ofHours(1));
+        router.refresh();
+
+        assertThat(router.resolveShard(EnqueueParams.create("1")), equalTo(second));
+    }
+
+    @Test
+    public void should_skip_unavailable_shard() {
+        ShardHealth shardHealth = new ShardHealth(1, Duration.ofSeconds(1), Duration.ofMinutes(1));
+        shardHealth.recordFailure();
+        QueueShard<StubDatabaseAccessLayer> sickShard = new QueueShard<>(new QueueShardId("first"),
+                new StubDatabaseAccessLayer(firstDao), shardHealth);
+        when(firstDao.countTasks(LOCATION)).thenReturn(0L);
+        when(secondDao.countTasks(LOCATION)).thenReturn(100L);
+        LeastBacklogQueueShardRouter<String, StubDatabaseAccessLayer> router =
+                new LeastBacklogQueueShardRouter<>(Arrays.asList(sickShard, second), LOCATION, Duration.ofHours(1));
+        router.refresh();
+
+        assertThat(router.resolveShard(EnqueueParams.create("1")), equalTo(second));
+        verifyNoInteractions(firstDao);
+    }
+}
@@ -1,12 +1,17 @@
 package ru.yoomoney.tech.dbqueue.api.impl;
 
 import org.hamcrest.CoreMatchers;
+import org.junit.Assert;
 import org.junit.Test;
 import ru.yoomoney.tech.dbqueue.api.EnqueueParams;
 import ru.yoomoney.tech.dbqueue.api.EnqueueResult;
+import ru.yoomoney.tech.dbqueue.api.EnqueueStatus;
 import ru.yoomoney.tech.dbqueue.api.QueueShardRouter;
+import ru.yoomoney.tech.dbqueue.config.QueueControl;
 import ru.yoomoney.tech.dbqueue.config.QueueShard;
 import ru.yoomoney.tech.dbqueue.config.QueueShardId;
+import ru.yoomoney.tech.dbqueue.config.ShardHealth;
+import ru.yoomoney.tech.dbqueue.dao.EnqueueOutcome;
 import ru.yoomoney.tech.dbqueue.dao.QueueDao;
 import ru.yoomoney.tech.dbqueue.settings.QueueConfig;
 import ru.yoomoney.tech.dbqueue.settings.QueueId;
@@ -14,10 +19,19 @@ import ru.yoomoney.tech.dbqueue.settings.QueueLocation;
 import ru.yoomoney.tech.dbqueue.stub.StubDatabaseAccessLayer;
 import ru.yoomoney.tech.dbqueue.stub.TestFixtures;
 
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Objects;
 
 import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class ShardingQueueProducerTest {
@@ -53,6 +67,189 @@ public class ShardingQueueProducerTest {
 
     }
 
+    @Test
+    public void should_insert_task_with_deduplication_key() {
+        StubDatabaseAccessLayer stubDatabaseAccessLayer = new StubDatabaseAccessLayer();
+        QueueShard<StubDatabaseAccessLayer> shard = new QueueShard<>(new QueueShardId("first"),
+                stubDatabaseAccessLayer);
+
+        QueueConfig queueConfig = new QueueConfig(
+                QueueLocation.builder().withTableName("testTable")
+                        .withQueueId(new QueueId("main")).build(),
+                TestFixtures.createQueueSettings().build());
+
+        QueueDao queueDao = stubDatabaseAccessLayer.getQueueDao();
+        when(queueDao.enqueueIfAbsent(eq(queueConfig.getLocation()),
+                eq(EnqueueParams.create("1").withDeduplicationKey("key"))))
+                .thenReturn(EnqueueOutcome.duplicate(11L));
+
+        ShardingQueueProducer<String, StubDatabaseAccessLayer> queueProducer = new ShardingQueueProducer<>(
+                queueConfig, NoopPayloadTransformer.getInstance(), new StubQueueShardRouter(shard, shard));
+
+        EnqueueResult enqueueResult = queueProducer.enqueue(EnqueueParams.create("1").withDeduplicationKey("key"));
+        assertThat(enqueueResult, CoreMatchers.equalTo(EnqueueResult.builder().withEnqueueId(11L)
+                .withShardId(shard.getShardId()).withStatus(EnqueueStatus.DUPLICATE).build()));
+        verify(queueDao, never()).enqueue(any(), any());
+    }
+
+    @Test
+    public void should_insert_task_with_priority() {
+        StubDatabaseAccessLayer stubDatabaseAccessLayer = new StubDatabaseAccessLayer();
+        QueueShard<StubDatabaseAccessLayer> shard = new QueueShard<>(new QueueShardId("first"),
+                stubDatabaseAccessLayer);
+
+        QueueConfig queueConfig = new QueueConfig(
+                QueueLocation.builder().withTableName("testTable")
+                        .withQueueId(new QueueId("main")).build(),
+                TestFixtures.createQueueSettings().build());
+
+        QueueDao queueDao = stubDatabaseAccessLayer.getQueueDao();
+        when(queueDao.enqueue(eq(queueConfig.getLocation()), eq(EnqueueParams.create("1").withPriority(7))))
+                .thenReturn(11L);
+
+        ShardingQueueProducer<String, StubDatabaseAccessLayer> queueProducer = new ShardingQueueProducer<>(
+                queueConfig, NoopPayloadTransformer.getInstance(), new StubQueueShardRouter(shard, shard));
+
+        EnqueueResult enqueueResult = queueProducer.enqueue(EnqueueParams.create("1").withPriority(7));
+        assertThat(enqueueResult, CoreMatchers.equalTo(EnqueueResult.builder().withEnqueueId(11L)
+                .withShardId(shard.getShardId()).build()));
+        verify(queueDao).enqueue(queueConfig.getLocation(), EnqueueParams.create("1").withPriority(7));
+    }
+
+    @Test
+    public void should_coalesce_task_with_coalescing_key() {
+        StubDatabaseAccessLayer stubDatabaseAccessLayer = new StubDatabaseAccessLayer();
+        QueueShard<StubDatabaseAccessLayer> shard = new QueueShard<>(new QueueShardId("first"),
+                stubDatabaseAccessLayer);
+
+        QueueConfig queueConfig = new QueueConfig(
+                QueueLocation.builder().withTableName("testTable")
+                        .withQueueId(new QueueId("main")).build(),
+                TestFixtures.createQueueSettings().build());
+
+        QueueDao queueDao = stubDatabaseAccessLayer.getQueueDao();
+        when(queueDao.enqueueOrCoalesce(eq(queueConfig.getLocation()),
+                eq(EnqueueParams.create("1").withCoalescingKey("key"))))
+                .thenReturn(EnqueueOutcome.coalesced(11L));
+
+        ShardingQueueProducer<String, StubDatabaseAccessLayer> queueProducer = new ShardingQueueProducer<>(
+                queueConfig, NoopPayloadTransformer.getInstance(), new StubQueueShardRouter(shard, shard));
+
+        EnqueueResult enqueueResult = queueProducer.enqueue(EnqueueParams.create("1").withCoalescingKey("key"));
+        assertThat(enqueueResult, CoreMatchers.equalTo(EnqueueResult.builder().withEnqueueId(11L)
+                .withShardId(shard.getShardId()).withStatus(EnqueueStatus.COALESCED).build()));
+        verify(queueDao, never()).enqueue(any(), any());
+    }
+
+    @Test
+    public void should_insert_batch_by_shards() {
+        QueueDao firstQueueDao = mock(QueueDao.class);
+        QueueDao secondQueueDao = mock(QueueDao.class);
+        QueueShard<StubDatabaseAccessLayer> firstShard = new QueueShard<>(new QueueShardId("first"),
+                new StubDatabaseAccessLayer(firstQueueDao));
+        QueueShard<StubDatabaseAccessLayer> secondShard = new QueueShard<>(new QueueShardId("second"),
+                new StubDatabaseAccessLayer(secondQueueDao));
+        QueueConfig queueConfig = new QueueConfig(
+                QueueLocation.builder().withTableName("testTable")
+                        .withQueueId(new QueueId("main")).build(),
+                TestFixtures.createQueueSettings().build());
+
+        when(firstQueueDao.enqueueBatch(eq(queueConfig.getLocation()),
+                eq(Arrays.asList(EnqueueParams.create("1"), EnqueueParams.create("1")))))
+                .thenReturn(Arrays.asList(11L, 12L));
+        when(firstQueueDao.enqueueIfAbsent(eq(queueConfig.getLocation()),
+                eq(EnqueueParams.create("1").withDeduplicationKey("key"))))
+                .thenReturn(EnqueueOutcome.duplicate(10L));
+        when(secondQueueDao.enqueueBatch(eq(queueConfig.getLocation()),
+                eq(Collections.singletonList(EnqueueParams.create("2")))))
+                .thenReturn(Collections.singletonList(21L));
+
+        ShardingQueueProducer<String, StubDatabaseAccessLayer> queueProducer = new ShardingQueueProducer<>(
+                queueConfig, NoopPayloadTransformer.getInstance(), new StubQueueShardRouter(firstShard, secondShard));
+
+        List<EnqueueResult> enqueueResults = queueProducer.enqueueBatch(Arrays.asList(
+                EnqueueParams.create("1"),
+                EnqueueParams.create("2"),
+                EnqueueParams.create("1").withDeduplicationKey("key"),
+                EnqueueParams.create("1")));
+        assertThat(enqueueResults, CoreMatchers.equalTo(Arrays.asList(
+                EnqueueResult.builder().withEnqueueId(11L).withShardId(firstShard.getShardId()).build(),
+                EnqueueResult.builder().withEnqueueId(21L).withShardId(secondShard.getShardId()).build(),
+                EnqueueResult.builder().withEnqueueId(10L).withShardId(firstShard.getShardId())
+                        .withStatus(EnqueueStatus.DUPLICATE).build(),
+                EnqueueResult.builder().withEnqueueId(12L).withShardId(firstShard.getShardId()).build())));
+        verify(firstQueueDao, never()).enqueue(any(), any());
+        verify(secondQueueDao, never()).enqueue(any(), any());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void should_not_accept_deduplication_and_coalescing_keys_together() {
+        StubDatabaseAccessLayer stubDatabaseAccessLayer = new StubDatabaseAccessLayer();
+        QueueShard<StubDatabaseAccessLayer> shard = new QueueShard<>(new QueueShardId("first"),
+                stubDatabaseAccessLayer);
+        QueueConfig queueConfig = new QueueConfig(
+                QueueLocation.builder().withTableName("testTable")
+                        .withQueueId(new QueueId("main")).build(),
+                TestFixtures.createQueueSettings().build());
+        ShardingQueueProducer<String, StubDatabaseAccessLayer> queueProducer = new ShardingQueueProducer<>(
+                queueConfig, NoopPayloadTransformer.getInstance(), new StubQueueShardRouter(shard, shard));
+
+        queueProducer.enqueue(EnqueueParams.create("1").withDeduplicationKey("key").withCoalescingKey("key"));
+    }
+
+    @Test
+    public void should_fail_fast_when_shard_is_unavailable() {
+        StubDatabaseAccessLayer stubDatabaseAccessLayer = new StubDatabaseAccessLayer();
+        ShardHealth shardHealth = new ShardHealth(1, Duration.ofSeconds(1), Duration.ofMinutes(1));
+        QueueShard<StubDatabaseAccessLayer> shard = new QueueShard<>(new QueueShardId("first"),
+                stubDatabaseAccessLayer, shardHealth);
+        QueueConfig queueConfig = new QueueConfig(
+                QueueLocation.builder().withTableName("testTable")
+                        .withQueueId(new QueueId("main")).build(),
+                TestFixtures.createQueueSettings().build());
+        QueueDao queueDao = stubDatabaseAccessLayer.getQueueDao();
+        when(queueDao.enqueue(any(), any())).thenThrow(new IllegalStateException("unavailable"));
+        ShardingQueueProducer<String, StubDatabaseAccessLayer> queueProducer = new ShardingQueueProducer<>(
+                queueConfig, NoopPayloadTransformer.getInstance(), new StubQueueShardRouter(shard, shard));
+
+        try {
+            queueProducer.enqueue(EnqueueParams.create("1"));
+            Assert.fail("exception expected");
+        } catch (IllegalStateException exc) {
+            assertThat(exc.getMessage(), CoreMatchers.equalTo("unavailable"));
+        }
+        try {
+            queueProducer.enqueue(EnqueueParams.create("1"));
+            Assert.fail("exception expected");
+        } catch (IllegalStateException exc) {
+            assertThat(exc.getMessage(), CoreMatchers.startsWith("shard is unavailable"));
+        }
+        verify(queueDao, times(1)).enqueue(any(), any());
+    }
+
+    @Test
+    public void should_reject_task_when_queue_is_draining() {
+        StubDatabaseAccessLayer stubDatabaseAccessLayer = new StubDatabaseAccessLayer();
+        QueueControl queueControl = mock(QueueControl.class);
+        when(queueControl.getState(new QueueId("main"))).thenReturn(QueueControl.State.DRAINING);
+        QueueShard<StubDatabaseAccessLayer> shard = new QueueShard<>(new QueueShardId("first"),
+                stubDatabaseAccessLayer, null, queueControl);
+        QueueConfig queueConfig = new QueueConfig(
+                QueueLocation.builder().withTableName("testTable")
+                        .withQueueId(new QueueId("main")).build(),
+                TestFixtures.createQueueSettings().build());
+        ShardingQueueProducer<String, StubDatabaseAccessLayer> queueProducer = new ShardingQueueProducer<>(
+                queueConfig, NoopPayloadTransformer.getInstance(), new StubQueueShardRouter(shard, shard));
+
+        try {
+            queueProducer.enqueue(EnqueueParams.create("1"));
+            Assert.fail("exception expected");
+        } catch (IllegalStateException exc) {
+            assertThat(exc.getMessage(), CoreMatchers.startsWith("queue is draining"));
+        }
+        verify(stubDatabaseAccessLayer.getQueueDao(), never()).enqueue(any(), any());
+    }
+
     private static class StubQueueShardRouter implements QueueShardRouter<String, StubDatabaseAccessLayer> {
 
         private final QueueShard<StubDatabaseAccessLayer> firstShard;
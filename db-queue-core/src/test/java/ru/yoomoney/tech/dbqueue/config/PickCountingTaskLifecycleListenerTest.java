@@ -0,0 +1,56 @@
+package ru.yoomoney.tech.dbqueue.config;
+
+import org.junit.Test;
+import ru.yoomoney.tech.dbqueue.api.TaskExecutionResult;
+import ru.yoomoney.tech.dbqueue.api.TaskRecord;
+import ru.yoomoney.tech.dbqueue.settings.QueueId;
+import ru.yoomoney.tech.dbqueue.settings.QueueLocation;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+public class PickCountingTaskLifecycleListenerTest {
+
+    private static final QueueShardId SHARD_ID = new QueueShardId("shardId1");
+    private static final QueueLocation LOCATION = QueueLocation.builder()
+            .withTableName("table1").withQueueId(new QueueId("queueId1")).build();
+
+    @Test
+    public void should_count_picked_tasks_by_priority() {
+        PickCountingTaskLifecycleListener listener = new PickCountingTaskLifecycleListener(
+                mock(TaskLifecycleListener.class));
+        listener.picked(SHARD_ID, LOCATION, TaskRecord.builder().withPriority(10).build(), 1L);
+        listener.picked(SHARD_ID, LOCATION, TaskRecord.builder().withPriority(10).build(), 1L);
+        listener.picked(SHARD_ID, LOCATION, TaskRecord.builder().build(), 1L);
+
+        Map<Integer, Long> expected = new LinkedHashMap<>();
+        expected.put(0, 1L);
+        expected.put(10, 2L);
+        assertThat(listener.getPickCountsByPriority(), equalTo(expected));
+    }
+
+    @Test
+    public void should_delegate_events() {
+        TaskLifecycleListener delegate = mock(TaskLifecycleListener.class);
+        PickCountingTaskLifecycleListener listener = new PickCountingTaskLifecycleListener(delegate);
+        TaskRecord taskRecord = TaskRecord.builder().build();
+        Exception exc = new RuntimeException("exc");
+
+        listener.picked(SHARD_ID, LOCATION, taskRecord, 1L);
+        listener.started(SHARD_ID, LOCATION, taskRecord);
+        listener.executed(SHARD_ID, LOCATION, taskRecord, TaskExecutionResult.finish(), 2L);
+        listener.finished(SHARD_ID, LOCATION, taskRecord);
+        listener.crashed(SHARD_ID, LOCATION, taskRecord, exc);
+
+        verify(delegate).picked(SHARD_ID, LOCATION, taskRecord, 1L);
+        verify(delegate).started(SHARD_ID, LOCATION, taskRecord);
+        verify(delegate).executed(SHARD_ID, LOCATION, taskRecord, TaskExecutionResult.finish(), 2L);
+        verify(delegate).finished(SHARD_ID, LOCATION, taskRecord);
+        verify(delegate).crashed(SHARD_ID, LOCATION, taskRecord, exc);
+    }
+}
@@ -0,0 +1,95 @@
+package ru.yoomoney.tech.dbqueue.config;
+
+import org.junit.Test;
+import ru.yoomoney.tech.dbqueue.dao.QueueControlDao;
+import ru.yoomoney.tech.dbqueue.settings.QueueId;
+import ru.yoomoney.tech.dbqueue.stub.StubDatabaseAccessLayer;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class QueueControlTest {
+
+    private static final String TABLE_NAME = "queue_control";
+
+    private final AtomicLong clock = new AtomicLong(0L);
+    private final QueueControlDao controlDao = mock(QueueControlDao.class);
+    private final QueueControl queueControl = createQueueControl();
+
+    @Test
+    public void should_read_states_once_per_refresh_interval() {
+        Map<String, String> states = new HashMap<>();
+        states.put("queue1", "PAUSED");
+        states.put(" queue2 ", "throttled");
+        when(controlDao.loadQueueStates(TABLE_NAME)).thenReturn(states);
+
+        queueControl.refresh();
+        assertThat(queueControl.getState(new QueueId("queue1")), equalTo(QueueControl.State.PAUSED));
+        assertThat(queueControl.getState(new QueueId("queue2")), equalTo(QueueControl.State.THROTTLED));
+        assertThat(queueControl.getState(new QueueId("queue3")), equalTo(QueueControl.State.ACTIVE));
+        clock.set(4999L);
+        queueControl.refresh();
+        verify(controlDao, times(1)).loadQueueStates(TABLE_NAME);
+
+        clock.set(5000L);
+        queueControl.refresh();
+        verify(controlDao, times(2)).loadQueueStates(TABLE_NAME);
+    }
+
+    @Test
+    public void should_not_read_states_on_get_state() {
+        when(controlDao.loadQueueStates(TABLE_NAME)).thenReturn(Collections.singletonMap("queue1", "DRAINING"));
+
+        assertThat(queueControl.getState(new QueueId("queue1")), equalTo(QueueControl.State.ACTIVE));
+        clock.set(5000L);
+        assertThat(queueControl.getState(new QueueId("queue1")), equalTo(QueueControl.State.ACTIVE));
+        verify(controlDao, never()).loadQueueStates(TABLE_NAME);
+
+        queueControl.refresh();
+        assertThat(queueControl.getState(new QueueId("queue1")), equalTo(QueueControl.State.DRAINING));
+    }
+
+    @Test
+    public void should_keep_states_when_table_cannot_be_read() {
+        when(controlDao.loadQueueStates(TABLE_NAME))
+                .thenReturn(Collections.singletonMap("queue1", "DRAINING"))
+                .thenThrow(new IllegalStateException("unavailable"));
+
+        queueControl.refresh();
+        assertThat(queueControl.getState(new QueueId("queue1")), equalTo(QueueControl.State.DRAINING));
+        clock.set(5000L);
+        queueControl.refresh();
+        assertThat(queueControl.getState(new QueueId("queue1")), equalTo(QueueControl.State.DRAINING));
+    }
+
+    @Test
+    public void should_ignore_unknown_state() {
+        Map<String, String> states = new HashMap<>();
+        states.put("queue1", "STOPPED");
+        states.put("queue2", "PAUSED");
+        when(controlDao.loadQueueStates(TABLE_NAME)).thenReturn(states);
+
+        queueControl.refresh();
+        assertThat(queueControl.getState(new QueueId("queue1")), equalTo(QueueControl.State.ACTIVE));
+        assertThat(queueControl.getState(new QueueId("queue2")), equalTo(QueueControl.State.PAUSED));
+    }
+
+    private QueueControl createQueueControl() {
+        StubDatabaseAccessLayer databaseAccessLayer = spy(new StubDatabaseAccessLayer());
+        doReturn(controlDao).when(databaseAccessLayer).getQueueControlDao();
+        return new QueueControl(databaseAccessLayer, TABLE_NAME, Duration.ofSeconds(5L), clock::get);
+    }
+}
@@ -1,6 +1,7 @@
 package ru.yoomoney.tech.dbqueue.config;
 
 import org.junit.Test;
+import org.mockito.InOrder;
 import ru.yoomoney.tech.dbqueue.internal.processing.QueueLoop;
 import ru.yoomoney.tech.dbqueue.internal.processing.QueueTaskPoller;
 import ru.yoomoney.tech.dbqueue.internal.processing.SyncQueueLoop;
@@ -14,6 +15,9 @@ import ru.yoomoney.tech.dbqueue.stub.StubDatabaseAccessLayer;
 import ru.yoomoney.tech.dbqueue.stub.TestFixtures;
 
 import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
@@ -24,7 +28,9 @@ import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -59,6 +65,26 @@ public class QueueExecutionPoolTest {
         verify(executor, times(2)).submit(any(Runnable.class));
     }
 
+    @Test
+    public void should_delay_first_pick_of_threads() {
+        QueueConfig queueConfig = new QueueConfig(
+                QueueLocation.builder().withTableName("testTable")
+                        .withQueueId(new QueueId("queue1")).build(),
+                TestFixtures.createQueueSettings().withProcessingSettings(
+                                TestFixtures.createProcessingSettings().withThreadCount(2).build())
+                        .build());
+        StringQueueConsumer consumer = new NoopQueueConsumer(queueConfig);
+        QueueRunner queueRunner = mock(QueueRunner.class);
+        QueueTaskPoller queueTaskPoller = mock(QueueTaskPoller.class);
+        QueueLoop queueLoop = mock(QueueLoop.class);
+        ExecutorService executor = spy(new DirectExecutor());
+        QueueExecutionPool pool = new QueueExecutionPool(consumer, DEFAULT_SHARD, queueTaskPoller, executor,
+                queueRunner, () -> queueLoop);
+        pool.start(Collections.singletonList(Duration.ofMillis(300L)));
+        verify(queueLoop).doWait(Duration.ofMillis(300L), QueueLoop.WaitInterrupt.DENY);
+        verify(queueTaskPoller, times(2)).start(queueLoop, DEFAULT_SHARD.getShardId(), consumer, queueRunner);
+    }
+
     @Test
     public void should_shutdown() {
         QueueConfig queueConfig = new QueueConfig(
@@ -76,6 +102,56 @@ public class QueueExecutionPoolTest {
         verify(executor).shutdownNow();
     }
 
+    @Test
+    public void should_drain() {
+        QueueConfig queueConfig = new QueueConfig(
+                QueueLocation.builder().withTableName("testTable").withQueueId(new QueueId("queue1")).build(),
+                TestFixtures.createQueueSettings().build());
+        StringQueueConsumer consumer = new NoopQueueConsumer(queueConfig);
+        QueueRunner queueRunner = mock(QueueRunner.class);
+        QueueTaskPoller queueTaskPoller = mock(QueueTaskPoller.class);
+        QueueLoop queueLoop = mock(QueueLoop.class);
+        ExecutorService executor = mock(ExecutorService.class);
+        when(executor.submit(any(Runnable.class))).thenReturn(mock(Future.class));
+        QueueExecutionPool pool = new QueueExecutionPool(consumer, DEFAULT_SHARD, queueTaskPoller, executor, queueRunner,
+                () -> queueLoop);
+        pool.start();
+        pool.drain();
+        InOrder drainOrder = inOrder(queueLoop, queueRunner);
+        drainOrder.verify(queueLoop).stop();
+        drainOrder.verify(queueRunner).wakeupWaiters();
+        verify(executor).shutdown();
+
+        when(executor.isTerminated()).thenReturn(true);
+        pool.finishDrain();
+        verify(executor, never()).shutdownNow();
+        verify(queueRunner).releaseClaimedTasks();
+    }
+
+    @Test
+    public void should_interrupt_threads_and_await_them_when_drain_times_out() throws Exception {
+        QueueConfig queueConfig = new QueueConfig(
+                QueueLocation.builder().withTableName("testTable").withQueueId(new QueueId("queue1")).build(),
+                TestFixtures.createQueueSettings().build());
+        StringQueueConsumer consumer = new NoopQueueConsumer(queueConfig);
+        QueueRunner queueRunner = mock(QueueRunner.class);
+        ExecutorService executor = mock(ExecutorService.class);
+        when(executor.submit(any(Runnable.class))).thenReturn(mock(Future.class));
+        when(executor.isTerminated()).thenReturn(false);
+        QueueExecutionPool pool = new QueueExecutionPool(consumer, DEFAULT_SHARD, mock(QueueTaskPoller.class),
+                executor, queueRunner, SyncQueueLoop::new);
+        pool.start();
+        pool.drain();
+        pool.finishDrain();
+
+        InOrder inOrder = inOrder(executor, queueRunner);
+        inOrder.verify(executor).shutdown();
+        inOrder.verify(executor).shutdownNow();
+        inOrder.verify(executor).awaitTermination(
+                QueueExecutionPool.INTERRUPTED_THREADS_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+        inOrder.verify(queueRunner).releaseClaimedTasks();
+    }
+
     @Test
     public void should_pause() {
         QueueConfig queueConfig = new QueueConfig(
@@ -94,6 +170,44 @@ public class QueueExecutionPoolTest {
         verify(queueLoop).pause();
     }
 
+    @Test
+    public void should_apply_queue_control() {
+        QueueConfig queueConfig = new QueueConfig(
+                QueueLocation.builder().withTableName("testTable").withQueueId(new QueueId("queue1")).build(),
+                TestFixtures.createQueueSettings().withProcessingSettings(
+                        TestFixtures.createProcessingSettings().withThreadCount(2).build()).build());
+        StringQueueConsumer consumer = new NoopQueueConsumer(queueConfig);
+        QueueRunner queueRunner = mock(QueueRunner.class);
+        QueueTaskPoller queueTaskPoller = mock(QueueTaskPoller.class);
+        ExecutorService executor = mock(ExecutorService.class);
+        when(executor.submit(any(Runnable.class))).thenReturn(mock(Future.class));
+        QueueLoop firstLoop = mock(QueueLoop.class);
+        QueueLoop secondLoop = mock(QueueLoop.class);
+        Iterator<QueueLoop> queueLoops = Arrays.asList(firstLoop, secondLoop).iterator();
+        QueueControl queueControl = mock(QueueControl.class);
+        QueueShard<?> queueShard = new QueueShard<>(new QueueShardId("s1"), new StubDatabaseAccessLayer(),
+                null, queueControl);
+        QueueExecutionPool pool = new QueueExecutionPool(consumer, queueShard, queueTaskPoller, executor,
+                queueRunner, queueLoops::next);
+        pool.start();
+
+        when(queueControl.getState(new QueueId("queue1"))).thenReturn(QueueControl.State.THROTTLED);
+        pool.applyQueueControl();
+        verify(firstLoop, times(2)).unpause();
+        verify(secondLoop).pause();
+
+        when(queueControl.getState(new QueueId("queue1"))).thenReturn(QueueControl.State.PAUSED);
+        pool.applyQueueControl();
+        pool.unpause();
+        verify(firstLoop, times(2)).pause();
+        verify(secondLoop, times(3)).pause();
+
+        when(queueControl.getState(new QueueId("queue1"))).thenReturn(QueueControl.State.DRAINING);
+        pool.applyQueueControl();
+        verify(firstLoop, times(3)).unpause();
+        verify(secondLoop, times(2)).unpause();
+    }
+
     @Test
     public void should_invoke_ispaused() {
         QueueConfig queueConfig = new QueueConfig(
@@ -157,7 +271,7 @@ public class QueueExecutionPoolTest {
         QueueExecutionPool pool = new QueueExecutionPool(consumer, DEFAULT_SHARD, queueTaskPoller, executor, queueRunner,
                 () -> queueLoop);
         pool.awaitTermination(Duration.ofSeconds(10));
-        verify(executor).awaitTermination(10, TimeUnit.SECONDS);
+        verify(executor).awaitTermination(10000L, TimeUnit.MILLISECONDS);
     }
 
     @Test
@@ -1,6 +1,9 @@
 package ru.yoomoney.tech.dbqueue.config;
 
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.stubbing.Answer;
 import ru.yoomoney.tech.dbqueue.api.QueueConsumer;
 import ru.yoomoney.tech.dbqueue.settings.ExtSettings;
 import ru.yoomoney.tech.dbqueue.settings.FailRetryType;
@@ -24,12 +27,18 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
@@ -365,6 +374,124 @@ public class QueueServiceTest {
         assertThat(queueService.awaitTermination(Duration.ofMinutes(1)),
                 equalTo(Collections.singletonList(queueId)));
         verify(queueExecutionPool).awaitTermination(Duration.ofMinutes(1));
-        verify(queueExecutionPool, times(2)).isTerminated();
+        verify(queueExecutionPool).isTerminated();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void should_spread_thread_start_over_warm_up() {
+        QueueConsumer<?> consumer = mock(QueueConsumer.class);
+        QueueId queueId = new QueueId("test");
+        when(consumer.getQueueConfig()).thenReturn(new QueueConfig(
+                QueueLocation.builder().withTableName("testTable").withQueueId(queueId).build(),
+                TestFixtures.createQueueSettings().withProcessingSettings(
+                        TestFixtures.createProcessingSettings().withThreadCount(2).build()).build()));
+        QueueExecutionPool firstPool = mock(QueueExecutionPool.class);
+        QueueExecutionPool secondPool = mock(QueueExecutionPool.class);
+        QueueService queueService = new QueueService(Arrays.asList(DEFAULT_SHARD,
+                new QueueShard<>(new QueueShardId("s2"), new StubDatabaseAccessLayer())),
+                (shard, queueConsumer) -> shard.getShardId().equals(DEFAULT_SHARD.getShardId()) ?
+                        firstPool : secondPool);
+        queueService.registerQueue(consumer);
+
+        queueService.start(Duration.ofSeconds(4));
+
+        ArgumentCaptor<List<Duration>> firstDelays = ArgumentCaptor.forClass(List.class);
+        ArgumentCaptor<List<Duration>> secondDelays = ArgumentCaptor.forClass(List.class);
+        verify(firstPool).start(firstDelays.capture());
+        verify(secondPool).start(secondDelays.capture());
+        List<Long> slots = new ArrayList<>();
+        firstDelays.getValue().forEach(delay -> slots.add(delay.toMillis() / 1000L));
+        secondDelays.getValue().forEach(delay -> slots.add(delay.toMillis() / 1000L));
+        Collections.sort(slots);
+        assertThat(slots, equalTo(Arrays.asList(0L, 1L, 2L, 3L)));
+    }
+
+    @Test
+    public void should_refresh_queue_control_before_applying_it() {
+        QueueConsumer<?> consumer = mock(QueueConsumer.class);
+        when(consumer.getQueueConfig()).thenReturn(new QueueConfig(
+                QueueLocation.builder().withTableName("testTable")
+                        .withQueueId(new QueueId("queue1")).build(),
+                TestFixtures.createQueueSettings().build()));
+        QueueControl queueControl = mock(QueueControl.class);
+        QueueShard<?> queueShard = new QueueShard<>(new QueueShardId("s1"), new StubDatabaseAccessLayer(),
+                null, queueControl);
+        QueueExecutionPool queueExecutionPool = mock(QueueExecutionPool.class);
+        QueueService queueService = new QueueService(Collections.singletonList(queueShard),
+                (shard, queueConsumer) -> queueExecutionPool);
+        queueService.registerQueue(consumer);
+
+        queueService.applyQueueControl();
+
+        InOrder inOrder = inOrder(queueControl, queueExecutionPool);
+        inOrder.verify(queueControl).refresh();
+        inOrder.verify(queueExecutionPool).applyQueueControl();
+    }
+
+    @Test
+    public void should_stop_all_pools_before_releasing_claimed_tasks() {
+        QueueConsumer<?> consumer1 = mock(QueueConsumer.class);
+        when(consumer1.getQueueConfig()).thenReturn(new QueueConfig(
+                QueueLocation.builder().withTableName("testTable")
+                        .withQueueId(new QueueId("queue1")).build(),
+                TestFixtures.createQueueSettings().build()));
+        QueueConsumer<?> consumer2 = mock(QueueConsumer.class);
+        when(consumer2.getQueueConfig()).thenReturn(new QueueConfig(
+                QueueLocation.builder().withTableName("testTable")
+                        .withQueueId(new QueueId("queue2")).build(),
+                TestFixtures.createQueueSettings().build()));
+        QueueExecutionPool queueExecutionPool1 = mock(QueueExecutionPool.class);
+        when(queueExecutionPool1.shutdownNow()).thenReturn(true);
+        QueueExecutionPool queueExecutionPool2 = mock(QueueExecutionPool.class);
+        when(queueExecutionPool2.shutdownNow()).thenReturn(false);
+        QueueService queueService = new QueueService(Collections.singletonList(DEFAULT_SHARD),
+                (shard, queueConsumer) -> queueConsumer == consumer1 ? queueExecutionPool1 : queueExecutionPool2);
+        queueService.registerQueue(consumer1);
+        queueService.registerQueue(consumer2);
+
+        queueService.shutdown();
+
+        InOrder inOrder = inOrder(queueExecutionPool1, queueExecutionPool2);
+        inOrder.verify(queueExecutionPool1).shutdownNow();
+        inOrder.verify(queueExecutionPool2).shutdownNow();
+        inOrder.verify(queueExecutionPool1).releaseClaimedTasks();
+        verify(queueExecutionPool2, never()).releaseClaimedTasks();
+    }
+
+    @Test
+    public void should_await_termination_of_queues_concurrently() throws Exception {
+        QueueConsumer<?> consumer1 = mock(QueueConsumer.class);
+        when(consumer1.getQueueConfig()).thenReturn(new QueueConfig(
+                QueueLocation.builder().withTableName("testTable")
+                        .withQueueId(new QueueId("queue1")).build(),
+                TestFixtures.createQueueSettings().build()));
+        QueueConsumer<?> consumer2 = mock(QueueConsumer.class);
+        when(consumer2.getQueueConfig()).thenReturn(new QueueConfig(
+                QueueLocation.builder().withTableName("testTable")
+                        .withQueueId(new QueueId("queue2")).build(),
+                TestFixtures.createQueueSettings().build()));
+        CountDownLatch awaiting = new CountDownLatch(2);
+        AtomicBoolean awaitedOneByOne = new AtomicBoolean();
+        Answer<Boolean> awaitBoth = invocation -> {
+            awaiting.countDown();
+            if (!awaiting.await(5L, TimeUnit.SECONDS)) {
+                awaitedOneByOne.set(true);
+            }
+            return true;
+        };
+        QueueExecutionPool queueExecutionPool1 = mock(QueueExecutionPool.class);
+        when(queueExecutionPool1.awaitTermination(any())).then(awaitBoth);
+        when(queueExecutionPool1.isTerminated()).thenReturn(true);
+        QueueExecutionPool queueExecutionPool2 = mock(QueueExecutionPool.class);
+        when(queueExecutionPool2.awaitTermination(any())).then(awaitBoth);
+        when(queueExecutionPool2.isTerminated()).thenReturn(true);
+        QueueService queueService = new QueueService(Collections.singletonList(DEFAULT_SHARD),
+                (shard, queueConsumer) -> queueConsumer == consumer1 ? queueExecutionPool1 : queueExecutionPool2);
+        queueService.registerQueue(consumer1);
+        queueService.registerQueue(consumer2);
+
+        assertThat(queueService.awaitTermination(Duration.ofSeconds(10L)), equalTo(Collections.emptyList()));
+        assertFalse(awaitedOneByOne.get());
     }
 }
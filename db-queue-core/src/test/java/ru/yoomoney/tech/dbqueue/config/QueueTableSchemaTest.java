@@ -3,6 +3,7 @@ package ru.yoomoney.tech.dbqueue.config;
 import org.junit.Test;
 
 import java.util.Collections;
+import java.util.Optional;
 
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.junit.Assert.assertThat;
@@ -26,6 +27,10 @@ public class QueueTableSchemaTest {
                 .withReenqueueAttemptField("rat !@#$%^&*()_+-=1\n;'][{}")
                 .withTotalAttemptField("tat !@#$%^&*()_+-=1\n;'][{}")
                 .withExtFields(Collections.singletonList("tr !@#$%^&*()_+-=1\n;'][{}"))
+                .withDeduplicationKeyField("dk !@#$%^&*()_+-=1\n;'][{}")
+                .withCoalescingKeyField("ck !@#$%^&*()_+-=1\n;'][{}")
+                .withPriorityField("pr !@#$%^&*()_+-=1\n;'][{}")
+                .withConcurrencyKeyField("tr !@#$%^&*()_+-=1\n;'][{}")
                 .build();
         assertThat(schema.getIdField(), equalTo("qid_1"));
         assertThat(schema.getQueueNameField(), equalTo("qn_1"));
@@ -36,6 +41,27 @@ public class QueueTableSchemaTest {
         assertThat(schema.getReenqueueAttemptField(), equalTo("rat_1"));
         assertThat(schema.getTotalAttemptField(), equalTo("tat_1"));
         assertThat(schema.getExtFields().get(0), equalTo("tr_1"));
+        assertThat(schema.getDeduplicationKeyField(), equalTo(Optional.of("dk_1")));
+        assertThat(schema.getCoalescingKeyField(), equalTo(Optional.of("ck_1")));
+        assertThat(schema.getPriorityField(), equalTo(Optional.of("pr_1")));
+        assertThat(schema.getConcurrencyKeyField(), equalTo(Optional.of("tr_1")));
+    }
+
+    @Test
+    public void should_not_have_optional_fields_by_default() {
+        QueueTableSchema schema = QueueTableSchema.builder().build();
+        assertThat(schema.getDeduplicationKeyField(), equalTo(Optional.empty()));
+        assertThat(schema.getCoalescingKeyField(), equalTo(Optional.empty()));
+        assertThat(schema.getPriorityField(), equalTo(Optional.empty()));
+        assertThat(schema.getConcurrencyKeyField(), equalTo(Optional.empty()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void should_require_concurrency_key_among_ext_fields() {
+        QueueTableSchema.builder()
+                .withExtFields(Collections.singletonList("merchant_id"))
+                .withConcurrencyKeyField("client_id")
+                .build();
     }
 
 }
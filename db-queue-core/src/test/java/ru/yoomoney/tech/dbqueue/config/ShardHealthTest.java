@@ -0,0 +1,69 @@
+package ru.yoomoney.tech.dbqueue.config;
+
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+public class ShardHealthTest {
+
+    private final AtomicLong clock = new AtomicLong(0L);
+    private final ShardHealth shardHealth = new ShardHealth(2, Duration.ofSeconds(1), Duration.ofSeconds(10),
+            clock::get);
+
+    @Test
+    public void should_open_after_consecutive_failures() {
+        shardHealth.recordFailure();
+        shardHealth.recordSuccess(10L);
+        shardHealth.recordFailure();
+        assertThat(shardHealth.getState(), equalTo(ShardHealth.State.CLOSED));
+        assertThat(shardHealth.acquire(), equalTo(Duration.ZERO));
+
+        shardHealth.recordFailure();
+        assertThat(shardHealth.getState(), equalTo(ShardHealth.State.OPEN));
+        assertThat(shardHealth.isAvailable(), equalTo(false));
+        clock.set(4000L);
+        assertThat(shardHealth.acquire(), equalTo(Duration.ofSeconds(6)));
+    }
+
+    @Test
+    public void should_count_slow_call_as_failure() {
+        shardHealth.recordSuccess(1000L);
+        shardHealth.recordSuccess(5000L);
+
+        assertThat(shardHealth.getState(), equalTo(ShardHealth.State.OPEN));
+    }
+
+    @Test
+    public void should_allow_single_probe_after_open_duration() {
+        shardHealth.recordFailure();
+        shardHealth.recordFailure();
+        clock.set(10000L);
+
+        assertThat(shardHealth.isAvailable(), equalTo(true));
+        assertThat(shardHealth.acquire(), equalTo(Duration.ZERO));
+        assertThat(shardHealth.getState(), equalTo(ShardHealth.State.HALF_OPEN));
+        assertThat(shardHealth.isAvailable(), equalTo(false));
+        assertThat(shardHealth.acquire(), equalTo(Duration.ofSeconds(10)));
+
+        shardHealth.recordSuccess(10L);
+        assertThat(shardHealth.getState(), equalTo(ShardHealth.State.CLOSED));
+        assertThat(shardHealth.acquire(), equalTo(Duration.ZERO));
+    }
+
+    @Test
+    public void should_open_again_when_probe_fails() {
+        shardHealth.recordFailure();
+        shardHealth.recordFailure();
+        clock.set(10000L);
+        assertThat(shardHealth.acquire(), equalTo(Duration.ZERO));
+
+        shardHealth.recordFailure();
+        assertThat(shardHealth.getState(), equalTo(ShardHealth.State.OPEN));
+        clock.set(15000L);
+        assertThat(shardHealth.acquire(), equalTo(Duration.ofSeconds(5)));
+    }
+}
@@ -0,0 +1,212 @@
+package ru.yoomoney.tech.dbqueue.config;
+
+import org.junit.Test;
+import ru.yoomoney.tech.dbqueue.api.QueueConsumer;
+import ru.yoomoney.tech.dbqueue.internal.processing.QueueProcessingStatus;
+import ru.yoomoney.tech.dbqueue.internal.runner.QueueRunner;
+import ru.yoomoney.tech.dbqueue.settings.ProcessingMode;
+import ru.yoomoney.tech.dbqueue.settings.ProcessingSettings;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+
+public class SharedWorkerPoolTest {
+
+    @Test
+    public void should_allocate_slots_by_weight() {
+        SharedWorkerPool pool = new SharedWorkerPool(1);
+        SharedWorkerPool.QueueShare heavy = pool.register(createSettings(3, 0, 1));
+        SharedWorkerPool.QueueShare light = pool.register(createSettings(1, 0, 1));
+
+        int[] counts = runSchedule(pool, Arrays.asList(heavy, light), 400, share -> true);
+
+        assertThat(counts[0], equalTo(300));
+        assertThat(counts[1], equalTo(100));
+    }
+
+    @Test
+    public void should_give_slots_to_queues_with_backlog() {
+        SharedWorkerPool pool = new SharedWorkerPool(1);
+        SharedWorkerPool.QueueShare busy = pool.register(createSettings(1, 0, 1));
+        SharedWorkerPool.QueueShare idle = pool.register(createSettings(1, 0, 1));
+
+        int[] counts = runSchedule(pool, Arrays.asList(busy, idle), 440, share -> share == busy);
+
+        assertThat(counts[0] > 5 * counts[1], equalTo(true));
+        assertThat(idle.getSuccessRate(), equalTo(0.1));
+    }
+
+    @Test
+    public void should_give_slot_to_queue_below_min_thread_count() {
+        SharedWorkerPool pool = new SharedWorkerPool(2);
+        SharedWorkerPool.QueueShare heavy = pool.register(createSettings(100, 0, 2));
+        SharedWorkerPool.QueueShare guaranteed = pool.register(createSettings(1, 1, 2));
+        pool.grant(heavy);
+
+        assertThat(pool.selectNext(Arrays.asList(heavy, guaranteed)), equalTo(guaranteed));
+        pool.grant(guaranteed);
+        assertThat(pool.getBusySlotCount(), equalTo(2));
+    }
+
+    @Test
+    public void should_not_exceed_thread_count_of_queue() {
+        SharedWorkerPool pool = new SharedWorkerPool(3);
+        SharedWorkerPool.QueueShare limited = pool.register(createSettings(100, 0, 1));
+        SharedWorkerPool.QueueShare other = pool.register(createSettings(1, 0, 1));
+        pool.grant(limited);
+
+        assertThat(pool.selectNext(Arrays.asList(limited, other)), equalTo(other));
+    }
+
+    @Test
+    public void should_resize_pool() {
+        SharedWorkerPool pool = new SharedWorkerPool(1);
+        SharedWorkerPool.QueueShare first = pool.register(createSettings(1, 0, 2));
+        SharedWorkerPool.QueueShare second = pool.register(createSettings(1, 0, 2));
+        pool.grant(first);
+
+        pool.resize(3);
+
+        assertThat(pool.getSlotCount(), equalTo(3));
+        assertThat(pool.selectNext(Arrays.asList(first, second)), equalTo(second));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void should_wait_for_free_slot() throws Exception {
+        SharedWorkerPool pool = new SharedWorkerPool(1);
+        SharedWorkerPool.QueueShare first = pool.register(createSettings(1, 0, 1));
+        SharedWorkerPool.QueueShare second = pool.register(createSettings(1, 0, 1));
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        QueueRunner blockingRunner = pool.wrap(first, consumer -> {
+            running.countDown();
+            try {
+                finish.await();
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+            return QueueProcessingStatus.PROCESSED;
+        });
+        AtomicInteger secondRuns = new AtomicInteger();
+        QueueRunner secondRunner = pool.wrap(second, consumer -> {
+            secondRuns.incrementAndGet();
+            return QueueProcessingStatus.PROCESSED;
+        });
+        QueueConsumer<?> consumer = mock(QueueConsumer.class);
+
+        Thread firstThread = new Thread(() -> blockingRunner.runQueue(consumer));
+        firstThread.start();
+        assertThat(running.await(5, TimeUnit.SECONDS), equalTo(true));
+        Thread secondThread = new Thread(() -> secondRunner.runQueue(consumer));
+        secondThread.start();
+        Thread.sleep(50L);
+        assertThat(secondRuns.get(), equalTo(0));
+
+        finish.countDown();
+        secondThread.join(5000L);
+        firstThread.join(5000L);
+        assertThat(secondRuns.get(), equalTo(1));
+        assertThat(pool.getBusySlotCount(), equalTo(0));
+    }
+
+    @Test
+    public void should_give_slot_to_other_queue_when_selected_waiter_is_interrupted() throws Exception {
+        SharedWorkerPool pool = new SharedWorkerPool(1);
+        SharedWorkerPool.QueueShare holder = pool.register(createSettings(1, 0, 1));
+        SharedWorkerPool.QueueShare selected = pool.register(createSettings(1, 1, 1));
+        SharedWorkerPool.QueueShare other = pool.register(createSettings(1, 0, 1));
+        pool.grant(holder);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        CountDownLatch otherAcquired = new CountDownLatch(1);
+        Thread selectedThread = new Thread(() -> {
+            try {
+                pool.acquire(selected);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+        });
+        Thread otherThread = new Thread(() -> {
+            try {
+                pool.acquire(other);
+                otherAcquired.countDown();
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        selectedThread.start();
+        otherThread.start();
+        Thread.sleep(50L);
+
+        synchronized (pool) {
+            selectedThread.interrupt();
+            Thread.sleep(50L);
+            pool.release(holder, true);
+        }
+
+        assertThat(interrupted.await(5, TimeUnit.SECONDS), equalTo(true));
+        assertThat(otherAcquired.await(5, TimeUnit.SECONDS), equalTo(true));
+        assertThat(pool.getBusySlotCount(), equalTo(1));
+        otherThread.join(5000L);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void should_not_run_queue_stopped_while_waiting_for_slot() throws Exception {
+        SharedWorkerPool pool = new SharedWorkerPool(1);
+        SharedWorkerPool.QueueShare holder = pool.register(createSettings(1, 0, 1));
+        SharedWorkerPool.QueueShare share = pool.register(createSettings(1, 0, 1));
+        pool.grant(holder);
+        AtomicInteger runs = new AtomicInteger();
+        QueueRunner runner = pool.wrap(share, consumer -> {
+            runs.incrementAndGet();
+            return QueueProcessingStatus.PROCESSED;
+        });
+        QueueConsumer<?> consumer = mock(QueueConsumer.class);
+        AtomicBoolean stopped = new AtomicBoolean();
+        AtomicReference<QueueProcessingStatus> status = new AtomicReference<>();
+
+        Thread thread = new Thread(() -> status.set(runner.runQueue(consumer, () -> !stopped.get(), () -> false)));
+        thread.start();
+        Thread.sleep(50L);
+        stopped.set(true);
+        runner.wakeupWaiters();
+        thread.join(5000L);
+
+        assertThat(status.get(), equalTo(QueueProcessingStatus.SKIPPED));
+        assertThat(runs.get(), equalTo(0));
+        assertThat(pool.getBusySlotCount(), equalTo(1));
+        assertThat(pool.hasWaitingShares(), equalTo(false));
+    }
+
+    private static int[] runSchedule(SharedWorkerPool pool, List<SharedWorkerPool.QueueShare> shares,
+                                     int rounds, Predicate<SharedWorkerPool.QueueShare> processed) {
+        int[] counts = new int[shares.size()];
+        for (int i = 0; i < rounds; i++) {
+            SharedWorkerPool.QueueShare next = pool.selectNext(shares);
+            pool.grant(next);
+            pool.release(next, processed.test(next));
+            counts[shares.indexOf(next)]++;
+        }
+        return counts;
+    }
+
+    private static ProcessingSettings createSettings(int weight, int minThreadCount, int threadCount) {
+        return ProcessingSettings.builder()
+                .withProcessingMode(ProcessingMode.SEPARATE_TRANSACTIONS)
+                .withThreadCount(threadCount)
+                .withSchedulingWeight(weight)
+                .withMinThreadCount(minThreadCount)
+                .build();
+    }
+}
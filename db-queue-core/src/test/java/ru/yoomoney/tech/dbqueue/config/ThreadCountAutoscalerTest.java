@@ -0,0 +1,125 @@
+package ru.yoomoney.tech.dbqueue.config;
+
+import org.junit.Test;
+import ru.yoomoney.tech.dbqueue.settings.ProcessingSettings;
+import ru.yoomoney.tech.dbqueue.settings.QueueConfig;
+import ru.yoomoney.tech.dbqueue.settings.QueueId;
+import ru.yoomoney.tech.dbqueue.settings.QueueLocation;
+import ru.yoomoney.tech.dbqueue.stub.TestFixtures;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+public class ThreadCountAutoscalerTest {
+
+    private static final QueueLocation LOCATION = QueueLocation.builder()
+            .withTableName("testTable").withQueueId(new QueueId("testQueue")).build();
+    private static final QueueShardId SHARD_ID = new QueueShardId("s1");
+
+    private final AtomicLong clock = new AtomicLong(0L);
+    private final ThreadCountAutoscaler autoscaler = new ThreadCountAutoscaler(Duration.ofSeconds(1),
+            Duration.ofSeconds(5), clock::get);
+
+    @Test
+    public void should_grow_thread_count_of_busy_queue() {
+        ProcessingSettings settings = register(2, 0, 10);
+
+        runWindow(2, 1000L, 0);
+
+        assertThat(settings.getThreadCount(), equalTo(3));
+    }
+
+    @Test
+    public void should_not_grow_above_max_thread_count() {
+        ProcessingSettings settings = register(4, 0, 5);
+
+        runWindow(4, 1000L, 0);
+
+        assertThat(settings.getThreadCount(), equalTo(5));
+    }
+
+    @Test
+    public void should_shrink_thread_count_of_idle_queue() {
+        ProcessingSettings settings = register(4, 0, 10);
+
+        runWindow(4, 100L, 0);
+
+        assertThat(settings.getThreadCount(), equalTo(3));
+    }
+
+    @Test
+    public void should_shrink_thread_count_when_picks_are_empty() {
+        ProcessingSettings settings = register(4, 0, 10);
+
+        runWindow(4, 1000L, 4);
+
+        assertThat(settings.getThreadCount(), equalTo(3));
+    }
+
+    @Test
+    public void should_not_shrink_below_min_thread_count() {
+        ProcessingSettings settings = register(2, 2, 10);
+
+        runWindow(2, 0L, 2);
+
+        assertThat(settings.getThreadCount(), equalTo(2));
+    }
+
+    @Test
+    public void should_keep_thread_count_of_moderately_loaded_queue() {
+        ProcessingSettings settings = register(4, 0, 10);
+
+        runWindow(4, 500L, 0);
+
+        assertThat(settings.getThreadCount(), equalTo(4));
+    }
+
+    @Test
+    public void should_not_change_thread_count_during_cooldown() {
+        ProcessingSettings settings = register(2, 0, 10);
+
+        runWindow(2, 1000L, 0);
+        assertThat(settings.getThreadCount(), equalTo(3));
+        runWindow(3, 1000L, 0);
+        assertThat(settings.getThreadCount(), equalTo(3));
+
+        clock.addAndGet(4000L);
+        autoscaler.evaluate();
+        runWindow(3, 1000L, 0);
+        assertThat(settings.getThreadCount(), equalTo(4));
+    }
+
+    @Test
+    public void should_not_scale_queue_without_max_thread_count() {
+        ProcessingSettings settings = register(2, 0, null);
+
+        runWindow(2, 1000L, 0);
+
+        assertThat(settings.getThreadCount(), equalTo(2));
+    }
+
+    private ProcessingSettings register(int threadCount, int minThreadCount, Integer maxThreadCount) {
+        ProcessingSettings settings = TestFixtures.createProcessingSettings()
+                .withThreadCount(threadCount)
+                .withMinThreadCount(minThreadCount)
+                .withMaxThreadCount(maxThreadCount)
+                .build();
+        autoscaler.register(new QueueConfig(LOCATION,
+                TestFixtures.createQueueSettings().withProcessingSettings(settings).build()));
+        return settings;
+    }
+
+    /**
+     * Report one execution per thread during one second and evaluate the load
+     */
+    private void runWindow(int threadCount, long busyTime, int emptyPicks) {
+        for (int i = 0; i < threadCount; i++) {
+            autoscaler.executed(SHARD_ID, LOCATION, i >= emptyPicks, busyTime);
+        }
+        clock.addAndGet(1000L);
+        autoscaler.evaluate();
+    }
+}
@@ -43,8 +43,18 @@ public class DelegatedSingleQueueLoopExecution implements QueueLoop {
         delegate.unpause();
     }
 
+    @Override
+    public void stop() {
+        delegate.stop();
+    }
+
     @Override
     public boolean isPaused() {
         return delegate.isPaused();
     }
+
+    @Override
+    public boolean isStopped() {
+        return delegate.isStopped();
+    }
 }
@@ -0,0 +1,140 @@
+package ru.yoomoney.tech.dbqueue.internal.processing;
+
+import org.junit.Test;
+import ru.yoomoney.tech.dbqueue.config.DatabaseAccessLayer;
+import ru.yoomoney.tech.dbqueue.config.QueueShard;
+import ru.yoomoney.tech.dbqueue.config.QueueShardId;
+import ru.yoomoney.tech.dbqueue.dao.QueueRateLimitDao;
+import ru.yoomoney.tech.dbqueue.settings.ProcessingSettings;
+import ru.yoomoney.tech.dbqueue.settings.QueueId;
+import ru.yoomoney.tech.dbqueue.settings.QueueLocation;
+import ru.yoomoney.tech.dbqueue.stub.FakeMillisTimeProvider;
+import ru.yoomoney.tech.dbqueue.stub.TestFixtures;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author Oleg Kandaurov
+ * @since 19.10.2026
+ */
+public class QueueRateLimiterTest {
+
+    private static final QueueLocation LOCATION = QueueLocation.builder().withTableName("table")
+            .withQueueId(new QueueId("queue")).build();
+
+    @Test
+    public void should_not_limit_when_rate_limit_is_not_set() {
+        QueueShard<?> queueShard = mock(QueueShard.class);
+        QueueRateLimiter rateLimiter = new QueueRateLimiter(queueShard, LOCATION,
+                TestFixtures.createProcessingSettings().build(), mock(MillisTimeProvider.class));
+
+        assertThat(rateLimiter.acquire(), equalTo(Duration.ZERO));
+        verifyNoInteractions(queueShard);
+    }
+
+    @Test
+    public void should_limit_with_local_token_bucket() {
+        ProcessingSettings processingSettings = TestFixtures.createProcessingSettings().withRateLimit(2.0).build();
+        QueueRateLimiter rateLimiter = new QueueRateLimiter(mock(QueueShard.class), LOCATION, processingSettings,
+                new FakeMillisTimeProvider(Arrays.asList(0L, 0L, 0L, 100L, 500L)));
+
+        assertThat(rateLimiter.acquire(), equalTo(Duration.ZERO));
+        assertThat(rateLimiter.acquire(), equalTo(Duration.ZERO));
+        assertThat(rateLimiter.acquire(), equalTo(Duration.ofMillis(500L)));
+        assertThat(rateLimiter.acquire(), equalTo(Duration.ofMillis(400L)));
+        assertThat(rateLimiter.acquire(), equalTo(Duration.ZERO));
+    }
+
+    @Test
+    public void should_apply_changed_rate_limit() {
+        ProcessingSettings processingSettings = TestFixtures.createProcessingSettings().withRateLimit(1.0).build();
+        QueueRateLimiter rateLimiter = new QueueRateLimiter(mock(QueueShard.class), LOCATION, processingSettings,
+                new FakeMillisTimeProvider(Arrays.asList(0L, 0L, 0L)));
+
+        assertThat(rateLimiter.acquire(), equalTo(Duration.ZERO));
+        assertThat(rateLimiter.acquire(), equalTo(Duration.ofMillis(1000L)));
+        processingSettings.setValue(TestFixtures.createProcessingSettings().withRateLimit(4.0).build());
+        assertThat(rateLimiter.acquire(), equalTo(Duration.ofMillis(250L)));
+    }
+
+    @Test
+    public void should_return_local_permit_when_task_is_not_picked() {
+        ProcessingSettings processingSettings = TestFixtures.createProcessingSettings().withRateLimit(1.0).build();
+        QueueRateLimiter rateLimiter = new QueueRateLimiter(mock(QueueShard.class), LOCATION, processingSettings,
+                new FakeMillisTimeProvider(Arrays.asList(0L, 0L, 0L)));
+
+        assertThat(rateLimiter.acquire(), equalTo(Duration.ZERO));
+        rateLimiter.complete(false);
+        assertThat(rateLimiter.acquire(), equalTo(Duration.ZERO));
+        rateLimiter.complete(true);
+        assertThat(rateLimiter.acquire(), equalTo(Duration.ofMillis(1000L)));
+    }
+
+    @Test
+    public void should_limit_with_shared_table() {
+        QueueRateLimitDao rateLimitDao = mock(QueueRateLimitDao.class);
+        QueueShard<?> queueShard = createShard(rateLimitDao);
+        when(rateLimitDao.getAvailablePermits("rate_limits", LOCATION.getQueueId(), 4.0, 7L)).thenReturn(1.5);
+        when(rateLimitDao.getAvailablePermits("rate_limits", LOCATION.getQueueId(), 4.0, 8L)).thenReturn(-1.0);
+        ProcessingSettings processingSettings = TestFixtures.createProcessingSettings()
+                .withRateLimit(4.0).withRateLimitTable("rate_limits").build();
+        QueueRateLimiter rateLimiter = new QueueRateLimiter(queueShard, LOCATION, processingSettings,
+                new FakeMillisTimeProvider(Arrays.asList(7L, 8L)));
+
+        assertThat(rateLimiter.acquire(), equalTo(Duration.ZERO));
+        assertThat(rateLimiter.acquire(), equalTo(Duration.ofMillis(500L)));
+        verify(rateLimitDao, never()).takePermit(anyString(), any(), anyDouble(), anyLong());
+    }
+
+    @Test
+    public void should_take_shared_permit_only_for_picked_task() {
+        QueueRateLimitDao rateLimitDao = mock(QueueRateLimitDao.class);
+        QueueShard<?> queueShard = createShard(rateLimitDao);
+        ProcessingSettings processingSettings = TestFixtures.createProcessingSettings()
+                .withRateLimit(4.0).withRateLimitTable("rate_limits").build();
+        QueueRateLimiter rateLimiter = new QueueRateLimiter(queueShard, LOCATION, processingSettings,
+                new FakeMillisTimeProvider(Arrays.asList(7L)));
+
+        rateLimiter.complete(false);
+        verifyNoInteractions(rateLimitDao);
+        rateLimiter.complete(true);
+        verify(rateLimitDao).takePermit("rate_limits", LOCATION.getQueueId(), 4.0, 7L);
+    }
+
+    @Test
+    public void should_wait_when_shared_table_is_unavailable() {
+        QueueRateLimitDao rateLimitDao = mock(QueueRateLimitDao.class);
+        QueueShard<?> queueShard = createShard(rateLimitDao);
+        when(rateLimitDao.getAvailablePermits("rate_limits", LOCATION.getQueueId(), 4.0, 7L))
+                .thenThrow(new IllegalStateException("unavailable"));
+        ProcessingSettings processingSettings = TestFixtures.createProcessingSettings()
+                .withRateLimit(4.0).withRateLimitTable("rate_limits").build();
+        QueueRateLimiter rateLimiter = new QueueRateLimiter(queueShard, LOCATION, processingSettings,
+                new FakeMillisTimeProvider(Arrays.asList(7L)));
+
+        assertThat(rateLimiter.acquire(), equalTo(QueueRateLimiter.SHARED_LIMIT_FAILURE_TIMEOUT));
+        verify(rateLimitDao).getAvailablePermits("rate_limits", LOCATION.getQueueId(), 4.0, 7L);
+    }
+
+    private static QueueShard<?> createShard(QueueRateLimitDao rateLimitDao) {
+        DatabaseAccessLayer databaseAccessLayer = mock(DatabaseAccessLayer.class);
+        when(databaseAccessLayer.getQueueRateLimitDao()).thenReturn(rateLimitDao);
+        QueueShard<?> queueShard = mock(QueueShard.class);
+        when(queueShard.getDatabaseAccessLayer()).thenAnswer(invocation -> databaseAccessLayer);
+        when(queueShard.getShardId()).thenReturn(new QueueShardId("s1"));
+        return queueShard;
+    }
+}
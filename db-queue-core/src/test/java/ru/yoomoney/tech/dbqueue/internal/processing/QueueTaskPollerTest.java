@@ -1,8 +1,10 @@
 package ru.yoomoney.tech.dbqueue.internal.processing;
 
 import org.junit.Test;
+import org.mockito.InOrder;
 import ru.yoomoney.tech.dbqueue.api.QueueConsumer;
 import ru.yoomoney.tech.dbqueue.config.QueueShardId;
+import ru.yoomoney.tech.dbqueue.config.ShardHealth;
 import ru.yoomoney.tech.dbqueue.config.ThreadLifecycleListener;
 import ru.yoomoney.tech.dbqueue.internal.runner.QueueRunner;
 import ru.yoomoney.tech.dbqueue.settings.QueueConfig;
@@ -12,12 +14,21 @@ import ru.yoomoney.tech.dbqueue.stub.FakeMillisTimeProvider;
 import ru.yoomoney.tech.dbqueue.stub.TestFixtures;
 
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.function.BooleanSupplier;
 
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 /**
@@ -41,7 +52,7 @@ public class QueueTaskPollerTest {
                                 .withNoTaskTimeout(waitDuration)
                                 .build()).build()));
         QueueRunner queueRunner = mock(QueueRunner.class);
-        when(queueRunner.runQueue(queueConsumer)).thenReturn(QueueProcessingStatus.SKIPPED);
+        when(queueRunner.runQueue(eq(queueConsumer), any(), any())).thenReturn(QueueProcessingStatus.SKIPPED);
 
         FakeMillisTimeProvider millisTimeProvider = new FakeMillisTimeProvider(Arrays.asList(7L, 11L));
 
@@ -49,7 +60,7 @@ public class QueueTaskPollerTest {
 
         verify(queueLoop).doRun(any());
         verify(listener).started(shardId, location);
-        verify(queueRunner).runQueue(queueConsumer);
+        verify(queueRunner).runQueue(eq(queueConsumer), any(), any());
         verify(listener).executed(shardId, location, false, 4);
         verify(queueLoop).doWait(waitDuration, QueueLoop.WaitInterrupt.ALLOW);
         verify(listener).finished(shardId, location);
@@ -74,16 +85,157 @@ public class QueueTaskPollerTest {
         QueueRunner queueRunner = mock(QueueRunner.class);
 
         RuntimeException exception = new RuntimeException("exc");
-        when(queueRunner.runQueue(queueConsumer)).thenThrow(exception);
+        when(queueRunner.runQueue(eq(queueConsumer), any(), any())).thenThrow(exception);
 
         new QueueTaskPoller(listener, mock(MillisTimeProvider.class)).start(queueLoop, shardId, queueConsumer, queueRunner);
 
         verify(queueLoop).doRun(any());
         verify(listener).started(shardId, location);
-        verify(queueRunner).runQueue(queueConsumer);
+        verify(queueRunner).runQueue(eq(queueConsumer), any(), any());
         verify(queueLoop).doWait(fatalCrashTimeout, QueueLoop.WaitInterrupt.DENY);
         verify(listener).crashed(shardId, location, exception);
         verify(listener).finished(shardId, location);
     }
 
-}
\ No newline at end of file
+    @Test
+    public void should_wait_when_rate_limit_is_exceeded() throws Exception {
+        QueueLoop queueLoop = spy(new SyncQueueLoop());
+        ThreadLifecycleListener listener = mock(ThreadLifecycleListener.class);
+        QueueShardId shardId = new QueueShardId("s1");
+        QueueConsumer queueConsumer = mock(QueueConsumer.class);
+        QueueLocation location = QueueLocation.builder().withTableName("table")
+                .withQueueId(new QueueId("queue")).build();
+        when(queueConsumer.getQueueConfig()).thenReturn(new QueueConfig(location,
+                TestFixtures.createQueueSettings().build()));
+        QueueRunner queueRunner = mock(QueueRunner.class);
+        Duration rateLimitTimeout = Duration.ofMillis(250L);
+
+        new QueueTaskPoller(listener, mock(MillisTimeProvider.class), () -> rateLimitTimeout)
+                .start(queueLoop, shardId, queueConsumer, queueRunner);
+
+        verify(queueLoop).doWait(rateLimitTimeout, QueueLoop.WaitInterrupt.DENY);
+        verifyNoInteractions(queueRunner, listener);
+    }
+
+    @Test
+    public void should_spend_rate_limit_permit_only_for_picked_task() throws Exception {
+        QueueLoop queueLoop = spy(new SyncQueueLoop());
+        ThreadLifecycleListener listener = mock(ThreadLifecycleListener.class);
+        QueueShardId shardId = new QueueShardId("s1");
+        QueueConsumer queueConsumer = mock(QueueConsumer.class);
+        QueueLocation location = QueueLocation.builder().withTableName("table")
+                .withQueueId(new QueueId("queue")).build();
+        when(queueConsumer.getQueueConfig()).thenReturn(new QueueConfig(location,
+                TestFixtures.createQueueSettings().build()));
+        QueueRunner queueRunner = mock(QueueRunner.class);
+        when(queueRunner.runQueue(eq(queueConsumer), any(), any()))
+                .thenReturn(QueueProcessingStatus.SKIPPED)
+                .thenReturn(QueueProcessingStatus.PROCESSED)
+                .thenThrow(new IllegalStateException("fail"));
+        RateLimiter rateLimiter = mock(RateLimiter.class);
+        when(rateLimiter.acquire()).thenReturn(Duration.ZERO);
+        QueueTaskPoller queueTaskPoller = new QueueTaskPoller(listener, mock(MillisTimeProvider.class), rateLimiter);
+
+        queueTaskPoller.start(queueLoop, shardId, queueConsumer, queueRunner);
+        queueTaskPoller.start(queueLoop, shardId, queueConsumer, queueRunner);
+        queueTaskPoller.start(queueLoop, shardId, queueConsumer, queueRunner);
+
+        InOrder inOrder = inOrder(rateLimiter);
+        inOrder.verify(rateLimiter).complete(false);
+        inOrder.verify(rateLimiter, times(2)).complete(true);
+    }
+
+    @Test
+    public void should_wait_when_shard_is_unavailable() throws Exception {
+        QueueLoop queueLoop = spy(new SyncQueueLoop());
+        ThreadLifecycleListener listener = mock(ThreadLifecycleListener.class);
+        QueueShardId shardId = new QueueShardId("s1");
+        QueueConsumer queueConsumer = mock(QueueConsumer.class);
+        QueueLocation location = QueueLocation.builder().withTableName("table")
+                .withQueueId(new QueueId("queue")).build();
+        when(queueConsumer.getQueueConfig()).thenReturn(new QueueConfig(location,
+                TestFixtures.createQueueSettings().build()));
+        QueueRunner queueRunner = mock(QueueRunner.class);
+        ShardHealth shardHealth = new ShardHealth(1, Duration.ofSeconds(1), Duration.ofMinutes(1));
+        shardHealth.recordFailure();
+
+        new QueueTaskPoller(listener, mock(MillisTimeProvider.class), RateLimiter.UNLIMITED, shardHealth)
+                .start(queueLoop, shardId, queueConsumer, queueRunner);
+
+        verify(queueLoop).doWait(any(Duration.class), eq(QueueLoop.WaitInterrupt.DENY));
+        verifyNoInteractions(queueRunner, listener);
+    }
+
+    @Test
+    public void should_report_shard_failure() throws Exception {
+        QueueLoop queueLoop = spy(new SyncQueueLoop());
+        ThreadLifecycleListener listener = mock(ThreadLifecycleListener.class);
+        QueueShardId shardId = new QueueShardId("s1");
+        QueueConsumer queueConsumer = mock(QueueConsumer.class);
+        QueueLocation location = QueueLocation.builder().withTableName("table")
+                .withQueueId(new QueueId("queue")).build();
+        when(queueConsumer.getQueueConfig()).thenReturn(new QueueConfig(location,
+                TestFixtures.createQueueSettings().build()));
+        QueueRunner queueRunner = mock(QueueRunner.class);
+        when(queueRunner.runQueue(eq(queueConsumer), any(), any()))
+                .thenThrow(new IllegalStateException("unavailable"));
+        ShardHealth shardHealth = new ShardHealth(1, Duration.ofSeconds(1), Duration.ofMinutes(1));
+
+        new QueueTaskPoller(listener, mock(MillisTimeProvider.class), RateLimiter.UNLIMITED, shardHealth)
+                .start(queueLoop, shardId, queueConsumer, queueRunner);
+
+        assertThat(shardHealth.getState(), equalTo(ShardHealth.State.OPEN));
+    }
+
+    @Test
+    public void should_not_pick_next_task_when_wait_follows() throws Exception {
+        QueueLoop queueLoop = spy(new SyncQueueLoop());
+        QueueConsumer queueConsumer = mock(QueueConsumer.class);
+        QueueLocation location = QueueLocation.builder().withTableName("table")
+                .withQueueId(new QueueId("queue")).build();
+        when(queueConsumer.getQueueConfig()).thenReturn(new QueueConfig(location,
+                TestFixtures.createQueueSettings().withPollSettings(
+                        TestFixtures.createPollSettings().withBetweenTaskTimeout(Duration.ZERO).build()).build()));
+        QueueRunner queueRunner = mock(QueueRunner.class);
+        List<Boolean> pickNextConditions = new ArrayList<>();
+        when(queueRunner.runQueue(eq(queueConsumer), any(), any())).thenAnswer(invocation -> {
+            BooleanSupplier pickNextCondition = invocation.getArgument(2);
+            pickNextConditions.add(pickNextCondition.getAsBoolean());
+            when(queueLoop.isPaused()).thenReturn(true);
+            pickNextConditions.add(pickNextCondition.getAsBoolean());
+            when(queueLoop.isPaused()).thenReturn(false);
+            when(queueLoop.isStopped()).thenReturn(true);
+            pickNextConditions.add(pickNextCondition.getAsBoolean());
+            when(queueLoop.isStopped()).thenReturn(false);
+            queueConsumer.getQueueConfig().getSettings().getPollSettings().setValue(
+                    TestFixtures.createPollSettings().withBetweenTaskTimeout(Duration.ofSeconds(1L)).build());
+            pickNextConditions.add(pickNextCondition.getAsBoolean());
+            return QueueProcessingStatus.PROCESSED;
+        });
+
+        new QueueTaskPoller(mock(ThreadLifecycleListener.class), mock(MillisTimeProvider.class))
+                .start(queueLoop, new QueueShardId("s1"), queueConsumer, queueRunner);
+
+        assertThat(pickNextConditions, equalTo(Arrays.asList(true, false, false, false)));
+    }
+
+    @Test
+    public void should_not_report_slow_run_as_slow_shard_call() throws Exception {
+        QueueLoop queueLoop = spy(new SyncQueueLoop());
+        QueueConsumer queueConsumer = mock(QueueConsumer.class);
+        QueueLocation location = QueueLocation.builder().withTableName("table")
+                .withQueueId(new QueueId("queue")).build();
+        when(queueConsumer.getQueueConfig()).thenReturn(new QueueConfig(location,
+                TestFixtures.createQueueSettings().build()));
+        QueueRunner queueRunner = mock(QueueRunner.class);
+        when(queueRunner.runQueue(eq(queueConsumer), any(), any())).thenReturn(QueueProcessingStatus.SKIPPED);
+        ShardHealth shardHealth = new ShardHealth(1, Duration.ofSeconds(1), Duration.ofMinutes(1));
+
+        new QueueTaskPoller(mock(ThreadLifecycleListener.class), new FakeMillisTimeProvider(Arrays.asList(0L, 5000L)),
+                RateLimiter.UNLIMITED, shardHealth)
+                .start(queueLoop, new QueueShardId("s1"), queueConsumer, queueRunner);
+
+        assertThat(shardHealth.getState(), equalTo(ShardHealth.State.CLOSED));
+    }
+
+}
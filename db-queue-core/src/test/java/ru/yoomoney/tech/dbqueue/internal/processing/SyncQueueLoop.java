@@ -33,4 +33,14 @@ public class SyncQueueLoop implements QueueLoop {
 
     }
 
+    @Override
+    public void stop() {
+
+    }
+
+    @Override
+    public boolean isStopped() {
+        return false;
+    }
+
 }
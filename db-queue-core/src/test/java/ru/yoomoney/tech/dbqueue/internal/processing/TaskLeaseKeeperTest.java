@@ -0,0 +1,156 @@
+package ru.yoomoney.tech.dbqueue.internal.processing;
+
+import org.junit.Test;
+import ru.yoomoney.tech.dbqueue.api.TaskExecutionResult;
+import ru.yoomoney.tech.dbqueue.api.TaskRecord;
+import ru.yoomoney.tech.dbqueue.config.QueueShard;
+import ru.yoomoney.tech.dbqueue.config.QueueShardId;
+import ru.yoomoney.tech.dbqueue.config.TaskLifecycleListener;
+import ru.yoomoney.tech.dbqueue.dao.QueueDao;
+import ru.yoomoney.tech.dbqueue.settings.FailRetryType;
+import ru.yoomoney.tech.dbqueue.settings.FailureSettings;
+import ru.yoomoney.tech.dbqueue.settings.QueueId;
+import ru.yoomoney.tech.dbqueue.settings.QueueLocation;
+import ru.yoomoney.tech.dbqueue.stub.StubDatabaseAccessLayer;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * @author Oleg Kandaurov
+ * @since 19.10.2026
+ */
+public class TaskLeaseKeeperTest {
+
+    private static final QueueShardId SHARD_ID = new QueueShardId("s1");
+    private static final QueueLocation LOCATION = QueueLocation.builder().withTableName("testTable")
+            .withQueueId(new QueueId("testQueue")).build();
+
+    private final QueueDao queueDao = mock(QueueDao.class);
+    private final TaskLifecycleListener delegate = mock(TaskLifecycleListener.class);
+    private final ScheduledExecutorService heartbeatExecutor = mock(ScheduledExecutorService.class);
+
+    @Test
+    public void should_extend_leases_of_picked_tasks_in_one_batch() {
+        doReturn(mock(ScheduledFuture.class)).when(heartbeatExecutor)
+                .scheduleWithFixedDelay(any(Runnable.class), anyLong(), anyLong(), any());
+        TaskLeaseKeeper leaseKeeper = createLeaseKeeper(FailRetryType.LINEAR_BACKOFF);
+        TaskRecord firstTask = TaskRecord.builder().withId(1L).build();
+        TaskRecord secondTask = TaskRecord.builder().withId(2L).build();
+
+        leaseKeeper.picked(SHARD_ID, LOCATION, firstTask, 1L);
+        leaseKeeper.picked(SHARD_ID, LOCATION, secondTask, 1L);
+        leaseKeeper.extendLeases();
+
+        verify(heartbeatExecutor).scheduleWithFixedDelay(any(Runnable.class), eq(3333L), eq(3333L), any());
+        verify(queueDao).extendLeases(LOCATION, Arrays.asList(1L, 2L), Duration.ofSeconds(10L));
+        verify(delegate).picked(SHARD_ID, LOCATION, firstTask, 1L);
+    }
+
+    @Test
+    public void should_stop_extending_lease_when_result_is_handled() {
+        TaskLeaseKeeper leaseKeeper = createLeaseKeeper(FailRetryType.LINEAR_BACKOFF);
+        TaskRecord taskRecord = TaskRecord.builder().withId(1L).build();
+
+        leaseKeeper.picked(SHARD_ID, LOCATION, taskRecord, 1L);
+        leaseKeeper.executed(SHARD_ID, LOCATION, taskRecord, TaskExecutionResult.finish(), 1L);
+        leaseKeeper.finished(SHARD_ID, LOCATION, taskRecord);
+        leaseKeeper.extendLeases();
+
+        assertThat(leaseKeeper.getLeasedTaskCount(), equalTo(0));
+        verify(queueDao, never()).extendLeases(any(), any(), any());
+        verify(delegate).finished(SHARD_ID, LOCATION, taskRecord);
+    }
+
+    @Test
+    public void should_stop_extending_lease_when_task_is_released() {
+        TaskLeaseKeeper leaseKeeper = createLeaseKeeper(FailRetryType.LINEAR_BACKOFF);
+        TaskRecord taskRecord = TaskRecord.builder().withId(1L).build();
+
+        leaseKeeper.picked(SHARD_ID, LOCATION, taskRecord, 1L);
+        leaseKeeper.released(SHARD_ID, LOCATION, taskRecord);
+        leaseKeeper.extendLeases();
+
+        assertThat(leaseKeeper.getLeasedTaskCount(), equalTo(0));
+        verify(queueDao, never()).extendLeases(any(), any(), any());
+        verify(delegate).released(SHARD_ID, LOCATION, taskRecord);
+    }
+
+    @Test
+    public void should_delay_failed_task_for_retry_interval() {
+        TaskLeaseKeeper leaseKeeper = createLeaseKeeper(FailRetryType.GEOMETRIC_BACKOFF);
+        TaskRecord taskRecord = TaskRecord.builder().withId(1L).withAttemptsCount(3L).build();
+
+        leaseKeeper.picked(SHARD_ID, LOCATION, taskRecord, 1L);
+        leaseKeeper.crashed(SHARD_ID, LOCATION, taskRecord, new IllegalStateException("fail"));
+        leaseKeeper.finished(SHARD_ID, LOCATION, taskRecord);
+
+        verify(queueDao).extendLeases(LOCATION, Collections.singletonList(1L), Duration.ofHours(4L));
+        assertThat(leaseKeeper.getLeasedTaskCount(), equalTo(0));
+    }
+
+    @Test
+    public void should_pick_for_lease_duration() {
+        FailureSettings failureSettings = FailureSettings.builder()
+                .withRetryType(FailRetryType.GEOMETRIC_BACKOFF)
+                .withRetryInterval(Duration.ofHours(1L))
+                .withLeaseDuration(Duration.ofSeconds(10L)).build();
+        TaskLeaseKeeper leaseKeeper = new TaskLeaseKeeper(createQueueShard(), LOCATION, failureSettings, delegate,
+                heartbeatExecutor);
+
+        assertThat(leaseKeeper.getPickFailureSettings(), equalTo(FailureSettings.builder()
+                .withRetryType(FailRetryType.LINEAR_BACKOFF)
+                .withRetryInterval(Duration.ofSeconds(10L)).build()));
+
+        failureSettings.setValue(FailureSettings.builder()
+                .withRetryType(FailRetryType.GEOMETRIC_BACKOFF)
+                .withRetryInterval(Duration.ofHours(1L)).build());
+        assertThat(leaseKeeper.getPickFailureSettings(), equalTo(FailureSettings.builder()
+                .withRetryType(FailRetryType.GEOMETRIC_BACKOFF)
+                .withRetryInterval(Duration.ofHours(1L)).build()));
+
+        leaseKeeper.picked(SHARD_ID, LOCATION, TaskRecord.builder().withId(1L).build(), 1L);
+        assertThat(leaseKeeper.getLeasedTaskCount(), equalTo(0));
+        verify(heartbeatExecutor, never()).scheduleWithFixedDelay(any(Runnable.class), anyLong(), anyLong(), any());
+    }
+
+    @Test
+    public void should_keep_lease_of_failed_task_until_finished() {
+        TaskLeaseKeeper leaseKeeper = createLeaseKeeper(FailRetryType.LINEAR_BACKOFF);
+        TaskRecord taskRecord = TaskRecord.builder().withId(1L).build();
+
+        leaseKeeper.picked(SHARD_ID, LOCATION, taskRecord, 1L);
+        leaseKeeper.executed(SHARD_ID, LOCATION, taskRecord, TaskExecutionResult.fail(), 1L);
+        leaseKeeper.extendLeases();
+        leaseKeeper.finished(SHARD_ID, LOCATION, taskRecord);
+
+        verify(queueDao).extendLeases(LOCATION, Collections.singletonList(1L), Duration.ofSeconds(10L));
+        verify(queueDao).extendLeases(LOCATION, Collections.singletonList(1L), Duration.ofHours(1L));
+        verify(queueDao, times(2)).extendLeases(any(), any(), any());
+    }
+
+    private TaskLeaseKeeper createLeaseKeeper(FailRetryType retryType) {
+        return new TaskLeaseKeeper(createQueueShard(), LOCATION, FailureSettings.builder()
+                .withRetryType(retryType)
+                .withRetryInterval(Duration.ofHours(1L))
+                .withLeaseDuration(Duration.ofSeconds(10L)).build(), delegate, heartbeatExecutor);
+    }
+
+    private QueueShard<StubDatabaseAccessLayer> createQueueShard() {
+        return new QueueShard<>(SHARD_ID, new StubDatabaseAccessLayer(queueDao));
+    }
+}
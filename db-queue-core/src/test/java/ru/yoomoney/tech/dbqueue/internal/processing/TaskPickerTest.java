@@ -1,10 +1,12 @@
 package ru.yoomoney.tech.dbqueue.internal.processing;
 
 import org.junit.Test;
+import org.mockito.InOrder;
 import ru.yoomoney.tech.dbqueue.api.QueueConsumer;
 import ru.yoomoney.tech.dbqueue.api.TaskRecord;
 import ru.yoomoney.tech.dbqueue.config.QueueShard;
 import ru.yoomoney.tech.dbqueue.config.QueueShardId;
+import ru.yoomoney.tech.dbqueue.config.ShardHealth;
 import ru.yoomoney.tech.dbqueue.config.TaskLifecycleListener;
 import ru.yoomoney.tech.dbqueue.dao.QueuePickTaskDao;
 import ru.yoomoney.tech.dbqueue.settings.QueueConfig;
@@ -14,11 +16,19 @@ import ru.yoomoney.tech.dbqueue.stub.FakeMillisTimeProvider;
 import ru.yoomoney.tech.dbqueue.stub.StubDatabaseAccessLayer;
 import ru.yoomoney.tech.dbqueue.stub.TestFixtures;
 
+import java.time.Duration;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
 
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -49,7 +59,8 @@ public class TaskPickerTest {
         TaskLifecycleListener listener = mock(TaskLifecycleListener.class);
         FakeMillisTimeProvider millisTimeProvider = spy(new FakeMillisTimeProvider(Arrays.asList(3L, 5L)));
 
-        TaskRecord pickedTask = new TaskPicker(queueShard, location, listener, millisTimeProvider, pickTaskDao).pickTask();
+        TaskRecord pickedTask = new TaskPicker(queueShard, location, listener, millisTimeProvider, pickTaskDao,
+                TestFixtures.createPollSettings().build()).pickTask();
 
         assertThat(pickedTask, equalTo(taskRecord));
 
@@ -59,6 +70,56 @@ public class TaskPickerTest {
         verify(listener).picked(shardId, location, taskRecord, 2L);
     }
 
+    @Test
+    public void should_pick_and_delete_task_when_deleted_on_pick() throws Exception {
+        QueueLocation location = QueueLocation.builder().withTableName("testTable")
+                .withQueueId(new QueueId("testQueue")).build();
+        QueueShardId shardId = new QueueShardId("s1");
+        QueueShard queueShard = mock(QueueShard.class);
+        when(queueShard.getShardId()).thenReturn(shardId);
+        when(queueShard.getDatabaseAccessLayer()).thenReturn(new StubDatabaseAccessLayer());
+        QueuePickTaskDao pickTaskDao = mock(QueuePickTaskDao.class);
+        TaskRecord taskRecord = TaskRecord.builder().build();
+        when(pickTaskDao.pickAndDeleteTask()).thenReturn(taskRecord);
+        TaskLifecycleListener listener = mock(TaskLifecycleListener.class);
+
+        TaskRecord pickedTask = new TaskPicker(queueShard, location, listener,
+                new FakeMillisTimeProvider(Arrays.asList(3L, 5L)), pickTaskDao,
+                TestFixtures.createPollSettings().build(), true).pickTask();
+
+        assertThat(pickedTask, equalTo(taskRecord));
+        verify(pickTaskDao).pickAndDeleteTask();
+        verify(pickTaskDao, never()).pickTask();
+        verify(listener).picked(shardId, location, taskRecord, 2L);
+    }
+
+    @Test
+    public void should_delete_previous_task_and_pick_next_task() throws Exception {
+        QueueLocation location = QueueLocation.builder().withTableName("testTable")
+                .withQueueId(new QueueId("testQueue")).build();
+        QueueShardId shardId = new QueueShardId("s1");
+        QueueShard queueShard = mock(QueueShard.class);
+        when(queueShard.getShardId()).thenReturn(shardId);
+        when(queueShard.getDatabaseAccessLayer()).thenReturn(new StubDatabaseAccessLayer());
+        QueuePickTaskDao pickTaskDao = mock(QueuePickTaskDao.class);
+        when(pickTaskDao.isCompleteAndPickSupported()).thenReturn(true);
+        TaskRecord previousTask = TaskRecord.builder().withId(1L).build();
+        TaskRecord taskRecord = TaskRecord.builder().withId(2L).build();
+        when(pickTaskDao.deleteAndPickTask(1L)).thenReturn(taskRecord);
+        TaskLifecycleListener listener = mock(TaskLifecycleListener.class);
+
+        TaskPicker taskPicker = new TaskPicker(queueShard, location, listener,
+                new FakeMillisTimeProvider(Arrays.asList(3L, 5L)), pickTaskDao,
+                TestFixtures.createPollSettings().build());
+
+        assertThat(taskPicker.isCompleteAndPickSupported(), equalTo(true));
+        assertThat(taskPicker.deleteAndPickTask(previousTask), equalTo(taskRecord));
+        verify(listener).picked(shardId, location, taskRecord, 2L);
+        assertThat(new TaskPicker(queueShard, location, listener, new FakeMillisTimeProvider(Arrays.asList(3L, 5L)),
+                pickTaskDao, TestFixtures.createPollSettings().withKeyConcurrencyLimit(1).build())
+                .isCompleteAndPickSupported(), equalTo(false));
+    }
+
     @Test
     public void should_not_notify_when_task_not_picked() throws Exception {
         QueueLocation location = QueueLocation.builder().withTableName("testTable")
@@ -73,11 +134,12 @@ public class TaskPickerTest {
         TaskLifecycleListener listener = mock(TaskLifecycleListener.class);
         FakeMillisTimeProvider millisTimeProvider = spy(new FakeMillisTimeProvider(Arrays.asList(3L, 5L)));
 
-        TaskRecord pickedTask = new TaskPicker(queueShard, location, listener, millisTimeProvider, pickTaskDao).pickTask();
+        TaskRecord pickedTask = new TaskPicker(queueShard, location, listener, millisTimeProvider, pickTaskDao,
+                TestFixtures.createPollSettings().build()).pickTask();
 
         assertThat(pickedTask, equalTo(null));
 
-        verify(millisTimeProvider).getMillis();
+        verify(millisTimeProvider, times(2)).getMillis();
         verify(queueShard).getDatabaseAccessLayer();
         verify(pickTaskDao).pickTask();
         verifyNoInteractions(listener);
@@ -97,7 +159,8 @@ public class TaskPickerTest {
         TaskLifecycleListener listener = mock(TaskLifecycleListener.class);
         FakeMillisTimeProvider millisTimeProvider = spy(new FakeMillisTimeProvider(Arrays.asList(3L, 5L)));
 
-        TaskRecord pickedTask = new TaskPicker(queueShard, location, listener, millisTimeProvider, pickTaskDao).pickTask();
+        TaskRecord pickedTask = new TaskPicker(queueShard, location, listener, millisTimeProvider, pickTaskDao,
+                TestFixtures.createPollSettings().build()).pickTask();
 
         assertThat(pickedTask, equalTo(null));
 
@@ -106,4 +169,158 @@ public class TaskPickerTest {
         verify(pickTaskDao).pickTask();
         verifyNoInteractions(listener);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void should_pick_task_from_weighted_priority_lane() throws Exception {
+        QueueLocation location = QueueLocation.builder().withTableName("testTable")
+                .withQueueId(new QueueId("testQueue")).build();
+        QueueShardId shardId = new QueueShardId("s1");
+        QueueShard queueShard = mock(QueueShard.class);
+        when(queueShard.getShardId()).thenReturn(shardId);
+        when(queueShard.getDatabaseAccessLayer()).thenReturn(new StubDatabaseAccessLayer());
+        QueuePickTaskDao pickTaskDao = mock(QueuePickTaskDao.class);
+        TaskRecord taskRecord = TaskRecord.builder().withPriority(0).build();
+        when(pickTaskDao.pickTaskByPriority(10)).thenReturn(TaskRecord.builder().withPriority(10).build());
+        when(pickTaskDao.pickTaskByPriority(0)).thenReturn(taskRecord);
+        TaskLifecycleListener listener = mock(TaskLifecycleListener.class);
+        FakeMillisTimeProvider millisTimeProvider = new FakeMillisTimeProvider(Arrays.asList(3L, 5L));
+        Map<Integer, Integer> priorityWeights = new LinkedHashMap<>();
+        priorityWeights.put(10, 3);
+        priorityWeights.put(0, 1);
+        Random random = mock(Random.class);
+        when(random.nextInt(4)).thenReturn(3);
+
+        TaskRecord pickedTask = new TaskPicker(queueShard, location, listener, millisTimeProvider, pickTaskDao,
+                TestFixtures.createPollSettings().withPriorityWeights(priorityWeights).build(),
+                () -> random).pickTask();
+
+        assertThat(pickedTask, equalTo(taskRecord));
+        verify(pickTaskDao).pickTaskByPriority(0);
+        verify(pickTaskDao, never()).pickTaskByPriority(10);
+        verify(pickTaskDao, never()).pickTask();
+        verify(listener).picked(shardId, location, taskRecord, 2L);
+    }
+
+    @Test
+    public void should_pick_task_regardless_of_priority_when_chosen_lane_is_empty() throws Exception {
+        QueueLocation location = QueueLocation.builder().withTableName("testTable")
+                .withQueueId(new QueueId("testQueue")).build();
+        QueueShard queueShard = mock(QueueShard.class);
+        when(queueShard.getDatabaseAccessLayer()).thenReturn(new StubDatabaseAccessLayer());
+        QueuePickTaskDao pickTaskDao = mock(QueuePickTaskDao.class);
+        TaskRecord taskRecord = TaskRecord.builder().withPriority(10).build();
+        when(pickTaskDao.pickTaskByPriority(anyInt())).thenReturn(null);
+        when(pickTaskDao.pickTask()).thenReturn(taskRecord);
+        TaskLifecycleListener listener = mock(TaskLifecycleListener.class);
+        FakeMillisTimeProvider millisTimeProvider = new FakeMillisTimeProvider(Arrays.asList(3L, 5L));
+        Map<Integer, Integer> priorityWeights = new LinkedHashMap<>();
+        priorityWeights.put(0, 1);
+        priorityWeights.put(5, 1);
+        priorityWeights.put(10, 1);
+        Random random = mock(Random.class);
+        when(random.nextInt(3)).thenReturn(2);
+
+        TaskRecord pickedTask = new TaskPicker(queueShard, location, listener, millisTimeProvider, pickTaskDao,
+                TestFixtures.createPollSettings().withPriorityWeights(priorityWeights).build(),
+                () -> random).pickTask();
+
+        assertThat(pickedTask, equalTo(taskRecord));
+        InOrder inOrder = inOrder(pickTaskDao);
+        inOrder.verify(pickTaskDao).pickTaskByPriority(0);
+        inOrder.verify(pickTaskDao).pickTask();
+        verify(pickTaskDao, never()).pickTaskByPriority(5);
+        verify(pickTaskDao, never()).pickTaskByPriority(10);
+    }
+
+    @Test
+    public void should_pick_task_with_unlisted_priority_when_priority_lanes_are_empty() throws Exception {
+        QueueLocation location = QueueLocation.builder().withTableName("testTable")
+                .withQueueId(new QueueId("testQueue")).build();
+        QueueShardId shardId = new QueueShardId("s1");
+        QueueShard queueShard = mock(QueueShard.class);
+        when(queueShard.getShardId()).thenReturn(shardId);
+        when(queueShard.getDatabaseAccessLayer()).thenReturn(new StubDatabaseAccessLayer());
+        QueuePickTaskDao pickTaskDao = mock(QueuePickTaskDao.class);
+        TaskRecord taskRecord = TaskRecord.builder().withPriority(0).build();
+        when(pickTaskDao.pickTaskByPriority(anyInt())).thenReturn(null);
+        when(pickTaskDao.pickTask()).thenReturn(taskRecord);
+        TaskLifecycleListener listener = mock(TaskLifecycleListener.class);
+        FakeMillisTimeProvider millisTimeProvider = new FakeMillisTimeProvider(Arrays.asList(3L, 5L));
+        Map<Integer, Integer> priorityWeights = new LinkedHashMap<>();
+        priorityWeights.put(10, 3);
+        priorityWeights.put(5, 1);
+        Random random = mock(Random.class);
+        when(random.nextInt(4)).thenReturn(0);
+
+        TaskRecord pickedTask = new TaskPicker(queueShard, location, listener, millisTimeProvider, pickTaskDao,
+                TestFixtures.createPollSettings().withPriorityWeights(priorityWeights).build(),
+                () -> random).pickTask();
+
+        assertThat(pickedTask, equalTo(taskRecord));
+        InOrder inOrder = inOrder(pickTaskDao);
+        inOrder.verify(pickTaskDao).pickTaskByPriority(10);
+        inOrder.verify(pickTaskDao).pickTask();
+        verify(pickTaskDao, never()).pickTaskByPriority(5);
+        verify(listener).picked(shardId, location, taskRecord, 2L);
+    }
+
+    @Test
+    public void should_pick_task_with_key_concurrency_limit() throws Exception {
+        QueueLocation location = QueueLocation.builder().withTableName("testTable")
+                .withQueueId(new QueueId("testQueue")).build();
+        QueueShard queueShard = mock(QueueShard.class);
+        when(queueShard.getDatabaseAccessLayer()).thenReturn(new StubDatabaseAccessLayer());
+        QueuePickTaskDao pickTaskDao = mock(QueuePickTaskDao.class);
+        TaskRecord taskRecord = TaskRecord.builder().build();
+        when(pickTaskDao.pickTaskWithKeyLimit(null, 2)).thenReturn(taskRecord);
+        TaskLifecycleListener listener = mock(TaskLifecycleListener.class);
+        FakeMillisTimeProvider millisTimeProvider = new FakeMillisTimeProvider(Arrays.asList(3L, 5L));
+
+        TaskRecord pickedTask = new TaskPicker(queueShard, location, listener, millisTimeProvider, pickTaskDao,
+                TestFixtures.createPollSettings().withKeyConcurrencyLimit(2).build()).pickTask();
+
+        assertThat(pickedTask, equalTo(taskRecord));
+        verify(pickTaskDao).pickTaskWithKeyLimit(null, 2);
+        verify(pickTaskDao, never()).pickTask();
+    }
+
+    @Test
+    public void should_pick_oldest_task_of_key_when_ordered_by_key() throws Exception {
+        QueueLocation location = QueueLocation.builder().withTableName("testTable")
+                .withQueueId(new QueueId("testQueue")).build();
+        QueueShard queueShard = mock(QueueShard.class);
+        when(queueShard.getDatabaseAccessLayer()).thenReturn(new StubDatabaseAccessLayer());
+        QueuePickTaskDao pickTaskDao = mock(QueuePickTaskDao.class);
+        TaskRecord taskRecord = TaskRecord.builder().build();
+        when(pickTaskDao.pickTaskInKeyOrder(null)).thenReturn(taskRecord);
+        TaskLifecycleListener listener = mock(TaskLifecycleListener.class);
+        FakeMillisTimeProvider millisTimeProvider = new FakeMillisTimeProvider(Arrays.asList(3L, 5L));
+
+        TaskRecord pickedTask = new TaskPicker(queueShard, location, listener, millisTimeProvider, pickTaskDao,
+                TestFixtures.createPollSettings().withOrderedByKey(true).build()).pickTask();
+
+        assertThat(pickedTask, equalTo(taskRecord));
+        verify(pickTaskDao).pickTaskInKeyOrder(null);
+        verify(pickTaskDao, never()).pickTask();
+    }
+
+    @Test
+    public void should_report_pick_duration_to_shard_health() throws Exception {
+        QueueLocation location = QueueLocation.builder().withTableName("testTable")
+                .withQueueId(new QueueId("testQueue")).build();
+        QueueShard queueShard = mock(QueueShard.class);
+        when(queueShard.getShardId()).thenReturn(new QueueShardId("s1"));
+        when(queueShard.getDatabaseAccessLayer()).thenReturn(new StubDatabaseAccessLayer());
+        ShardHealth shardHealth = new ShardHealth(1, Duration.ofSeconds(1), Duration.ofMinutes(1));
+        when(queueShard.getHealth()).thenReturn(Optional.of(shardHealth));
+        QueuePickTaskDao pickTaskDao = mock(QueuePickTaskDao.class);
+
+        TaskRecord pickedTask = new TaskPicker(queueShard, location, mock(TaskLifecycleListener.class),
+                new FakeMillisTimeProvider(Arrays.asList(0L, 2000L)), pickTaskDao,
+                TestFixtures.createPollSettings().build()).pickTask();
+
+        assertThat(pickedTask, equalTo(null));
+        assertThat(shardHealth.getState(), equalTo(ShardHealth.State.OPEN));
+    }
+
+}
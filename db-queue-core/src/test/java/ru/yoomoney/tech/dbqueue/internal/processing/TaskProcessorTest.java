@@ -23,7 +23,9 @@ import java.util.Collections;
 
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.doThrow;
+import static org.junit.Assert.assertNull;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -144,4 +146,31 @@ public class TaskProcessorTest {
         return ZonedDateTime.of(0, 1, 1, 0, 0, seconds, 0, ZoneId.systemDefault());
     }
 
-}
\ No newline at end of file
+
+    @Test
+    public void should_not_pick_next_task_when_condition_fails() {
+        QueueLocation location = QueueLocation.builder().withTableName("testLocation")
+                .withQueueId(new QueueId("testQueue")).build();
+        TaskRecord taskRecord = TaskRecord.builder().withCreatedAt(ofSeconds(1)).withNextProcessAt(ofSeconds(5)).withPayload("testPayload").build();
+        QueueShardId shardId = new QueueShardId("s1");
+        TaskExecutionResult queueResult = TaskExecutionResult.finish();
+
+        QueueShard queueShard = mock(QueueShard.class);
+        when(queueShard.getShardId()).thenReturn(shardId);
+        TaskResultHandler resultHandler = mock(TaskResultHandler.class);
+        TaskPicker taskPicker = mock(TaskPicker.class);
+        TaskPayloadTransformer<String> transformer = mock(TaskPayloadTransformer.class);
+        when(transformer.toObject(taskRecord.getPayload())).thenReturn(taskRecord.getPayload());
+        QueueConsumer<String> queueConsumer = new FakeQueueConsumer(new QueueConfig(location,
+                TestFixtures.createQueueSettings().build()),
+                transformer, r -> queueResult);
+
+        TaskRecord nextTask = new TaskProcessor(queueShard, mock(TaskLifecycleListener.class),
+                mock(MillisTimeProvider.class), resultHandler)
+                .processTaskAndPickNext(queueConsumer, taskRecord, taskPicker, () -> false);
+
+        assertNull(nextTask);
+        verify(resultHandler).handleResult(taskRecord, queueResult);
+        verify(resultHandler, never()).handleResultAndPickTask(any(), any(), any());
+    }
+}
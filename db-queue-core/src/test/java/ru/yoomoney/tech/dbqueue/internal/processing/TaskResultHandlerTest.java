@@ -13,7 +13,12 @@ import ru.yoomoney.tech.dbqueue.stub.StubDatabaseAccessLayer;
 
 import java.time.Duration;
 
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
@@ -94,6 +99,70 @@ public class TaskResultHandlerTest {
         verify(queueDao).deleteTask(location, taskId);
     }
 
+    @Test
+    public void should_reenqueue_task_and_pick_next_task() {
+        QueueLocation location = QueueLocation.builder().withTableName("testTable")
+                .withQueueId(new QueueId("testQueue")).build();
+
+        TaskRecord taskRecord = TaskRecord.builder().withId(5L).build();
+        TaskRecord nextTask = TaskRecord.builder().withId(6L).build();
+        QueueShard queueShard = mock(QueueShard.class);
+        TaskPicker taskPicker = mock(TaskPicker.class);
+        when(taskPicker.isCompleteAndPickSupported()).thenReturn(true);
+        when(taskPicker.reenqueueAndPickTask(taskRecord, Duration.ofSeconds(10L))).thenReturn(nextTask);
+        when(taskPicker.deleteAndPickTask(taskRecord)).thenReturn(nextTask);
+
+        ReenqueueSettings reenqueueSettings = ReenqueueSettings.builder().withRetryType(ReenqueueRetryType.FIXED)
+                .withFixedDelay(Duration.ofSeconds(10L)).build();
+        TaskResultHandler taskResultHandler = new TaskResultHandler(location, queueShard, reenqueueSettings);
+
+        assertThat(taskResultHandler.handleResultAndPickTask(taskRecord, TaskExecutionResult.reenqueue(), taskPicker),
+                equalTo(nextTask));
+        assertThat(taskResultHandler.handleResultAndPickTask(taskRecord, TaskExecutionResult.finish(), taskPicker),
+                equalTo(nextTask));
+        assertThat(taskResultHandler.handleResultAndPickTask(taskRecord, TaskExecutionResult.fail(), taskPicker),
+                nullValue());
+        verifyNoInteractions(queueShard);
+    }
+
+    @Test
+    public void should_finish_task_separately_when_complete_and_pick_is_not_supported() {
+        long taskId = 5L;
+        QueueLocation location = QueueLocation.builder().withTableName("testTable")
+                .withQueueId(new QueueId("testQueue")).build();
+
+        TaskRecord taskRecord = TaskRecord.builder().withId(taskId).build();
+        QueueDao queueDao = mock(QueueDao.class);
+        QueueShard queueShard = mock(QueueShard.class);
+        when(queueShard.getDatabaseAccessLayer()).thenReturn(new StubDatabaseAccessLayer(queueDao));
+        TaskPicker taskPicker = mock(TaskPicker.class);
+
+        ReenqueueSettings reenqueueSettings = ReenqueueSettings.builder().withRetryType(ReenqueueRetryType.MANUAL).build();
+        TaskRecord nextTask = new TaskResultHandler(location, queueShard, reenqueueSettings)
+                .handleResultAndPickTask(taskRecord, TaskExecutionResult.finish(), taskPicker);
+
+        assertThat(nextTask, nullValue());
+        verify(queueDao).deleteTask(location, taskId);
+        verify(taskPicker, never()).deleteAndPickTask(taskRecord);
+    }
+
+    @Test
+    public void should_not_write_result_of_task_deleted_on_pick() {
+        QueueLocation location = QueueLocation.builder().withTableName("testTable")
+                .withQueueId(new QueueId("testQueue")).build();
+
+        TaskRecord taskRecord = TaskRecord.builder().build();
+        QueueShard queueShard = mock(QueueShard.class);
+        when(queueShard.getDatabaseAccessLayer()).thenReturn(new StubDatabaseAccessLayer());
+
+        ReenqueueSettings reenqueueSettings = ReenqueueSettings.builder().withRetryType(ReenqueueRetryType.MANUAL).build();
+        TaskResultHandler taskResultHandler = new TaskResultHandler(location, queueShard, reenqueueSettings, true);
+        taskResultHandler.handleResult(taskRecord, TaskExecutionResult.finish());
+        taskResultHandler.handleResult(taskRecord, TaskExecutionResult.reenqueue(Duration.ofSeconds(1L)));
+
+        verifyNoInteractions(queueShard);
+    }
+
     @Test
     public void should_fail_task_when_no_delay() {
         QueueLocation location = QueueLocation.builder().withTableName("testTable")
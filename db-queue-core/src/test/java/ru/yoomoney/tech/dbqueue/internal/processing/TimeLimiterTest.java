@@ -37,4 +37,19 @@ public class TimeLimiterTest {
         timeLimiter.execute(ignored -> Assert.fail("should not invoke when duration is zero"));
         Assert.assertEquals(2, executionCount.get());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void should_subtract_elapsed_time_of_each_action_once() {
+        Duration timeout = Duration.ofMillis(10);
+        TimeLimiter timeLimiter = new TimeLimiter(new FakeMillisTimeProvider(Arrays.asList(0L, 3L, 3L, 5L, 5L, 6L)),
+                timeout);
+        timeLimiter.execute(remainingTimeout -> Assert.assertEquals(timeout, remainingTimeout));
+        timeLimiter.execute(remainingTimeout -> Assert.assertEquals(Duration.ofMillis(7), remainingTimeout));
+        AtomicInteger executionCount = new AtomicInteger(0);
+        timeLimiter.execute(remainingTimeout -> {
+            executionCount.incrementAndGet();
+            Assert.assertEquals(Duration.ofMillis(5), remainingTimeout);
+        });
+        Assert.assertEquals(1, executionCount.get());
+    }
+}
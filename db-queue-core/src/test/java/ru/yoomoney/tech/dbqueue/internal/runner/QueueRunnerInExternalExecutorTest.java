@@ -14,6 +14,9 @@ import ru.yoomoney.tech.dbqueue.stub.TestFixtures;
 
 import javax.annotation.Nonnull;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.Executor;
 
 import static org.hamcrest.CoreMatchers.equalTo;
@@ -82,6 +85,25 @@ public class QueueRunnerInExternalExecutorTest {
         verify(taskProcessor).processTask(queueConsumer, taskRecord);
     }
 
+    @Test
+    public void should_release_tasks_not_started_by_executor() {
+        List<Runnable> submittedTasks = new ArrayList<>();
+        QueueConsumer queueConsumer = mock(QueueConsumer.class);
+        TaskPicker taskPicker = mock(TaskPicker.class);
+        TaskRecord taskRecord = TaskRecord.builder().withId(1L).build();
+        when(taskPicker.pickTask()).thenReturn(taskRecord);
+        TaskProcessor taskProcessor = mock(TaskProcessor.class);
+
+        QueueRunnerInExternalExecutor queueRunner = new QueueRunnerInExternalExecutor(taskPicker, taskProcessor,
+                submittedTasks::add);
+        queueRunner.runQueue(queueConsumer);
+        queueRunner.releaseClaimedTasks();
+        submittedTasks.forEach(Runnable::run);
+
+        verify(taskPicker).releaseTasks(Collections.singletonList(taskRecord));
+        verifyNoInteractions(taskProcessor);
+    }
+
     private static class FakeExecutor implements Executor {
 
         @Override
@@ -0,0 +1,78 @@
+package ru.yoomoney.tech.dbqueue.internal.runner;
+
+import org.junit.Test;
+import ru.yoomoney.tech.dbqueue.api.QueueConsumer;
+import ru.yoomoney.tech.dbqueue.api.TaskRecord;
+import ru.yoomoney.tech.dbqueue.internal.processing.QueueProcessingStatus;
+import ru.yoomoney.tech.dbqueue.internal.processing.TaskPicker;
+import ru.yoomoney.tech.dbqueue.internal.processing.TaskProcessor;
+import ru.yoomoney.tech.dbqueue.settings.QueueId;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author Oleg Kandaurov
+ * @since 19.10.2026
+ */
+public class QueueRunnerInGroupTest {
+
+    private static final QueueId firstQueue = new QueueId("first_queue");
+    private static final QueueId secondQueue = new QueueId("second_queue");
+
+    @Test
+    public void should_skip_when_no_task_found() {
+        TaskPicker taskPicker = mock(TaskPicker.class);
+        when(taskPicker.pickTask()).thenReturn(null);
+        TaskProcessor taskProcessor = mock(TaskProcessor.class);
+        QueueConsumer<?> consumer = mock(QueueConsumer.class);
+        Map<QueueId, QueueRunnerInGroup.Member> members = new HashMap<>();
+        members.put(firstQueue, new QueueRunnerInGroup.Member(consumer, taskProcessor, Runnable::run));
+
+        QueueProcessingStatus status = new QueueRunnerInGroup(taskPicker, members)
+                .runQueue(mock(QueueConsumer.class));
+
+        assertThat(status, equalTo(QueueProcessingStatus.SKIPPED));
+        verifyNoInteractions(taskProcessor);
+    }
+
+    @Test
+    public void should_dispatch_task_to_consumer_of_its_queue() {
+        TaskRecord taskRecord = TaskRecord.builder().withId(1L).withQueueId(secondQueue).build();
+        TaskPicker taskPicker = mock(TaskPicker.class);
+        when(taskPicker.pickTask()).thenReturn(taskRecord);
+        TaskProcessor firstProcessor = mock(TaskProcessor.class);
+        TaskProcessor secondProcessor = mock(TaskProcessor.class);
+        QueueConsumer<?> firstConsumer = mock(QueueConsumer.class);
+        QueueConsumer<?> secondConsumer = mock(QueueConsumer.class);
+        Map<QueueId, QueueRunnerInGroup.Member> members = new HashMap<>();
+        members.put(firstQueue, new QueueRunnerInGroup.Member(firstConsumer, firstProcessor, Runnable::run));
+        members.put(secondQueue, new QueueRunnerInGroup.Member(secondConsumer, secondProcessor, Runnable::run));
+
+        QueueProcessingStatus status = new QueueRunnerInGroup(taskPicker, members)
+                .runQueue(mock(QueueConsumer.class));
+
+        assertThat(status, equalTo(QueueProcessingStatus.PROCESSED));
+        verify(secondProcessor).processTask(secondConsumer, taskRecord);
+        verifyNoInteractions(firstProcessor);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void should_fail_when_task_belongs_to_unknown_queue() {
+        TaskPicker taskPicker = mock(TaskPicker.class);
+        when(taskPicker.pickTask()).thenReturn(TaskRecord.builder().withId(1L)
+                .withQueueId(new QueueId("unknown_queue")).build());
+        Map<QueueId, QueueRunnerInGroup.Member> members = new HashMap<>();
+        members.put(firstQueue, new QueueRunnerInGroup.Member(mock(QueueConsumer.class),
+                mock(TaskProcessor.class), Runnable::run));
+
+        new QueueRunnerInGroup(taskPicker, members).runQueue(mock(QueueConsumer.class));
+    }
+}
@@ -12,10 +12,14 @@ import ru.yoomoney.tech.dbqueue.settings.QueueLocation;
 import ru.yoomoney.tech.dbqueue.stub.TestFixtures;
 
 import java.time.Duration;
+import java.util.function.BooleanSupplier;
 
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
@@ -71,7 +75,26 @@ public class QueueRunnerInSeparateTransactionsTest {
         assertThat(status, equalTo(QueueProcessingStatus.PROCESSED));
 
         verify(taskPicker).pickTask();
-        verify(taskProcessor).processTask(queueConsumer, taskRecord);
+        verify(taskProcessor).processTaskAndPickNext(eq(queueConsumer), eq(taskRecord), eq(taskPicker), any());
     }
 
-}
\ No newline at end of file
+    @Test
+    public void should_process_task_picked_on_completion_in_same_run() {
+        QueueConsumer queueConsumer = mock(QueueConsumer.class);
+        TaskPicker taskPicker = mock(TaskPicker.class);
+        TaskRecord firstTask = TaskRecord.builder().withId(1L).build();
+        TaskRecord secondTask = TaskRecord.builder().withId(2L).build();
+        when(taskPicker.pickTask()).thenReturn(firstTask);
+        TaskProcessor taskProcessor = mock(TaskProcessor.class);
+        BooleanSupplier pickNextCondition = () -> true;
+        when(taskProcessor.processTaskAndPickNext(queueConsumer, firstTask, taskPicker, pickNextCondition))
+                .thenReturn(secondTask);
+
+        QueueRunnerInSeparateTransactions queueRunner = new QueueRunnerInSeparateTransactions(taskPicker, taskProcessor);
+        assertThat(queueRunner.runQueue(queueConsumer, pickNextCondition), equalTo(QueueProcessingStatus.PROCESSED));
+
+        verify(taskPicker, times(1)).pickTask();
+        verify(taskProcessor).processTaskAndPickNext(queueConsumer, secondTask, taskPicker, pickNextCondition);
+    }
+
+}
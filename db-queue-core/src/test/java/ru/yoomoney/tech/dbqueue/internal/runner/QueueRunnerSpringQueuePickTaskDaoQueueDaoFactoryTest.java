@@ -105,6 +105,22 @@ public class QueueRunnerSpringQueuePickTaskDaoQueueDaoFactoryTest {
         assertThat(queueRunner, CoreMatchers.instanceOf(QueueRunnerInSeparateTransactions.class));
     }
 
+    @Test
+    public void should_return_separate_transactions_runner_when_at_most_once() throws Exception {
+        QueueConsumer queueConsumer = mock(QueueConsumer.class);
+        QueueSettings settings = TestFixtures.createQueueSettings().withProcessingSettings(
+                TestFixtures.createProcessingSettings().withProcessingMode(ProcessingMode.AT_MOST_ONCE).build()).build();
+        QueueLocation location = QueueLocation.builder().withTableName("testTable")
+                .withQueueId(new QueueId("testQueue")).build();
+        when(queueConsumer.getQueueConfig()).thenReturn(new QueueConfig(location, settings));
+
+        QueueRunner queueRunner = QueueRunner.Factory.create(queueConsumer,
+                new QueueShard<>(new QueueShardId("s1"), new StubDatabaseAccessLayer()),
+                mock(TaskLifecycleListener.class));
+
+        assertThat(queueRunner, CoreMatchers.instanceOf(QueueRunnerInSeparateTransactions.class));
+    }
+
     @Test
     public void should_return_wrap_in_transaction_runner() throws Exception {
         QueueConsumer queueConsumer = mock(QueueConsumer.class);
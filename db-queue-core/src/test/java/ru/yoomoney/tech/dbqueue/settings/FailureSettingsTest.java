@@ -32,4 +32,26 @@ public class FailureSettingsTest {
         assertThat(diff, equalTo(Optional.of("failureSettings(retryType=ARITHMETIC_BACKOFF<GEOMETRIC_BACKOFF,retryInterval=PT5S<PT1S)")));
         assertThat(oldValue, equalTo(newValue));
     }
+
+    @Test
+    public void should_set_lease_duration() {
+        FailureSettings oldValue = FailureSettings.builder()
+                .withRetryType(FailRetryType.LINEAR_BACKOFF)
+                .withRetryInterval(Duration.ofHours(1)).build();
+        FailureSettings newValue = FailureSettings.builder()
+                .withRetryType(FailRetryType.LINEAR_BACKOFF)
+                .withRetryInterval(Duration.ofHours(1))
+                .withLeaseDuration(Duration.ofSeconds(10)).build();
+        Optional<String> diff = oldValue.setValue(newValue);
+        assertThat(diff, equalTo(Optional.of("failureSettings(leaseDuration=PT10S<null)")));
+        assertThat(oldValue.getLeaseDuration(), equalTo(Optional.of(Duration.ofSeconds(10))));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void should_not_accept_subsecond_lease() {
+        FailureSettings.builder()
+                .withRetryType(FailRetryType.LINEAR_BACKOFF)
+                .withRetryInterval(Duration.ofHours(1))
+                .withLeaseDuration(Duration.ofMillis(500)).build();
+    }
 }
\ No newline at end of file
@@ -5,6 +5,7 @@ import nl.jqno.equalsverifier.Warning;
 import org.junit.Test;
 
 import java.time.Duration;
+import java.util.Collections;
 import java.util.Optional;
 
 import static org.hamcrest.CoreMatchers.equalTo;
@@ -25,9 +26,17 @@ public class PollSettingsTest {
         PollSettings oldValue = PollSettings.builder().withBetweenTaskTimeout(Duration.ofSeconds(1))
                 .withNoTaskTimeout(Duration.ofSeconds(2)).withFatalCrashTimeout(Duration.ofSeconds(3)).build();
         PollSettings newValue = PollSettings.builder().withBetweenTaskTimeout(Duration.ofSeconds(4))
-                .withNoTaskTimeout(Duration.ofSeconds(5)).withFatalCrashTimeout(Duration.ofSeconds(6)).build();
+                .withNoTaskTimeout(Duration.ofSeconds(5)).withFatalCrashTimeout(Duration.ofSeconds(6))
+                .withPriorityWeights(Collections.singletonMap(10, 3)).withKeyConcurrencyLimit(2).build();
         Optional<String> diff = oldValue.setValue(newValue);
-        assertThat(diff, equalTo(Optional.of("pollSettings(betweenTaskTimeout=PT4S<PT1S,noTaskTimeout=PT5S<PT2S,fatalCrashTimeout=PT6S<PT3S)")));
+        assertThat(diff, equalTo(Optional.of("pollSettings(betweenTaskTimeout=PT4S<PT1S,noTaskTimeout=PT5S<PT2S,fatalCrashTimeout=PT6S<PT3S,priorityWeights={10=3}<{},keyConcurrencyLimit=2<null)")));
         assertThat(oldValue, equalTo(newValue));
     }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void should_not_combine_key_concurrency_limit_with_key_ordering() {
+        PollSettings.builder().withBetweenTaskTimeout(Duration.ofSeconds(1))
+                .withNoTaskTimeout(Duration.ofSeconds(2)).withFatalCrashTimeout(Duration.ofSeconds(3))
+                .withKeyConcurrencyLimit(1).withOrderedByKey(true).build();
+    }
 }
\ No newline at end of file
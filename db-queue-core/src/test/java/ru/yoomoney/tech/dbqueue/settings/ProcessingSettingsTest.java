@@ -29,4 +29,59 @@ public class ProcessingSettingsTest {
         assertThat(diff, equalTo(Optional.of("processingSettings(threadCount=0<1,processingMode=SEPARATE_TRANSACTIONS<USE_EXTERNAL_EXECUTOR)")));
         assertThat(oldValue, equalTo(newValue));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void should_set_scheduling_value() {
+        ProcessingSettings oldValue = ProcessingSettings.builder()
+                .withProcessingMode(ProcessingMode.SEPARATE_TRANSACTIONS).withThreadCount(2).build();
+        ProcessingSettings newValue = ProcessingSettings.builder()
+                .withProcessingMode(ProcessingMode.SEPARATE_TRANSACTIONS).withThreadCount(2)
+                .withSchedulingWeight(3).withMinThreadCount(1).build();
+        Optional<String> diff = oldValue.setValue(newValue);
+        assertThat(diff, equalTo(Optional.of("processingSettings(schedulingWeight=3<1,minThreadCount=1<0)")));
+        assertThat(oldValue, equalTo(newValue));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void should_not_allow_min_thread_count_above_thread_count() {
+        ProcessingSettings.builder()
+                .withProcessingMode(ProcessingMode.SEPARATE_TRANSACTIONS).withThreadCount(1)
+                .withMinThreadCount(2).build();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void should_not_allow_max_thread_count_below_thread_count() {
+        ProcessingSettings.builder()
+                .withProcessingMode(ProcessingMode.SEPARATE_TRANSACTIONS).withThreadCount(2)
+                .withMaxThreadCount(1).build();
+    }
+
+    @Test
+    public void should_copy_settings_to_builder() {
+        ProcessingSettings settings = ProcessingSettings.builder()
+                .withProcessingMode(ProcessingMode.SEPARATE_TRANSACTIONS).withThreadCount(2)
+                .withSchedulingWeight(3).withMinThreadCount(1).withMaxThreadCount(5)
+                .withRateLimit(10.0).withRateLimitTable("queue_rate_limits").withCrossShardThreads(true).build();
+        assertThat(settings.toBuilder().build(), equalTo(settings));
+        assertThat(settings.toBuilder().withThreadCount(4).build().getMaxThreadCount(), equalTo(Optional.of(5)));
+    }
+
+    @Test
+    public void should_set_rate_limit_value() {
+        ProcessingSettings oldValue = ProcessingSettings.builder()
+                .withProcessingMode(ProcessingMode.SEPARATE_TRANSACTIONS).withThreadCount(1).build();
+        ProcessingSettings newValue = ProcessingSettings.builder()
+                .withProcessingMode(ProcessingMode.SEPARATE_TRANSACTIONS).withThreadCount(1)
+                .withRateLimit(10.0).withRateLimitTable("queue_rate_limits").build();
+        Optional<String> diff = oldValue.setValue(newValue);
+        assertThat(diff, equalTo(Optional.of("processingSettings(rateLimit=10.0<null,rateLimitTable=queue_rate_limits<null)")));
+        assertThat(oldValue.getRateLimit(), equalTo(Optional.of(10.0)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void should_not_allow_rate_limit_table_without_rate_limit() {
+        ProcessingSettings.builder()
+                .withProcessingMode(ProcessingMode.SEPARATE_TRANSACTIONS).withThreadCount(1)
+                .withRateLimitTable("queue_rate_limits").build();
+    }
+}
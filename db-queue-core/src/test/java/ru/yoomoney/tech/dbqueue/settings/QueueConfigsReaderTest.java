@@ -106,9 +106,19 @@ public class QueueConfigsReaderTest {
                 "q.testQueue.between-task-timeout=PT0.1S",
                 "q.testQueue.no-task-timeout=PT5S",
                 "q.testQueue.fatal-crash-timeout=PT1H",
+                "q.testQueue.priority-weights=10:3,0:1",
+                "q.testQueue.ordered-by-key=false",
+                "q.testQueue.key-concurrency-limit=2",
                 "q.testQueue.thread-count=3",
+                "q.testQueue.scheduling-weight=2",
+                "q.testQueue.min-thread-count=1",
+                "q.testQueue.max-thread-count=10",
+                "q.testQueue.rate-limit=2.5",
+                "q.testQueue.rate-limit-table=queue_rate_limits",
+                "q.testQueue.cross-shard-threads=true",
                 "q.testQueue.retry-type=linear",
                 "q.testQueue.retry-interval=PT30S",
+                "q.testQueue.lease-duration=PT10S",
                 "q.testQueue.reenqueue-retry-type=fixed",
                 "q.testQueue.reenqueue-retry-plan=PT1S,PT2S",
                 "q.testQueue.reenqueue-retry-delay=PT5S",
@@ -126,15 +136,27 @@ public class QueueConfigsReaderTest {
                                 .withProcessingSettings(ProcessingSettings.builder()
                                         .withThreadCount(3)
                                         .withProcessingMode(ProcessingMode.USE_EXTERNAL_EXECUTOR)
+                                        .withSchedulingWeight(2)
+                                        .withMinThreadCount(1)
+                                        .withMaxThreadCount(10)
+                                        .withRateLimit(2.5)
+                                        .withRateLimitTable("queue_rate_limits")
+                                        .withCrossShardThreads(true)
                                         .build())
                                 .withPollSettings(PollSettings.builder()
                                         .withBetweenTaskTimeout(Duration.ofMillis(100L))
                                         .withNoTaskTimeout(Duration.ofSeconds(5L))
                                         .withFatalCrashTimeout(Duration.ofHours(1))
+                                        .withPriorityWeights(new LinkedHashMap<Integer, Integer>() {{
+                                            put(10, 3);
+                                            put(0, 1);
+                                        }})
+                                        .withKeyConcurrencyLimit(2)
                                         .build())
                                 .withFailureSettings(FailureSettings.builder()
                                         .withRetryType(FailRetryType.LINEAR_BACKOFF)
                                         .withRetryInterval(Duration.ofSeconds(30))
+                                        .withLeaseDuration(Duration.ofSeconds(10))
                                         .build())
                                 .withReenqueueSettings(ReenqueueSettings.builder()
                                         .withRetryType(ReenqueueRetryType.FIXED)
@@ -241,6 +263,24 @@ public class QueueConfigsReaderTest {
                         .withFatalCrashTimeout(Duration.ofSeconds(2L)).build()));
     }
 
+    @Test
+    public void should_override_file_config_with_given_settings() throws Exception {
+        Path path = write(
+                "q.testQueue.table=foo",
+                "q.testQueue.between-task-timeout=PT0.1S",
+                "q.testQueue.no-task-timeout=PT5S");
+        QueueConfigsReader queueConfigsReader = createReader(path);
+        LinkedHashMap<String, String> overrideSettings = new LinkedHashMap<>();
+        overrideSettings.put("q.testQueue.no-task-timeout", "PT10S");
+        overrideSettings.put("q.testQueue.fatal-crash-timeout", "PT2S");
+        List<QueueConfig> configs = queueConfigsReader.parse(overrideSettings);
+        assertThat(configs.get(0).getSettings().getPollSettings(), equalTo(
+                PollSettings.builder()
+                        .withBetweenTaskTimeout(Duration.ofMillis(100L))
+                        .withNoTaskTimeout(Duration.ofSeconds(10L))
+                        .withFatalCrashTimeout(Duration.ofSeconds(2L)).build()));
+    }
+
     @Test
     public void should_check_file_existence() throws Exception {
         thrown.expect(IllegalArgumentException.class);
@@ -371,7 +411,12 @@ public class QueueConfigsReaderTest {
                 "q.testQueue3.table=foo",
                 "q.testQueue3.between-task-timeout=PT0S",
                 "q.testQueue3.no-task-timeout=PT0S",
-                "q.testQueue3.processing-mode=use-external-executor"
+                "q.testQueue3.processing-mode=use-external-executor",
+
+                "q.testQueue4.table=foo",
+                "q.testQueue4.between-task-timeout=PT0S",
+                "q.testQueue4.no-task-timeout=PT0S",
+                "q.testQueue4.processing-mode=at-most-once"
         );
         QueueConfigsReader queueConfigsReader = createReader(path);
         Collection<QueueConfig> configs = queueConfigsReader.parse();
@@ -382,6 +427,7 @@ public class QueueConfigsReaderTest {
                     put("testQueue1", ProcessingMode.SEPARATE_TRANSACTIONS);
                     put("testQueue2", ProcessingMode.WRAP_IN_TRANSACTION);
                     put("testQueue3", ProcessingMode.USE_EXTERNAL_EXECUTOR);
+                    put("testQueue4", ProcessingMode.AT_MOST_ONCE);
                 }}));
     }
 
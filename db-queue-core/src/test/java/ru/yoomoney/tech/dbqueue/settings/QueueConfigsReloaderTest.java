@@ -3,6 +3,10 @@ package ru.yoomoney.tech.dbqueue.settings;
 import org.junit.BeforeClass;
 import org.junit.Test;
 import ru.yoomoney.tech.dbqueue.config.QueueService;
+import ru.yoomoney.tech.dbqueue.config.QueueShard;
+import ru.yoomoney.tech.dbqueue.config.QueueShardId;
+import ru.yoomoney.tech.dbqueue.dao.QueueSettingsDao;
+import ru.yoomoney.tech.dbqueue.stub.StubDatabaseAccessLayer;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
@@ -15,13 +19,17 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.atLeast;
 import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
 
 public class QueueConfigsReloaderTest {
 
@@ -88,4 +96,29 @@ public class QueueConfigsReloaderTest {
         verify(reader, atLeast(2)).parse();
         verify(queueService, atLeastOnce()).updateQueueConfigs(eq(queueConfigs));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void should_reload_configs_when_settings_table_version_changed() throws Exception {
+        Path configPath = write("q.testname.table=foo");
+
+        QueueService queueService = mock(QueueService.class);
+        QueueConfigsReader reader = spy(createReader(Collections.singletonList(configPath)));
+        QueueSettingsDao settingsDao = mock(QueueSettingsDao.class);
+        StubDatabaseAccessLayer databaseAccessLayer = spy(new StubDatabaseAccessLayer());
+        doReturn(settingsDao).when(databaseAccessLayer).getQueueSettingsDao();
+        when(settingsDao.getSettingsVersion("queue_settings")).thenReturn(1L, 1L, 2L);
+        when(settingsDao.loadSettings("queue_settings"))
+                .thenReturn(Collections.singletonMap("q.testname.thread-count", "1"));
+
+        QueueConfigsReloader reloader = new QueueConfigsReloader(reader, queueService,
+                Collections.singletonList(new QueueShard<>(new QueueShardId("s1"), databaseAccessLayer)),
+                "queue_settings", Duration.ofHours(1L));
+        reloader.pollSettingsTable();
+        reloader.pollSettingsTable();
+        reloader.pollSettingsTable();
+
+        verify(settingsDao, times(2)).loadSettings("queue_settings");
+        verify(reader, times(2)).parse(eq(Collections.singletonMap("q.testname.thread-count", "1")));
+        verify(queueService, times(2)).updateQueueConfigs(any());
+    }
+}
@@ -0,0 +1,32 @@
+package ru.yoomoney.tech.dbqueue.jdbc.dao;
+
+import javax.annotation.Nonnull;
+import java.sql.SQLException;
+
+/**
+ * Unchecked exception, which wraps an {@link SQLException} thrown by the JDBC driver
+ *
+ * @author Oleg Kandaurov
+ * @since 19.10.2026
+ */
+public class JdbcDataAccessException extends RuntimeException {
+
+    /**
+     * Constructor
+     *
+     * @param message message of the exception
+     * @param cause   original exception of the JDBC driver
+     */
+    public JdbcDataAccessException(@Nonnull String message, @Nonnull SQLException cause) {
+        super(message, cause);
+    }
+
+    /**
+     * Get SQL state of the original exception
+     *
+     * @return SQL state
+     */
+    public String getSqlState() {
+        return ((SQLException) getCause()).getSQLState();
+    }
+}
@@ -0,0 +1,122 @@
+package ru.yoomoney.tech.dbqueue.jdbc.dao;
+
+import ru.yoomoney.tech.dbqueue.config.DatabaseAccessLayer;
+import ru.yoomoney.tech.dbqueue.config.DatabaseDialect;
+import ru.yoomoney.tech.dbqueue.config.QueueTableSchema;
+import ru.yoomoney.tech.dbqueue.dao.QueueDao;
+import ru.yoomoney.tech.dbqueue.dao.QueuePickTaskDao;
+import ru.yoomoney.tech.dbqueue.settings.FailureSettings;
+import ru.yoomoney.tech.dbqueue.settings.QueueId;
+import ru.yoomoney.tech.dbqueue.settings.QueueLocation;
+
+import javax.annotation.Nonnull;
+import javax.sql.DataSource;
+import java.util.Collection;
+import java.util.function.Supplier;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Class for interacting with database via plain JDBC without Spring.
+ * <p>
+ * Only {@link DatabaseDialect#POSTGRESQL} is supported.
+ *
+ * @author Oleg Kandaurov
+ * @since 19.10.2026
+ */
+public class JdbcDatabaseAccessLayer implements DatabaseAccessLayer {
+
+    @Nonnull
+    private final DatabaseDialect databaseDialect;
+    @Nonnull
+    private final QueueTableSchema queueTableSchema;
+    @Nonnull
+    private final JdbcTransactionManager transactionManager;
+    @Nonnull
+    private final QueueDao queueDao;
+
+    /**
+     * Constructor
+     *
+     * @param databaseDialect  Database type (dialect)
+     * @param queueTableSchema Queue table scheme.
+     * @param dataSource       Data source of the queue database.
+     */
+    public JdbcDatabaseAccessLayer(@Nonnull DatabaseDialect databaseDialect,
+                                   @Nonnull QueueTableSchema queueTableSchema,
+                                   @Nonnull DataSource dataSource) {
+        this.databaseDialect = requireNonNull(databaseDialect);
+        this.queueTableSchema = requireNonNull(queueTableSchema);
+        this.transactionManager = new JdbcTransactionManager(requireNonNull(dataSource));
+        switch (databaseDialect) {
+            case POSTGRESQL:
+                this.queueDao = new PostgresJdbcQueueDao(transactionManager, queueTableSchema);
+                break;
+            default:
+                throw new IllegalArgumentException("unsupported database kind: " + databaseDialect);
+        }
+    }
+
+    @Override
+    @Nonnull
+    public QueueDao getQueueDao() {
+        return queueDao;
+    }
+
+    @Override
+    @Nonnull
+    public QueuePickTaskDao createQueuePickTaskDao(@Nonnull QueueLocation queueLocation,
+                                                   @Nonnull FailureSettings failureSettings) {
+        requireNonNull(queueLocation);
+        requireNonNull(failureSettings);
+        return new PostgresJdbcQueuePickTaskDao(transactionManager, queueTableSchema, queueLocation, failureSettings);
+    }
+
+    @Nonnull
+    @Override
+    public QueuePickTaskDao createQueueGroupPickTaskDao(@Nonnull QueueLocation groupLocation,
+                                                        @Nonnull Collection<QueueId> queueIds,
+                                                        @Nonnull FailureSettings failureSettings) {
+        requireNonNull(groupLocation);
+        requireNonNull(queueIds);
+        requireNonNull(failureSettings);
+        return new PostgresJdbcQueuePickTaskDao(transactionManager, queueTableSchema, groupLocation, queueIds,
+                failureSettings);
+    }
+
+    @Nonnull
+    @Override
+    public DatabaseDialect getDatabaseDialect() {
+        return databaseDialect;
+    }
+
+    @Nonnull
+    @Override
+    public QueueTableSchema getQueueTableSchema() {
+        return queueTableSchema;
+    }
+
+    @Override
+    public <T> T transact(@Nonnull Supplier<T> supplier) {
+        return transactionManager.transact(supplier);
+    }
+
+    @Override
+    public void transact(@Nonnull Runnable runnable) {
+        requireNonNull(runnable);
+        transact(() -> {
+            runnable.run();
+            return null;
+        });
+    }
+
+    /**
+     * Get transaction manager, which lets application code join the transactions of the queue.
+     *
+     * @return transaction manager of the queue database
+     */
+    @Nonnull
+    public JdbcTransactionManager getTransactionManager() {
+        return transactionManager;
+    }
+}
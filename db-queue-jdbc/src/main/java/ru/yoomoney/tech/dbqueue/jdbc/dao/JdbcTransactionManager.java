@@ -0,0 +1,122 @@
+package ru.yoomoney.tech.dbqueue.jdbc.dao;
+
+import javax.annotation.Nonnull;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.function.Supplier;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Transaction handling on top of a {@link DataSource}.
+ * <p>
+ * Transaction connection is bound to the current thread.
+ * Nested transactions join the outer transaction.
+ * Statements outside a transaction are executed on a separate connection in auto-commit mode.
+ *
+ * @author Oleg Kandaurov
+ * @since 19.10.2026
+ */
+public class JdbcTransactionManager {
+
+    @Nonnull
+    private final DataSource dataSource;
+    private final ThreadLocal<Connection> transactionConnection = new ThreadLocal<>();
+
+    /**
+     * Constructor
+     *
+     * @param dataSource data source of the queue database
+     */
+    public JdbcTransactionManager(@Nonnull DataSource dataSource) {
+        this.dataSource = requireNonNull(dataSource);
+    }
+
+    /**
+     * Call the supplier in a transaction.
+     * <p>
+     * Transaction is committed when the supplier returns and rolled back when it throws.
+     *
+     * @param supplier  code to call in the transaction
+     * @param <ResultT> type of the result
+     * @return result of the supplier
+     */
+    public <ResultT> ResultT transact(@Nonnull Supplier<ResultT> supplier) {
+        requireNonNull(supplier);
+        if (transactionConnection.get() != null) {
+            return supplier.get();
+        }
+        try (Connection connection = dataSource.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            if (autoCommit) {
+                connection.setAutoCommit(false);
+            }
+            transactionConnection.set(connection);
+            try {
+                ResultT result = supplier.get();
+                connection.commit();
+                return result;
+            } catch (RuntimeException | Error exc) {
+                rollback(connection, exc);
+                throw exc;
+            } finally {
+                transactionConnection.remove();
+                if (autoCommit) {
+                    connection.setAutoCommit(true);
+                }
+            }
+        } catch (SQLException exc) {
+            throw new JdbcDataAccessException("cannot execute transaction", exc);
+        }
+    }
+
+    /**
+     * Execute the callback on the connection of the current transaction
+     * or on a new connection when there is no transaction.
+     *
+     * @param callback  code to execute
+     * @param <ResultT> type of the result
+     * @return result of the callback
+     */
+    public <ResultT> ResultT execute(@Nonnull ConnectionCallback<ResultT> callback) {
+        requireNonNull(callback);
+        Connection connection = transactionConnection.get();
+        try {
+            if (connection != null) {
+                return callback.doInConnection(connection);
+            }
+            try (Connection autoCommitConnection = dataSource.getConnection()) {
+                return callback.doInConnection(autoCommitConnection);
+            }
+        } catch (SQLException exc) {
+            throw new JdbcDataAccessException("cannot execute statement: " + exc.getMessage(), exc);
+        }
+    }
+
+    private static void rollback(@Nonnull Connection connection, @Nonnull Throwable cause) {
+        try {
+            connection.rollback();
+        } catch (SQLException exc) {
+            cause.addSuppressed(exc);
+        }
+    }
+
+    /**
+     * Code which works with a JDBC connection
+     *
+     * @param <ResultT> type of the result
+     */
+    @FunctionalInterface
+    public interface ConnectionCallback<ResultT> {
+
+        /**
+         * Work with the connection
+         *
+         * @param connection connection to the database
+         * @return result of the work
+         * @throws SQLException when database access failed
+         */
+        ResultT doInConnection(@Nonnull Connection connection) throws SQLException;
+    }
+}
@@ -0,0 +1,282 @@
+package ru.yoomoney.tech.dbqueue.jdbc.dao;
+
+import ru.yoomoney.tech.dbqueue.api.EnqueueParams;
+import ru.yoomoney.tech.dbqueue.config.QueueTableSchema;
+import ru.yoomoney.tech.dbqueue.dao.EnqueueOutcome;
+import ru.yoomoney.tech.dbqueue.dao.QueueDao;
+import ru.yoomoney.tech.dbqueue.settings.QueueLocation;
+
+import javax.annotation.Nonnull;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Database access object to manage tasks in the queue for PostgreSQL database type via plain JDBC.
+ *
+ * @author Oleg Kandaurov
+ * @since 19.10.2026
+ */
+public class PostgresJdbcQueueDao implements QueueDao {
+
+    /**
+     * Limit of attempts to insert a task with a deduplication key,
+     * when existing task with the same key is removed concurrently
+     */
+    private static final int MAX_ENQUEUE_IF_ABSENT_ATTEMPTS = 3;
+
+    private final Map<QueueLocation, String> enqueueSqlCache = new ConcurrentHashMap<>();
+    private final Map<QueueLocation, String> enqueueIfAbsentSqlCache = new ConcurrentHashMap<>();
+    private final Map<QueueLocation, String> selectByDeduplicationKeySqlCache = new ConcurrentHashMap<>();
+    private final Map<QueueLocation, String> coalesceSqlCache = new ConcurrentHashMap<>();
+    private final Map<QueueLocation, String> deleteSqlCache = new ConcurrentHashMap<>();
+    private final Map<QueueLocation, String> reenqueueSqlCache = new ConcurrentHashMap<>();
+    private final Map<QueueLocation, String> countSqlCache = new ConcurrentHashMap<>();
+
+    @Nonnull
+    private final JdbcTransactionManager transactionManager;
+    @Nonnull
+    private final QueueTableSchema queueTableSchema;
+
+    /**
+     * Constructor
+     *
+     * @param transactionManager Transaction manager of the queue database.
+     * @param queueTableSchema   Queue table scheme.
+     */
+    public PostgresJdbcQueueDao(@Nonnull JdbcTransactionManager transactionManager,
+                                @Nonnull QueueTableSchema queueTableSchema) {
+        this.transactionManager = requireNonNull(transactionManager);
+        this.queueTableSchema = requireNonNull(queueTableSchema);
+    }
+
+    @Override
+    public long enqueue(@Nonnull QueueLocation location, @Nonnull EnqueueParams<String> enqueueParams) {
+        requireNonNull(location);
+        requireNonNull(enqueueParams);
+        return queryForIds(enqueueSqlCache.computeIfAbsent(location, this::createEnqueueSql),
+                ps -> bindEnqueueParams(ps, location, enqueueParams)).get(0);
+    }
+
+    @Nonnull
+    @Override
+    public EnqueueOutcome enqueueIfAbsent(@Nonnull QueueLocation location,
+                                          @Nonnull EnqueueParams<String> enqueueParams) {
+        requireNonNull(location);
+        requireNonNull(enqueueParams);
+        if (!queueTableSchema.getDeduplicationKeyField().isPresent()) {
+            throw new IllegalStateException("deduplication key field is not configured in queue table schema");
+        }
+        String deduplicationKey = enqueueParams.getDeduplicationKey()
+                .orElseThrow(() -> new IllegalArgumentException("deduplication key is not set: location=" + location));
+        for (int attempt = 0; attempt < MAX_ENQUEUE_IF_ABSENT_ATTEMPTS; attempt++) {
+            List<Long> insertedIds = queryForIds(
+                    enqueueIfAbsentSqlCache.computeIfAbsent(location, this::createEnqueueIfAbsentSql),
+                    ps -> bindEnqueueParams(ps, location, enqueueParams));
+            if (!insertedIds.isEmpty()) {
+                return EnqueueOutcome.created(insertedIds.get(0));
+            }
+            List<Long> existingIds = queryForIds(
+                    selectByDeduplicationKeySqlCache.computeIfAbsent(location, this::createSelectByDeduplicationKeySql),
+                    ps -> {
+                        ps.setString(1, location.getQueueId().asString());
+                        ps.setString(2, deduplicationKey);
+                    });
+            if (!existingIds.isEmpty()) {
+                return EnqueueOutcome.duplicate(existingIds.get(0));
+            }
+        }
+        throw new IllegalStateException("cannot enqueue task with deduplication key: location=" + location +
+                ", deduplicationKey=" + deduplicationKey);
+    }
+
+    @Nonnull
+    @Override
+    public EnqueueOutcome enqueueOrCoalesce(@Nonnull QueueLocation location,
+                                            @Nonnull EnqueueParams<String> enqueueParams) {
+        requireNonNull(location);
+        requireNonNull(enqueueParams);
+        if (!queueTableSchema.getCoalescingKeyField().isPresent()) {
+            throw new IllegalStateException("coalescing key field is not configured in queue table schema");
+        }
+        String coalescingKey = enqueueParams.getCoalescingKey()
+                .orElseThrow(() -> new IllegalArgumentException("coalescing key is not set: location=" + location));
+        List<Long> coalescedIds = queryForIds(coalesceSqlCache.computeIfAbsent(location, this::createCoalesceSql),
+                ps -> {
+                    int index = 1;
+                    ps.setString(index++, location.getQueueId().asString());
+                    ps.setString(index++, coalescingKey);
+                    ps.setString(index++, enqueueParams.getPayload());
+                    ps.setLong(index++, enqueueParams.getExecutionDelay().getSeconds());
+                    for (String field : queueTableSchema.getExtFields()) {
+                        ps.setString(index++, enqueueParams.getExtData().get(field));
+                    }
+                });
+        if (!coalescedIds.isEmpty()) {
+            return EnqueueOutcome.coalesced(coalescedIds.get(0));
+        }
+        return EnqueueOutcome.created(enqueue(location, enqueueParams));
+    }
+
+    @Override
+    public boolean deleteTask(@Nonnull QueueLocation location, long taskId) {
+        requireNonNull(location);
+        int updatedRows = update(deleteSqlCache.computeIfAbsent(location, this::createDeleteSql), ps -> {
+            ps.setString(1, location.getQueueId().asString());
+            ps.setLong(2, taskId);
+        });
+        return updatedRows != 0;
+    }
+
+    @Override
+    public boolean reenqueue(@Nonnull QueueLocation location, long taskId, @Nonnull Duration executionDelay) {
+        requireNonNull(location);
+        requireNonNull(executionDelay);
+        int updatedRows = update(reenqueueSqlCache.computeIfAbsent(location, this::createReenqueueSql), ps -> {
+            ps.setLong(1, executionDelay.getSeconds());
+            ps.setLong(2, taskId);
+            ps.setString(3, location.getQueueId().asString());
+        });
+        return updatedRows != 0;
+    }
+
+    @Override
+    public long countTasks(@Nonnull QueueLocation location) {
+        requireNonNull(location);
+        return queryForIds(countSqlCache.computeIfAbsent(location, this::createCountSql),
+                ps -> ps.setString(1, location.getQueueId().asString())).get(0);
+    }
+
+    private void bindEnqueueParams(@Nonnull PreparedStatement ps,
+                                   @Nonnull QueueLocation location,
+                                   @Nonnull EnqueueParams<String> enqueueParams) throws SQLException {
+        int index = 1;
+        ps.setString(index++, location.getQueueId().asString());
+        ps.setString(index++, enqueueParams.getPayload());
+        ps.setLong(index++, enqueueParams.getExecutionDelay().getSeconds());
+        if (queueTableSchema.getDeduplicationKeyField().isPresent()) {
+            ps.setString(index++, enqueueParams.getDeduplicationKey().orElse(null));
+        }
+        if (queueTableSchema.getCoalescingKeyField().isPresent()) {
+            ps.setString(index++, enqueueParams.getCoalescingKey().orElse(null));
+        }
+        if (queueTableSchema.getPriorityField().isPresent()) {
+            ps.setInt(index++, enqueueParams.getPriority());
+        }
+        for (String field : queueTableSchema.getExtFields()) {
+            ps.setString(index++, enqueueParams.getExtData().get(field));
+        }
+    }
+
+    private List<Long> queryForIds(@Nonnull String sql, @Nonnull ParameterBinder binder) {
+        return transactionManager.execute(connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(sql)) {
+                binder.bind(ps);
+                try (ResultSet rs = ps.executeQuery()) {
+                    List<Long> ids = new ArrayList<>(1);
+                    while (rs.next()) {
+                        ids.add(rs.getLong(1));
+                    }
+                    return ids;
+                }
+            }
+        });
+    }
+
+    private int update(@Nonnull String sql, @Nonnull ParameterBinder binder) {
+        return transactionManager.execute(connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(sql)) {
+                binder.bind(ps);
+                return ps.executeUpdate();
+            }
+        });
+    }
+
+    private String createEnqueueSql(@Nonnull QueueLocation location) {
+        return createInsertSql(location, "");
+    }
+
+    private String createEnqueueIfAbsentSql(@Nonnull QueueLocation location) {
+        return createInsertSql(location, " ON CONFLICT DO NOTHING");
+    }
+
+    private String createSelectByDeduplicationKeySql(@Nonnull QueueLocation location) {
+        return "SELECT " + queueTableSchema.getIdField() + " FROM " + location.getTableName() +
+                " WHERE " + queueTableSchema.getQueueNameField() + " = ? AND " +
+                queueTableSchema.getDeduplicationKeyField().orElseThrow(IllegalStateException::new) + " = ?";
+    }
+
+    private String createCoalesceSql(@Nonnull QueueLocation location) {
+        return "WITH pending AS (SELECT " + queueTableSchema.getIdField() + " FROM " + location.getTableName() +
+                " WHERE " + queueTableSchema.getQueueNameField() + " = ?" +
+                " AND " + queueTableSchema.getCoalescingKeyField().orElseThrow(IllegalStateException::new) +
+                " = ? AND " + queueTableSchema.getAttemptField() + " = 0" +
+                " LIMIT 1 FOR UPDATE SKIP LOCKED) " +
+                "UPDATE " + location.getTableName() + " q SET " +
+                queueTableSchema.getPayloadField() + " = ?, " +
+                queueTableSchema.getNextProcessAtField() + " = now() + ? * INTERVAL '1 SECOND'" +
+                queueTableSchema.getExtFields().stream()
+                        .map(field -> ", " + field + " = ?").collect(Collectors.joining()) +
+                " FROM pending WHERE q." + queueTableSchema.getIdField() + " = pending." + queueTableSchema.getIdField() +
+                " RETURNING q." + queueTableSchema.getIdField();
+    }
+
+    private String createInsertSql(@Nonnull QueueLocation location, @Nonnull String conflictClause) {
+        return "INSERT INTO " + location.getTableName() + "(" +
+                (location.getIdSequence().map(ignored -> queueTableSchema.getIdField() + ",").orElse("")) +
+                queueTableSchema.getQueueNameField() + "," +
+                queueTableSchema.getPayloadField() + "," +
+                queueTableSchema.getNextProcessAtField() + "," +
+                queueTableSchema.getReenqueueAttemptField() + "," +
+                queueTableSchema.getTotalAttemptField() +
+                queueTableSchema.getDeduplicationKeyField().map(field -> "," + field).orElse("") +
+                queueTableSchema.getCoalescingKeyField().map(field -> "," + field).orElse("") +
+                queueTableSchema.getPriorityField().map(field -> "," + field).orElse("") +
+                (queueTableSchema.getExtFields().isEmpty() ? "" :
+                        queueTableSchema.getExtFields().stream().collect(Collectors.joining(", ", ", ", ""))) +
+                ") VALUES " +
+                "(" + location.getIdSequence().map(seq -> "nextval('" + seq + "'), ").orElse("") +
+                "?, ?, now() + ? * INTERVAL '1 SECOND', 0, 0" +
+                queueTableSchema.getDeduplicationKeyField().map(ignored -> ", ?").orElse("") +
+                queueTableSchema.getCoalescingKeyField().map(ignored -> ", ?").orElse("") +
+                queueTableSchema.getPriorityField().map(ignored -> ", ?").orElse("") +
+                queueTableSchema.getExtFields().stream().map(ignored -> ", ?").collect(Collectors.joining()) +
+                ")" + conflictClause + " RETURNING " + queueTableSchema.getIdField();
+    }
+
+    private String createDeleteSql(@Nonnull QueueLocation location) {
+        return "DELETE FROM " + location.getTableName() + " WHERE " + queueTableSchema.getQueueNameField() +
+                " = ? AND " + queueTableSchema.getIdField() + " = ?";
+    }
+
+    private String createCountSql(@Nonnull QueueLocation location) {
+        return "SELECT COUNT(*) FROM " + location.getTableName() + " WHERE " + queueTableSchema.getQueueNameField() +
+                " = ?";
+    }
+
+    private String createReenqueueSql(@Nonnull QueueLocation location) {
+        return "UPDATE " + location.getTableName() + " SET " + queueTableSchema.getNextProcessAtField() +
+                " = now() + ? * INTERVAL '1 SECOND', " +
+                queueTableSchema.getAttemptField() + " = 0, " +
+                queueTableSchema.getReenqueueAttemptField() +
+                " = " + queueTableSchema.getReenqueueAttemptField() + " + 1 " +
+                "WHERE " + queueTableSchema.getIdField() + " = ? AND " +
+                queueTableSchema.getQueueNameField() + " = ?";
+    }
+
+    /**
+     * Binds parameters of a prepared statement
+     */
+    @FunctionalInterface
+    private interface ParameterBinder {
+        void bind(@Nonnull PreparedStatement ps) throws SQLException;
+    }
+}
@@ -0,0 +1,326 @@
+package ru.yoomoney.tech.dbqueue.jdbc.dao;
+
+import ru.yoomoney.tech.dbqueue.api.TaskRecord;
+import ru.yoomoney.tech.dbqueue.config.QueueTableSchema;
+import ru.yoomoney.tech.dbqueue.dao.QueuePickTaskDao;
+import ru.yoomoney.tech.dbqueue.settings.FailRetryType;
+import ru.yoomoney.tech.dbqueue.settings.FailureSettings;
+import ru.yoomoney.tech.dbqueue.settings.QueueId;
+import ru.yoomoney.tech.dbqueue.settings.QueueLocation;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Database access object to pick tasks in the queue for PostgreSQL database type via plain JDBC.
+ *
+ * @author Oleg Kandaurov
+ * @since 19.10.2026
+ */
+public class PostgresJdbcQueuePickTaskDao implements QueuePickTaskDao {
+
+    /**
+     * Limit of candidate tasks, which keys are tried to be locked by a single pick with key limit
+     */
+    private static final int KEY_LOCK_CANDIDATES = 16;
+
+    private volatile PickTaskSqls pickTaskSqls;
+    private final JdbcTransactionManager transactionManager;
+    private final QueueTableSchema queueTableSchema;
+    private final String queueName;
+    @Nullable
+    private final List<String> groupQueueNames;
+
+    /**
+     * Constructor
+     *
+     * @param transactionManager transaction manager of the queue database
+     * @param queueTableSchema   table schema
+     * @param queueLocation      queue location
+     * @param failureSettings    failure settings
+     */
+    public PostgresJdbcQueuePickTaskDao(@Nonnull JdbcTransactionManager transactionManager,
+                                        @Nonnull QueueTableSchema queueTableSchema,
+                                        @Nonnull QueueLocation queueLocation,
+                                        @Nonnull FailureSettings failureSettings) {
+        this(transactionManager, queueTableSchema, queueLocation, failureSettings, null);
+    }
+
+    /**
+     * Constructor for DAO, which picks tasks of several queues in the same table
+     *
+     * @param transactionManager transaction manager of the queue database
+     * @param queueTableSchema   table schema
+     * @param groupLocation      location of the queue group
+     * @param queueIds           identifiers of the queues in the group
+     * @param failureSettings    failure settings
+     */
+    public PostgresJdbcQueuePickTaskDao(@Nonnull JdbcTransactionManager transactionManager,
+                                        @Nonnull QueueTableSchema queueTableSchema,
+                                        @Nonnull QueueLocation groupLocation,
+                                        @Nonnull Collection<QueueId> queueIds,
+                                        @Nonnull FailureSettings failureSettings) {
+        this(transactionManager, queueTableSchema, groupLocation, failureSettings,
+                requireNonNull(queueIds).stream().map(QueueId::asString).collect(Collectors.toList()));
+    }
+
+    private PostgresJdbcQueuePickTaskDao(@Nonnull JdbcTransactionManager transactionManager,
+                                         @Nonnull QueueTableSchema queueTableSchema,
+                                         @Nonnull QueueLocation queueLocation,
+                                         @Nonnull FailureSettings failureSettings,
+                                         @Nullable List<String> groupQueueNames) {
+        this.transactionManager = requireNonNull(transactionManager);
+        this.queueTableSchema = requireNonNull(queueTableSchema);
+        this.queueName = queueLocation.getQueueId().asString();
+        this.groupQueueNames = groupQueueNames;
+        this.pickTaskSqls = new PickTaskSqls(queueLocation, failureSettings);
+        failureSettings.registerObserver((oldValue, newValue) ->
+                pickTaskSqls = new PickTaskSqls(queueLocation, newValue));
+    }
+
+    @Override
+    @Nullable
+    public TaskRecord pickTask() {
+        PickTaskSqls sqls = pickTaskSqls;
+        return pickTask(sqls.pickTaskSql, sqls.retryInterval, null, null);
+    }
+
+    @Override
+    @Nullable
+    public TaskRecord pickTaskByPriority(int priority) {
+        PickTaskSqls sqls = pickTaskSqls;
+        if (sqls.pickTaskByPrioritySql == null) {
+            throw new UnsupportedOperationException("priority field is not configured in queue table schema");
+        }
+        return pickTask(sqls.pickTaskByPrioritySql, sqls.retryInterval, priority, null);
+    }
+
+    @Override
+    @Nullable
+    public TaskRecord pickTaskWithKeyLimit(@Nullable Integer priority, int keyConcurrencyLimit) {
+        PickTaskSqls sqls = pickTaskSqls;
+        String sql = priority == null ? sqls.pickTaskWithKeyLimitSql : sqls.pickTaskByPriorityWithKeyLimitSql;
+        if (sql == null) {
+            throw new UnsupportedOperationException("concurrency key field or priority field " +
+                    "is not configured in queue table schema");
+        }
+        return pickTask(sql, sqls.retryInterval, priority, keyConcurrencyLimit);
+    }
+
+    @Override
+    @Nullable
+    public TaskRecord pickTaskInKeyOrder(@Nullable Integer priority) {
+        PickTaskSqls sqls = pickTaskSqls;
+        String sql = priority == null ? sqls.pickTaskInKeyOrderSql : sqls.pickTaskByPriorityInKeyOrderSql;
+        if (sql == null) {
+            throw new UnsupportedOperationException("concurrency key field or priority field " +
+                    "is not configured in queue table schema");
+        }
+        return pickTask(sql, sqls.retryInterval, priority, null);
+    }
+
+    @Nullable
+    private TaskRecord pickTask(@Nonnull String sql, long retryInterval,
+                                @Nullable Integer priority, @Nullable Integer keyConcurrencyLimit) {
+        return transactionManager.execute(connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(sql)) {
+                int index = 1;
+                if (groupQueueNames != null) {
+                    ps.setArray(index++, connection.createArrayOf("text", groupQueueNames.toArray()));
+                } else {
+                    ps.setString(index++, queueName);
+                }
+                if (priority != null) {
+                    ps.setInt(index++, priority);
+                }
+                if (keyConcurrencyLimit != null) {
+                    ps.setInt(index++, keyConcurrencyLimit);
+                }
+                ps.setLong(index, retryInterval);
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (!rs.next()) {
+                        //noinspection ReturnOfNull
+                        return null;
+                    }
+                    return mapTaskRecord(rs);
+                }
+            }
+        });
+    }
+
+    private TaskRecord mapTaskRecord(@Nonnull ResultSet rs) throws SQLException {
+        Map<String, String> additionalData = new LinkedHashMap<>();
+        for (String field : queueTableSchema.getExtFields()) {
+            additionalData.put(field, rs.getString(field));
+        }
+        return TaskRecord.builder()
+                .withId(rs.getLong(queueTableSchema.getIdField()))
+                .withCreatedAt(getZonedDateTime(rs, queueTableSchema.getCreatedAtField()))
+                .withNextProcessAt(getZonedDateTime(rs, queueTableSchema.getNextProcessAtField()))
+                .withPayload(rs.getString(queueTableSchema.getPayloadField()))
+                .withAttemptsCount(rs.getLong(queueTableSchema.getAttemptField()))
+                .withReenqueueAttemptsCount(rs.getLong(queueTableSchema.getReenqueueAttemptField()))
+                .withTotalAttemptsCount(rs.getLong(queueTableSchema.getTotalAttemptField()))
+                .withPriority(queueTableSchema.getPriorityField().isPresent() ?
+                        rs.getInt(queueTableSchema.getPriorityField().get()) : 0)
+                .withQueueId(groupQueueNames != null ?
+                        new QueueId(rs.getString(queueTableSchema.getQueueNameField())) : null)
+                .withExtData(additionalData).build();
+    }
+
+    private ZonedDateTime getZonedDateTime(ResultSet rs, String time) throws SQLException {
+        return ZonedDateTime.ofInstant(rs.getTimestamp(time).toInstant(), ZoneId.systemDefault());
+    }
+
+    /**
+     * Condition, which picks only the oldest task of a concurrency key.
+     */
+    private String createKeyOrderCondition(@Nonnull QueueLocation location) {
+        String keyField = queueTableSchema.getConcurrencyKeyField().get();
+        return "  AND (t." + keyField + " IS NULL OR NOT EXISTS (" +
+                "SELECT 1 FROM " + location.getTableName() + " k " +
+                "WHERE k." + queueTableSchema.getQueueNameField() + " = t." + queueTableSchema.getQueueNameField() +
+                "  AND k." + keyField + " = t." + keyField +
+                "  AND k." + queueTableSchema.getIdField() + " < t." + queueTableSchema.getIdField() + ")) ";
+    }
+
+    /**
+     * Condition, which skips tasks with a saturated concurrency key.
+     * <p>
+     * With linear backoff only tasks postponed at most by the retry interval, i.e. by the lease, hold the key.
+     */
+    private String createKeyLimitCondition(@Nonnull QueueLocation location,
+                                           @Nonnull FailureSettings failureSettings) {
+        String keyField = queueTableSchema.getConcurrencyKeyField().get();
+        return "  AND (t." + keyField + " IS NULL OR (" +
+                "(SELECT COUNT(*) FROM " + location.getTableName() + " k " +
+                "WHERE k." + queueTableSchema.getQueueNameField() + " = t." + queueTableSchema.getQueueNameField() +
+                "  AND k." + keyField + " = t." + keyField +
+                "  AND k." + queueTableSchema.getAttemptField() + " > 0 " +
+                "  AND k." + queueTableSchema.getNextProcessAtField() + " > now() " +
+                (failureSettings.getRetryType() == FailRetryType.LINEAR_BACKOFF ?
+                        "  AND k." + queueTableSchema.getNextProcessAtField() + " <= now() + " +
+                                failureSettings.getRetryInterval().getSeconds() + " * INTERVAL '1 SECOND'" : "") +
+                ") < ?)) ";
+    }
+
+    /**
+     * Condition on the candidate tasks, which takes advisory lock on the key of a candidate.
+     * <p>
+     * The condition is applied to the candidates in the order of the pick only until the first task is taken,
+     * so only the key of the picked task is locked.
+     */
+    private String createKeyLockCondition() {
+        String keyField = queueTableSchema.getConcurrencyKeyField().get();
+        return "c." + keyField + " IS NULL OR pg_try_advisory_xact_lock(hashtext(c." +
+                queueTableSchema.getQueueNameField() + " || '/' || c." + keyField + "))";
+    }
+
+    private String createPickTaskSql(@Nonnull QueueLocation location, @Nonnull FailureSettings failureSettings,
+                                     boolean byPriority, @Nonnull String keyCondition) {
+        return createPickTaskSql(location, failureSettings, byPriority, keyCondition, false);
+    }
+
+    private String createPickTaskSql(@Nonnull QueueLocation location, @Nonnull FailureSettings failureSettings,
+                                     boolean byPriority, @Nonnull String keyCondition, boolean lockKey) {
+        String candidatesSql = "SELECT " + queueTableSchema.getIdField() +
+                (lockKey ? ", " + queueTableSchema.getQueueNameField() + ", " +
+                        queueTableSchema.getConcurrencyKeyField().get() : "") + " " +
+                "FROM " + location.getTableName() + " t " +
+                "WHERE " + queueTableSchema.getQueueNameField() +
+                (groupQueueNames != null ? " = ANY(?) " : " = ? ") +
+                "  AND " + queueTableSchema.getNextProcessAtField() + " <= now() " +
+                (byPriority ? "  AND " + queueTableSchema.getPriorityField().get() + " = ? " : "") +
+                keyCondition +
+                " ORDER BY " + queueTableSchema.getNextProcessAtField() + " ASC " +
+                "LIMIT " + (lockKey ? KEY_LOCK_CANDIDATES : 1) + " " +
+                "FOR UPDATE SKIP LOCKED";
+        return "WITH cte AS (" +
+                (lockKey ? "SELECT c." + queueTableSchema.getIdField() + " " +
+                        "FROM (" + candidatesSql + ") c " +
+                        "WHERE " + createKeyLockCondition() + " " +
+                        "LIMIT 1" : candidatesSql) + ") " +
+                "UPDATE " + location.getTableName() + " q " +
+                "SET " +
+                "  " + queueTableSchema.getNextProcessAtField() + " = " +
+                getNextProcessTimeSql(failureSettings.getRetryType()) + ", " +
+                "  " + queueTableSchema.getAttemptField() + " = " + queueTableSchema.getAttemptField() + " + 1, " +
+                "  " + queueTableSchema.getTotalAttemptField() + " = " + queueTableSchema.getTotalAttemptField() + " + 1 " +
+                "FROM cte " +
+                "WHERE q." + queueTableSchema.getIdField() + " = cte." + queueTableSchema.getIdField() + " " +
+                "RETURNING q." + queueTableSchema.getIdField() + ", " +
+                "q." + queueTableSchema.getPayloadField() + ", " +
+                "q." + queueTableSchema.getAttemptField() + ", " +
+                "q." + queueTableSchema.getReenqueueAttemptField() + ", " +
+                "q." + queueTableSchema.getTotalAttemptField() + ", " +
+                "q." + queueTableSchema.getCreatedAtField() + ", " +
+                "q." + queueTableSchema.getNextProcessAtField() +
+                queueTableSchema.getPriorityField().map(field -> ", q." + field).orElse("") +
+                (groupQueueNames != null ? ", q." + queueTableSchema.getQueueNameField() : "") +
+                (queueTableSchema.getExtFields().isEmpty() ? "" : queueTableSchema.getExtFields().stream()
+                        .map(field -> "q." + field).collect(Collectors.joining(", ", ", ", "")));
+    }
+
+    @Nonnull
+    private String getNextProcessTimeSql(@Nonnull FailRetryType failRetryType) {
+        requireNonNull(failRetryType);
+        switch (failRetryType) {
+            case GEOMETRIC_BACKOFF:
+                return "now() + power(2, " + queueTableSchema.getAttemptField() + ") * ? * INTERVAL '1 SECOND'";
+            case ARITHMETIC_BACKOFF:
+                return "now() + (1 + (" + queueTableSchema.getAttemptField() + " * 2)) * ? * INTERVAL '1 SECOND'";
+            case LINEAR_BACKOFF:
+                return "now() + ? * INTERVAL '1 SECOND'";
+            default:
+                throw new IllegalStateException("unknown retry type: " + failRetryType);
+        }
+    }
+
+    /**
+     * Pick queries built for the current failure settings
+     */
+    private class PickTaskSqls {
+        private final long retryInterval;
+        private final String pickTaskSql;
+        @Nullable
+        private final String pickTaskByPrioritySql;
+        @Nullable
+        private final String pickTaskWithKeyLimitSql;
+        @Nullable
+        private final String pickTaskByPriorityWithKeyLimitSql;
+        @Nullable
+        private final String pickTaskInKeyOrderSql;
+        @Nullable
+        private final String pickTaskByPriorityInKeyOrderSql;
+
+        PickTaskSqls(@Nonnull QueueLocation location, @Nonnull FailureSettings failureSettings) {
+            boolean hasPriority = queueTableSchema.getPriorityField().isPresent();
+            boolean hasKey = queueTableSchema.getConcurrencyKeyField().isPresent();
+            this.retryInterval = failureSettings.getRetryInterval().getSeconds();
+            this.pickTaskSql = createPickTaskSql(location, failureSettings, false, "");
+            this.pickTaskByPrioritySql = hasPriority ? createPickTaskSql(location, failureSettings, true, "") : null;
+            this.pickTaskWithKeyLimitSql = hasKey ?
+                    createPickTaskSql(location, failureSettings, false,
+                            createKeyLimitCondition(location, failureSettings), true) : null;
+            this.pickTaskByPriorityWithKeyLimitSql = hasKey && hasPriority ?
+                    createPickTaskSql(location, failureSettings, true,
+                            createKeyLimitCondition(location, failureSettings), true) : null;
+            this.pickTaskInKeyOrderSql = hasKey ?
+                    createPickTaskSql(location, failureSettings, false, createKeyOrderCondition(location)) : null;
+            this.pickTaskByPriorityInKeyOrderSql = hasKey && hasPriority ?
+                    createPickTaskSql(location, failureSettings, true, createKeyOrderCondition(location)) : null;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package ru.yoomoney.tech.dbqueue.jdbc.dao;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.UUID;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ * @author Oleg Kandaurov
+ * @since 19.10.2026
+ */
+public class JdbcTransactionManagerTest {
+
+    private static JdbcTransactionManager transactionManager;
+
+    @BeforeClass
+    public static void beforeClass() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        transactionManager = new JdbcTransactionManager(dataSource);
+        transactionManager.execute(connection -> connection.createStatement()
+                .execute("CREATE TABLE items (name VARCHAR(100))"));
+    }
+
+    @Test
+    public void should_commit_transaction() {
+        String name = UUID.randomUUID().toString();
+        transactionManager.transact(() -> insert(name));
+        assertThat(count(name), equalTo(1));
+    }
+
+    @Test
+    public void should_rollback_transaction_on_exception() {
+        String name = UUID.randomUUID().toString();
+        try {
+            transactionManager.transact(() -> {
+                insert(name);
+                throw new IllegalStateException("rollback");
+            });
+            fail("exception expected");
+        } catch (IllegalStateException exc) {
+            assertThat(exc.getMessage(), equalTo("rollback"));
+        }
+        assertThat(count(name), equalTo(0));
+    }
+
+    @Test
+    public void should_join_outer_transaction() {
+        String name = UUID.randomUUID().toString();
+        try {
+            transactionManager.transact(() -> {
+                transactionManager.transact(() -> insert(name));
+                assertThat(count(name), equalTo(1));
+                throw new IllegalStateException("rollback");
+            });
+            fail("exception expected");
+        } catch (IllegalStateException exc) {
+            assertThat(exc.getMessage(), equalTo("rollback"));
+        }
+        assertThat(count(name), equalTo(0));
+    }
+
+    @Test
+    public void should_wrap_sql_exception() {
+        try {
+            transactionManager.execute(connection -> connection.createStatement().execute("SELECT * FROM missing_items"));
+            fail("exception expected");
+        } catch (JdbcDataAccessException exc) {
+            assertThat(exc.getSqlState(), equalTo("42S02"));
+        }
+    }
+
+    private static int insert(String name) {
+        return transactionManager.execute(connection -> {
+            try (PreparedStatement ps = connection.prepareStatement("INSERT INTO items (name) VALUES (?)")) {
+                ps.setString(1, name);
+                return ps.executeUpdate();
+            }
+        });
+    }
+
+    private static int count(String name) {
+        return transactionManager.execute(connection -> {
+            try (PreparedStatement ps = connection.prepareStatement("SELECT COUNT(*) FROM items WHERE name = ?")) {
+                ps.setString(1, name);
+                try (ResultSet rs = ps.executeQuery()) {
+                    rs.next();
+                    return rs.getInt(1);
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,127 @@
+package ru.yoomoney.tech.dbqueue.jdbc.dao;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import ru.yoomoney.tech.dbqueue.api.EnqueueParams;
+import ru.yoomoney.tech.dbqueue.api.EnqueueStatus;
+import ru.yoomoney.tech.dbqueue.dao.EnqueueOutcome;
+import ru.yoomoney.tech.dbqueue.settings.QueueId;
+import ru.yoomoney.tech.dbqueue.settings.QueueLocation;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+import static ru.yoomoney.tech.dbqueue.jdbc.dao.utils.PostgresDatabaseInitializer.CUSTOM_SCHEMA;
+import static ru.yoomoney.tech.dbqueue.jdbc.dao.utils.PostgresDatabaseInitializer.CUSTOM_TABLE_NAME;
+import static ru.yoomoney.tech.dbqueue.jdbc.dao.utils.PostgresDatabaseInitializer.DEFAULT_SCHEMA;
+import static ru.yoomoney.tech.dbqueue.jdbc.dao.utils.PostgresDatabaseInitializer.DEFAULT_TABLE_NAME;
+import static ru.yoomoney.tech.dbqueue.jdbc.dao.utils.PostgresDatabaseInitializer.getDataSource;
+import static ru.yoomoney.tech.dbqueue.jdbc.dao.utils.PostgresDatabaseInitializer.initialize;
+import static ru.yoomoney.tech.dbqueue.jdbc.dao.utils.PostgresDatabaseInitializer.queryForObject;
+
+/**
+ * @author Oleg Kandaurov
+ * @since 19.10.2026
+ */
+public class PostgresJdbcQueueDaoTest {
+
+    @BeforeClass
+    public static void beforeClass() {
+        initialize();
+    }
+
+    private final JdbcTransactionManager transactionManager = new JdbcTransactionManager(getDataSource());
+    private final PostgresJdbcQueueDao defaultQueueDao = new PostgresJdbcQueueDao(transactionManager, DEFAULT_SCHEMA);
+    private final PostgresJdbcQueueDao customQueueDao = new PostgresJdbcQueueDao(transactionManager, CUSTOM_SCHEMA);
+
+    @Test
+    public void enqueue_should_save_all_values() {
+        QueueLocation location = generateUniqueLocation(DEFAULT_TABLE_NAME);
+        long enqueueId = transactionManager.transact(() -> defaultQueueDao.enqueue(location,
+                EnqueueParams.create("{}").withExecutionDelay(Duration.ofHours(1L))));
+        assertThat(queryForObject("select payload from " + DEFAULT_TABLE_NAME + " where id=" + enqueueId,
+                String.class), equalTo("{}"));
+        assertThat(queryForObject("select next_process_at > now() + interval '59 minutes' from " +
+                DEFAULT_TABLE_NAME + " where id=" + enqueueId, Boolean.class), equalTo(true));
+    }
+
+    @Test
+    public void enqueue_should_save_custom_fields() {
+        QueueLocation location = generateUniqueLocation(CUSTOM_TABLE_NAME);
+        long enqueueId = customQueueDao.enqueue(location, EnqueueParams.create("{}")
+                .withPriority(5)
+                .withExtData("trace", "abc"));
+        assertThat(queryForObject("select pr || '/' || trace from " + CUSTOM_TABLE_NAME + " where qid=" + enqueueId,
+                String.class), equalTo("5/abc"));
+    }
+
+    @Test
+    public void enqueue_if_absent_should_return_existing_task() {
+        QueueLocation location = generateUniqueLocation(CUSTOM_TABLE_NAME);
+        EnqueueOutcome created = customQueueDao.enqueueIfAbsent(location,
+                EnqueueParams.create("1").withDeduplicationKey("key"));
+        EnqueueOutcome duplicate = customQueueDao.enqueueIfAbsent(location,
+                EnqueueParams.create("2").withDeduplicationKey("key"));
+        assertThat(created.getStatus(), equalTo(EnqueueStatus.CREATED));
+        assertThat(duplicate.getStatus(), equalTo(EnqueueStatus.DUPLICATE));
+        assertThat(duplicate.getTaskId(), equalTo(created.getTaskId()));
+    }
+
+    @Test
+    public void enqueue_or_coalesce_should_update_pending_task() {
+        QueueLocation location = generateUniqueLocation(CUSTOM_TABLE_NAME);
+        EnqueueOutcome created = customQueueDao.enqueueOrCoalesce(location,
+                EnqueueParams.create("1").withCoalescingKey("key"));
+        EnqueueOutcome coalesced = transactionManager.transact(() -> customQueueDao.enqueueOrCoalesce(location,
+                EnqueueParams.create("2").withCoalescingKey("key")));
+        assertThat(coalesced.getStatus(), equalTo(EnqueueStatus.COALESCED));
+        assertThat(coalesced.getTaskId(), equalTo(created.getTaskId()));
+        assertThat(queryForObject("select pl from " + CUSTOM_TABLE_NAME + " where qid=" + created.getTaskId(),
+                String.class), equalTo("2"));
+    }
+
+    @Test
+    public void enqueue_batch_should_return_ids_in_order_of_params() {
+        QueueLocation location = generateUniqueLocation(DEFAULT_TABLE_NAME);
+        List<Long> enqueueIds = defaultQueueDao.enqueueBatch(location,
+                Arrays.asList(EnqueueParams.create("a"), EnqueueParams.create("b")));
+        assertThat(queryForObject("select payload from " + DEFAULT_TABLE_NAME + " where id=" + enqueueIds.get(1),
+                String.class), equalTo("b"));
+    }
+
+    @Test
+    public void delete_should_remove_task() {
+        QueueLocation location = generateUniqueLocation(DEFAULT_TABLE_NAME);
+        long enqueueId = defaultQueueDao.enqueue(location, new EnqueueParams<>());
+        assertThat(defaultQueueDao.deleteTask(location, enqueueId), equalTo(true));
+        assertThat(defaultQueueDao.deleteTask(location, enqueueId), equalTo(false));
+    }
+
+    @Test
+    public void reenqueue_should_reset_attempts() {
+        QueueLocation location = generateUniqueLocation(DEFAULT_TABLE_NAME);
+        long enqueueId = defaultQueueDao.enqueue(location, new EnqueueParams<>());
+        assertThat(defaultQueueDao.reenqueue(location, enqueueId, Duration.ofHours(1L)), equalTo(true));
+        assertThat(queryForObject("select reenqueue_attempt from " + DEFAULT_TABLE_NAME + " where id=" + enqueueId,
+                Integer.class), equalTo(1));
+        assertThat(defaultQueueDao.reenqueue(location, enqueueId + 1000, Duration.ZERO), equalTo(false));
+    }
+
+    @Test
+    public void count_should_return_tasks_of_queue() {
+        QueueLocation location = generateUniqueLocation(DEFAULT_TABLE_NAME);
+        defaultQueueDao.enqueue(location, new EnqueueParams<>());
+        defaultQueueDao.enqueue(location, new EnqueueParams<>());
+        defaultQueueDao.enqueue(generateUniqueLocation(DEFAULT_TABLE_NAME), new EnqueueParams<>());
+        assertThat(defaultQueueDao.countTasks(location), equalTo(2L));
+    }
+
+    private static QueueLocation generateUniqueLocation(String tableName) {
+        return QueueLocation.builder().withTableName(tableName)
+                .withQueueId(new QueueId("test-queue-" + UUID.randomUUID())).build();
+    }
+}
@@ -0,0 +1,142 @@
+package ru.yoomoney.tech.dbqueue.jdbc.dao;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import ru.yoomoney.tech.dbqueue.api.EnqueueParams;
+import ru.yoomoney.tech.dbqueue.api.TaskRecord;
+import ru.yoomoney.tech.dbqueue.settings.FailRetryType;
+import ru.yoomoney.tech.dbqueue.settings.FailureSettings;
+import ru.yoomoney.tech.dbqueue.settings.QueueId;
+import ru.yoomoney.tech.dbqueue.settings.QueueLocation;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.UUID;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static ru.yoomoney.tech.dbqueue.jdbc.dao.utils.PostgresDatabaseInitializer.CUSTOM_SCHEMA;
+import static ru.yoomoney.tech.dbqueue.jdbc.dao.utils.PostgresDatabaseInitializer.CUSTOM_TABLE_NAME;
+import static ru.yoomoney.tech.dbqueue.jdbc.dao.utils.PostgresDatabaseInitializer.DEFAULT_SCHEMA;
+import static ru.yoomoney.tech.dbqueue.jdbc.dao.utils.PostgresDatabaseInitializer.DEFAULT_TABLE_NAME;
+import static ru.yoomoney.tech.dbqueue.jdbc.dao.utils.PostgresDatabaseInitializer.executeSql;
+import static ru.yoomoney.tech.dbqueue.jdbc.dao.utils.PostgresDatabaseInitializer.getDataSource;
+import static ru.yoomoney.tech.dbqueue.jdbc.dao.utils.PostgresDatabaseInitializer.initialize;
+import static ru.yoomoney.tech.dbqueue.jdbc.dao.utils.PostgresDatabaseInitializer.queryForObject;
+
+/**
+ * @author Oleg Kandaurov
+ * @since 19.10.2026
+ */
+public class PostgresJdbcQueuePickTaskDaoTest {
+
+    @BeforeClass
+    public static void beforeClass() {
+        initialize();
+    }
+
+    private final JdbcTransactionManager transactionManager = new JdbcTransactionManager(getDataSource());
+    private final PostgresJdbcQueueDao defaultQueueDao = new PostgresJdbcQueueDao(transactionManager, DEFAULT_SCHEMA);
+    private final PostgresJdbcQueueDao customQueueDao = new PostgresJdbcQueueDao(transactionManager, CUSTOM_SCHEMA);
+
+    @Test
+    public void should_pick_task_and_increment_attempts() {
+        QueueLocation location = generateUniqueLocation(DEFAULT_TABLE_NAME);
+        long enqueueId = defaultQueueDao.enqueue(location, EnqueueParams.create("{}"));
+        PostgresJdbcQueuePickTaskDao pickTaskDao = new PostgresJdbcQueuePickTaskDao(transactionManager,
+                DEFAULT_SCHEMA, location, createFailureSettings());
+
+        TaskRecord taskRecord = transactionManager.transact(pickTaskDao::pickTask);
+
+        assertThat(taskRecord.getId(), equalTo(enqueueId));
+        assertThat(taskRecord.getPayload(), equalTo("{}"));
+        assertThat(taskRecord.getAttemptsCount(), equalTo(1L));
+        assertThat(taskRecord.getTotalAttemptsCount(), equalTo(1L));
+        assertThat(queryForObject("select next_process_at > now() + interval '50 seconds' from " +
+                DEFAULT_TABLE_NAME + " where id=" + enqueueId, Boolean.class), equalTo(true));
+        assertThat(transactionManager.transact(pickTaskDao::pickTask), nullValue());
+    }
+
+    @Test
+    public void should_not_pick_delayed_task() {
+        QueueLocation location = generateUniqueLocation(DEFAULT_TABLE_NAME);
+        defaultQueueDao.enqueue(location, EnqueueParams.create("{}").withExecutionDelay(Duration.ofHours(1L)));
+        PostgresJdbcQueuePickTaskDao pickTaskDao = new PostgresJdbcQueuePickTaskDao(transactionManager,
+                DEFAULT_SCHEMA, location, createFailureSettings());
+
+        assertThat(transactionManager.transact(pickTaskDao::pickTask), nullValue());
+    }
+
+    @Test
+    public void should_pick_task_by_priority() {
+        QueueLocation location = generateUniqueLocation(CUSTOM_TABLE_NAME);
+        customQueueDao.enqueue(location, EnqueueParams.create("low").withPriority(1));
+        customQueueDao.enqueue(location, EnqueueParams.create("high").withPriority(9).withExtData("trace", "t"));
+        PostgresJdbcQueuePickTaskDao pickTaskDao = new PostgresJdbcQueuePickTaskDao(transactionManager,
+                CUSTOM_SCHEMA, location, createFailureSettings());
+
+        TaskRecord taskRecord = transactionManager.transact(() -> pickTaskDao.pickTaskByPriority(9));
+
+        assertThat(taskRecord.getPayload(), equalTo("high"));
+        assertThat(taskRecord.getPriority(), equalTo(9));
+        assertThat(taskRecord.getExtData().get("trace"), equalTo("t"));
+    }
+
+    @Test
+    public void should_pick_task_with_key_limit() {
+        QueueLocation location = generateUniqueLocation(CUSTOM_TABLE_NAME);
+        customQueueDao.enqueue(location, EnqueueParams.create("1").withExtData("trace", "key"));
+        customQueueDao.enqueue(location, EnqueueParams.create("2").withExtData("trace", "key"));
+        PostgresJdbcQueuePickTaskDao pickTaskDao = new PostgresJdbcQueuePickTaskDao(transactionManager,
+                CUSTOM_SCHEMA, location, createFailureSettings());
+
+        assertThat(transactionManager.transact(() -> pickTaskDao.pickTaskWithKeyLimit(null, 1)).getPayload(),
+                equalTo("1"));
+        assertThat(transactionManager.transact(() -> pickTaskDao.pickTaskWithKeyLimit(null, 1)), nullValue());
+    }
+
+    @Test
+    public void should_not_count_failed_task_waiting_for_retry_against_key_limit() {
+        QueueLocation location = generateUniqueLocation(CUSTOM_TABLE_NAME);
+        long firstId = customQueueDao.enqueue(location, EnqueueParams.create("1").withExtData("trace", "key"));
+        customQueueDao.enqueue(location, EnqueueParams.create("2").withExtData("trace", "key"));
+        PostgresJdbcQueuePickTaskDao pickTaskDao = new PostgresJdbcQueuePickTaskDao(transactionManager,
+                CUSTOM_SCHEMA, location, createFailureSettings());
+
+        assertThat(transactionManager.transact(() -> pickTaskDao.pickTaskWithKeyLimit(null, 1)).getPayload(),
+                equalTo("1"));
+        executeSql("update " + CUSTOM_TABLE_NAME + " set pt = now() + interval '1 hour' " +
+                "where qid=" + firstId);
+
+        assertThat(transactionManager.transact(() -> pickTaskDao.pickTaskWithKeyLimit(null, 1)).getPayload(),
+                equalTo("2"));
+    }
+
+    @Test
+    public void should_pick_tasks_of_queue_group() {
+        QueueLocation firstLocation = generateUniqueLocation(DEFAULT_TABLE_NAME);
+        QueueLocation secondLocation = generateUniqueLocation(DEFAULT_TABLE_NAME);
+        defaultQueueDao.enqueue(secondLocation, EnqueueParams.create("second"));
+        PostgresJdbcQueuePickTaskDao pickTaskDao = new PostgresJdbcQueuePickTaskDao(transactionManager,
+                DEFAULT_SCHEMA, firstLocation, Arrays.asList(firstLocation.getQueueId(), secondLocation.getQueueId()),
+                createFailureSettings());
+
+        TaskRecord taskRecord = transactionManager.transact(pickTaskDao::pickTask);
+
+        assertThat(taskRecord.getPayload(), equalTo("second"));
+        assertThat(taskRecord.getQueueId().get(), equalTo(secondLocation.getQueueId()));
+    }
+
+    private static FailureSettings createFailureSettings() {
+        return FailureSettings.builder()
+                .withRetryType(FailRetryType.LINEAR_BACKOFF)
+                .withRetryInterval(Duration.ofMinutes(1))
+                .build();
+    }
+
+    private static QueueLocation generateUniqueLocation(String tableName) {
+        return QueueLocation.builder().withTableName(tableName)
+                .withQueueId(new QueueId("test-queue-" + UUID.randomUUID())).build();
+    }
+}
@@ -0,0 +1,112 @@
+package ru.yoomoney.tech.dbqueue.r2dbc;
+
+import io.r2dbc.spi.ConnectionFactory;
+import reactor.core.publisher.Mono;
+import ru.yoomoney.tech.dbqueue.api.EnqueueParams;
+import ru.yoomoney.tech.dbqueue.config.DatabaseDialect;
+import ru.yoomoney.tech.dbqueue.config.QueueTableSchema;
+import ru.yoomoney.tech.dbqueue.settings.QueueLocation;
+
+import javax.annotation.Nonnull;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Non-blocking database access object to manage tasks in the queue for Microsoft SQL Server database type.
+ *
+ * @author Oleg Kandaurov
+ * @since 19.10.2026
+ */
+public class MssqlR2dbcQueueDao implements ReactiveQueueDao {
+
+    private final Map<QueueLocation, String> enqueueSqlCache = new ConcurrentHashMap<>();
+    private final Map<QueueLocation, String> deleteSqlCache = new ConcurrentHashMap<>();
+    private final Map<QueueLocation, String> reenqueueSqlCache = new ConcurrentHashMap<>();
+
+    @Nonnull
+    private final R2dbcOperations operations;
+    @Nonnull
+    private final QueueTableSchema queueTableSchema;
+
+    /**
+     * Constructor
+     *
+     * @param connectionFactory R2DBC connection factory.
+     * @param queueTableSchema  Queue table scheme.
+     */
+    public MssqlR2dbcQueueDao(@Nonnull ConnectionFactory connectionFactory,
+                                 @Nonnull QueueTableSchema queueTableSchema) {
+        this.operations = new R2dbcOperations(connectionFactory, DatabaseDialect.MSSQL);
+        this.queueTableSchema = requireNonNull(queueTableSchema);
+    }
+
+    @Nonnull
+    @Override
+    public Mono<Long> enqueue(@Nonnull QueueLocation location, @Nonnull EnqueueParams<String> enqueueParams) {
+        requireNonNull(location);
+        requireNonNull(enqueueParams);
+        return operations.queryFirst(enqueueSqlCache.computeIfAbsent(location, this::createEnqueueSql),
+                R2dbcEnqueueParameters.create(location, enqueueParams, queueTableSchema),
+                row -> ((Number) requireNonNull(row.get(0))).longValue());
+    }
+
+    @Nonnull
+    @Override
+    public Mono<Boolean> deleteTask(@Nonnull QueueLocation location, long taskId) {
+        requireNonNull(location);
+        return operations.update(deleteSqlCache.computeIfAbsent(location, this::createDeleteSql),
+                Arrays.asList(location.getQueueId().asString(), taskId))
+                .map(updatedRows -> updatedRows != 0);
+    }
+
+    @Nonnull
+    @Override
+    public Mono<Boolean> reenqueue(@Nonnull QueueLocation location, long taskId, @Nonnull Duration executionDelay) {
+        requireNonNull(location);
+        requireNonNull(executionDelay);
+        return operations.update(reenqueueSqlCache.computeIfAbsent(location, this::createReenqueueSql),
+                Arrays.asList(executionDelay.getSeconds(), taskId, location.getQueueId().asString()))
+                .map(updatedRows -> updatedRows != 0);
+    }
+
+    private String createEnqueueSql(@Nonnull QueueLocation location) {
+        List<String> columns = R2dbcEnqueueParameters.columns(queueTableSchema);
+        return "INSERT INTO " + location.getTableName() + "(" +
+                (location.getIdSequence().map(ignored -> queueTableSchema.getIdField() + ",").orElse("")) +
+                queueTableSchema.getReenqueueAttemptField() + "," +
+                queueTableSchema.getTotalAttemptField() + "," +
+                String.join(",", columns) +
+                ") OUTPUT inserted." + queueTableSchema.getIdField() +
+                " VALUES (" +
+                location.getIdSequence().map(seq -> "NEXT VALUE FOR " + seq + ", ").orElse("") +
+                "0, 0, " +
+                IntStream.range(0, columns.size())
+                        .mapToObj(index -> index == R2dbcEnqueueParameters.EXECUTION_DELAY_INDEX ?
+                                "dateadd(ss, " + operations.marker(index) + ", SYSDATETIMEOFFSET())" :
+                                operations.marker(index))
+                        .collect(Collectors.joining(", ")) +
+                ")";
+    }
+
+    private String createDeleteSql(@Nonnull QueueLocation location) {
+        return "DELETE FROM " + location.getTableName() + " WHERE " + queueTableSchema.getQueueNameField() +
+                " = " + operations.marker(0) + " AND " + queueTableSchema.getIdField() + " = " + operations.marker(1);
+    }
+
+    private String createReenqueueSql(@Nonnull QueueLocation location) {
+        return "UPDATE " + location.getTableName() + " SET " + queueTableSchema.getNextProcessAtField() +
+                " = dateadd(ss, " + operations.marker(0) + ", SYSDATETIMEOFFSET()), " +
+                queueTableSchema.getAttemptField() + " = 0, " +
+                queueTableSchema.getReenqueueAttemptField() +
+                " = " + queueTableSchema.getReenqueueAttemptField() + " + 1 " +
+                "WHERE " + queueTableSchema.getIdField() + " = " + operations.marker(1) + " AND " +
+                queueTableSchema.getQueueNameField() + " = " + operations.marker(2);
+    }
+}
@@ -0,0 +1,119 @@
+package ru.yoomoney.tech.dbqueue.r2dbc;
+
+import io.r2dbc.spi.ConnectionFactory;
+import reactor.core.publisher.Mono;
+import ru.yoomoney.tech.dbqueue.api.TaskRecord;
+import ru.yoomoney.tech.dbqueue.config.DatabaseDialect;
+import ru.yoomoney.tech.dbqueue.config.QueueTableSchema;
+import ru.yoomoney.tech.dbqueue.settings.FailRetryType;
+import ru.yoomoney.tech.dbqueue.settings.FailureSettings;
+import ru.yoomoney.tech.dbqueue.settings.QueueLocation;
+
+import javax.annotation.Nonnull;
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Non-blocking database access object to pick tasks in the queue for Microsoft SQL Server database type.
+ *
+ * @author Oleg Kandaurov
+ * @since 19.10.2026
+ */
+public class MssqlR2dbcQueuePickTaskDao implements ReactiveQueuePickTaskDao {
+
+    private volatile PickTaskSql pickTaskSql;
+    private final R2dbcOperations operations;
+    private final QueueTableSchema queueTableSchema;
+    private final R2dbcTaskRecordMapper taskRecordMapper;
+    private final String queueName;
+
+    /**
+     * Constructor
+     *
+     * @param connectionFactory R2DBC connection factory
+     * @param queueTableSchema  table schema
+     * @param queueLocation     queue location
+     * @param failureSettings   failure settings
+     */
+    public MssqlR2dbcQueuePickTaskDao(@Nonnull ConnectionFactory connectionFactory,
+                                      @Nonnull QueueTableSchema queueTableSchema,
+                                      @Nonnull QueueLocation queueLocation,
+                                      @Nonnull FailureSettings failureSettings) {
+        this.operations = new R2dbcOperations(connectionFactory, DatabaseDialect.MSSQL);
+        this.queueTableSchema = requireNonNull(queueTableSchema);
+        this.taskRecordMapper = new R2dbcTaskRecordMapper(queueTableSchema);
+        this.queueName = queueLocation.getQueueId().asString();
+        this.pickTaskSql = new PickTaskSql(queueLocation, failureSettings);
+        failureSettings.registerObserver((oldValue, newValue) ->
+                pickTaskSql = new PickTaskSql(queueLocation, newValue));
+    }
+
+    @Nonnull
+    @Override
+    public Mono<TaskRecord> pickTask() {
+        PickTaskSql sql = pickTaskSql;
+        return operations.queryFirst(sql.sql, Arrays.asList(queueName, sql.retryInterval), taskRecordMapper::map);
+    }
+
+    private String createPickTaskSql(@Nonnull QueueLocation location, @Nonnull FailureSettings failureSettings) {
+        return "WITH cte AS (" +
+                "SELECT " + queueTableSchema.getIdField() + " " +
+                "FROM " + location.getTableName() + " with (readpast, updlock) " +
+                "WHERE " + queueTableSchema.getQueueNameField() + " = " + operations.marker(0) + " " +
+                "  AND " + queueTableSchema.getNextProcessAtField() + " <= SYSDATETIMEOFFSET() " +
+                " ORDER BY " + queueTableSchema.getNextProcessAtField() + " ASC " +
+                "offset 0 rows fetch next 1 rows only " +
+                ") " +
+                "UPDATE " + location.getTableName() + " " +
+                "SET " +
+                "  " + queueTableSchema.getNextProcessAtField() + " = " +
+                getNextProcessTimeSql(failureSettings.getRetryType()) + ", " +
+                "  " + queueTableSchema.getAttemptField() + " = " + queueTableSchema.getAttemptField() + " + 1, " +
+                "  " + queueTableSchema.getTotalAttemptField() + " = " + queueTableSchema.getTotalAttemptField() + " + 1 " +
+                "OUTPUT inserted." + queueTableSchema.getIdField() + ", " +
+                "inserted." + queueTableSchema.getPayloadField() + ", " +
+                "inserted." + queueTableSchema.getAttemptField() + ", " +
+                "inserted." + queueTableSchema.getReenqueueAttemptField() + ", " +
+                "inserted." + queueTableSchema.getTotalAttemptField() + ", " +
+                "inserted." + queueTableSchema.getCreatedAtField() + ", " +
+                "inserted." + queueTableSchema.getNextProcessAtField() +
+                queueTableSchema.getPriorityField().map(field -> ", inserted." + field).orElse("") +
+                (queueTableSchema.getExtFields().isEmpty() ? "" : queueTableSchema.getExtFields().stream()
+                        .map(field -> "inserted." + field).collect(Collectors.joining(", ", ", ", ""))) + " " +
+                "FROM cte " +
+                "WHERE " + location.getTableName() + "." + queueTableSchema.getIdField() + " = cte." + queueTableSchema.getIdField();
+    }
+
+    @Nonnull
+    private String getNextProcessTimeSql(@Nonnull FailRetryType failRetryType) {
+        requireNonNull(failRetryType);
+        String retryInterval = operations.marker(1);
+        switch (failRetryType) {
+            case GEOMETRIC_BACKOFF:
+                return "dateadd(ss, power(2, " + queueTableSchema.getAttemptField() + ") * " + retryInterval +
+                        ", SYSDATETIMEOFFSET())";
+            case ARITHMETIC_BACKOFF:
+                return "dateadd(ss, (1 + (" + queueTableSchema.getAttemptField() + " * 2)) * " + retryInterval +
+                        ", SYSDATETIMEOFFSET())";
+            case LINEAR_BACKOFF:
+                return "dateadd(ss, " + retryInterval + ", SYSDATETIMEOFFSET())";
+            default:
+                throw new IllegalStateException("unknown retry type: " + failRetryType);
+        }
+    }
+
+    /**
+     * Pick query built for the current failure settings
+     */
+    private class PickTaskSql {
+        private final long retryInterval;
+        private final String sql;
+
+        PickTaskSql(@Nonnull QueueLocation location, @Nonnull FailureSettings failureSettings) {
+            this.retryInterval = failureSettings.getRetryInterval().getSeconds();
+            this.sql = createPickTaskSql(location, failureSettings);
+        }
+    }
+}
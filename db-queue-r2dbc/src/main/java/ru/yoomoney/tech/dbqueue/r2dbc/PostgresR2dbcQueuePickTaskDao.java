@@ -0,0 +1,119 @@
+package ru.yoomoney.tech.dbqueue.r2dbc;
+
+import io.r2dbc.spi.ConnectionFactory;
+import reactor.core.publisher.Mono;
+import ru.yoomoney.tech.dbqueue.api.TaskRecord;
+import ru.yoomoney.tech.dbqueue.config.DatabaseDialect;
+import ru.yoomoney.tech.dbqueue.config.QueueTableSchema;
+import ru.yoomoney.tech.dbqueue.settings.FailRetryType;
+import ru.yoomoney.tech.dbqueue.settings.FailureSettings;
+import ru.yoomoney.tech.dbqueue.settings.QueueLocation;
+
+import javax.annotation.Nonnull;
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Non-blocking database access object to pick tasks in the queue for PostgreSQL database type.
+ *
+ * @author Oleg Kandaurov
+ * @since 19.10.2026
+ */
+public class PostgresR2dbcQueuePickTaskDao implements ReactiveQueuePickTaskDao {
+
+    private volatile PickTaskSql pickTaskSql;
+    private final R2dbcOperations operations;
+    private final QueueTableSchema queueTableSchema;
+    private final R2dbcTaskRecordMapper taskRecordMapper;
+    private final String queueName;
+
+    /**
+     * Constructor
+     *
+     * @param connectionFactory R2DBC connection factory
+     * @param queueTableSchema  table schema
+     * @param queueLocation     queue location
+     * @param failureSettings   failure settings
+     */
+    public PostgresR2dbcQueuePickTaskDao(@Nonnull ConnectionFactory connectionFactory,
+                                         @Nonnull QueueTableSchema queueTableSchema,
+                                         @Nonnull QueueLocation queueLocation,
+                                         @Nonnull FailureSettings failureSettings) {
+        this.operations = new R2dbcOperations(connectionFactory, DatabaseDialect.POSTGRESQL);
+        this.queueTableSchema = requireNonNull(queueTableSchema);
+        this.taskRecordMapper = new R2dbcTaskRecordMapper(queueTableSchema);
+        this.queueName = queueLocation.getQueueId().asString();
+        this.pickTaskSql = new PickTaskSql(queueLocation, failureSettings);
+        failureSettings.registerObserver((oldValue, newValue) ->
+                pickTaskSql = new PickTaskSql(queueLocation, newValue));
+    }
+
+    @Nonnull
+    @Override
+    public Mono<TaskRecord> pickTask() {
+        PickTaskSql sql = pickTaskSql;
+        return operations.queryFirst(sql.sql, Arrays.asList(queueName, sql.retryInterval), taskRecordMapper::map);
+    }
+
+    private String createPickTaskSql(@Nonnull QueueLocation location, @Nonnull FailureSettings failureSettings) {
+        return "WITH cte AS (" +
+                "SELECT " + queueTableSchema.getIdField() + " " +
+                "FROM " + location.getTableName() + " " +
+                "WHERE " + queueTableSchema.getQueueNameField() + " = " + operations.marker(0) + " " +
+                "  AND " + queueTableSchema.getNextProcessAtField() + " <= now() " +
+                " ORDER BY " + queueTableSchema.getNextProcessAtField() + " ASC " +
+                "LIMIT 1 " +
+                "FOR UPDATE SKIP LOCKED) " +
+                "UPDATE " + location.getTableName() + " q " +
+                "SET " +
+                "  " + queueTableSchema.getNextProcessAtField() + " = " +
+                getNextProcessTimeSql(failureSettings.getRetryType()) + ", " +
+                "  " + queueTableSchema.getAttemptField() + " = " + queueTableSchema.getAttemptField() + " + 1, " +
+                "  " + queueTableSchema.getTotalAttemptField() + " = " + queueTableSchema.getTotalAttemptField() + " + 1 " +
+                "FROM cte " +
+                "WHERE q." + queueTableSchema.getIdField() + " = cte." + queueTableSchema.getIdField() + " " +
+                "RETURNING q." + queueTableSchema.getIdField() + ", " +
+                "q." + queueTableSchema.getPayloadField() + ", " +
+                "q." + queueTableSchema.getAttemptField() + ", " +
+                "q." + queueTableSchema.getReenqueueAttemptField() + ", " +
+                "q." + queueTableSchema.getTotalAttemptField() + ", " +
+                "q." + queueTableSchema.getCreatedAtField() + ", " +
+                "q." + queueTableSchema.getNextProcessAtField() +
+                queueTableSchema.getPriorityField().map(field -> ", q." + field).orElse("") +
+                (queueTableSchema.getExtFields().isEmpty() ? "" : queueTableSchema.getExtFields().stream()
+                        .map(field -> "q." + field).collect(Collectors.joining(", ", ", ", "")));
+    }
+
+    @Nonnull
+    private String getNextProcessTimeSql(@Nonnull FailRetryType failRetryType) {
+        requireNonNull(failRetryType);
+        String retryInterval = operations.marker(1);
+        switch (failRetryType) {
+            case GEOMETRIC_BACKOFF:
+                return "now() + power(2, " + queueTableSchema.getAttemptField() + ") * " + retryInterval +
+                        " * INTERVAL '1 SECOND'";
+            case ARITHMETIC_BACKOFF:
+                return "now() + (1 + (" + queueTableSchema.getAttemptField() + " * 2)) * " + retryInterval +
+                        " * INTERVAL '1 SECOND'";
+            case LINEAR_BACKOFF:
+                return "now() + " + retryInterval + " * INTERVAL '1 SECOND'";
+            default:
+                throw new IllegalStateException("unknown retry type: " + failRetryType);
+        }
+    }
+
+    /**
+     * Pick query built for the current failure settings
+     */
+    private class PickTaskSql {
+        private final long retryInterval;
+        private final String sql;
+
+        PickTaskSql(@Nonnull QueueLocation location, @Nonnull FailureSettings failureSettings) {
+            this.retryInterval = failureSettings.getRetryInterval().getSeconds();
+            this.sql = createPickTaskSql(location, failureSettings);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package ru.yoomoney.tech.dbqueue.r2dbc;
+
+import io.r2dbc.spi.ConnectionFactory;
+import ru.yoomoney.tech.dbqueue.config.DatabaseDialect;
+import ru.yoomoney.tech.dbqueue.config.QueueTableSchema;
+import ru.yoomoney.tech.dbqueue.settings.FailureSettings;
+import ru.yoomoney.tech.dbqueue.settings.QueueLocation;
+
+import javax.annotation.Nonnull;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Class for non-blocking interaction with database via R2DBC.
+ * <p>
+ * Every statement is executed in auto-commit mode,
+ * therefore the queue operations cannot be joined with application transactions.
+ * <p>
+ * {@link DatabaseDialect#POSTGRESQL} and {@link DatabaseDialect#MSSQL} are supported.
+ *
+ * @author Oleg Kandaurov
+ * @see ru.yoomoney.tech.dbqueue.config.DatabaseAccessLayer
+ * @since 19.10.2026
+ */
+public class R2dbcDatabaseAccessLayer {
+
+    @Nonnull
+    private final DatabaseDialect databaseDialect;
+    @Nonnull
+    private final QueueTableSchema queueTableSchema;
+    @Nonnull
+    private final ConnectionFactory connectionFactory;
+    @Nonnull
+    private final ReactiveQueueDao queueDao;
+
+    /**
+     * Constructor
+     *
+     * @param databaseDialect   Database type (dialect)
+     * @param queueTableSchema  Queue table scheme.
+     * @param connectionFactory R2DBC connection factory of the queue database.
+     */
+    public R2dbcDatabaseAccessLayer(@Nonnull DatabaseDialect databaseDialect,
+                                    @Nonnull QueueTableSchema queueTableSchema,
+                                    @Nonnull ConnectionFactory connectionFactory) {
+        this.databaseDialect = requireNonNull(databaseDialect);
+        this.queueTableSchema = requireNonNull(queueTableSchema);
+        this.connectionFactory = requireNonNull(connectionFactory);
+        switch (databaseDialect) {
+            case POSTGRESQL:
+                this.queueDao = new PostgresR2dbcQueueDao(connectionFactory, queueTableSchema);
+                break;
+            case MSSQL:
+                this.queueDao = new MssqlR2dbcQueueDao(connectionFactory, queueTableSchema);
+                break;
+            default:
+                throw new IllegalArgumentException("unsupported database kind: " + databaseDialect);
+        }
+    }
+
+    /**
+     * Get non-blocking database access object to manage tasks in the queue.
+     *
+     * @return queue dao
+     */
+    @Nonnull
+    public ReactiveQueueDao getQueueDao() {
+        return queueDao;
+    }
+
+    /**
+     * Create non-blocking database access object to pick tasks in the queue.
+     *
+     * @param queueLocation   queue location
+     * @param failureSettings settings for handling failures
+     * @return database access object to pick tasks in the queue.
+     */
+    @Nonnull
+    public ReactiveQueuePickTaskDao createQueuePickTaskDao(@Nonnull QueueLocation queueLocation,
+                                                           @Nonnull FailureSettings failureSettings) {
+        requireNonNull(queueLocation);
+        requireNonNull(failureSettings);
+        switch (databaseDialect) {
+            case POSTGRESQL:
+                return new PostgresR2dbcQueuePickTaskDao(connectionFactory, queueTableSchema, queueLocation,
+                        failureSettings);
+            case MSSQL:
+                return new MssqlR2dbcQueuePickTaskDao(connectionFactory, queueTableSchema, queueLocation,
+                        failureSettings);
+            default:
+                throw new IllegalArgumentException("unsupported database kind: " + databaseDialect);
+        }
+    }
+
+    /**
+     * Get database type for that database.
+     *
+     * @return Database type.
+     */
+    @Nonnull
+    public DatabaseDialect getDatabaseDialect() {
+        return databaseDialect;
+    }
+
+    /**
+     * Get queue table schema for that database.
+     *
+     * @return Queue table schema.
+     */
+    @Nonnull
+    public QueueTableSchema getQueueTableSchema() {
+        return queueTableSchema;
+    }
+}
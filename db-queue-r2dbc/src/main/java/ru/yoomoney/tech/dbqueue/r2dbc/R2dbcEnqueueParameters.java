@@ -0,0 +1,70 @@
+package ru.yoomoney.tech.dbqueue.r2dbc;
+
+import ru.yoomoney.tech.dbqueue.api.EnqueueParams;
+import ru.yoomoney.tech.dbqueue.config.QueueTableSchema;
+import ru.yoomoney.tech.dbqueue.settings.QueueLocation;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Columns and parameters of the insert statement of a task
+ *
+ * @author Oleg Kandaurov
+ * @since 19.10.2026
+ */
+final class R2dbcEnqueueParameters {
+
+    /**
+     * Index of the execution delay parameter, which is added to the current time
+     */
+    static final int EXECUTION_DELAY_INDEX = 2;
+
+    private R2dbcEnqueueParameters() {
+    }
+
+    /**
+     * Columns filled by the parameters
+     *
+     * @param queueTableSchema queue table schema
+     * @return columns in the order of parameters
+     */
+    @Nonnull
+    static List<String> columns(@Nonnull QueueTableSchema queueTableSchema) {
+        List<String> columns = new ArrayList<>();
+        columns.add(queueTableSchema.getQueueNameField());
+        columns.add(queueTableSchema.getPayloadField());
+        columns.add(queueTableSchema.getNextProcessAtField());
+        queueTableSchema.getDeduplicationKeyField().ifPresent(columns::add);
+        queueTableSchema.getCoalescingKeyField().ifPresent(columns::add);
+        queueTableSchema.getPriorityField().ifPresent(columns::add);
+        columns.addAll(queueTableSchema.getExtFields());
+        return columns;
+    }
+
+    /**
+     * Parameters of the task
+     *
+     * @param location         queue location
+     * @param enqueueParams    parameters of the task
+     * @param queueTableSchema queue table schema
+     * @return parameter values in the order of {@link #columns(QueueTableSchema)}
+     */
+    @Nonnull
+    static List<Object> create(@Nonnull QueueLocation location,
+                               @Nonnull EnqueueParams<String> enqueueParams,
+                               @Nonnull QueueTableSchema queueTableSchema) {
+        List<Object> parameters = new ArrayList<>();
+        parameters.add(location.getQueueId().asString());
+        parameters.add(enqueueParams.getPayload());
+        parameters.add(enqueueParams.getExecutionDelay().getSeconds());
+        queueTableSchema.getDeduplicationKeyField()
+                .ifPresent(ignored -> parameters.add(enqueueParams.getDeduplicationKey().orElse(null)));
+        queueTableSchema.getCoalescingKeyField()
+                .ifPresent(ignored -> parameters.add(enqueueParams.getCoalescingKey().orElse(null)));
+        queueTableSchema.getPriorityField().ifPresent(ignored -> parameters.add(enqueueParams.getPriority()));
+        queueTableSchema.getExtFields().forEach(field -> parameters.add(enqueueParams.getExtData().get(field)));
+        return parameters;
+    }
+}
@@ -0,0 +1,110 @@
+package ru.yoomoney.tech.dbqueue.r2dbc;
+
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.Statement;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.yoomoney.tech.dbqueue.config.DatabaseDialect;
+
+import javax.annotation.Nonnull;
+import java.util.List;
+import java.util.function.Function;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Execution of single statements on a connection taken from {@link ConnectionFactory}.
+ * <p>
+ * Every statement runs in auto-commit mode, the connection is closed when the result is consumed.
+ *
+ * @author Oleg Kandaurov
+ * @since 19.10.2026
+ */
+class R2dbcOperations {
+
+    @Nonnull
+    private final ConnectionFactory connectionFactory;
+    @Nonnull
+    private final DatabaseDialect databaseDialect;
+
+    R2dbcOperations(@Nonnull ConnectionFactory connectionFactory, @Nonnull DatabaseDialect databaseDialect) {
+        this.connectionFactory = requireNonNull(connectionFactory);
+        this.databaseDialect = requireNonNull(databaseDialect);
+    }
+
+    /**
+     * Bind marker of a parameter
+     *
+     * @param index index of the parameter, starting from zero
+     * @return bind marker to place in SQL
+     */
+    @Nonnull
+    String marker(int index) {
+        switch (databaseDialect) {
+            case POSTGRESQL:
+                return "$" + (index + 1);
+            case MSSQL:
+                return "@p" + index;
+            default:
+                throw new IllegalArgumentException("unsupported database kind: " + databaseDialect);
+        }
+    }
+
+    /**
+     * Execute statement and map the first row of the result
+     *
+     * @param sql        SQL with bind markers
+     * @param parameters values of the parameters in the order of bind markers
+     * @param mapper     mapper of a row
+     * @param <T>        type of the result
+     * @return mapped row or empty, when there are no rows
+     */
+    @Nonnull
+    <T> Mono<T> queryFirst(@Nonnull String sql, @Nonnull List<Object> parameters,
+                           @Nonnull Function<Row, T> mapper) {
+        return Mono.usingWhen(connectionFactory.create(),
+                connection -> Flux.from(bind(connection.createStatement(sql), parameters).execute())
+                        .concatMap(result -> result.map((row, metadata) -> mapper.apply(row)))
+                        .next(),
+                Connection::close);
+    }
+
+    /**
+     * Execute statement and count updated rows
+     *
+     * @param sql        SQL with bind markers
+     * @param parameters values of the parameters in the order of bind markers
+     * @return number of updated rows
+     */
+    @Nonnull
+    Mono<Integer> update(@Nonnull String sql, @Nonnull List<Object> parameters) {
+        return Mono.usingWhen(connectionFactory.create(),
+                connection -> Flux.from(bind(connection.createStatement(sql), parameters).execute())
+                        .concatMap(result -> result.getRowsUpdated())
+                        .reduce(0, Integer::sum),
+                Connection::close);
+    }
+
+    private Statement bind(@Nonnull Statement statement, @Nonnull List<Object> parameters) {
+        // nullable parameters are string columns: payload, keys and additional data
+        for (int i = 0; i < parameters.size(); i++) {
+            Object value = parameters.get(i);
+            if (databaseDialect == DatabaseDialect.MSSQL) {
+                if (value == null) {
+                    statement.bindNull("p" + i, String.class);
+                } else {
+                    statement.bind("p" + i, value);
+                }
+            } else {
+                if (value == null) {
+                    statement.bindNull(i, String.class);
+                } else {
+                    statement.bind(i, value);
+                }
+            }
+        }
+        return statement;
+    }
+}
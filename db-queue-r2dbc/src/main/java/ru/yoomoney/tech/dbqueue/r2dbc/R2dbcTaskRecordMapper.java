@@ -0,0 +1,58 @@
+package ru.yoomoney.tech.dbqueue.r2dbc;
+
+import io.r2dbc.spi.Row;
+import ru.yoomoney.tech.dbqueue.api.TaskRecord;
+import ru.yoomoney.tech.dbqueue.config.QueueTableSchema;
+
+import javax.annotation.Nonnull;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Mapper of a picked row into {@link TaskRecord}
+ *
+ * @author Oleg Kandaurov
+ * @since 19.10.2026
+ */
+class R2dbcTaskRecordMapper {
+
+    @Nonnull
+    private final QueueTableSchema queueTableSchema;
+
+    R2dbcTaskRecordMapper(@Nonnull QueueTableSchema queueTableSchema) {
+        this.queueTableSchema = requireNonNull(queueTableSchema);
+    }
+
+    @Nonnull
+    TaskRecord map(@Nonnull Row row) {
+        Map<String, String> additionalData = new LinkedHashMap<>();
+        queueTableSchema.getExtFields().forEach(field -> additionalData.put(field, row.get(field, String.class)));
+        return TaskRecord.builder()
+                .withId(getLong(row, queueTableSchema.getIdField()))
+                .withCreatedAt(getZonedDateTime(row, queueTableSchema.getCreatedAtField()))
+                .withNextProcessAt(getZonedDateTime(row, queueTableSchema.getNextProcessAtField()))
+                .withPayload(row.get(queueTableSchema.getPayloadField(), String.class))
+                .withAttemptsCount(getLong(row, queueTableSchema.getAttemptField()))
+                .withReenqueueAttemptsCount(getLong(row, queueTableSchema.getReenqueueAttemptField()))
+                .withTotalAttemptsCount(getLong(row, queueTableSchema.getTotalAttemptField()))
+                .withPriority(queueTableSchema.getPriorityField()
+                        .map(field -> (int) getLong(row, field)).orElse(0))
+                .withExtData(additionalData)
+                .build();
+    }
+
+    private static long getLong(@Nonnull Row row, @Nonnull String field) {
+        // integer columns are decoded into Integer or Long depending on the column type
+        return ((Number) requireNonNull(row.get(field), field)).longValue();
+    }
+
+    private static ZonedDateTime getZonedDateTime(@Nonnull Row row, @Nonnull String field) {
+        return requireNonNull(row.get(field, OffsetDateTime.class), field)
+                .atZoneSameInstant(ZoneId.systemDefault());
+    }
+}
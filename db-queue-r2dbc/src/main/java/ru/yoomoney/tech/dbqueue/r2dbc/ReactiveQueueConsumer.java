@@ -0,0 +1,47 @@
+package ru.yoomoney.tech.dbqueue.r2dbc;
+
+import reactor.core.publisher.Mono;
+import ru.yoomoney.tech.dbqueue.api.Task;
+import ru.yoomoney.tech.dbqueue.api.TaskExecutionResult;
+import ru.yoomoney.tech.dbqueue.api.TaskPayloadTransformer;
+import ru.yoomoney.tech.dbqueue.settings.QueueConfig;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Task processor for the queue, which processes tasks without blocking the calling thread.
+ *
+ * @param <PayloadT> The type of the payload in the task
+ * @author Oleg Kandaurov
+ * @see ru.yoomoney.tech.dbqueue.api.QueueConsumer
+ * @since 19.10.2026
+ */
+public interface ReactiveQueueConsumer<PayloadT> {
+
+    /**
+     * Process the task from the queue.
+     * <p>
+     * Returned publisher must not block, it is subscribed on the thread which picked the task.
+     *
+     * @param task A typed task for processing
+     * @return A result of task processing
+     */
+    @Nonnull
+    Mono<TaskExecutionResult> execute(@Nonnull Task<PayloadT> task);
+
+    /**
+     * Get queue configuration
+     *
+     * @return Queue configuration
+     */
+    @Nonnull
+    QueueConfig getQueueConfig();
+
+    /**
+     * Get task payload transformer, which transform the task's {@linkplain String} payload into the type of the task
+     *
+     * @return Task payload transformer
+     */
+    @Nonnull
+    TaskPayloadTransformer<PayloadT> getPayloadTransformer();
+}
@@ -0,0 +1,49 @@
+package ru.yoomoney.tech.dbqueue.r2dbc;
+
+import reactor.core.publisher.Mono;
+import ru.yoomoney.tech.dbqueue.api.EnqueueParams;
+import ru.yoomoney.tech.dbqueue.settings.QueueLocation;
+
+import javax.annotation.Nonnull;
+import java.time.Duration;
+
+/**
+ * Non-blocking database access object to manage tasks in the queue.
+ *
+ * @author Oleg Kandaurov
+ * @see ru.yoomoney.tech.dbqueue.dao.QueueDao
+ * @since 19.10.2026
+ */
+public interface ReactiveQueueDao {
+
+    /**
+     * Add a new task in the queue for processing.
+     *
+     * @param location      Queue location.
+     * @param enqueueParams Parameters of the task
+     * @return Identifier (sequence id) of new inserted task.
+     */
+    @Nonnull
+    Mono<Long> enqueue(@Nonnull QueueLocation location, @Nonnull EnqueueParams<String> enqueueParams);
+
+    /**
+     * Remove (delete) task from the queue.
+     *
+     * @param location Queue location.
+     * @param taskId   Identifier (sequence id) of the task.
+     * @return true, if task was deleted from database, false, when task with given id was not found.
+     */
+    @Nonnull
+    Mono<Boolean> deleteTask(@Nonnull QueueLocation location, long taskId);
+
+    /**
+     * Postpone task processing for given time period (current date and time plus execution delay).
+     *
+     * @param location       Queue location.
+     * @param taskId         Identifier (sequence id) of the task.
+     * @param executionDelay Task execution delay.
+     * @return true, if task was successfully postponed, false, when task was not found.
+     */
+    @Nonnull
+    Mono<Boolean> reenqueue(@Nonnull QueueLocation location, long taskId, @Nonnull Duration executionDelay);
+}
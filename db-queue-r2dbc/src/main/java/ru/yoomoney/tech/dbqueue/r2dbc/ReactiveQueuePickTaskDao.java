@@ -0,0 +1,26 @@
+package ru.yoomoney.tech.dbqueue.r2dbc;
+
+import reactor.core.publisher.Mono;
+import ru.yoomoney.tech.dbqueue.api.TaskRecord;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Non-blocking database access object to pick tasks in the queue.
+ *
+ * @author Oleg Kandaurov
+ * @see ru.yoomoney.tech.dbqueue.dao.QueuePickTaskDao
+ * @since 19.10.2026
+ */
+public interface ReactiveQueuePickTaskDao {
+
+    /**
+     * Pick task from a queue.
+     * <p>
+     * Task is picked and its attempt counter is incremented in a single statement.
+     *
+     * @return task data or empty if not found.
+     */
+    @Nonnull
+    Mono<TaskRecord> pickTask();
+}
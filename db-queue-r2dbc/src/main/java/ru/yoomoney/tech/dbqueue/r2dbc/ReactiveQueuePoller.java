@@ -0,0 +1,194 @@
+package ru.yoomoney.tech.dbqueue.r2dbc;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.yoomoney.tech.dbqueue.api.Task;
+import ru.yoomoney.tech.dbqueue.api.TaskExecutionResult;
+import ru.yoomoney.tech.dbqueue.api.TaskRecord;
+import ru.yoomoney.tech.dbqueue.config.QueueShardId;
+import ru.yoomoney.tech.dbqueue.config.TaskLifecycleListener;
+import ru.yoomoney.tech.dbqueue.internal.processing.ReenqueueRetryStrategy;
+import ru.yoomoney.tech.dbqueue.settings.PollSettings;
+import ru.yoomoney.tech.dbqueue.settings.QueueLocation;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Non-blocking poller of a queue on a single shard.
+ * <p>
+ * Unlike the thread per task loop of {@link ru.yoomoney.tech.dbqueue.config.QueueService},
+ * the poller does not hold a thread while waiting for a task or for the database.
+ * The next task is picked only when there is a free processing slot,
+ * the number of slots is {@link ru.yoomoney.tech.dbqueue.settings.ProcessingSettings#getThreadCount()}.
+ * Therefore a single event-loop thread can drive many queues.
+ * <p>
+ * Timeouts of {@link PollSettings} are applied as delays:
+ * no task timeout after an empty pick, fatal crash timeout after a failed pick
+ * and between task timeout before a slot is released.
+ *
+ * @param <PayloadT> The type of the payload in the task
+ * @author Oleg Kandaurov
+ * @since 19.10.2026
+ */
+public class ReactiveQueuePoller<PayloadT> {
+
+    private static final Logger log = LoggerFactory.getLogger(ReactiveQueuePoller.class);
+
+    @Nonnull
+    private final QueueShardId shardId;
+    @Nonnull
+    private final ReactiveQueueConsumer<PayloadT> queueConsumer;
+    @Nonnull
+    private final ReactiveQueueDao queueDao;
+    @Nonnull
+    private final ReactiveQueuePickTaskDao pickTaskDao;
+    @Nonnull
+    private final TaskLifecycleListener taskLifecycleListener;
+    @Nonnull
+    private final QueueLocation location;
+    @Nonnull
+    private volatile ReenqueueRetryStrategy reenqueueRetryStrategy;
+    @Nullable
+    private Disposable subscription;
+
+    /**
+     * Constructor
+     *
+     * @param shardId               identifier of the shard, which tasks are processed
+     * @param queueConsumer         task processor of the queue
+     * @param queueDao              database access object to manage tasks
+     * @param pickTaskDao           database access object to pick tasks
+     * @param taskLifecycleListener task listener
+     */
+    public ReactiveQueuePoller(@Nonnull QueueShardId shardId,
+                               @Nonnull ReactiveQueueConsumer<PayloadT> queueConsumer,
+                               @Nonnull ReactiveQueueDao queueDao,
+                               @Nonnull ReactiveQueuePickTaskDao pickTaskDao,
+                               @Nonnull TaskLifecycleListener taskLifecycleListener) {
+        this.shardId = requireNonNull(shardId);
+        this.queueConsumer = requireNonNull(queueConsumer);
+        this.queueDao = requireNonNull(queueDao);
+        this.pickTaskDao = requireNonNull(pickTaskDao);
+        this.taskLifecycleListener = requireNonNull(taskLifecycleListener);
+        this.location = queueConsumer.getQueueConfig().getLocation();
+        this.reenqueueRetryStrategy = ReenqueueRetryStrategy.Factory.create(
+                queueConsumer.getQueueConfig().getSettings().getReenqueueSettings());
+        queueConsumer.getQueueConfig().getSettings().getReenqueueSettings().registerObserver((oldValue, newValue) ->
+                reenqueueRetryStrategy = ReenqueueRetryStrategy.Factory.create(newValue));
+    }
+
+    /**
+     * Start polling the queue.
+     * <p>
+     * Thread count is read on start, restart the poller to apply a new value.
+     */
+    public synchronized void start() {
+        if (subscription != null && !subscription.isDisposed()) {
+            log.info("queue is already started: location={}", location);
+            return;
+        }
+        int slotCount = queueConsumer.getQueueConfig().getSettings().getProcessingSettings().getThreadCount();
+        if (slotCount <= 0) {
+            log.info("queue is turned off: location={}", location);
+            return;
+        }
+        log.info("starting reactive queue: location={}, slotCount={}", location, slotCount);
+        subscription = pickTasks()
+                .flatMap(this::processTaskAndWait, slotCount)
+                .subscribe();
+    }
+
+    /**
+     * Stop polling the queue.
+     * <p>
+     * Tasks in progress are cancelled, their attempts are retried according to the failure settings.
+     */
+    public synchronized void stop() {
+        if (subscription == null) {
+            return;
+        }
+        log.info("stopping reactive queue: location={}", location);
+        subscription.dispose();
+        subscription = null;
+    }
+
+    /**
+     * Check whether the poller is started
+     *
+     * @return true, if the queue is polled
+     */
+    public synchronized boolean isStarted() {
+        return subscription != null && !subscription.isDisposed();
+    }
+
+    private Flux<TaskRecord> pickTasks() {
+        PollSettings pollSettings = queueConsumer.getQueueConfig().getSettings().getPollSettings();
+        return Mono.defer(() -> {
+            long pickStarted = System.currentTimeMillis();
+            return pickTaskDao.pickTask()
+                    .doOnNext(taskRecord -> taskLifecycleListener.picked(shardId, location, taskRecord,
+                            System.currentTimeMillis() - pickStarted));
+        })
+                .switchIfEmpty(Mono.defer(() -> Mono.delay(pollSettings.getNoTaskTimeout()).then(Mono.empty())))
+                .onErrorResume(exc -> {
+                    log.error("cannot pick task: location={}", location, exc);
+                    return Mono.delay(pollSettings.getFatalCrashTimeout()).then(Mono.empty());
+                })
+                .repeat();
+    }
+
+    private Mono<Void> processTaskAndWait(@Nonnull TaskRecord taskRecord) {
+        return processTask(taskRecord)
+                .then(Mono.defer(() -> Mono.delay(
+                        queueConsumer.getQueueConfig().getSettings().getPollSettings().getBetweenTaskTimeout())))
+                .then();
+    }
+
+    private Mono<Void> processTask(@Nonnull TaskRecord taskRecord) {
+        return Mono.defer(() -> {
+            taskLifecycleListener.started(shardId, location, taskRecord);
+            long processTaskStarted = System.currentTimeMillis();
+            Task<PayloadT> task = Task.<PayloadT>builder(shardId)
+                    .withCreatedAt(taskRecord.getCreatedAt())
+                    .withPayload(queueConsumer.getPayloadTransformer().toObject(taskRecord.getPayload()))
+                    .withAttemptsCount(taskRecord.getAttemptsCount())
+                    .withReenqueueAttemptsCount(taskRecord.getReenqueueAttemptsCount())
+                    .withTotalAttemptsCount(taskRecord.getTotalAttemptsCount())
+                    .withExtData(taskRecord.getExtData())
+                    .build();
+            return queueConsumer.execute(task)
+                    .switchIfEmpty(Mono.error(() -> new IllegalStateException("task execution result is empty")))
+                    .flatMap(executionResult -> {
+                        taskLifecycleListener.executed(shardId, location, taskRecord, executionResult,
+                                System.currentTimeMillis() - processTaskStarted);
+                        return handleResult(taskRecord, executionResult);
+                    });
+        })
+                .onErrorResume(Exception.class, exc -> {
+                    taskLifecycleListener.crashed(shardId, location, taskRecord, exc);
+                    return Mono.empty();
+                })
+                .doFinally(signalType -> taskLifecycleListener.finished(shardId, location, taskRecord));
+    }
+
+    private Mono<Void> handleResult(@Nonnull TaskRecord taskRecord, @Nonnull TaskExecutionResult executionResult) {
+        switch (executionResult.getActionType()) {
+            case FINISH:
+                return queueDao.deleteTask(location, taskRecord.getId()).then();
+            case REENQUEUE:
+                return queueDao.reenqueue(location, taskRecord.getId(), executionResult.getExecutionDelay()
+                        .orElseGet(() -> reenqueueRetryStrategy.calculateDelay(taskRecord))).then();
+            case FAIL:
+                return Mono.empty();
+            default:
+                return Mono.error(new IllegalStateException("unknown action type: " +
+                        executionResult.getActionType()));
+        }
+    }
+}
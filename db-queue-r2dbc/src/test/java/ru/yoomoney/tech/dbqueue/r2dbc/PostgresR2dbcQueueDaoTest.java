@@ -0,0 +1,84 @@
+package ru.yoomoney.tech.dbqueue.r2dbc;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import reactor.test.StepVerifier;
+import ru.yoomoney.tech.dbqueue.api.EnqueueParams;
+import ru.yoomoney.tech.dbqueue.settings.QueueId;
+import ru.yoomoney.tech.dbqueue.settings.QueueLocation;
+
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+import static ru.yoomoney.tech.dbqueue.r2dbc.utils.PostgresDatabaseInitializer.CUSTOM_SCHEMA;
+import static ru.yoomoney.tech.dbqueue.r2dbc.utils.PostgresDatabaseInitializer.CUSTOM_TABLE_NAME;
+import static ru.yoomoney.tech.dbqueue.r2dbc.utils.PostgresDatabaseInitializer.DEFAULT_SCHEMA;
+import static ru.yoomoney.tech.dbqueue.r2dbc.utils.PostgresDatabaseInitializer.DEFAULT_TABLE_NAME;
+import static ru.yoomoney.tech.dbqueue.r2dbc.utils.PostgresDatabaseInitializer.getConnectionFactory;
+import static ru.yoomoney.tech.dbqueue.r2dbc.utils.PostgresDatabaseInitializer.initialize;
+import static ru.yoomoney.tech.dbqueue.r2dbc.utils.PostgresDatabaseInitializer.queryForObject;
+
+/**
+ * @author Oleg Kandaurov
+ * @since 19.10.2026
+ */
+public class PostgresR2dbcQueueDaoTest {
+
+    @BeforeClass
+    public static void beforeClass() {
+        initialize();
+    }
+
+    private final PostgresR2dbcQueueDao defaultQueueDao =
+            new PostgresR2dbcQueueDao(getConnectionFactory(), DEFAULT_SCHEMA);
+    private final PostgresR2dbcQueueDao customQueueDao =
+            new PostgresR2dbcQueueDao(getConnectionFactory(), CUSTOM_SCHEMA);
+
+    @Test
+    public void enqueue_should_save_all_values() {
+        QueueLocation location = generateUniqueLocation(DEFAULT_TABLE_NAME);
+        Long enqueueId = defaultQueueDao.enqueue(location,
+                EnqueueParams.create("{}").withExecutionDelay(Duration.ofHours(1L))).block();
+        assertThat(queryForObject("select payload from " + DEFAULT_TABLE_NAME + " where id=" + enqueueId,
+                String.class), equalTo("{}"));
+        assertThat(queryForObject("select next_process_at > now() + interval '59 minutes' from " +
+                DEFAULT_TABLE_NAME + " where id=" + enqueueId, Boolean.class), equalTo(true));
+    }
+
+    @Test
+    public void enqueue_should_save_custom_fields() {
+        QueueLocation location = generateUniqueLocation(CUSTOM_TABLE_NAME);
+        Long enqueueId = customQueueDao.enqueue(location, EnqueueParams.create("{}")
+                .withPriority(5)
+                .withExtData("trace", "abc")).block();
+        assertThat(queryForObject("select pr || '/' || trace || '/' || coalesce(dk, 'null') from " +
+                CUSTOM_TABLE_NAME + " where qid=" + enqueueId, String.class), equalTo("5/abc/null"));
+    }
+
+    @Test
+    public void delete_should_remove_task() {
+        QueueLocation location = generateUniqueLocation(DEFAULT_TABLE_NAME);
+        Long enqueueId = defaultQueueDao.enqueue(location, new EnqueueParams<>()).block();
+        StepVerifier.create(defaultQueueDao.deleteTask(location, enqueueId)).expectNext(true).verifyComplete();
+        StepVerifier.create(defaultQueueDao.deleteTask(location, enqueueId)).expectNext(false).verifyComplete();
+    }
+
+    @Test
+    public void reenqueue_should_reset_attempts() {
+        QueueLocation location = generateUniqueLocation(DEFAULT_TABLE_NAME);
+        Long enqueueId = defaultQueueDao.enqueue(location, new EnqueueParams<>()).block();
+        StepVerifier.create(defaultQueueDao.reenqueue(location, enqueueId, Duration.ofHours(1L)))
+                .expectNext(true).verifyComplete();
+        assertThat(queryForObject("select reenqueue_attempt from " + DEFAULT_TABLE_NAME + " where id=" + enqueueId,
+                Integer.class), equalTo(1));
+        StepVerifier.create(defaultQueueDao.reenqueue(location, enqueueId + 1000, Duration.ZERO))
+                .expectNext(false).verifyComplete();
+    }
+
+    private static QueueLocation generateUniqueLocation(String tableName) {
+        return QueueLocation.builder().withTableName(tableName)
+                .withQueueId(new QueueId("test-queue-" + UUID.randomUUID())).build();
+    }
+}
@@ -0,0 +1,115 @@
+package ru.yoomoney.tech.dbqueue.r2dbc;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import reactor.test.StepVerifier;
+import ru.yoomoney.tech.dbqueue.api.EnqueueParams;
+import ru.yoomoney.tech.dbqueue.api.TaskRecord;
+import ru.yoomoney.tech.dbqueue.settings.FailRetryType;
+import ru.yoomoney.tech.dbqueue.settings.FailureSettings;
+import ru.yoomoney.tech.dbqueue.settings.QueueId;
+import ru.yoomoney.tech.dbqueue.settings.QueueLocation;
+
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+import static ru.yoomoney.tech.dbqueue.r2dbc.utils.PostgresDatabaseInitializer.CUSTOM_SCHEMA;
+import static ru.yoomoney.tech.dbqueue.r2dbc.utils.PostgresDatabaseInitializer.CUSTOM_TABLE_NAME;
+import static ru.yoomoney.tech.dbqueue.r2dbc.utils.PostgresDatabaseInitializer.DEFAULT_SCHEMA;
+import static ru.yoomoney.tech.dbqueue.r2dbc.utils.PostgresDatabaseInitializer.DEFAULT_TABLE_NAME;
+import static ru.yoomoney.tech.dbqueue.r2dbc.utils.PostgresDatabaseInitializer.getConnectionFactory;
+import static ru.yoomoney.tech.dbqueue.r2dbc.utils.PostgresDatabaseInitializer.initialize;
+import static ru.yoomoney.tech.dbqueue.r2dbc.utils.PostgresDatabaseInitializer.queryForObject;
+
+/**
+ * @author Oleg Kandaurov
+ * @since 19.10.2026
+ */
+public class PostgresR2dbcQueuePickTaskDaoTest {
+
+    @BeforeClass
+    public static void beforeClass() {
+        initialize();
+    }
+
+    private final PostgresR2dbcQueueDao defaultQueueDao =
+            new PostgresR2dbcQueueDao(getConnectionFactory(), DEFAULT_SCHEMA);
+    private final PostgresR2dbcQueueDao customQueueDao =
+            new PostgresR2dbcQueueDao(getConnectionFactory(), CUSTOM_SCHEMA);
+
+    @Test
+    public void should_pick_task_and_increment_attempts() {
+        QueueLocation location = generateUniqueLocation(DEFAULT_TABLE_NAME);
+        Long enqueueId = defaultQueueDao.enqueue(location, EnqueueParams.create("{}")).block();
+        PostgresR2dbcQueuePickTaskDao pickTaskDao = new PostgresR2dbcQueuePickTaskDao(getConnectionFactory(),
+                DEFAULT_SCHEMA, location, createFailureSettings());
+
+        TaskRecord taskRecord = pickTaskDao.pickTask().block();
+
+        assertThat(taskRecord.getId(), equalTo(enqueueId));
+        assertThat(taskRecord.getPayload(), equalTo("{}"));
+        assertThat(taskRecord.getAttemptsCount(), equalTo(1L));
+        assertThat(taskRecord.getTotalAttemptsCount(), equalTo(1L));
+        assertThat(queryForObject("select next_process_at > now() + interval '50 seconds' from " +
+                DEFAULT_TABLE_NAME + " where id=" + enqueueId, Boolean.class), equalTo(true));
+        StepVerifier.create(pickTaskDao.pickTask()).verifyComplete();
+    }
+
+    @Test
+    public void should_not_pick_delayed_task() {
+        QueueLocation location = generateUniqueLocation(DEFAULT_TABLE_NAME);
+        defaultQueueDao.enqueue(location, EnqueueParams.create("{}").withExecutionDelay(Duration.ofHours(1L)))
+                .block();
+        PostgresR2dbcQueuePickTaskDao pickTaskDao = new PostgresR2dbcQueuePickTaskDao(getConnectionFactory(),
+                DEFAULT_SCHEMA, location, createFailureSettings());
+
+        StepVerifier.create(pickTaskDao.pickTask()).verifyComplete();
+    }
+
+    @Test
+    public void should_pick_custom_fields() {
+        QueueLocation location = generateUniqueLocation(CUSTOM_TABLE_NAME);
+        customQueueDao.enqueue(location, EnqueueParams.create("custom").withPriority(9).withExtData("trace", "t"))
+                .block();
+        PostgresR2dbcQueuePickTaskDao pickTaskDao = new PostgresR2dbcQueuePickTaskDao(getConnectionFactory(),
+                CUSTOM_SCHEMA, location, createFailureSettings());
+
+        TaskRecord taskRecord = pickTaskDao.pickTask().block();
+
+        assertThat(taskRecord.getPayload(), equalTo("custom"));
+        assertThat(taskRecord.getPriority(), equalTo(9));
+        assertThat(taskRecord.getExtData().get("trace"), equalTo("t"));
+    }
+
+    @Test
+    public void should_apply_new_failure_settings() {
+        QueueLocation location = generateUniqueLocation(DEFAULT_TABLE_NAME);
+        Long enqueueId = defaultQueueDao.enqueue(location, EnqueueParams.create("{}")).block();
+        FailureSettings failureSettings = createFailureSettings();
+        PostgresR2dbcQueuePickTaskDao pickTaskDao = new PostgresR2dbcQueuePickTaskDao(getConnectionFactory(),
+                DEFAULT_SCHEMA, location, failureSettings);
+        failureSettings.setValue(FailureSettings.builder()
+                .withRetryType(FailRetryType.LINEAR_BACKOFF)
+                .withRetryInterval(Duration.ofHours(1))
+                .build());
+
+        pickTaskDao.pickTask().block();
+
+        assertThat(queryForObject("select next_process_at > now() + interval '59 minutes' from " +
+                DEFAULT_TABLE_NAME + " where id=" + enqueueId, Boolean.class), equalTo(true));
+    }
+
+    private static FailureSettings createFailureSettings() {
+        return FailureSettings.builder()
+                .withRetryType(FailRetryType.LINEAR_BACKOFF)
+                .withRetryInterval(Duration.ofMinutes(1))
+                .build();
+    }
+
+    private static QueueLocation generateUniqueLocation(String tableName) {
+        return QueueLocation.builder().withTableName(tableName)
+                .withQueueId(new QueueId("test-queue-" + UUID.randomUUID())).build();
+    }
+}
@@ -0,0 +1,242 @@
+package ru.yoomoney.tech.dbqueue.r2dbc;
+
+import org.junit.Test;
+import reactor.core.publisher.Mono;
+import ru.yoomoney.tech.dbqueue.api.EnqueueParams;
+import ru.yoomoney.tech.dbqueue.api.Task;
+import ru.yoomoney.tech.dbqueue.api.TaskExecutionResult;
+import ru.yoomoney.tech.dbqueue.api.TaskPayloadTransformer;
+import ru.yoomoney.tech.dbqueue.api.TaskRecord;
+import ru.yoomoney.tech.dbqueue.api.impl.NoopPayloadTransformer;
+import ru.yoomoney.tech.dbqueue.config.QueueShardId;
+import ru.yoomoney.tech.dbqueue.config.TaskLifecycleListener;
+import ru.yoomoney.tech.dbqueue.settings.ExtSettings;
+import ru.yoomoney.tech.dbqueue.settings.FailRetryType;
+import ru.yoomoney.tech.dbqueue.settings.FailureSettings;
+import ru.yoomoney.tech.dbqueue.settings.PollSettings;
+import ru.yoomoney.tech.dbqueue.settings.ProcessingMode;
+import ru.yoomoney.tech.dbqueue.settings.ProcessingSettings;
+import ru.yoomoney.tech.dbqueue.settings.QueueConfig;
+import ru.yoomoney.tech.dbqueue.settings.QueueId;
+import ru.yoomoney.tech.dbqueue.settings.QueueLocation;
+import ru.yoomoney.tech.dbqueue.settings.QueueSettings;
+import ru.yoomoney.tech.dbqueue.settings.ReenqueueRetryType;
+import ru.yoomoney.tech.dbqueue.settings.ReenqueueSettings;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.hasItems;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Oleg Kandaurov
+ * @since 19.10.2026
+ */
+public class ReactiveQueuePollerTest {
+
+    private static final QueueShardId SHARD_ID = new QueueShardId("s1");
+    private static final QueueLocation LOCATION = QueueLocation.builder().withTableName("queue_test")
+            .withQueueId(new QueueId("test_queue")).build();
+
+    @Test
+    public void should_limit_concurrent_tasks_by_thread_count() throws Exception {
+        StubQueueDao queueDao = new StubQueueDao(5);
+        StubQueuePickTaskDao pickTaskDao = new StubQueuePickTaskDao(1L, 2L, 3L, 4L, 5L);
+        AtomicInteger inProgress = new AtomicInteger();
+        AtomicInteger maxInProgress = new AtomicInteger();
+        ReactiveQueuePoller<String> poller = new ReactiveQueuePoller<>(SHARD_ID,
+                new StubQueueConsumer(2, task -> Mono.fromCallable(() -> {
+                    maxInProgress.accumulateAndGet(inProgress.incrementAndGet(), Math::max);
+                    return TaskExecutionResult.finish();
+                }).delayElement(Duration.ofMillis(100L)).doOnNext(result -> inProgress.decrementAndGet())),
+                queueDao, pickTaskDao, new RecordingTaskLifecycleListener());
+
+        poller.start();
+        assertTrue(queueDao.completed.await(5L, TimeUnit.SECONDS));
+        poller.stop();
+
+        assertThat(maxInProgress.get(), equalTo(2));
+        assertThat(queueDao.deletedIds, hasItems(1L, 2L, 3L, 4L, 5L));
+    }
+
+    @Test
+    public void should_reenqueue_task_and_notify_listener_on_crash() throws Exception {
+        StubQueueDao queueDao = new StubQueueDao(1);
+        StubQueuePickTaskDao pickTaskDao = new StubQueuePickTaskDao(1L, 2L);
+        RecordingTaskLifecycleListener listener = new RecordingTaskLifecycleListener();
+        ReactiveQueuePoller<String> poller = new ReactiveQueuePoller<>(SHARD_ID,
+                new StubQueueConsumer(1, task -> task.getPayloadOrThrow().equals("1") ?
+                        Mono.just(TaskExecutionResult.reenqueue(Duration.ofMinutes(1L))) :
+                        Mono.error(new IllegalStateException("fail"))),
+                queueDao, pickTaskDao, listener);
+
+        poller.start();
+        assertTrue(queueDao.completed.await(5L, TimeUnit.SECONDS));
+        assertTrue(listener.finished.await(5L, TimeUnit.SECONDS));
+        poller.stop();
+
+        assertThat(queueDao.reenqueuedIds, hasItems(1L));
+        assertThat(listener.events, equalTo(Arrays.asList(
+                "picked:1", "started:1", "executed:1", "finished:1",
+                "picked:2", "started:2", "crashed:2", "finished:2")));
+    }
+
+    private static QueueConfig createQueueConfig(int threadCount) {
+        return new QueueConfig(LOCATION, QueueSettings.builder()
+                .withProcessingSettings(ProcessingSettings.builder()
+                        .withProcessingMode(ProcessingMode.SEPARATE_TRANSACTIONS)
+                        .withThreadCount(threadCount).build())
+                .withPollSettings(PollSettings.builder()
+                        .withBetweenTaskTimeout(Duration.ZERO)
+                        .withNoTaskTimeout(Duration.ofMillis(10L))
+                        .withFatalCrashTimeout(Duration.ofMillis(10L)).build())
+                .withFailureSettings(FailureSettings.builder()
+                        .withRetryType(FailRetryType.GEOMETRIC_BACKOFF)
+                        .withRetryInterval(Duration.ofMinutes(1L)).build())
+                .withReenqueueSettings(ReenqueueSettings.builder()
+                        .withRetryType(ReenqueueRetryType.MANUAL).build())
+                .withExtSettings(ExtSettings.builder().withSettings(new HashMap<>()).build())
+                .build());
+    }
+
+    private static class StubQueueConsumer implements ReactiveQueueConsumer<String> {
+
+        private final QueueConfig queueConfig;
+        private final Function<Task<String>, Mono<TaskExecutionResult>> execution;
+
+        StubQueueConsumer(int threadCount, Function<Task<String>, Mono<TaskExecutionResult>> execution) {
+            this.queueConfig = createQueueConfig(threadCount);
+            this.execution = execution;
+        }
+
+        @Nonnull
+        @Override
+        public Mono<TaskExecutionResult> execute(@Nonnull Task<String> task) {
+            return execution.apply(task);
+        }
+
+        @Nonnull
+        @Override
+        public QueueConfig getQueueConfig() {
+            return queueConfig;
+        }
+
+        @Nonnull
+        @Override
+        public TaskPayloadTransformer<String> getPayloadTransformer() {
+            return NoopPayloadTransformer.getInstance();
+        }
+    }
+
+    private static class StubQueuePickTaskDao implements ReactiveQueuePickTaskDao {
+
+        private final Queue<Long> taskIds = new ConcurrentLinkedQueue<>();
+
+        StubQueuePickTaskDao(Long... taskIds) {
+            this.taskIds.addAll(Arrays.asList(taskIds));
+        }
+
+        @Nonnull
+        @Override
+        public Mono<TaskRecord> pickTask() {
+            return Mono.fromCallable(taskIds::poll)
+                    .map(taskId -> TaskRecord.builder()
+                            .withId(taskId)
+                            .withPayload(String.valueOf(taskId))
+                            .withCreatedAt(ZonedDateTime.now())
+                            .withNextProcessAt(ZonedDateTime.now())
+                            .build());
+        }
+    }
+
+    private static class StubQueueDao implements ReactiveQueueDao {
+
+        private final List<Long> deletedIds = new CopyOnWriteArrayList<>();
+        private final List<Long> reenqueuedIds = new CopyOnWriteArrayList<>();
+        private final CountDownLatch completed;
+
+        StubQueueDao(int expectedCompletions) {
+            this.completed = new CountDownLatch(expectedCompletions);
+        }
+
+        @Nonnull
+        @Override
+        public Mono<Long> enqueue(@Nonnull QueueLocation location, @Nonnull EnqueueParams<String> enqueueParams) {
+            return Mono.error(new UnsupportedOperationException());
+        }
+
+        @Nonnull
+        @Override
+        public Mono<Boolean> deleteTask(@Nonnull QueueLocation location, long taskId) {
+            return Mono.fromCallable(() -> {
+                deletedIds.add(taskId);
+                completed.countDown();
+                return true;
+            });
+        }
+
+        @Nonnull
+        @Override
+        public Mono<Boolean> reenqueue(@Nonnull QueueLocation location, long taskId,
+                                       @Nonnull Duration executionDelay) {
+            return Mono.fromCallable(() -> {
+                reenqueuedIds.add(taskId);
+                completed.countDown();
+                return true;
+            });
+        }
+    }
+
+    private static class RecordingTaskLifecycleListener implements TaskLifecycleListener {
+
+        private final List<String> events = new CopyOnWriteArrayList<>();
+        private final CountDownLatch finished = new CountDownLatch(2);
+
+        @Override
+        public void picked(@Nonnull QueueShardId shardId, @Nonnull QueueLocation location,
+                           @Nonnull TaskRecord taskRecord, long pickTaskTime) {
+            events.add("picked:" + taskRecord.getId());
+        }
+
+        @Override
+        public void started(@Nonnull QueueShardId shardId, @Nonnull QueueLocation location,
+                            @Nonnull TaskRecord taskRecord) {
+            events.add("started:" + taskRecord.getId());
+        }
+
+        @Override
+        public void executed(@Nonnull QueueShardId shardId, @Nonnull QueueLocation location,
+                             @Nonnull TaskRecord taskRecord, @Nonnull TaskExecutionResult executionResult,
+                             long processTaskTime) {
+            events.add("executed:" + taskRecord.getId());
+        }
+
+        @Override
+        public void finished(@Nonnull QueueShardId shardId, @Nonnull QueueLocation location,
+                             @Nonnull TaskRecord taskRecord) {
+            events.add("finished:" + taskRecord.getId());
+            finished.countDown();
+        }
+
+        @Override
+        public void crashed(@Nonnull QueueShardId shardId, @Nonnull QueueLocation location,
+                            @Nonnull TaskRecord taskRecord, @Nullable Exception exc) {
+            events.add("crashed:" + taskRecord.getId());
+        }
+    }
+}
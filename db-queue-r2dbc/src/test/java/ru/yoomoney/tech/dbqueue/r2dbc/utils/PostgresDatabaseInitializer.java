@@ -0,0 +1,131 @@
+package ru.yoomoney.tech.dbqueue.r2dbc.utils;
+
+import io.r2dbc.postgresql.PostgresqlConnectionConfiguration;
+import io.r2dbc.postgresql.PostgresqlConnectionFactory;
+import io.r2dbc.spi.ConnectionFactory;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.utility.TestcontainersConfiguration;
+import ru.yoomoney.tech.dbqueue.config.QueueTableSchema;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collections;
+import java.util.Optional;
+
+/**
+ * @author Oleg Kandaurov
+ * @since 19.10.2026
+ */
+public class PostgresDatabaseInitializer {
+
+    public static final String DEFAULT_TABLE_NAME = "queue_default";
+    public static final String CUSTOM_TABLE_NAME = "queue_custom";
+    public static final QueueTableSchema DEFAULT_SCHEMA = QueueTableSchema.builder().build();
+    public static final QueueTableSchema CUSTOM_SCHEMA = QueueTableSchema.builder()
+            .withIdField("qid")
+            .withQueueNameField("qn")
+            .withPayloadField("pl")
+            .withCreatedAtField("ct")
+            .withNextProcessAtField("pt")
+            .withAttemptField("at")
+            .withReenqueueAttemptField("rat")
+            .withTotalAttemptField("tat")
+            .withExtFields(Collections.singletonList("trace"))
+            .withDeduplicationKeyField("dk")
+            .withCoalescingKeyField("ck")
+            .withPriorityField("pr")
+            .build();
+
+    private static final String PG_CUSTOM_TABLE_DDL = "CREATE TABLE %1$s (\n" +
+            "  qid   BIGSERIAL PRIMARY KEY,\n" +
+            "  qn    TEXT NOT NULL,\n" +
+            "  pl    TEXT,\n" +
+            "  ct    TIMESTAMP WITH TIME ZONE DEFAULT now(),\n" +
+            "  pt    TIMESTAMP WITH TIME ZONE DEFAULT now(),\n" +
+            "  at    INTEGER                  DEFAULT 0,\n" +
+            "  rat   INTEGER                  DEFAULT 0,\n" +
+            "  tat   INTEGER                  DEFAULT 0,\n" +
+            "  trace TEXT,\n" +
+            "  dk    TEXT,\n" +
+            "  ck    TEXT,\n" +
+            "  pr    INTEGER                  DEFAULT 0\n" +
+            ");" +
+            "CREATE INDEX %1$s_name_time_desc_idx\n" +
+            "  ON %1$s (qn, pt, qid DESC);\n";
+
+    private static final String PG_DEFAULT_TABLE_DDL = "CREATE TABLE %1$s (\n" +
+            "  id                BIGSERIAL PRIMARY KEY,\n" +
+            "  queue_name        TEXT NOT NULL,\n" +
+            "  payload           TEXT,\n" +
+            "  created_at        TIMESTAMP WITH TIME ZONE DEFAULT now(),\n" +
+            "  next_process_at   TIMESTAMP WITH TIME ZONE DEFAULT now(),\n" +
+            "  attempt           INTEGER                  DEFAULT 0,\n" +
+            "  reenqueue_attempt INTEGER                  DEFAULT 0,\n" +
+            "  total_attempt     INTEGER                  DEFAULT 0\n" +
+            ");" +
+            "CREATE INDEX %1$s_name_time_desc_idx\n" +
+            "  ON %1$s (queue_name, next_process_at, id DESC);\n";
+
+    private static PostgreSQLContainer<?> dbContainer;
+    private static ConnectionFactory connectionFactory;
+
+    public static synchronized void initialize() {
+        if (connectionFactory != null) {
+            return;
+        }
+
+        String ryukImage = Optional.ofNullable(System.getProperty("testcontainers.ryuk.container.image"))
+                .orElse("quay.io/testcontainers/ryuk:0.2.3");
+        TestcontainersConfiguration.getInstance()
+                .updateGlobalConfig("ryuk.container.image", ryukImage);
+
+        String postgresImage = Optional.ofNullable(System.getProperty("testcontainers.postgresql.container.image"))
+                .orElse("postgres:9.5");
+        dbContainer = new PostgreSQLContainer<>(postgresImage);
+        dbContainer.withEnv("POSTGRES_INITDB_ARGS", "--nosync");
+        dbContainer.withCommand("postgres -c fsync=off -c full_page_writes=off -c synchronous_commit=off");
+        dbContainer.start();
+        connectionFactory = new PostgresqlConnectionFactory(PostgresqlConnectionConfiguration.builder()
+                .host(dbContainer.getHost())
+                .port(dbContainer.getMappedPort(PostgreSQLContainer.POSTGRESQL_PORT))
+                .database(dbContainer.getDatabaseName())
+                .username(dbContainer.getUsername())
+                .password(dbContainer.getPassword())
+                .build());
+
+        executeSql(String.format(PG_DEFAULT_TABLE_DDL, DEFAULT_TABLE_NAME));
+        executeSql(String.format(PG_CUSTOM_TABLE_DDL, CUSTOM_TABLE_NAME));
+    }
+
+    public static void executeSql(String sql) {
+        try (Connection connection = getJdbcConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static <T> T queryForObject(String sql, Class<T> type) {
+        try (Connection connection = getJdbcConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(sql)) {
+            return rs.next() ? rs.getObject(1, type) : null;
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static ConnectionFactory getConnectionFactory() {
+        initialize();
+        return connectionFactory;
+    }
+
+    private static Connection getJdbcConnection() throws SQLException {
+        return DriverManager.getConnection(dbContainer.getJdbcUrl(), dbContainer.getUsername(),
+                dbContainer.getPassword());
+    }
+}
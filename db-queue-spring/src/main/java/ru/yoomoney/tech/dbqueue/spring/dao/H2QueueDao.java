@@ -1,5 +1,7 @@
 package ru.yoomoney.tech.dbqueue.spring.dao;
 
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.jdbc.core.JdbcOperations;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
@@ -7,11 +9,14 @@ import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import ru.yoomoney.tech.dbqueue.api.EnqueueParams;
 import ru.yoomoney.tech.dbqueue.config.QueueTableSchema;
+import ru.yoomoney.tech.dbqueue.dao.EnqueueOutcome;
 import ru.yoomoney.tech.dbqueue.dao.QueueDao;
 import ru.yoomoney.tech.dbqueue.settings.QueueLocation;
 
 import javax.annotation.Nonnull;
 import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
@@ -23,9 +28,21 @@ import static java.util.Objects.requireNonNull;
  * Database access object to manage tasks in the queue for H2 database type.
  */
 public class H2QueueDao implements QueueDao {
+    /**
+     * Limit of attempts to insert a task with a deduplication key,
+     * when existing task with the same key is removed concurrently
+     */
+    private static final int MAX_ENQUEUE_IF_ABSENT_ATTEMPTS = 3;
+
     private final Map<QueueLocation, String> enqueueSqlCache = new ConcurrentHashMap<>();
+    private final Map<QueueLocation, String> enqueueIfAbsentSqlCache = new ConcurrentHashMap<>();
+    private final Map<QueueLocation, String> selectByDeduplicationKeySqlCache = new ConcurrentHashMap<>();
+    private final Map<QueueLocation, String> selectPendingByCoalescingKeySqlCache = new ConcurrentHashMap<>();
+    private final Map<QueueLocation, String> coalesceSqlCache = new ConcurrentHashMap<>();
     private final Map<QueueLocation, String> deleteSqlCache = new ConcurrentHashMap<>();
     private final Map<QueueLocation, String> reenqueueSqlCache = new ConcurrentHashMap<>();
+    private final Map<QueueLocation, String> extendLeasesSqlCache = new ConcurrentHashMap<>();
+    private final Map<QueueLocation, String> countSqlCache = new ConcurrentHashMap<>();
 
     private final NamedParameterJdbcTemplate jdbcTemplate;
     private final QueueTableSchema queueTableSchema;
@@ -42,10 +59,96 @@ public class H2QueueDao implements QueueDao {
         requireNonNull(location, "location can't be null");
         requireNonNull(enqueueParams, "params can't be null");
 
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(
+                enqueueSqlCache.computeIfAbsent(location, this::createEnqueueSql),
+                createEnqueueParams(location, enqueueParams), keyHolder, new String[]{queueTableSchema.getIdField()});
+
+        Long id = keyHolder.getKeyAs(Long.class);
+        if (id == null) {
+            throw new IllegalArgumentException("id can't be null");
+        }
+        return id;
+    }
+
+    @Nonnull
+    @Override
+    public EnqueueOutcome enqueueIfAbsent(@Nonnull QueueLocation location,
+                                          @Nonnull EnqueueParams<String> enqueueParams) {
+        requireNonNull(location, "location can't be null");
+        requireNonNull(enqueueParams, "params can't be null");
+        if (!queueTableSchema.getDeduplicationKeyField().isPresent()) {
+            throw new IllegalStateException("deduplication key field is not configured in queue table schema");
+        }
+        if (!enqueueParams.getDeduplicationKey().isPresent()) {
+            throw new IllegalArgumentException("deduplication key is not set: location=" + location);
+        }
+
+        MapSqlParameterSource params = createEnqueueParams(location, enqueueParams);
+        for (int attempt = 0; attempt < MAX_ENQUEUE_IF_ABSENT_ATTEMPTS; attempt++) {
+            try {
+                KeyHolder keyHolder = new GeneratedKeyHolder();
+                jdbcTemplate.update(
+                        enqueueIfAbsentSqlCache.computeIfAbsent(location, this::createEnqueueIfAbsentSql),
+                        params, keyHolder, new String[]{queueTableSchema.getIdField()});
+                Long id = keyHolder.getKeyAs(Long.class);
+                if (id != null) {
+                    return EnqueueOutcome.created(id);
+                }
+            } catch (DuplicateKeyException ignored) {
+                // concurrent transaction inserted a task with the same key, falling back to select
+            }
+            List<Long> existingIds = jdbcTemplate.queryForList(
+                    selectByDeduplicationKeySqlCache.computeIfAbsent(location, this::createSelectByDeduplicationKeySql),
+                    params, Long.class);
+            if (!existingIds.isEmpty()) {
+                return EnqueueOutcome.duplicate(existingIds.get(0));
+            }
+        }
+        throw new IllegalStateException("cannot enqueue task with deduplication key: location=" + location +
+                ", deduplicationKey=" + enqueueParams.getDeduplicationKey().get());
+    }
+
+    @Nonnull
+    @Override
+    public EnqueueOutcome enqueueOrCoalesce(@Nonnull QueueLocation location,
+                                            @Nonnull EnqueueParams<String> enqueueParams) {
+        requireNonNull(location, "location can't be null");
+        requireNonNull(enqueueParams, "params can't be null");
+        if (!queueTableSchema.getCoalescingKeyField().isPresent()) {
+            throw new IllegalStateException("coalescing key field is not configured in queue table schema");
+        }
+        if (!enqueueParams.getCoalescingKey().isPresent()) {
+            throw new IllegalArgumentException("coalescing key is not set: location=" + location);
+        }
+
+        MapSqlParameterSource params = createEnqueueParams(location, enqueueParams);
+        List<Long> pendingIds = jdbcTemplate.queryForList(
+                selectPendingByCoalescingKeySqlCache.computeIfAbsent(location,
+                        this::createSelectPendingByCoalescingKeySql),
+                params, Long.class);
+        if (!pendingIds.isEmpty()) {
+            Long pendingId = pendingIds.get(0);
+            // attempt condition is checked again, since H2 has no "skip locked" and the task might be picked already
+            int updatedRows = jdbcTemplate.update(
+                    coalesceSqlCache.computeIfAbsent(location, this::createCoalesceSql),
+                    params.addValue("id", pendingId));
+            if (updatedRows != 0) {
+                return EnqueueOutcome.coalesced(pendingId);
+            }
+        }
+        return EnqueueOutcome.created(enqueue(location, enqueueParams));
+    }
+
+    private MapSqlParameterSource createEnqueueParams(@Nonnull QueueLocation location,
+                                                      @Nonnull EnqueueParams<String> enqueueParams) {
         MapSqlParameterSource params = new MapSqlParameterSource()
                 .addValue("queueName", location.getQueueId().asString())
                 .addValue("payload", enqueueParams.getPayload())
-                .addValue("executionDelay", enqueueParams.getExecutionDelay().getSeconds());
+                .addValue("executionDelay", enqueueParams.getExecutionDelay().getSeconds())
+                .addValue("deduplicationKey", enqueueParams.getDeduplicationKey().orElse(null))
+                .addValue("coalescingKey", enqueueParams.getCoalescingKey().orElse(null))
+                .addValue("priority", enqueueParams.getPriority());
 
         queueTableSchema
                 .getExtFields()
@@ -53,17 +156,7 @@ public class H2QueueDao implements QueueDao {
         enqueueParams
                 .getExtData()
                 .forEach(params::addValue);
-
-        KeyHolder keyHolder = new GeneratedKeyHolder();
-        jdbcTemplate.update(
-                enqueueSqlCache.computeIfAbsent(location, this::createEnqueueSql),
-                params, keyHolder, new String[]{queueTableSchema.getIdField()});
-
-        Long id = keyHolder.getKeyAs(Long.class);
-        if (id == null) {
-            throw new IllegalArgumentException("id can't be null");
-        }
-        return id;
+        return params;
     }
 
     @Override
@@ -94,26 +187,97 @@ public class H2QueueDao implements QueueDao {
         return updatedRows != 0;
     }
 
+    @Override
+    public int extendLeases(@Nonnull QueueLocation location, @Nonnull Collection<Long> taskIds,
+                            @Nonnull Duration leaseDuration) {
+        requireNonNull(location);
+        requireNonNull(taskIds);
+        requireNonNull(leaseDuration);
+        if (taskIds.isEmpty()) {
+            return 0;
+        }
+        return jdbcTemplate.update(extendLeasesSqlCache.computeIfAbsent(location, this::createExtendLeasesSql),
+                new MapSqlParameterSource()
+                        .addValue("ids", taskIds)
+                        .addValue("leaseDuration", leaseDuration.getSeconds()));
+    }
+
+    @Override
+    @SuppressFBWarnings("NP_NULL_ON_SOME_PATH_FROM_RETURN_VALUE")
+    public long countTasks(@Nonnull QueueLocation location) {
+        requireNonNull(location, "location can't be null");
+        return requireNonNull(jdbcTemplate.queryForObject(countSqlCache.computeIfAbsent(location, this::createCountSql),
+                new MapSqlParameterSource("queueName", location.getQueueId().asString()), Long.class));
+    }
+
     private String createEnqueueSql(@Nonnull QueueLocation location) {
+        return String.format("INSERT INTO %s (%s) VALUES (%s)",
+                location.getTableName(),
+                createInsertColumns(location),
+                createInsertValues(location));
+    }
+
+    private String createEnqueueIfAbsentSql(@Nonnull QueueLocation location) {
+        return String.format("" +
+                        "INSERT INTO %s (%s) " +
+                        "SELECT %s FROM DUAL " +
+                        "WHERE NOT EXISTS (SELECT 1 FROM %s WHERE %s = :queueName AND %s = :deduplicationKey)",
+                location.getTableName(),
+                createInsertColumns(location),
+                createInsertValues(location),
+                location.getTableName(),
+                queueTableSchema.getQueueNameField(),
+                queueTableSchema.getDeduplicationKeyField().orElseThrow(IllegalStateException::new));
+    }
+
+    private String createSelectByDeduplicationKeySql(@Nonnull QueueLocation location) {
+        return String.format("SELECT %s FROM %s WHERE %s = :queueName AND %s = :deduplicationKey",
+                queueTableSchema.getIdField(),
+                location.getTableName(),
+                queueTableSchema.getQueueNameField(),
+                queueTableSchema.getDeduplicationKeyField().orElseThrow(IllegalStateException::new));
+    }
+
+    private String createSelectPendingByCoalescingKeySql(@Nonnull QueueLocation location) {
+        return String.format("SELECT %s FROM %s WHERE %s = :queueName AND %s = :coalescingKey AND %s = 0 LIMIT 1",
+                queueTableSchema.getIdField(),
+                location.getTableName(),
+                queueTableSchema.getQueueNameField(),
+                queueTableSchema.getCoalescingKeyField().orElseThrow(IllegalStateException::new),
+                queueTableSchema.getAttemptField());
+    }
+
+    private String createCoalesceSql(@Nonnull QueueLocation location) {
+        return String.format("" +
+                        "UPDATE %s " +
+                        "SET " +
+                        "   %s = :payload, " +
+                        "   %s = TIMESTAMPADD(SECOND, :executionDelay , NOW()) " +
+                        "   %s " +
+                        "WHERE %s = :id AND %s = 0",
+                location.getTableName(),
+                queueTableSchema.getPayloadField(),
+                queueTableSchema.getNextProcessAtField(),
+                queueTableSchema.getExtFields()
+                        .stream()
+                        .map(field -> ", " + field + " = :" + field)
+                        .collect(Collectors.joining()),
+                queueTableSchema.getIdField(),
+                queueTableSchema.getAttemptField());
+    }
+
+    private String createInsertColumns(@Nonnull QueueLocation location) {
         return String.format("" +
-                        "INSERT INTO %s (" +
                         "   %s " +
                         "   %s, " +
                         "   %s, " +
                         "   %s, " +
                         "   %s, " +
                         "   %s " +
-                        "   %s" +
-                        ") VALUES (" +
                         "   %s " +
-                        "   :queueName, " +
-                        "   :payload, " +
-                        "   TIMESTAMPADD(SECOND, :executionDelay , NOW()), " +
-                        "   0, " +
-                        "   0 " +
                         "   %s " +
-                        ")",
-                location.getTableName(),
+                        "   %s " +
+                        "   %s",
                 location.getIdSequence()
                         .map(x -> queueTableSchema.getIdField())
                         .map(field -> field + ",")
@@ -123,25 +287,54 @@ public class H2QueueDao implements QueueDao {
                 queueTableSchema.getNextProcessAtField(),
                 queueTableSchema.getReenqueueAttemptField(),
                 queueTableSchema.getTotalAttemptField(),
+                queueTableSchema.getDeduplicationKeyField()
+                        .map(field -> ", " + field)
+                        .orElse(""),
+                queueTableSchema.getCoalescingKeyField()
+                        .map(field -> ", " + field)
+                        .orElse(""),
+                queueTableSchema.getPriorityField()
+                        .map(field -> ", " + field)
+                        .orElse(""),
                 queueTableSchema.getExtFields().isEmpty()
                         ? "" :
                         queueTableSchema
                                 .getExtFields()
                                 .stream()
-                                .collect(Collectors.joining(", ", ", ", "")),
+                                .collect(Collectors.joining(", ", ", ", "")));
+    }
 
+    private String createInsertValues(@Nonnull QueueLocation location) {
+        return String.format("" +
+                        "   %s " +
+                        "   :queueName, " +
+                        "   :payload, " +
+                        "   TIMESTAMPADD(SECOND, :executionDelay , NOW()), " +
+                        "   0, " +
+                        "   0 " +
+                        "   %s " +
+                        "   %s " +
+                        "   %s " +
+                        "   %s ",
                 location.getIdSequence()
                         .map(seq -> String.format(" NEXTVAL('%s'), ", seq))
                         .orElse(""),
-
+                queueTableSchema.getDeduplicationKeyField()
+                        .map(ignored -> ", :deduplicationKey")
+                        .orElse(""),
+                queueTableSchema.getCoalescingKeyField()
+                        .map(ignored -> ", :coalescingKey")
+                        .orElse(""),
+                queueTableSchema.getPriorityField()
+                        .map(ignored -> ", :priority")
+                        .orElse(""),
                 queueTableSchema.getExtFields().isEmpty()
                         ? "" :
                         queueTableSchema
                                 .getExtFields()
                                 .stream()
                                 .map(field -> ":" + field)
-                                .collect(Collectors.joining(", ", ", ", ""))
-        );
+                                .collect(Collectors.joining(", ", ", ", "")));
     }
 
     private String createDeleteSql(@Nonnull QueueLocation location) {
@@ -151,6 +344,12 @@ public class H2QueueDao implements QueueDao {
                 queueTableSchema.getIdField());
     }
 
+    private String createCountSql(@Nonnull QueueLocation location) {
+        return String.format("SELECT COUNT(*) FROM %s WHERE %s = :queueName",
+                location.getTableName(),
+                queueTableSchema.getQueueNameField());
+    }
+
     private String createReenqueueSql(QueueLocation location) {
         return String.format("" +
                         "UPDATE %s " +
@@ -169,4 +368,10 @@ public class H2QueueDao implements QueueDao {
                 queueTableSchema.getQueueNameField()
         );
     }
+
+    private String createExtendLeasesSql(@Nonnull QueueLocation location) {
+        return "UPDATE " + location.getTableName() + " SET " + queueTableSchema.getNextProcessAtField() +
+                " = TIMESTAMPADD(SECOND, :leaseDuration, NOW()) " +
+                "WHERE " + queueTableSchema.getIdField() + " IN (:ids)";
+    }
 }
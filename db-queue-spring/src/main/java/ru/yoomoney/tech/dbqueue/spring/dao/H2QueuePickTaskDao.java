@@ -9,6 +9,7 @@ import ru.yoomoney.tech.dbqueue.config.QueueTableSchema;
 import ru.yoomoney.tech.dbqueue.dao.QueuePickTaskDao;
 import ru.yoomoney.tech.dbqueue.settings.FailRetryType;
 import ru.yoomoney.tech.dbqueue.settings.FailureSettings;
+import ru.yoomoney.tech.dbqueue.settings.QueueId;
 import ru.yoomoney.tech.dbqueue.settings.QueueLocation;
 
 import javax.annotation.Nonnull;
@@ -17,6 +18,7 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -42,12 +44,31 @@ public class H2QueuePickTaskDao implements QueuePickTaskDao {
     @Nonnull
     private final QueueLocation queueLocation;
     private final FailureSettings failureSettings;
-
+    @Nullable
+    private final List<String> groupQueueNames;
 
     public H2QueuePickTaskDao(@Nonnull JdbcOperations jdbcOperations,
                               @Nonnull QueueTableSchema queueTableSchema,
                               @Nonnull QueueLocation queueLocation,
                               @Nonnull FailureSettings failureSettings) {
+        this(jdbcOperations, queueTableSchema, queueLocation, failureSettings, null);
+    }
+
+    public H2QueuePickTaskDao(@Nonnull JdbcOperations jdbcOperations,
+                              @Nonnull QueueTableSchema queueTableSchema,
+                              @Nonnull QueueLocation groupLocation,
+                              @Nonnull Collection<QueueId> queueIds,
+                              @Nonnull FailureSettings failureSettings) {
+        this(jdbcOperations, queueTableSchema, groupLocation, failureSettings,
+                Objects.requireNonNull(queueIds).stream().map(QueueId::asString).collect(Collectors.toList()));
+    }
+
+    private H2QueuePickTaskDao(@Nonnull JdbcOperations jdbcOperations,
+                               @Nonnull QueueTableSchema queueTableSchema,
+                               @Nonnull QueueLocation queueLocation,
+                               @Nonnull FailureSettings failureSettings,
+                               @Nullable List<String> groupQueueNames) {
+        this.groupQueueNames = groupQueueNames;
         this.jdbcTemplate = new NamedParameterJdbcTemplate(Objects.requireNonNull(jdbcOperations));
         this.queueTableSchema = Objects.requireNonNull(queueTableSchema);
         this.queueLocation = Objects.requireNonNull(queueLocation);
@@ -60,6 +81,57 @@ public class H2QueuePickTaskDao implements QueuePickTaskDao {
     @Nullable
     @Override
     public TaskRecord pickTask() {
+        return pickTask(null, "", null);
+    }
+
+    @Nullable
+    @Override
+    public TaskRecord pickTaskByPriority(int priority) {
+        if (!queueTableSchema.getPriorityField().isPresent()) {
+            throw new UnsupportedOperationException("priority field is not configured in queue table schema");
+        }
+        return pickTask(priority, "", null);
+    }
+
+    @Nullable
+    @Override
+    public TaskRecord pickTaskWithKeyLimit(@Nullable Integer priority, int keyConcurrencyLimit) {
+        if (!queueTableSchema.getConcurrencyKeyField().isPresent() ||
+                (priority != null && !queueTableSchema.getPriorityField().isPresent())) {
+            throw new UnsupportedOperationException("concurrency key field or priority field " +
+                    "is not configured in queue table schema");
+        }
+        return pickTask(priority, getKeyLimitCondition(queueLocation, queueTableSchema, failureSettings),
+                keyConcurrencyLimit);
+    }
+
+    @Nullable
+    @Override
+    public TaskRecord pickTaskInKeyOrder(@Nullable Integer priority) {
+        if (!queueTableSchema.getConcurrencyKeyField().isPresent() ||
+                (priority != null && !queueTableSchema.getPriorityField().isPresent())) {
+            throw new UnsupportedOperationException("concurrency key field or priority field " +
+                    "is not configured in queue table schema");
+        }
+        return pickTask(priority, getKeyOrderCondition(queueLocation, queueTableSchema), null);
+    }
+
+    @Nullable
+    @Override
+    public TaskRecord pickAndDeleteTask() {
+        TaskRecord taskRecord = pickTask(null, "", null);
+        if (taskRecord != null) {
+            jdbcTemplate.update(String.format("DELETE FROM %s WHERE %s = :taskId",
+                            queueLocation.getTableName(), queueTableSchema.getIdField()),
+                    new MapSqlParameterSource("taskId", taskRecord.getId()));
+        }
+        return taskRecord;
+    }
+
+    @Nullable
+    private TaskRecord pickTask(@Nullable Integer priority,
+                                @Nonnull String keyCondition,
+                                @Nullable Integer keyConcurrencyLimit) {
         String queueId = queueLocation.getQueueId().asString();
 
         Long taskId = rowIdLocker.lock(
@@ -67,9 +139,14 @@ public class H2QueuePickTaskDao implements QueuePickTaskDao {
                 rowIds -> {
                     List<Long> ids = jdbcTemplate
                             .queryForList(
-                                    getSelectSql(queueLocation, queueTableSchema),
+                                    getSelectSql(queueLocation, queueTableSchema, priority != null,
+                                            groupQueueNames != null, keyCondition),
                                     new MapSqlParameterSource()
                                             .addValue("queueId", queueId)
+                                            .addValue("queueNames", groupQueueNames)
+                                            .addValue("priority", priority)
+                                            .addValue("keyConcurrencyLimit", keyConcurrencyLimit)
+                                            .addValue("retryInterval", failureSettings.getRetryInterval().getSeconds())
                                             .addValue("rowIds", rowIds),
                                     Long.class);
                     return DataAccessUtils.singleResult(ids);
@@ -91,7 +168,7 @@ public class H2QueuePickTaskDao implements QueuePickTaskDao {
 
 
             return jdbcTemplate.query(
-                    getReturnSql(queueLocation, queueTableSchema),
+                    getReturnSql(queueLocation, queueTableSchema, groupQueueNames != null),
                     new MapSqlParameterSource("taskId", taskId),
                     (ResultSet rs) -> {
                         if (!rs.next()) {
@@ -119,6 +196,10 @@ public class H2QueuePickTaskDao implements QueuePickTaskDao {
                                 .withAttemptsCount(rs.getLong(queueTableSchema.getAttemptField()))
                                 .withReenqueueAttemptsCount(rs.getLong(queueTableSchema.getReenqueueAttemptField()))
                                 .withTotalAttemptsCount(rs.getLong(queueTableSchema.getTotalAttemptField()))
+                                .withPriority(queueTableSchema.getPriorityField().isPresent() ?
+                                        rs.getInt(queueTableSchema.getPriorityField().get()) : 0)
+                                .withQueueId(groupQueueNames != null ?
+                                        new QueueId(rs.getString(queueTableSchema.getQueueNameField())) : null)
                                 .withExtData(additionalData).build();
 
                     });
@@ -128,12 +209,17 @@ public class H2QueuePickTaskDao implements QueuePickTaskDao {
     }
 
     private static String getSelectSql(QueueLocation location,
-                                       QueueTableSchema queueTableSchema) {
+                                       QueueTableSchema queueTableSchema,
+                                       boolean byPriority,
+                                       boolean byGroup,
+                                       String keyCondition) {
         return String.format("" +
                         "SELECT %s " +
-                        "FROM %s " +
-                        "WHERE %s = :queueId " +
+                        "FROM %s t " +
+                        "WHERE %s " + (byGroup ? "IN (:queueNames) " : "= :queueId ") +
                         "  AND %s <= now() " +
+                        (byPriority ? "  AND " + queueTableSchema.getPriorityField().get() + " = :priority " : "") +
+                        keyCondition +
                         "  AND _ROWID_ NOT IN (:rowIds) " +
                         "ORDER BY %s ASC " +
                         "LIMIT 1 ",
@@ -145,6 +231,32 @@ public class H2QueuePickTaskDao implements QueuePickTaskDao {
         );
     }
 
+    private static String getKeyLimitCondition(QueueLocation location,
+                                               QueueTableSchema queueTableSchema,
+                                               FailureSettings failureSettings) {
+        String keyField = queueTableSchema.getConcurrencyKeyField().get();
+        return "  AND (t." + keyField + " IS NULL OR " +
+                "(SELECT COUNT(*) FROM " + location.getTableName() + " k " +
+                "WHERE k." + queueTableSchema.getQueueNameField() + " = t." + queueTableSchema.getQueueNameField() +
+                "  AND k." + keyField + " = t." + keyField +
+                "  AND k." + queueTableSchema.getAttemptField() + " > 0 " +
+                "  AND k." + queueTableSchema.getNextProcessAtField() + " > now() " +
+                (failureSettings.getRetryType() == FailRetryType.LINEAR_BACKOFF ?
+                        "  AND k." + queueTableSchema.getNextProcessAtField() + " <= " +
+                                getNextProcessTimeSql(FailRetryType.LINEAR_BACKOFF, queueTableSchema) : "") +
+                ") < :keyConcurrencyLimit) ";
+    }
+
+    private static String getKeyOrderCondition(QueueLocation location,
+                                               QueueTableSchema queueTableSchema) {
+        String keyField = queueTableSchema.getConcurrencyKeyField().get();
+        return "  AND (t." + keyField + " IS NULL OR NOT EXISTS (" +
+                "SELECT 1 FROM " + location.getTableName() + " k " +
+                "WHERE k." + queueTableSchema.getQueueNameField() + " = t." + queueTableSchema.getQueueNameField() +
+                "  AND k." + keyField + " = t." + keyField +
+                "  AND k." + queueTableSchema.getIdField() + " < t." + queueTableSchema.getIdField() + ")) ";
+    }
+
     private static String createPickTaskSql(QueueLocation location,
                                             FailureSettings failureSettings,
                                             QueueTableSchema queueTableSchema) {
@@ -166,7 +278,8 @@ public class H2QueuePickTaskDao implements QueuePickTaskDao {
     }
 
     private static String getReturnSql(QueueLocation location,
-                                       QueueTableSchema queueTableSchema) {
+                                       QueueTableSchema queueTableSchema,
+                                       boolean byGroup) {
         return String.format("" +
                         "SELECT  " +
                         "   %s, " +
@@ -186,12 +299,14 @@ public class H2QueuePickTaskDao implements QueuePickTaskDao {
                 queueTableSchema.getTotalAttemptField(),
                 queueTableSchema.getCreatedAtField(),
                 queueTableSchema.getNextProcessAtField(),
-                queueTableSchema.getExtFields().isEmpty()
-                        ? "" :
-                        queueTableSchema
-                                .getExtFields()
-                                .stream()
-                                .collect(Collectors.joining(", ", ", ", "")),
+                queueTableSchema.getPriorityField().map(field -> ", " + field).orElse("") +
+                        (byGroup ? ", " + queueTableSchema.getQueueNameField() : "") +
+                        (queueTableSchema.getExtFields().isEmpty()
+                                ? "" :
+                                queueTableSchema
+                                        .getExtFields()
+                                        .stream()
+                                        .collect(Collectors.joining(", ", ", ", ""))),
                 location.getTableName(),
                 queueTableSchema.getIdField()
         );
@@ -6,14 +6,21 @@ import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import ru.yoomoney.tech.dbqueue.api.EnqueueParams;
 import ru.yoomoney.tech.dbqueue.config.QueueTableSchema;
+import ru.yoomoney.tech.dbqueue.dao.EnqueueOutcome;
 import ru.yoomoney.tech.dbqueue.dao.QueueDao;
 import ru.yoomoney.tech.dbqueue.settings.QueueLocation;
 
 import javax.annotation.Nonnull;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static java.util.Objects.requireNonNull;
 
@@ -26,14 +33,37 @@ import static java.util.Objects.requireNonNull;
  */
 public class MssqlQueueDao implements QueueDao {
 
+    /**
+     * Limit of attempts to insert a task with a deduplication key,
+     * when existing task with the same key is removed concurrently
+     */
+    private static final int MAX_ENQUEUE_IF_ABSENT_ATTEMPTS = 3;
+
+    /**
+     * Limit of parameters in a single statement
+     */
+    private static final int MAX_STATEMENT_PARAMETERS = 2100;
+
+    /**
+     * Limit of rows in a table value constructor
+     */
+    private static final int MAX_TABLE_VALUE_ROWS = 1000;
+
     private final Map<QueueLocation, String> enqueueSqlCache = new ConcurrentHashMap<>();
+    private final Map<QueueLocation, String> enqueueBatchSqlCache = new ConcurrentHashMap<>();
+    private final Map<QueueLocation, String> enqueueIfAbsentSqlCache = new ConcurrentHashMap<>();
+    private final Map<QueueLocation, String> selectByDeduplicationKeySqlCache = new ConcurrentHashMap<>();
+    private final Map<QueueLocation, String> coalesceSqlCache = new ConcurrentHashMap<>();
     private final Map<QueueLocation, String> deleteSqlCache = new ConcurrentHashMap<>();
     private final Map<QueueLocation, String> reenqueueSqlCache = new ConcurrentHashMap<>();
+    private final Map<QueueLocation, String> extendLeasesSqlCache = new ConcurrentHashMap<>();
+    private final Map<QueueLocation, String> countSqlCache = new ConcurrentHashMap<>();
 
     @Nonnull
     private final NamedParameterJdbcTemplate jdbcTemplate;
     @Nonnull
     private final QueueTableSchema queueTableSchema;
+    private final int enqueueBatchSize;
 
     /**
      * Constructor
@@ -45,6 +75,8 @@ public class MssqlQueueDao implements QueueDao {
                          @Nonnull QueueTableSchema queueTableSchema) {
         this.queueTableSchema = requireNonNull(queueTableSchema);
         this.jdbcTemplate = new NamedParameterJdbcTemplate(requireNonNull(jdbcTemplate));
+        this.enqueueBatchSize = Math.min(MAX_TABLE_VALUE_ROWS,
+                (MAX_STATEMENT_PARAMETERS - 1) / createBatchRowColumns().size());
     }
 
     @Override
@@ -52,18 +84,134 @@ public class MssqlQueueDao implements QueueDao {
     public long enqueue(@Nonnull QueueLocation location, @Nonnull EnqueueParams<String> enqueueParams) {
         requireNonNull(location);
         requireNonNull(enqueueParams);
+        return requireNonNull(jdbcTemplate.queryForObject(
+                enqueueSqlCache.computeIfAbsent(location, this::createEnqueueSql),
+                createEnqueueParams(location, enqueueParams), Long.class));
+    }
+
+    /**
+     * Add new tasks in the queue for processing.
+     * <p>
+     * Tasks are inserted with a table value constructor by chunks,
+     * each chunk is inserted in a single round trip with identifiers returned through OUTPUT clause.
+     *
+     * @param location      Queue location.
+     * @param enqueueParams Parameters of the tasks.
+     * @return Identifiers of new inserted tasks in the order of given parameters.
+     */
+    @Nonnull
+    @Override
+    public List<Long> enqueueBatch(@Nonnull QueueLocation location,
+                                   @Nonnull List<EnqueueParams<String>> enqueueParams) {
+        requireNonNull(location);
+        requireNonNull(enqueueParams);
+        List<Long> taskIds = new ArrayList<>(enqueueParams.size());
+        for (int from = 0; from < enqueueParams.size(); from += enqueueBatchSize) {
+            List<EnqueueParams<String>> chunk = enqueueParams.subList(from,
+                    Math.min(from + enqueueBatchSize, enqueueParams.size()));
+            String sql = chunk.size() == enqueueBatchSize
+                    ? enqueueBatchSqlCache.computeIfAbsent(location,
+                    ignored -> createEnqueueBatchSql(location, enqueueBatchSize))
+                    : createEnqueueBatchSql(location, chunk.size());
+            List<Long> chunkIds = jdbcTemplate.queryForList(sql, createEnqueueBatchParams(location, chunk), Long.class);
+            if (chunkIds.size() != chunk.size()) {
+                throw new IllegalStateException("unexpected count of inserted tasks: location=" + location +
+                        ", expected=" + chunk.size() + ", actual=" + chunkIds.size());
+            }
+            // OUTPUT order is not defined, but identifiers are generated in the order of rows
+            Collections.sort(chunkIds);
+            taskIds.addAll(chunkIds);
+        }
+        return taskIds;
+    }
+
+    @Nonnull
+    @Override
+    public EnqueueOutcome enqueueIfAbsent(@Nonnull QueueLocation location,
+                                          @Nonnull EnqueueParams<String> enqueueParams) {
+        requireNonNull(location);
+        requireNonNull(enqueueParams);
+        if (!queueTableSchema.getDeduplicationKeyField().isPresent()) {
+            throw new IllegalStateException("deduplication key field is not configured in queue table schema");
+        }
+        if (!enqueueParams.getDeduplicationKey().isPresent()) {
+            throw new IllegalArgumentException("deduplication key is not set: location=" + location);
+        }
+        MapSqlParameterSource params = createEnqueueParams(location, enqueueParams);
+        for (int attempt = 0; attempt < MAX_ENQUEUE_IF_ABSENT_ATTEMPTS; attempt++) {
+            List<Long> insertedIds = jdbcTemplate.queryForList(
+                    enqueueIfAbsentSqlCache.computeIfAbsent(location, this::createEnqueueIfAbsentSql),
+                    params, Long.class);
+            if (!insertedIds.isEmpty()) {
+                return EnqueueOutcome.created(insertedIds.get(0));
+            }
+            List<Long> existingIds = jdbcTemplate.queryForList(
+                    selectByDeduplicationKeySqlCache.computeIfAbsent(location, this::createSelectByDeduplicationKeySql),
+                    params, Long.class);
+            if (!existingIds.isEmpty()) {
+                return EnqueueOutcome.duplicate(existingIds.get(0));
+            }
+        }
+        throw new IllegalStateException("cannot enqueue task with deduplication key: location=" + location +
+                ", deduplicationKey=" + enqueueParams.getDeduplicationKey().get());
+    }
+
+    @Nonnull
+    @Override
+    @SuppressFBWarnings("NP_NULL_ON_SOME_PATH_FROM_RETURN_VALUE")
+    public EnqueueOutcome enqueueOrCoalesce(@Nonnull QueueLocation location,
+                                            @Nonnull EnqueueParams<String> enqueueParams) {
+        requireNonNull(location);
+        requireNonNull(enqueueParams);
+        if (!queueTableSchema.getCoalescingKeyField().isPresent()) {
+            throw new IllegalStateException("coalescing key field is not configured in queue table schema");
+        }
+        if (!enqueueParams.getCoalescingKey().isPresent()) {
+            throw new IllegalArgumentException("coalescing key is not set: location=" + location);
+        }
+        MapSqlParameterSource params = createEnqueueParams(location, enqueueParams);
+        List<Long> coalescedIds = jdbcTemplate.queryForList(
+                coalesceSqlCache.computeIfAbsent(location, this::createCoalesceSql), params, Long.class);
+        if (!coalescedIds.isEmpty()) {
+            return EnqueueOutcome.coalesced(coalescedIds.get(0));
+        }
+        return EnqueueOutcome.created(requireNonNull(jdbcTemplate.queryForObject(
+                enqueueSqlCache.computeIfAbsent(location, this::createEnqueueSql), params, Long.class)));
+    }
 
+    private MapSqlParameterSource createEnqueueParams(@Nonnull QueueLocation location,
+                                                      @Nonnull EnqueueParams<String> enqueueParams) {
         MapSqlParameterSource params = new MapSqlParameterSource()
                 .addValue("queueName", location.getQueueId().asString())
                 .addValue("payload", enqueueParams.getPayload())
-                .addValue("executionDelay", enqueueParams.getExecutionDelay().getSeconds());
+                .addValue("executionDelay", enqueueParams.getExecutionDelay().getSeconds())
+                .addValue("deduplicationKey", enqueueParams.getDeduplicationKey().orElse(null))
+                .addValue("coalescingKey", enqueueParams.getCoalescingKey().orElse(null))
+                .addValue("priority", enqueueParams.getPriority());
 
         queueTableSchema.getExtFields().forEach(paramName -> params.addValue(paramName, null));
         enqueueParams.getExtData().forEach(params::addValue);
-        return requireNonNull(jdbcTemplate.queryForObject(
-                enqueueSqlCache.computeIfAbsent(location, this::createEnqueueSql), params, Long.class));
+        return params;
     }
 
+    private MapSqlParameterSource createEnqueueBatchParams(@Nonnull QueueLocation location,
+                                                           @Nonnull List<EnqueueParams<String>> enqueueParams) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("queueName", location.getQueueId().asString());
+        for (int row = 0; row < enqueueParams.size(); row++) {
+            EnqueueParams<String> rowParams = enqueueParams.get(row);
+            params.addValue("payload_" + row, rowParams.getPayload())
+                    .addValue("executionDelay_" + row, rowParams.getExecutionDelay().getSeconds())
+                    .addValue("deduplicationKey_" + row, rowParams.getDeduplicationKey().orElse(null))
+                    .addValue("coalescingKey_" + row, rowParams.getCoalescingKey().orElse(null))
+                    .addValue("priority_" + row, rowParams.getPriority());
+            for (int ext = 0; ext < queueTableSchema.getExtFields().size(); ext++) {
+                params.addValue("ext" + ext + "_" + row,
+                        rowParams.getExtData().get(queueTableSchema.getExtFields().get(ext)));
+            }
+        }
+        return params;
+    }
 
     @Override
     public boolean deleteTask(@Nonnull QueueLocation location, long taskId) {
@@ -88,22 +236,126 @@ public class MssqlQueueDao implements QueueDao {
         return updatedRows != 0;
     }
 
+    @Override
+    public int extendLeases(@Nonnull QueueLocation location, @Nonnull Collection<Long> taskIds,
+                            @Nonnull Duration leaseDuration) {
+        requireNonNull(location);
+        requireNonNull(taskIds);
+        requireNonNull(leaseDuration);
+        if (taskIds.isEmpty()) {
+            return 0;
+        }
+        return jdbcTemplate.update(extendLeasesSqlCache.computeIfAbsent(location, this::createExtendLeasesSql),
+                new MapSqlParameterSource()
+                        .addValue("ids", taskIds)
+                        .addValue("leaseDuration", leaseDuration.getSeconds()));
+    }
+
+    @Override
+    @SuppressFBWarnings("NP_NULL_ON_SOME_PATH_FROM_RETURN_VALUE")
+    public long countTasks(@Nonnull QueueLocation location) {
+        requireNonNull(location);
+        return requireNonNull(jdbcTemplate.queryForObject(countSqlCache.computeIfAbsent(location, this::createCountSql),
+                new MapSqlParameterSource("queueName", location.getQueueId().asString()), Long.class));
+    }
+
     private String createEnqueueSql(@Nonnull QueueLocation location) {
-        return "INSERT INTO " + location.getTableName() + "(" +
-                (location.getIdSequence().map(ignored -> queueTableSchema.getIdField() + ",").orElse("")) +
+        return "INSERT INTO " + location.getTableName() + "(" + createInsertColumns(location) + ")" +
+                " OUTPUT inserted." + queueTableSchema.getIdField() +
+                " VALUES (" + createInsertValues(location) + ")";
+    }
+
+    private String createEnqueueBatchSql(@Nonnull QueueLocation location, int rowCount) {
+        List<String> columns = createBatchRowColumns();
+        String rows = IntStream.range(0, rowCount)
+                .mapToObj(row -> columns.stream()
+                        .map(column -> ":" + column + "_" + row)
+                        .collect(Collectors.joining(", ", "(" + row + ", ", ")")))
+                .collect(Collectors.joining(", "));
+        // INSERT with ORDER BY guarantees the order of generated identity and sequence values
+        return "INSERT INTO " + location.getTableName() + "(" + createInsertColumns(location) + ")" +
+                " OUTPUT inserted." + queueTableSchema.getIdField() +
+                " SELECT " + location.getIdSequence()
+                .map(seq -> "NEXT VALUE FOR " + seq + " OVER (ORDER BY src.row_num), ").orElse("") +
+                ":queueName, src.payload, dateadd(ss, src.executionDelay, SYSDATETIMEOFFSET()), 0, 0" +
+                queueTableSchema.getDeduplicationKeyField().map(ignored -> ", src.deduplicationKey").orElse("") +
+                queueTableSchema.getCoalescingKeyField().map(ignored -> ", src.coalescingKey").orElse("") +
+                queueTableSchema.getPriorityField().map(ignored -> ", src.priority").orElse("") +
+                IntStream.range(0, queueTableSchema.getExtFields().size())
+                        .mapToObj(ext -> ", src.ext" + ext).collect(Collectors.joining()) +
+                " FROM (VALUES " + rows + ") AS src(row_num, " + String.join(", ", columns) + ")" +
+                " ORDER BY src.row_num";
+    }
+
+    private List<String> createBatchRowColumns() {
+        List<String> columns = new ArrayList<>(Arrays.asList("payload", "executionDelay"));
+        queueTableSchema.getDeduplicationKeyField().ifPresent(ignored -> columns.add("deduplicationKey"));
+        queueTableSchema.getCoalescingKeyField().ifPresent(ignored -> columns.add("coalescingKey"));
+        queueTableSchema.getPriorityField().ifPresent(ignored -> columns.add("priority"));
+        IntStream.range(0, queueTableSchema.getExtFields().size()).forEach(ext -> columns.add("ext" + ext));
+        return columns;
+    }
+
+    private String createEnqueueIfAbsentSql(@Nonnull QueueLocation location) {
+        // MERGE does not allow NEXT VALUE FOR, so conditional insert with key-range lock is used instead
+        return "INSERT INTO " + location.getTableName() + "(" + createInsertColumns(location) + ")" +
+                " OUTPUT inserted." + queueTableSchema.getIdField() +
+                " SELECT " + createInsertValues(location) +
+                " WHERE NOT EXISTS (SELECT 1 FROM " + location.getTableName() + " WITH (UPDLOCK, HOLDLOCK)" +
+                " WHERE " + queueTableSchema.getQueueNameField() + " = :queueName AND " +
+                queueTableSchema.getDeduplicationKeyField().orElseThrow(IllegalStateException::new) +
+                " = :deduplicationKey)";
+    }
+
+    private String createSelectByDeduplicationKeySql(@Nonnull QueueLocation location) {
+        return "SELECT " + queueTableSchema.getIdField() + " FROM " + location.getTableName() +
+                " WHERE " + queueTableSchema.getQueueNameField() + " = :queueName AND " +
+                queueTableSchema.getDeduplicationKeyField().orElseThrow(IllegalStateException::new) +
+                " = :deduplicationKey";
+    }
+
+    private String createCoalesceSql(@Nonnull QueueLocation location) {
+        return "WITH cte AS (" +
+                "SELECT TOP 1 " + queueTableSchema.getIdField() + " " +
+                "FROM " + location.getTableName() + " with (readpast, updlock, rowlock) " +
+                "WHERE " + queueTableSchema.getQueueNameField() + " = :queueName " +
+                "  AND " + queueTableSchema.getCoalescingKeyField().orElseThrow(IllegalStateException::new) +
+                " = :coalescingKey " +
+                "  AND " + queueTableSchema.getAttemptField() + " = 0" +
+                ") " +
+                "UPDATE " + location.getTableName() + " " +
+                "SET " +
+                "  " + queueTableSchema.getPayloadField() + " = :payload, " +
+                "  " + queueTableSchema.getNextProcessAtField() + " = dateadd(ss, :executionDelay, SYSDATETIMEOFFSET())" +
+                queueTableSchema.getExtFields().stream()
+                        .map(field -> ", " + field + " = :" + field).collect(Collectors.joining()) + " " +
+                "OUTPUT inserted." + queueTableSchema.getIdField() + " " +
+                "FROM cte " +
+                "WHERE " + location.getTableName() + "." + queueTableSchema.getIdField() + " = cte." + queueTableSchema.getIdField();
+    }
+
+    private String createInsertColumns(@Nonnull QueueLocation location) {
+        return (location.getIdSequence().map(ignored -> queueTableSchema.getIdField() + ",").orElse("")) +
                 queueTableSchema.getQueueNameField() + "," +
                 queueTableSchema.getPayloadField() + "," +
                 queueTableSchema.getNextProcessAtField() + "," +
                 queueTableSchema.getReenqueueAttemptField() + "," +
                 queueTableSchema.getTotalAttemptField() +
+                queueTableSchema.getDeduplicationKeyField().map(field -> "," + field).orElse("") +
+                queueTableSchema.getCoalescingKeyField().map(field -> "," + field).orElse("") +
+                queueTableSchema.getPriorityField().map(field -> "," + field).orElse("") +
                 (queueTableSchema.getExtFields().isEmpty() ? "" :
-                        queueTableSchema.getExtFields().stream().collect(Collectors.joining(", ", ", ", ""))) +
-                ") OUTPUT inserted." + queueTableSchema.getIdField() + " VALUES " +
-                "(" + location.getIdSequence().map(seq -> "NEXT VALUE FOR " + seq + ", ").orElse("") +
+                        queueTableSchema.getExtFields().stream().collect(Collectors.joining(", ", ", ", "")));
+    }
+
+    private String createInsertValues(@Nonnull QueueLocation location) {
+        return location.getIdSequence().map(seq -> "NEXT VALUE FOR " + seq + ", ").orElse("") +
                 ":queueName, :payload, dateadd(ss, :executionDelay, SYSDATETIMEOFFSET()), 0, 0" +
+                queueTableSchema.getDeduplicationKeyField().map(ignored -> ", :deduplicationKey").orElse("") +
+                queueTableSchema.getCoalescingKeyField().map(ignored -> ", :coalescingKey").orElse("") +
+                queueTableSchema.getPriorityField().map(ignored -> ", :priority").orElse("") +
                 (queueTableSchema.getExtFields().isEmpty() ? "" : queueTableSchema.getExtFields().stream()
-                        .map(field -> ":" + field).collect(Collectors.joining(", ", ", ", ""))) +
-                ")";
+                        .map(field -> ":" + field).collect(Collectors.joining(", ", ", ", "")));
     }
 
     private String createDeleteSql(@Nonnull QueueLocation location) {
@@ -111,6 +363,11 @@ public class MssqlQueueDao implements QueueDao {
                 " = :queueName AND " + queueTableSchema.getIdField() + " = :id";
     }
 
+    private String createCountSql(@Nonnull QueueLocation location) {
+        return "SELECT COUNT(*) FROM " + location.getTableName() + " WHERE " + queueTableSchema.getQueueNameField() +
+                " = :queueName";
+    }
+
     private String createReenqueueSql(@Nonnull QueueLocation location) {
         return "UPDATE " + location.getTableName() + " SET " + queueTableSchema.getNextProcessAtField() +
                 " = dateadd(ss, :executionDelay, SYSDATETIMEOFFSET()), " +
@@ -121,4 +378,10 @@ public class MssqlQueueDao implements QueueDao {
                 queueTableSchema.getQueueNameField() + " = :queueName";
     }
 
+    private String createExtendLeasesSql(@Nonnull QueueLocation location) {
+        return "UPDATE " + location.getTableName() + " SET " + queueTableSchema.getNextProcessAtField() +
+                " = dateadd(ss, :leaseDuration, SYSDATETIMEOFFSET()) " +
+                "WHERE " + queueTableSchema.getIdField() + " IN (:ids)";
+    }
+
 }
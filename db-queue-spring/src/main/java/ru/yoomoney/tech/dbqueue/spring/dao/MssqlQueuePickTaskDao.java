@@ -8,6 +8,7 @@ import ru.yoomoney.tech.dbqueue.config.QueueTableSchema;
 import ru.yoomoney.tech.dbqueue.dao.QueuePickTaskDao;
 import ru.yoomoney.tech.dbqueue.settings.FailRetryType;
 import ru.yoomoney.tech.dbqueue.settings.FailureSettings;
+import ru.yoomoney.tech.dbqueue.settings.QueueId;
 import ru.yoomoney.tech.dbqueue.settings.QueueLocation;
 
 import javax.annotation.Nonnull;
@@ -15,9 +16,12 @@ import javax.annotation.Nullable;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.time.Duration;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
+import java.util.Collection;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 
@@ -33,33 +37,161 @@ import static java.util.Objects.requireNonNull;
 public class MssqlQueuePickTaskDao implements QueuePickTaskDao {
 
     private String pickTaskSql;
+    @Nullable
+    private String pickTaskByPrioritySql;
+    @Nullable
+    private String pickTaskWithKeyLimitSql;
+    @Nullable
+    private String pickTaskByPriorityWithKeyLimitSql;
+    @Nullable
+    private String pickTaskInKeyOrderSql;
+    @Nullable
+    private String pickTaskByPriorityInKeyOrderSql;
+    @Nonnull
+    private final String pickAndDeleteTaskSql;
+    @Nullable
+    private String deleteAndPickTaskSql;
+    @Nullable
+    private String reenqueueAndPickTaskSql;
     private MapSqlParameterSource pickTaskSqlPlaceholders;
     private final NamedParameterJdbcTemplate jdbcTemplate;
     private final QueueTableSchema queueTableSchema;
+    @Nullable
+    private final List<String> groupQueueNames;
 
     public MssqlQueuePickTaskDao(@Nonnull JdbcOperations jdbcTemplate,
                                  @Nonnull QueueTableSchema queueTableSchema,
                                  @Nonnull QueueLocation queueLocation,
                                  @Nonnull FailureSettings failureSettings) {
+        this(jdbcTemplate, queueTableSchema, queueLocation, failureSettings, null);
+    }
+
+    public MssqlQueuePickTaskDao(@Nonnull JdbcOperations jdbcTemplate,
+                                 @Nonnull QueueTableSchema queueTableSchema,
+                                 @Nonnull QueueLocation groupLocation,
+                                 @Nonnull Collection<QueueId> queueIds,
+                                 @Nonnull FailureSettings failureSettings) {
+        this(jdbcTemplate, queueTableSchema, groupLocation, failureSettings,
+                requireNonNull(queueIds).stream().map(QueueId::asString).collect(Collectors.toList()));
+    }
+
+    private MssqlQueuePickTaskDao(@Nonnull JdbcOperations jdbcTemplate,
+                                  @Nonnull QueueTableSchema queueTableSchema,
+                                  @Nonnull QueueLocation queueLocation,
+                                  @Nonnull FailureSettings failureSettings,
+                                  @Nullable List<String> groupQueueNames) {
         this.jdbcTemplate = new NamedParameterJdbcTemplate(requireNonNull(jdbcTemplate));
         this.queueTableSchema = requireNonNull(queueTableSchema);
-        pickTaskSqlPlaceholders = new MapSqlParameterSource()
-                .addValue("queueName", queueLocation.getQueueId().asString())
-                .addValue("retryInterval", failureSettings.getRetryInterval().getSeconds());
-        pickTaskSql = createPickTaskSql(queueLocation, failureSettings);
+        this.groupQueueNames = groupQueueNames;
+        pickTaskSqlPlaceholders = createPickTaskSqlPlaceholders(queueLocation, failureSettings);
+        pickTaskSql = createPickTaskSql(queueLocation, failureSettings, false, "");
+        pickTaskByPrioritySql = createPickTaskByPrioritySql(queueLocation, failureSettings);
+        pickTaskWithKeyLimitSql = createPickTaskWithKeyLimitSql(queueLocation, failureSettings, false);
+        pickTaskByPriorityWithKeyLimitSql = createPickTaskWithKeyLimitSql(queueLocation, failureSettings, true);
+        pickTaskInKeyOrderSql = createPickTaskInKeyOrderSql(queueLocation, failureSettings, false);
+        pickTaskByPriorityInKeyOrderSql = createPickTaskInKeyOrderSql(queueLocation, failureSettings, true);
+        pickAndDeleteTaskSql = createPickAndDeleteTaskSql(queueLocation);
+        deleteAndPickTaskSql = createDeleteAndPickTaskSql(queueLocation, failureSettings);
+        reenqueueAndPickTaskSql = createReenqueueAndPickTaskSql(queueLocation, failureSettings);
         failureSettings.registerObserver((oldValue, newValue) -> {
-            pickTaskSql = createPickTaskSql(queueLocation, newValue);
-            pickTaskSqlPlaceholders = new MapSqlParameterSource()
-                    .addValue("queueName", queueLocation.getQueueId().asString())
-                    .addValue("retryInterval", newValue.getRetryInterval().getSeconds());
+            pickTaskSql = createPickTaskSql(queueLocation, newValue, false, "");
+            pickTaskByPrioritySql = createPickTaskByPrioritySql(queueLocation, newValue);
+            pickTaskWithKeyLimitSql = createPickTaskWithKeyLimitSql(queueLocation, newValue, false);
+            pickTaskByPriorityWithKeyLimitSql = createPickTaskWithKeyLimitSql(queueLocation, newValue, true);
+            pickTaskInKeyOrderSql = createPickTaskInKeyOrderSql(queueLocation, newValue, false);
+            pickTaskByPriorityInKeyOrderSql = createPickTaskInKeyOrderSql(queueLocation, newValue, true);
+            deleteAndPickTaskSql = createDeleteAndPickTaskSql(queueLocation, newValue);
+            reenqueueAndPickTaskSql = createReenqueueAndPickTaskSql(queueLocation, newValue);
+            pickTaskSqlPlaceholders = createPickTaskSqlPlaceholders(queueLocation, newValue);
         });
     }
 
+    private MapSqlParameterSource createPickTaskSqlPlaceholders(@Nonnull QueueLocation queueLocation,
+                                                                @Nonnull FailureSettings failureSettings) {
+        return new MapSqlParameterSource()
+                .addValue("queueName", queueLocation.getQueueId().asString())
+                .addValue("queueNames", groupQueueNames)
+                .addValue("retryInterval", failureSettings.getRetryInterval().getSeconds());
+    }
+
     @Override
     @Nullable
     public TaskRecord pickTask() {
-        return jdbcTemplate.execute(pickTaskSql,
-                pickTaskSqlPlaceholders,
+        return pickTask(pickTaskSql, pickTaskSqlPlaceholders);
+    }
+
+    @Override
+    @Nullable
+    public TaskRecord pickTaskByPriority(int priority) {
+        if (pickTaskByPrioritySql == null) {
+            throw new UnsupportedOperationException("priority field is not configured in queue table schema");
+        }
+        return pickTask(pickTaskByPrioritySql, new MapSqlParameterSource(pickTaskSqlPlaceholders.getValues())
+                .addValue("priority", priority));
+    }
+
+    @Override
+    @Nullable
+    public TaskRecord pickTaskWithKeyLimit(@Nullable Integer priority, int keyConcurrencyLimit) {
+        String sql = priority == null ? pickTaskWithKeyLimitSql : pickTaskByPriorityWithKeyLimitSql;
+        if (sql == null) {
+            throw new UnsupportedOperationException("concurrency key field or priority field " +
+                    "is not configured in queue table schema");
+        }
+        return pickTask(sql, new MapSqlParameterSource(pickTaskSqlPlaceholders.getValues())
+                .addValue("priority", priority)
+                .addValue("keyConcurrencyLimit", keyConcurrencyLimit));
+    }
+
+    @Override
+    @Nullable
+    public TaskRecord pickTaskInKeyOrder(@Nullable Integer priority) {
+        String sql = priority == null ? pickTaskInKeyOrderSql : pickTaskByPriorityInKeyOrderSql;
+        if (sql == null) {
+            throw new UnsupportedOperationException("concurrency key field or priority field " +
+                    "is not configured in queue table schema");
+        }
+        return pickTask(sql, new MapSqlParameterSource(pickTaskSqlPlaceholders.getValues())
+                .addValue("priority", priority));
+    }
+
+    @Override
+    @Nullable
+    public TaskRecord pickAndDeleteTask() {
+        return pickTask(pickAndDeleteTaskSql, pickTaskSqlPlaceholders);
+    }
+
+    @Override
+    public boolean isCompleteAndPickSupported() {
+        return groupQueueNames == null;
+    }
+
+    @Override
+    @Nullable
+    public TaskRecord deleteAndPickTask(long taskId) {
+        if (deleteAndPickTaskSql == null) {
+            throw new UnsupportedOperationException("complete and pick is not supported for queue groups");
+        }
+        return pickTask(deleteAndPickTaskSql, new MapSqlParameterSource(pickTaskSqlPlaceholders.getValues())
+                .addValue("previousTaskId", taskId));
+    }
+
+    @Override
+    @Nullable
+    public TaskRecord reenqueueAndPickTask(long taskId, @Nonnull Duration executionDelay) {
+        requireNonNull(executionDelay);
+        if (reenqueueAndPickTaskSql == null) {
+            throw new UnsupportedOperationException("complete and pick is not supported for queue groups");
+        }
+        return pickTask(reenqueueAndPickTaskSql, new MapSqlParameterSource(pickTaskSqlPlaceholders.getValues())
+                .addValue("previousTaskId", taskId)
+                .addValue("executionDelay", executionDelay.getSeconds()));
+    }
+
+    @Nullable
+    private TaskRecord pickTask(@Nonnull String sql, @Nonnull MapSqlParameterSource placeholders) {
+        return jdbcTemplate.execute(sql,
+                placeholders,
                 (PreparedStatement ps) -> {
                     try (ResultSet rs = ps.executeQuery()) {
                         if (!rs.next()) {
@@ -83,17 +215,114 @@ public class MssqlQueuePickTaskDao implements QueuePickTaskDao {
                                 .withAttemptsCount(rs.getLong(queueTableSchema.getAttemptField()))
                                 .withReenqueueAttemptsCount(rs.getLong(queueTableSchema.getReenqueueAttemptField()))
                                 .withTotalAttemptsCount(rs.getLong(queueTableSchema.getTotalAttemptField()))
+                                .withPriority(queueTableSchema.getPriorityField().isPresent() ?
+                                        rs.getInt(queueTableSchema.getPriorityField().get()) : 0)
+                                .withQueueId(groupQueueNames != null ?
+                                        new QueueId(rs.getString(queueTableSchema.getQueueNameField())) : null)
                                 .withExtData(additionalData).build();
                     }
                 });
     }
 
-    private String createPickTaskSql(@Nonnull QueueLocation location, FailureSettings failureSettings) {
+    @Nullable
+    private String createPickTaskByPrioritySql(@Nonnull QueueLocation location, FailureSettings failureSettings) {
+        return queueTableSchema.getPriorityField().isPresent() ?
+                createPickTaskSql(location, failureSettings, true, "") : null;
+    }
+
+    @Nullable
+    private String createPickTaskWithKeyLimitSql(@Nonnull QueueLocation location, FailureSettings failureSettings,
+                                                 boolean byPriority) {
+        return queueTableSchema.getConcurrencyKeyField().isPresent() &&
+                (!byPriority || queueTableSchema.getPriorityField().isPresent()) ?
+                createPickTaskSql(location, failureSettings, byPriority,
+                        createKeyLimitCondition(location, failureSettings)) : null;
+    }
+
+    @Nullable
+    private String createPickTaskInKeyOrderSql(@Nonnull QueueLocation location, FailureSettings failureSettings,
+                                               boolean byPriority) {
+        return queueTableSchema.getConcurrencyKeyField().isPresent() &&
+                (!byPriority || queueTableSchema.getPriorityField().isPresent()) ?
+                createPickTaskSql(location, failureSettings, byPriority, createKeyOrderCondition(location)) : null;
+    }
+
+    private String createKeyOrderCondition(@Nonnull QueueLocation location) {
+        String keyField = queueTableSchema.getConcurrencyKeyField().get();
+        return "  AND (t." + keyField + " IS NULL OR NOT EXISTS (" +
+                "SELECT 1 FROM " + location.getTableName() + " k " +
+                "WHERE k." + queueTableSchema.getQueueNameField() + " = t." + queueTableSchema.getQueueNameField() +
+                "  AND k." + keyField + " = t." + keyField +
+                "  AND k." + queueTableSchema.getIdField() + " < t." + queueTableSchema.getIdField() + ")) ";
+    }
+
+    private String createKeyLimitCondition(@Nonnull QueueLocation location, FailureSettings failureSettings) {
+        String keyField = queueTableSchema.getConcurrencyKeyField().get();
+        return "  AND (t." + keyField + " IS NULL OR " +
+                "(SELECT COUNT(*) FROM " + location.getTableName() + " k " +
+                "WHERE k." + queueTableSchema.getQueueNameField() + " = t." + queueTableSchema.getQueueNameField() +
+                "  AND k." + keyField + " = t." + keyField +
+                "  AND k." + queueTableSchema.getAttemptField() + " > 0 " +
+                "  AND k." + queueTableSchema.getNextProcessAtField() + " > SYSDATETIMEOFFSET() " +
+                (failureSettings.getRetryType() == FailRetryType.LINEAR_BACKOFF ?
+                        "  AND k." + queueTableSchema.getNextProcessAtField() + " <= " +
+                                getNextProcessTimeSql(FailRetryType.LINEAR_BACKOFF, queueTableSchema) : "") +
+                ") < :keyConcurrencyLimit) ";
+    }
+
+    /**
+     * Batch, which deletes the previous task and picks the next one.
+     * <p>
+     * Row count of the completion is suppressed, so the first result of the batch is the picked task.
+     */
+    @Nullable
+    private String createDeleteAndPickTaskSql(@Nonnull QueueLocation location, FailureSettings failureSettings) {
+        if (groupQueueNames != null) {
+            return null;
+        }
+        return "SET NOCOUNT ON; " +
+                "DELETE FROM " + location.getTableName() + " " +
+                "WHERE " + queueTableSchema.getQueueNameField() + " = :queueName " +
+                "  AND " + queueTableSchema.getIdField() + " = :previousTaskId; " +
+                "SET NOCOUNT OFF; " +
+                createPickTaskSql(location, failureSettings, false, createPreviousTaskCondition());
+    }
+
+    /**
+     * Batch, which postpones the previous task and picks the next one.
+     */
+    @Nullable
+    private String createReenqueueAndPickTaskSql(@Nonnull QueueLocation location, FailureSettings failureSettings) {
+        if (groupQueueNames != null) {
+            return null;
+        }
+        return "SET NOCOUNT ON; " +
+                "UPDATE " + location.getTableName() + " " +
+                "SET " + queueTableSchema.getNextProcessAtField() +
+                " = dateadd(ss, :executionDelay, SYSDATETIMEOFFSET()), " +
+                queueTableSchema.getAttemptField() + " = 0, " +
+                queueTableSchema.getReenqueueAttemptField() +
+                " = " + queueTableSchema.getReenqueueAttemptField() + " + 1 " +
+                "WHERE " + queueTableSchema.getQueueNameField() + " = :queueName " +
+                "  AND " + queueTableSchema.getIdField() + " = :previousTaskId; " +
+                "SET NOCOUNT OFF; " +
+                createPickTaskSql(location, failureSettings, false, createPreviousTaskCondition());
+    }
+
+    private String createPreviousTaskCondition() {
+        return "  AND t." + queueTableSchema.getIdField() + " <> :previousTaskId ";
+    }
+
+    private String createPickTaskSql(@Nonnull QueueLocation location, FailureSettings failureSettings,
+                                     boolean byPriority, @Nonnull String keyCondition) {
         return "WITH cte AS (" +
                 "SELECT " + queueTableSchema.getIdField() + " " +
-                "FROM " + location.getTableName() + " with (readpast, updlock) " +
-                "WHERE " + queueTableSchema.getQueueNameField() + " = :queueName " +
+                "FROM " + location.getTableName() + " t with (readpast, updlock) " +
+                "WHERE " + queueTableSchema.getQueueNameField() +
+                (groupQueueNames != null ? " IN (:queueNames) " : " = :queueName ") +
                 "  AND " + queueTableSchema.getNextProcessAtField() + " <= SYSDATETIMEOFFSET() " +
+                (byPriority ? "  AND " + queueTableSchema.getPriorityField().get() + " = :priority " : "") +
+                keyCondition +
                 " ORDER BY " + queueTableSchema.getNextProcessAtField() + " ASC " +
                 "offset 0 rows fetch next 1 rows only " +
                 ") " +
@@ -110,12 +339,43 @@ public class MssqlQueuePickTaskDao implements QueuePickTaskDao {
                 "inserted." + queueTableSchema.getTotalAttemptField() + ", " +
                 "inserted." + queueTableSchema.getCreatedAtField() + ", " +
                 "inserted." + queueTableSchema.getNextProcessAtField() +
+                queueTableSchema.getPriorityField().map(field -> ", inserted." + field).orElse("") +
+                (groupQueueNames != null ? ", inserted." + queueTableSchema.getQueueNameField() : "") +
                 (queueTableSchema.getExtFields().isEmpty() ? "" : queueTableSchema.getExtFields().stream()
                         .map(field -> "inserted." + field).collect(Collectors.joining(", ", ", ", ""))) + " " +
                 "FROM cte " +
                 "WHERE " + location.getTableName() + "." + queueTableSchema.getIdField() + " = cte." + queueTableSchema.getIdField();
     }
 
+    private String createPickAndDeleteTaskSql(@Nonnull QueueLocation location) {
+        return "WITH cte AS (" +
+                "SELECT " + queueTableSchema.getIdField() + " " +
+                "FROM " + location.getTableName() + " with (readpast, updlock) " +
+                "WHERE " + queueTableSchema.getQueueNameField() +
+                (groupQueueNames != null ? " IN (:queueNames) " : " = :queueName ") +
+                "  AND " + queueTableSchema.getNextProcessAtField() + " <= SYSDATETIMEOFFSET() " +
+                " ORDER BY " + queueTableSchema.getNextProcessAtField() + " ASC " +
+                "offset 0 rows fetch next 1 rows only " +
+                ") " +
+                "DELETE FROM " + location.getTableName() + " " +
+                "OUTPUT deleted." + queueTableSchema.getIdField() + ", " +
+                "deleted." + queueTableSchema.getPayloadField() + ", " +
+                "deleted." + queueTableSchema.getAttemptField() + " + 1 AS " +
+                queueTableSchema.getAttemptField() + ", " +
+                "deleted." + queueTableSchema.getReenqueueAttemptField() + ", " +
+                "deleted." + queueTableSchema.getTotalAttemptField() + " + 1 AS " +
+                queueTableSchema.getTotalAttemptField() + ", " +
+                "deleted." + queueTableSchema.getCreatedAtField() + ", " +
+                "deleted." + queueTableSchema.getNextProcessAtField() +
+                queueTableSchema.getPriorityField().map(field -> ", deleted." + field).orElse("") +
+                (groupQueueNames != null ? ", deleted." + queueTableSchema.getQueueNameField() : "") +
+                (queueTableSchema.getExtFields().isEmpty() ? "" : queueTableSchema.getExtFields().stream()
+                        .map(field -> "deleted." + field).collect(Collectors.joining(", ", ", ", ""))) + " " +
+                "FROM cte " +
+                "WHERE " + location.getTableName() + "." + queueTableSchema.getIdField() +
+                " = cte." + queueTableSchema.getIdField();
+    }
+
     private ZonedDateTime getZonedDateTime(ResultSet rs, String time) throws SQLException {
         return ZonedDateTime.ofInstant(rs.getTimestamp(time).toInstant(), ZoneId.systemDefault());
     }
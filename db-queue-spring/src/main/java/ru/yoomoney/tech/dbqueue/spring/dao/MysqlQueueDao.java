@@ -0,0 +1,465 @@
+package ru.yoomoney.tech.dbqueue.spring.dao;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcOperations;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import ru.yoomoney.tech.dbqueue.api.EnqueueParams;
+import ru.yoomoney.tech.dbqueue.config.QueueTableSchema;
+import ru.yoomoney.tech.dbqueue.dao.EnqueueOutcome;
+import ru.yoomoney.tech.dbqueue.dao.QueueDao;
+import ru.yoomoney.tech.dbqueue.settings.QueueLocation;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Database access object to manage tasks in the queue for MySQL and MariaDB database type.
+ * <p>
+ * Identifier of a new task is taken from the generated key of the insert, i.e. {@code LAST_INSERT_ID()}
+ * of the connection, so the id field must be {@code AUTO_INCREMENT}.
+ * <p>
+ * A batch of tasks is inserted by a multi-row insert, identifiers of the rows are derived
+ * from {@code LAST_INSERT_ID()} of the first row, the row number and {@code auto_increment_increment}.
+ * It is correct only when a multi-row insert gets consecutive identifiers,
+ * i.e. with {@code innodb_autoinc_lock_mode} 0 (traditional) or 1 (consecutive).
+ * The lock mode is checked on the first batch, with other modes, e.g. 2 (interleaved) by default in MySQL 8,
+ * tasks of a batch are inserted one by one.
+ *
+ * @author Oleg Kandaurov
+ * @since 19.10.2026
+ */
+public class MysqlQueueDao implements QueueDao {
+
+    private static final Logger log = LoggerFactory.getLogger(MysqlQueueDao.class);
+
+    /**
+     * Limit of attempts to insert a task with a deduplication key,
+     * when existing task with the same key is removed concurrently
+     */
+    private static final int MAX_ENQUEUE_IF_ABSENT_ATTEMPTS = 3;
+
+    /**
+     * Limit of placeholders in a single prepared statement
+     */
+    private static final int MAX_STATEMENT_PARAMETERS = 65535;
+
+    /**
+     * Limit of rows in a single multi-row insert
+     */
+    private static final int MAX_BATCH_ROWS = 1000;
+
+    private final Map<QueueLocation, String> enqueueSqlCache = new ConcurrentHashMap<>();
+    private final Map<QueueLocation, String> enqueueBatchSqlCache = new ConcurrentHashMap<>();
+    private final Map<QueueLocation, String> enqueueIfAbsentSqlCache = new ConcurrentHashMap<>();
+    private final Map<QueueLocation, String> selectByDeduplicationKeySqlCache = new ConcurrentHashMap<>();
+    private final Map<QueueLocation, String> selectPendingByCoalescingKeySqlCache = new ConcurrentHashMap<>();
+    private final Map<QueueLocation, String> coalesceSqlCache = new ConcurrentHashMap<>();
+    private final Map<QueueLocation, String> deleteSqlCache = new ConcurrentHashMap<>();
+    private final Map<QueueLocation, String> reenqueueSqlCache = new ConcurrentHashMap<>();
+    private final Map<QueueLocation, String> extendLeasesSqlCache = new ConcurrentHashMap<>();
+    private final Map<QueueLocation, String> countSqlCache = new ConcurrentHashMap<>();
+
+    @Nonnull
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    @Nonnull
+    private final QueueTableSchema queueTableSchema;
+    private final int enqueueBatchSize;
+
+    private boolean batchIdIncrementChecked;
+    @Nullable
+    private Long batchIdIncrement;
+
+    /**
+     * Constructor
+     *
+     * @param jdbcOperations   Reference to Spring JDBC template.
+     * @param queueTableSchema Queue table scheme.
+     */
+    public MysqlQueueDao(@Nonnull JdbcOperations jdbcOperations,
+                         @Nonnull QueueTableSchema queueTableSchema) {
+        this.jdbcTemplate = new NamedParameterJdbcTemplate(requireNonNull(jdbcOperations, "jdbc template can't be null"));
+        this.queueTableSchema = requireNonNull(queueTableSchema, "table schema can't be null");
+        // queue name is repeated in every row
+        this.enqueueBatchSize = Math.min(MAX_BATCH_ROWS,
+                MAX_STATEMENT_PARAMETERS / (createBatchRowColumns().size() + 1));
+    }
+
+    @Override
+    public long enqueue(@Nonnull QueueLocation location,
+                        @Nonnull EnqueueParams<String> enqueueParams) {
+        requireNonNull(location, "location can't be null");
+        requireNonNull(enqueueParams, "params can't be null");
+
+        Long id = insert(enqueueSqlCache.computeIfAbsent(location, this::createEnqueueSql),
+                createEnqueueParams(location, enqueueParams));
+        if (id == null) {
+            throw new IllegalStateException("id can't be null");
+        }
+        return id;
+    }
+
+    /**
+     * Add new tasks in the queue for processing.
+     * <p>
+     * Tasks are inserted by chunks, each chunk is inserted by a single multi-row insert.
+     * Identifiers of the chunk are derived from {@code LAST_INSERT_ID()}, see {@link MysqlQueueDao}.
+     *
+     * @param location      Queue location.
+     * @param enqueueParams Parameters of the tasks.
+     * @return Identifiers of new inserted tasks in the order of given parameters.
+     */
+    @Nonnull
+    @Override
+    public List<Long> enqueueBatch(@Nonnull QueueLocation location,
+                                   @Nonnull List<EnqueueParams<String>> enqueueParams) {
+        requireNonNull(location, "location can't be null");
+        requireNonNull(enqueueParams, "params can't be null");
+        Long idIncrement = getBatchIdIncrement();
+        if (idIncrement == null) {
+            return QueueDao.super.enqueueBatch(location, enqueueParams);
+        }
+        List<Long> taskIds = new ArrayList<>(enqueueParams.size());
+        for (int from = 0; from < enqueueParams.size(); from += enqueueBatchSize) {
+            List<EnqueueParams<String>> chunk = enqueueParams.subList(from,
+                    Math.min(from + enqueueBatchSize, enqueueParams.size()));
+            String sql = chunk.size() == enqueueBatchSize
+                    ? enqueueBatchSqlCache.computeIfAbsent(location,
+                    ignored -> createEnqueueBatchSql(location, enqueueBatchSize))
+                    : createEnqueueBatchSql(location, chunk.size());
+            KeyHolder keyHolder = new GeneratedKeyHolder();
+            int insertedRows = jdbcTemplate.update(sql, createEnqueueBatchParams(location, chunk), keyHolder,
+                    new String[]{queueTableSchema.getIdField()});
+            if (insertedRows != chunk.size() || keyHolder.getKeyList().isEmpty()) {
+                throw new IllegalStateException("unexpected count of inserted tasks: location=" + location +
+                        ", expected=" + chunk.size() + ", actual=" + insertedRows);
+            }
+            // the first generated key is LAST_INSERT_ID(), i.e. identifier of the first row
+            long firstId = ((Number) keyHolder.getKeyList().get(0).values().iterator().next()).longValue();
+            for (int row = 0; row < chunk.size(); row++) {
+                taskIds.add(firstId + row * idIncrement);
+            }
+        }
+        return taskIds;
+    }
+
+    /**
+     * Get step of identifiers within a multi-row insert.
+     *
+     * @return {@code auto_increment_increment} or null, when identifiers of a multi-row insert
+     * may be not consecutive
+     */
+    @Nullable
+    private synchronized Long getBatchIdIncrement() {
+        if (batchIdIncrementChecked) {
+            return batchIdIncrement;
+        }
+        batchIdIncrementChecked = true;
+        try {
+            Map<String, Object> variables = jdbcTemplate.getJdbcOperations().queryForMap(
+                    "SELECT @@innodb_autoinc_lock_mode AS lock_mode, @@auto_increment_increment AS id_increment");
+            long lockMode = ((Number) requireNonNull(variables.get("lock_mode"))).longValue();
+            if (lockMode == 0L || lockMode == 1L) {
+                batchIdIncrement = ((Number) requireNonNull(variables.get("id_increment"))).longValue();
+            } else {
+                log.info("multi-row insert is disabled, tasks of a batch are inserted one by one: " +
+                        "innodb_autoinc_lock_mode={}", lockMode);
+            }
+        } catch (RuntimeException exc) {
+            log.warn("cannot read innodb_autoinc_lock_mode, tasks of a batch are inserted one by one", exc);
+        }
+        return batchIdIncrement;
+    }
+
+    @Nonnull
+    @Override
+    public EnqueueOutcome enqueueIfAbsent(@Nonnull QueueLocation location,
+                                          @Nonnull EnqueueParams<String> enqueueParams) {
+        requireNonNull(location, "location can't be null");
+        requireNonNull(enqueueParams, "params can't be null");
+        if (!queueTableSchema.getDeduplicationKeyField().isPresent()) {
+            throw new IllegalStateException("deduplication key field is not configured in queue table schema");
+        }
+        if (!enqueueParams.getDeduplicationKey().isPresent()) {
+            throw new IllegalArgumentException("deduplication key is not set: location=" + location);
+        }
+
+        MapSqlParameterSource params = createEnqueueParams(location, enqueueParams);
+        for (int attempt = 0; attempt < MAX_ENQUEUE_IF_ABSENT_ATTEMPTS; attempt++) {
+            try {
+                Long id = insert(enqueueIfAbsentSqlCache.computeIfAbsent(location, this::createEnqueueIfAbsentSql),
+                        params);
+                if (id != null) {
+                    return EnqueueOutcome.created(id);
+                }
+            } catch (DuplicateKeyException ignored) {
+                // concurrent transaction inserted a task with the same key, falling back to select
+            }
+            List<Long> existingIds = jdbcTemplate.queryForList(
+                    selectByDeduplicationKeySqlCache.computeIfAbsent(location, this::createSelectByDeduplicationKeySql),
+                    params, Long.class);
+            if (!existingIds.isEmpty()) {
+                return EnqueueOutcome.duplicate(existingIds.get(0));
+            }
+        }
+        throw new IllegalStateException("cannot enqueue task with deduplication key: location=" + location +
+                ", deduplicationKey=" + enqueueParams.getDeduplicationKey().get());
+    }
+
+    @Nonnull
+    @Override
+    public EnqueueOutcome enqueueOrCoalesce(@Nonnull QueueLocation location,
+                                            @Nonnull EnqueueParams<String> enqueueParams) {
+        requireNonNull(location, "location can't be null");
+        requireNonNull(enqueueParams, "params can't be null");
+        if (!queueTableSchema.getCoalescingKeyField().isPresent()) {
+            throw new IllegalStateException("coalescing key field is not configured in queue table schema");
+        }
+        if (!enqueueParams.getCoalescingKey().isPresent()) {
+            throw new IllegalArgumentException("coalescing key is not set: location=" + location);
+        }
+
+        MapSqlParameterSource params = createEnqueueParams(location, enqueueParams);
+        List<Long> pendingIds = jdbcTemplate.queryForList(
+                selectPendingByCoalescingKeySqlCache.computeIfAbsent(location,
+                        this::createSelectPendingByCoalescingKeySql),
+                params, Long.class);
+        if (!pendingIds.isEmpty()) {
+            Long pendingId = pendingIds.get(0);
+            // attempt condition is checked again, since the row is not locked outside of a transaction
+            // and the task might be picked already
+            int updatedRows = jdbcTemplate.update(
+                    coalesceSqlCache.computeIfAbsent(location, this::createCoalesceSql),
+                    params.addValue("id", pendingId));
+            if (updatedRows != 0) {
+                return EnqueueOutcome.coalesced(pendingId);
+            }
+        }
+        return EnqueueOutcome.created(enqueue(location, enqueueParams));
+    }
+
+    @Nullable
+    private Long insert(@Nonnull String sql, @Nonnull MapSqlParameterSource params) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        int insertedRows = jdbcTemplate.update(sql, params, keyHolder, new String[]{queueTableSchema.getIdField()});
+        if (insertedRows == 0) {
+            return null;
+        }
+        Number id = keyHolder.getKey();
+        return id == null ? null : id.longValue();
+    }
+
+    private MapSqlParameterSource createEnqueueParams(@Nonnull QueueLocation location,
+                                                      @Nonnull EnqueueParams<String> enqueueParams) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("queueName", location.getQueueId().asString())
+                .addValue("payload", enqueueParams.getPayload())
+                .addValue("executionDelay", enqueueParams.getExecutionDelay().getSeconds())
+                .addValue("deduplicationKey", enqueueParams.getDeduplicationKey().orElse(null))
+                .addValue("coalescingKey", enqueueParams.getCoalescingKey().orElse(null))
+                .addValue("priority", enqueueParams.getPriority());
+
+        queueTableSchema.getExtFields().forEach(paramName -> params.addValue(paramName, null));
+        enqueueParams.getExtData().forEach(params::addValue);
+        return params;
+    }
+
+    private MapSqlParameterSource createEnqueueBatchParams(@Nonnull QueueLocation location,
+                                                           @Nonnull List<EnqueueParams<String>> enqueueParams) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("queueName", location.getQueueId().asString());
+        for (int row = 0; row < enqueueParams.size(); row++) {
+            EnqueueParams<String> rowParams = enqueueParams.get(row);
+            params.addValue("payload_" + row, rowParams.getPayload())
+                    .addValue("executionDelay_" + row, rowParams.getExecutionDelay().getSeconds())
+                    .addValue("deduplicationKey_" + row, rowParams.getDeduplicationKey().orElse(null))
+                    .addValue("coalescingKey_" + row, rowParams.getCoalescingKey().orElse(null))
+                    .addValue("priority_" + row, rowParams.getPriority());
+            for (int ext = 0; ext < queueTableSchema.getExtFields().size(); ext++) {
+                params.addValue("ext" + ext + "_" + row,
+                        rowParams.getExtData().get(queueTableSchema.getExtFields().get(ext)));
+            }
+        }
+        return params;
+    }
+
+    @Override
+    public boolean deleteTask(@Nonnull QueueLocation location, long taskId) {
+        requireNonNull(location, "location can't be null");
+
+        int updatedRows = jdbcTemplate.update(
+                deleteSqlCache.computeIfAbsent(location, this::createDeleteSql),
+                new MapSqlParameterSource()
+                        .addValue("id", taskId)
+                        .addValue("queueName", location.getQueueId().asString()));
+        return updatedRows != 0;
+    }
+
+    @Override
+    public boolean reenqueue(@Nonnull QueueLocation location,
+                             long taskId,
+                             @Nonnull Duration executionDelay) {
+        requireNonNull(location, "location can't be null");
+        requireNonNull(executionDelay, "delay can't be null");
+
+        int updatedRows = jdbcTemplate.update(
+                reenqueueSqlCache.computeIfAbsent(location, this::createReenqueueSql),
+                new MapSqlParameterSource()
+                        .addValue("id", taskId)
+                        .addValue("queueName", location.getQueueId().asString())
+                        .addValue("executionDelay", executionDelay.getSeconds()));
+        return updatedRows != 0;
+    }
+
+    @Override
+    public int extendLeases(@Nonnull QueueLocation location, @Nonnull Collection<Long> taskIds,
+                            @Nonnull Duration leaseDuration) {
+        requireNonNull(location);
+        requireNonNull(taskIds);
+        requireNonNull(leaseDuration);
+        if (taskIds.isEmpty()) {
+            return 0;
+        }
+        return jdbcTemplate.update(extendLeasesSqlCache.computeIfAbsent(location, this::createExtendLeasesSql),
+                new MapSqlParameterSource()
+                        .addValue("ids", taskIds)
+                        .addValue("leaseDuration", leaseDuration.getSeconds()));
+    }
+
+    @Override
+    @SuppressFBWarnings("NP_NULL_ON_SOME_PATH_FROM_RETURN_VALUE")
+    public long countTasks(@Nonnull QueueLocation location) {
+        requireNonNull(location, "location can't be null");
+        return requireNonNull(jdbcTemplate.queryForObject(countSqlCache.computeIfAbsent(location, this::createCountSql),
+                new MapSqlParameterSource("queueName", location.getQueueId().asString()), Long.class));
+    }
+
+    private String createEnqueueSql(@Nonnull QueueLocation location) {
+        return "INSERT INTO " + location.getTableName() + " (" + createInsertColumns(location) + ") " +
+                "VALUES (" + createInsertValues() + ")";
+    }
+
+    private String createEnqueueBatchSql(@Nonnull QueueLocation location, int rowCount) {
+        List<String> columns = createBatchRowColumns();
+        return "INSERT INTO " + location.getTableName() + " (" + createInsertColumns(location) + ") VALUES " +
+                IntStream.range(0, rowCount)
+                        .mapToObj(row -> ":queueName, :payload_" + row +
+                                ", TIMESTAMPADD(SECOND, :executionDelay_" + row + ", NOW(6)), 0, 0" +
+                                columns.stream().skip(2)
+                                        .map(column -> ", :" + column + "_" + row)
+                                        .collect(Collectors.joining()))
+                        .collect(Collectors.joining("), (", "(", ")"));
+    }
+
+    private List<String> createBatchRowColumns() {
+        List<String> columns = new ArrayList<>(Arrays.asList("payload", "executionDelay"));
+        queueTableSchema.getDeduplicationKeyField().ifPresent(ignored -> columns.add("deduplicationKey"));
+        queueTableSchema.getCoalescingKeyField().ifPresent(ignored -> columns.add("coalescingKey"));
+        queueTableSchema.getPriorityField().ifPresent(ignored -> columns.add("priority"));
+        IntStream.range(0, queueTableSchema.getExtFields().size()).forEach(ext -> columns.add("ext" + ext));
+        return columns;
+    }
+
+    private String createEnqueueIfAbsentSql(@Nonnull QueueLocation location) {
+        return "INSERT INTO " + location.getTableName() + " (" + createInsertColumns(location) + ") " +
+                "SELECT " + createInsertValues() + " FROM DUAL " +
+                "WHERE NOT EXISTS (SELECT 1 FROM " + location.getTableName() + " " +
+                "WHERE " + queueTableSchema.getQueueNameField() + " = :queueName " +
+                "AND " + queueTableSchema.getDeduplicationKeyField().orElseThrow(IllegalStateException::new) +
+                " = :deduplicationKey)";
+    }
+
+    private String createSelectByDeduplicationKeySql(@Nonnull QueueLocation location) {
+        return "SELECT " + queueTableSchema.getIdField() + " FROM " + location.getTableName() + " " +
+                "WHERE " + queueTableSchema.getQueueNameField() + " = :queueName " +
+                "AND " + queueTableSchema.getDeduplicationKeyField().orElseThrow(IllegalStateException::new) +
+                " = :deduplicationKey";
+    }
+
+    private String createSelectPendingByCoalescingKeySql(@Nonnull QueueLocation location) {
+        return "SELECT " + queueTableSchema.getIdField() + " FROM " + location.getTableName() + " " +
+                "WHERE " + queueTableSchema.getQueueNameField() + " = :queueName " +
+                "AND " + queueTableSchema.getCoalescingKeyField().orElseThrow(IllegalStateException::new) +
+                " = :coalescingKey " +
+                "AND " + queueTableSchema.getAttemptField() + " = 0 " +
+                "LIMIT 1 FOR UPDATE SKIP LOCKED";
+    }
+
+    private String createCoalesceSql(@Nonnull QueueLocation location) {
+        return "UPDATE " + location.getTableName() + " " +
+                "SET " + queueTableSchema.getPayloadField() + " = :payload, " +
+                queueTableSchema.getNextProcessAtField() + " = TIMESTAMPADD(SECOND, :executionDelay, NOW(6))" +
+                queueTableSchema.getExtFields().stream()
+                        .map(field -> ", " + field + " = :" + field)
+                        .collect(Collectors.joining()) + " " +
+                "WHERE " + queueTableSchema.getIdField() + " = :id " +
+                "AND " + queueTableSchema.getAttemptField() + " = 0";
+    }
+
+    private String createInsertColumns(@Nonnull QueueLocation location) {
+        if (location.getIdSequence().isPresent()) {
+            throw new IllegalArgumentException("id sequence is not supported by MySQL, " +
+                    "use AUTO_INCREMENT id field instead: location=" + location);
+        }
+        return queueTableSchema.getQueueNameField() + ", " +
+                queueTableSchema.getPayloadField() + ", " +
+                queueTableSchema.getNextProcessAtField() + ", " +
+                queueTableSchema.getReenqueueAttemptField() + ", " +
+                queueTableSchema.getTotalAttemptField() +
+                queueTableSchema.getDeduplicationKeyField().map(field -> ", " + field).orElse("") +
+                queueTableSchema.getCoalescingKeyField().map(field -> ", " + field).orElse("") +
+                queueTableSchema.getPriorityField().map(field -> ", " + field).orElse("") +
+                (queueTableSchema.getExtFields().isEmpty() ? "" :
+                        queueTableSchema.getExtFields().stream().collect(Collectors.joining(", ", ", ", "")));
+    }
+
+    private String createInsertValues() {
+        return ":queueName, :payload, TIMESTAMPADD(SECOND, :executionDelay, NOW(6)), 0, 0" +
+                queueTableSchema.getDeduplicationKeyField().map(ignored -> ", :deduplicationKey").orElse("") +
+                queueTableSchema.getCoalescingKeyField().map(ignored -> ", :coalescingKey").orElse("") +
+                queueTableSchema.getPriorityField().map(ignored -> ", :priority").orElse("") +
+                (queueTableSchema.getExtFields().isEmpty() ? "" : queueTableSchema.getExtFields().stream()
+                        .map(field -> ":" + field).collect(Collectors.joining(", ", ", ", "")));
+    }
+
+    private String createDeleteSql(@Nonnull QueueLocation location) {
+        return "DELETE FROM " + location.getTableName() + " WHERE " + queueTableSchema.getQueueNameField() +
+                " = :queueName AND " + queueTableSchema.getIdField() + " = :id";
+    }
+
+    private String createCountSql(@Nonnull QueueLocation location) {
+        return "SELECT COUNT(*) FROM " + location.getTableName() + " WHERE " +
+                queueTableSchema.getQueueNameField() + " = :queueName";
+    }
+
+    private String createReenqueueSql(@Nonnull QueueLocation location) {
+        return "UPDATE " + location.getTableName() + " " +
+                "SET " + queueTableSchema.getNextProcessAtField() + " = TIMESTAMPADD(SECOND, :executionDelay, NOW(6)), " +
+                queueTableSchema.getAttemptField() + " = 0, " +
+                queueTableSchema.getReenqueueAttemptField() + " = " + queueTableSchema.getReenqueueAttemptField() + " + 1 " +
+                "WHERE " + queueTableSchema.getIdField() + " = :id AND " +
+                queueTableSchema.getQueueNameField() + " = :queueName";
+    }
+
+    private String createExtendLeasesSql(@Nonnull QueueLocation location) {
+        return "UPDATE " + location.getTableName() + " SET " + queueTableSchema.getNextProcessAtField() +
+                " = TIMESTAMPADD(SECOND, :leaseDuration, NOW(6)) " +
+                "WHERE " + queueTableSchema.getIdField() + " IN (:ids)";
+    }
+}
@@ -0,0 +1,304 @@
+package ru.yoomoney.tech.dbqueue.spring.dao;
+
+import org.springframework.dao.support.DataAccessUtils;
+import org.springframework.jdbc.core.JdbcOperations;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import ru.yoomoney.tech.dbqueue.api.TaskRecord;
+import ru.yoomoney.tech.dbqueue.config.QueueTableSchema;
+import ru.yoomoney.tech.dbqueue.dao.QueuePickTaskDao;
+import ru.yoomoney.tech.dbqueue.settings.FailRetryType;
+import ru.yoomoney.tech.dbqueue.settings.FailureSettings;
+import ru.yoomoney.tech.dbqueue.settings.QueueId;
+import ru.yoomoney.tech.dbqueue.settings.QueueLocation;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Database access object to pick tasks in the queue for MySQL and MariaDB database type.
+ * <p>
+ * MySQL has no {@code UPDATE ... RETURNING}, so a task is picked in three statements:
+ * the task is locked by {@code SELECT ... FOR UPDATE SKIP LOCKED}, then its attempt and process time are updated
+ * and the updated task is read by its id.
+ * The statements must be called in a single transaction, otherwise the lock is released before the update.
+ *
+ * @author Oleg Kandaurov
+ * @since 19.10.2026
+ */
+public class MysqlQueuePickTaskDao implements QueuePickTaskDao {
+
+    @Nonnull
+    private final String selectTaskSql;
+    @Nullable
+    private final String selectTaskByPrioritySql;
+    @Nullable
+    private String selectTaskWithKeyLimitSql;
+    @Nullable
+    private String selectTaskByPriorityWithKeyLimitSql;
+    @Nullable
+    private final String selectTaskInKeyOrderSql;
+    @Nullable
+    private final String selectTaskByPriorityInKeyOrderSql;
+    @Nonnull
+    private final String returnTaskSql;
+    @Nonnull
+    private String updateTaskSql;
+    @Nonnull
+    private FailureSettings failureSettings;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final QueueTableSchema queueTableSchema;
+    @Nonnull
+    private final QueueLocation queueLocation;
+    @Nullable
+    private final List<String> groupQueueNames;
+
+    public MysqlQueuePickTaskDao(@Nonnull JdbcOperations jdbcOperations,
+                                 @Nonnull QueueTableSchema queueTableSchema,
+                                 @Nonnull QueueLocation queueLocation,
+                                 @Nonnull FailureSettings failureSettings) {
+        this(jdbcOperations, queueTableSchema, queueLocation, failureSettings, null);
+    }
+
+    public MysqlQueuePickTaskDao(@Nonnull JdbcOperations jdbcOperations,
+                                 @Nonnull QueueTableSchema queueTableSchema,
+                                 @Nonnull QueueLocation groupLocation,
+                                 @Nonnull Collection<QueueId> queueIds,
+                                 @Nonnull FailureSettings failureSettings) {
+        this(jdbcOperations, queueTableSchema, groupLocation, failureSettings,
+                requireNonNull(queueIds).stream().map(QueueId::asString).collect(Collectors.toList()));
+    }
+
+    private MysqlQueuePickTaskDao(@Nonnull JdbcOperations jdbcOperations,
+                                  @Nonnull QueueTableSchema queueTableSchema,
+                                  @Nonnull QueueLocation queueLocation,
+                                  @Nonnull FailureSettings failureSettings,
+                                  @Nullable List<String> groupQueueNames) {
+        this.jdbcTemplate = new NamedParameterJdbcTemplate(requireNonNull(jdbcOperations));
+        this.queueTableSchema = requireNonNull(queueTableSchema);
+        this.queueLocation = requireNonNull(queueLocation);
+        this.failureSettings = requireNonNull(failureSettings);
+        this.groupQueueNames = groupQueueNames;
+        boolean hasPriority = queueTableSchema.getPriorityField().isPresent();
+        boolean hasKey = queueTableSchema.getConcurrencyKeyField().isPresent();
+        selectTaskSql = createSelectTaskSql(false, "");
+        selectTaskByPrioritySql = hasPriority ? createSelectTaskSql(true, "") : null;
+        selectTaskWithKeyLimitSql = hasKey ?
+                createSelectTaskSql(false, createKeyLimitCondition(failureSettings)) : null;
+        selectTaskByPriorityWithKeyLimitSql = hasKey && hasPriority ?
+                createSelectTaskSql(true, createKeyLimitCondition(failureSettings)) : null;
+        selectTaskInKeyOrderSql = hasKey ? createSelectTaskSql(false, createKeyOrderCondition()) : null;
+        selectTaskByPriorityInKeyOrderSql = hasKey && hasPriority ?
+                createSelectTaskSql(true, createKeyOrderCondition()) : null;
+        returnTaskSql = createReturnTaskSql();
+        updateTaskSql = createUpdateTaskSql(failureSettings);
+        failureSettings.registerObserver((oldValue, newValue) -> {
+            updateTaskSql = createUpdateTaskSql(newValue);
+            selectTaskWithKeyLimitSql = hasKey ?
+                    createSelectTaskSql(false, createKeyLimitCondition(newValue)) : null;
+            selectTaskByPriorityWithKeyLimitSql = hasKey && hasPriority ?
+                    createSelectTaskSql(true, createKeyLimitCondition(newValue)) : null;
+            this.failureSettings = newValue;
+        });
+    }
+
+    @Nullable
+    @Override
+    public TaskRecord pickTask() {
+        return pickTask(selectTaskSql, null, null);
+    }
+
+    @Nullable
+    @Override
+    public TaskRecord pickAndDeleteTask() {
+        TaskRecord taskRecord = pickTask();
+        if (taskRecord != null) {
+            jdbcTemplate.update("DELETE FROM " + queueLocation.getTableName() +
+                            " WHERE " + queueTableSchema.getIdField() + " = :taskId",
+                    new MapSqlParameterSource("taskId", taskRecord.getId()));
+        }
+        return taskRecord;
+    }
+
+    @Nullable
+    @Override
+    public TaskRecord pickTaskByPriority(int priority) {
+        if (selectTaskByPrioritySql == null) {
+            throw new UnsupportedOperationException("priority field is not configured in queue table schema");
+        }
+        return pickTask(selectTaskByPrioritySql, priority, null);
+    }
+
+    @Nullable
+    @Override
+    public TaskRecord pickTaskWithKeyLimit(@Nullable Integer priority, int keyConcurrencyLimit) {
+        String sql = priority == null ? selectTaskWithKeyLimitSql : selectTaskByPriorityWithKeyLimitSql;
+        if (sql == null) {
+            throw new UnsupportedOperationException("concurrency key field or priority field " +
+                    "is not configured in queue table schema");
+        }
+        return pickTask(sql, priority, keyConcurrencyLimit);
+    }
+
+    @Nullable
+    @Override
+    public TaskRecord pickTaskInKeyOrder(@Nullable Integer priority) {
+        String sql = priority == null ? selectTaskInKeyOrderSql : selectTaskByPriorityInKeyOrderSql;
+        if (sql == null) {
+            throw new UnsupportedOperationException("concurrency key field or priority field " +
+                    "is not configured in queue table schema");
+        }
+        return pickTask(sql, priority, null);
+    }
+
+    @Nullable
+    private TaskRecord pickTask(@Nonnull String selectSql,
+                                @Nullable Integer priority,
+                                @Nullable Integer keyConcurrencyLimit) {
+        Long taskId = DataAccessUtils.singleResult(jdbcTemplate.queryForList(selectSql,
+                new MapSqlParameterSource()
+                        .addValue("queueName", queueLocation.getQueueId().asString())
+                        .addValue("queueNames", groupQueueNames)
+                        .addValue("priority", priority)
+                        .addValue("keyConcurrencyLimit", keyConcurrencyLimit)
+                        .addValue("retryInterval", failureSettings.getRetryInterval().getSeconds()),
+                Long.class));
+        if (taskId == null) {
+            return null;
+        }
+
+        int updatedRows = jdbcTemplate.update(updateTaskSql, new MapSqlParameterSource()
+                .addValue("retryInterval", failureSettings.getRetryInterval().getSeconds())
+                .addValue("taskId", taskId));
+        if (updatedRows != 1) {
+            throw new IllegalStateException("locked task is not updated: taskId=" + taskId);
+        }
+
+        return jdbcTemplate.query(returnTaskSql, new MapSqlParameterSource("taskId", taskId),
+                (ResultSet rs) -> {
+                    if (!rs.next()) {
+                        //noinspection ReturnOfNull
+                        return null;
+                    }
+
+                    Map<String, String> additionalData = new LinkedHashMap<>();
+                    queueTableSchema.getExtFields().forEach(key -> {
+                        try {
+                            additionalData.put(key, rs.getString(key));
+                        } catch (SQLException e) {
+                            throw new RuntimeException(e);
+                        }
+                    });
+                    return TaskRecord.builder()
+                            .withId(rs.getLong(queueTableSchema.getIdField()))
+                            .withCreatedAt(getZonedDateTime(rs, queueTableSchema.getCreatedAtField()))
+                            .withNextProcessAt(getZonedDateTime(rs, queueTableSchema.getNextProcessAtField()))
+                            .withPayload(rs.getString(queueTableSchema.getPayloadField()))
+                            .withAttemptsCount(rs.getLong(queueTableSchema.getAttemptField()))
+                            .withReenqueueAttemptsCount(rs.getLong(queueTableSchema.getReenqueueAttemptField()))
+                            .withTotalAttemptsCount(rs.getLong(queueTableSchema.getTotalAttemptField()))
+                            .withPriority(queueTableSchema.getPriorityField().isPresent() ?
+                                    rs.getInt(queueTableSchema.getPriorityField().get()) : 0)
+                            .withQueueId(groupQueueNames != null ?
+                                    new QueueId(rs.getString(queueTableSchema.getQueueNameField())) : null)
+                            .withExtData(additionalData).build();
+                });
+    }
+
+    private String createSelectTaskSql(boolean byPriority, @Nonnull String keyCondition) {
+        return "SELECT " + queueTableSchema.getIdField() + " " +
+                "FROM " + queueLocation.getTableName() + " t " +
+                "WHERE " + queueTableSchema.getQueueNameField() +
+                (groupQueueNames != null ? " IN (:queueNames) " : " = :queueName ") +
+                "  AND " + queueTableSchema.getNextProcessAtField() + " <= NOW(6) " +
+                (byPriority ? "  AND " + queueTableSchema.getPriorityField().get() + " = :priority " : "") +
+                keyCondition +
+                "ORDER BY " + queueTableSchema.getNextProcessAtField() + " ASC " +
+                "LIMIT 1 " +
+                "FOR UPDATE SKIP LOCKED";
+    }
+
+    private String createKeyLimitCondition(@Nonnull FailureSettings failureSettings) {
+        String keyField = queueTableSchema.getConcurrencyKeyField().get();
+        return "  AND (t." + keyField + " IS NULL OR " +
+                "(SELECT COUNT(*) FROM " + queueLocation.getTableName() + " k " +
+                "WHERE k." + queueTableSchema.getQueueNameField() + " = t." + queueTableSchema.getQueueNameField() +
+                "  AND k." + keyField + " = t." + keyField +
+                "  AND k." + queueTableSchema.getAttemptField() + " > 0 " +
+                "  AND k." + queueTableSchema.getNextProcessAtField() + " > NOW(6) " +
+                (failureSettings.getRetryType() == FailRetryType.LINEAR_BACKOFF ?
+                        "  AND k." + queueTableSchema.getNextProcessAtField() + " <= " +
+                                getNextProcessTimeSql(FailRetryType.LINEAR_BACKOFF) : "") +
+                ") < :keyConcurrencyLimit) ";
+    }
+
+    private String createKeyOrderCondition() {
+        String keyField = queueTableSchema.getConcurrencyKeyField().get();
+        return "  AND (t." + keyField + " IS NULL OR NOT EXISTS (" +
+                "SELECT 1 FROM " + queueLocation.getTableName() + " k " +
+                "WHERE k." + queueTableSchema.getQueueNameField() + " = t." + queueTableSchema.getQueueNameField() +
+                "  AND k." + keyField + " = t." + keyField +
+                "  AND k." + queueTableSchema.getIdField() + " < t." + queueTableSchema.getIdField() + ")) ";
+    }
+
+    private String createUpdateTaskSql(@Nonnull FailureSettings failureSettings) {
+        // MySQL evaluates assignments from left to right,
+        // so the process time must be computed before the attempt is incremented
+        return "UPDATE " + queueLocation.getTableName() + " " +
+                "SET " +
+                "  " + queueTableSchema.getNextProcessAtField() + " = " +
+                getNextProcessTimeSql(failureSettings.getRetryType()) + ", " +
+                "  " + queueTableSchema.getAttemptField() + " = " + queueTableSchema.getAttemptField() + " + 1, " +
+                "  " + queueTableSchema.getTotalAttemptField() + " = " + queueTableSchema.getTotalAttemptField() + " + 1 " +
+                "WHERE " + queueTableSchema.getIdField() + " = :taskId";
+    }
+
+    private String createReturnTaskSql() {
+        return "SELECT " +
+                queueTableSchema.getIdField() + ", " +
+                queueTableSchema.getPayloadField() + ", " +
+                queueTableSchema.getAttemptField() + ", " +
+                queueTableSchema.getReenqueueAttemptField() + ", " +
+                queueTableSchema.getTotalAttemptField() + ", " +
+                queueTableSchema.getCreatedAtField() + ", " +
+                queueTableSchema.getNextProcessAtField() +
+                queueTableSchema.getPriorityField().map(field -> ", " + field).orElse("") +
+                (groupQueueNames != null ? ", " + queueTableSchema.getQueueNameField() : "") +
+                (queueTableSchema.getExtFields().isEmpty() ? "" :
+                        queueTableSchema.getExtFields().stream().collect(Collectors.joining(", ", ", ", ""))) + " " +
+                "FROM " + queueLocation.getTableName() + " " +
+                "WHERE " + queueTableSchema.getIdField() + " = :taskId";
+    }
+
+    private static ZonedDateTime getZonedDateTime(ResultSet rs, String time) throws SQLException {
+        return ZonedDateTime.ofInstant(rs.getTimestamp(time).toInstant(), ZoneId.systemDefault());
+    }
+
+    @Nonnull
+    private String getNextProcessTimeSql(@Nonnull FailRetryType failRetryType) {
+        requireNonNull(failRetryType, "retry type must be not null");
+        switch (failRetryType) {
+            case GEOMETRIC_BACKOFF:
+                return "TIMESTAMPADD(SECOND, CAST(POWER(2, " + queueTableSchema.getAttemptField() + ") * :retryInterval AS SIGNED), " +
+                        "NOW(6))";
+            case ARITHMETIC_BACKOFF:
+                return "TIMESTAMPADD(SECOND, (1 + " + queueTableSchema.getAttemptField() + " * 2) * :retryInterval, NOW(6))";
+            case LINEAR_BACKOFF:
+                return "TIMESTAMPADD(SECOND, :retryInterval, NOW(6))";
+            default:
+                throw new IllegalStateException("unknown retry type: " + failRetryType);
+        }
+    }
+}
@@ -1,16 +1,21 @@
 package ru.yoomoney.tech.dbqueue.spring.dao;
 
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.jdbc.core.JdbcOperations;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import ru.yoomoney.tech.dbqueue.api.EnqueueParams;
 import ru.yoomoney.tech.dbqueue.config.QueueTableSchema;
+import ru.yoomoney.tech.dbqueue.dao.EnqueueOutcome;
 import ru.yoomoney.tech.dbqueue.dao.QueueDao;
 import ru.yoomoney.tech.dbqueue.settings.QueueLocation;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
@@ -26,9 +31,21 @@ import static java.util.Objects.requireNonNull;
  */
 public class Oracle11QueueDao implements QueueDao {
 
+    /**
+     * Limit of attempts to insert a task with a deduplication key,
+     * when existing task with the same key is removed concurrently
+     */
+    private static final int MAX_ENQUEUE_IF_ABSENT_ATTEMPTS = 3;
+
     private final Map<QueueLocation, String> enqueueSqlCache = new ConcurrentHashMap<>();
+    private final Map<QueueLocation, String> enqueueIfAbsentSqlCache = new ConcurrentHashMap<>();
+    private final Map<QueueLocation, String> selectByDeduplicationKeySqlCache = new ConcurrentHashMap<>();
+    private final Map<QueueLocation, String> selectPendingByCoalescingKeySqlCache = new ConcurrentHashMap<>();
+    private final Map<QueueLocation, String> coalesceSqlCache = new ConcurrentHashMap<>();
     private final Map<QueueLocation, String> deleteSqlCache = new ConcurrentHashMap<>();
     private final Map<QueueLocation, String> reenqueueSqlCache = new ConcurrentHashMap<>();
+    private final Map<QueueLocation, String> extendLeasesSqlCache = new ConcurrentHashMap<>();
+    private final Map<QueueLocation, String> countSqlCache = new ConcurrentHashMap<>();
     private final Map<String, String> nextSequenceSqlCache = new ConcurrentHashMap<>();
 
     @Nonnull
@@ -54,23 +71,97 @@ public class Oracle11QueueDao implements QueueDao {
         requireNonNull(location);
         requireNonNull(enqueueParams);
 
+        Long generatedId = generateId(location);
+        jdbcTemplate.update(enqueueSqlCache.computeIfAbsent(location, this::createEnqueueSql),
+                createEnqueueParams(location, enqueueParams, generatedId));
+        return generatedId;
+    }
+
+    @Nonnull
+    @Override
+    @SuppressFBWarnings("SQL_INJECTION_SPRING_JDBC")
+    public EnqueueOutcome enqueueIfAbsent(@Nonnull QueueLocation location,
+                                          @Nonnull EnqueueParams<String> enqueueParams) {
+        requireNonNull(location);
+        requireNonNull(enqueueParams);
+        if (!queueTableSchema.getDeduplicationKeyField().isPresent()) {
+            throw new IllegalStateException("deduplication key field is not configured in queue table schema");
+        }
+        if (!enqueueParams.getDeduplicationKey().isPresent()) {
+            throw new IllegalArgumentException("deduplication key is not set: location=" + location);
+        }
+        for (int attempt = 0; attempt < MAX_ENQUEUE_IF_ABSENT_ATTEMPTS; attempt++) {
+            Long generatedId = generateId(location);
+            MapSqlParameterSource params = createEnqueueParams(location, enqueueParams, generatedId);
+            try {
+                int insertedRows = jdbcTemplate.update(
+                        enqueueIfAbsentSqlCache.computeIfAbsent(location, this::createEnqueueIfAbsentSql), params);
+                if (insertedRows != 0) {
+                    return EnqueueOutcome.created(generatedId);
+                }
+            } catch (DuplicateKeyException ignored) {
+                // concurrent transaction inserted a task with the same key, falling back to select
+            }
+            List<Long> existingIds = jdbcTemplate.queryForList(
+                    selectByDeduplicationKeySqlCache.computeIfAbsent(location, this::createSelectByDeduplicationKeySql),
+                    params, Long.class);
+            if (!existingIds.isEmpty()) {
+                return EnqueueOutcome.duplicate(existingIds.get(0));
+            }
+        }
+        throw new IllegalStateException("cannot enqueue task with deduplication key: location=" + location +
+                ", deduplicationKey=" + enqueueParams.getDeduplicationKey().get());
+    }
+
+    @Nonnull
+    @Override
+    public EnqueueOutcome enqueueOrCoalesce(@Nonnull QueueLocation location,
+                                            @Nonnull EnqueueParams<String> enqueueParams) {
+        requireNonNull(location);
+        requireNonNull(enqueueParams);
+        if (!queueTableSchema.getCoalescingKeyField().isPresent()) {
+            throw new IllegalStateException("coalescing key field is not configured in queue table schema");
+        }
+        if (!enqueueParams.getCoalescingKey().isPresent()) {
+            throw new IllegalArgumentException("coalescing key is not set: location=" + location);
+        }
+        MapSqlParameterSource params = createEnqueueParams(location, enqueueParams, null);
+        List<Long> pendingIds = jdbcTemplate.queryForList(
+                selectPendingByCoalescingKeySqlCache.computeIfAbsent(location,
+                        this::createSelectPendingByCoalescingKeySql),
+                params, Long.class);
+        if (!pendingIds.isEmpty()) {
+            Long pendingId = pendingIds.get(0);
+            jdbcTemplate.update(coalesceSqlCache.computeIfAbsent(location, this::createCoalesceSql),
+                    params.addValue("id", pendingId));
+            return EnqueueOutcome.coalesced(pendingId);
+        }
+        return EnqueueOutcome.created(enqueue(location, enqueueParams));
+    }
+
+    @SuppressFBWarnings("SQL_INJECTION_SPRING_JDBC")
+    private Long generateId(@Nonnull QueueLocation location) {
         String idSequence = location.getIdSequence()
                 .orElseThrow(() -> new IllegalStateException("id sequence must be specified for oracle 11g database"));
-
-        Long generatedId = Objects.requireNonNull(jdbcTemplate.getJdbcTemplate().queryForObject(
+        return Objects.requireNonNull(jdbcTemplate.getJdbcTemplate().queryForObject(
                 nextSequenceSqlCache.computeIfAbsent(idSequence, this::createNextSequenceSql), Long.class));
+    }
 
+    private MapSqlParameterSource createEnqueueParams(@Nonnull QueueLocation location,
+                                                      @Nonnull EnqueueParams<String> enqueueParams,
+                                                      @Nullable Long generatedId) {
         MapSqlParameterSource params = new MapSqlParameterSource()
                 .addValue("queueName", location.getQueueId().asString())
                 .addValue("payload", enqueueParams.getPayload())
                 .addValue("executionDelay", enqueueParams.getExecutionDelay().getSeconds())
+                .addValue("deduplicationKey", enqueueParams.getDeduplicationKey().orElse(null))
+                .addValue("coalescingKey", enqueueParams.getCoalescingKey().orElse(null))
+                .addValue("priority", enqueueParams.getPriority())
                 .addValue("id", generatedId);
 
         queueTableSchema.getExtFields().forEach(paramName -> params.addValue(paramName, null));
         enqueueParams.getExtData().forEach(params::addValue);
-
-        jdbcTemplate.update(enqueueSqlCache.computeIfAbsent(location, this::createEnqueueSql), params);
-        return generatedId;
+        return params;
     }
 
 
@@ -97,26 +188,97 @@ public class Oracle11QueueDao implements QueueDao {
         return updatedRows != 0;
     }
 
+    @Override
+    public int extendLeases(@Nonnull QueueLocation location, @Nonnull Collection<Long> taskIds,
+                            @Nonnull Duration leaseDuration) {
+        requireNonNull(location);
+        requireNonNull(taskIds);
+        requireNonNull(leaseDuration);
+        if (taskIds.isEmpty()) {
+            return 0;
+        }
+        return jdbcTemplate.update(extendLeasesSqlCache.computeIfAbsent(location, this::createExtendLeasesSql),
+                new MapSqlParameterSource()
+                        .addValue("ids", taskIds)
+                        .addValue("leaseDuration", leaseDuration.getSeconds()));
+    }
+
+    @Override
+    @SuppressFBWarnings("NP_NULL_ON_SOME_PATH_FROM_RETURN_VALUE")
+    public long countTasks(@Nonnull QueueLocation location) {
+        requireNonNull(location);
+        return requireNonNull(jdbcTemplate.queryForObject(countSqlCache.computeIfAbsent(location, this::createCountSql),
+                new MapSqlParameterSource("queueName", location.getQueueId().asString()), Long.class));
+    }
+
     private String createDeleteSql(@Nonnull QueueLocation location) {
         return "DELETE FROM " + location.getTableName() + " WHERE " + queueTableSchema.getQueueNameField() +
                 " = :queueName AND " + queueTableSchema.getIdField() + " = :id";
     }
 
+    private String createCountSql(@Nonnull QueueLocation location) {
+        return "SELECT COUNT(*) FROM " + location.getTableName() + " WHERE " + queueTableSchema.getQueueNameField() +
+                " = :queueName";
+    }
+
     private String createEnqueueSql(@Nonnull QueueLocation location) {
-        return "INSERT INTO " + location.getTableName() + "(" +
-                queueTableSchema.getIdField() + "," +
+        return "INSERT INTO " + location.getTableName() + "(" + createInsertColumns() + ")" +
+                " VALUES (" + createInsertValues() + ")";
+    }
+
+    private String createEnqueueIfAbsentSql(@Nonnull QueueLocation location) {
+        return "MERGE INTO " + location.getTableName() + " USING dual ON (" +
+                queueTableSchema.getQueueNameField() + " = :queueName AND " +
+                queueTableSchema.getDeduplicationKeyField().orElseThrow(IllegalStateException::new) +
+                " = :deduplicationKey) WHEN NOT MATCHED THEN INSERT (" + createInsertColumns() + ")" +
+                " VALUES (" + createInsertValues() + ")";
+    }
+
+    private String createSelectByDeduplicationKeySql(@Nonnull QueueLocation location) {
+        return "SELECT " + queueTableSchema.getIdField() + " FROM " + location.getTableName() +
+                " WHERE " + queueTableSchema.getQueueNameField() + " = :queueName AND " +
+                queueTableSchema.getDeduplicationKeyField().orElseThrow(IllegalStateException::new) +
+                " = :deduplicationKey";
+    }
+
+    private String createSelectPendingByCoalescingKeySql(@Nonnull QueueLocation location) {
+        return "SELECT " + queueTableSchema.getIdField() + " FROM " + location.getTableName() +
+                " WHERE " + queueTableSchema.getQueueNameField() + " = :queueName AND " +
+                queueTableSchema.getCoalescingKeyField().orElseThrow(IllegalStateException::new) +
+                " = :coalescingKey AND " + queueTableSchema.getAttemptField() + " = 0" +
+                " FOR UPDATE SKIP LOCKED";
+    }
+
+    private String createCoalesceSql(@Nonnull QueueLocation location) {
+        return "UPDATE " + location.getTableName() + " SET " +
+                queueTableSchema.getPayloadField() + " = :payload, " +
+                queueTableSchema.getNextProcessAtField() + " = CURRENT_TIMESTAMP + :executionDelay * INTERVAL '1' SECOND" +
+                queueTableSchema.getExtFields().stream()
+                        .map(field -> ", " + field + " = :" + field).collect(Collectors.joining()) +
+                " WHERE " + queueTableSchema.getIdField() + " = :id";
+    }
+
+    private String createInsertColumns() {
+        return queueTableSchema.getIdField() + "," +
                 queueTableSchema.getQueueNameField() + "," +
                 queueTableSchema.getPayloadField() + "," +
                 queueTableSchema.getNextProcessAtField() + "," +
                 queueTableSchema.getReenqueueAttemptField() + "," +
                 queueTableSchema.getTotalAttemptField() +
+                queueTableSchema.getDeduplicationKeyField().map(field -> "," + field).orElse("") +
+                queueTableSchema.getCoalescingKeyField().map(field -> "," + field).orElse("") +
+                queueTableSchema.getPriorityField().map(field -> "," + field).orElse("") +
                 (queueTableSchema.getExtFields().isEmpty() ? "" :
-                        queueTableSchema.getExtFields().stream().collect(Collectors.joining(", ", ", ", ""))) +
-                ") VALUES " +
-                "(:id, :queueName, :payload, CURRENT_TIMESTAMP + :executionDelay * INTERVAL '1' SECOND, 0, 0" +
+                        queueTableSchema.getExtFields().stream().collect(Collectors.joining(", ", ", ", "")));
+    }
+
+    private String createInsertValues() {
+        return ":id, :queueName, :payload, CURRENT_TIMESTAMP + :executionDelay * INTERVAL '1' SECOND, 0, 0" +
+                queueTableSchema.getDeduplicationKeyField().map(ignored -> ", :deduplicationKey").orElse("") +
+                queueTableSchema.getCoalescingKeyField().map(ignored -> ", :coalescingKey").orElse("") +
+                queueTableSchema.getPriorityField().map(ignored -> ", :priority").orElse("") +
                 (queueTableSchema.getExtFields().isEmpty() ? "" : queueTableSchema.getExtFields().stream()
-                        .map(field -> ":" + field).collect(Collectors.joining(", ", ", ", ""))) +
-                ")";
+                        .map(field -> ":" + field).collect(Collectors.joining(", ", ", ", "")));
     }
 
     private String createReenqueueSql(@Nonnull QueueLocation location) {
@@ -129,6 +291,12 @@ public class Oracle11QueueDao implements QueueDao {
                 queueTableSchema.getQueueNameField() + " = :queueName";
     }
 
+    private String createExtendLeasesSql(@Nonnull QueueLocation location) {
+        return "UPDATE " + location.getTableName() + " SET " + queueTableSchema.getNextProcessAtField() +
+                " = CURRENT_TIMESTAMP + :leaseDuration * INTERVAL '1' SECOND " +
+                "WHERE " + queueTableSchema.getIdField() + " IN (:ids)";
+    }
+
     private String createNextSequenceSql(String idSequence) {
         return "SELECT " + idSequence + ".nextval FROM dual";
     }
@@ -9,6 +9,7 @@ import ru.yoomoney.tech.dbqueue.config.QueueTableSchema;
 import ru.yoomoney.tech.dbqueue.dao.QueuePickTaskDao;
 import ru.yoomoney.tech.dbqueue.settings.FailRetryType;
 import ru.yoomoney.tech.dbqueue.settings.FailureSettings;
+import ru.yoomoney.tech.dbqueue.settings.QueueId;
 import ru.yoomoney.tech.dbqueue.settings.QueueLocation;
 
 import javax.annotation.Nonnull;
@@ -19,9 +20,13 @@ import java.sql.Timestamp;
 import java.sql.Types;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.stream.Collectors;
 
 /**
  * Database access object to pick tasks in the queue for Oracle database type.
@@ -37,20 +42,68 @@ public class Oracle11QueuePickTaskDao implements QueuePickTaskDao {
     private final JdbcOperations jdbcTemplate;
     @Nonnull
     private final QueueTableSchema queueTableSchema;
+    @Nonnull
+    private final QueueLocation queueLocation;
+    @Nullable
+    private final List<String> groupQueueNames;
+    private FailureSettings failureSettings;
     private PickTaskCallableStatement pickTaskStatement;
     private String pickTaskSql;
+    @Nullable
+    private String pickTaskByPrioritySql;
+    @Nullable
+    private String pickTaskWithKeyLimitSql;
+    @Nullable
+    private String pickTaskByPriorityWithKeyLimitSql;
+    @Nullable
+    private String pickTaskInKeyOrderSql;
+    @Nullable
+    private String pickTaskByPriorityInKeyOrderSql;
 
     public Oracle11QueuePickTaskDao(@Nonnull JdbcOperations jdbcTemplate,
                                     @Nonnull QueueTableSchema queueTableSchema,
                                     @Nonnull QueueLocation queueLocation,
                                     @Nonnull FailureSettings failureSettings) {
+        this(jdbcTemplate, queueTableSchema, queueLocation, failureSettings, null);
+    }
+
+    public Oracle11QueuePickTaskDao(@Nonnull JdbcOperations jdbcTemplate,
+                                    @Nonnull QueueTableSchema queueTableSchema,
+                                    @Nonnull QueueLocation groupLocation,
+                                    @Nonnull Collection<QueueId> queueIds,
+                                    @Nonnull FailureSettings failureSettings) {
+        this(jdbcTemplate, queueTableSchema, groupLocation, failureSettings,
+                Objects.requireNonNull(queueIds).stream().map(QueueId::asString).collect(Collectors.toList()));
+    }
+
+    private Oracle11QueuePickTaskDao(@Nonnull JdbcOperations jdbcTemplate,
+                                     @Nonnull QueueTableSchema queueTableSchema,
+                                     @Nonnull QueueLocation queueLocation,
+                                     @Nonnull FailureSettings failureSettings,
+                                     @Nullable List<String> groupQueueNames) {
         this.jdbcTemplate = Objects.requireNonNull(jdbcTemplate);
         this.queueTableSchema = Objects.requireNonNull(queueTableSchema);
-        pickTaskStatement = new PickTaskCallableStatement(queueTableSchema, queueLocation, failureSettings);
-        pickTaskSql = createPickTaskSql(queueLocation, failureSettings);
+        this.queueLocation = Objects.requireNonNull(queueLocation);
+        this.groupQueueNames = groupQueueNames;
+        this.failureSettings = failureSettings;
+        pickTaskStatement = new PickTaskCallableStatement(queueTableSchema, queueLocation, failureSettings,
+                groupQueueNames, null, null);
+        pickTaskSql = createPickTaskSql(queueLocation, failureSettings, false, "");
+        pickTaskByPrioritySql = createPickTaskByPrioritySql(queueLocation, failureSettings);
+        pickTaskWithKeyLimitSql = createPickTaskWithKeyLimitSql(queueLocation, failureSettings, false);
+        pickTaskByPriorityWithKeyLimitSql = createPickTaskWithKeyLimitSql(queueLocation, failureSettings, true);
+        pickTaskInKeyOrderSql = createPickTaskInKeyOrderSql(queueLocation, failureSettings, false);
+        pickTaskByPriorityInKeyOrderSql = createPickTaskInKeyOrderSql(queueLocation, failureSettings, true);
         failureSettings.registerObserver((oldValue, newValue) -> {
-            pickTaskSql = createPickTaskSql(queueLocation, newValue);
-            pickTaskStatement = new PickTaskCallableStatement(queueTableSchema, queueLocation, newValue);
+            pickTaskSql = createPickTaskSql(queueLocation, newValue, false, "");
+            pickTaskByPrioritySql = createPickTaskByPrioritySql(queueLocation, newValue);
+            pickTaskWithKeyLimitSql = createPickTaskWithKeyLimitSql(queueLocation, newValue, false);
+            pickTaskByPriorityWithKeyLimitSql = createPickTaskWithKeyLimitSql(queueLocation, newValue, true);
+            pickTaskInKeyOrderSql = createPickTaskInKeyOrderSql(queueLocation, newValue, false);
+            pickTaskByPriorityInKeyOrderSql = createPickTaskInKeyOrderSql(queueLocation, newValue, true);
+            pickTaskStatement = new PickTaskCallableStatement(queueTableSchema, queueLocation, newValue,
+                    groupQueueNames, null, null);
+            this.failureSettings = newValue;
         });
     }
 
@@ -62,25 +115,101 @@ public class Oracle11QueuePickTaskDao implements QueuePickTaskDao {
         return jdbcTemplate.execute(pickTaskSql, pickTaskStatement);
     }
 
+    @Nullable
+    @Override
+    @SuppressFBWarnings("SQL_INJECTION_SPRING_JDBC")
+    public TaskRecord pickAndDeleteTask() {
+        TaskRecord taskRecord = pickTask();
+        if (taskRecord != null) {
+            jdbcTemplate.update("DELETE FROM " + queueLocation.getTableName() +
+                    " WHERE " + queueTableSchema.getIdField() + " = ?", taskRecord.getId());
+        }
+        return taskRecord;
+    }
+
+    @Nullable
+    @Override
+    @SuppressFBWarnings("SQL_INJECTION_SPRING_JDBC")
+    public TaskRecord pickTaskByPriority(int priority) {
+        if (pickTaskByPrioritySql == null) {
+            throw new UnsupportedOperationException("priority field is not configured in queue table schema");
+        }
+        return jdbcTemplate.execute(pickTaskByPrioritySql,
+                new PickTaskCallableStatement(queueTableSchema, queueLocation, failureSettings,
+                        groupQueueNames, priority, null));
+    }
+
+    @Nullable
+    @Override
+    @SuppressFBWarnings("SQL_INJECTION_SPRING_JDBC")
+    public TaskRecord pickTaskWithKeyLimit(@Nullable Integer priority, int keyConcurrencyLimit) {
+        String sql = priority == null ? pickTaskWithKeyLimitSql : pickTaskByPriorityWithKeyLimitSql;
+        if (sql == null) {
+            throw new UnsupportedOperationException("concurrency key field or priority field " +
+                    "is not configured in queue table schema");
+        }
+        return jdbcTemplate.execute(sql,
+                new PickTaskCallableStatement(queueTableSchema, queueLocation, failureSettings,
+                        groupQueueNames, priority, keyConcurrencyLimit));
+    }
+
+    @Nullable
+    @Override
+    @SuppressFBWarnings("SQL_INJECTION_SPRING_JDBC")
+    public TaskRecord pickTaskInKeyOrder(@Nullable Integer priority) {
+        String sql = priority == null ? pickTaskInKeyOrderSql : pickTaskByPriorityInKeyOrderSql;
+        if (sql == null) {
+            throw new UnsupportedOperationException("concurrency key field or priority field " +
+                    "is not configured in queue table schema");
+        }
+        return jdbcTemplate.execute(sql,
+                new PickTaskCallableStatement(queueTableSchema, queueLocation, failureSettings,
+                        groupQueueNames, priority, null));
+    }
+
 
     private static class PickTaskCallableStatement implements CallableStatementCallback<TaskRecord> {
 
         private final QueueLocation queueLocation;
         private final FailureSettings failureSettings;
         private final QueueTableSchema queueTableSchema;
+        @Nullable
+        private final List<String> groupQueueNames;
+        @Nullable
+        private final Integer priority;
+        @Nullable
+        private final Integer keyConcurrencyLimit;
 
         public PickTaskCallableStatement(QueueTableSchema queueTableSchema,
                                          QueueLocation queueLocation,
-                                         FailureSettings failureSettings) {
+                                         FailureSettings failureSettings,
+                                         @Nullable List<String> groupQueueNames,
+                                         @Nullable Integer priority,
+                                         @Nullable Integer keyConcurrencyLimit) {
             this.queueLocation = queueLocation;
             this.failureSettings = failureSettings;
             this.queueTableSchema = queueTableSchema;
+            this.groupQueueNames = groupQueueNames;
+            this.priority = priority;
+            this.keyConcurrencyLimit = keyConcurrencyLimit;
         }
 
         @Override
         public TaskRecord doInCallableStatement(CallableStatement cs) throws SQLException, DataAccessException {
             int inputIndex = 1;
-            cs.setString(inputIndex++, queueLocation.getQueueId().asString());
+            List<String> queueNames = groupQueueNames != null ? groupQueueNames :
+                    Collections.singletonList(queueLocation.getQueueId().asString());
+            for (String queueName : queueNames) {
+                cs.setString(inputIndex++, queueName);
+            }
+            int firstResultIndex = inputIndex + 1 + (priority != null ? 1 : 0) +
+                    (keyConcurrencyLimit != null ? 1 : 0);
+            if (priority != null) {
+                cs.setInt(inputIndex++, priority);
+            }
+            if (keyConcurrencyLimit != null) {
+                cs.setInt(inputIndex++, keyConcurrencyLimit);
+            }
             cs.setLong(inputIndex++, failureSettings.getRetryInterval().getSeconds());
             cs.registerOutParameter(inputIndex++, Types.BIGINT);
             cs.registerOutParameter(inputIndex++, Types.CLOB);
@@ -93,10 +222,16 @@ public class Oracle11QueuePickTaskDao implements QueuePickTaskDao {
             for (String ignored : queueTableSchema.getExtFields()) {
                 cs.registerOutParameter(inputIndex++, Types.VARCHAR);
             }
+            if (queueTableSchema.getPriorityField().isPresent()) {
+                cs.registerOutParameter(inputIndex++, Types.INTEGER);
+            }
+            if (groupQueueNames != null) {
+                cs.registerOutParameter(inputIndex++, Types.VARCHAR);
+            }
 
             cs.execute();
 
-            int resultIndex = 3;
+            int resultIndex = firstResultIndex;
             long id = cs.getLong(resultIndex++);
             if (id == 0L) {
                 return null;
@@ -114,6 +249,12 @@ public class Oracle11QueuePickTaskDao implements QueuePickTaskDao {
             for (String field : queueTableSchema.getExtFields()) {
                 extData.put(field, cs.getString(resultIndex++));
             }
+            if (queueTableSchema.getPriorityField().isPresent()) {
+                builder.withPriority(cs.getInt(resultIndex++));
+            }
+            if (groupQueueNames != null) {
+                builder.withQueueId(new QueueId(cs.getString(resultIndex)));
+            }
             return builder.withExtData(extData).build();
         }
 
@@ -138,7 +279,55 @@ public class Oracle11QueuePickTaskDao implements QueuePickTaskDao {
         }
     }
 
-    private String createPickTaskSql(QueueLocation queueLocation, FailureSettings failureSettings) {
+    @Nullable
+    private String createPickTaskByPrioritySql(QueueLocation queueLocation, FailureSettings failureSettings) {
+        return queueTableSchema.getPriorityField().isPresent() ?
+                createPickTaskSql(queueLocation, failureSettings, true, "") : null;
+    }
+
+    @Nullable
+    private String createPickTaskWithKeyLimitSql(QueueLocation queueLocation, FailureSettings failureSettings,
+                                                 boolean byPriority) {
+        return queueTableSchema.getConcurrencyKeyField().isPresent() &&
+                (!byPriority || queueTableSchema.getPriorityField().isPresent()) ?
+                createPickTaskSql(queueLocation, failureSettings, byPriority,
+                        createKeyLimitCondition(queueLocation, failureSettings)) : null;
+    }
+
+    @Nullable
+    private String createPickTaskInKeyOrderSql(QueueLocation queueLocation, FailureSettings failureSettings,
+                                               boolean byPriority) {
+        return queueTableSchema.getConcurrencyKeyField().isPresent() &&
+                (!byPriority || queueTableSchema.getPriorityField().isPresent()) ?
+                createPickTaskSql(queueLocation, failureSettings, byPriority,
+                        createKeyOrderCondition(queueLocation)) : null;
+    }
+
+    private String createKeyOrderCondition(QueueLocation queueLocation) {
+        String keyField = queueTableSchema.getConcurrencyKeyField().get();
+        return "(t." + keyField + " IS NULL OR NOT EXISTS ("
+                + "SELECT 1 FROM " + queueLocation.getTableName() + " k"
+                + " WHERE k." + queueTableSchema.getQueueNameField() + " = t." + queueTableSchema.getQueueNameField()
+                + " AND k." + keyField + " = t." + keyField
+                + " AND k." + queueTableSchema.getIdField() + " < t." + queueTableSchema.getIdField() + ")) AND ";
+    }
+
+    private String createKeyLimitCondition(QueueLocation queueLocation, FailureSettings failureSettings) {
+        String keyField = queueTableSchema.getConcurrencyKeyField().get();
+        return "(t." + keyField + " IS NULL OR "
+                + "(SELECT COUNT(*) FROM " + queueLocation.getTableName() + " k"
+                + " WHERE k." + queueTableSchema.getQueueNameField() + " = t." + queueTableSchema.getQueueNameField()
+                + " AND k." + keyField + " = t." + keyField
+                + " AND k." + queueTableSchema.getAttemptField() + " > 0"
+                + " AND k." + queueTableSchema.getNextProcessAtField() + " > CURRENT_TIMESTAMP"
+                + (failureSettings.getRetryType() == FailRetryType.LINEAR_BACKOFF ?
+                " AND k." + queueTableSchema.getNextProcessAtField() + " <= CURRENT_TIMESTAMP + "
+                        + failureSettings.getRetryInterval().getSeconds() + " * (INTERVAL '1' SECOND)" : "")
+                + ") < ?) AND ";
+    }
+
+    private String createPickTaskSql(QueueLocation queueLocation, FailureSettings failureSettings,
+                                     boolean byPriority, String keyCondition) {
         StringBuilder declaration = new StringBuilder("DECLARE\n"
                 + " rid " + queueLocation.getTableName() + "." + queueTableSchema.getIdField() + "%TYPE;\n"
                 + " rpayload " + queueLocation.getTableName() + "." + queueTableSchema.getPayloadField() + "%TYPE;\n"
@@ -151,6 +340,14 @@ public class Oracle11QueuePickTaskDao implements QueuePickTaskDao {
                 declaration.append("r").append(field).append(" ")
                         .append(queueLocation.getTableName()).append(".").append(field).append("%TYPE;\n")
         );
+        queueTableSchema.getPriorityField().ifPresent(field ->
+                declaration.append("rpriority ")
+                        .append(queueLocation.getTableName()).append(".").append(field).append("%TYPE;\n")
+        );
+        if (groupQueueNames != null) {
+            declaration.append("rqueue_name ").append(queueLocation.getTableName()).append(".")
+                    .append(queueTableSchema.getQueueNameField()).append("%TYPE;\n");
+        }
 
         StringBuilder cursorSelect = new StringBuilder(" CURSOR c IS SELECT " +
                 queueTableSchema.getIdField() + ", " +
@@ -162,6 +359,10 @@ public class Oracle11QueuePickTaskDao implements QueuePickTaskDao {
         queueTableSchema.getExtFields().forEach(field ->
                 cursorSelect.append(field).append(", ")
         );
+        queueTableSchema.getPriorityField().ifPresent(field -> cursorSelect.append(field).append(", "));
+        if (groupQueueNames != null) {
+            cursorSelect.append(queueTableSchema.getQueueNameField()).append(", ");
+        }
         cursorSelect.append(queueTableSchema.getNextProcessAtField()).append(" ");
 
         StringBuilder fetchParams = new StringBuilder("rid, " +
@@ -171,6 +372,10 @@ public class Oracle11QueuePickTaskDao implements QueuePickTaskDao {
                 "rtotal_attempt, " +
                 "rcreated_at, ");
         queueTableSchema.getExtFields().forEach(field -> fetchParams.append("r").append(field).append(", "));
+        queueTableSchema.getPriorityField().ifPresent(field -> fetchParams.append("rpriority, "));
+        if (groupQueueNames != null) {
+            fetchParams.append("rqueue_name, ");
+        }
         fetchParams.append("rnext_process_at;\n");
 
         String updateSql = "IF (c%NOTFOUND) THEN \n"
@@ -195,10 +400,18 @@ public class Oracle11QueuePickTaskDao implements QueuePickTaskDao {
                 "\n ? := rcreated_at; " +
                 "\n ? := rnext_process_at; ");
         queueTableSchema.getExtFields().forEach(field -> returnParams.append("\n ? := r").append(field).append("; "));
+        queueTableSchema.getPriorityField().ifPresent(field -> returnParams.append("\n ? := rpriority; "));
+        if (groupQueueNames != null) {
+            returnParams.append("\n ? := rqueue_name; ");
+        }
         returnParams.append("\n END; ");
 
-        String fetchCursor = " FROM " + queueLocation.getTableName() + " "
-                + " WHERE " + queueTableSchema.getQueueNameField() + " = ? AND "
+        String fetchCursor = " FROM " + queueLocation.getTableName() + " t "
+                + " WHERE " + queueTableSchema.getQueueNameField()
+                + (groupQueueNames != null ? groupQueueNames.stream().map(name -> "?")
+                .collect(Collectors.joining(", ", " IN (", ") AND ")) : " = ? AND ")
+                + (byPriority ? queueTableSchema.getPriorityField().get() + " = ? AND " : "")
+                + keyCondition
                 + queueTableSchema.getNextProcessAtField() + " <= CURRENT_TIMESTAMP"
                 + " FOR UPDATE SKIP LOCKED;"
                 + " BEGIN \n"
@@ -0,0 +1,286 @@
+package ru.yoomoney.tech.dbqueue.spring.dao;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcOperations;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import ru.yoomoney.tech.dbqueue.api.EnqueueParams;
+import ru.yoomoney.tech.dbqueue.config.QueueTableSchema;
+import ru.yoomoney.tech.dbqueue.dao.EnqueueOutcome;
+import ru.yoomoney.tech.dbqueue.dao.QueueDao;
+import ru.yoomoney.tech.dbqueue.settings.QueueLocation;
+
+import javax.annotation.Nonnull;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Database access object to manage tasks in the queue for Oracle 12c and higher database type.
+ * <p>
+ * A task is inserted in a single round trip: the id is generated by an identity column
+ * or by the sequence inside the insert and returned by {@code RETURNING ... INTO} of the insert.
+ * A task with a deduplication key is inserted as is and the unique index of the key rejects a duplicate.
+ *
+ * @author Oleg Kandaurov
+ * @since 19.10.2026
+ */
+public class Oracle12QueueDao implements QueueDao {
+
+    /**
+     * Limit of attempts to insert a task with a deduplication key,
+     * when existing task with the same key is removed concurrently
+     */
+    private static final int MAX_ENQUEUE_IF_ABSENT_ATTEMPTS = 3;
+
+    private final Map<QueueLocation, String> enqueueSqlCache = new ConcurrentHashMap<>();
+    private final Map<QueueLocation, String> selectByDeduplicationKeySqlCache = new ConcurrentHashMap<>();
+    private final Map<QueueLocation, String> selectPendingByCoalescingKeySqlCache = new ConcurrentHashMap<>();
+    private final Map<QueueLocation, String> coalesceSqlCache = new ConcurrentHashMap<>();
+    private final Map<QueueLocation, String> deleteSqlCache = new ConcurrentHashMap<>();
+    private final Map<QueueLocation, String> reenqueueSqlCache = new ConcurrentHashMap<>();
+    private final Map<QueueLocation, String> extendLeasesSqlCache = new ConcurrentHashMap<>();
+    private final Map<QueueLocation, String> countSqlCache = new ConcurrentHashMap<>();
+
+    @Nonnull
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    @Nonnull
+    private final QueueTableSchema queueTableSchema;
+
+    /**
+     * Constructor
+     *
+     * @param jdbcTemplate     Reference to Spring JDBC template.
+     * @param queueTableSchema Queue table scheme.
+     */
+    public Oracle12QueueDao(@Nonnull JdbcOperations jdbcTemplate,
+                            @Nonnull QueueTableSchema queueTableSchema) {
+        this.queueTableSchema = requireNonNull(queueTableSchema);
+        this.jdbcTemplate = new NamedParameterJdbcTemplate(requireNonNull(jdbcTemplate));
+    }
+
+    @Override
+    @SuppressFBWarnings("SQL_INJECTION_SPRING_JDBC")
+    public long enqueue(@Nonnull QueueLocation location, @Nonnull EnqueueParams<String> enqueueParams) {
+        requireNonNull(location);
+        requireNonNull(enqueueParams);
+        return insert(location, createEnqueueParams(location, enqueueParams));
+    }
+
+    @Nonnull
+    @Override
+    @SuppressFBWarnings("SQL_INJECTION_SPRING_JDBC")
+    public EnqueueOutcome enqueueIfAbsent(@Nonnull QueueLocation location,
+                                          @Nonnull EnqueueParams<String> enqueueParams) {
+        requireNonNull(location);
+        requireNonNull(enqueueParams);
+        if (!queueTableSchema.getDeduplicationKeyField().isPresent()) {
+            throw new IllegalStateException("deduplication key field is not configured in queue table schema");
+        }
+        if (!enqueueParams.getDeduplicationKey().isPresent()) {
+            throw new IllegalArgumentException("deduplication key is not set: location=" + location);
+        }
+        MapSqlParameterSource params = createEnqueueParams(location, enqueueParams);
+        for (int attempt = 0; attempt < MAX_ENQUEUE_IF_ABSENT_ATTEMPTS; attempt++) {
+            try {
+                return EnqueueOutcome.created(insert(location, params));
+            } catch (DuplicateKeyException ignored) {
+                // task with the same key exists, Oracle rolls back the failed statement only
+            }
+            List<Long> existingIds = jdbcTemplate.queryForList(
+                    selectByDeduplicationKeySqlCache.computeIfAbsent(location, this::createSelectByDeduplicationKeySql),
+                    params, Long.class);
+            if (!existingIds.isEmpty()) {
+                return EnqueueOutcome.duplicate(existingIds.get(0));
+            }
+        }
+        throw new IllegalStateException("cannot enqueue task with deduplication key: location=" + location +
+                ", deduplicationKey=" + enqueueParams.getDeduplicationKey().get());
+    }
+
+    @Nonnull
+    @Override
+    public EnqueueOutcome enqueueOrCoalesce(@Nonnull QueueLocation location,
+                                            @Nonnull EnqueueParams<String> enqueueParams) {
+        requireNonNull(location);
+        requireNonNull(enqueueParams);
+        if (!queueTableSchema.getCoalescingKeyField().isPresent()) {
+            throw new IllegalStateException("coalescing key field is not configured in queue table schema");
+        }
+        if (!enqueueParams.getCoalescingKey().isPresent()) {
+            throw new IllegalArgumentException("coalescing key is not set: location=" + location);
+        }
+        MapSqlParameterSource params = createEnqueueParams(location, enqueueParams);
+        List<Long> pendingIds = jdbcTemplate.queryForList(
+                selectPendingByCoalescingKeySqlCache.computeIfAbsent(location,
+                        this::createSelectPendingByCoalescingKeySql),
+                params, Long.class);
+        if (!pendingIds.isEmpty()) {
+            Long pendingId = pendingIds.get(0);
+            jdbcTemplate.update(coalesceSqlCache.computeIfAbsent(location, this::createCoalesceSql),
+                    params.addValue("id", pendingId));
+            return EnqueueOutcome.coalesced(pendingId);
+        }
+        return EnqueueOutcome.created(enqueue(location, enqueueParams));
+    }
+
+    @SuppressFBWarnings("SQL_INJECTION_SPRING_JDBC")
+    private long insert(@Nonnull QueueLocation location, @Nonnull MapSqlParameterSource params) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(enqueueSqlCache.computeIfAbsent(location, this::createEnqueueSql),
+                params, keyHolder, new String[]{queueTableSchema.getIdField()});
+        Number id = keyHolder.getKey();
+        if (id == null) {
+            throw new IllegalStateException("id can't be null");
+        }
+        return id.longValue();
+    }
+
+    private MapSqlParameterSource createEnqueueParams(@Nonnull QueueLocation location,
+                                                      @Nonnull EnqueueParams<String> enqueueParams) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("queueName", location.getQueueId().asString())
+                .addValue("payload", enqueueParams.getPayload())
+                .addValue("executionDelay", enqueueParams.getExecutionDelay().getSeconds())
+                .addValue("deduplicationKey", enqueueParams.getDeduplicationKey().orElse(null))
+                .addValue("coalescingKey", enqueueParams.getCoalescingKey().orElse(null))
+                .addValue("priority", enqueueParams.getPriority());
+
+        queueTableSchema.getExtFields().forEach(paramName -> params.addValue(paramName, null));
+        enqueueParams.getExtData().forEach(params::addValue);
+        return params;
+    }
+
+    @Override
+    public boolean deleteTask(@Nonnull QueueLocation location, long taskId) {
+        requireNonNull(location);
+
+        int updatedRows = jdbcTemplate.update(deleteSqlCache.computeIfAbsent(location, this::createDeleteSql),
+                new MapSqlParameterSource()
+                        .addValue("id", taskId)
+                        .addValue("queueName", location.getQueueId().asString()));
+        return updatedRows != 0;
+    }
+
+    @Override
+    public boolean reenqueue(@Nonnull QueueLocation location, long taskId, @Nonnull Duration executionDelay) {
+        requireNonNull(location);
+        requireNonNull(executionDelay);
+        int updatedRows = jdbcTemplate.update(reenqueueSqlCache.computeIfAbsent(location, this::createReenqueueSql),
+                new MapSqlParameterSource()
+                        .addValue("id", taskId)
+                        .addValue("queueName", location.getQueueId().asString())
+                        .addValue("executionDelay", executionDelay.getSeconds()));
+        return updatedRows != 0;
+    }
+
+    @Override
+    public int extendLeases(@Nonnull QueueLocation location, @Nonnull Collection<Long> taskIds,
+                            @Nonnull Duration leaseDuration) {
+        requireNonNull(location);
+        requireNonNull(taskIds);
+        requireNonNull(leaseDuration);
+        if (taskIds.isEmpty()) {
+            return 0;
+        }
+        return jdbcTemplate.update(extendLeasesSqlCache.computeIfAbsent(location, this::createExtendLeasesSql),
+                new MapSqlParameterSource()
+                        .addValue("ids", taskIds)
+                        .addValue("leaseDuration", leaseDuration.getSeconds()));
+    }
+
+    @Override
+    @SuppressFBWarnings("NP_NULL_ON_SOME_PATH_FROM_RETURN_VALUE")
+    public long countTasks(@Nonnull QueueLocation location) {
+        requireNonNull(location);
+        return requireNonNull(jdbcTemplate.queryForObject(countSqlCache.computeIfAbsent(location, this::createCountSql),
+                new MapSqlParameterSource("queueName", location.getQueueId().asString()), Long.class));
+    }
+
+    private String createDeleteSql(@Nonnull QueueLocation location) {
+        return "DELETE FROM " + location.getTableName() + " WHERE " + queueTableSchema.getQueueNameField() +
+                " = :queueName AND " + queueTableSchema.getIdField() + " = :id";
+    }
+
+    private String createCountSql(@Nonnull QueueLocation location) {
+        return "SELECT COUNT(*) FROM " + location.getTableName() + " WHERE " + queueTableSchema.getQueueNameField() +
+                " = :queueName";
+    }
+
+    private String createEnqueueSql(@Nonnull QueueLocation location) {
+        return "INSERT INTO " + location.getTableName() + "(" + createInsertColumns(location) + ")" +
+                " VALUES (" + createInsertValues(location) + ")";
+    }
+
+    private String createSelectByDeduplicationKeySql(@Nonnull QueueLocation location) {
+        return "SELECT " + queueTableSchema.getIdField() + " FROM " + location.getTableName() +
+                " WHERE " + queueTableSchema.getQueueNameField() + " = :queueName AND " +
+                queueTableSchema.getDeduplicationKeyField().orElseThrow(IllegalStateException::new) +
+                " = :deduplicationKey";
+    }
+
+    private String createSelectPendingByCoalescingKeySql(@Nonnull QueueLocation location) {
+        return "SELECT " + queueTableSchema.getIdField() + " FROM " + location.getTableName() +
+                " WHERE " + queueTableSchema.getQueueNameField() + " = :queueName AND " +
+                queueTableSchema.getCoalescingKeyField().orElseThrow(IllegalStateException::new) +
+                " = :coalescingKey AND " + queueTableSchema.getAttemptField() + " = 0" +
+                " FOR UPDATE SKIP LOCKED";
+    }
+
+    private String createCoalesceSql(@Nonnull QueueLocation location) {
+        return "UPDATE " + location.getTableName() + " SET " +
+                queueTableSchema.getPayloadField() + " = :payload, " +
+                queueTableSchema.getNextProcessAtField() + " = CURRENT_TIMESTAMP + :executionDelay * INTERVAL '1' SECOND" +
+                queueTableSchema.getExtFields().stream()
+                        .map(field -> ", " + field + " = :" + field).collect(Collectors.joining()) +
+                " WHERE " + queueTableSchema.getIdField() + " = :id";
+    }
+
+    private String createInsertColumns(@Nonnull QueueLocation location) {
+        return location.getIdSequence().map(ignored -> queueTableSchema.getIdField() + ",").orElse("") +
+                queueTableSchema.getQueueNameField() + "," +
+                queueTableSchema.getPayloadField() + "," +
+                queueTableSchema.getNextProcessAtField() + "," +
+                queueTableSchema.getReenqueueAttemptField() + "," +
+                queueTableSchema.getTotalAttemptField() +
+                queueTableSchema.getDeduplicationKeyField().map(field -> "," + field).orElse("") +
+                queueTableSchema.getCoalescingKeyField().map(field -> "," + field).orElse("") +
+                queueTableSchema.getPriorityField().map(field -> "," + field).orElse("") +
+                (queueTableSchema.getExtFields().isEmpty() ? "" :
+                        queueTableSchema.getExtFields().stream().collect(Collectors.joining(", ", ", ", "")));
+    }
+
+    private String createInsertValues(@Nonnull QueueLocation location) {
+        return location.getIdSequence().map(sequence -> sequence + ".nextval, ").orElse("") +
+                ":queueName, :payload, CURRENT_TIMESTAMP + :executionDelay * INTERVAL '1' SECOND, 0, 0" +
+                queueTableSchema.getDeduplicationKeyField().map(ignored -> ", :deduplicationKey").orElse("") +
+                queueTableSchema.getCoalescingKeyField().map(ignored -> ", :coalescingKey").orElse("") +
+                queueTableSchema.getPriorityField().map(ignored -> ", :priority").orElse("") +
+                (queueTableSchema.getExtFields().isEmpty() ? "" : queueTableSchema.getExtFields().stream()
+                        .map(field -> ":" + field).collect(Collectors.joining(", ", ", ", "")));
+    }
+
+    private String createReenqueueSql(@Nonnull QueueLocation location) {
+        return "UPDATE " + location.getTableName() + " SET " + queueTableSchema.getNextProcessAtField() +
+                " = CURRENT_TIMESTAMP + :executionDelay * INTERVAL '1' SECOND, " +
+                queueTableSchema.getAttemptField() + " = 0, " +
+                queueTableSchema.getReenqueueAttemptField() +
+                " = " + queueTableSchema.getReenqueueAttemptField() + " + 1 " +
+                "WHERE " + queueTableSchema.getIdField() + " = :id AND " +
+                queueTableSchema.getQueueNameField() + " = :queueName";
+    }
+
+    private String createExtendLeasesSql(@Nonnull QueueLocation location) {
+        return "UPDATE " + location.getTableName() + " SET " + queueTableSchema.getNextProcessAtField() +
+                " = CURRENT_TIMESTAMP + :leaseDuration * INTERVAL '1' SECOND " +
+                "WHERE " + queueTableSchema.getIdField() + " IN (:ids)";
+    }
+}
@@ -0,0 +1,327 @@
+package ru.yoomoney.tech.dbqueue.spring.dao;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.CallableStatementCallback;
+import org.springframework.jdbc.core.JdbcOperations;
+import ru.yoomoney.tech.dbqueue.api.TaskRecord;
+import ru.yoomoney.tech.dbqueue.config.QueueTableSchema;
+import ru.yoomoney.tech.dbqueue.dao.QueuePickTaskDao;
+import ru.yoomoney.tech.dbqueue.settings.FailRetryType;
+import ru.yoomoney.tech.dbqueue.settings.FailureSettings;
+import ru.yoomoney.tech.dbqueue.settings.QueueId;
+import ru.yoomoney.tech.dbqueue.settings.QueueLocation;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.sql.CallableStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * Database access object to pick tasks in the queue for Oracle 12c and higher database type.
+ * <p>
+ * A task is picked in a single round trip by a short PL/SQL block:
+ * the first ready task is locked by a cursor with {@code FOR UPDATE SKIP LOCKED},
+ * then it is updated by its rowid and the updated columns are returned by {@code RETURNING ... INTO}
+ * straight into the out parameters of the statement.
+ * The row limiting clause {@code FETCH FIRST} can't be combined with {@code FOR UPDATE} in Oracle,
+ * so the cursor fetches the first row only.
+ *
+ * @author Oleg Kandaurov
+ * @since 19.10.2026
+ */
+public class Oracle12QueuePickTaskDao implements QueuePickTaskDao {
+
+    @Nonnull
+    private final JdbcOperations jdbcTemplate;
+    @Nonnull
+    private final QueueTableSchema queueTableSchema;
+    @Nonnull
+    private final QueueLocation queueLocation;
+    @Nullable
+    private final List<String> groupQueueNames;
+    private FailureSettings failureSettings;
+    private String pickTaskSql;
+    @Nullable
+    private String pickTaskByPrioritySql;
+    @Nullable
+    private String pickTaskWithKeyLimitSql;
+    @Nullable
+    private String pickTaskByPriorityWithKeyLimitSql;
+    @Nullable
+    private String pickTaskInKeyOrderSql;
+    @Nullable
+    private String pickTaskByPriorityInKeyOrderSql;
+
+    public Oracle12QueuePickTaskDao(@Nonnull JdbcOperations jdbcTemplate,
+                                    @Nonnull QueueTableSchema queueTableSchema,
+                                    @Nonnull QueueLocation queueLocation,
+                                    @Nonnull FailureSettings failureSettings) {
+        this(jdbcTemplate, queueTableSchema, queueLocation, failureSettings, null);
+    }
+
+    public Oracle12QueuePickTaskDao(@Nonnull JdbcOperations jdbcTemplate,
+                                    @Nonnull QueueTableSchema queueTableSchema,
+                                    @Nonnull QueueLocation groupLocation,
+                                    @Nonnull Collection<QueueId> queueIds,
+                                    @Nonnull FailureSettings failureSettings) {
+        this(jdbcTemplate, queueTableSchema, groupLocation, failureSettings,
+                Objects.requireNonNull(queueIds).stream().map(QueueId::asString).collect(Collectors.toList()));
+    }
+
+    private Oracle12QueuePickTaskDao(@Nonnull JdbcOperations jdbcTemplate,
+                                     @Nonnull QueueTableSchema queueTableSchema,
+                                     @Nonnull QueueLocation queueLocation,
+                                     @Nonnull FailureSettings failureSettings,
+                                     @Nullable List<String> groupQueueNames) {
+        this.jdbcTemplate = Objects.requireNonNull(jdbcTemplate);
+        this.queueTableSchema = Objects.requireNonNull(queueTableSchema);
+        this.queueLocation = Objects.requireNonNull(queueLocation);
+        this.groupQueueNames = groupQueueNames;
+        this.failureSettings = Objects.requireNonNull(failureSettings);
+        createPickTaskSqls(failureSettings);
+        failureSettings.registerObserver((oldValue, newValue) -> {
+            createPickTaskSqls(newValue);
+            this.failureSettings = newValue;
+        });
+    }
+
+    private void createPickTaskSqls(@Nonnull FailureSettings failureSettings) {
+        boolean hasPriority = queueTableSchema.getPriorityField().isPresent();
+        boolean hasKey = queueTableSchema.getConcurrencyKeyField().isPresent();
+        pickTaskSql = createPickTaskSql(failureSettings, false, "");
+        pickTaskByPrioritySql = hasPriority ? createPickTaskSql(failureSettings, true, "") : null;
+        pickTaskWithKeyLimitSql = hasKey ?
+                createPickTaskSql(failureSettings, false, createKeyLimitCondition(failureSettings)) : null;
+        pickTaskByPriorityWithKeyLimitSql = hasKey && hasPriority ?
+                createPickTaskSql(failureSettings, true, createKeyLimitCondition(failureSettings)) : null;
+        pickTaskInKeyOrderSql = hasKey ? createPickTaskSql(failureSettings, false, createKeyOrderCondition()) : null;
+        pickTaskByPriorityInKeyOrderSql = hasKey && hasPriority ?
+                createPickTaskSql(failureSettings, true, createKeyOrderCondition()) : null;
+    }
+
+    @Nullable
+    @Override
+    @SuppressFBWarnings("SQL_INJECTION_SPRING_JDBC")
+    public TaskRecord pickTask() {
+        return jdbcTemplate.execute(pickTaskSql, new PickTaskCallableStatement(null, null));
+    }
+
+    @Nullable
+    @Override
+    @SuppressFBWarnings("SQL_INJECTION_SPRING_JDBC")
+    public TaskRecord pickAndDeleteTask() {
+        TaskRecord taskRecord = pickTask();
+        if (taskRecord != null) {
+            jdbcTemplate.update("DELETE FROM " + queueLocation.getTableName() +
+                    " WHERE " + queueTableSchema.getIdField() + " = ?", taskRecord.getId());
+        }
+        return taskRecord;
+    }
+
+    @Nullable
+    @Override
+    @SuppressFBWarnings("SQL_INJECTION_SPRING_JDBC")
+    public TaskRecord pickTaskByPriority(int priority) {
+        if (pickTaskByPrioritySql == null) {
+            throw new UnsupportedOperationException("priority field is not configured in queue table schema");
+        }
+        return jdbcTemplate.execute(pickTaskByPrioritySql, new PickTaskCallableStatement(priority, null));
+    }
+
+    @Nullable
+    @Override
+    @SuppressFBWarnings("SQL_INJECTION_SPRING_JDBC")
+    public TaskRecord pickTaskWithKeyLimit(@Nullable Integer priority, int keyConcurrencyLimit) {
+        String sql = priority == null ? pickTaskWithKeyLimitSql : pickTaskByPriorityWithKeyLimitSql;
+        if (sql == null) {
+            throw new UnsupportedOperationException("concurrency key field or priority field " +
+                    "is not configured in queue table schema");
+        }
+        return jdbcTemplate.execute(sql, new PickTaskCallableStatement(priority, keyConcurrencyLimit));
+    }
+
+    @Nullable
+    @Override
+    @SuppressFBWarnings("SQL_INJECTION_SPRING_JDBC")
+    public TaskRecord pickTaskInKeyOrder(@Nullable Integer priority) {
+        String sql = priority == null ? pickTaskInKeyOrderSql : pickTaskByPriorityInKeyOrderSql;
+        if (sql == null) {
+            throw new UnsupportedOperationException("concurrency key field or priority field " +
+                    "is not configured in queue table schema");
+        }
+        return jdbcTemplate.execute(sql, new PickTaskCallableStatement(priority, null));
+    }
+
+    private class PickTaskCallableStatement implements CallableStatementCallback<TaskRecord> {
+
+        @Nullable
+        private final Integer priority;
+        @Nullable
+        private final Integer keyConcurrencyLimit;
+
+        private PickTaskCallableStatement(@Nullable Integer priority, @Nullable Integer keyConcurrencyLimit) {
+            this.priority = priority;
+            this.keyConcurrencyLimit = keyConcurrencyLimit;
+        }
+
+        @Override
+        public TaskRecord doInCallableStatement(CallableStatement cs) throws SQLException, DataAccessException {
+            int index = 1;
+            List<String> queueNames = groupQueueNames != null ? groupQueueNames :
+                    Collections.singletonList(queueLocation.getQueueId().asString());
+            for (String queueName : queueNames) {
+                cs.setString(index++, queueName);
+            }
+            if (priority != null) {
+                cs.setInt(index++, priority);
+            }
+            if (keyConcurrencyLimit != null) {
+                cs.setInt(index++, keyConcurrencyLimit);
+            }
+            cs.setLong(index++, failureSettings.getRetryInterval().getSeconds());
+            int firstResultIndex = index;
+            cs.registerOutParameter(index++, Types.BIGINT);
+            cs.registerOutParameter(index++, Types.CLOB);
+            cs.registerOutParameter(index++, Types.BIGINT);
+            cs.registerOutParameter(index++, Types.BIGINT);
+            cs.registerOutParameter(index++, Types.BIGINT);
+            cs.registerOutParameter(index++, Types.TIMESTAMP);
+            cs.registerOutParameter(index++, Types.TIMESTAMP);
+            for (String ignored : queueTableSchema.getExtFields()) {
+                cs.registerOutParameter(index++, Types.VARCHAR);
+            }
+            if (queueTableSchema.getPriorityField().isPresent()) {
+                cs.registerOutParameter(index++, Types.INTEGER);
+            }
+            if (groupQueueNames != null) {
+                cs.registerOutParameter(index, Types.VARCHAR);
+            }
+
+            cs.execute();
+
+            int resultIndex = firstResultIndex;
+            long id = cs.getLong(resultIndex++);
+            if (id == 0L) {
+                return null;
+            }
+            TaskRecord.Builder builder = TaskRecord.builder()
+                    .withId(id)
+                    .withPayload(cs.getString(resultIndex++))
+                    .withAttemptsCount(cs.getLong(resultIndex++))
+                    .withReenqueueAttemptsCount(cs.getLong(resultIndex++))
+                    .withTotalAttemptsCount(cs.getLong(resultIndex++))
+                    .withCreatedAt(getZonedDateTime(cs.getTimestamp(resultIndex++)))
+                    .withNextProcessAt(getZonedDateTime(cs.getTimestamp(resultIndex++)));
+
+            Map<String, String> extData = new HashMap<>(queueTableSchema.getExtFields().size());
+            for (String field : queueTableSchema.getExtFields()) {
+                extData.put(field, cs.getString(resultIndex++));
+            }
+            if (queueTableSchema.getPriorityField().isPresent()) {
+                builder.withPriority(cs.getInt(resultIndex++));
+            }
+            if (groupQueueNames != null) {
+                builder.withQueueId(new QueueId(cs.getString(resultIndex)));
+            }
+            return builder.withExtData(extData).build();
+        }
+
+        private ZonedDateTime getZonedDateTime(Timestamp timestamp) {
+            return ZonedDateTime.ofInstant(timestamp.toInstant(), ZoneId.systemDefault());
+        }
+    }
+
+    @Nonnull
+    private String getNextProcessTimeSql(@Nonnull FailRetryType failRetryType) {
+        Objects.requireNonNull(failRetryType);
+        switch (failRetryType) {
+            case GEOMETRIC_BACKOFF:
+                return "CURRENT_TIMESTAMP + power(2, " + queueTableSchema.getAttemptField() + ") * ? * (INTERVAL '1' SECOND)";
+            case ARITHMETIC_BACKOFF:
+                return "CURRENT_TIMESTAMP + (1 + (" + queueTableSchema.getAttemptField() + " * 2)) * ? * (INTERVAL '1' SECOND)";
+            case LINEAR_BACKOFF:
+                return "CURRENT_TIMESTAMP + ? * (INTERVAL '1' SECOND)";
+            default:
+                throw new IllegalStateException("unknown retry type: " + failRetryType);
+        }
+    }
+
+    private String createKeyOrderCondition() {
+        String keyField = queueTableSchema.getConcurrencyKeyField().get();
+        return "(t." + keyField + " IS NULL OR NOT EXISTS ("
+                + "SELECT 1 FROM " + queueLocation.getTableName() + " k"
+                + " WHERE k." + queueTableSchema.getQueueNameField() + " = t." + queueTableSchema.getQueueNameField()
+                + " AND k." + keyField + " = t." + keyField
+                + " AND k." + queueTableSchema.getIdField() + " < t." + queueTableSchema.getIdField() + ")) AND ";
+    }
+
+    private String createKeyLimitCondition(@Nonnull FailureSettings failureSettings) {
+        String keyField = queueTableSchema.getConcurrencyKeyField().get();
+        return "(t." + keyField + " IS NULL OR "
+                + "(SELECT COUNT(*) FROM " + queueLocation.getTableName() + " k"
+                + " WHERE k." + queueTableSchema.getQueueNameField() + " = t." + queueTableSchema.getQueueNameField()
+                + " AND k." + keyField + " = t." + keyField
+                + " AND k." + queueTableSchema.getAttemptField() + " > 0"
+                + " AND k." + queueTableSchema.getNextProcessAtField() + " > CURRENT_TIMESTAMP"
+                + (failureSettings.getRetryType() == FailRetryType.LINEAR_BACKOFF ?
+                " AND k." + queueTableSchema.getNextProcessAtField() + " <= CURRENT_TIMESTAMP + "
+                        + failureSettings.getRetryInterval().getSeconds() + " * (INTERVAL '1' SECOND)" : "")
+                + ") < ?) AND ";
+    }
+
+    private String createPickTaskSql(@Nonnull FailureSettings failureSettings,
+                                     boolean byPriority, @Nonnull String keyCondition) {
+        String tableName = queueLocation.getTableName();
+        return "DECLARE\n" +
+                " CURSOR c IS SELECT t.rowid FROM " + tableName + " t" +
+                " WHERE " + queueTableSchema.getQueueNameField() +
+                (groupQueueNames != null ? groupQueueNames.stream().map(name -> "?")
+                        .collect(Collectors.joining(", ", " IN (", ") AND ")) : " = ? AND ") +
+                (byPriority ? queueTableSchema.getPriorityField().get() + " = ? AND " : "") +
+                keyCondition +
+                queueTableSchema.getNextProcessAtField() + " <= CURRENT_TIMESTAMP" +
+                " ORDER BY " + queueTableSchema.getNextProcessAtField() +
+                " FOR UPDATE SKIP LOCKED;\n" +
+                " rrowid ROWID;\n" +
+                "BEGIN\n" +
+                " OPEN c;\n" +
+                " FETCH c INTO rrowid;\n" +
+                " CLOSE c;\n" +
+                " IF rrowid IS NOT NULL THEN\n" +
+                "  UPDATE " + tableName + " SET " +
+                queueTableSchema.getNextProcessAtField() + " = " +
+                getNextProcessTimeSql(failureSettings.getRetryType()) + ", " +
+                queueTableSchema.getAttemptField() + " = " + queueTableSchema.getAttemptField() + " + 1, " +
+                queueTableSchema.getTotalAttemptField() + " = " + queueTableSchema.getTotalAttemptField() + " + 1" +
+                " WHERE rowid = rrowid" +
+                " RETURNING " +
+                queueTableSchema.getIdField() + ", " +
+                queueTableSchema.getPayloadField() + ", " +
+                queueTableSchema.getAttemptField() + ", " +
+                queueTableSchema.getReenqueueAttemptField() + ", " +
+                queueTableSchema.getTotalAttemptField() + ", " +
+                queueTableSchema.getCreatedAtField() + ", " +
+                queueTableSchema.getNextProcessAtField() +
+                queueTableSchema.getExtFields().stream().map(field -> ", " + field).collect(Collectors.joining()) +
+                queueTableSchema.getPriorityField().map(field -> ", " + field).orElse("") +
+                (groupQueueNames != null ? ", " + queueTableSchema.getQueueNameField() : "") +
+                " INTO ?, ?, ?, ?, ?, ?, ?" +
+                queueTableSchema.getExtFields().stream().map(field -> ", ?").collect(Collectors.joining()) +
+                queueTableSchema.getPriorityField().map(field -> ", ?").orElse("") +
+                (groupQueueNames != null ? ", ?" : "") + ";\n" +
+                " END IF;\n" +
+                "END;";
+    }
+}
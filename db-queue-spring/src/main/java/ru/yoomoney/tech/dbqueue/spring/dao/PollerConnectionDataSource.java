@@ -0,0 +1,274 @@
+package ru.yoomoney.tech.dbqueue.spring.dao;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.TransactionAwareDataSourceProxy;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.Nonnull;
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Data source, which gives every poller thread its own long-lived connection.
+ * <p>
+ * A connection of a thread is taken from the target data source on the first pick and kept between picks.
+ * Statements prepared on the connection are cached by SQL and reused,
+ * so a pick neither waits for the connection pool nor prepares its statement again.
+ * <p>
+ * A connection is closed when a statement on it fails, the next pick opens a new one.
+ * Connections, which are not used for the idle timeout, are closed by a background thread.
+ * <p>
+ * When a Spring-managed transaction of the target data source is active,
+ * the connection of that transaction is used, see {@link TransactionAwareDataSourceProxy}.
+ *
+ * @author Oleg Kandaurov
+ * @see SpringDatabaseAccessLayer#SpringDatabaseAccessLayer(ru.yoomoney.tech.dbqueue.config.DatabaseDialect,
+ * ru.yoomoney.tech.dbqueue.config.QueueTableSchema, org.springframework.jdbc.core.JdbcOperations,
+ * org.springframework.transaction.support.TransactionOperations, PollerConnectionDataSource)
+ * @since 19.10.2026
+ */
+public class PollerConnectionDataSource extends DelegatingDataSource implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(PollerConnectionDataSource.class);
+
+    private final long idleTimeoutNanos;
+    @Nonnull
+    private final TransactionAwareDataSourceProxy transactionAwareDataSource;
+    private final ThreadLocal<PinnedConnection> threadConnection = new ThreadLocal<>();
+    private final Set<PinnedConnection> connections = ConcurrentHashMap.newKeySet();
+    @Nonnull
+    private final ScheduledExecutorService idleConnectionReaper;
+
+    /**
+     * Constructor
+     *
+     * @param targetDataSource data source of the queue database, usually a connection pool
+     * @param idleTimeout      period of inactivity, after which a connection of a poller is closed
+     */
+    public PollerConnectionDataSource(@Nonnull DataSource targetDataSource, @Nonnull Duration idleTimeout) {
+        super(requireNonNull(targetDataSource));
+        requireNonNull(idleTimeout);
+        if (idleTimeout.isZero() || idleTimeout.isNegative()) {
+            throw new IllegalArgumentException("idleTimeout must be positive: " + idleTimeout);
+        }
+        this.idleTimeoutNanos = idleTimeout.toNanos();
+        this.transactionAwareDataSource = new TransactionAwareDataSourceProxy(targetDataSource);
+        this.idleConnectionReaper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "poller-connection-reaper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        idleConnectionReaper.scheduleWithFixedDelay(this::closeIdleConnections,
+                idleTimeout.toMillis(), idleTimeout.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    @Nonnull
+    public Connection getConnection() throws SQLException {
+        if (TransactionSynchronizationManager.hasResource(obtainTargetDataSource())) {
+            return transactionAwareDataSource.getConnection();
+        }
+        PinnedConnection pinnedConnection = threadConnection.get();
+        if (pinnedConnection != null && pinnedConnection.acquire()) {
+            return pinnedConnection.connectionProxy;
+        }
+        pinnedConnection = new PinnedConnection(obtainTargetDataSource().getConnection());
+        pinnedConnection.acquire();
+        threadConnection.set(pinnedConnection);
+        connections.add(pinnedConnection);
+        return pinnedConnection.connectionProxy;
+    }
+
+    /**
+     * Get number of open connections of the pollers
+     *
+     * @return number of open connections
+     */
+    public int getConnectionCount() {
+        return connections.size();
+    }
+
+    /**
+     * Stop closing idle connections and close connections, which are not in use.
+     * Connections in use are closed when they are released.
+     */
+    @Override
+    public void close() {
+        idleConnectionReaper.shutdownNow();
+        connections.removeIf(PinnedConnection::retire);
+    }
+
+    private void closeIdleConnections() {
+        long idleSince = System.nanoTime() - idleTimeoutNanos;
+        connections.removeIf(connection -> connection.closeIfIdle(idleSince));
+    }
+
+    /**
+     * Connection of a poller thread
+     */
+    private class PinnedConnection implements InvocationHandler {
+
+        @Nonnull
+        private final Connection targetConnection;
+        @Nonnull
+        private final Connection connectionProxy;
+        private final Map<String, PreparedStatement> statements = new HashMap<>();
+        private boolean inUse;
+        private boolean broken;
+        private boolean retired;
+        private boolean closed;
+        private long releasedAt = System.nanoTime();
+
+        private PinnedConnection(@Nonnull Connection targetConnection) {
+            this.targetConnection = targetConnection;
+            this.connectionProxy = (Connection) Proxy.newProxyInstance(
+                    PollerConnectionDataSource.class.getClassLoader(), new Class<?>[]{Connection.class}, this);
+        }
+
+        private synchronized boolean acquire() {
+            if (closed) {
+                return false;
+            }
+            inUse = true;
+            return true;
+        }
+
+        private synchronized void release() {
+            inUse = false;
+            releasedAt = System.nanoTime();
+            if (broken || retired) {
+                closeTarget();
+                connections.remove(this);
+            }
+        }
+
+        private synchronized boolean closeIfIdle(long idleSince) {
+            if (inUse || releasedAt - idleSince > 0) {
+                return false;
+            }
+            closeTarget();
+            return true;
+        }
+
+        private synchronized boolean retire() {
+            retired = true;
+            if (inUse) {
+                return false;
+            }
+            closeTarget();
+            return true;
+        }
+
+        private synchronized void markBroken() {
+            broken = true;
+        }
+
+        private void closeTarget() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            statements.values().forEach(statement -> {
+                try {
+                    statement.close();
+                } catch (SQLException | RuntimeException exc) {
+                    log.debug("cannot close statement", exc);
+                }
+            });
+            statements.clear();
+            try {
+                targetConnection.close();
+            } catch (SQLException | RuntimeException exc) {
+                log.warn("cannot close poller connection", exc);
+            }
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PollerConnection[" + targetConnection + "]";
+                case "close":
+                    release();
+                    return null;
+                case "isClosed":
+                    synchronized (this) {
+                        return closed || !inUse;
+                    }
+                case "prepareStatement":
+                case "prepareCall":
+                    if (args.length == 1) {
+                        return getStatement(method, (String) args[0]);
+                    }
+                    return invokeTarget(targetConnection, method, args);
+                default:
+                    return invokeTarget(targetConnection, method, args);
+            }
+        }
+
+        private PreparedStatement getStatement(@Nonnull Method method, @Nonnull String sql) throws Throwable {
+            PreparedStatement statement = statements.get(sql);
+            if (statement == null) {
+                statement = (PreparedStatement) invokeTarget(targetConnection, method, new Object[]{sql});
+                statements.put(sql, statement);
+            } else {
+                invokeTarget(statement, PreparedStatement.class.getMethod("clearParameters"), new Object[0]);
+            }
+            PreparedStatement targetStatement = statement;
+            Class<?> statementType = targetStatement instanceof CallableStatement ?
+                    CallableStatement.class : PreparedStatement.class;
+            return (PreparedStatement) Proxy.newProxyInstance(PollerConnectionDataSource.class.getClassLoader(),
+                    new Class<?>[]{statementType}, (statementProxy, statementMethod, statementArgs) -> {
+                        switch (statementMethod.getName()) {
+                            case "close":
+                                return null;
+                            case "isClosed":
+                                return false;
+                            case "getConnection":
+                                return connectionProxy;
+                            case "equals":
+                                return statementProxy == statementArgs[0];
+                            case "hashCode":
+                                return System.identityHashCode(statementProxy);
+                            default:
+                                return invokeTarget(targetStatement, statementMethod, statementArgs);
+                        }
+                    });
+        }
+
+        private Object invokeTarget(Object target, Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException exc) {
+                if (exc.getTargetException() instanceof SQLException) {
+                    markBroken();
+                }
+                throw exc.getTargetException();
+            }
+        }
+    }
+}
@@ -6,11 +6,14 @@ import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import ru.yoomoney.tech.dbqueue.api.EnqueueParams;
 import ru.yoomoney.tech.dbqueue.config.QueueTableSchema;
+import ru.yoomoney.tech.dbqueue.dao.EnqueueOutcome;
 import ru.yoomoney.tech.dbqueue.dao.QueueDao;
 import ru.yoomoney.tech.dbqueue.settings.QueueLocation;
 
 import javax.annotation.Nonnull;
 import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
@@ -25,9 +28,20 @@ import static java.util.Objects.requireNonNull;
  */
 public class PostgresQueueDao implements QueueDao {
 
+    /**
+     * Limit of attempts to insert a task with a deduplication key,
+     * when existing task with the same key is removed concurrently
+     */
+    private static final int MAX_ENQUEUE_IF_ABSENT_ATTEMPTS = 3;
+
     private final Map<QueueLocation, String> enqueueSqlCache = new ConcurrentHashMap<>();
+    private final Map<QueueLocation, String> enqueueIfAbsentSqlCache = new ConcurrentHashMap<>();
+    private final Map<QueueLocation, String> selectByDeduplicationKeySqlCache = new ConcurrentHashMap<>();
+    private final Map<QueueLocation, String> coalesceSqlCache = new ConcurrentHashMap<>();
     private final Map<QueueLocation, String> deleteSqlCache = new ConcurrentHashMap<>();
     private final Map<QueueLocation, String> reenqueueSqlCache = new ConcurrentHashMap<>();
+    private final Map<QueueLocation, String> extendLeasesSqlCache = new ConcurrentHashMap<>();
+    private final Map<QueueLocation, String> countSqlCache = new ConcurrentHashMap<>();
 
     @Nonnull
     private final NamedParameterJdbcTemplate jdbcTemplate;
@@ -51,16 +65,78 @@ public class PostgresQueueDao implements QueueDao {
     public long enqueue(@Nonnull QueueLocation location, @Nonnull EnqueueParams<String> enqueueParams) {
         requireNonNull(location);
         requireNonNull(enqueueParams);
+        return requireNonNull(jdbcTemplate.queryForObject(
+                enqueueSqlCache.computeIfAbsent(location, this::createEnqueueSql),
+                createEnqueueParams(location, enqueueParams), Long.class));
+    }
+
+    @Nonnull
+    @Override
+    public EnqueueOutcome enqueueIfAbsent(@Nonnull QueueLocation location,
+                                          @Nonnull EnqueueParams<String> enqueueParams) {
+        requireNonNull(location);
+        requireNonNull(enqueueParams);
+        if (!queueTableSchema.getDeduplicationKeyField().isPresent()) {
+            throw new IllegalStateException("deduplication key field is not configured in queue table schema");
+        }
+        if (!enqueueParams.getDeduplicationKey().isPresent()) {
+            throw new IllegalArgumentException("deduplication key is not set: location=" + location);
+        }
+        MapSqlParameterSource params = createEnqueueParams(location, enqueueParams);
+        for (int attempt = 0; attempt < MAX_ENQUEUE_IF_ABSENT_ATTEMPTS; attempt++) {
+            List<Long> insertedIds = jdbcTemplate.queryForList(
+                    enqueueIfAbsentSqlCache.computeIfAbsent(location, this::createEnqueueIfAbsentSql),
+                    params, Long.class);
+            if (!insertedIds.isEmpty()) {
+                return EnqueueOutcome.created(insertedIds.get(0));
+            }
+            List<Long> existingIds = jdbcTemplate.queryForList(
+                    selectByDeduplicationKeySqlCache.computeIfAbsent(location, this::createSelectByDeduplicationKeySql),
+                    params, Long.class);
+            if (!existingIds.isEmpty()) {
+                return EnqueueOutcome.duplicate(existingIds.get(0));
+            }
+        }
+        throw new IllegalStateException("cannot enqueue task with deduplication key: location=" + location +
+                ", deduplicationKey=" + enqueueParams.getDeduplicationKey().get());
+    }
 
+    @Nonnull
+    @Override
+    @SuppressFBWarnings("NP_NULL_ON_SOME_PATH_FROM_RETURN_VALUE")
+    public EnqueueOutcome enqueueOrCoalesce(@Nonnull QueueLocation location,
+                                            @Nonnull EnqueueParams<String> enqueueParams) {
+        requireNonNull(location);
+        requireNonNull(enqueueParams);
+        if (!queueTableSchema.getCoalescingKeyField().isPresent()) {
+            throw new IllegalStateException("coalescing key field is not configured in queue table schema");
+        }
+        if (!enqueueParams.getCoalescingKey().isPresent()) {
+            throw new IllegalArgumentException("coalescing key is not set: location=" + location);
+        }
+        MapSqlParameterSource params = createEnqueueParams(location, enqueueParams);
+        List<Long> coalescedIds = jdbcTemplate.queryForList(
+                coalesceSqlCache.computeIfAbsent(location, this::createCoalesceSql), params, Long.class);
+        if (!coalescedIds.isEmpty()) {
+            return EnqueueOutcome.coalesced(coalescedIds.get(0));
+        }
+        return EnqueueOutcome.created(requireNonNull(jdbcTemplate.queryForObject(
+                enqueueSqlCache.computeIfAbsent(location, this::createEnqueueSql), params, Long.class)));
+    }
+
+    private MapSqlParameterSource createEnqueueParams(@Nonnull QueueLocation location,
+                                                      @Nonnull EnqueueParams<String> enqueueParams) {
         MapSqlParameterSource params = new MapSqlParameterSource()
                 .addValue("queueName", location.getQueueId().asString())
                 .addValue("payload", enqueueParams.getPayload())
-                .addValue("executionDelay", enqueueParams.getExecutionDelay().getSeconds());
+                .addValue("executionDelay", enqueueParams.getExecutionDelay().getSeconds())
+                .addValue("deduplicationKey", enqueueParams.getDeduplicationKey().orElse(null))
+                .addValue("coalescingKey", enqueueParams.getCoalescingKey().orElse(null))
+                .addValue("priority", enqueueParams.getPriority());
 
         queueTableSchema.getExtFields().forEach(paramName -> params.addValue(paramName, null));
         enqueueParams.getExtData().forEach(params::addValue);
-        return requireNonNull(jdbcTemplate.queryForObject(
-                enqueueSqlCache.computeIfAbsent(location, this::createEnqueueSql), params, Long.class));
+        return params;
     }
 
 
@@ -87,7 +163,60 @@ public class PostgresQueueDao implements QueueDao {
         return updatedRows != 0;
     }
 
+    @Override
+    public int extendLeases(@Nonnull QueueLocation location, @Nonnull Collection<Long> taskIds,
+                            @Nonnull Duration leaseDuration) {
+        requireNonNull(location);
+        requireNonNull(taskIds);
+        requireNonNull(leaseDuration);
+        if (taskIds.isEmpty()) {
+            return 0;
+        }
+        return jdbcTemplate.update(extendLeasesSqlCache.computeIfAbsent(location, this::createExtendLeasesSql),
+                new MapSqlParameterSource()
+                        .addValue("ids", taskIds)
+                        .addValue("leaseDuration", leaseDuration.getSeconds()));
+    }
+
+    @Override
+    @SuppressFBWarnings("NP_NULL_ON_SOME_PATH_FROM_RETURN_VALUE")
+    public long countTasks(@Nonnull QueueLocation location) {
+        requireNonNull(location);
+        return requireNonNull(jdbcTemplate.queryForObject(countSqlCache.computeIfAbsent(location, this::createCountSql),
+                new MapSqlParameterSource("queueName", location.getQueueId().asString()), Long.class));
+    }
+
     private String createEnqueueSql(@Nonnull QueueLocation location) {
+        return createInsertSql(location, "");
+    }
+
+    private String createEnqueueIfAbsentSql(@Nonnull QueueLocation location) {
+        return createInsertSql(location, " ON CONFLICT DO NOTHING");
+    }
+
+    private String createSelectByDeduplicationKeySql(@Nonnull QueueLocation location) {
+        return "SELECT " + queueTableSchema.getIdField() + " FROM " + location.getTableName() +
+                " WHERE " + queueTableSchema.getQueueNameField() + " = :queueName AND " +
+                queueTableSchema.getDeduplicationKeyField().orElseThrow(IllegalStateException::new) +
+                " = :deduplicationKey";
+    }
+
+    private String createCoalesceSql(@Nonnull QueueLocation location) {
+        return "WITH pending AS (SELECT " + queueTableSchema.getIdField() + " FROM " + location.getTableName() +
+                " WHERE " + queueTableSchema.getQueueNameField() + " = :queueName" +
+                " AND " + queueTableSchema.getCoalescingKeyField().orElseThrow(IllegalStateException::new) +
+                " = :coalescingKey AND " + queueTableSchema.getAttemptField() + " = 0" +
+                " LIMIT 1 FOR UPDATE SKIP LOCKED) " +
+                "UPDATE " + location.getTableName() + " q SET " +
+                queueTableSchema.getPayloadField() + " = :payload, " +
+                queueTableSchema.getNextProcessAtField() + " = now() + :executionDelay * INTERVAL '1 SECOND'" +
+                queueTableSchema.getExtFields().stream()
+                        .map(field -> ", " + field + " = :" + field).collect(Collectors.joining()) +
+                " FROM pending WHERE q." + queueTableSchema.getIdField() + " = pending." + queueTableSchema.getIdField() +
+                " RETURNING q." + queueTableSchema.getIdField();
+    }
+
+    private String createInsertSql(@Nonnull QueueLocation location, @Nonnull String conflictClause) {
         return "INSERT INTO " + location.getTableName() + "(" +
                 (location.getIdSequence().map(ignored -> queueTableSchema.getIdField() + ",").orElse("")) +
                 queueTableSchema.getQueueNameField() + "," +
@@ -95,14 +224,20 @@ public class PostgresQueueDao implements QueueDao {
                 queueTableSchema.getNextProcessAtField() + "," +
                 queueTableSchema.getReenqueueAttemptField() + "," +
                 queueTableSchema.getTotalAttemptField() +
+                queueTableSchema.getDeduplicationKeyField().map(field -> "," + field).orElse("") +
+                queueTableSchema.getCoalescingKeyField().map(field -> "," + field).orElse("") +
+                queueTableSchema.getPriorityField().map(field -> "," + field).orElse("") +
                 (queueTableSchema.getExtFields().isEmpty() ? "" :
                         queueTableSchema.getExtFields().stream().collect(Collectors.joining(", ", ", ", ""))) +
                 ") VALUES " +
                 "(" + location.getIdSequence().map(seq -> "nextval('" + seq + "'), ").orElse("") +
                 ":queueName, :payload, now() + :executionDelay * INTERVAL '1 SECOND', 0, 0" +
+                queueTableSchema.getDeduplicationKeyField().map(ignored -> ", :deduplicationKey").orElse("") +
+                queueTableSchema.getCoalescingKeyField().map(ignored -> ", :coalescingKey").orElse("") +
+                queueTableSchema.getPriorityField().map(ignored -> ", :priority").orElse("") +
                 (queueTableSchema.getExtFields().isEmpty() ? "" : queueTableSchema.getExtFields().stream()
                         .map(field -> ":" + field).collect(Collectors.joining(", ", ", ", ""))) +
-                ") RETURNING " + queueTableSchema.getIdField();
+                ")" + conflictClause + " RETURNING " + queueTableSchema.getIdField();
     }
 
     private String createDeleteSql(@Nonnull QueueLocation location) {
@@ -110,6 +245,11 @@ public class PostgresQueueDao implements QueueDao {
                 " = :queueName AND " + queueTableSchema.getIdField() + " = :id";
     }
 
+    private String createCountSql(@Nonnull QueueLocation location) {
+        return "SELECT COUNT(*) FROM " + location.getTableName() + " WHERE " + queueTableSchema.getQueueNameField() +
+                " = :queueName";
+    }
+
     private String createReenqueueSql(@Nonnull QueueLocation location) {
         return "UPDATE " + location.getTableName() + " SET " + queueTableSchema.getNextProcessAtField() +
                 " = now() + :executionDelay * INTERVAL '1 SECOND', " +
@@ -120,4 +260,10 @@ public class PostgresQueueDao implements QueueDao {
                 queueTableSchema.getQueueNameField() + " = :queueName";
     }
 
+    private String createExtendLeasesSql(@Nonnull QueueLocation location) {
+        return "UPDATE " + location.getTableName() + " SET " + queueTableSchema.getNextProcessAtField() +
+                " = now() + :leaseDuration * INTERVAL '1 SECOND' " +
+                "WHERE " + queueTableSchema.getIdField() + " IN (:ids)";
+    }
+
 }
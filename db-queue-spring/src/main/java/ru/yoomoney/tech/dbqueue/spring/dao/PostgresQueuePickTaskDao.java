@@ -8,6 +8,7 @@ import ru.yoomoney.tech.dbqueue.config.QueueTableSchema;
 import ru.yoomoney.tech.dbqueue.dao.QueuePickTaskDao;
 import ru.yoomoney.tech.dbqueue.settings.FailRetryType;
 import ru.yoomoney.tech.dbqueue.settings.FailureSettings;
+import ru.yoomoney.tech.dbqueue.settings.QueueId;
 import ru.yoomoney.tech.dbqueue.settings.QueueLocation;
 
 import javax.annotation.Nonnull;
@@ -15,9 +16,12 @@ import javax.annotation.Nullable;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.time.Duration;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
+import java.util.Collection;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 
@@ -31,10 +35,33 @@ import static java.util.Objects.requireNonNull;
  */
 public class PostgresQueuePickTaskDao implements QueuePickTaskDao {
 
+    /**
+     * Limit of candidate tasks, which keys are tried to be locked by a single pick with key limit
+     */
+    private static final int KEY_LOCK_CANDIDATES = 16;
+
     private String pickTaskSql;
+    @Nullable
+    private String pickTaskByPrioritySql;
+    @Nullable
+    private String pickTaskWithKeyLimitSql;
+    @Nullable
+    private String pickTaskByPriorityWithKeyLimitSql;
+    @Nullable
+    private String pickTaskInKeyOrderSql;
+    @Nullable
+    private String pickTaskByPriorityInKeyOrderSql;
+    @Nonnull
+    private final String pickAndDeleteTaskSql;
+    @Nullable
+    private String deleteAndPickTaskSql;
+    @Nullable
+    private String reenqueueAndPickTaskSql;
     private MapSqlParameterSource pickTaskSqlPlaceholders;
     private final NamedParameterJdbcTemplate jdbcTemplate;
     private final QueueTableSchema queueTableSchema;
+    @Nullable
+    private final List<String> groupQueueNames;
 
     /**
      * Constructor
@@ -48,24 +75,143 @@ public class PostgresQueuePickTaskDao implements QueuePickTaskDao {
                                     @Nonnull QueueTableSchema queueTableSchema,
                                     @Nonnull QueueLocation queueLocation,
                                     @Nonnull FailureSettings failureSettings) {
+        this(jdbcTemplate, queueTableSchema, queueLocation, failureSettings, null);
+    }
+
+    /**
+     * Constructor for DAO, which picks tasks of several queues in the same table
+     *
+     * @param jdbcTemplate     spring jdbc template
+     * @param queueTableSchema table schema
+     * @param groupLocation    location of the queue group
+     * @param queueIds         identifiers of the queues in the group
+     * @param failureSettings  failure settings
+     */
+    public PostgresQueuePickTaskDao(@Nonnull JdbcOperations jdbcTemplate,
+                                    @Nonnull QueueTableSchema queueTableSchema,
+                                    @Nonnull QueueLocation groupLocation,
+                                    @Nonnull Collection<QueueId> queueIds,
+                                    @Nonnull FailureSettings failureSettings) {
+        this(jdbcTemplate, queueTableSchema, groupLocation, failureSettings,
+                requireNonNull(queueIds).stream().map(QueueId::asString).collect(Collectors.toList()));
+    }
+
+    private PostgresQueuePickTaskDao(@Nonnull JdbcOperations jdbcTemplate,
+                                     @Nonnull QueueTableSchema queueTableSchema,
+                                     @Nonnull QueueLocation queueLocation,
+                                     @Nonnull FailureSettings failureSettings,
+                                     @Nullable List<String> groupQueueNames) {
         this.jdbcTemplate = new NamedParameterJdbcTemplate(requireNonNull(jdbcTemplate));
         this.queueTableSchema = requireNonNull(queueTableSchema);
-        this.pickTaskSql = createPickTaskSql(queueLocation, failureSettings);
-        pickTaskSqlPlaceholders = new MapSqlParameterSource()
-                .addValue("queueName", queueLocation.getQueueId().asString())
-                .addValue("retryInterval", failureSettings.getRetryInterval().getSeconds());
+        this.groupQueueNames = groupQueueNames;
+        this.pickTaskSql = createPickTaskSql(queueLocation, failureSettings, false, "");
+        this.pickTaskByPrioritySql = createPickTaskByPrioritySql(queueLocation, failureSettings);
+        this.pickTaskWithKeyLimitSql = createPickTaskWithKeyLimitSql(queueLocation, failureSettings, false);
+        this.pickTaskByPriorityWithKeyLimitSql = createPickTaskWithKeyLimitSql(queueLocation, failureSettings, true);
+        this.pickTaskInKeyOrderSql = createPickTaskInKeyOrderSql(queueLocation, failureSettings, false);
+        this.pickTaskByPriorityInKeyOrderSql = createPickTaskInKeyOrderSql(queueLocation, failureSettings, true);
+        this.pickAndDeleteTaskSql = createPickAndDeleteTaskSql(queueLocation);
+        this.deleteAndPickTaskSql = createDeleteAndPickTaskSql(queueLocation, failureSettings);
+        this.reenqueueAndPickTaskSql = createReenqueueAndPickTaskSql(queueLocation, failureSettings);
+        pickTaskSqlPlaceholders = createPickTaskSqlPlaceholders(queueLocation, failureSettings);
         failureSettings.registerObserver((oldValue, newValue) -> {
-            pickTaskSql = createPickTaskSql(queueLocation, newValue);
-            pickTaskSqlPlaceholders = new MapSqlParameterSource()
-                    .addValue("queueName", queueLocation.getQueueId().asString())
-                    .addValue("retryInterval", newValue.getRetryInterval().getSeconds());
+            pickTaskSql = createPickTaskSql(queueLocation, newValue, false, "");
+            pickTaskByPrioritySql = createPickTaskByPrioritySql(queueLocation, newValue);
+            pickTaskWithKeyLimitSql = createPickTaskWithKeyLimitSql(queueLocation, newValue, false);
+            pickTaskByPriorityWithKeyLimitSql = createPickTaskWithKeyLimitSql(queueLocation, newValue, true);
+            pickTaskInKeyOrderSql = createPickTaskInKeyOrderSql(queueLocation, newValue, false);
+            pickTaskByPriorityInKeyOrderSql = createPickTaskInKeyOrderSql(queueLocation, newValue, true);
+            deleteAndPickTaskSql = createDeleteAndPickTaskSql(queueLocation, newValue);
+            reenqueueAndPickTaskSql = createReenqueueAndPickTaskSql(queueLocation, newValue);
+            pickTaskSqlPlaceholders = createPickTaskSqlPlaceholders(queueLocation, newValue);
         });
     }
 
+    private MapSqlParameterSource createPickTaskSqlPlaceholders(@Nonnull QueueLocation queueLocation,
+                                                                @Nonnull FailureSettings failureSettings) {
+        return new MapSqlParameterSource()
+                .addValue("queueName", queueLocation.getQueueId().asString())
+                .addValue("queueNames", groupQueueNames)
+                .addValue("retryInterval", failureSettings.getRetryInterval().getSeconds());
+    }
+
     @Override
     @Nullable
     public TaskRecord pickTask() {
-        return jdbcTemplate.execute(pickTaskSql, pickTaskSqlPlaceholders,
+        return pickTask(pickTaskSql, pickTaskSqlPlaceholders);
+    }
+
+    @Override
+    @Nullable
+    public TaskRecord pickTaskByPriority(int priority) {
+        if (pickTaskByPrioritySql == null) {
+            throw new UnsupportedOperationException("priority field is not configured in queue table schema");
+        }
+        return pickTask(pickTaskByPrioritySql, new MapSqlParameterSource(pickTaskSqlPlaceholders.getValues())
+                .addValue("priority", priority));
+    }
+
+    @Override
+    @Nullable
+    public TaskRecord pickTaskWithKeyLimit(@Nullable Integer priority, int keyConcurrencyLimit) {
+        String sql = priority == null ? pickTaskWithKeyLimitSql : pickTaskByPriorityWithKeyLimitSql;
+        if (sql == null) {
+            throw new UnsupportedOperationException("concurrency key field or priority field " +
+                    "is not configured in queue table schema");
+        }
+        return pickTask(sql, new MapSqlParameterSource(pickTaskSqlPlaceholders.getValues())
+                .addValue("priority", priority)
+                .addValue("keyConcurrencyLimit", keyConcurrencyLimit));
+    }
+
+    @Override
+    @Nullable
+    public TaskRecord pickTaskInKeyOrder(@Nullable Integer priority) {
+        String sql = priority == null ? pickTaskInKeyOrderSql : pickTaskByPriorityInKeyOrderSql;
+        if (sql == null) {
+            throw new UnsupportedOperationException("concurrency key field or priority field " +
+                    "is not configured in queue table schema");
+        }
+        return pickTask(sql, new MapSqlParameterSource(pickTaskSqlPlaceholders.getValues())
+                .addValue("priority", priority));
+    }
+
+    @Override
+    @Nullable
+    public TaskRecord pickAndDeleteTask() {
+        return pickTask(pickAndDeleteTaskSql, pickTaskSqlPlaceholders);
+    }
+
+    @Override
+    public boolean isCompleteAndPickSupported() {
+        return groupQueueNames == null;
+    }
+
+    @Override
+    @Nullable
+    public TaskRecord deleteAndPickTask(long taskId) {
+        if (deleteAndPickTaskSql == null) {
+            throw new UnsupportedOperationException("complete and pick is not supported for queue groups");
+        }
+        return pickTask(deleteAndPickTaskSql, new MapSqlParameterSource(pickTaskSqlPlaceholders.getValues())
+                .addValue("previousTaskId", taskId));
+    }
+
+    @Override
+    @Nullable
+    public TaskRecord reenqueueAndPickTask(long taskId, @Nonnull Duration executionDelay) {
+        requireNonNull(executionDelay);
+        if (reenqueueAndPickTaskSql == null) {
+            throw new UnsupportedOperationException("complete and pick is not supported for queue groups");
+        }
+        return pickTask(reenqueueAndPickTaskSql, new MapSqlParameterSource(pickTaskSqlPlaceholders.getValues())
+                .addValue("previousTaskId", taskId)
+                .addValue("executionDelay", executionDelay.getSeconds()));
+    }
+
+    @Nullable
+    private TaskRecord pickTask(@Nonnull String sql, @Nonnull MapSqlParameterSource placeholders) {
+        return jdbcTemplate.execute(sql, placeholders,
                 (PreparedStatement ps) -> {
                     try (ResultSet rs = ps.executeQuery()) {
                         if (!rs.next()) {
@@ -89,20 +235,169 @@ public class PostgresQueuePickTaskDao implements QueuePickTaskDao {
                                 .withAttemptsCount(rs.getLong(queueTableSchema.getAttemptField()))
                                 .withReenqueueAttemptsCount(rs.getLong(queueTableSchema.getReenqueueAttemptField()))
                                 .withTotalAttemptsCount(rs.getLong(queueTableSchema.getTotalAttemptField()))
+                                .withPriority(queueTableSchema.getPriorityField().isPresent() ?
+                                        rs.getInt(queueTableSchema.getPriorityField().get()) : 0)
+                                .withQueueId(groupQueueNames != null ?
+                                        new QueueId(rs.getString(queueTableSchema.getQueueNameField())) : null)
                                 .withExtData(additionalData).build();
                     }
                 });
     }
 
-    private String createPickTaskSql(@Nonnull QueueLocation location, @Nonnull FailureSettings failureSettings) {
-        return "WITH cte AS (" +
-                "SELECT " + queueTableSchema.getIdField() + " " +
-                "FROM " + location.getTableName() + " " +
-                "WHERE " + queueTableSchema.getQueueNameField() + " = :queueName " +
+    @Nullable
+    private String createPickTaskByPrioritySql(@Nonnull QueueLocation location,
+                                               @Nonnull FailureSettings failureSettings) {
+        return queueTableSchema.getPriorityField().isPresent() ?
+                createPickTaskSql(location, failureSettings, true, "") : null;
+    }
+
+    @Nullable
+    private String createPickTaskWithKeyLimitSql(@Nonnull QueueLocation location,
+                                                 @Nonnull FailureSettings failureSettings,
+                                                 boolean byPriority) {
+        return queueTableSchema.getConcurrencyKeyField().isPresent() &&
+                (!byPriority || queueTableSchema.getPriorityField().isPresent()) ?
+                createPickTaskSql(location, failureSettings, byPriority,
+                        createKeyLimitCondition(location, failureSettings), "", true) : null;
+    }
+
+    @Nullable
+    private String createPickTaskInKeyOrderSql(@Nonnull QueueLocation location,
+                                               @Nonnull FailureSettings failureSettings,
+                                               boolean byPriority) {
+        return queueTableSchema.getConcurrencyKeyField().isPresent() &&
+                (!byPriority || queueTableSchema.getPriorityField().isPresent()) ?
+                createPickTaskSql(location, failureSettings, byPriority, createKeyOrderCondition(location)) : null;
+    }
+
+    /**
+     * Condition, which picks only the oldest task of a concurrency key.
+     * <p>
+     * Task is skipped while an older task with the same key exists, either pending, in flight or waiting for retry.
+     * The oldest task is locked by the pick, so concurrent transactions skip it and the rest of its key.
+     */
+    private String createKeyOrderCondition(@Nonnull QueueLocation location) {
+        String keyField = queueTableSchema.getConcurrencyKeyField().get();
+        return "  AND (t." + keyField + " IS NULL OR NOT EXISTS (" +
+                "SELECT 1 FROM " + location.getTableName() + " k " +
+                "WHERE k." + queueTableSchema.getQueueNameField() + " = t." + queueTableSchema.getQueueNameField() +
+                "  AND k." + keyField + " = t." + keyField +
+                "  AND k." + queueTableSchema.getIdField() + " < t." + queueTableSchema.getIdField() + ")) ";
+    }
+
+    /**
+     * Condition, which skips tasks with a saturated concurrency key.
+     * <p>
+     * Key is saturated when the number of picked tasks with the key, whose next processing time has not come yet,
+     * reaches the limit. With linear backoff a picked task is postponed at most by the retry interval,
+     * which is the lease duration when leases are enabled, so failed tasks postponed further
+     * by their retry backoff do not hold the key. Advisory lock on the key of the picked task,
+     * see {@link #createKeyLockCondition()}, prevents concurrent transactions
+     * from picking tasks with the same key based on the same count.
+     */
+    private String createKeyLimitCondition(@Nonnull QueueLocation location,
+                                           @Nonnull FailureSettings failureSettings) {
+        String keyField = queueTableSchema.getConcurrencyKeyField().get();
+        return "  AND (t." + keyField + " IS NULL OR (" +
+                "(SELECT COUNT(*) FROM " + location.getTableName() + " k " +
+                "WHERE k." + queueTableSchema.getQueueNameField() + " = t." + queueTableSchema.getQueueNameField() +
+                "  AND k." + keyField + " = t." + keyField +
+                "  AND k." + queueTableSchema.getAttemptField() + " > 0 " +
+                "  AND k." + queueTableSchema.getNextProcessAtField() + " > now() " +
+                (failureSettings.getRetryType() == FailRetryType.LINEAR_BACKOFF ?
+                        "  AND k." + queueTableSchema.getNextProcessAtField() + " <= " +
+                                getNextProcessTimeSql(FailRetryType.LINEAR_BACKOFF, queueTableSchema) : "") +
+                ") < :keyConcurrencyLimit)) ";
+    }
+
+    /**
+     * Condition on the candidate tasks, which takes advisory lock on the key of a candidate.
+     * <p>
+     * The condition is applied to the candidates in the order of the pick only until the first task is taken,
+     * so only the key of the picked task is locked, and a candidate with the key locked by a concurrent
+     * transaction is skipped in favour of the next one. Locking in the condition of the scan
+     * would lock keys of the tasks, which are scanned but not picked.
+     */
+    private String createKeyLockCondition() {
+        String keyField = queueTableSchema.getConcurrencyKeyField().get();
+        return "c." + keyField + " IS NULL OR pg_try_advisory_xact_lock(hashtext(c." +
+                queueTableSchema.getQueueNameField() + " || '/' || c." + keyField + "))";
+    }
+
+    /**
+     * Statement, which deletes the previous task and picks the next one.
+     * <p>
+     * All parts of the statement see the same snapshot, so the previous task is excluded from the pick explicitly.
+     */
+    @Nullable
+    private String createDeleteAndPickTaskSql(@Nonnull QueueLocation location,
+                                              @Nonnull FailureSettings failureSettings) {
+        if (groupQueueNames != null) {
+            return null;
+        }
+        return createPickTaskSql(location, failureSettings, false, createPreviousTaskCondition(),
+                "completed AS (" +
+                        "DELETE FROM " + location.getTableName() + " " +
+                        "WHERE " + queueTableSchema.getQueueNameField() + " = :queueName " +
+                        "  AND " + queueTableSchema.getIdField() + " = :previousTaskId), ");
+    }
+
+    /**
+     * Statement, which postpones the previous task and picks the next one.
+     */
+    @Nullable
+    private String createReenqueueAndPickTaskSql(@Nonnull QueueLocation location,
+                                                 @Nonnull FailureSettings failureSettings) {
+        if (groupQueueNames != null) {
+            return null;
+        }
+        return createPickTaskSql(location, failureSettings, false, createPreviousTaskCondition(),
+                "completed AS (" +
+                        "UPDATE " + location.getTableName() + " " +
+                        "SET " + queueTableSchema.getNextProcessAtField() +
+                        " = now() + :executionDelay * INTERVAL '1 SECOND', " +
+                        queueTableSchema.getAttemptField() + " = 0, " +
+                        queueTableSchema.getReenqueueAttemptField() +
+                        " = " + queueTableSchema.getReenqueueAttemptField() + " + 1 " +
+                        "WHERE " + queueTableSchema.getQueueNameField() + " = :queueName " +
+                        "  AND " + queueTableSchema.getIdField() + " = :previousTaskId), ");
+    }
+
+    private String createPreviousTaskCondition() {
+        return "  AND t." + queueTableSchema.getIdField() + " <> :previousTaskId ";
+    }
+
+    private String createPickTaskSql(@Nonnull QueueLocation location, @Nonnull FailureSettings failureSettings,
+                                     boolean byPriority, @Nonnull String keyCondition) {
+        return createPickTaskSql(location, failureSettings, byPriority, keyCondition, "");
+    }
+
+    private String createPickTaskSql(@Nonnull QueueLocation location, @Nonnull FailureSettings failureSettings,
+                                     boolean byPriority, @Nonnull String keyCondition,
+                                     @Nonnull String completionQuery) {
+        return createPickTaskSql(location, failureSettings, byPriority, keyCondition, completionQuery, false);
+    }
+
+    private String createPickTaskSql(@Nonnull QueueLocation location, @Nonnull FailureSettings failureSettings,
+                                     boolean byPriority, @Nonnull String keyCondition,
+                                     @Nonnull String completionQuery, boolean lockKey) {
+        String candidatesSql = "SELECT " + queueTableSchema.getIdField() +
+                (lockKey ? ", " + queueTableSchema.getQueueNameField() + ", " +
+                        queueTableSchema.getConcurrencyKeyField().get() : "") + " " +
+                "FROM " + location.getTableName() + " t " +
+                "WHERE " + queueTableSchema.getQueueNameField() +
+                (groupQueueNames != null ? " IN (:queueNames) " : " = :queueName ") +
                 "  AND " + queueTableSchema.getNextProcessAtField() + " <= now() " +
+                (byPriority ? "  AND " + queueTableSchema.getPriorityField().get() + " = :priority " : "") +
+                keyCondition +
                 " ORDER BY " + queueTableSchema.getNextProcessAtField() + " ASC " +
-                "LIMIT 1 " +
-                "FOR UPDATE SKIP LOCKED) " +
+                "LIMIT " + (lockKey ? KEY_LOCK_CANDIDATES : 1) + " " +
+                "FOR UPDATE SKIP LOCKED";
+        return "WITH " + completionQuery + "cte AS (" +
+                (lockKey ? "SELECT c." + queueTableSchema.getIdField() + " " +
+                        "FROM (" + candidatesSql + ") c " +
+                        "WHERE " + createKeyLockCondition() + " " +
+                        "LIMIT 1" : candidatesSql) + ") " +
                 "UPDATE " + location.getTableName() + " q " +
                 "SET " +
                 "  " + queueTableSchema.getNextProcessAtField() + " = " +
@@ -118,6 +413,35 @@ public class PostgresQueuePickTaskDao implements QueuePickTaskDao {
                 "q." + queueTableSchema.getTotalAttemptField() + ", " +
                 "q." + queueTableSchema.getCreatedAtField() + ", " +
                 "q." + queueTableSchema.getNextProcessAtField() +
+                queueTableSchema.getPriorityField().map(field -> ", q." + field).orElse("") +
+                (groupQueueNames != null ? ", q." + queueTableSchema.getQueueNameField() : "") +
+                (queueTableSchema.getExtFields().isEmpty() ? "" : queueTableSchema.getExtFields().stream()
+                        .map(field -> "q." + field).collect(Collectors.joining(", ", ", ", "")));
+    }
+
+    private String createPickAndDeleteTaskSql(@Nonnull QueueLocation location) {
+        return "WITH cte AS (" +
+                "SELECT " + queueTableSchema.getIdField() + " " +
+                "FROM " + location.getTableName() + " " +
+                "WHERE " + queueTableSchema.getQueueNameField() +
+                (groupQueueNames != null ? " IN (:queueNames) " : " = :queueName ") +
+                "  AND " + queueTableSchema.getNextProcessAtField() + " <= now() " +
+                " ORDER BY " + queueTableSchema.getNextProcessAtField() + " ASC " +
+                "LIMIT 1 " +
+                "FOR UPDATE SKIP LOCKED) " +
+                "DELETE FROM " + location.getTableName() + " q " +
+                "USING cte " +
+                "WHERE q." + queueTableSchema.getIdField() + " = cte." + queueTableSchema.getIdField() + " " +
+                "RETURNING q." + queueTableSchema.getIdField() + ", " +
+                "q." + queueTableSchema.getPayloadField() + ", " +
+                "q." + queueTableSchema.getAttemptField() + " + 1 AS " + queueTableSchema.getAttemptField() + ", " +
+                "q." + queueTableSchema.getReenqueueAttemptField() + ", " +
+                "q." + queueTableSchema.getTotalAttemptField() + " + 1 AS " +
+                queueTableSchema.getTotalAttemptField() + ", " +
+                "q." + queueTableSchema.getCreatedAtField() + ", " +
+                "q." + queueTableSchema.getNextProcessAtField() +
+                queueTableSchema.getPriorityField().map(field -> ", q." + field).orElse("") +
+                (groupQueueNames != null ? ", q." + queueTableSchema.getQueueNameField() : "") +
                 (queueTableSchema.getExtFields().isEmpty() ? "" : queueTableSchema.getExtFields().stream()
                         .map(field -> "q." + field).collect(Collectors.joining(", ", ", ", "")));
     }
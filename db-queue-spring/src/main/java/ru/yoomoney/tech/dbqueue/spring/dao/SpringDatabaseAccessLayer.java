@@ -1,16 +1,27 @@
 package ru.yoomoney.tech.dbqueue.spring.dao;
 
 import org.springframework.jdbc.core.JdbcOperations;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import ru.yoomoney.tech.dbqueue.config.DatabaseAccessLayer;
 import ru.yoomoney.tech.dbqueue.config.DatabaseDialect;
 import ru.yoomoney.tech.dbqueue.config.QueueTableSchema;
+import ru.yoomoney.tech.dbqueue.dao.QueueControlDao;
 import ru.yoomoney.tech.dbqueue.dao.QueueDao;
 import ru.yoomoney.tech.dbqueue.dao.QueuePickTaskDao;
+import ru.yoomoney.tech.dbqueue.dao.QueueRateLimitDao;
+import ru.yoomoney.tech.dbqueue.dao.QueueSettingsDao;
 import ru.yoomoney.tech.dbqueue.settings.FailureSettings;
+import ru.yoomoney.tech.dbqueue.settings.QueueId;
 import ru.yoomoney.tech.dbqueue.settings.QueueLocation;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Collection;
 import java.util.function.Supplier;
 
 import static java.util.Objects.requireNonNull;
@@ -33,6 +44,16 @@ public class SpringDatabaseAccessLayer implements DatabaseAccessLayer {
     private final QueueTableSchema queueTableSchema;
     @Nonnull
     private final QueueDao queueDao;
+    @Nonnull
+    private final QueueRateLimitDao queueRateLimitDao;
+    @Nonnull
+    private final QueueSettingsDao queueSettingsDao;
+    @Nonnull
+    private final QueueControlDao queueControlDao;
+    @Nonnull
+    private final JdbcOperations pickJdbcOperations;
+    @Nullable
+    private final TransactionOperations pickTransactionOperations;
 
 
     /**
@@ -52,6 +73,44 @@ public class SpringDatabaseAccessLayer implements DatabaseAccessLayer {
         this.jdbcOperations = requireNonNull(jdbcOperations);
         this.transactionOperations = requireNonNull(transactionOperations);
         this.queueDao = createQueueDao(databaseDialect, queueTableSchema, jdbcOperations);
+        this.queueRateLimitDao = new SpringQueueRateLimitDao(jdbcOperations, databaseDialect);
+        this.queueSettingsDao = new SpringQueueSettingsDao(jdbcOperations);
+        this.queueControlDao = new SpringQueueControlDao(jdbcOperations);
+        this.pickJdbcOperations = jdbcOperations;
+        this.pickTransactionOperations = null;
+    }
+
+    /**
+     * Constructor, which picks tasks on connections pinned to the poller threads.
+     * <p>
+     * A pick in a separate transaction takes the connection of the current thread from {@code pollerDataSource},
+     * a pick within an active transaction joins it.
+     * The target data source of {@code pollerDataSource} must be the data source of the transaction manager.
+     *
+     * @param databaseDialect       Database type (dialect)
+     * @param queueTableSchema      Queue table scheme.
+     * @param jdbcOperations        Reference to Spring JDBC template.
+     * @param transactionOperations Reference to Spring transaction template.
+     * @param pollerDataSource      Data source of connections pinned to the poller threads.
+     */
+    public SpringDatabaseAccessLayer(@Nonnull DatabaseDialect databaseDialect,
+                                     @Nonnull QueueTableSchema queueTableSchema,
+                                     @Nonnull JdbcOperations jdbcOperations,
+                                     @Nonnull TransactionOperations transactionOperations,
+                                     @Nonnull PollerConnectionDataSource pollerDataSource) {
+        this.databaseDialect = requireNonNull(databaseDialect);
+        this.queueTableSchema = requireNonNull(queueTableSchema);
+        this.jdbcOperations = requireNonNull(jdbcOperations);
+        this.transactionOperations = requireNonNull(transactionOperations);
+        this.queueDao = createQueueDao(databaseDialect, queueTableSchema, jdbcOperations);
+        this.queueRateLimitDao = new SpringQueueRateLimitDao(jdbcOperations, databaseDialect);
+        this.queueSettingsDao = new SpringQueueSettingsDao(jdbcOperations);
+        this.queueControlDao = new SpringQueueControlDao(jdbcOperations);
+        this.pickJdbcOperations = new JdbcTemplate(requireNonNull(pollerDataSource));
+        DataSourceTransactionManager pickTransactionManager = new DataSourceTransactionManager(pollerDataSource);
+        this.pickTransactionOperations = transactionOperations instanceof TransactionDefinition ?
+                new TransactionTemplate(pickTransactionManager, (TransactionDefinition) transactionOperations) :
+                new TransactionTemplate(pickTransactionManager);
     }
 
     @Override
@@ -60,6 +119,24 @@ public class SpringDatabaseAccessLayer implements DatabaseAccessLayer {
         return queueDao;
     }
 
+    @Override
+    @Nonnull
+    public QueueRateLimitDao getQueueRateLimitDao() {
+        return queueRateLimitDao;
+    }
+
+    @Override
+    @Nonnull
+    public QueueSettingsDao getQueueSettingsDao() {
+        return queueSettingsDao;
+    }
+
+    @Override
+    @Nonnull
+    public QueueControlDao getQueueControlDao() {
+        return queueControlDao;
+    }
+
     private QueueDao createQueueDao(@Nonnull DatabaseDialect databaseDialect,
                                     @Nonnull QueueTableSchema queueTableSchema,
                                     @Nonnull JdbcOperations jdbcOperations) {
@@ -73,8 +150,12 @@ public class SpringDatabaseAccessLayer implements DatabaseAccessLayer {
                 return new MssqlQueueDao(jdbcOperations, queueTableSchema);
             case ORACLE_11G:
                 return new Oracle11QueueDao(jdbcOperations, queueTableSchema);
+            case ORACLE_12C:
+                return new Oracle12QueueDao(jdbcOperations, queueTableSchema);
             case H2:
                 return new H2QueueDao(jdbcOperations, queueTableSchema);
+            case MYSQL:
+                return new MysqlQueueDao(jdbcOperations, queueTableSchema);
             default:
                 throw new IllegalArgumentException("unsupported database kind: " + databaseDialect);
         }
@@ -90,13 +171,51 @@ public class SpringDatabaseAccessLayer implements DatabaseAccessLayer {
         requireNonNull(failureSettings);
         switch (databaseDialect) {
             case POSTGRESQL:
-                return new PostgresQueuePickTaskDao(jdbcOperations, queueTableSchema, queueLocation, failureSettings);
+                return new PostgresQueuePickTaskDao(pickJdbcOperations, queueTableSchema, queueLocation, failureSettings);
+            case MSSQL:
+                return new MssqlQueuePickTaskDao(pickJdbcOperations, queueTableSchema, queueLocation, failureSettings);
+            case ORACLE_11G:
+                return new Oracle11QueuePickTaskDao(pickJdbcOperations, queueTableSchema, queueLocation, failureSettings);
+            case ORACLE_12C:
+                return new Oracle12QueuePickTaskDao(pickJdbcOperations, queueTableSchema, queueLocation, failureSettings);
+            case H2:
+                return new H2QueuePickTaskDao(pickJdbcOperations, queueTableSchema, queueLocation, failureSettings);
+            case MYSQL:
+                return new MysqlQueuePickTaskDao(pickJdbcOperations, queueTableSchema, queueLocation, failureSettings);
+            default:
+                throw new IllegalArgumentException("unsupported database kind: " + databaseDialect);
+        }
+    }
+
+    @Nonnull
+    @Override
+    public QueuePickTaskDao createQueueGroupPickTaskDao(@Nonnull QueueLocation groupLocation,
+                                                        @Nonnull Collection<QueueId> queueIds,
+                                                        @Nonnull FailureSettings failureSettings) {
+        requireNonNull(databaseDialect);
+        requireNonNull(queueTableSchema);
+        requireNonNull(groupLocation);
+        requireNonNull(queueIds);
+        requireNonNull(failureSettings);
+        switch (databaseDialect) {
+            case POSTGRESQL:
+                return new PostgresQueuePickTaskDao(pickJdbcOperations, queueTableSchema, groupLocation, queueIds,
+                        failureSettings);
             case MSSQL:
-                return new MssqlQueuePickTaskDao(jdbcOperations, queueTableSchema, queueLocation, failureSettings);
+                return new MssqlQueuePickTaskDao(pickJdbcOperations, queueTableSchema, groupLocation, queueIds,
+                        failureSettings);
             case ORACLE_11G:
-                return new Oracle11QueuePickTaskDao(jdbcOperations, queueTableSchema, queueLocation, failureSettings);
+                return new Oracle11QueuePickTaskDao(pickJdbcOperations, queueTableSchema, groupLocation, queueIds,
+                        failureSettings);
+            case ORACLE_12C:
+                return new Oracle12QueuePickTaskDao(pickJdbcOperations, queueTableSchema, groupLocation, queueIds,
+                        failureSettings);
             case H2:
-                return new H2QueuePickTaskDao(jdbcOperations, queueTableSchema, queueLocation, failureSettings);
+                return new H2QueuePickTaskDao(pickJdbcOperations, queueTableSchema, groupLocation, queueIds,
+                        failureSettings);
+            case MYSQL:
+                return new MysqlQueuePickTaskDao(pickJdbcOperations, queueTableSchema, groupLocation, queueIds,
+                        failureSettings);
             default:
                 throw new IllegalArgumentException("unsupported database kind: " + databaseDialect);
         }
@@ -120,6 +239,15 @@ public class SpringDatabaseAccessLayer implements DatabaseAccessLayer {
         return transactionOperations.execute((status) -> supplier.get());
     }
 
+    @Override
+    public <T> T transactPick(@Nonnull Supplier<T> supplier) {
+        requireNonNull(supplier);
+        if (pickTransactionOperations == null || TransactionSynchronizationManager.isActualTransactionActive()) {
+            return transact(supplier);
+        }
+        return pickTransactionOperations.execute((status) -> supplier.get());
+    }
+
     @Override
     public void transact(@Nonnull Runnable runnable) {
         requireNonNull(runnable);
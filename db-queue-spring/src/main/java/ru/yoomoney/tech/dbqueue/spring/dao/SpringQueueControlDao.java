@@ -0,0 +1,36 @@
+package ru.yoomoney.tech.dbqueue.spring.dao;
+
+import org.springframework.jdbc.core.JdbcOperations;
+import ru.yoomoney.tech.dbqueue.dao.QueueControlDao;
+
+import javax.annotation.Nonnull;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Database access object to read states of queues shared between nodes.
+ * <p>
+ * Queries are written in plain SQL and work for all supported database types.
+ */
+public class SpringQueueControlDao implements QueueControlDao {
+
+    private final JdbcOperations jdbcTemplate;
+
+    public SpringQueueControlDao(@Nonnull JdbcOperations jdbcOperations) {
+        this.jdbcTemplate = requireNonNull(jdbcOperations, "jdbc template can't be null");
+    }
+
+    @Override
+    @Nonnull
+    public Map<String, String> loadQueueStates(@Nonnull String tableName) {
+        requireNonNull(tableName, "tableName can't be null");
+        Map<String, String> states = new LinkedHashMap<>();
+        jdbcTemplate.query("SELECT queue_name, state FROM " + tableName,
+                rs -> {
+                    states.put(rs.getString("queue_name"), rs.getString("state"));
+                });
+        return states;
+    }
+}
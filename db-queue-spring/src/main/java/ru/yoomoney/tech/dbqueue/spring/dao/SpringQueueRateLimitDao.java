@@ -0,0 +1,108 @@
+package ru.yoomoney.tech.dbqueue.spring.dao;
+
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcOperations;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import ru.yoomoney.tech.dbqueue.config.DatabaseDialect;
+import ru.yoomoney.tech.dbqueue.dao.QueueRateLimitDao;
+import ru.yoomoney.tech.dbqueue.settings.QueueId;
+
+import javax.annotation.Nonnull;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Database access object to share a rate limit of a queue between nodes.
+ * <p>
+ * Queries are written in plain SQL and work for all supported database types.
+ * Time is provided by the node, so the table doesn't depend on a database clock.
+ * Available permits are only read, so polls of an idle queue don't write to the table.
+ * Parameters are cast explicitly, otherwise some databases infer an integer type from the adjacent column.
+ * MySQL doesn't accept {@code DOUBLE PRECISION} in a cast, so the type of the cast depends on the dialect.
+ */
+public class SpringQueueRateLimitDao implements QueueRateLimitDao {
+
+    private final Map<String, String> selectSqlCache = new ConcurrentHashMap<>();
+    private final Map<String, String> takeSqlCache = new ConcurrentHashMap<>();
+    private final Map<String, String> insertSqlCache = new ConcurrentHashMap<>();
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final String doubleType;
+
+    public SpringQueueRateLimitDao(@Nonnull JdbcOperations jdbcOperations) {
+        this(jdbcOperations, DatabaseDialect.POSTGRESQL);
+    }
+
+    public SpringQueueRateLimitDao(@Nonnull JdbcOperations jdbcOperations,
+                                   @Nonnull DatabaseDialect databaseDialect) {
+        this.jdbcTemplate = new NamedParameterJdbcTemplate(requireNonNull(jdbcOperations, "jdbc template can't be null"));
+        requireNonNull(databaseDialect, "database dialect can't be null");
+        this.doubleType = databaseDialect == DatabaseDialect.MYSQL ? "DOUBLE" : "DOUBLE PRECISION";
+    }
+
+    @Override
+    public double getAvailablePermits(@Nonnull String tableName,
+                                      @Nonnull QueueId queueId,
+                                      double permitsPerSecond,
+                                      long nowMillis) {
+        requireNonNull(tableName, "tableName can't be null");
+        requireNonNull(queueId, "queueId can't be null");
+        double capacity = Math.max(1.0, permitsPerSecond);
+        List<Double> permits = jdbcTemplate.query(selectSqlCache.computeIfAbsent(tableName,
+                SpringQueueRateLimitDao::createSelectSql),
+                new MapSqlParameterSource("queueName", queueId.asString()),
+                (rs, rowNum) -> {
+                    long elapsed = Math.max(0L, nowMillis - rs.getLong("refilled_at"));
+                    return Math.min(capacity, rs.getDouble("tokens") + elapsed * permitsPerSecond / 1000.0);
+                });
+        return permits.isEmpty() ? capacity : permits.get(0);
+    }
+
+    @Override
+    public void takePermit(@Nonnull String tableName,
+                           @Nonnull QueueId queueId,
+                           double permitsPerSecond,
+                           long nowMillis) {
+        requireNonNull(tableName, "tableName can't be null");
+        requireNonNull(queueId, "queueId can't be null");
+        double capacity = Math.max(1.0, permitsPerSecond);
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("queueName", queueId.asString())
+                .addValue("rate", permitsPerSecond / 1000.0)
+                .addValue("capacity", capacity)
+                .addValue("now", nowMillis);
+        String takeSql = takeSqlCache.computeIfAbsent(tableName, this::createTakeSql);
+        if (jdbcTemplate.update(takeSql, params) != 0) {
+            return;
+        }
+        try {
+            jdbcTemplate.update(insertSqlCache.computeIfAbsent(tableName,
+                    SpringQueueRateLimitDao::createInsertSql), params.addValue("tokens", capacity - 1.0));
+        } catch (DuplicateKeyException ignored) {
+            jdbcTemplate.update(takeSql, params);
+        }
+    }
+
+    private static String createSelectSql(String tableName) {
+        return "SELECT tokens, refilled_at FROM " + tableName + " WHERE queue_name = :queueName";
+    }
+
+    private String createTakeSql(String tableName) {
+        String elapsed = "(CASE WHEN refilled_at < :now THEN :now - refilled_at ELSE 0 END)";
+        String refilledTokens = "(tokens + CAST(:rate AS " + doubleType + ") * " + elapsed + ")";
+        String capacity = "CAST(:capacity AS " + doubleType + ")";
+        return "UPDATE " + tableName + " SET " +
+                "tokens = (CASE WHEN " + refilledTokens + " > " + capacity + " THEN " + capacity + " ELSE " +
+                refilledTokens + " END) - 1, " +
+                "refilled_at = (CASE WHEN refilled_at < :now THEN :now ELSE refilled_at END) " +
+                "WHERE queue_name = :queueName";
+    }
+
+    private static String createInsertSql(String tableName) {
+        return "INSERT INTO " + tableName + " (queue_name, tokens, refilled_at) VALUES (:queueName, :tokens, :now)";
+    }
+}
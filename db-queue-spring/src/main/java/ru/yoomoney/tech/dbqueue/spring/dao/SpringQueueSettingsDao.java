@@ -0,0 +1,43 @@
+package ru.yoomoney.tech.dbqueue.spring.dao;
+
+import org.springframework.jdbc.core.JdbcOperations;
+import ru.yoomoney.tech.dbqueue.dao.QueueSettingsDao;
+
+import javax.annotation.Nonnull;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Database access object to read queue settings shared between nodes.
+ * <p>
+ * Queries are written in plain SQL and work for all supported database types.
+ */
+public class SpringQueueSettingsDao implements QueueSettingsDao {
+
+    private final JdbcOperations jdbcTemplate;
+
+    public SpringQueueSettingsDao(@Nonnull JdbcOperations jdbcOperations) {
+        this.jdbcTemplate = requireNonNull(jdbcOperations, "jdbc template can't be null");
+    }
+
+    @Override
+    public long getSettingsVersion(@Nonnull String tableName) {
+        requireNonNull(tableName, "tableName can't be null");
+        Long version = jdbcTemplate.queryForObject("SELECT MAX(version) FROM " + tableName, Long.class);
+        return version == null ? 0L : version;
+    }
+
+    @Override
+    @Nonnull
+    public Map<String, String> loadSettings(@Nonnull String tableName) {
+        requireNonNull(tableName, "tableName can't be null");
+        Map<String, String> settings = new LinkedHashMap<>();
+        jdbcTemplate.query("SELECT setting_name, setting_value FROM " + tableName + " ORDER BY setting_name",
+                rs -> {
+                    settings.put(rs.getString("setting_name"), rs.getString("setting_value"));
+                });
+        return settings;
+    }
+}
@@ -0,0 +1,22 @@
+package ru.yoomoney.tech.dbqueue.spring.dao;
+
+import org.junit.BeforeClass;
+import ru.yoomoney.tech.dbqueue.spring.dao.utils.MysqlDatabaseInitializer;
+
+/**
+ * @author Oleg Kandaurov
+ * @since 19.10.2026
+ */
+public class CustomMysqlQueueDaoTest extends QueueDaoTest {
+
+    @BeforeClass
+    public static void beforeClass() {
+        MysqlDatabaseInitializer.initialize();
+    }
+
+    public CustomMysqlQueueDaoTest() {
+        super(new MysqlQueueDao(MysqlDatabaseInitializer.getJdbcTemplate(), MysqlDatabaseInitializer.CUSTOM_SCHEMA),
+                MysqlDatabaseInitializer.CUSTOM_TABLE_NAME, MysqlDatabaseInitializer.CUSTOM_SCHEMA,
+                MysqlDatabaseInitializer.getJdbcTemplate(), MysqlDatabaseInitializer.getTransactionTemplate());
+    }
+}
@@ -0,0 +1,42 @@
+package ru.yoomoney.tech.dbqueue.spring.dao;
+
+import org.junit.BeforeClass;
+import ru.yoomoney.tech.dbqueue.dao.QueuePickTaskDao;
+import ru.yoomoney.tech.dbqueue.settings.FailureSettings;
+import ru.yoomoney.tech.dbqueue.settings.QueueId;
+import ru.yoomoney.tech.dbqueue.settings.QueueLocation;
+import ru.yoomoney.tech.dbqueue.spring.dao.utils.Oracle12DatabaseInitializer;
+
+import java.util.Collection;
+
+/**
+ * @author Oleg Kandaurov
+ * @since 19.10.2026
+ */
+public class CustomOracle12QueuePickTaskDaoTest extends QueuePickTaskDaoTest {
+
+    @BeforeClass
+    public static void beforeClass() {
+        Oracle12DatabaseInitializer.initialize();
+    }
+
+    public CustomOracle12QueuePickTaskDaoTest() {
+        super(new Oracle12QueueDao(Oracle12DatabaseInitializer.getJdbcTemplate(), Oracle12DatabaseInitializer.CUSTOM_SCHEMA),
+                (queueLocation, failureSettings) -> new Oracle12QueuePickTaskDao(Oracle12DatabaseInitializer.getJdbcTemplate(),
+                        Oracle12DatabaseInitializer.CUSTOM_SCHEMA, queueLocation, failureSettings),
+                Oracle12DatabaseInitializer.CUSTOM_TABLE_NAME, Oracle12DatabaseInitializer.CUSTOM_SCHEMA,
+                Oracle12DatabaseInitializer.getJdbcTemplate(), Oracle12DatabaseInitializer.getTransactionTemplate());
+    }
+
+    @Override
+    protected String currentTimeSql() {
+        return "CURRENT_TIMESTAMP";
+    }
+
+    @Override
+    protected QueuePickTaskDao createQueueGroupPickTaskDao(QueueLocation groupLocation, Collection<QueueId> queueIds,
+                                                           FailureSettings failureSettings) {
+        return new Oracle12QueuePickTaskDao(Oracle12DatabaseInitializer.getJdbcTemplate(),
+                Oracle12DatabaseInitializer.CUSTOM_SCHEMA, groupLocation, queueIds, failureSettings);
+    }
+}
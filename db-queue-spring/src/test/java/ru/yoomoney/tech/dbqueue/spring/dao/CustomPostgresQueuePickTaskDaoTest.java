@@ -1,8 +1,25 @@
 package ru.yoomoney.tech.dbqueue.spring.dao;
 
+import org.junit.Assert;
 import org.junit.BeforeClass;
+import org.junit.Test;
+import ru.yoomoney.tech.dbqueue.api.EnqueueParams;
+import ru.yoomoney.tech.dbqueue.api.TaskRecord;
+import ru.yoomoney.tech.dbqueue.dao.QueuePickTaskDao;
+import ru.yoomoney.tech.dbqueue.settings.FailRetryType;
+import ru.yoomoney.tech.dbqueue.settings.FailureSettings;
+import ru.yoomoney.tech.dbqueue.settings.QueueId;
+import ru.yoomoney.tech.dbqueue.settings.QueueLocation;
 import ru.yoomoney.tech.dbqueue.spring.dao.utils.PostgresDatabaseInitializer;
 
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Objects;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+
 /**
  * @author Oleg Kandaurov
  * @since 12.10.2019
@@ -26,4 +43,46 @@ public class CustomPostgresQueuePickTaskDaoTest extends QueuePickTaskDaoTest {
     protected String currentTimeSql() {
         return "now()";
     }
+
+    @Override
+    protected QueuePickTaskDao createQueueGroupPickTaskDao(QueueLocation groupLocation, Collection<QueueId> queueIds,
+                                                           FailureSettings failureSettings) {
+        return new PostgresQueuePickTaskDao(PostgresDatabaseInitializer.getJdbcTemplate(), PostgresDatabaseInitializer.CUSTOM_SCHEMA,
+                groupLocation, queueIds, failureSettings);
+    }
+
+    @Test
+    public void should_pick_next_candidate_when_key_is_locked_by_concurrent_transaction() throws Exception {
+        QueueLocation location = generateUniqueLocation();
+        executeInTransaction(() -> queueDao.enqueue(location,
+                EnqueueParams.create("locked").withExtData("trace", "locked")));
+        executeInTransaction(() -> queueDao.enqueue(location,
+                EnqueueParams.create("free").withExtData("trace", "free")));
+        QueuePickTaskDao pickTaskDao = pickTaskDaoFactory.apply(location, FailureSettings.builder()
+                .withRetryType(FailRetryType.LINEAR_BACKOFF)
+                .withRetryInterval(Duration.ofMinutes(1)).build());
+        CountDownLatch keyLocked = new CountDownLatch(1);
+        CountDownLatch picked = new CountDownLatch(1);
+        Thread lockingThread = new Thread(() -> executeInTransaction(() -> {
+            jdbcTemplate.queryForList("SELECT pg_advisory_xact_lock(hashtext(?))",
+                    location.getQueueId().asString() + "/locked");
+            keyLocked.countDown();
+            try {
+                picked.await(10L, TimeUnit.SECONDS);
+            } catch (InterruptedException exc) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        lockingThread.start();
+        try {
+            Assert.assertTrue(keyLocked.await(10L, TimeUnit.SECONDS));
+            TaskRecord taskRecord = executeInTransaction(() -> pickTaskDao.pickTaskWithKeyLimit(null, 1));
+            Assert.assertThat(Objects.requireNonNull(taskRecord).getPayload(), equalTo("free"));
+        } finally {
+            picked.countDown();
+            lockingThread.join();
+        }
+        TaskRecord taskRecord = executeInTransaction(() -> pickTaskDao.pickTaskWithKeyLimit(null, 1));
+        Assert.assertThat(Objects.requireNonNull(taskRecord).getPayload(), equalTo("locked"));
+    }
 }
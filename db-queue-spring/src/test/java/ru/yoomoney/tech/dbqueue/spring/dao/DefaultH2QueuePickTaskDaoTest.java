@@ -1,8 +1,14 @@
 package ru.yoomoney.tech.dbqueue.spring.dao;
 
 import org.junit.BeforeClass;
+import ru.yoomoney.tech.dbqueue.dao.QueuePickTaskDao;
+import ru.yoomoney.tech.dbqueue.settings.FailureSettings;
+import ru.yoomoney.tech.dbqueue.settings.QueueId;
+import ru.yoomoney.tech.dbqueue.settings.QueueLocation;
 import ru.yoomoney.tech.dbqueue.spring.dao.utils.H2DatabaseInitializer;
 
+import java.util.Collection;
+
 public class DefaultH2QueuePickTaskDaoTest extends QueuePickTaskDaoTest {
 
     @BeforeClass
@@ -26,4 +32,11 @@ public class DefaultH2QueuePickTaskDaoTest extends QueuePickTaskDaoTest {
     protected String currentTimeSql() {
         return "now()";
     }
+
+    @Override
+    protected QueuePickTaskDao createQueueGroupPickTaskDao(QueueLocation groupLocation, Collection<QueueId> queueIds,
+                                                           FailureSettings failureSettings) {
+        return new H2QueuePickTaskDao(H2DatabaseInitializer.getJdbcTemplate(), H2DatabaseInitializer.DEFAULT_SCHEMA,
+                groupLocation, queueIds, failureSettings);
+    }
 }
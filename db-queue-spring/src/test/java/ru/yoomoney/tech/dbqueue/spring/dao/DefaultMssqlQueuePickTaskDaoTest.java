@@ -1,8 +1,14 @@
 package ru.yoomoney.tech.dbqueue.spring.dao;
 
 import org.junit.BeforeClass;
+import ru.yoomoney.tech.dbqueue.dao.QueuePickTaskDao;
+import ru.yoomoney.tech.dbqueue.settings.FailureSettings;
+import ru.yoomoney.tech.dbqueue.settings.QueueId;
+import ru.yoomoney.tech.dbqueue.settings.QueueLocation;
 import ru.yoomoney.tech.dbqueue.spring.dao.utils.MssqlDatabaseInitializer;
 
+import java.util.Collection;
+
 /**
  * @author Oleg Kandaurov
  * @author Behrooz Shabani
@@ -27,4 +33,11 @@ public class DefaultMssqlQueuePickTaskDaoTest extends QueuePickTaskDaoTest {
     protected String currentTimeSql() {
         return "SYSDATETIMEOFFSET()";
     }
+
+    @Override
+    protected QueuePickTaskDao createQueueGroupPickTaskDao(QueueLocation groupLocation, Collection<QueueId> queueIds,
+                                                           FailureSettings failureSettings) {
+        return new MssqlQueuePickTaskDao(MssqlDatabaseInitializer.getJdbcTemplate(), MssqlDatabaseInitializer.DEFAULT_SCHEMA,
+                groupLocation, queueIds, failureSettings);
+    }
 }
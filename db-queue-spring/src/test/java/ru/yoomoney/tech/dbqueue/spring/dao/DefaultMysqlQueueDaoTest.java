@@ -0,0 +1,22 @@
+package ru.yoomoney.tech.dbqueue.spring.dao;
+
+import org.junit.BeforeClass;
+import ru.yoomoney.tech.dbqueue.spring.dao.utils.MysqlDatabaseInitializer;
+
+/**
+ * @author Oleg Kandaurov
+ * @since 19.10.2026
+ */
+public class DefaultMysqlQueueDaoTest extends QueueDaoTest {
+
+    @BeforeClass
+    public static void beforeClass() {
+        MysqlDatabaseInitializer.initialize();
+    }
+
+    public DefaultMysqlQueueDaoTest() {
+        super(new MysqlQueueDao(MysqlDatabaseInitializer.getJdbcTemplate(), MysqlDatabaseInitializer.DEFAULT_SCHEMA),
+                MysqlDatabaseInitializer.DEFAULT_TABLE_NAME, MysqlDatabaseInitializer.DEFAULT_SCHEMA,
+                MysqlDatabaseInitializer.getJdbcTemplate(), MysqlDatabaseInitializer.getTransactionTemplate());
+    }
+}
@@ -0,0 +1,42 @@
+package ru.yoomoney.tech.dbqueue.spring.dao;
+
+import org.junit.BeforeClass;
+import ru.yoomoney.tech.dbqueue.dao.QueuePickTaskDao;
+import ru.yoomoney.tech.dbqueue.settings.FailureSettings;
+import ru.yoomoney.tech.dbqueue.settings.QueueId;
+import ru.yoomoney.tech.dbqueue.settings.QueueLocation;
+import ru.yoomoney.tech.dbqueue.spring.dao.utils.MysqlDatabaseInitializer;
+
+import java.util.Collection;
+
+/**
+ * @author Oleg Kandaurov
+ * @since 19.10.2026
+ */
+public class DefaultMysqlQueuePickTaskDaoTest extends QueuePickTaskDaoTest {
+
+    @BeforeClass
+    public static void beforeClass() {
+        MysqlDatabaseInitializer.initialize();
+    }
+
+    public DefaultMysqlQueuePickTaskDaoTest() {
+        super(new MysqlQueueDao(MysqlDatabaseInitializer.getJdbcTemplate(), MysqlDatabaseInitializer.DEFAULT_SCHEMA),
+                (queueLocation, failureSettings) -> new MysqlQueuePickTaskDao(MysqlDatabaseInitializer.getJdbcTemplate(),
+                        MysqlDatabaseInitializer.DEFAULT_SCHEMA, queueLocation, failureSettings),
+                MysqlDatabaseInitializer.DEFAULT_TABLE_NAME, MysqlDatabaseInitializer.DEFAULT_SCHEMA,
+                MysqlDatabaseInitializer.getJdbcTemplate(), MysqlDatabaseInitializer.getTransactionTemplate());
+    }
+
+    @Override
+    protected String currentTimeSql() {
+        return "NOW(6)";
+    }
+
+    @Override
+    protected QueuePickTaskDao createQueueGroupPickTaskDao(QueueLocation groupLocation, Collection<QueueId> queueIds,
+                                                           FailureSettings failureSettings) {
+        return new MysqlQueuePickTaskDao(MysqlDatabaseInitializer.getJdbcTemplate(), MysqlDatabaseInitializer.DEFAULT_SCHEMA,
+                groupLocation, queueIds, failureSettings);
+    }
+}
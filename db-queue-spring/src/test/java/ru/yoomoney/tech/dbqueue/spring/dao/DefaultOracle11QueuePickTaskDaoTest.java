@@ -2,11 +2,14 @@ package ru.yoomoney.tech.dbqueue.spring.dao;
 
 import org.junit.BeforeClass;
 import org.junit.Ignore;
+import ru.yoomoney.tech.dbqueue.dao.QueuePickTaskDao;
+import ru.yoomoney.tech.dbqueue.settings.FailureSettings;
 import ru.yoomoney.tech.dbqueue.settings.QueueId;
 import ru.yoomoney.tech.dbqueue.settings.QueueLocation;
 import ru.yoomoney.tech.dbqueue.spring.dao.utils.OracleDatabaseInitializer;
 import ru.yoomoney.tech.dbqueue.spring.dao.utils.PostgresDatabaseInitializer;
 
+import java.util.Collection;
 import java.util.UUID;
 
 /**
@@ -34,6 +37,13 @@ public class DefaultOracle11QueuePickTaskDaoTest extends QueuePickTaskDaoTest {
         return "CURRENT_TIMESTAMP";
     }
 
+    @Override
+    protected QueuePickTaskDao createQueueGroupPickTaskDao(QueueLocation groupLocation, Collection<QueueId> queueIds,
+                                                           FailureSettings failureSettings) {
+        return new Oracle11QueuePickTaskDao(OracleDatabaseInitializer.getJdbcTemplate(), OracleDatabaseInitializer.DEFAULT_SCHEMA,
+                groupLocation, queueIds, failureSettings);
+    }
+
     @Override
     protected QueueLocation generateUniqueLocation() {
         return QueueLocation.builder().withTableName(tableName)
@@ -0,0 +1,22 @@
+package ru.yoomoney.tech.dbqueue.spring.dao;
+
+import org.junit.BeforeClass;
+import ru.yoomoney.tech.dbqueue.spring.dao.utils.Oracle12DatabaseInitializer;
+
+/**
+ * @author Oleg Kandaurov
+ * @since 19.10.2026
+ */
+public class DefaultOracle12QueueDaoTest extends QueueDaoTest {
+
+    @BeforeClass
+    public static void beforeClass() {
+        Oracle12DatabaseInitializer.initialize();
+    }
+
+    public DefaultOracle12QueueDaoTest() {
+        super(new Oracle12QueueDao(Oracle12DatabaseInitializer.getJdbcTemplate(), Oracle12DatabaseInitializer.DEFAULT_SCHEMA),
+                Oracle12DatabaseInitializer.DEFAULT_TABLE_NAME, Oracle12DatabaseInitializer.DEFAULT_SCHEMA,
+                Oracle12DatabaseInitializer.getJdbcTemplate(), Oracle12DatabaseInitializer.getTransactionTemplate());
+    }
+}
@@ -0,0 +1,33 @@
+package ru.yoomoney.tech.dbqueue.spring.dao;
+
+import org.junit.BeforeClass;
+import ru.yoomoney.tech.dbqueue.settings.QueueId;
+import ru.yoomoney.tech.dbqueue.settings.QueueLocation;
+import ru.yoomoney.tech.dbqueue.spring.dao.utils.Oracle12DatabaseInitializer;
+
+import java.util.UUID;
+
+/**
+ * @author Oleg Kandaurov
+ * @since 19.10.2026
+ */
+public class DefaultOracle12WithSequenceQueueDaoTest extends QueueDaoTest {
+
+    @BeforeClass
+    public static void beforeClass() {
+        Oracle12DatabaseInitializer.initialize();
+    }
+
+    public DefaultOracle12WithSequenceQueueDaoTest() {
+        super(new Oracle12QueueDao(Oracle12DatabaseInitializer.getJdbcTemplate(), Oracle12DatabaseInitializer.DEFAULT_SCHEMA),
+                Oracle12DatabaseInitializer.DEFAULT_TABLE_NAME_WO_IDENT, Oracle12DatabaseInitializer.DEFAULT_SCHEMA,
+                Oracle12DatabaseInitializer.getJdbcTemplate(), Oracle12DatabaseInitializer.getTransactionTemplate());
+    }
+
+    @Override
+    protected QueueLocation generateUniqueLocation() {
+        return QueueLocation.builder().withTableName(tableName)
+                .withQueueId(new QueueId("test-queue-" + UUID.randomUUID()))
+                .withIdSequence("tasks_seq").build();
+    }
+}
@@ -1,8 +1,14 @@
 package ru.yoomoney.tech.dbqueue.spring.dao;
 
 import org.junit.BeforeClass;
+import ru.yoomoney.tech.dbqueue.dao.QueuePickTaskDao;
+import ru.yoomoney.tech.dbqueue.settings.FailureSettings;
+import ru.yoomoney.tech.dbqueue.settings.QueueId;
+import ru.yoomoney.tech.dbqueue.settings.QueueLocation;
 import ru.yoomoney.tech.dbqueue.spring.dao.utils.PostgresDatabaseInitializer;
 
+import java.util.Collection;
+
 /**
  * @author Oleg Kandaurov
  * @since 12.10.2019
@@ -26,4 +32,11 @@ public class DefaultPostgresQueuePickTaskDaoTest extends QueuePickTaskDaoTest {
     protected String currentTimeSql() {
         return "now()";
     }
+
+    @Override
+    protected QueuePickTaskDao createQueueGroupPickTaskDao(QueueLocation groupLocation, Collection<QueueId> queueIds,
+                                                           FailureSettings failureSettings) {
+        return new PostgresQueuePickTaskDao(PostgresDatabaseInitializer.getJdbcTemplate(), PostgresDatabaseInitializer.DEFAULT_SCHEMA,
+                groupLocation, queueIds, failureSettings);
+    }
 }
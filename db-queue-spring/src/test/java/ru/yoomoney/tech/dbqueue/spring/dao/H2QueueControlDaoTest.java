@@ -0,0 +1,16 @@
+package ru.yoomoney.tech.dbqueue.spring.dao;
+
+import org.junit.BeforeClass;
+import ru.yoomoney.tech.dbqueue.spring.dao.utils.H2DatabaseInitializer;
+
+public class H2QueueControlDaoTest extends QueueControlDaoTest {
+
+    @BeforeClass
+    public static void beforeClass() {
+        H2DatabaseInitializer.initialize();
+    }
+
+    public H2QueueControlDaoTest() {
+        super(H2DatabaseInitializer.getJdbcTemplate(), H2DatabaseInitializer.CONTROL_TABLE_NAME);
+    }
+}
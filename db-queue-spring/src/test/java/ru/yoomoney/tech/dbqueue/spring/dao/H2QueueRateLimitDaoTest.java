@@ -0,0 +1,16 @@
+package ru.yoomoney.tech.dbqueue.spring.dao;
+
+import org.junit.BeforeClass;
+import ru.yoomoney.tech.dbqueue.spring.dao.utils.H2DatabaseInitializer;
+
+public class H2QueueRateLimitDaoTest extends QueueRateLimitDaoTest {
+
+    @BeforeClass
+    public static void beforeClass() {
+        H2DatabaseInitializer.initialize();
+    }
+
+    public H2QueueRateLimitDaoTest() {
+        super(H2DatabaseInitializer.getJdbcTemplate(), H2DatabaseInitializer.RATE_LIMIT_TABLE_NAME);
+    }
+}
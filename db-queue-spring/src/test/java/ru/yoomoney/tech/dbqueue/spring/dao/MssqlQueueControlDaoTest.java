@@ -0,0 +1,16 @@
+package ru.yoomoney.tech.dbqueue.spring.dao;
+
+import org.junit.BeforeClass;
+import ru.yoomoney.tech.dbqueue.spring.dao.utils.MssqlDatabaseInitializer;
+
+public class MssqlQueueControlDaoTest extends QueueControlDaoTest {
+
+    @BeforeClass
+    public static void beforeClass() {
+        MssqlDatabaseInitializer.initialize();
+    }
+
+    public MssqlQueueControlDaoTest() {
+        super(MssqlDatabaseInitializer.getJdbcTemplate(), MssqlDatabaseInitializer.CONTROL_TABLE_NAME);
+    }
+}
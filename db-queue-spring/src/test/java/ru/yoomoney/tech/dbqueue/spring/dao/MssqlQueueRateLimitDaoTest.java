@@ -0,0 +1,16 @@
+package ru.yoomoney.tech.dbqueue.spring.dao;
+
+import org.junit.BeforeClass;
+import ru.yoomoney.tech.dbqueue.spring.dao.utils.MssqlDatabaseInitializer;
+
+public class MssqlQueueRateLimitDaoTest extends QueueRateLimitDaoTest {
+
+    @BeforeClass
+    public static void beforeClass() {
+        MssqlDatabaseInitializer.initialize();
+    }
+
+    public MssqlQueueRateLimitDaoTest() {
+        super(MssqlDatabaseInitializer.getJdbcTemplate(), MssqlDatabaseInitializer.RATE_LIMIT_TABLE_NAME);
+    }
+}
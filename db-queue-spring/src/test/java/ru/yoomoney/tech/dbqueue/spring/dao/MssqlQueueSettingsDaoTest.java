@@ -0,0 +1,16 @@
+package ru.yoomoney.tech.dbqueue.spring.dao;
+
+import org.junit.BeforeClass;
+import ru.yoomoney.tech.dbqueue.spring.dao.utils.MssqlDatabaseInitializer;
+
+public class MssqlQueueSettingsDaoTest extends QueueSettingsDaoTest {
+
+    @BeforeClass
+    public static void beforeClass() {
+        MssqlDatabaseInitializer.initialize();
+    }
+
+    public MssqlQueueSettingsDaoTest() {
+        super(MssqlDatabaseInitializer.getJdbcTemplate(), MssqlDatabaseInitializer.SETTINGS_TABLE_NAME);
+    }
+}
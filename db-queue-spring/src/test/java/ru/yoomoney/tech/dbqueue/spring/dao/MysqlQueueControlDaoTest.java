@@ -0,0 +1,16 @@
+package ru.yoomoney.tech.dbqueue.spring.dao;
+
+import org.junit.BeforeClass;
+import ru.yoomoney.tech.dbqueue.spring.dao.utils.MysqlDatabaseInitializer;
+
+public class MysqlQueueControlDaoTest extends QueueControlDaoTest {
+
+    @BeforeClass
+    public static void beforeClass() {
+        MysqlDatabaseInitializer.initialize();
+    }
+
+    public MysqlQueueControlDaoTest() {
+        super(MysqlDatabaseInitializer.getJdbcTemplate(), MysqlDatabaseInitializer.CONTROL_TABLE_NAME);
+    }
+}
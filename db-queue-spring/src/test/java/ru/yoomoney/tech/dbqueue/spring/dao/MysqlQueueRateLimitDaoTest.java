@@ -0,0 +1,18 @@
+package ru.yoomoney.tech.dbqueue.spring.dao;
+
+import org.junit.BeforeClass;
+import ru.yoomoney.tech.dbqueue.config.DatabaseDialect;
+import ru.yoomoney.tech.dbqueue.spring.dao.utils.MysqlDatabaseInitializer;
+
+public class MysqlQueueRateLimitDaoTest extends QueueRateLimitDaoTest {
+
+    @BeforeClass
+    public static void beforeClass() {
+        MysqlDatabaseInitializer.initialize();
+    }
+
+    public MysqlQueueRateLimitDaoTest() {
+        super(MysqlDatabaseInitializer.getJdbcTemplate(), MysqlDatabaseInitializer.RATE_LIMIT_TABLE_NAME,
+                new SpringQueueRateLimitDao(MysqlDatabaseInitializer.getJdbcTemplate(), DatabaseDialect.MYSQL));
+    }
+}
@@ -0,0 +1,16 @@
+package ru.yoomoney.tech.dbqueue.spring.dao;
+
+import org.junit.BeforeClass;
+import ru.yoomoney.tech.dbqueue.spring.dao.utils.MysqlDatabaseInitializer;
+
+public class MysqlQueueSettingsDaoTest extends QueueSettingsDaoTest {
+
+    @BeforeClass
+    public static void beforeClass() {
+        MysqlDatabaseInitializer.initialize();
+    }
+
+    public MysqlQueueSettingsDaoTest() {
+        super(MysqlDatabaseInitializer.getJdbcTemplate(), MysqlDatabaseInitializer.SETTINGS_TABLE_NAME);
+    }
+}
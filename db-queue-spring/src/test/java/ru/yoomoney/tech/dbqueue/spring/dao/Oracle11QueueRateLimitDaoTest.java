@@ -0,0 +1,18 @@
+package ru.yoomoney.tech.dbqueue.spring.dao;
+
+import org.junit.BeforeClass;
+import org.junit.Ignore;
+import ru.yoomoney.tech.dbqueue.spring.dao.utils.OracleDatabaseInitializer;
+
+@Ignore("https://github.com/yoomoney/db-queue/issues/10")
+public class Oracle11QueueRateLimitDaoTest extends QueueRateLimitDaoTest {
+
+    @BeforeClass
+    public static void beforeClass() {
+        OracleDatabaseInitializer.initialize();
+    }
+
+    public Oracle11QueueRateLimitDaoTest() {
+        super(OracleDatabaseInitializer.getJdbcTemplate(), OracleDatabaseInitializer.RATE_LIMIT_TABLE_NAME);
+    }
+}
@@ -0,0 +1,151 @@
+package ru.yoomoney.tech.dbqueue.spring.dao;
+
+import org.junit.After;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yoomoney.tech.dbqueue.api.EnqueueParams;
+import ru.yoomoney.tech.dbqueue.api.TaskRecord;
+import ru.yoomoney.tech.dbqueue.config.DatabaseDialect;
+import ru.yoomoney.tech.dbqueue.dao.QueuePickTaskDao;
+import ru.yoomoney.tech.dbqueue.settings.FailRetryType;
+import ru.yoomoney.tech.dbqueue.settings.FailureSettings;
+import ru.yoomoney.tech.dbqueue.settings.QueueId;
+import ru.yoomoney.tech.dbqueue.settings.QueueLocation;
+import ru.yoomoney.tech.dbqueue.spring.dao.utils.H2DatabaseInitializer;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ * @author Oleg Kandaurov
+ * @since 19.10.2026
+ */
+public class PollerConnectionDataSourceTest {
+
+    @BeforeClass
+    public static void beforeClass() {
+        H2DatabaseInitializer.initialize();
+    }
+
+    private final AtomicInteger openedConnections = new AtomicInteger();
+    private final DataSource countingDataSource = new DelegatingDataSource(
+            H2DatabaseInitializer.getJdbcTemplate().getDataSource()) {
+        @Override
+        public Connection getConnection() throws SQLException {
+            openedConnections.incrementAndGet();
+            return super.getConnection();
+        }
+    };
+    private final PollerConnectionDataSource pollerDataSource =
+            new PollerConnectionDataSource(countingDataSource, Duration.ofMinutes(1L));
+
+    @After
+    public void tearDown() {
+        pollerDataSource.close();
+    }
+
+    @Test
+    public void should_reuse_connection_and_statements_of_thread() throws Exception {
+        PreparedStatement firstStatement;
+        try (Connection connection = pollerDataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement("SELECT 1")) {
+            firstStatement = statement.unwrap(PreparedStatement.class);
+        }
+        try (Connection connection = pollerDataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement("SELECT 1")) {
+            assertThat(statement.unwrap(PreparedStatement.class), sameInstance(firstStatement));
+        }
+        assertThat(openedConnections.get(), equalTo(1));
+    }
+
+    @Test
+    public void should_give_own_connection_to_every_thread() throws Exception {
+        Connection firstConnection = unwrapConnection();
+        Connection secondConnection = CompletableFuture.supplyAsync(() -> {
+            try {
+                return unwrapConnection();
+            } catch (SQLException exc) {
+                throw new IllegalStateException(exc);
+            }
+        }).get();
+        assertThat(secondConnection, not(sameInstance(firstConnection)));
+        assertThat(pollerDataSource.getConnectionCount(), equalTo(2));
+    }
+
+    @Test
+    public void should_replace_connection_after_failure() throws Exception {
+        Connection firstConnection = unwrapConnection();
+        try (Connection connection = pollerDataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement("SELECT * FROM missing_items")) {
+            statement.executeQuery();
+            fail("query should fail");
+        } catch (SQLException ignored) {
+        }
+        assertThat(firstConnection.isClosed(), equalTo(true));
+        assertThat(unwrapConnection(), not(sameInstance(firstConnection)));
+        assertThat(openedConnections.get(), equalTo(2));
+    }
+
+    @Test
+    public void should_close_idle_connections() throws Exception {
+        try (PollerConnectionDataSource dataSource =
+                     new PollerConnectionDataSource(countingDataSource, Duration.ofMillis(50L))) {
+            dataSource.getConnection().close();
+            long deadline = System.currentTimeMillis() + 5000L;
+            while (dataSource.getConnectionCount() > 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10L);
+            }
+            assertThat(dataSource.getConnectionCount(), equalTo(0));
+        }
+    }
+
+    @Test
+    public void should_pick_task_on_pinned_connection_and_join_active_transaction() {
+        SpringDatabaseAccessLayer databaseAccessLayer = new SpringDatabaseAccessLayer(DatabaseDialect.H2,
+                H2DatabaseInitializer.DEFAULT_SCHEMA, new JdbcTemplate(countingDataSource),
+                new TransactionTemplate(new DataSourceTransactionManager(countingDataSource)), pollerDataSource);
+        QueueLocation location = QueueLocation.builder().withTableName(H2DatabaseInitializer.DEFAULT_TABLE_NAME)
+                .withQueueId(new QueueId("test-queue-" + UUID.randomUUID())).build();
+        QueuePickTaskDao pickTaskDao = databaseAccessLayer.createQueuePickTaskDao(location,
+                FailureSettings.builder().withRetryType(FailRetryType.LINEAR_BACKOFF)
+                        .withRetryInterval(Duration.ofMinutes(1L)).build());
+        databaseAccessLayer.transact(() -> databaseAccessLayer.getQueueDao().enqueue(location,
+                EnqueueParams.create("{}")));
+
+        try {
+            databaseAccessLayer.transact(() -> {
+                assertThat(databaseAccessLayer.transactPick(pickTaskDao::pickTask), notNullValue());
+                throw new IllegalStateException("rollback");
+            });
+        } catch (IllegalStateException ignored) {
+        }
+        assertThat(pollerDataSource.getConnectionCount(), equalTo(0));
+
+        TaskRecord taskRecord = databaseAccessLayer.transactPick(pickTaskDao::pickTask);
+        assertThat(taskRecord.getAttemptsCount(), equalTo(1L));
+        assertThat(pollerDataSource.getConnectionCount(), equalTo(1));
+    }
+
+    private Connection unwrapConnection() throws SQLException {
+        try (Connection connection = pollerDataSource.getConnection()) {
+            return connection.unwrap(Connection.class);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package ru.yoomoney.tech.dbqueue.spring.dao;
+
+import org.junit.BeforeClass;
+import ru.yoomoney.tech.dbqueue.spring.dao.utils.PostgresDatabaseInitializer;
+
+public class PostgresQueueControlDaoTest extends QueueControlDaoTest {
+
+    @BeforeClass
+    public static void beforeClass() {
+        PostgresDatabaseInitializer.initialize();
+    }
+
+    public PostgresQueueControlDaoTest() {
+        super(PostgresDatabaseInitializer.getJdbcTemplate(), PostgresDatabaseInitializer.CONTROL_TABLE_NAME);
+    }
+}
@@ -0,0 +1,16 @@
+package ru.yoomoney.tech.dbqueue.spring.dao;
+
+import org.junit.BeforeClass;
+import ru.yoomoney.tech.dbqueue.spring.dao.utils.PostgresDatabaseInitializer;
+
+public class PostgresQueueRateLimitDaoTest extends QueueRateLimitDaoTest {
+
+    @BeforeClass
+    public static void beforeClass() {
+        PostgresDatabaseInitializer.initialize();
+    }
+
+    public PostgresQueueRateLimitDaoTest() {
+        super(PostgresDatabaseInitializer.getJdbcTemplate(), PostgresDatabaseInitializer.RATE_LIMIT_TABLE_NAME);
+    }
+}
@@ -0,0 +1,16 @@
+package ru.yoomoney.tech.dbqueue.spring.dao;
+
+import org.junit.BeforeClass;
+import ru.yoomoney.tech.dbqueue.spring.dao.utils.PostgresDatabaseInitializer;
+
+public class PostgresQueueSettingsDaoTest extends QueueSettingsDaoTest {
+
+    @BeforeClass
+    public static void beforeClass() {
+        PostgresDatabaseInitializer.initialize();
+    }
+
+    public PostgresQueueSettingsDaoTest() {
+        super(PostgresDatabaseInitializer.getJdbcTemplate(), PostgresDatabaseInitializer.SETTINGS_TABLE_NAME);
+    }
+}
@@ -0,0 +1,40 @@
+package ru.yoomoney.tech.dbqueue.spring.dao;
+
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yoomoney.tech.dbqueue.dao.QueueControlDao;
+
+import java.util.Map;
+import java.util.UUID;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public abstract class QueueControlDaoTest {
+
+    protected final JdbcTemplate jdbcTemplate;
+    protected final String tableName;
+    protected final QueueControlDao controlDao;
+
+    public QueueControlDaoTest(JdbcTemplate jdbcTemplate, String tableName) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.tableName = tableName;
+        this.controlDao = new SpringQueueControlDao(jdbcTemplate);
+    }
+
+    @Test
+    public void should_load_queue_states() {
+        String pausedQueue = "paused-queue-" + UUID.randomUUID();
+        String drainingQueue = "draining-queue-" + UUID.randomUUID();
+        jdbcTemplate.update("INSERT INTO " + tableName + " (queue_name, state) VALUES (?, ?)", pausedQueue, "PAUSED");
+        jdbcTemplate.update("INSERT INTO " + tableName + " (queue_name, state) VALUES (?, ?)",
+                drainingQueue, "DRAINING");
+
+        Map<String, String> states = controlDao.loadQueueStates(tableName);
+
+        assertThat(states.get(pausedQueue), equalTo("PAUSED"));
+        assertThat(states.get(drainingQueue), equalTo("DRAINING"));
+        assertThat(states.get("unknown-queue-" + UUID.randomUUID()), nullValue());
+    }
+}
@@ -1,6 +1,7 @@
 package ru.yoomoney.tech.dbqueue.spring.dao;
 
 import org.junit.Assert;
+import org.junit.Assume;
 import org.junit.Ignore;
 import org.junit.Test;
 import org.springframework.jdbc.core.JdbcTemplate;
@@ -8,7 +9,9 @@ import org.springframework.transaction.TransactionStatus;
 import org.springframework.transaction.support.TransactionCallbackWithoutResult;
 import org.springframework.transaction.support.TransactionTemplate;
 import ru.yoomoney.tech.dbqueue.api.EnqueueParams;
+import ru.yoomoney.tech.dbqueue.api.EnqueueStatus;
 import ru.yoomoney.tech.dbqueue.config.QueueTableSchema;
+import ru.yoomoney.tech.dbqueue.dao.EnqueueOutcome;
 import ru.yoomoney.tech.dbqueue.dao.QueueDao;
 import ru.yoomoney.tech.dbqueue.settings.QueueId;
 import ru.yoomoney.tech.dbqueue.settings.QueueLocation;
@@ -16,8 +19,12 @@ import ru.yoomoney.tech.dbqueue.settings.QueueLocation;
 import java.time.Duration;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.List;
 import java.util.UUID;
 import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.CoreMatchers.not;
@@ -88,6 +95,21 @@ public abstract class QueueDaoTest {
         });
     }
 
+    @Test
+    public void enqueue_batch_should_return_ids_in_order_of_params() throws Exception {
+        QueueLocation location = generateUniqueLocation();
+        List<EnqueueParams<String>> enqueueParams = IntStream.range(0, 5)
+                .mapToObj(i -> EnqueueParams.create("payload-" + i))
+                .collect(Collectors.toList());
+        List<Long> enqueueIds = executeInTransaction(() -> queueDao.enqueueBatch(location, enqueueParams));
+        Assert.assertThat(enqueueIds.size(), equalTo(enqueueParams.size()));
+        for (int i = 0; i < enqueueIds.size(); i++) {
+            String payload = jdbcTemplate.queryForObject("select " + tableSchema.getPayloadField() + " from " +
+                    tableName + " where " + tableSchema.getIdField() + "=" + enqueueIds.get(i), String.class);
+            Assert.assertThat(payload, equalTo("payload-" + i));
+        }
+    }
+
     @Test
     public void delete_should_return_false_when_no_deletion() throws Exception {
         QueueLocation location = generateUniqueLocation();
@@ -156,6 +178,34 @@ public abstract class QueueDaoTest {
         });
     }
 
+    @Test
+    public void extend_leases_should_update_next_process_time_and_keep_attempts() {
+        QueueLocation location = generateUniqueLocation();
+        Long firstId = executeInTransaction(() -> queueDao.enqueue(location, new EnqueueParams<>()));
+        Long secondId = executeInTransaction(() -> queueDao.enqueue(location, new EnqueueParams<>()));
+        executeInTransaction(() -> {
+            jdbcTemplate.update("update " + tableName + " set " + tableSchema.getAttemptField() + "=3 where " + tableSchema.getIdField() + "=" + firstId);
+        });
+
+        ZonedDateTime beforeExecution = ZonedDateTime.now();
+        Duration leaseDuration = Duration.ofMinutes(5L);
+        Integer extendedCount = executeInTransaction(() ->
+                queueDao.extendLeases(location, Arrays.asList(firstId, secondId), leaseDuration));
+
+        Assert.assertThat(extendedCount, equalTo(2));
+        jdbcTemplate.query("select * from " + tableName + " where " + tableSchema.getIdField() + "=" + firstId, rs -> {
+            ZonedDateTime afterExecution = ZonedDateTime.now();
+            Assert.assertThat(rs.next(), equalTo(true));
+            ZonedDateTime nextProcessAt = ZonedDateTime.ofInstant(rs.getTimestamp(tableSchema.getNextProcessAtField()).toInstant(),
+                    ZoneId.systemDefault());
+            Assert.assertThat(nextProcessAt.isAfter(beforeExecution.plus(leaseDuration).minus(WINDOWS_OS_DELAY)), equalTo(true));
+            Assert.assertThat(nextProcessAt.isBefore(afterExecution.plus(leaseDuration).plus(WINDOWS_OS_DELAY)), equalTo(true));
+            Assert.assertThat(rs.getLong(tableSchema.getAttemptField()), equalTo(3L));
+            Assert.assertThat(rs.getLong(tableSchema.getReenqueueAttemptField()), equalTo(0L));
+            return new Object();
+        });
+    }
+
     @Test
     public void reenqueue_should_increment_reenqueue_attempts() {
         QueueLocation location = generateUniqueLocation();
@@ -186,6 +236,122 @@ public abstract class QueueDaoTest {
         Assert.assertThat(reenqueueResult, equalTo(false));
     }
 
+    @Test
+    public void count_tasks_should_count_tasks_of_queue() {
+        QueueLocation location = generateUniqueLocation();
+        QueueLocation otherLocation = generateUniqueLocation();
+        executeInTransaction(() -> queueDao.enqueue(location, new EnqueueParams<>()));
+        executeInTransaction(() -> queueDao.enqueue(location, new EnqueueParams<String>()
+                .withExecutionDelay(Duration.ofHours(1L))));
+        executeInTransaction(() -> queueDao.enqueue(otherLocation, new EnqueueParams<>()));
+
+        Long count = executeInTransaction(() -> queueDao.countTasks(location));
+        Assert.assertThat(count, equalTo(2L));
+    }
+
+    @Test
+    public void enqueue_if_absent_should_insert_task_once_per_deduplication_key() {
+        Assume.assumeTrue(tableSchema.getDeduplicationKeyField().isPresent());
+        QueueLocation location = generateUniqueLocation();
+
+        EnqueueOutcome first = executeInTransaction(() -> queueDao.enqueueIfAbsent(location,
+                EnqueueParams.create("first").withDeduplicationKey("key")));
+        EnqueueOutcome second = executeInTransaction(() -> queueDao.enqueueIfAbsent(location,
+                EnqueueParams.create("second").withDeduplicationKey("key")));
+
+        Assert.assertThat(first.getStatus(), equalTo(EnqueueStatus.CREATED));
+        Assert.assertThat(second, equalTo(EnqueueOutcome.duplicate(first.getTaskId())));
+        jdbcTemplate.query("select * from " + tableName + " where " + tableSchema.getQueueNameField() + "='" +
+                location.getQueueId().asString() + "'", rs -> {
+            Assert.assertThat(rs.next(), equalTo(true));
+            Assert.assertThat(rs.getString(tableSchema.getPayloadField()), equalTo("first"));
+            Assert.assertThat(rs.next(), equalTo(false));
+            return new Object();
+        });
+    }
+
+    @Test
+    public void enqueue_if_absent_should_insert_task_again_after_deletion() {
+        Assume.assumeTrue(tableSchema.getDeduplicationKeyField().isPresent());
+        QueueLocation location = generateUniqueLocation();
+
+        EnqueueOutcome first = executeInTransaction(() -> queueDao.enqueueIfAbsent(location,
+                EnqueueParams.create("first").withDeduplicationKey("key")));
+        executeInTransaction(() -> queueDao.deleteTask(location, first.getTaskId()));
+        EnqueueOutcome second = executeInTransaction(() -> queueDao.enqueueIfAbsent(location,
+                EnqueueParams.create("second").withDeduplicationKey("key")));
+
+        Assert.assertThat(second.getStatus(), equalTo(EnqueueStatus.CREATED));
+        Assert.assertThat(second.getTaskId(), not(equalTo(first.getTaskId())));
+    }
+
+    @Test
+    public void enqueue_if_absent_should_distinguish_queues_and_keys() {
+        Assume.assumeTrue(tableSchema.getDeduplicationKeyField().isPresent());
+        QueueLocation firstLocation = generateUniqueLocation();
+        QueueLocation secondLocation = generateUniqueLocation();
+
+        EnqueueOutcome first = executeInTransaction(() -> queueDao.enqueueIfAbsent(firstLocation,
+                EnqueueParams.create("first").withDeduplicationKey("key")));
+        EnqueueOutcome second = executeInTransaction(() -> queueDao.enqueueIfAbsent(secondLocation,
+                EnqueueParams.create("second").withDeduplicationKey("key")));
+        EnqueueOutcome third = executeInTransaction(() -> queueDao.enqueueIfAbsent(firstLocation,
+                EnqueueParams.create("third").withDeduplicationKey("other-key")));
+        long withoutKey = executeInTransaction(() -> queueDao.enqueue(firstLocation, EnqueueParams.create("fourth")));
+
+        Assert.assertThat(first.getStatus(), equalTo(EnqueueStatus.CREATED));
+        Assert.assertThat(second.getStatus(), equalTo(EnqueueStatus.CREATED));
+        Assert.assertThat(third.getStatus(), equalTo(EnqueueStatus.CREATED));
+        Assert.assertThat(withoutKey, not(equalTo(first.getTaskId())));
+    }
+
+    @Test
+    public void enqueue_or_coalesce_should_update_pending_task() {
+        Assume.assumeTrue(tableSchema.getCoalescingKeyField().isPresent());
+        QueueLocation location = generateUniqueLocation();
+
+        EnqueueOutcome first = executeInTransaction(() -> queueDao.enqueueOrCoalesce(location,
+                EnqueueParams.create("first").withCoalescingKey("key")));
+        EnqueueOutcome second = executeInTransaction(() -> queueDao.enqueueOrCoalesce(location,
+                EnqueueParams.create("second").withCoalescingKey("key").withExecutionDelay(Duration.ofHours(1L))));
+
+        Assert.assertThat(first.getStatus(), equalTo(EnqueueStatus.CREATED));
+        Assert.assertThat(second, equalTo(EnqueueOutcome.coalesced(first.getTaskId())));
+        jdbcTemplate.query("select * from " + tableName + " where " + tableSchema.getQueueNameField() + "='" +
+                location.getQueueId().asString() + "'", rs -> {
+            Assert.assertThat(rs.next(), equalTo(true));
+            Assert.assertThat(rs.getString(tableSchema.getPayloadField()), equalTo("second"));
+            ZonedDateTime nextProcessAt = ZonedDateTime.ofInstant(rs.getTimestamp(tableSchema.getNextProcessAtField()).toInstant(),
+                    ZoneId.systemDefault());
+            Assert.assertThat(nextProcessAt.isAfter(ZonedDateTime.now().plusMinutes(30L)), equalTo(true));
+            Assert.assertThat(rs.next(), equalTo(false));
+            return new Object();
+        });
+    }
+
+    @Test
+    public void enqueue_or_coalesce_should_not_update_picked_task() {
+        Assume.assumeTrue(tableSchema.getCoalescingKeyField().isPresent());
+        QueueLocation location = generateUniqueLocation();
+
+        EnqueueOutcome first = executeInTransaction(() -> queueDao.enqueueOrCoalesce(location,
+                EnqueueParams.create("first").withCoalescingKey("key")));
+        executeInTransaction(() -> {
+            jdbcTemplate.update("update " + tableName + " set " + tableSchema.getAttemptField() + "=1 where " +
+                    tableSchema.getIdField() + "=" + first.getTaskId());
+        });
+        EnqueueOutcome second = executeInTransaction(() -> queueDao.enqueueOrCoalesce(location,
+                EnqueueParams.create("second").withCoalescingKey("key")));
+
+        Assert.assertThat(second.getStatus(), equalTo(EnqueueStatus.CREATED));
+        Assert.assertThat(second.getTaskId(), not(equalTo(first.getTaskId())));
+        jdbcTemplate.query("select * from " + tableName + " where " + tableSchema.getIdField() + "=" + first.getTaskId(), rs -> {
+            Assert.assertThat(rs.next(), equalTo(true));
+            Assert.assertThat(rs.getString(tableSchema.getPayloadField()), equalTo("first"));
+            return new Object();
+        });
+    }
+
     protected QueueLocation generateUniqueLocation() {
         return QueueLocation.builder().withTableName(tableName)
                 .withQueueId(new QueueId("test-queue-" + UUID.randomUUID())).build();
@@ -1,6 +1,7 @@
 package ru.yoomoney.tech.dbqueue.spring.dao;
 
 import org.junit.Assert;
+import org.junit.Assume;
 import org.junit.Ignore;
 import org.junit.Test;
 import org.springframework.jdbc.core.JdbcTemplate;
@@ -20,7 +21,16 @@ import ru.yoomoney.tech.dbqueue.settings.QueueLocation;
 import java.math.BigInteger;
 import java.time.Duration;
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
 import java.util.function.BiFunction;
 import java.util.function.Supplier;
@@ -207,6 +217,212 @@ public abstract class QueuePickTaskDaoTest {
         }
     }
 
+    @Test
+    public void should_pick_task_by_priority() {
+        Assume.assumeTrue(tableSchema.getPriorityField().isPresent());
+        QueueLocation location = generateUniqueLocation();
+        executeInTransaction(() -> queueDao.enqueue(location, EnqueueParams.create("low")));
+        long highPriorityId = executeInTransaction(() -> queueDao.enqueue(location,
+                EnqueueParams.create("high").withPriority(10)));
+        QueuePickTaskDao pickTaskDao = pickTaskDaoFactory.apply(location, FailureSettings.builder()
+                .withRetryType(FailRetryType.LINEAR_BACKOFF)
+                .withRetryInterval(Duration.ofMinutes(1)).build());
+
+        Assert.assertThat(executeInTransaction(() -> pickTaskDao.pickTaskByPriority(5)), is(nullValue()));
+        TaskRecord taskRecord = executeInTransaction(() -> pickTaskDao.pickTaskByPriority(10));
+        Assert.assertThat(taskRecord, is(not(nullValue())));
+        Objects.requireNonNull(taskRecord);
+        Assert.assertThat(taskRecord.getId(), equalTo(highPriorityId));
+        Assert.assertThat(taskRecord.getPayload(), equalTo("high"));
+        Assert.assertThat(taskRecord.getPriority(), equalTo(10));
+        Assert.assertThat(executeInTransaction(() -> pickTaskDao.pickTaskByPriority(10)), is(nullValue()));
+
+        TaskRecord lowPriorityTask = executeInTransaction(() -> pickTaskDao.pickTask());
+        Assert.assertThat(lowPriorityTask, is(not(nullValue())));
+        Objects.requireNonNull(lowPriorityTask);
+        Assert.assertThat(lowPriorityTask.getPayload(), equalTo("low"));
+        Assert.assertThat(lowPriorityTask.getPriority(), equalTo(0));
+    }
+
+    @Test
+    public void should_skip_tasks_with_saturated_concurrency_key() {
+        Assume.assumeTrue(tableSchema.getConcurrencyKeyField().isPresent());
+        String keyField = tableSchema.getConcurrencyKeyField().get();
+        QueueLocation location = generateUniqueLocation();
+        long firstId = executeInTransaction(() -> queueDao.enqueue(location,
+                EnqueueParams.create("merchant").withExtData(keyField, "merchant")));
+        long secondId = executeInTransaction(() -> queueDao.enqueue(location,
+                EnqueueParams.create("merchant").withExtData(keyField, "merchant")));
+        long otherKeyId = executeInTransaction(() -> queueDao.enqueue(location,
+                EnqueueParams.create("other").withExtData(keyField, "other")));
+        long noKeyId = executeInTransaction(() -> queueDao.enqueue(location, EnqueueParams.create("nokey")));
+        QueuePickTaskDao pickTaskDao = pickTaskDaoFactory.apply(location, FailureSettings.builder()
+                .withRetryType(FailRetryType.LINEAR_BACKOFF)
+                .withRetryInterval(Duration.ofMinutes(1)).build());
+
+        List<String> pickedPayloads = new ArrayList<>();
+        Set<Long> pickedIds = new HashSet<>();
+        TaskRecord taskRecord;
+        while ((taskRecord = executeInTransaction(() -> pickTaskDao.pickTaskWithKeyLimit(null, 1))) != null) {
+            pickedPayloads.add(taskRecord.getPayload());
+            pickedIds.add(taskRecord.getId());
+        }
+        Collections.sort(pickedPayloads);
+        Assert.assertThat(pickedPayloads, equalTo(Arrays.asList("merchant", "nokey", "other")));
+
+        TaskRecord secondTask = executeInTransaction(() -> pickTaskDao.pickTaskWithKeyLimit(null, 2));
+        Assert.assertThat(secondTask, is(not(nullValue())));
+        Objects.requireNonNull(secondTask);
+        pickedIds.add(secondTask.getId());
+        Assert.assertThat(pickedIds, equalTo(new HashSet<>(Arrays.asList(firstId, secondId, otherKeyId, noKeyId))));
+    }
+
+    @Test
+    public void should_not_count_failed_tasks_waiting_for_retry_against_concurrency_key() {
+        Assume.assumeTrue(tableSchema.getConcurrencyKeyField().isPresent());
+        String keyField = tableSchema.getConcurrencyKeyField().get();
+        QueueLocation location = generateUniqueLocation();
+        long firstId = executeInTransaction(() -> queueDao.enqueue(location,
+                EnqueueParams.create("first").withExtData(keyField, "merchant")));
+        long secondId = executeInTransaction(() -> queueDao.enqueue(location,
+                EnqueueParams.create("second").withExtData(keyField, "merchant")));
+        QueuePickTaskDao pickTaskDao = pickTaskDaoFactory.apply(location, FailureSettings.builder()
+                .withRetryType(FailRetryType.LINEAR_BACKOFF)
+                .withRetryInterval(Duration.ofMinutes(1)).build());
+
+        TaskRecord firstTask = executeInTransaction(() -> pickTaskDao.pickTaskWithKeyLimit(null, 1));
+        Assert.assertThat(firstTask, is(not(nullValue())));
+        Assert.assertThat(Objects.requireNonNull(firstTask).getId(), equalTo(firstId));
+        Assert.assertThat(executeInTransaction(() -> pickTaskDao.pickTaskWithKeyLimit(null, 1)), is(nullValue()));
+
+        executeInTransaction(() -> queueDao.extendLeases(location, Collections.singletonList(firstId),
+                Duration.ofHours(1)));
+        TaskRecord secondTask = executeInTransaction(() -> pickTaskDao.pickTaskWithKeyLimit(null, 1));
+        Assert.assertThat(secondTask, is(not(nullValue())));
+        Assert.assertThat(Objects.requireNonNull(secondTask).getId(), equalTo(secondId));
+    }
+
+    @Test
+    public void should_pick_oldest_task_of_concurrency_key() {
+        Assume.assumeTrue(tableSchema.getConcurrencyKeyField().isPresent());
+        String keyField = tableSchema.getConcurrencyKeyField().get();
+        QueueLocation location = generateUniqueLocation();
+        long firstId = executeInTransaction(() -> queueDao.enqueue(location,
+                EnqueueParams.create("first").withExtData(keyField, "entity")));
+        long secondId = executeInTransaction(() -> queueDao.enqueue(location,
+                EnqueueParams.create("second").withExtData(keyField, "entity")));
+        long otherKeyId = executeInTransaction(() -> queueDao.enqueue(location,
+                EnqueueParams.create("other").withExtData(keyField, "other")));
+        QueuePickTaskDao pickTaskDao = pickTaskDaoFactory.apply(location, FailureSettings.builder()
+                .withRetryType(FailRetryType.LINEAR_BACKOFF)
+                .withRetryInterval(Duration.ofMinutes(1)).build());
+
+        Set<Long> pickedIds = new HashSet<>();
+        TaskRecord taskRecord;
+        while ((taskRecord = executeInTransaction(() -> pickTaskDao.pickTaskInKeyOrder(null))) != null) {
+            pickedIds.add(taskRecord.getId());
+        }
+        Assert.assertThat(pickedIds, equalTo(new HashSet<>(Arrays.asList(firstId, otherKeyId))));
+
+        executeInTransaction(() -> queueDao.deleteTask(location, firstId));
+        TaskRecord secondTask = executeInTransaction(() -> pickTaskDao.pickTaskInKeyOrder(null));
+        Assert.assertThat(secondTask, is(not(nullValue())));
+        Objects.requireNonNull(secondTask);
+        Assert.assertThat(secondTask.getId(), equalTo(secondId));
+    }
+
+    @Test
+    public void should_pick_tasks_of_queue_group() {
+        QueueLocation firstLocation = generateUniqueLocation();
+        QueueLocation secondLocation = generateUniqueLocation();
+        QueueLocation foreignLocation = generateUniqueLocation();
+        long firstId = executeInTransaction(() -> queueDao.enqueue(firstLocation, EnqueueParams.create("first")));
+        long secondId = executeInTransaction(() -> queueDao.enqueue(secondLocation, EnqueueParams.create("second")));
+        executeInTransaction(() -> queueDao.enqueue(foreignLocation, EnqueueParams.create("foreign")));
+        QueuePickTaskDao pickTaskDao = createQueueGroupPickTaskDao(generateUniqueLocation(),
+                Arrays.asList(firstLocation.getQueueId(), secondLocation.getQueueId()),
+                FailureSettings.builder()
+                        .withRetryType(FailRetryType.LINEAR_BACKOFF)
+                        .withRetryInterval(Duration.ofMinutes(1)).build());
+
+        Map<Long, QueueId> pickedTasks = new HashMap<>();
+        for (int i = 0; i < 2; i++) {
+            TaskRecord taskRecord = executeInTransaction(() -> pickTaskDao.pickTask());
+            Assert.assertThat(taskRecord, is(not(nullValue())));
+            Objects.requireNonNull(taskRecord);
+            pickedTasks.put(taskRecord.getId(), taskRecord.getQueueId().orElse(null));
+        }
+        Map<Long, QueueId> expectedTasks = new HashMap<>();
+        expectedTasks.put(firstId, firstLocation.getQueueId());
+        expectedTasks.put(secondId, secondLocation.getQueueId());
+        Assert.assertThat(pickedTasks, equalTo(expectedTasks));
+        Assert.assertThat(executeInTransaction(() -> pickTaskDao.pickTask()), is(nullValue()));
+    }
+
+    @Test
+    public void should_delete_task_on_pick() {
+        QueueLocation location = generateUniqueLocation();
+        long enqueueId = executeInTransaction(() -> queueDao.enqueue(location, EnqueueParams.create("{}")));
+        QueuePickTaskDao pickTaskDao = pickTaskDaoFactory.apply(location, FailureSettings.builder()
+                .withRetryType(FailRetryType.LINEAR_BACKOFF)
+                .withRetryInterval(Duration.ofMinutes(1)).build());
+
+        TaskRecord taskRecord = executeInTransaction(pickTaskDao::pickAndDeleteTask);
+        Assert.assertThat(taskRecord, is(not(nullValue())));
+        Objects.requireNonNull(taskRecord);
+        Assert.assertThat(taskRecord.getId(), equalTo(enqueueId));
+        Assert.assertThat(taskRecord.getPayload(), equalTo("{}"));
+        Assert.assertThat(taskRecord.getAttemptsCount(), equalTo(1L));
+        Assert.assertThat(taskRecord.getTotalAttemptsCount(), equalTo(1L));
+        Assert.assertThat(jdbcTemplate.queryForObject("select count(*) from " + tableName +
+                " where " + tableSchema.getIdField() + "=" + enqueueId, Long.class), equalTo(0L));
+        Assert.assertThat(executeInTransaction(pickTaskDao::pickAndDeleteTask), is(nullValue()));
+    }
+
+    @Test
+    public void should_delete_previous_task_and_pick_next_task() {
+        QueueLocation location = generateUniqueLocation();
+        QueuePickTaskDao pickTaskDao = pickTaskDaoFactory.apply(location, FailureSettings.builder()
+                .withRetryType(FailRetryType.LINEAR_BACKOFF)
+                .withRetryInterval(Duration.ofMinutes(1)).build());
+        Assume.assumeTrue(pickTaskDao.isCompleteAndPickSupported());
+        long firstId = executeInTransaction(() -> queueDao.enqueue(location, EnqueueParams.create("first")));
+        long secondId = executeInTransaction(() -> queueDao.enqueue(location, EnqueueParams.create("second")));
+
+        TaskRecord firstTask = executeInTransaction(pickTaskDao::pickTask);
+        Assert.assertThat(firstTask.getId(), equalTo(firstId));
+        TaskRecord secondTask = executeInTransaction(() -> pickTaskDao.deleteAndPickTask(firstId));
+        Assert.assertThat(secondTask.getId(), equalTo(secondId));
+        Assert.assertThat(secondTask.getAttemptsCount(), equalTo(1L));
+        Assert.assertThat(jdbcTemplate.queryForObject("select count(*) from " + tableName +
+                " where " + tableSchema.getIdField() + "=" + firstId, Long.class), equalTo(0L));
+
+        Assert.assertThat(executeInTransaction(() -> pickTaskDao.deleteAndPickTask(secondId)), is(nullValue()));
+        Assert.assertThat(jdbcTemplate.queryForObject("select count(*) from " + tableName +
+                " where " + tableSchema.getIdField() + "=" + secondId, Long.class), equalTo(0L));
+    }
+
+    @Test
+    public void should_reenqueue_previous_task_and_pick_next_task() {
+        QueueLocation location = generateUniqueLocation();
+        QueuePickTaskDao pickTaskDao = pickTaskDaoFactory.apply(location, FailureSettings.builder()
+                .withRetryType(FailRetryType.LINEAR_BACKOFF)
+                .withRetryInterval(Duration.ofMinutes(1)).build());
+        Assume.assumeTrue(pickTaskDao.isCompleteAndPickSupported());
+        long firstId = executeInTransaction(() -> queueDao.enqueue(location, EnqueueParams.create("first")));
+
+        TaskRecord firstTask = executeInTransaction(pickTaskDao::pickTask);
+        Assert.assertThat(firstTask.getId(), equalTo(firstId));
+        Assert.assertThat(executeInTransaction(() -> pickTaskDao.reenqueueAndPickTask(firstId, Duration.ZERO)),
+                is(nullValue()));
+
+        TaskRecord reenqueuedTask = executeInTransaction(pickTaskDao::pickTask);
+        Assert.assertThat(reenqueuedTask.getId(), equalTo(firstId));
+        Assert.assertThat(reenqueuedTask.getAttemptsCount(), equalTo(1L));
+        Assert.assertThat(reenqueuedTask.getReenqueueAttemptsCount(), equalTo(1L));
+        Assert.assertThat(reenqueuedTask.getTotalAttemptsCount(), equalTo(2L));
+    }
+
     private TaskRecord resetProcessTimeAndPick(QueuePickTaskDao pickTaskDao, Long enqueueId) {
         executeInTransaction(() -> {
             jdbcTemplate.update("update " + tableName +
@@ -228,6 +444,10 @@ public abstract class QueuePickTaskDaoTest {
 
     protected abstract String currentTimeSql();
 
+    protected abstract QueuePickTaskDao createQueueGroupPickTaskDao(QueueLocation groupLocation,
+                                                                    Collection<QueueId> queueIds,
+                                                                    FailureSettings failureSettings);
+
     protected QueueLocation generateUniqueLocation() {
         return QueueLocation.builder().withTableName(tableName)
                 .withQueueId(new QueueId("test-queue-" + UUID.randomUUID())).build();
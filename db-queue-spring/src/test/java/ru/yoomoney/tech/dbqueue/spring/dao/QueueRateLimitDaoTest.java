@@ -0,0 +1,72 @@
+package ru.yoomoney.tech.dbqueue.spring.dao;
+
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yoomoney.tech.dbqueue.dao.QueueRateLimitDao;
+import ru.yoomoney.tech.dbqueue.settings.QueueId;
+
+import java.util.UUID;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+public abstract class QueueRateLimitDaoTest {
+
+    protected final JdbcTemplate jdbcTemplate;
+    protected final String tableName;
+    protected final QueueRateLimitDao rateLimitDao;
+
+    public QueueRateLimitDaoTest(JdbcTemplate jdbcTemplate, String tableName) {
+        this(jdbcTemplate, tableName, new SpringQueueRateLimitDao(jdbcTemplate));
+    }
+
+    public QueueRateLimitDaoTest(JdbcTemplate jdbcTemplate, String tableName, QueueRateLimitDao rateLimitDao) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.tableName = tableName;
+        this.rateLimitDao = rateLimitDao;
+    }
+
+    @Test
+    public void should_report_full_bucket_before_first_permit() {
+        QueueId queueId = new QueueId("test-queue-" + UUID.randomUUID());
+
+        assertThat(rateLimitDao.getAvailablePermits(tableName, queueId, 2.0, 1_000_000L), equalTo(2.0));
+        assertThat(rateLimitDao.getAvailablePermits(tableName, queueId, 0.5, 1_000_000L), equalTo(1.0));
+    }
+
+    @Test
+    public void should_take_permits_and_overdraw_bucket() {
+        QueueId queueId = new QueueId("test-queue-" + UUID.randomUUID());
+        long now = 1_000_000L;
+
+        rateLimitDao.takePermit(tableName, queueId, 2.0, now);
+        assertThat(rateLimitDao.getAvailablePermits(tableName, queueId, 2.0, now), equalTo(1.0));
+        rateLimitDao.takePermit(tableName, queueId, 2.0, now);
+        rateLimitDao.takePermit(tableName, queueId, 2.0, now);
+        assertThat(rateLimitDao.getAvailablePermits(tableName, queueId, 2.0, now), equalTo(-1.0));
+    }
+
+    @Test
+    public void should_refill_permits_with_time() {
+        QueueId queueId = new QueueId("test-queue-" + UUID.randomUUID());
+        long now = 1_000_000L;
+
+        rateLimitDao.takePermit(tableName, queueId, 1.0, now);
+        assertThat(rateLimitDao.getAvailablePermits(tableName, queueId, 1.0, now + 500L), equalTo(0.5));
+        assertThat(rateLimitDao.getAvailablePermits(tableName, queueId, 1.0, now + 5000L), equalTo(1.0));
+        rateLimitDao.takePermit(tableName, queueId, 1.0, now + 1000L);
+        assertThat(rateLimitDao.getAvailablePermits(tableName, queueId, 1.0, now + 1000L), equalTo(0.0));
+    }
+
+    @Test
+    public void should_not_refill_when_clock_goes_back() {
+        QueueId queueId = new QueueId("test-queue-" + UUID.randomUUID());
+        long now = 1_000_000L;
+
+        rateLimitDao.takePermit(tableName, queueId, 1.0, now);
+        assertThat(rateLimitDao.getAvailablePermits(tableName, queueId, 1.0, now - 5000L), equalTo(0.0));
+        rateLimitDao.takePermit(tableName, queueId, 1.0, now - 5000L);
+        assertThat(rateLimitDao.getAvailablePermits(tableName, queueId, 1.0, now), equalTo(-1.0));
+        assertThat(rateLimitDao.getAvailablePermits(tableName, queueId, 1.0, now + 2000L), equalTo(1.0));
+    }
+}
@@ -0,0 +1,50 @@
+package ru.yoomoney.tech.dbqueue.spring.dao;
+
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yoomoney.tech.dbqueue.dao.QueueSettingsDao;
+
+import java.util.Map;
+import java.util.UUID;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+public abstract class QueueSettingsDaoTest {
+
+    protected final JdbcTemplate jdbcTemplate;
+    protected final String tableName;
+    protected final QueueSettingsDao settingsDao;
+
+    public QueueSettingsDaoTest(JdbcTemplate jdbcTemplate, String tableName) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.tableName = tableName;
+        this.settingsDao = new SpringQueueSettingsDao(jdbcTemplate);
+    }
+
+    @Test
+    public void should_load_settings() {
+        String queueId = "test-queue-" + UUID.randomUUID();
+        insertSetting("q." + queueId + ".thread-count", "3", 1L);
+        insertSetting("q." + queueId + ".table", "foo", 1L);
+
+        Map<String, String> settings = settingsDao.loadSettings(tableName);
+
+        assertThat(settings.get("q." + queueId + ".thread-count"), equalTo("3"));
+        assertThat(settings.get("q." + queueId + ".table"), equalTo("foo"));
+    }
+
+    @Test
+    public void should_return_maximum_version() {
+        long version = settingsDao.getSettingsVersion(tableName);
+        insertSetting("q.test-queue-" + UUID.randomUUID() + ".thread-count", "1", version + 5L);
+        insertSetting("q.test-queue-" + UUID.randomUUID() + ".thread-count", "1", version + 2L);
+
+        assertThat(settingsDao.getSettingsVersion(tableName), equalTo(version + 5L));
+    }
+
+    private void insertSetting(String name, String value, long version) {
+        jdbcTemplate.update("INSERT INTO " + tableName + " (setting_name, setting_value, version) VALUES (?, ?, ?)",
+                name, value, version);
+    }
+}
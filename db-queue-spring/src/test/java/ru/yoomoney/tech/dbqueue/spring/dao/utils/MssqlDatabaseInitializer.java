@@ -22,6 +22,9 @@ public class MssqlDatabaseInitializer {
     public static final String DEFAULT_TABLE_NAME = "queue_default";
     public static final String DEFAULT_TABLE_NAME_WO_IDENT = "queue_default_wo_ident";
     public static final String CUSTOM_TABLE_NAME = "queue_custom";
+    public static final String RATE_LIMIT_TABLE_NAME = "queue_rate_limits";
+    public static final String SETTINGS_TABLE_NAME = "queue_settings";
+    public static final String CONTROL_TABLE_NAME = "queue_control";
     public static final QueueTableSchema DEFAULT_SCHEMA = QueueTableSchema.builder().build();
     public static final QueueTableSchema CUSTOM_SCHEMA = QueueTableSchema.builder()
             .withIdField("qid")
@@ -33,6 +36,10 @@ public class MssqlDatabaseInitializer {
             .withReenqueueAttemptField("rat")
             .withTotalAttemptField("tat")
             .withExtFields(Collections.singletonList("trace"))
+            .withDeduplicationKeyField("dk")
+            .withCoalescingKeyField("ck")
+            .withPriorityField("pr")
+            .withConcurrencyKeyField("trace")
             .build();
 
     private static final String MS_CUSTOM_TABLE_DDL = "CREATE TABLE %s (\n" +
@@ -44,11 +51,20 @@ public class MssqlDatabaseInitializer {
             "  at    integer not null         default 0,\n" +
             "  rat   integer not null         default 0,\n" +
             "  tat   integer not null         default 0,\n" +
-            "  trace text \n" +
+            "  trace text,\n" +
+            "  dk    varchar(127),\n" +
+            "  ck    varchar(127),\n" +
+            "  pr    integer not null         default 0 \n" +
             "  primary key (qid)\n" +
             ");" +
             "CREATE INDEX %s_name_time_desc_idx\n" +
             "  ON %s (qn, pt, qid DESC);\n" +
+            "CREATE UNIQUE INDEX %1$s_dedup_idx\n" +
+            "  ON %1$s (qn, dk) WHERE dk IS NOT NULL;\n" +
+            "CREATE INDEX %1$s_coalesce_idx\n" +
+            "  ON %1$s (qn, ck);\n" +
+            "CREATE INDEX %1$s_priority_idx\n" +
+            "  ON %1$s (qn, pr, pt);\n" +
             "\n";
 
     private static final String MS_DEFAULT_TABLE_DDL = "CREATE TABLE %s (\n" +
@@ -81,6 +97,23 @@ public class MssqlDatabaseInitializer {
             "  ON %s (queue_name, next_process_at, id DESC);\n" +
             "\n";
 
+    private static final String MS_RATE_LIMIT_TABLE_DDL = "CREATE TABLE %s (\n" +
+            "  queue_name  VARCHAR(100) PRIMARY KEY,\n" +
+            "  tokens      FLOAT NOT NULL,\n" +
+            "  refilled_at BIGINT NOT NULL\n" +
+            ")";
+
+    private static final String MS_SETTINGS_TABLE_DDL = "CREATE TABLE %s (\n" +
+            "  setting_name  VARCHAR(255) PRIMARY KEY,\n" +
+            "  setting_value VARCHAR(1000),\n" +
+            "  version       BIGINT NOT NULL\n" +
+            ")";
+
+    private static final String MS_CONTROL_TABLE_DDL = "CREATE TABLE %s (\n" +
+            "  queue_name VARCHAR(128) PRIMARY KEY,\n" +
+            "  state      VARCHAR(32) NOT NULL\n" +
+            ")";
+
     private static JdbcTemplate msJdbcTemplate;
     private static TransactionTemplate msTransactionTemplate;
 
@@ -116,6 +149,9 @@ public class MssqlDatabaseInitializer {
         createTable(MS_DEFAULT_TABLE_DDL, DEFAULT_TABLE_NAME);
         createTable(MS_DEFAULT_WO_IDENT_TABLE_DDL, DEFAULT_TABLE_NAME_WO_IDENT);
         createTable(MS_CUSTOM_TABLE_DDL, CUSTOM_TABLE_NAME);
+        createTable(MS_RATE_LIMIT_TABLE_DDL, RATE_LIMIT_TABLE_NAME);
+        createTable(MS_SETTINGS_TABLE_DDL, SETTINGS_TABLE_NAME);
+        createTable(MS_CONTROL_TABLE_DDL, CONTROL_TABLE_NAME);
     }
 
     private static void createTable(String ddlTemplate, String tableName) {
@@ -0,0 +1,138 @@
+package ru.yoomoney.tech.dbqueue.spring.dao.utils;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.MariaDBContainer;
+import org.testcontainers.utility.TestcontainersConfiguration;
+import ru.yoomoney.tech.dbqueue.config.QueueTableSchema;
+
+import java.util.Collections;
+import java.util.Optional;
+
+/**
+ * @author Oleg Kandaurov
+ * @since 19.10.2026
+ */
+public class MysqlDatabaseInitializer {
+
+    public static final String DEFAULT_TABLE_NAME = "queue_default";
+    public static final String CUSTOM_TABLE_NAME = "queue_custom";
+    public static final String RATE_LIMIT_TABLE_NAME = "queue_rate_limits";
+    public static final String SETTINGS_TABLE_NAME = "queue_settings";
+    public static final String CONTROL_TABLE_NAME = "queue_control";
+    public static final QueueTableSchema DEFAULT_SCHEMA = QueueTableSchema.builder().build();
+    public static final QueueTableSchema CUSTOM_SCHEMA = QueueTableSchema.builder()
+            .withIdField("qid")
+            .withQueueNameField("qn")
+            .withPayloadField("pl")
+            .withCreatedAtField("ct")
+            .withNextProcessAtField("pt")
+            .withAttemptField("at")
+            .withReenqueueAttemptField("rat")
+            .withTotalAttemptField("tat")
+            .withExtFields(Collections.singletonList("trace"))
+            .withDeduplicationKeyField("dk")
+            .withCoalescingKeyField("ck")
+            .withPriorityField("pr")
+            .withConcurrencyKeyField("trace")
+            .build();
+
+    private static final String MY_CUSTOM_TABLE_DDL = "CREATE TABLE %s (\n" +
+            "  qid   BIGINT       NOT NULL AUTO_INCREMENT,\n" +
+            "  qn    VARCHAR(127) NOT NULL,\n" +
+            "  pl    TEXT,\n" +
+            "  ct    TIMESTAMP(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6),\n" +
+            "  pt    TIMESTAMP(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6),\n" +
+            "  at    INTEGER      NOT NULL DEFAULT 0,\n" +
+            "  rat   INTEGER      NOT NULL DEFAULT 0,\n" +
+            "  tat   INTEGER      NOT NULL DEFAULT 0,\n" +
+            "  trace VARCHAR(512),\n" +
+            "  dk    VARCHAR(127),\n" +
+            "  ck    VARCHAR(127),\n" +
+            "  pr    INTEGER      NOT NULL DEFAULT 0,\n" +
+            "  PRIMARY KEY (qid),\n" +
+            "  INDEX %s_name_time_idx (qn, pt, qid),\n" +
+            "  UNIQUE INDEX %1$s_dedup_idx (qn, dk),\n" +
+            "  INDEX %1$s_coalesce_idx (qn, ck),\n" +
+            "  INDEX %1$s_priority_idx (qn, pr, pt)\n" +
+            ")";
+
+    private static final String MY_DEFAULT_TABLE_DDL = "CREATE TABLE %s (\n" +
+            "  id                BIGINT       NOT NULL AUTO_INCREMENT,\n" +
+            "  queue_name        VARCHAR(127) NOT NULL,\n" +
+            "  payload           TEXT,\n" +
+            "  created_at        TIMESTAMP(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6),\n" +
+            "  next_process_at   TIMESTAMP(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6),\n" +
+            "  attempt           INTEGER      NOT NULL DEFAULT 0,\n" +
+            "  reenqueue_attempt INTEGER      NOT NULL DEFAULT 0,\n" +
+            "  total_attempt     INTEGER      NOT NULL DEFAULT 0,\n" +
+            "  PRIMARY KEY (id),\n" +
+            "  INDEX %s_name_time_idx (queue_name, next_process_at, id)\n" +
+            ")";
+
+    private static final String MY_RATE_LIMIT_TABLE_DDL = "CREATE TABLE %s (\n" +
+            "  queue_name  VARCHAR(100) PRIMARY KEY,\n" +
+            "  tokens      DOUBLE NOT NULL,\n" +
+            "  refilled_at BIGINT NOT NULL\n" +
+            ")";
+
+    private static final String MY_SETTINGS_TABLE_DDL = "CREATE TABLE %s (\n" +
+            "  setting_name  VARCHAR(255) PRIMARY KEY,\n" +
+            "  setting_value VARCHAR(1000),\n" +
+            "  version       BIGINT NOT NULL\n" +
+            ")";
+
+    private static final String MY_CONTROL_TABLE_DDL = "CREATE TABLE %s (\n" +
+            "  queue_name VARCHAR(128) PRIMARY KEY,\n" +
+            "  state      VARCHAR(32) NOT NULL\n" +
+            ")";
+
+    private static JdbcTemplate myJdbcTemplate;
+    private static TransactionTemplate myTransactionTemplate;
+
+    public static synchronized void initialize() {
+        if (myJdbcTemplate != null) {
+            return;
+        }
+
+        String ryukImage = Optional.ofNullable(System.getProperty("testcontainers.ryuk.container.image"))
+                .orElse("quay.io/testcontainers/ryuk:0.2.3");
+        TestcontainersConfiguration.getInstance()
+                .updateGlobalConfig("ryuk.container.image", ryukImage);
+
+        String mariadbImage = Optional.ofNullable(System.getProperty("testcontainers.mariadb.container.image"))
+                .orElse("mariadb:10.6");
+        MariaDBContainer<?> dbContainer = new MariaDBContainer<>(mariadbImage);
+        dbContainer.start();
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(dbContainer.getJdbcUrl(),
+                dbContainer.getUsername(), dbContainer.getPassword());
+        myJdbcTemplate = new JdbcTemplate(dataSource);
+        myTransactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        myTransactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_READ_COMMITTED);
+        myTransactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRED);
+
+        createTable(MY_DEFAULT_TABLE_DDL, DEFAULT_TABLE_NAME);
+        createTable(MY_CUSTOM_TABLE_DDL, CUSTOM_TABLE_NAME);
+        createTable(MY_RATE_LIMIT_TABLE_DDL, RATE_LIMIT_TABLE_NAME);
+        createTable(MY_SETTINGS_TABLE_DDL, SETTINGS_TABLE_NAME);
+        createTable(MY_CONTROL_TABLE_DDL, CONTROL_TABLE_NAME);
+    }
+
+    private static void createTable(String ddlTemplate, String tableName) {
+        initialize();
+        getJdbcTemplate().execute(String.format(ddlTemplate, tableName, tableName));
+    }
+
+    public static JdbcTemplate getJdbcTemplate() {
+        initialize();
+        return myJdbcTemplate;
+    }
+
+    public static TransactionTemplate getTransactionTemplate() {
+        initialize();
+        return myTransactionTemplate;
+    }
+}
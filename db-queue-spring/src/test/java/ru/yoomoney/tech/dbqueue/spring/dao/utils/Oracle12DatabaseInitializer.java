@@ -0,0 +1,161 @@
+package ru.yoomoney.tech.dbqueue.spring.dao.utils;
+
+import oracle.jdbc.pool.OracleDataSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.OracleContainer;
+import org.testcontainers.utility.TestcontainersConfiguration;
+import ru.yoomoney.tech.dbqueue.config.QueueTableSchema;
+
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.Optional;
+
+/**
+ * @author Oleg Kandaurov
+ * @since 19.10.2026
+ */
+public class Oracle12DatabaseInitializer {
+
+    public static final String DEFAULT_TABLE_NAME = "queue_default";
+    public static final String DEFAULT_TABLE_NAME_WO_IDENT = "queue_default_wo_ident";
+    public static final String CUSTOM_TABLE_NAME = "queue_custom";
+    public static final QueueTableSchema DEFAULT_SCHEMA = QueueTableSchema.builder().build();
+    public static final QueueTableSchema CUSTOM_SCHEMA = QueueTableSchema.builder()
+            .withIdField("qid")
+            .withQueueNameField("qn")
+            .withPayloadField("pl")
+            .withCreatedAtField("ct")
+            .withNextProcessAtField("pt")
+            .withAttemptField("att")
+            .withReenqueueAttemptField("rat")
+            .withTotalAttemptField("tat")
+            .withExtFields(Collections.singletonList("trace"))
+            .withDeduplicationKeyField("dk")
+            .withCoalescingKeyField("ck")
+            .withPriorityField("pr")
+            .withConcurrencyKeyField("trace")
+            .build();
+
+    private static final String ORA_CUSTOM_TABLE_DDL = "CREATE TABLE %s (\n" +
+            "  qid    NUMBER(38) GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,\n" +
+            "  qn     VARCHAR2(128) NOT NULL,\n" +
+            "  pl     CLOB,\n" +
+            "  ct     TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP,\n" +
+            "  pt     TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP,\n" +
+            "  att    NUMBER(38)                  DEFAULT 0,\n" +
+            "  rat    NUMBER(38)                  DEFAULT 0,\n" +
+            "  tat    NUMBER(38)                  DEFAULT 0,\n" +
+            "  trace  VARCHAR2(512),\n" +
+            "  dk     VARCHAR2(128),\n" +
+            "  ck     VARCHAR2(128),\n" +
+            "  pr     NUMBER(38)                  DEFAULT 0\n" +
+            ")";
+
+    private static final String ORA_CUSTOM_NAME_TIME_INDEX_DDL = "CREATE INDEX %1$s_name_time_idx\n" +
+            "  ON %1$s (qn, pt, qid)";
+
+    private static final String ORA_CUSTOM_DEDUP_INDEX_DDL = "CREATE UNIQUE INDEX %1$s_dedup_idx\n" +
+            "  ON %1$s (CASE WHEN dk IS NOT NULL THEN qn END, dk)";
+
+    private static final String ORA_CUSTOM_COALESCE_INDEX_DDL = "CREATE INDEX %1$s_coalesce_idx\n" +
+            "  ON %1$s (qn, ck)";
+
+    private static final String ORA_CUSTOM_PRIORITY_INDEX_DDL = "CREATE INDEX %1$s_priority_idx\n" +
+            "  ON %1$s (qn, pr, pt)";
+
+    private static final String ORA_DEFAULT_TABLE_DDL = "CREATE TABLE %s (\n" +
+            "  id                NUMBER(38) GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,\n" +
+            "  queue_name        VARCHAR2(128) NOT NULL,\n" +
+            "  payload           CLOB,\n" +
+            "  created_at        TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP,\n" +
+            "  next_process_at   TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP,\n" +
+            "  attempt           NUMBER(38)                  DEFAULT 0,\n" +
+            "  reenqueue_attempt NUMBER(38)                  DEFAULT 0,\n" +
+            "  total_attempt     NUMBER(38)                  DEFAULT 0\n" +
+            ")";
+
+    private static final String ORA_DEFAULT_WO_IDENT_TABLE_DDL = "CREATE TABLE %s (\n" +
+            "  id                NUMBER(38) NOT NULL PRIMARY KEY,\n" +
+            "  queue_name        VARCHAR2(128) NOT NULL,\n" +
+            "  payload           CLOB,\n" +
+            "  created_at        TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP,\n" +
+            "  next_process_at   TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP,\n" +
+            "  attempt           NUMBER(38)                  DEFAULT 0,\n" +
+            "  reenqueue_attempt NUMBER(38)                  DEFAULT 0,\n" +
+            "  total_attempt     NUMBER(38)                  DEFAULT 0\n" +
+            ")";
+
+    private static final String ORA_DEFAULT_NAME_TIME_INDEX_DDL = "CREATE INDEX %1$s_name_time_idx\n" +
+            "  ON %1$s (queue_name, next_process_at, id)";
+
+    private static JdbcTemplate oraJdbcTemplate;
+    private static TransactionTemplate oraTransactionTemplate;
+
+    public static synchronized void initialize() {
+        if (oraJdbcTemplate != null) {
+            return;
+        }
+
+        String ryukImage = Optional.ofNullable(System.getProperty("testcontainers.ryuk.container.image"))
+                .orElse("quay.io/testcontainers/ryuk:0.2.3");
+        TestcontainersConfiguration.getInstance()
+                .updateGlobalConfig("ryuk.container.image", ryukImage);
+
+        String oracleImage = Optional.ofNullable(System.getProperty("testcontainers.oracle12.container.image"))
+                .orElse("gvenzl/oracle-xe:18.4.0-slim");
+
+        OracleContainer dbContainer = new OracleContainer(oracleImage);
+        dbContainer.start();
+        OracleDataSource dataSource;
+        try {
+            dataSource = new OracleDataSource();
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+        dataSource.setURL(dbContainer.getJdbcUrl());
+        dataSource.setUser(dbContainer.getUsername());
+        dataSource.setPassword(dbContainer.getPassword());
+
+        oraJdbcTemplate = new JdbcTemplate(dataSource);
+        oraTransactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        oraTransactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_READ_COMMITTED);
+        oraTransactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRED);
+
+        executeDdl("CREATE SEQUENCE tasks_seq START WITH 1");
+        createTable(ORA_DEFAULT_TABLE_DDL, DEFAULT_TABLE_NAME);
+        createTable(ORA_DEFAULT_NAME_TIME_INDEX_DDL, DEFAULT_TABLE_NAME);
+        createTable(ORA_DEFAULT_WO_IDENT_TABLE_DDL, DEFAULT_TABLE_NAME_WO_IDENT);
+        createTable(ORA_DEFAULT_NAME_TIME_INDEX_DDL, DEFAULT_TABLE_NAME_WO_IDENT);
+        createTable(ORA_CUSTOM_TABLE_DDL, CUSTOM_TABLE_NAME);
+        createTable(ORA_CUSTOM_NAME_TIME_INDEX_DDL, CUSTOM_TABLE_NAME);
+        createTable(ORA_CUSTOM_DEDUP_INDEX_DDL, CUSTOM_TABLE_NAME);
+        createTable(ORA_CUSTOM_COALESCE_INDEX_DDL, CUSTOM_TABLE_NAME);
+        createTable(ORA_CUSTOM_PRIORITY_INDEX_DDL, CUSTOM_TABLE_NAME);
+    }
+
+    private static void createTable(String ddlTemplate, String tableName) {
+        initialize();
+        executeDdl(String.format(ddlTemplate, tableName));
+    }
+
+    private static void executeDdl(String ddl) {
+        initialize();
+        getTransactionTemplate().execute(status -> {
+            getJdbcTemplate().execute(ddl);
+            return new Object();
+        });
+    }
+
+    public static JdbcTemplate getJdbcTemplate() {
+        initialize();
+        return oraJdbcTemplate;
+    }
+
+    public static TransactionTemplate getTransactionTemplate() {
+        initialize();
+        return oraTransactionTemplate;
+    }
+}
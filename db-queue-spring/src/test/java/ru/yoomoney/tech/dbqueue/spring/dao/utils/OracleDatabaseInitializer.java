@@ -32,6 +32,9 @@ public class OracleDatabaseInitializer {
 
     public static final String DEFAULT_TABLE_NAME = "queue_default";
     public static final String CUSTOM_TABLE_NAME = "queue_custom";
+    public static final String RATE_LIMIT_TABLE_NAME = "queue_rate_limits";
+    public static final String SETTINGS_TABLE_NAME = "queue_settings";
+    public static final String CONTROL_TABLE_NAME = "queue_control";
     public static final QueueTableSchema DEFAULT_SCHEMA = QueueTableSchema.builder().build();
     public static final QueueTableSchema CUSTOM_SCHEMA = QueueTableSchema.builder()
             .withIdField("qid")
@@ -43,6 +46,10 @@ public class OracleDatabaseInitializer {
             .withReenqueueAttemptField("rat")
             .withTotalAttemptField("tat")
             .withExtFields(Collections.singletonList("trace"))
+            .withDeduplicationKeyField("dk")
+            .withCoalescingKeyField("ck")
+            .withPriorityField("pr")
+            .withConcurrencyKeyField("trace")
             .build();
 
     private static final String ORA_CUSTOM_TABLE_DDL = "CREATE TABLE %s (\n" +
@@ -54,9 +61,21 @@ public class OracleDatabaseInitializer {
             "  att     NUMBER(38)                  DEFAULT 0,\n" +
             "  rat    NUMBER(38)                  DEFAULT 0,\n" +
             "  tat    NUMBER(38)                  DEFAULT 0,\n" +
-            "  trace  VARCHAR2(512)                  DEFAULT 0\n" +
+            "  trace  VARCHAR2(512)                  DEFAULT 0,\n" +
+            "  dk     VARCHAR2(128),\n" +
+            "  ck     VARCHAR2(128),\n" +
+            "  pr     NUMBER(38)                  DEFAULT 0\n" +
             ")";
 
+    private static final String ORA_CUSTOM_DEDUP_INDEX_DDL = "CREATE UNIQUE INDEX %1$s_dedup_idx\n" +
+            "  ON %1$s (CASE WHEN dk IS NOT NULL THEN qn END, dk)";
+
+    private static final String ORA_CUSTOM_COALESCE_INDEX_DDL = "CREATE INDEX %1$s_coalesce_idx\n" +
+            "  ON %1$s (qn, ck)";
+
+    private static final String ORA_CUSTOM_PRIORITY_INDEX_DDL = "CREATE INDEX %1$s_priority_idx\n" +
+            "  ON %1$s (qn, pr, pt)";
+
 
     private static final String ORA_DEFAULT_TABLE_DDL = "CREATE TABLE %s (\n" +
             "  id                NUMBER(38) NOT NULL PRIMARY KEY,\n" +
@@ -69,6 +88,23 @@ public class OracleDatabaseInitializer {
             "  total_attempt     NUMBER(38)                  DEFAULT 0\n" +
             ")";
 
+    private static final String ORA_RATE_LIMIT_TABLE_DDL = "CREATE TABLE %s (\n" +
+            "  queue_name  VARCHAR2(100) PRIMARY KEY,\n" +
+            "  tokens      BINARY_DOUBLE NOT NULL,\n" +
+            "  refilled_at NUMBER(19) NOT NULL\n" +
+            ")";
+
+    private static final String ORA_SETTINGS_TABLE_DDL = "CREATE TABLE %s (\n" +
+            "  setting_name  VARCHAR2(255) PRIMARY KEY,\n" +
+            "  setting_value VARCHAR2(1000),\n" +
+            "  version       NUMBER(19) NOT NULL\n" +
+            ")";
+
+    private static final String ORA_CONTROL_TABLE_DDL = "CREATE TABLE %s (\n" +
+            "  queue_name VARCHAR2(128) PRIMARY KEY,\n" +
+            "  state      VARCHAR2(32) NOT NULL\n" +
+            ")";
+
     private static JdbcTemplate oraJdbcTemplate;
     private static TransactionTemplate oraTransactionTemplate;
 
@@ -98,6 +134,12 @@ public class OracleDatabaseInitializer {
         executeDdl("CREATE SEQUENCE tasks_seq START WITH 1");
         createTable(ORA_DEFAULT_TABLE_DDL, DEFAULT_TABLE_NAME);
         createTable(ORA_CUSTOM_TABLE_DDL, CUSTOM_TABLE_NAME);
+        createTable(ORA_CUSTOM_DEDUP_INDEX_DDL, CUSTOM_TABLE_NAME);
+        createTable(ORA_CUSTOM_COALESCE_INDEX_DDL, CUSTOM_TABLE_NAME);
+        createTable(ORA_CUSTOM_PRIORITY_INDEX_DDL, CUSTOM_TABLE_NAME);
+        createTable(ORA_RATE_LIMIT_TABLE_DDL, RATE_LIMIT_TABLE_NAME);
+        createTable(ORA_SETTINGS_TABLE_DDL, SETTINGS_TABLE_NAME);
+        createTable(ORA_CONTROL_TABLE_DDL, CONTROL_TABLE_NAME);
     }
 
     private static OracleDataSource getDataSource(OracleContainer dbContainer, String userName) {
@@ -21,6 +21,9 @@ public class PostgresDatabaseInitializer {
     public static final String DEFAULT_TABLE_NAME = "queue_default";
     public static final String DEFAULT_TABLE_NAME_WO_INC = "queue_default_wo_inc";
     public static final String CUSTOM_TABLE_NAME = "queue_custom";
+    public static final String RATE_LIMIT_TABLE_NAME = "queue_rate_limits";
+    public static final String SETTINGS_TABLE_NAME = "queue_settings";
+    public static final String CONTROL_TABLE_NAME = "queue_control";
     public static final QueueTableSchema DEFAULT_SCHEMA = QueueTableSchema.builder().build();
     public static final QueueTableSchema CUSTOM_SCHEMA = QueueTableSchema.builder()
             .withIdField("qid")
@@ -32,6 +35,10 @@ public class PostgresDatabaseInitializer {
             .withReenqueueAttemptField("rat")
             .withTotalAttemptField("tat")
             .withExtFields(Collections.singletonList("trace"))
+            .withDeduplicationKeyField("dk")
+            .withCoalescingKeyField("ck")
+            .withPriorityField("pr")
+            .withConcurrencyKeyField("trace")
             .build();
 
     private static final String PG_CUSTOM_TABLE_DDL = "CREATE TABLE %s (\n" +
@@ -43,10 +50,19 @@ public class PostgresDatabaseInitializer {
             "  at    INTEGER                  DEFAULT 0,\n" +
             "  rat   INTEGER                  DEFAULT 0,\n" +
             "  tat   INTEGER                  DEFAULT 0,\n" +
-            "  trace TEXT \n" +
+            "  trace TEXT,\n" +
+            "  dk    TEXT,\n" +
+            "  ck    TEXT,\n" +
+            "  pr    INTEGER                  DEFAULT 0 \n" +
             ");" +
             "CREATE INDEX %s_name_time_desc_idx\n" +
             "  ON %s (qn, pt, qid DESC);\n" +
+            "CREATE UNIQUE INDEX %1$s_dedup_idx\n" +
+            "  ON %1$s (qn, dk);\n" +
+            "CREATE INDEX %1$s_coalesce_idx\n" +
+            "  ON %1$s (qn, ck);\n" +
+            "CREATE INDEX %1$s_priority_idx\n" +
+            "  ON %1$s (qn, pr, pt);\n" +
             "\n";
 
     private static final String PG_DEFAULT_TABLE_DDL = "CREATE TABLE %s (\n" +
@@ -77,6 +93,23 @@ public class PostgresDatabaseInitializer {
             "  ON %s (queue_name, next_process_at, id DESC);\n" +
             "\n";
 
+    private static final String PG_RATE_LIMIT_TABLE_DDL = "CREATE TABLE %s (\n" +
+            "  queue_name  VARCHAR(100) PRIMARY KEY,\n" +
+            "  tokens      DOUBLE PRECISION NOT NULL,\n" +
+            "  refilled_at BIGINT NOT NULL\n" +
+            ")";
+
+    private static final String PG_SETTINGS_TABLE_DDL = "CREATE TABLE %s (\n" +
+            "  setting_name  VARCHAR(255) PRIMARY KEY,\n" +
+            "  setting_value VARCHAR(1000),\n" +
+            "  version       BIGINT NOT NULL\n" +
+            ")";
+
+    private static final String PG_CONTROL_TABLE_DDL = "CREATE TABLE %s (\n" +
+            "  queue_name VARCHAR(128) PRIMARY KEY,\n" +
+            "  state      VARCHAR(32) NOT NULL\n" +
+            ")";
+
     private static JdbcTemplate pgJdbcTemplate;
     private static TransactionTemplate pgTransactionTemplate;
 
@@ -109,6 +142,9 @@ public class PostgresDatabaseInitializer {
         createTable(PG_DEFAULT_WO_INC_TABLE_DDL, DEFAULT_TABLE_NAME_WO_INC);
         createTable(PG_DEFAULT_TABLE_DDL, DEFAULT_TABLE_NAME);
         createTable(PG_CUSTOM_TABLE_DDL, CUSTOM_TABLE_NAME);
+        createTable(PG_RATE_LIMIT_TABLE_DDL, RATE_LIMIT_TABLE_NAME);
+        createTable(PG_SETTINGS_TABLE_DDL, SETTINGS_TABLE_NAME);
+        createTable(PG_CONTROL_TABLE_DDL, CONTROL_TABLE_NAME);
     }
 
     public static void createDefaultTable(String tableName) {